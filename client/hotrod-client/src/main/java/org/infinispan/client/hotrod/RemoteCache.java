@@ -7,6 +7,7 @@
 import java.util.concurrent.TimeUnit;
 
 import org.infinispan.commons.api.BasicCache;
+import org.infinispan.commons.util.CloseableIterator;
 import org.infinispan.commons.util.concurrent.NotifyingFuture;
 
 /**
@@ -25,9 +26,10 @@
  * supplied key. In case of RemoteCache, this returns null.
  * <p/>
  * <b>Synthetic operations</b>: aggregate operations are being implemented based on other Hot Rod operations. E.g. all
- * the {@link java.util.Map#putAll(java.util.Map)} is implemented through multiple individual puts. This means that the
- * these operations are not atomic and that they are costly, e.g. as the number of network round-trips is not one, but
- * the size of the added map. All these synthetic operations are documented as such.
+ * the {@link java.util.Map#putAll(java.util.Map)} is implemented through one bulk put per server owning any of the
+ * keys. This means that the these operations are not atomic and that they are costlier than a single operation, e.g.
+ * as the number of network round-trips is not one, but the number of servers involved. All these synthetic operations
+ * are documented as such.
  * <p/>
  * <b>changing default behavior through {@link org.infinispan.client.hotrod.Flag}s</b>: it is possible to change the
  * default cache behaviour by using flags on an per invocation basis. E.g.
@@ -169,9 +171,9 @@
    boolean containsValue(Object value);
 
    /**
-    * Returns all keys in the remote server.  It'll invoke a command over the network each time this method is called.
-    * If the remote cache is a distributed cache, it will retrieve all of the keys from all nodes in the cluster.
-    * Please use with care for cache with large data set.
+    * Returns all keys in the remote server.  It'll iterate over the keys of the remote cache each time this method is
+    * called, see {@link #retrieveKeys(int)}. The returned set holds all of the keys in the client's memory, so please
+    * use {@link #retrieveKeys(int)} instead for caches with a large data set.
     */
    @Override
    Set<K> keySet();
@@ -189,9 +191,10 @@
    Set<Entry<K, V>> entrySet();
 
    /**
-    * Synthetic operation. The client iterates over the set of keys and calls put for each one of them. This results in
-    * operation not being atomic (if a failure happens after few puts it is not rolled back) and costly (for each key in
-    * the parameter map a remote call is performed).
+    * Synthetic operation. The client splits the entries by the server owning their keys and sends a single bulk put to
+    * each of these servers, all of them concurrently. This results in operation not being atomic (if a failure happens
+    * after some of the servers have stored their entries it is not rolled back) and costlier than a single put (a
+    * remote call is performed for each server involved).
     */
    @Override
    void putAll(Map<? extends K, ? extends V> map, long lifespan, TimeUnit unit);
@@ -257,11 +260,10 @@
    RemoteCacheManager getRemoteCacheManager();
 
    /**
-    * Bulk get operations, returns all the entries within the remote cache.
+    * Bulk get operations, returns all the entries within the remote cache. The entries are retrieved through
+    * {@link #retrieveEntries(int)}, but the returned Map holds all of them in the client's memory.
     *
-    * @return the returned values depend on the configuration of the back-end infinispan servers. Read <a
-    *         href="http://community.jboss.org/wiki/HotRodBulkGet-Design#Server_side">this</a> for more details. The
-    *         returned Map is unmodifiable.
+    * @return the entries of the remote cache. The returned Map is unmodifiable.
     */
    Map<K, V> getBulk();
 
@@ -271,6 +273,30 @@
     */
    Map<K, V> getBulk(int size);
 
+   /**
+    * Retrieves the values associated with the given keys. The client splits the keys by the server owning them and
+    * sends a single request to each of these servers, all of them concurrently.
+    *
+    * @return the entries found for the given keys; keys which are not mapped to any value are not contained in the
+    *         returned Map, which is unmodifiable.
+    */
+   Map<K, V> getAll(Set<? extends K> keys);
+
+   /**
+    * Iterates over all the entries of the remote cache. The entries are fetched from the servers in batches of the
+    * given size as the iteration proceeds, so that neither the client nor the servers ever hold the whole cache in
+    * memory. If a server fails, the iteration resumes on another server which owns the same entries.
+    * <p/>
+    * Entries written or removed while iterating may or may not be returned. The returned iterator is not thread safe,
+    * and it must be closed if it is abandoned before being exhausted.
+    */
+   CloseableIterator<Map.Entry<K, V>> retrieveEntries(int batchSize);
+
+   /**
+    * Same as {@link #retrieveEntries(int)}, but only iterates over the keys.
+    */
+   CloseableIterator<K> retrieveKeys(int batchSize);
+
 
    /**
     * Returns the HotRod protocol version supported by this RemoteCache implementation
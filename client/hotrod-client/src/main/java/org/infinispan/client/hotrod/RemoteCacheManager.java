@@ -70,8 +70,9 @@
  * <li><tt>infinispan.client.hotrod.key_size_estimate</tt>, default = 64.  This hint allows sizing of byte buffers when serializing and deserializing keys, to minimize array resizing.</li>
  * <li><tt>infinispan.client.hotrod.value_size_estimate</tt>, default = 512.  This hint allows sizing of byte buffers when serializing and deserializing values, to minimize array resizing.</li>
  * <li><tt>infinispan.client.hotrod.socket_timeout</tt>, default = 60000 (60 seconds).  This property defines the maximum socket read timeout before giving up waiting for bytes from the server.</li>
- * <li><tt>infinispan.client.hotrod.protocol_version</tt>, default = 1.1 .This property defines the protocol version that this client should use. Other valid values include 1.0.</li>
+ * <li><tt>infinispan.client.hotrod.protocol_version</tt>, default = 1.3 .This property defines the protocol version that this client should use. Other valid values include 1.0, 1.1 and 1.2; set it to the version of the oldest server in the cluster during a rolling upgrade.</li>
  * <li><tt>infinispan.client.hotrod.connect_timeout</tt>, default = 60000 (60 seconds).  This property defines the maximum socket connect timeout before giving up connecting to the server.</li>
+ * <li><tt>infinispan.client.hotrod.async_connections_per_server</tt>, default = 2.  The number of non-blocking connections to each server over which asynchronous operations are pipelined. If 0, or if SSL is enabled, asynchronous operations are executed by the async executor instead.</li>
  * </ul>
  * <br/>
  * <i>The following properties are related to connection pooling</i>:
@@ -315,6 +316,9 @@ public Properties getProperties() {
       properties.setProperty(ConfigurationProperties.TCP_NO_DELAY, Boolean.toString(configuration.tcpNoDelay()));
       properties.setProperty(ConfigurationProperties.TRANSPORT_FACTORY, configuration.transportFactory().getName());
       properties.setProperty(ConfigurationProperties.VALUE_SIZE_ESTIMATE, Integer.toString(configuration.valueSizeEstimate()));
+      properties.setProperty(ConfigurationProperties.ASYNC_CONNECTIONS_PER_SERVER, Integer.toString(configuration.asyncConnectionsPerServer()));
+      properties.setProperty(ConfigurationProperties.NEAR_CACHE_ENABLED, Boolean.toString(configuration.nearCache().enabled()));
+      properties.setProperty(ConfigurationProperties.NEAR_CACHE_MAX_ENTRIES, Integer.toString(configuration.nearCache().maxEntries()));
 
       properties.setProperty("exhaustedAction", Integer.toString(configuration.connectionPool().exhaustedAction().ordinal()));
       properties.setProperty("maxActive", Integer.toString(configuration.connectionPool().maxActive()));
@@ -580,6 +584,11 @@ public void start() {
    @Override
    public void stop() {
       if (isStarted()) {
+         synchronized (cacheName2RemoteCache) {
+            for (RemoteCacheHolder rcc : cacheName2RemoteCache.values()) {
+               rcc.remoteCache.stop();
+            }
+         }
          transportFactory.destroy();
          asyncExecutorService.shutdownNow();
       }
@@ -612,6 +621,7 @@ private <K, V> RemoteCache<K, V> createRemoteCache(String cacheName, Boolean for
                // Default cache is always started, so don't do for it
                if (!cacheName.equals(RemoteCacheManager.DEFAULT_CACHE_NAME) &&
                      ping(result) == PingResult.CACHE_DOES_NOT_EXIST) {
+                  result.stop();
                   return null;
                }
             }
@@ -636,7 +646,8 @@ private void startRemoteCache(RemoteCacheHolder remoteCacheHolder) {
       RemoteCacheImpl<?, ?> remoteCache = remoteCacheHolder.remoteCache;
       OperationsFactory operationsFactory = new OperationsFactory(
             transportFactory, remoteCache.getName(), topologyId, remoteCacheHolder.forceReturnValue, codec);
-      remoteCache.init(marshaller, asyncExecutorService, operationsFactory, configuration.keySizeEstimate(), configuration.valueSizeEstimate());
+      remoteCache.init(marshaller, asyncExecutorService, operationsFactory, configuration.keySizeEstimate(), configuration.valueSizeEstimate(),
+            configuration.nearCache());
    }
 
    public Marshaller getMarshaller() {
@@ -30,6 +30,11 @@ public ConfigurationBuilder addServers(String servers) {
       return builder.addServers(servers);
    }
 
+   @Override
+   public ConfigurationBuilder asyncConnectionsPerServer(int asyncConnectionsPerServer) {
+      return builder.asyncConnectionsPerServer(asyncConnectionsPerServer);
+   }
+
    @Override
    public ExecutorFactoryConfigurationBuilder asyncExecutorFactory() {
       return builder.asyncExecutorFactory();
@@ -110,6 +115,11 @@ public ConfigurationBuilder socketTimeout(int socketTimeout) {
       return builder.socketTimeout(socketTimeout);
    }
 
+   @Override
+   public NearCacheConfigurationBuilder nearCache() {
+      return builder.nearCache();
+   }
+
    @Override
    public SslConfigurationBuilder ssl() {
       return builder.ssl();
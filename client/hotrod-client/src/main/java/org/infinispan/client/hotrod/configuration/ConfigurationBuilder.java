@@ -29,6 +29,7 @@
  */
 public class ConfigurationBuilder implements ConfigurationChildBuilder, Builder<Configuration> {
    private WeakReference<ClassLoader> classLoader;
+   private int asyncConnectionsPerServer = ConfigurationProperties.DEFAULT_ASYNC_CONNECTIONS_PER_SERVER;
    private final ExecutorFactoryConfigurationBuilder asyncExecutorFactory;
    private Class<? extends RequestBalancingStrategy> balancingStrategy = RoundRobinBalancingStrategy.class;
    private final ConnectionPoolConfigurationBuilder connectionPool;
@@ -39,6 +40,7 @@ public class ConfigurationBuilder implements ConfigurationChildBuilder, Builder<
    private int keySizeEstimate = ConfigurationProperties.DEFAULT_KEY_SIZE;
    private Class<? extends Marshaller> marshallerClass = GenericJBossMarshaller.class;
    private Marshaller marshaller;
+   private final NearCacheConfigurationBuilder nearCache;
    private boolean pingOnStartup = true;
    private String protocolVersion = ConfigurationProperties.DEFAULT_PROTOCOL_VERSION;
    private List<ServerConfigurationBuilder> servers = new ArrayList<ServerConfigurationBuilder>();
@@ -53,6 +55,7 @@ public ConfigurationBuilder() {
       this.classLoader = new WeakReference<ClassLoader>(Thread.currentThread().getContextClassLoader());
       this.connectionPool = new ConnectionPoolConfigurationBuilder(this);
       this.asyncExecutorFactory = new ExecutorFactoryConfigurationBuilder(this);
+      this.nearCache = new NearCacheConfigurationBuilder(this);
       this.ssl = new SslConfigurationBuilder(this);
    }
 
@@ -76,6 +79,12 @@ public ConfigurationBuilder addServers(String servers) {
       return this;
    }
 
+   @Override
+   public ConfigurationBuilder asyncConnectionsPerServer(int asyncConnectionsPerServer) {
+      this.asyncConnectionsPerServer = asyncConnectionsPerServer;
+      return this;
+   }
+
    @Override
    public ExecutorFactoryConfigurationBuilder asyncExecutorFactory() {
       return this.asyncExecutorFactory;
@@ -156,6 +165,11 @@ public ConfigurationBuilder marshaller(Marshaller marshaller) {
       return this;
    }
 
+   @Override
+   public NearCacheConfigurationBuilder nearCache() {
+      return nearCache;
+   }
+
    @Override
    public ConfigurationBuilder pingOnStartup(boolean pingOnStartup) {
       this.pingOnStartup = pingOnStartup;
@@ -207,6 +221,7 @@ public ConfigurationBuilder valueSizeEstimate(int valueSizeEstimate) {
    public ConfigurationBuilder withProperties(Properties properties) {
       TypedProperties typed = TypedProperties.toTypedProperties(properties);
 
+      this.asyncConnectionsPerServer(typed.getIntProperty(ConfigurationProperties.ASYNC_CONNECTIONS_PER_SERVER, asyncConnectionsPerServer));
       if (typed.containsKey(ConfigurationProperties.ASYNC_EXECUTOR_FACTORY)) {
          this.asyncExecutorFactory().factoryClass(typed.getProperty(ConfigurationProperties.ASYNC_EXECUTOR_FACTORY));
       }
@@ -222,6 +237,7 @@ public ConfigurationBuilder withProperties(Properties properties) {
       if (typed.containsKey(ConfigurationProperties.MARSHALLER)) {
          this.marshaller(typed.getProperty(ConfigurationProperties.MARSHALLER));
       }
+      this.nearCache.withNearCacheProperties(typed);
       this.pingOnStartup(typed.getBooleanProperty(ConfigurationProperties.PING_ON_STARTUP, pingOnStartup));
       this.protocolVersion(typed.getProperty(ConfigurationProperties.PROTOCOL_VERSION, protocolVersion));
       this.servers.clear();
@@ -239,6 +255,7 @@ public ConfigurationBuilder withProperties(Properties properties) {
    public void validate() {
       connectionPool.validate();
       asyncExecutorFactory.validate();
+      nearCache.validate();
       ssl.validate();
    }
 
@@ -253,12 +270,12 @@ public Configuration create() {
          servers.add(new ServerConfiguration("127.0.0.1", ConfigurationProperties.DEFAULT_HOTROD_PORT));
       }
       if (marshaller == null) {
-         return new Configuration(asyncExecutorFactory.create(), balancingStrategy, classLoader == null ? null : classLoader.get(), connectionPool.create(), connectionTimeout,
-               consistentHashImpl, forceReturnValues, keySizeEstimate, marshallerClass, pingOnStartup, protocolVersion, servers, socketTimeout, ssl.create(), tcpNoDelay, transportFactory,
+         return new Configuration(asyncConnectionsPerServer, asyncExecutorFactory.create(), balancingStrategy, classLoader == null ? null : classLoader.get(), connectionPool.create(), connectionTimeout,
+               consistentHashImpl, forceReturnValues, keySizeEstimate, marshallerClass, nearCache.create(), pingOnStartup, protocolVersion, servers, socketTimeout, ssl.create(), tcpNoDelay, transportFactory,
                valueSizeEstimate);
       } else {
-         return new Configuration(asyncExecutorFactory.create(), balancingStrategy, classLoader == null ? null : classLoader.get(), connectionPool.create(), connectionTimeout,
-               consistentHashImpl, forceReturnValues, keySizeEstimate, marshaller, pingOnStartup, protocolVersion, servers, socketTimeout, ssl.create(), tcpNoDelay, transportFactory,
+         return new Configuration(asyncConnectionsPerServer, asyncExecutorFactory.create(), balancingStrategy, classLoader == null ? null : classLoader.get(), connectionPool.create(), connectionTimeout,
+               consistentHashImpl, forceReturnValues, keySizeEstimate, marshaller, nearCache.create(), pingOnStartup, protocolVersion, servers, socketTimeout, ssl.create(), tcpNoDelay, transportFactory,
                valueSizeEstimate);
       }
    }
@@ -278,6 +295,7 @@ public Configuration build(boolean validate) {
    @Override
    public ConfigurationBuilder read(Configuration template) {
       this.classLoader = new WeakReference<ClassLoader>(template.classLoader());
+      this.asyncConnectionsPerServer = template.asyncConnectionsPerServer();
       this.asyncExecutorFactory.read(template.asyncExecutorFactory());
       this.balancingStrategy = template.balancingStrategy();
       this.connectionPool.read(template.connectionPool());
@@ -289,6 +307,7 @@ public ConfigurationBuilder read(Configuration template) {
       this.keySizeEstimate = template.keySizeEstimate();
       this.marshaller = template.marshaller();
       this.marshallerClass = template.marshallerClass();
+      this.nearCache.read(template.nearCache());
       this.pingOnStartup = template.pingOnStartup();
       this.protocolVersion = template.protocolVersion();
       this.servers.clear();
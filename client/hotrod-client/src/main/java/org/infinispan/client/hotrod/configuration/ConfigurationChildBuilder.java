@@ -27,6 +27,14 @@ public interface ConfigurationChildBuilder {
     */
    ConfigurationBuilder addServers(String servers);
 
+   /**
+    * The number of non-blocking connections opened to each server for asynchronous operations such as
+    * Cache.putAsync(). Any number of asynchronous requests can be outstanding on each of these connections.
+    * Setting this to 0 executes asynchronous operations on the {@link #asyncExecutorFactory()} instead, which is
+    * also what happens when SSL is enabled. Defaults to 2
+    */
+   ConfigurationBuilder asyncConnectionsPerServer(int asyncConnectionsPerServer);
+
    /**
     * Configuration for the executor service used for asynchronous work on the Transport, including
     * asynchronous marshalling and Cache 'async operations' such as Cache.putAsync().
@@ -102,6 +110,11 @@ public interface ConfigurationChildBuilder {
     */
    ConfigurationBuilder marshaller(Marshaller marshaller);
 
+   /**
+    * Near cache configuration
+    */
+   NearCacheConfigurationBuilder nearCache();
+
    /**
     * If true, a ping request is sent to a back end server in order to fetch cluster's topology.
     */
@@ -0,0 +1,29 @@
+package org.infinispan.client.hotrod.configuration;
+
+/**
+ * NearCacheConfiguration.
+ *
+ * @since 7.0
+ */
+public class NearCacheConfiguration {
+   private final boolean enabled;
+   private final int maxEntries;
+
+   NearCacheConfiguration(boolean enabled, int maxEntries) {
+      this.enabled = enabled;
+      this.maxEntries = maxEntries;
+   }
+
+   public boolean enabled() {
+      return enabled;
+   }
+
+   public int maxEntries() {
+      return maxEntries;
+   }
+
+   @Override
+   public String toString() {
+      return "NearCacheConfiguration [enabled=" + enabled + ", maxEntries=" + maxEntries + "]";
+   }
+}
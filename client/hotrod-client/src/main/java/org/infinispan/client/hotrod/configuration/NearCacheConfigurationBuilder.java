@@ -0,0 +1,89 @@
+package org.infinispan.client.hotrod.configuration;
+
+import java.util.Properties;
+
+import org.infinispan.client.hotrod.impl.ConfigurationProperties;
+import org.infinispan.client.hotrod.impl.TypedProperties;
+import org.infinispan.client.hotrod.logging.Log;
+import org.infinispan.client.hotrod.logging.LogFactory;
+import org.infinispan.commons.configuration.Builder;
+
+/**
+ * NearCacheConfigurationBuilder. Configures the client side cache of recently read entries, which is kept coherent
+ * by invalidation events pushed by the servers.
+ *
+ * @since 7.0
+ */
+public class NearCacheConfigurationBuilder extends AbstractConfigurationChildBuilder implements Builder<NearCacheConfiguration> {
+   private static final Log log = LogFactory.getLog(NearCacheConfigurationBuilder.class);
+   private boolean enabled = false;
+   private int maxEntries = ConfigurationProperties.DEFAULT_NEAR_CACHE_MAX_ENTRIES;
+
+   protected NearCacheConfigurationBuilder(ConfigurationBuilder builder) {
+      super(builder);
+   }
+
+   /**
+    * Disables the near cache
+    */
+   public NearCacheConfigurationBuilder disable() {
+      this.enabled = false;
+      return this;
+   }
+
+   /**
+    * Enables the near cache
+    */
+   public NearCacheConfigurationBuilder enable() {
+      this.enabled = true;
+      return this;
+   }
+
+   /**
+    * Enables or disables the near cache
+    */
+   public NearCacheConfigurationBuilder enabled(boolean enabled) {
+      this.enabled = enabled;
+      return this;
+   }
+
+   /**
+    * The maximum number of entries kept in the near cache of each remote cache. When the limit is reached, the least
+    * recently used entries are evicted. Defaults to 10000
+    */
+   public NearCacheConfigurationBuilder maxEntries(int maxEntries) {
+      this.maxEntries = maxEntries;
+      return this;
+   }
+
+   /**
+    * Configures the near cache from the {@link ConfigurationProperties#NEAR_CACHE_ENABLED} and
+    * {@link ConfigurationProperties#NEAR_CACHE_MAX_ENTRIES} properties
+    */
+   public NearCacheConfigurationBuilder withNearCacheProperties(Properties properties) {
+      TypedProperties typed = TypedProperties.toTypedProperties(properties);
+      enabled(typed.getBooleanProperty(ConfigurationProperties.NEAR_CACHE_ENABLED, enabled));
+      maxEntries(typed.getIntProperty(ConfigurationProperties.NEAR_CACHE_MAX_ENTRIES, maxEntries));
+      return this;
+   }
+
+   @Override
+   public void validate() {
+      if (enabled && maxEntries <= 0) {
+         throw log.invalidNearCacheMaxEntries(maxEntries);
+      }
+   }
+
+   @Override
+   public NearCacheConfiguration create() {
+      return new NearCacheConfiguration(enabled, maxEntries);
+   }
+
+   @Override
+   public NearCacheConfigurationBuilder read(NearCacheConfiguration template) {
+      this.enabled = template.enabled();
+      this.maxEntries = template.maxEntries();
+      return this;
+   }
+
+}
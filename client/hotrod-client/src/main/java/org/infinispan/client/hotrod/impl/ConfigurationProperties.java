@@ -40,6 +40,9 @@ public class ConfigurationProperties {
    public static final String KEY_STORE_PASSWORD = "infinispan.client.hotrod.key_store_password";
    public static final String TRUST_STORE_FILE_NAME = "infinispan.client.hotrod.trust_store_file_name";
    public static final String TRUST_STORE_PASSWORD = "infinispan.client.hotrod.trust_store_password";
+   public static final String ASYNC_CONNECTIONS_PER_SERVER = "infinispan.client.hotrod.async_connections_per_server";
+   public static final String NEAR_CACHE_ENABLED = "infinispan.client.hotrod.near_cache.enabled";
+   public static final String NEAR_CACHE_MAX_ENTRIES = "infinispan.client.hotrod.near_cache.max_entries";
 
    // defaults
 
@@ -48,10 +51,13 @@ public class ConfigurationProperties {
    public static final int DEFAULT_HOTROD_PORT = 11222;
    public static final int DEFAULT_SO_TIMEOUT = 60000;
    public static final int DEFAULT_CONNECT_TIMEOUT = 60000;
+   public static final int DEFAULT_ASYNC_CONNECTIONS_PER_SERVER = 2;
+   public static final int DEFAULT_NEAR_CACHE_MAX_ENTRIES = 10000;
+   public static final String PROTOCOL_VERSION_13 = "1.3";
    public static final String PROTOCOL_VERSION_12 = "1.2";
    public static final String PROTOCOL_VERSION_11 = "1.1";
    public static final String PROTOCOL_VERSION_10 = "1.0";
-   public static final String DEFAULT_PROTOCOL_VERSION = PROTOCOL_VERSION_12;
+   public static final String DEFAULT_PROTOCOL_VERSION = PROTOCOL_VERSION_13;
 
    private final TypedProperties props;
 
@@ -165,4 +171,16 @@ public String getTrustStorePassword() {
       return props.getProperty(TRUST_STORE_PASSWORD, null);
    }
 
+   public int getAsyncConnectionsPerServer() {
+      return props.getIntProperty(ASYNC_CONNECTIONS_PER_SERVER, DEFAULT_ASYNC_CONNECTIONS_PER_SERVER);
+   }
+
+   public boolean getNearCacheEnabled() {
+      return props.getBooleanProperty(NEAR_CACHE_ENABLED, false);
+   }
+
+   public int getNearCacheMaxEntries() {
+      return props.getIntProperty(NEAR_CACHE_MAX_ENTRIES, DEFAULT_NEAR_CACHE_MAX_ENTRIES);
+   }
+
 }
@@ -3,15 +3,22 @@
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.infinispan.client.hotrod.Flag;
 import org.infinispan.client.hotrod.MetadataValue;
@@ -20,18 +27,25 @@
 import org.infinispan.client.hotrod.ServerStatistics;
 import org.infinispan.client.hotrod.Version;
 import org.infinispan.client.hotrod.VersionedValue;
+import org.infinispan.client.hotrod.configuration.NearCacheConfiguration;
 import org.infinispan.client.hotrod.exceptions.HotRodClientException;
 import org.infinispan.client.hotrod.exceptions.RemoteCacheManagerNotStartedException;
-import org.infinispan.client.hotrod.impl.async.NotifyingFutureImpl;
+import org.infinispan.client.hotrod.impl.async.ConvertingFuture;
+import org.infinispan.client.hotrod.impl.async.ResponseFuture;
+import org.infinispan.client.hotrod.impl.iteration.RemoteEntryIterator;
+import org.infinispan.client.hotrod.impl.nearcache.NearCache;
+import org.infinispan.client.hotrod.impl.nearcache.NearCacheInvalidator;
 import org.infinispan.client.hotrod.impl.operations.BulkGetKeysOperation;
 import org.infinispan.client.hotrod.impl.operations.BulkGetOperation;
 import org.infinispan.client.hotrod.impl.operations.ClearOperation;
 import org.infinispan.client.hotrod.impl.operations.ContainsKeyOperation;
+import org.infinispan.client.hotrod.impl.operations.GetAllOperation;
 import org.infinispan.client.hotrod.impl.operations.GetOperation;
 import org.infinispan.client.hotrod.impl.operations.GetWithMetadataOperation;
 import org.infinispan.client.hotrod.impl.operations.GetWithVersionOperation;
 import org.infinispan.client.hotrod.impl.operations.OperationsFactory;
 import org.infinispan.client.hotrod.impl.operations.PingOperation;
+import org.infinispan.client.hotrod.impl.operations.PutAllOperation;
 import org.infinispan.client.hotrod.impl.operations.PutIfAbsentOperation;
 import org.infinispan.client.hotrod.impl.operations.PutOperation;
 import org.infinispan.client.hotrod.impl.operations.RemoveIfUnmodifiedOperation;
@@ -42,6 +56,9 @@
 import org.infinispan.client.hotrod.logging.Log;
 import org.infinispan.client.hotrod.logging.LogFactory;
 import org.infinispan.commons.marshall.Marshaller;
+import org.infinispan.commons.util.CloseableIterator;
+import org.infinispan.commons.util.concurrent.FutureListener;
+import org.infinispan.commons.util.concurrent.NoOpFuture;
 import org.infinispan.commons.util.concurrent.NotifyingFuture;
 
 /**
@@ -52,6 +69,8 @@
 
    private static final Log log = LogFactory.getLog(RemoteCacheImpl.class, Log.class);
 
+   private static final int DEFAULT_BATCH_SIZE = 1000;
+
    private Marshaller marshaller;
    private final String name;
    private final RemoteCacheManager remoteCacheManager;
@@ -59,7 +78,8 @@
    private OperationsFactory operationsFactory;
    private int estimateKeySize;
    private int estimateValueSize;
-
+   private volatile NearCache<V> nearCache;
+   private NearCacheInvalidator nearCacheInvalidator;
 
    public RemoteCacheImpl(RemoteCacheManager rcm, String name) {
       if (log.isTraceEnabled()) {
@@ -69,12 +89,38 @@ public RemoteCacheImpl(RemoteCacheManager rcm, String name) {
       this.remoteCacheManager = rcm;
    }
 
-   public void init(Marshaller marshaller, ExecutorService executorService, OperationsFactory operationsFactory, int estimateKeySize, int estimateValueSize) {
+   public void init(Marshaller marshaller, ExecutorService executorService, OperationsFactory operationsFactory, int estimateKeySize, int estimateValueSize,
+                    NearCacheConfiguration nearCacheConfiguration) {
       this.marshaller = marshaller;
       this.executorService = executorService;
       this.operationsFactory = operationsFactory;
       this.estimateKeySize = estimateKeySize;
       this.estimateValueSize = estimateValueSize;
+      stopNearCache();
+      if (nearCacheConfiguration.enabled() && !operationsFactory.isBulkOperationsSupported()) {
+         // older servers can't send invalidation events
+         log.nearCacheNotSupported(name);
+      } else if (nearCacheConfiguration.enabled()) {
+         NearCache<V> near = new NearCache<V>(nearCacheConfiguration.maxEntries());
+         nearCacheInvalidator = new NearCacheInvalidator(operationsFactory, near, name);
+         nearCacheInvalidator.start();
+         nearCache = near;
+      }
+   }
+
+   private void stopNearCache() {
+      if (nearCacheInvalidator != null) {
+         nearCacheInvalidator.stop();
+         nearCacheInvalidator = null;
+      }
+      nearCache = null;
+   }
+
+   /**
+    * Returns the near cache, or null if it is not enabled.
+    */
+   public NearCache<V> getNearCache() {
+      return nearCache;
    }
 
    public OperationsFactory getOperationsFactory() {
@@ -89,49 +135,41 @@ public RemoteCacheManager getRemoteCacheManager() {
    @Override
    public boolean removeWithVersion(K key, long version) {
       assertRemoteCacheManagerIsStarted();
-      RemoveIfUnmodifiedOperation op = operationsFactory.newRemoveIfUnmodifiedOperation(obj2bytes(key, true), version);
+      byte[] keyBytes = obj2bytes(key, true);
+      invalidateNear(keyBytes);
+      RemoveIfUnmodifiedOperation op = operationsFactory.newRemoveIfUnmodifiedOperation(keyBytes, version);
       VersionedOperationResponse response = op.execute();
+      invalidateNear(keyBytes);
       return response.getCode().isUpdated();
    }
 
    @Override
    public NotifyingFuture<Boolean> removeWithVersionAsync(final K key, final long version) {
       assertRemoteCacheManagerIsStarted();
-      final NotifyingFutureImpl<Boolean> result = new NotifyingFutureImpl<Boolean>();
-      Future<Boolean> future = executorService.submit(new Callable<Boolean>() {
-         @Override
-         public Boolean call() throws Exception {
-            boolean removed = removeWithVersion(key, version);
-            result.notifyFutureCompletion();
-            return removed;
-         }
-      });
-      result.setExecuting(future);
-      return result;
+      byte[] keyBytes = obj2bytes(key, true);
+      invalidateNear(keyBytes);
+      RemoveIfUnmodifiedOperation op = operationsFactory.newRemoveIfUnmodifiedOperation(keyBytes, version);
+      return isUpdated(invalidateNearOnCompletion(op.executeAsync(executorService), keyBytes));
    }
 
    @Override
    public boolean replaceWithVersion(K key, V newValue, long version, int lifespanSeconds, int maxIdleTimeSeconds) {
       assertRemoteCacheManagerIsStarted();
-      ReplaceIfUnmodifiedOperation op = operationsFactory.newReplaceIfUnmodifiedOperation(obj2bytes(key, true), obj2bytes(newValue, false), lifespanSeconds, maxIdleTimeSeconds, version);
+      byte[] keyBytes = obj2bytes(key, true);
+      invalidateNear(keyBytes);
+      ReplaceIfUnmodifiedOperation op = operationsFactory.newReplaceIfUnmodifiedOperation(keyBytes, obj2bytes(newValue, false), lifespanSeconds, maxIdleTimeSeconds, version);
       VersionedOperationResponse response = op.execute();
+      invalidateNear(keyBytes);
       return response.getCode().isUpdated();
    }
 
    @Override
    public NotifyingFuture<Boolean> replaceWithVersionAsync(final K key, final V newValue, final long version, final int lifespanSeconds, final int maxIdleSeconds) {
       assertRemoteCacheManagerIsStarted();
-      final NotifyingFutureImpl<Boolean> result = new NotifyingFutureImpl<Boolean>();
-      Future<Boolean> future = executorService.submit(new Callable<Boolean>() {
-         @Override
-         public Boolean call() throws Exception {
-            boolean removed = replaceWithVersion(key, newValue, version, lifespanSeconds, maxIdleSeconds);
-            result.notifyFutureCompletion();
-            return removed;
-         }
-      });
-      result.setExecuting(future);
-      return result;
+      byte[] keyBytes = obj2bytes(key, true);
+      invalidateNear(keyBytes);
+      ReplaceIfUnmodifiedOperation op = operationsFactory.newReplaceIfUnmodifiedOperation(keyBytes, obj2bytes(newValue, false), lifespanSeconds, maxIdleSeconds, version);
+      return isUpdated(invalidateNearOnCompletion(op.executeAsync(executorService), keyBytes));
    }
 
    @Override
@@ -153,26 +191,103 @@ public MetadataValue<V> getWithMetadata(K key) {
    @Override
    public void putAll(Map<? extends K, ? extends V> map, long lifespan, TimeUnit lifespanUnit, long maxIdleTime, TimeUnit maxIdleTimeUnit) {
       assertRemoteCacheManagerIsStarted();
-      for (Entry<? extends K, ? extends V> entry : map.entrySet()) {
-         put(entry.getKey(), entry.getValue(), lifespan, lifespanUnit, maxIdleTime, maxIdleTimeUnit);
+      if (map.isEmpty()) {
+         return;
+      }
+      if (!operationsFactory.isBulkOperationsSupported()) {
+         for (Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            put(entry.getKey(), entry.getValue(), lifespan, lifespanUnit, maxIdleTime, maxIdleTimeUnit);
+         }
+         return;
+      }
+      Map<byte[], byte[]> entries = toBinaryEntries(map);
+      List<PutAllOperation> ops = newPutAllOperations(entries, lifespan, lifespanUnit, maxIdleTime, maxIdleTimeUnit);
+      try {
+         if (ops.size() == 1) {
+            ops.get(0).execute();
+            return;
+         }
+         // one request per server, all of them in flight at the same time
+         List<ResponseFuture<Void>> futures = new ArrayList<ResponseFuture<Void>>(ops.size());
+         for (PutAllOperation op : ops) {
+            futures.add(op.executeAsync(executorService));
+         }
+         for (ResponseFuture<Void> future : futures) {
+            await(future);
+         }
+      } finally {
+         invalidateNear(entries.keySet());
       }
    }
 
    @Override
    public NotifyingFuture<Void> putAllAsync(final Map<? extends K, ? extends V> data, final long lifespan, final TimeUnit lifespanUnit, final long maxIdle, final TimeUnit maxIdleUnit) {
       assertRemoteCacheManagerIsStarted();
-      final NotifyingFutureImpl<Void> result = new NotifyingFutureImpl<Void>();
-      Future<Void> future = executorService.submit(new Callable<Void>() {
+      final ResponseFuture<Void> result = new ResponseFuture<Void>();
+      if (data.isEmpty()) {
+         result.complete(null);
+         return result;
+      }
+      if (!operationsFactory.isBulkOperationsSupported()) {
+         executorService.submit(new Runnable() {
+            @Override
+            public void run() {
+               try {
+                  putAll(data, lifespan, lifespanUnit, maxIdle, maxIdleUnit);
+                  result.complete(null);
+               } catch (Throwable t) {
+                  result.fail(t);
+               }
+            }
+         });
+         return result;
+      }
+      final Map<byte[], byte[]> entries = toBinaryEntries(data);
+      List<PutAllOperation> ops = newPutAllOperations(entries, lifespan, lifespanUnit, maxIdle, maxIdleUnit);
+      // the requests to the different servers are pipelined, the result completes once the last of them does
+      final AtomicInteger remaining = new AtomicInteger(ops.size());
+      FutureListener<Void> listener = new FutureListener<Void>() {
          @Override
-         public Void call() throws Exception {
-            putAll(data, lifespan, lifespanUnit, maxIdle, maxIdleUnit);
-            result.notifyFutureCompletion();
-            return null;
+         public void futureDone(Future<Void> future) {
+            invalidateNear(entries.keySet());
+            try {
+               future.get();
+               if (remaining.decrementAndGet() == 0) {
+                  result.complete(null);
+               }
+            } catch (ExecutionException e) {
+               result.fail(e.getCause());
+            } catch (InterruptedException e) {
+               Thread.currentThread().interrupt();
+               result.fail(e);
+            } catch (CancellationException e) {
+               result.cancel(false);
+            }
          }
-      });
-      result.setExecuting(future);
+      };
+      for (PutAllOperation op : ops) {
+         op.executeAsync(executorService).attachListener(listener);
+      }
       return result;
+   }
 
+   private Map<byte[], byte[]> toBinaryEntries(Map<? extends K, ? extends V> map) {
+      Map<byte[], byte[]> entries = new HashMap<byte[], byte[]>(map.size());
+      for (Entry<? extends K, ? extends V> entry : map.entrySet()) {
+         entries.put(obj2bytes(entry.getKey(), true), obj2bytes(entry.getValue(), false));
+      }
+      return entries;
+   }
+
+   private List<PutAllOperation> newPutAllOperations(Map<byte[], byte[]> entries, long lifespan, TimeUnit lifespanUnit, long maxIdleTime, TimeUnit maxIdleTimeUnit) {
+      int lifespanSecs = toSeconds(lifespan, lifespanUnit);
+      int maxIdleSecs = toSeconds(maxIdleTime, maxIdleTimeUnit);
+      applyDefaultExpirationFlags(lifespan, maxIdleTime);
+      if (log.isTraceEnabled()) {
+         log.tracef("About to add %d entries, lifespanSecs:%d, maxIdleSecs:%d", entries.size(), lifespanSecs, maxIdleSecs);
+      }
+      invalidateNear(entries.keySet());
+      return operationsFactory.newPutAllOperations(entries, lifespanSecs, maxIdleSecs);
    }
 
    @Override
@@ -209,8 +324,11 @@ public V put(K key, V value, long lifespan, TimeUnit lifespanUnit, long maxIdleT
       if (log.isTraceEnabled()) {
          log.tracef("About to add (K,V): (%s, %s) lifespanSecs:%d, maxIdleSecs:%d", key, value, lifespanSecs, maxIdleSecs);
       }
-      PutOperation op = operationsFactory.newPutKeyValueOperation(obj2bytes(key, true), obj2bytes(value, false), lifespanSecs, maxIdleSecs);
+      byte[] keyBytes = obj2bytes(key, true);
+      invalidateNear(keyBytes);
+      PutOperation op = operationsFactory.newPutKeyValueOperation(keyBytes, obj2bytes(value, false), lifespanSecs, maxIdleSecs);
       byte[] result = op.execute();
+      invalidateNear(keyBytes);
       return (V) bytes2obj(result);
    }
 
@@ -222,8 +340,11 @@ public V putIfAbsent(K key, V value, long lifespan, TimeUnit lifespanUnit, long
       int lifespanSecs = toSeconds(lifespan, lifespanUnit);
       int maxIdleSecs = toSeconds(maxIdleTime, maxIdleTimeUnit);
       applyDefaultExpirationFlags(lifespan, maxIdleTime);
-      PutIfAbsentOperation op = operationsFactory.newPutIfAbsentOperation(obj2bytes(key, true), obj2bytes(value, false), lifespanSecs, maxIdleSecs);
+      byte[] keyBytes = obj2bytes(key, true);
+      invalidateNear(keyBytes);
+      PutIfAbsentOperation op = operationsFactory.newPutIfAbsentOperation(keyBytes, obj2bytes(value, false), lifespanSecs, maxIdleSecs);
       byte[] bytes = op.execute();
+      invalidateNear(keyBytes);
       return (V) bytes2obj(bytes);
    }
 
@@ -234,89 +355,74 @@ public V replace(K key, V value, long lifespan, TimeUnit lifespanUnit, long maxI
       int lifespanSecs = toSeconds(lifespan, lifespanUnit);
       int maxIdleSecs = toSeconds(maxIdleTime, maxIdleTimeUnit);
       applyDefaultExpirationFlags(lifespan, maxIdleTime);
-      ReplaceOperation op = operationsFactory.newReplaceOperation(obj2bytes(key, true), obj2bytes(value, false), lifespanSecs, maxIdleSecs);
+      byte[] keyBytes = obj2bytes(key, true);
+      invalidateNear(keyBytes);
+      ReplaceOperation op = operationsFactory.newReplaceOperation(keyBytes, obj2bytes(value, false), lifespanSecs, maxIdleSecs);
       byte[] bytes = op.execute();
+      invalidateNear(keyBytes);
       return (V) bytes2obj(bytes);
    }
 
    @Override
    public NotifyingFuture<V> putAsync(final K key, final V value, final long lifespan, final TimeUnit lifespanUnit, final long maxIdle, final TimeUnit maxIdleUnit) {
       assertRemoteCacheManagerIsStarted();
-      final NotifyingFutureImpl<V> result = new NotifyingFutureImpl<V>();
-      Future<V> future = executorService.submit(new Callable<V>() {
-         @Override
-         public V call() throws Exception {
-            V prevValue = put(key, value, lifespan, lifespanUnit, maxIdle, maxIdleUnit);
-            result.notifyFutureCompletion();
-            return prevValue;
-         }
-      });
-      result.setExecuting(future);
-      return result;
+      int lifespanSecs = toSeconds(lifespan, lifespanUnit);
+      int maxIdleSecs = toSeconds(maxIdle, maxIdleUnit);
+      applyDefaultExpirationFlags(lifespan, maxIdle);
+      byte[] keyBytes = obj2bytes(key, true);
+      invalidateNear(keyBytes);
+      PutOperation op = operationsFactory.newPutKeyValueOperation(keyBytes, obj2bytes(value, false), lifespanSecs, maxIdleSecs);
+      return bytes2obj(invalidateNearOnCompletion(op.executeAsync(executorService), keyBytes));
    }
 
    @Override
    public NotifyingFuture<Void> clearAsync() {
       assertRemoteCacheManagerIsStarted();
-      final NotifyingFutureImpl<Void> result = new NotifyingFutureImpl<Void>();
-      Future<Void> future = executorService.submit(new Callable<Void>() {
-         @Override
-         public Void call() throws Exception {
-            clear();
-            result.notifyFutureCompletion();
-            return null;
-         }
-      });
-      result.setExecuting(future);
-      return result;
+      clearNear();
+      ClearOperation op = operationsFactory.newClearOperation();
+      ResponseFuture<Void> future = op.executeAsync(executorService);
+      if (nearCache != null) {
+         future.attachListener(new FutureListener<Void>() {
+            @Override
+            public void futureDone(Future<Void> future) {
+               clearNear();
+            }
+         });
+      }
+      return future;
    }
 
    @Override
    public NotifyingFuture<V> putIfAbsentAsync(final K key,final V value,final long lifespan,final TimeUnit lifespanUnit,final long maxIdle,final TimeUnit maxIdleUnit) {
       assertRemoteCacheManagerIsStarted();
-      final NotifyingFutureImpl<V> result = new NotifyingFutureImpl<V>();
-      Future<V> future = executorService.submit(new Callable<V>() {
-         @Override
-         public V call() throws Exception {
-            V prevValue = putIfAbsent(key, value, lifespan, lifespanUnit, maxIdle, maxIdleUnit);
-            result.notifyFutureCompletion();
-            return prevValue;
-         }
-      });
-      result.setExecuting(future);
-      return result;
+      int lifespanSecs = toSeconds(lifespan, lifespanUnit);
+      int maxIdleSecs = toSeconds(maxIdle, maxIdleUnit);
+      applyDefaultExpirationFlags(lifespan, maxIdle);
+      byte[] keyBytes = obj2bytes(key, true);
+      invalidateNear(keyBytes);
+      PutIfAbsentOperation op = operationsFactory.newPutIfAbsentOperation(keyBytes, obj2bytes(value, false), lifespanSecs, maxIdleSecs);
+      return bytes2obj(invalidateNearOnCompletion(op.executeAsync(executorService), keyBytes));
    }
 
    @Override
    public NotifyingFuture<V> removeAsync(final Object key) {
       assertRemoteCacheManagerIsStarted();
-      final NotifyingFutureImpl<V> result = new NotifyingFutureImpl<V>();
-      Future<V> future = executorService.submit(new Callable<V>() {
-         @Override
-         public V call() throws Exception {
-            V toReturn = remove(key);
-            result.notifyFutureCompletion();
-            return toReturn;
-         }
-      });
-      result.setExecuting(future);
-      return result;
+      byte[] keyBytes = obj2bytes(key, true);
+      invalidateNear(keyBytes);
+      RemoveOperation op = operationsFactory.newRemoveOperation(keyBytes);
+      return bytes2obj(invalidateNearOnCompletion(op.executeAsync(executorService), keyBytes));
    }
 
    @Override
    public NotifyingFuture<V> replaceAsync(final K key,final V value,final long lifespan,final TimeUnit lifespanUnit,final long maxIdle,final TimeUnit maxIdleUnit) {
       assertRemoteCacheManagerIsStarted();
-      final NotifyingFutureImpl<V> result = new NotifyingFutureImpl<V>();
-      Future<V> future = executorService.submit(new Callable<V>() {
-         @Override
-         public V call() throws Exception {
-            V v = replace(key, value, lifespan, lifespanUnit, maxIdle, maxIdleUnit);
-            result.notifyFutureCompletion();
-            return v;
-         }
-      });
-      result.setExecuting(future);
-      return result;
+      int lifespanSecs = toSeconds(lifespan, lifespanUnit);
+      int maxIdleSecs = toSeconds(maxIdle, maxIdleUnit);
+      applyDefaultExpirationFlags(lifespan, maxIdle);
+      byte[] keyBytes = obj2bytes(key, true);
+      invalidateNear(keyBytes);
+      ReplaceOperation op = operationsFactory.newReplaceOperation(keyBytes, obj2bytes(value, false), lifespanSecs, maxIdleSecs);
+      return bytes2obj(invalidateNearOnCompletion(op.executeAsync(executorService), keyBytes));
    }
 
    @Override
@@ -331,15 +437,100 @@ public boolean containsKey(Object key) {
    public V get(Object key) {
       assertRemoteCacheManagerIsStarted();
       byte[] keyBytes = obj2bytes(key, true);
-      GetOperation gco = operationsFactory.newGetKeyOperation(keyBytes);
-      byte[] bytes = gco.execute();
-      V result = (V) bytes2obj(bytes);
+      NearCache<V> near = nearCache;
+      V result = near == null ? null : near.get(keyBytes);
+      if (result == null) {
+         Object token = near == null ? null : near.startFetch(keyBytes);
+         if (token == null) {
+            GetOperation gco = operationsFactory.newGetKeyOperation(keyBytes);
+            byte[] bytes = gco.execute();
+            result = (V) bytes2obj(bytes);
+         } else {
+            result = getAndCache(near, keyBytes, token);
+         }
+      }
       if (log.isTraceEnabled()) {
          log.tracef("For key(%s) returning %s", key, result);
       }
       return result;
    }
 
+   /**
+    * Reads the value with its metadata, so that the near cache honours the lifespan of the entry. Entries with a max
+    * idle time are not cached, since reading them from the near cache would not prolong their life on the server.
+    */
+   private V getAndCache(NearCache<V> near, byte[] keyBytes, Object token) {
+      MetadataValue<byte[]> value;
+      try {
+         value = operationsFactory.newGetWithMetadataOperation(keyBytes).execute();
+      } catch (RuntimeException e) {
+         near.completeFetch(keyBytes, token, null, 0);
+         throw e;
+      }
+      return completeFetch(near, keyBytes, token, value);
+   }
+
+   /**
+    * Asynchronous version of {@link #getAndCache(NearCache, byte[], Object)}. The near cache is updated on the async
+    * executor once the value is read, so that the transport's event loop doesn't unmarshall it.
+    */
+   private NotifyingFuture<V> getAndCacheAsync(final NearCache<V> near, final byte[] keyBytes, final Object token) {
+      GetWithMetadataOperation op = operationsFactory.newGetWithMetadataOperation(keyBytes);
+      ResponseFuture<MetadataValue<byte[]>> future = op.executeAsync(executorService);
+      future.attachListener(new FutureListener<MetadataValue<byte[]>>() {
+         @Override
+         public void futureDone(final Future<MetadataValue<byte[]>> future) {
+            try {
+               executorService.execute(new Runnable() {
+                  @Override
+                  public void run() {
+                     MetadataValue<byte[]> value;
+                     try {
+                        value = future.get();
+                     } catch (Exception e) {
+                        // the failure is reported to the caller by the returned future
+                        near.completeFetch(keyBytes, token, null, 0);
+                        return;
+                     }
+                     completeFetch(near, keyBytes, token, value);
+                  }
+               });
+            } catch (RejectedExecutionException e) {
+               near.completeFetch(keyBytes, token, null, 0);
+            }
+         }
+      });
+      return new ConvertingFuture<MetadataValue<byte[]>, V>(future) {
+         @Override
+         @SuppressWarnings("unchecked")
+         protected V convert(MetadataValue<byte[]> value) {
+            return value == null ? null : (V) bytes2obj(value.getValue());
+         }
+      };
+   }
+
+   /**
+    * Stores the value read from the server in the near cache, unless it has a max idle time, and returns it.
+    */
+   @SuppressWarnings("unchecked")
+   private V completeFetch(NearCache<V> near, byte[] keyBytes, Object token, MetadataValue<byte[]> value) {
+      V result = null;
+      boolean cacheable = false;
+      long expiry = 0;
+      try {
+         if (value != null) {
+            result = (V) bytes2obj(value.getValue());
+            cacheable = value.getMaxIdle() <= 0;
+            if (value.getLifespan() > 0) {
+               expiry = value.getCreated() + TimeUnit.SECONDS.toMillis(value.getLifespan());
+            }
+         }
+      } finally {
+         near.completeFetch(keyBytes, token, cacheable ? result : null, expiry);
+      }
+      return result;
+   }
+
    @Override
    public Map<K, V> getBulk() {
       return getBulk(0);
@@ -349,13 +540,67 @@ public Map<K, V> getBulk() {
    @SuppressWarnings("unchecked")
    public Map<K, V> getBulk(int size) {
       assertRemoteCacheManagerIsStarted();
-      BulkGetOperation op = operationsFactory.newBulkGetOperation(size);
-      Map<byte[], byte[]> result = op.execute();
       Map<K,V> toReturn = new HashMap<K,V>();
-      for (Map.Entry<byte[], byte[]> entry : result.entrySet()) {
-         V value = (V) bytes2obj(entry.getValue());
-         K key = (K) bytes2obj(entry.getKey());
-         toReturn.put(key, value);
+      if (!operationsFactory.isBulkOperationsSupported()) {
+         BulkGetOperation op = operationsFactory.newBulkGetOperation(size);
+         for (Map.Entry<byte[], byte[]> entry : op.execute().entrySet()) {
+            toReturn.put((K) bytes2obj(entry.getKey()), (V) bytes2obj(entry.getValue()));
+         }
+         return Collections.unmodifiableMap(toReturn);
+      }
+      CloseableIterator<Map.Entry<K, V>> it = retrieveEntries(
+            size > 0 ? Math.min(size, DEFAULT_BATCH_SIZE) : DEFAULT_BATCH_SIZE);
+      try {
+         while (it.hasNext() && (size <= 0 || toReturn.size() < size)) {
+            Map.Entry<K, V> entry = it.next();
+            toReturn.put(entry.getKey(), entry.getValue());
+         }
+      } finally {
+         it.close();
+      }
+      return Collections.unmodifiableMap(toReturn);
+   }
+
+   @Override
+   @SuppressWarnings("unchecked")
+   public Map<K, V> getAll(Set<? extends K> keys) {
+      assertRemoteCacheManagerIsStarted();
+      if (keys.isEmpty()) {
+         return Collections.emptyMap();
+      }
+      if (!operationsFactory.isBulkOperationsSupported()) {
+         Map<K, V> toReturn = new HashMap<K, V>();
+         for (K key : keys) {
+            V value = get(key);
+            if (value != null) {
+               toReturn.put(key, value);
+            }
+         }
+         return Collections.unmodifiableMap(toReturn);
+      }
+      List<byte[]> keyBytes = new ArrayList<byte[]>(keys.size());
+      for (K key : keys) {
+         keyBytes.add(obj2bytes(key, true));
+      }
+      List<GetAllOperation> ops = operationsFactory.newGetAllOperations(keyBytes);
+      List<Map<byte[], byte[]>> results = new ArrayList<Map<byte[], byte[]>>(ops.size());
+      if (ops.size() == 1) {
+         results.add(ops.get(0).execute());
+      } else {
+         // one request per server, all of them in flight at the same time
+         List<ResponseFuture<Map<byte[], byte[]>>> futures = new ArrayList<ResponseFuture<Map<byte[], byte[]>>>(ops.size());
+         for (GetAllOperation op : ops) {
+            futures.add(op.executeAsync(executorService));
+         }
+         for (ResponseFuture<Map<byte[], byte[]>> future : futures) {
+            results.add(await(future));
+         }
+      }
+      Map<K, V> toReturn = new HashMap<K, V>();
+      for (Map<byte[], byte[]> result : results) {
+         for (Map.Entry<byte[], byte[]> entry : result.entrySet()) {
+            toReturn.put((K) bytes2obj(entry.getKey()), (V) bytes2obj(entry.getValue()));
+         }
       }
       return Collections.unmodifiableMap(toReturn);
    }
@@ -364,8 +609,11 @@ public Map<K, V> getBulk(int size) {
    @SuppressWarnings("unchecked")
    public V remove(Object key) {
       assertRemoteCacheManagerIsStarted();
-      RemoveOperation removeOperation = operationsFactory.newRemoveOperation(obj2bytes(key, true));
+      byte[] keyBytes = obj2bytes(key, true);
+      invalidateNear(keyBytes);
+      RemoveOperation removeOperation = operationsFactory.newRemoveOperation(keyBytes);
       byte[] existingValue = removeOperation.execute();
+      invalidateNear(keyBytes);
       // TODO: It sucks that you need the prev value to see if it works...
       // We need to find a better API for RemoteCache...
       return (V) bytes2obj(existingValue);
@@ -374,8 +622,10 @@ public V remove(Object key) {
    @Override
    public void clear() {
       assertRemoteCacheManagerIsStarted();
+      clearNear();
       ClearOperation op = operationsFactory.newClearOperation() ;
       op.execute();
+      clearNear();
    }
 
    @Override
@@ -388,8 +638,9 @@ public void start() {
    @Override
    public void stop() {
       if (log.isDebugEnabled()) {
-         log.debugf("Stop called, nothing to do here(%s)", getName());
+         log.debugf("Stop called (%s)", getName());
       }
+      stopNearCache();
    }
 
    @Override
@@ -416,23 +667,63 @@ public RemoteCache<K, V> withFlags(Flag... flags) {
    @Override
    public NotifyingFuture<V> getAsync(final K key) {
       assertRemoteCacheManagerIsStarted();
-      final NotifyingFutureImpl<V> result = new NotifyingFutureImpl<V>();
-      Future<V> future = executorService.submit(new Callable<V>() {
-         @Override
-         public V call() throws Exception {
-            V toReturn = get(key);
-            result.notifyFutureCompletion();
-            return toReturn;
-         }
-      });
-      result.setExecuting(future);
-      return result;
+      byte[] keyBytes = obj2bytes(key, true);
+      NearCache<V> near = nearCache;
+      V cached = near == null ? null : near.get(keyBytes);
+      if (cached != null) {
+         return new NoOpFuture<V>(cached);
+      }
+      Object token = near == null ? null : near.startFetch(keyBytes);
+      if (token != null) {
+         return getAndCacheAsync(near, keyBytes, token);
+      }
+      GetOperation op = operationsFactory.newGetKeyOperation(keyBytes);
+      return bytes2obj(op.executeAsync(executorService));
    }
 
    public PingOperation.PingResult ping() {
       return operationsFactory.newFaultTolerantPingOperation().execute();
    }
 
+   /**
+    * Invalidates the key in the near cache. Writes invalidate the key both before and after they are executed, so that
+    * this client reads its own writes even before the event from the server is received.
+    */
+   private void invalidateNear(byte[] keyBytes) {
+      NearCache<V> near = nearCache;
+      if (near != null) {
+         near.invalidate(keyBytes);
+      }
+   }
+
+   private void invalidateNear(Collection<byte[]> keys) {
+      NearCache<V> near = nearCache;
+      if (near != null) {
+         for (byte[] keyBytes : keys) {
+            near.invalidate(keyBytes);
+         }
+      }
+   }
+
+   private void clearNear() {
+      NearCache<V> near = nearCache;
+      if (near != null) {
+         near.clear();
+      }
+   }
+
+   private <T> ResponseFuture<T> invalidateNearOnCompletion(ResponseFuture<T> future, final byte[] keyBytes) {
+      if (nearCache != null) {
+         future.attachListener(new FutureListener<T>() {
+            @Override
+            public void futureDone(Future<T> future) {
+               invalidateNear(keyBytes);
+            }
+         });
+      }
+      return future;
+   }
+
    private byte[] obj2bytes(Object o, boolean isKey) {
       try {
          return marshaller.objectToByteBuffer(o, isKey ? estimateKeySize : estimateValueSize);
@@ -445,6 +736,43 @@ private byte[] obj2bytes(Object o, boolean isKey) {
       }
    }
 
+   /**
+    * Unmarshalls the result of an asynchronous operation. This happens in the thread calling {@link Future#get()}
+    * rather than in the thread completing the operation, which may be the event loop of the transport.
+    */
+   private NotifyingFuture<V> bytes2obj(final ResponseFuture<byte[]> future) {
+      return new ConvertingFuture<byte[], V>(future) {
+         @Override
+         @SuppressWarnings("unchecked")
+         protected V convert(byte[] bytes) {
+            return (V) bytes2obj(bytes);
+         }
+      };
+   }
+
+   private static <T> T await(Future<T> future) {
+      try {
+         return future.get();
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new HotRodClientException(e);
+      } catch (ExecutionException e) {
+         if (e.getCause() instanceof HotRodClientException) {
+            throw (HotRodClientException) e.getCause();
+         }
+         throw new HotRodClientException(e.getCause());
+      }
+   }
+
+   private NotifyingFuture<Boolean> isUpdated(ResponseFuture<VersionedOperationResponse> future) {
+      return new ConvertingFuture<VersionedOperationResponse, Boolean>(future) {
+         @Override
+         protected Boolean convert(VersionedOperationResponse response) {
+            return response.getCode().isUpdated();
+         }
+      };
+   }
+
    private Object bytes2obj(byte[] bytes) {
       if (bytes == null) return null;
       try {
@@ -503,16 +831,90 @@ private void applyDefaultExpirationFlags(long lifespan, long maxIdle) {
    }
 
    @Override
+   @SuppressWarnings("unchecked")
    public Set<K> keySet() {
-	   assertRemoteCacheManagerIsStarted();
-	   // Use default scope
-	   BulkGetKeysOperation op = operationsFactory.newBulkGetKeysOperation(0);
-	   Set<byte[]> result = op.execute();
-       Set<K> toReturn = new HashSet<K>();
-       for (byte[] keyBytes : result) {
-          K key = (K) bytes2obj(keyBytes);
-          toReturn.add(key);
-       }
-       return Collections.unmodifiableSet(toReturn);
+      assertRemoteCacheManagerIsStarted();
+      Set<K> toReturn = new HashSet<K>();
+      if (!operationsFactory.isBulkOperationsSupported()) {
+         // Use default scope
+         BulkGetKeysOperation op = operationsFactory.newBulkGetKeysOperation(0);
+         for (byte[] keyBytes : op.execute()) {
+            toReturn.add((K) bytes2obj(keyBytes));
+         }
+         return Collections.unmodifiableSet(toReturn);
+      }
+      CloseableIterator<K> it = retrieveKeys(DEFAULT_BATCH_SIZE);
+      try {
+         while (it.hasNext()) {
+            toReturn.add(it.next());
+         }
+      } finally {
+         it.close();
+      }
+      return Collections.unmodifiableSet(toReturn);
+   }
+
+   @Override
+   public CloseableIterator<Map.Entry<K, V>> retrieveEntries(int batchSize) {
+      assertRemoteCacheManagerIsStarted();
+      if (!operationsFactory.isBulkOperationsSupported()) {
+         // older servers can't iterate, all the entries are fetched at once
+         return closeable(getBulk().entrySet().iterator());
+      }
+      return new RemoteEntryIterator<K, V>(operationsFactory, marshaller, batchSize, true);
+   }
+
+   @Override
+   public CloseableIterator<K> retrieveKeys(int batchSize) {
+      assertRemoteCacheManagerIsStarted();
+      if (!operationsFactory.isBulkOperationsSupported()) {
+         return closeable(keySet().iterator());
+      }
+      final RemoteEntryIterator<K, V> entries = new RemoteEntryIterator<K, V>(operationsFactory, marshaller, batchSize, false);
+      return new CloseableIterator<K>() {
+         @Override
+         public boolean hasNext() {
+            return entries.hasNext();
+         }
+
+         @Override
+         public K next() {
+            return entries.next().getKey();
+         }
+
+         @Override
+         public void remove() {
+            entries.remove();
+         }
+
+         @Override
+         public void close() {
+            entries.close();
+         }
+      };
+   }
+
+   private static <E> CloseableIterator<E> closeable(final Iterator<E> it) {
+      return new CloseableIterator<E>() {
+         @Override
+         public boolean hasNext() {
+            return it.hasNext();
+         }
+
+         @Override
+         public E next() {
+            return it.next();
+         }
+
+         @Override
+         public void remove() {
+            it.remove();
+         }
+
+         @Override
+         public void close() {
+            // nothing is held on the servers
+         }
+      };
    }
 }
@@ -0,0 +1,71 @@
+package org.infinispan.client.hotrod.impl.async;
+
+import org.infinispan.commons.util.concurrent.FutureListener;
+import org.infinispan.commons.util.concurrent.NotifyingFuture;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Notifying future which converts the result of another future, e.g. unmarshalls the bytes returned by an operation.
+ * The conversion is performed by the thread retrieving the result, and a conversion failure is reported as an
+ * {@link ExecutionException}.
+ *
+ * @since 7.0
+ */
+public abstract class ConvertingFuture<S, T> implements NotifyingFuture<T> {
+
+   private final NotifyingFuture<S> source;
+
+   protected ConvertingFuture(NotifyingFuture<S> source) {
+      this.source = source;
+   }
+
+   protected abstract T convert(S value);
+
+   @Override
+   public NotifyingFuture<T> attachListener(final FutureListener<T> futureListener) {
+      source.attachListener(new FutureListener<S>() {
+         @Override
+         public void futureDone(Future<S> future) {
+            futureListener.futureDone(ConvertingFuture.this);
+         }
+      });
+      return this;
+   }
+
+   @Override
+   public boolean cancel(boolean mayInterruptIfRunning) {
+      return source.cancel(mayInterruptIfRunning);
+   }
+
+   @Override
+   public boolean isCancelled() {
+      return source.isCancelled();
+   }
+
+   @Override
+   public boolean isDone() {
+      return source.isDone();
+   }
+
+   @Override
+   public T get() throws InterruptedException, ExecutionException {
+      return doConvert(source.get());
+   }
+
+   @Override
+   public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+      return doConvert(source.get(timeout, unit));
+   }
+
+   private T doConvert(S value) throws ExecutionException {
+      try {
+         return convert(value);
+      } catch (RuntimeException e) {
+         throw new ExecutionException(e);
+      }
+   }
+}
@@ -0,0 +1,137 @@
+package org.infinispan.client.hotrod.impl.async;
+
+import org.infinispan.client.hotrod.logging.Log;
+import org.infinispan.client.hotrod.logging.LogFactory;
+import org.infinispan.commons.util.concurrent.FutureListener;
+import org.infinispan.commons.util.concurrent.NotifyingFuture;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Notifying future which is completed explicitly, rather than by a task running on an executor. Used for operations
+ * pipelined over a non-blocking connection, where the future is completed by the event loop thread when the response
+ * is read. Listeners are notified by the thread completing the future, or by the thread attaching them if the future is
+ * already done.
+ *
+ * @since 7.0
+ */
+public class ResponseFuture<T> implements NotifyingFuture<T> {
+
+   private static final Log log = LogFactory.getLog(ResponseFuture.class, Log.class);
+
+   private final CountDownLatch latch = new CountDownLatch(1);
+   private List<FutureListener<T>> listeners;
+   private boolean done;
+   private boolean cancelled;
+   private T value;
+   private Throwable failure;
+
+   /**
+    * Completes the future with the given value.
+    *
+    * @return <tt>false</tt> if the future was already done
+    */
+   public boolean complete(T value) {
+      return finish(value, null, false);
+   }
+
+   /**
+    * Completes the future with the given failure, wrapped in an {@link ExecutionException} by {@link #get()}.
+    *
+    * @return <tt>false</tt> if the future was already done
+    */
+   public boolean fail(Throwable failure) {
+      return finish(null, failure, false);
+   }
+
+   @Override
+   public boolean cancel(boolean mayInterruptIfRunning) {
+      return finish(null, null, true);
+   }
+
+   private boolean finish(T value, Throwable failure, boolean cancelled) {
+      List<FutureListener<T>> toNotify;
+      synchronized (this) {
+         if (done) {
+            return false;
+         }
+         this.value = value;
+         this.failure = failure;
+         this.cancelled = cancelled;
+         this.done = true;
+         toNotify = listeners;
+         listeners = null;
+      }
+      latch.countDown();
+      if (toNotify != null) {
+         for (FutureListener<T> listener : toNotify) {
+            notifyListener(listener);
+         }
+      }
+      return true;
+   }
+
+   private void notifyListener(FutureListener<T> listener) {
+      try {
+         listener.futureDone(this);
+      } catch (RuntimeException e) {
+         // the completing thread may be the event loop, which must not be disrupted by listeners
+         log.futureListenerFailed(listener, e);
+      }
+   }
+
+   @Override
+   public NotifyingFuture<T> attachListener(FutureListener<T> futureListener) {
+      synchronized (this) {
+         if (!done) {
+            if (listeners == null) {
+               listeners = new ArrayList<FutureListener<T>>(2);
+            }
+            listeners.add(futureListener);
+            return this;
+         }
+      }
+      notifyListener(futureListener);
+      return this;
+   }
+
+   @Override
+   public synchronized boolean isCancelled() {
+      return cancelled;
+   }
+
+   @Override
+   public synchronized boolean isDone() {
+      return done;
+   }
+
+   @Override
+   public T get() throws InterruptedException, ExecutionException {
+      latch.await();
+      return report();
+   }
+
+   @Override
+   public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+      if (!latch.await(timeout, unit)) {
+         throw new TimeoutException();
+      }
+      return report();
+   }
+
+   private synchronized T report() throws ExecutionException {
+      if (cancelled) {
+         throw new CancellationException();
+      }
+      if (failure != null) {
+         throw new ExecutionException(failure);
+      }
+      return value;
+   }
+}
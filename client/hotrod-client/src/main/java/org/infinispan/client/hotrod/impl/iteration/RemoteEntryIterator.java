@@ -0,0 +1,204 @@
+package org.infinispan.client.hotrod.impl.iteration;
+
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.infinispan.client.hotrod.exceptions.HotRodClientException;
+import org.infinispan.client.hotrod.exceptions.TransportException;
+import org.infinispan.client.hotrod.impl.operations.IterationNextOperation;
+import org.infinispan.client.hotrod.impl.operations.IterationStartOperation;
+import org.infinispan.client.hotrod.impl.operations.OperationsFactory;
+import org.infinispan.client.hotrod.logging.Log;
+import org.infinispan.client.hotrod.logging.LogFactory;
+import org.infinispan.commons.marshall.Marshaller;
+import org.infinispan.commons.util.CloseableIterator;
+import org.infinispan.commons.util.SimpleImmutableEntry;
+
+/**
+ * Iterates over the entries of a remote cache, fetching them in batches from the servers.
+ * <p/>
+ * The entries are iterated segment by segment: the first server is asked to iterate all the segments and accepts
+ * those it owns, then each of the following servers is asked to iterate the segments which haven't been completed yet.
+ * If a server fails, the iteration resumes on the next server with the segments which haven't been completed. To
+ * avoid returning an entry twice, the keys returned for each segment are remembered until the segment is completed.
+ * <p/>
+ * Entries written or removed concurrently may or may not be returned. This iterator is not thread safe.
+ *
+ * @since 7.0
+ */
+public class RemoteEntryIterator<K, V> implements CloseableIterator<Map.Entry<K, V>> {
+
+   private static final Log log = LogFactory.getLog(RemoteEntryIterator.class, Log.class);
+
+   private final OperationsFactory operationsFactory;
+   private final Marshaller marshaller;
+   private final int batchSize;
+   private final boolean withValues;
+   private final List<SocketAddress> servers;
+   private final Map<Integer, Set<Object>> segmentKeys = new HashMap<Integer, Set<Object>>();
+
+   // null until the number of segments is known
+   private BitSet remainingSegments;
+   private IterationStartOperation.Result iteration;
+   private Iterator<Map.Entry<byte[], byte[]>> batch;
+   private BitSet batchFinishedSegments;
+   private Set<Object> batchKeys;
+   private Map.Entry<K, V> next;
+   private boolean closed;
+
+   public RemoteEntryIterator(OperationsFactory operationsFactory, Marshaller marshaller, int batchSize,
+                              boolean withValues) {
+      if (batchSize <= 0) {
+         throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+      }
+      this.operationsFactory = operationsFactory;
+      this.marshaller = marshaller;
+      this.batchSize = batchSize;
+      this.withValues = withValues;
+      this.servers = new LinkedList<SocketAddress>(operationsFactory.getServers());
+   }
+
+   @Override
+   public boolean hasNext() {
+      while (next == null && !closed) {
+         if (batch != null && batch.hasNext()) {
+            Map.Entry<byte[], byte[]> entry = batch.next();
+            K key = unmarshall(entry.getKey());
+            if (batchKeys.add(key)) {
+               V value = withValues ? this.<V>unmarshall(entry.getValue()) : null;
+               next = new SimpleImmutableEntry<K, V>(key, value);
+            }
+         } else {
+            if (batch != null) {
+               completeSegments(batchFinishedSegments);
+               batch = null;
+            }
+            fetchBatch();
+         }
+      }
+      return next != null;
+   }
+
+   @Override
+   public Map.Entry<K, V> next() {
+      if (!hasNext()) {
+         throw new NoSuchElementException();
+      }
+      Map.Entry<K, V> entry = next;
+      next = null;
+      return entry;
+   }
+
+   @Override
+   public void remove() {
+      throw new UnsupportedOperationException();
+   }
+
+   @Override
+   public void close() {
+      if (!closed) {
+         closed = true;
+         endIteration();
+         segmentKeys.clear();
+      }
+   }
+
+   private void fetchBatch() {
+      if (iteration == null && !startIteration()) {
+         close();
+         return;
+      }
+      IterationNextOperation.Batch nextBatch;
+      try {
+         nextBatch = operationsFactory.newIterationNextOperation(
+               iteration.getServer(), iteration.getId(), withValues).execute();
+      } catch (TransportException e) {
+         log.tracef(e, "Iteration %s failed on %s, resuming on another server", iteration.getId(), iteration.getServer());
+         iteration = null;
+         return;
+      }
+      if (nextBatch == null) {
+         // the server discarded the iteration, start it again with the segments not completed yet
+         log.tracef("Iteration %s is unknown to %s, restarting it", iteration.getId(), iteration.getServer());
+         servers.add(0, iteration.getServer());
+         iteration = null;
+      } else if (nextBatch.getEntries().isEmpty()) {
+         completeSegments(iteration.getSegments());
+         endIteration();
+      } else {
+         Set<Object> keys = segmentKeys.get(nextBatch.getSegment());
+         if (keys == null) {
+            keys = new HashSet<Object>();
+            segmentKeys.put(nextBatch.getSegment(), keys);
+         }
+         batchKeys = keys;
+         batchFinishedSegments = nextBatch.getFinishedSegments();
+         batch = nextBatch.getEntries().iterator();
+      }
+   }
+
+   private boolean startIteration() {
+      while (remainingSegments == null || !remainingSegments.isEmpty()) {
+         if (servers.isEmpty()) {
+            throw new HotRodClientException("No server available to iterate over segments "
+                  + (remainingSegments == null ? "all" : remainingSegments));
+         }
+         SocketAddress server = servers.remove(0);
+         IterationStartOperation.Result started;
+         try {
+            started = operationsFactory.newIterationStartOperation(
+                  server, remainingSegments, batchSize, withValues).execute();
+         } catch (TransportException e) {
+            log.tracef(e, "Could not start iteration on %s", server);
+            continue;
+         }
+         if (remainingSegments == null) {
+            remainingSegments = new BitSet(started.getNumSegments());
+            remainingSegments.set(0, started.getNumSegments());
+         }
+         if (started.getId() != null) {
+            log.tracef("Started iteration %s over segments %s on %s", started.getId(), started.getSegments(), server);
+            iteration = started;
+            return true;
+         }
+      }
+      return false;
+   }
+
+   private void endIteration() {
+      if (iteration != null) {
+         try {
+            operationsFactory.newIterationEndOperation(iteration.getServer(), iteration.getId()).execute();
+         } catch (HotRodClientException e) {
+            // the server discards iterations that are idle for too long anyway
+            log.tracef(e, "Could not end iteration %s on %s", iteration.getId(), iteration.getServer());
+         }
+         iteration = null;
+      }
+   }
+
+   private void completeSegments(BitSet segments) {
+      remainingSegments.andNot(segments);
+      for (int segment = segments.nextSetBit(0); segment >= 0; segment = segments.nextSetBit(segment + 1)) {
+         segmentKeys.remove(segment);
+      }
+   }
+
+   @SuppressWarnings("unchecked")
+   private <T> T unmarshall(byte[] bytes) {
+      try {
+         return (T) marshaller.objectFromByteBuffer(bytes);
+      } catch (Exception e) {
+         throw new HotRodClientException("Unable to unmarshall byte stream", e);
+      }
+   }
+}
@@ -0,0 +1,152 @@
+package org.infinispan.client.hotrod.impl.nearcache;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded client side cache of the values read from a remote cache, indexed by the marshalled keys.
+ * <p/>
+ * The entries are evicted in least recently used order, and invalidated by the events pushed by the servers. Since an
+ * event may be received while the value of the key is being read from a server, a value read remotely is only stored
+ * if the key was not invalidated since the read started: see {@link #startFetch(byte[])} and
+ * {@link #completeFetch(byte[], Object, Object, long)}.
+ * <p/>
+ * The near cache only serves values while it is known to receive all the invalidation events, see
+ * {@link #setServing(boolean)}. This class is thread safe.
+ *
+ * @since 7.0
+ */
+public class NearCache<V> {
+
+   private final int maxEntries;
+
+   // guarded by this
+   private final LinkedHashMap<Key, Entry<V>> entries;
+   private final Map<Key, Object> pendingFetches = new HashMap<Key, Object>();
+   private boolean serving;
+
+   public NearCache(final int maxEntries) {
+      this.maxEntries = maxEntries;
+      this.entries = new LinkedHashMap<Key, Entry<V>>(16, 0.75f, true) {
+         @Override
+         protected boolean removeEldestEntry(Map.Entry<Key, Entry<V>> eldest) {
+            return size() > maxEntries;
+         }
+      };
+   }
+
+   /**
+    * Returns the value of the key, or null if the key is not in the near cache or its lifespan expired.
+    */
+   public synchronized V get(byte[] key) {
+      if (!serving) {
+         return null;
+      }
+      Key k = new Key(key);
+      Entry<V> entry = entries.get(k);
+      if (entry == null) {
+         return null;
+      }
+      if (entry.expiry > 0 && entry.expiry <= System.currentTimeMillis()) {
+         entries.remove(k);
+         return null;
+      }
+      return entry.value;
+   }
+
+   /**
+    * Notes that the value of the key is about to be read from a server.
+    *
+    * @return the token to pass to {@link #completeFetch(byte[], Object, Object, long)}, or null if the value should
+    *         not be stored, i.e. the near cache is not serving values
+    */
+   public synchronized Object startFetch(byte[] key) {
+      if (!serving) {
+         return null;
+      }
+      Object token = new Object();
+      pendingFetches.put(new Key(key), token);
+      return token;
+   }
+
+   /**
+    * Stores the value read from a server, unless the key was invalidated since the read started.
+    *
+    * @param expiry the time in milliseconds at which the value expires, or 0 if it never does
+    */
+   public synchronized void completeFetch(byte[] key, Object token, V value, long expiry) {
+      Key k = new Key(key);
+      if (pendingFetches.get(k) == token) {
+         pendingFetches.remove(k);
+         if (value != null && serving) {
+            entries.put(k, new Entry<V>(value, expiry));
+         }
+      }
+   }
+
+   public synchronized void invalidate(byte[] key) {
+      Key k = new Key(key);
+      entries.remove(k);
+      pendingFetches.remove(k);
+   }
+
+   public synchronized void clear() {
+      entries.clear();
+      pendingFetches.clear();
+   }
+
+   /**
+    * Enables or disables the near cache. When disabled, e.g. because the connection on which the invalidation events
+    * are received was lost, the near cache is cleared and it doesn't serve nor store values.
+    */
+   public synchronized void setServing(boolean serving) {
+      if (!serving) {
+         clear();
+      }
+      this.serving = serving;
+   }
+
+   public synchronized boolean isServing() {
+      return serving;
+   }
+
+   public synchronized int size() {
+      return entries.size();
+   }
+
+   public int getMaxEntries() {
+      return maxEntries;
+   }
+
+   private static final class Entry<V> {
+      final V value;
+      final long expiry;
+
+      Entry(V value, long expiry) {
+         this.value = value;
+         this.expiry = expiry;
+      }
+   }
+
+   private static final class Key {
+      final byte[] bytes;
+      final int hashCode;
+
+      Key(byte[] bytes) {
+         this.bytes = bytes;
+         this.hashCode = Arrays.hashCode(bytes);
+      }
+
+      @Override
+      public boolean equals(Object o) {
+         return o instanceof Key && Arrays.equals(bytes, ((Key) o).bytes);
+      }
+
+      @Override
+      public int hashCode() {
+         return hashCode;
+      }
+   }
+}
@@ -0,0 +1,192 @@
+package org.infinispan.client.hotrod.impl.nearcache;
+
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.infinispan.client.hotrod.exceptions.HotRodClientException;
+import org.infinispan.client.hotrod.impl.operations.AddInvalidationListenerOperation;
+import org.infinispan.client.hotrod.impl.operations.OperationsFactory;
+import org.infinispan.client.hotrod.impl.transport.tcp.TcpTransport;
+import org.infinispan.client.hotrod.logging.Log;
+import org.infinispan.client.hotrod.logging.LogFactory;
+
+/**
+ * Keeps a {@link NearCache} coherent with the servers. A connection is registered for the invalidation events of the
+ * cache on every server, and each of them is read by a daemon thread which invalidates the keys it receives.
+ * <p/>
+ * Events sent while a connection is down are lost, so the near cache is disabled and cleared as soon as any connection
+ * fails, and it is enabled again once all the connections are restored: values are then read again from the servers.
+ * The connections are registered again with the new servers whenever the topology changes.
+ *
+ * @since 7.0
+ */
+public class NearCacheInvalidator {
+
+   private static final Log log = LogFactory.getLog(NearCacheInvalidator.class, Log.class);
+
+   private static final long RECONNECT_INTERVAL = 1000;
+
+   private final OperationsFactory operationsFactory;
+   private final NearCache<?> nearCache;
+   private final String cacheName;
+
+   // guarded by this
+   private Collection<SocketAddress> servers;
+   private final List<ServerListener> listeners = new ArrayList<ServerListener>();
+   private Thread supervisor;
+   private volatile boolean stopped;
+
+   public NearCacheInvalidator(OperationsFactory operationsFactory, NearCache<?> nearCache, String cacheName) {
+      this.operationsFactory = operationsFactory;
+      this.nearCache = nearCache;
+      this.cacheName = cacheName;
+   }
+
+   public synchronized void start() {
+      stopped = false;
+      supervisor = new Thread(new Runnable() {
+         @Override
+         public void run() {
+            supervise();
+         }
+      }, "NearCacheInvalidator-" + cacheName);
+      supervisor.setDaemon(true);
+      supervisor.start();
+   }
+
+   public void stop() {
+      stopped = true;
+      Thread thread;
+      synchronized (this) {
+         thread = supervisor;
+         supervisor = null;
+         stopListeners();
+         servers = null;
+      }
+      if (thread != null) {
+         thread.interrupt();
+      }
+      nearCache.setServing(false);
+   }
+
+   private void supervise() {
+      while (!stopped) {
+         synchronized (this) {
+            if (stopped) {
+               return;
+            }
+            Collection<SocketAddress> current = operationsFactory.getServers();
+            // the transport factory replaces the collection of servers when the topology changes
+            if (current != servers) {
+               nearCache.setServing(false);
+               stopListeners();
+               servers = current;
+               for (SocketAddress server : current) {
+                  ServerListener listener = new ServerListener(server);
+                  listeners.add(listener);
+                  listener.start();
+               }
+            }
+            updateServing();
+         }
+         try {
+            Thread.sleep(RECONNECT_INTERVAL);
+         } catch (InterruptedException e) {
+            return;
+         }
+      }
+   }
+
+   private synchronized void updateServing() {
+      boolean connected = !listeners.isEmpty();
+      for (ServerListener listener : listeners) {
+         connected &= listener.connected;
+      }
+      if (connected && !stopped && !nearCache.isServing()) {
+         log.tracef("Invalidation events are received from all the servers, enabling the near cache of %s", cacheName);
+         nearCache.setServing(true);
+      }
+   }
+
+   private void stopListeners() {
+      for (ServerListener listener : listeners) {
+         listener.stop();
+      }
+      listeners.clear();
+   }
+
+   private class ServerListener implements Runnable {
+      private final SocketAddress server;
+      private final Thread thread;
+      private volatile boolean connected;
+      private volatile boolean running = true;
+      private volatile TcpTransport transport;
+
+      ServerListener(SocketAddress server) {
+         this.server = server;
+         this.thread = new Thread(this, "NearCacheInvalidator-" + cacheName + "-" + server);
+         this.thread.setDaemon(true);
+      }
+
+      void start() {
+         thread.start();
+      }
+
+      void stop() {
+         running = false;
+         TcpTransport t = transport;
+         if (t != null) {
+            // unblocks the thread reading the events
+            t.destroy();
+         }
+         thread.interrupt();
+      }
+
+      @Override
+      public void run() {
+         while (running) {
+            try {
+               AddInvalidationListenerOperation op = operationsFactory.newAddInvalidationListenerOperation(server);
+               transport = op.execute();
+               if (!running) {
+                  break;
+               }
+               connected = true;
+               updateServing();
+               while (running) {
+                  byte[] key = op.readInvalidatedKey(transport);
+                  if (key != null) {
+                     nearCache.invalidate(key);
+                  }
+               }
+            } catch (HotRodClientException e) {
+               if (!running) {
+                  break;
+               }
+               if (connected) {
+                  log.nearCacheInvalidationsLost(server, e);
+               } else {
+                  log.tracef(e, "Could not register for the invalidation events of %s on %s", cacheName, server);
+               }
+               // events may have been missed, the entries have to be read again
+               connected = false;
+               nearCache.setServing(false);
+            } finally {
+               TcpTransport t = transport;
+               transport = null;
+               if (t != null) {
+                  t.destroy();
+               }
+            }
+            try {
+               Thread.sleep(RECONNECT_INTERVAL);
+            } catch (InterruptedException e) {
+               break;
+            }
+         }
+         connected = false;
+      }
+   }
+}
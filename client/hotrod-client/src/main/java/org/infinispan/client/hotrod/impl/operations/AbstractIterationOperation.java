@@ -0,0 +1,67 @@
+package org.infinispan.client.hotrod.impl.operations;
+
+import java.net.SocketAddress;
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.infinispan.client.hotrod.Flag;
+import org.infinispan.client.hotrod.exceptions.TransportException;
+import org.infinispan.client.hotrod.impl.protocol.Codec;
+import org.infinispan.client.hotrod.impl.transport.Transport;
+import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+
+/**
+ * Base class for the iteration operations. An iteration lives on the server on which it was started, so these
+ * operations are sent to that server and are not retried elsewhere: a transport failure is propagated to the caller,
+ * which can resume the iteration on another server.
+ *
+ * @since 7.0
+ */
+public abstract class AbstractIterationOperation<T> extends HotRodOperation {
+
+   protected final TransportFactory transportFactory;
+
+   protected final SocketAddress server;
+
+   protected AbstractIterationOperation(Codec codec, TransportFactory transportFactory, SocketAddress server,
+                                        byte[] cacheName, AtomicInteger topologyId, Flag[] flags) {
+      super(codec, flags, cacheName, topologyId);
+      this.transportFactory = transportFactory;
+      this.server = server;
+   }
+
+   @Override
+   public T execute() {
+      Transport transport = null;
+      try {
+         transport = transportFactory.getAddressTransport(server);
+         return executeOperation(transport);
+      } catch (TransportException te) {
+         transportFactory.invalidateTransport(te.getServerAddress(), transport);
+         throw te;
+      } finally {
+         if (transport != null) {
+            transportFactory.releaseTransport(transport);
+         }
+      }
+   }
+
+   protected abstract T executeOperation(Transport transport);
+
+   //[segment count][segment]...
+   protected static void writeSegments(Transport transport, BitSet segments) {
+      transport.writeVInt(segments.cardinality());
+      for (int segment = segments.nextSetBit(0); segment >= 0; segment = segments.nextSetBit(segment + 1)) {
+         transport.writeVInt(segment);
+      }
+   }
+
+   protected static BitSet readSegments(Transport transport) {
+      BitSet segments = new BitSet();
+      int count = transport.readVInt();
+      for (int i = 0; i < count; i++) {
+         segments.set(transport.readVInt());
+      }
+      return segments;
+   }
+}
@@ -10,6 +10,7 @@
 import org.infinispan.client.hotrod.impl.protocol.HeaderParams;
 import org.infinispan.client.hotrod.impl.transport.Transport;
 import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+import org.infinispan.client.hotrod.impl.transport.tcp.PipelinedConnection;
 import org.infinispan.commons.logging.BasicLogFactory;
 import org.infinispan.commons.util.Util;
 import org.jboss.logging.BasicLogger;
@@ -42,16 +43,26 @@ protected Transport getTransport(int retryCount) {
       }
    }
 
+   @Override
+   protected PipelinedConnection getPipelinedConnection(int retryCount) {
+      return transportFactory.getPipelinedConnection(retryCount == 0 ? key : null);
+   }
+
    protected short sendKeyOperation(byte[] key, Transport transport, byte opCode, byte opRespCode) {
       // 1) write [header][key length][key]
-      HeaderParams params = writeHeader(transport, opCode);
-      transport.writeArray(key);
+      HeaderParams params = writeKeyRequest(transport, opCode);
       transport.flush();
 
       // 2) now read the header
       return readHeaderAndValidate(transport, params);
    }
 
+   protected HeaderParams writeKeyRequest(Transport transport, short opCode) {
+      HeaderParams params = writeHeader(transport, opCode);
+      transport.writeArray(key);
+      return params;
+   }
+
    protected byte[] returnPossiblePrevValue(Transport transport) {
       if (hasForceReturn(flags)) {
          byte[] bytes = transport.readArray();
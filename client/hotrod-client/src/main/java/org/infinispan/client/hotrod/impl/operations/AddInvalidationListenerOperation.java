@@ -0,0 +1,111 @@
+package org.infinispan.client.hotrod.impl.operations;
+
+import java.net.SocketAddress;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.infinispan.client.hotrod.exceptions.HotRodClientException;
+import org.infinispan.client.hotrod.exceptions.InvalidResponseException;
+import org.infinispan.client.hotrod.exceptions.TransportException;
+import org.infinispan.client.hotrod.impl.protocol.Codec;
+import org.infinispan.client.hotrod.impl.protocol.HeaderParams;
+import org.infinispan.client.hotrod.impl.transport.Transport;
+import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+import org.infinispan.client.hotrod.impl.transport.tcp.TcpTransport;
+
+/**
+ * Registers for the invalidation events of a cache on a server. Once registered, the server pushes an event over the
+ * connection for every key modified or removed in the cache, so the connection is dedicated to the events: it is not
+ * taken from the connection pool and it is returned to the caller, which reads the events with
+ * {@link #readInvalidatedKey(Transport)}.
+ *
+ * @since 7.0
+ */
+public class AddInvalidationListenerOperation extends HotRodOperation {
+
+   private final TransportFactory transportFactory;
+
+   private final SocketAddress server;
+
+   public AddInvalidationListenerOperation(Codec codec, TransportFactory transportFactory, SocketAddress server,
+                                           byte[] cacheName, AtomicInteger topologyId) {
+      super(codec, null, cacheName, topologyId);
+      this.transportFactory = transportFactory;
+      this.server = server;
+   }
+
+   @Override
+   public TcpTransport execute() {
+      TcpTransport transport = new TcpTransport(server, transportFactory);
+      try {
+         // basic intelligence, so that the server never sends topology updates over this connection
+         HeaderParams params = new HeaderParams()
+               .opCode(ADD_INVALIDATION_LISTENER_REQUEST).cacheName(cacheName).flags(flags)
+               .clientIntel(CLIENT_INTELLIGENCE_BASIC).topologyId(topologyId).txMarker((byte) 0);
+         codec.writeHeader(transport, params);
+         transport.flush();
+         // the server registers the listener before responding, so events may precede the response
+         while (readHeader(transport) == INVALIDATION_EVENT) {
+            transport.readArray();
+         }
+         return transport;
+      } catch (RuntimeException e) {
+         transport.destroy();
+         throw e;
+      }
+   }
+
+   /**
+    * Reads the next invalidation event from the connection returned by {@link #execute()}.
+    *
+    * @return the invalidated key, or null if no event was received within the socket timeout
+    */
+   public byte[] readInvalidatedKey(Transport transport) {
+      short magic;
+      try {
+         magic = transport.readByte();
+      } catch (TransportException e) {
+         if (e.getCause() instanceof SocketTimeoutException) {
+            return null;
+         }
+         throw e;
+      }
+      if (readHeader(transport, magic) != INVALIDATION_EVENT) {
+         throw new InvalidResponseException("Expected an invalidation event");
+      }
+      return transport.readArray();
+   }
+
+   private short readHeader(Transport transport) {
+      short opCode = readHeader(transport, transport.readByte());
+      if (opCode != INVALIDATION_EVENT && opCode != ADD_INVALIDATION_LISTENER_RESPONSE) {
+         throw new InvalidResponseException(String.format(
+               "Invalid response operation. Expected %#x and received %#x", ADD_INVALIDATION_LISTENER_RESPONSE, opCode));
+      }
+      return opCode;
+   }
+
+   /**
+    * Magic | Message Id | Op code | Status | Topology Change Marker
+    *
+    * Events have a message id of 0. Since the client registered with basic intelligence, there are no topology
+    * updates.
+    */
+   private short readHeader(Transport transport, short magic) {
+      if (magic != RESPONSE_MAGIC) {
+         throw new InvalidResponseException(String.format(
+               "Invalid magic number. Expected %#x and received %#x", RESPONSE_MAGIC, magic));
+      }
+      transport.readVLong();
+      short opCode = transport.readByte();
+      short status = transport.readByte();
+      short topologyMarker = transport.readByte();
+      if (opCode == ERROR_RESPONSE) {
+         throw new HotRodClientException(transport.readString(), 0, status);
+      }
+      if (topologyMarker != 0) {
+         throw new InvalidResponseException("Unexpected topology change in invalidation events");
+      }
+      return opCode;
+   }
+}
@@ -0,0 +1,35 @@
+package org.infinispan.client.hotrod.impl.operations;
+
+import java.net.SocketAddress;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.infinispan.client.hotrod.Flag;
+import org.infinispan.client.hotrod.impl.protocol.Codec;
+import org.infinispan.client.hotrod.impl.protocol.HeaderParams;
+import org.infinispan.client.hotrod.impl.transport.Transport;
+import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+
+/**
+ * Ends an iteration, releasing its state on the server. Returns whether the server knew the iteration.
+ *
+ * @since 7.0
+ */
+public class IterationEndOperation extends AbstractIterationOperation<Boolean> {
+
+   private final String iterationId;
+
+   public IterationEndOperation(Codec codec, TransportFactory transportFactory, SocketAddress server,
+                                byte[] cacheName, AtomicInteger topologyId, Flag[] flags, String iterationId) {
+      super(codec, transportFactory, server, cacheName, topologyId, flags);
+      this.iterationId = iterationId;
+   }
+
+   @Override
+   protected Boolean executeOperation(Transport transport) {
+      HeaderParams params = writeHeader(transport, ITERATION_END_REQUEST);
+      transport.writeString(iterationId);
+      transport.flush();
+      short status = readHeaderAndValidate(transport, params);
+      return status == NO_ERROR_STATUS;
+   }
+}
@@ -0,0 +1,93 @@
+package org.infinispan.client.hotrod.impl.operations;
+
+import java.net.SocketAddress;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.infinispan.client.hotrod.Flag;
+import org.infinispan.client.hotrod.impl.protocol.Codec;
+import org.infinispan.client.hotrod.impl.protocol.HeaderParams;
+import org.infinispan.client.hotrod.impl.transport.Transport;
+import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+
+/**
+ * Fetches the next batch of an iteration. Returns <tt>null</tt> if the server doesn't know the iteration, e.g.
+ * because it was restarted or discarded the iteration after it had been idle for too long.
+ *
+ * @since 7.0
+ */
+public class IterationNextOperation extends AbstractIterationOperation<IterationNextOperation.Batch> {
+
+   private final String iterationId;
+   private final boolean withValues;
+
+   public IterationNextOperation(Codec codec, TransportFactory transportFactory, SocketAddress server,
+                                 byte[] cacheName, AtomicInteger topologyId, Flag[] flags, String iterationId,
+                                 boolean withValues) {
+      super(codec, transportFactory, server, cacheName, topologyId, flags);
+      this.iterationId = iterationId;
+      this.withValues = withValues;
+   }
+
+   //[header][iteration id]
+   //   -> [header][finished segment count][finished segment]...[segment][entry count][key length][key]([value length][value])...
+   @Override
+   protected Batch executeOperation(Transport transport) {
+      HeaderParams params = writeHeader(transport, ITERATION_NEXT_REQUEST);
+      transport.writeString(iterationId);
+      transport.flush();
+
+      short status = readHeaderAndValidate(transport, params);
+      if (status == KEY_DOES_NOT_EXIST_STATUS) {
+         return null;
+      }
+      BitSet finishedSegments = readSegments(transport);
+      int segment = transport.readVInt();
+      int count = transport.readVInt();
+      List<Map.Entry<byte[], byte[]>> entries = new ArrayList<Map.Entry<byte[], byte[]>>(count);
+      for (int i = 0; i < count; i++) {
+         byte[] key = transport.readArray();
+         byte[] value = withValues ? transport.readArray() : null;
+         entries.add(new AbstractMap.SimpleImmutableEntry<byte[], byte[]>(key, value));
+      }
+      return new Batch(finishedSegments, segment, entries);
+   }
+
+   public static class Batch {
+      private final BitSet finishedSegments;
+      private final int segment;
+      private final List<Map.Entry<byte[], byte[]>> entries;
+
+      Batch(BitSet finishedSegments, int segment, List<Map.Entry<byte[], byte[]>> entries) {
+         this.finishedSegments = finishedSegments;
+         this.segment = segment;
+         this.entries = entries;
+      }
+
+      /**
+       * The segments which have been completely returned, including with this batch.
+       */
+      public BitSet getFinishedSegments() {
+         return finishedSegments;
+      }
+
+      /**
+       * The segment to which the entries of this batch belong.
+       */
+      public int getSegment() {
+         return segment;
+      }
+
+      /**
+       * The entries of this batch, with <tt>null</tt> values if the iteration was started without values. An empty
+       * batch means that the iteration is complete.
+       */
+      public List<Map.Entry<byte[], byte[]>> getEntries() {
+         return entries;
+      }
+   }
+}
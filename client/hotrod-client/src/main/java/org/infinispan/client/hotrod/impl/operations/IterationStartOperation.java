@@ -0,0 +1,83 @@
+package org.infinispan.client.hotrod.impl.operations;
+
+import java.net.SocketAddress;
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.infinispan.client.hotrod.Flag;
+import org.infinispan.client.hotrod.impl.protocol.Codec;
+import org.infinispan.client.hotrod.impl.protocol.HeaderParams;
+import org.infinispan.client.hotrod.impl.transport.Transport;
+import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+
+/**
+ * Starts an iteration over the given segments on a server, or over all the segments if none are given. The server only accepts the segments it owns; if it owns
+ * none of them, no iteration is started and the returned id is <tt>null</tt>.
+ *
+ * @since 7.0
+ */
+public class IterationStartOperation extends AbstractIterationOperation<IterationStartOperation.Result> {
+
+   private final BitSet segments;
+   private final int batchSize;
+   private final boolean withValues;
+
+   public IterationStartOperation(Codec codec, TransportFactory transportFactory, SocketAddress server,
+                                  byte[] cacheName, AtomicInteger topologyId, Flag[] flags, BitSet segments,
+                                  int batchSize, boolean withValues) {
+      super(codec, transportFactory, server, cacheName, topologyId, flags);
+      this.segments = segments;
+      this.batchSize = batchSize;
+      this.withValues = withValues;
+   }
+
+   //[header][segment count][segment]...[batch size][with values]
+   //   -> [header][iteration id][number of segments][accepted segment count][accepted segment]...
+   @Override
+   protected Result executeOperation(Transport transport) {
+      HeaderParams params = writeHeader(transport, ITERATION_START_REQUEST);
+      writeSegments(transport, segments == null ? new BitSet() : segments);
+      transport.writeVInt(batchSize);
+      transport.writeByte((short) (withValues ? 1 : 0));
+      transport.flush();
+
+      readHeaderAndValidate(transport, params);
+      String id = transport.readString();
+      int numSegments = transport.readVInt();
+      BitSet accepted = readSegments(transport);
+      return new Result(id.isEmpty() ? null : id, numSegments, accepted, server);
+   }
+
+   public static class Result {
+      private final String id;
+      private final int numSegments;
+      private final BitSet segments;
+      private final SocketAddress server;
+
+      Result(String id, int numSegments, BitSet segments, SocketAddress server) {
+         this.id = id;
+         this.numSegments = numSegments;
+         this.segments = segments;
+         this.server = server;
+      }
+
+      public String getId() {
+         return id;
+      }
+
+      public int getNumSegments() {
+         return numSegments;
+      }
+
+      /**
+       * The requested segments which the server accepted to iterate.
+       */
+      public BitSet getSegments() {
+         return segments;
+      }
+
+      public SocketAddress getServer() {
+         return server;
+      }
+   }
+}
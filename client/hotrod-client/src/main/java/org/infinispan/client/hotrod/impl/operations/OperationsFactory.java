@@ -5,13 +5,19 @@
 import org.infinispan.client.hotrod.Flag;
 import org.infinispan.client.hotrod.RemoteCacheManager;
 import org.infinispan.client.hotrod.impl.protocol.Codec;
+import org.infinispan.client.hotrod.impl.protocol.Codec13;
 import org.infinispan.client.hotrod.impl.protocol.HotRodConstants;
 import org.infinispan.client.hotrod.impl.query.RemoteQuery;
 import org.infinispan.client.hotrod.impl.transport.Transport;
 import org.infinispan.client.hotrod.impl.transport.TransportFactory;
 
+import java.net.SocketAddress;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -125,6 +131,45 @@ public BulkGetKeysOperation newBulkGetKeysOperation(int scope) {
     		codec, transportFactory, cacheNameBytes, topologyId, flags(), scope);
    }
 
+   /**
+    * Returns whether the protocol version in use has the GetAll, PutAll, iteration and invalidation listener
+    * operations, added in version 1.3. Servers running an older version reject them, so callers fall back to per key
+    * and bulk get operations.
+    */
+   public boolean isBulkOperationsSupported() {
+      return codec instanceof Codec13;
+   }
+
+   /**
+    * Construct one get all request per server owning any of the keys, so that they can be executed concurrently.
+    */
+   public List<GetAllOperation> newGetAllOperations(Collection<byte[]> keys) {
+      Flag[] flags = flags();
+      List<GetAllOperation> ops = new ArrayList<GetAllOperation>();
+      for (List<byte[]> serverKeys : transportFactory.groupKeysByServer(keys).values()) {
+         ops.add(new GetAllOperation(
+               codec, transportFactory, serverKeys, cacheNameBytes, topologyId, flags));
+      }
+      return ops;
+   }
+
+   /**
+    * Construct one put all request per server owning any of the keys, so that they can be executed concurrently.
+    */
+   public List<PutAllOperation> newPutAllOperations(Map<byte[], byte[]> entries, int lifespanSecs, int maxIdleSecs) {
+      Flag[] flags = flags();
+      List<PutAllOperation> ops = new ArrayList<PutAllOperation>();
+      for (List<byte[]> serverKeys : transportFactory.groupKeysByServer(entries.keySet()).values()) {
+         Map<byte[], byte[]> serverEntries = new HashMap<byte[], byte[]>(serverKeys.size());
+         for (byte[] key : serverKeys) {
+            serverEntries.put(key, entries.get(key));
+         }
+         ops.add(new PutAllOperation(
+               codec, transportFactory, serverEntries, cacheNameBytes, topologyId, flags, lifespanSecs, maxIdleSecs));
+      }
+      return ops;
+   }
+
    /**
     * Construct a ping request directed to a particular node.
     *
@@ -152,6 +197,38 @@ public QueryOperation newQueryOperation(RemoteQuery remoteQuery) {
             codec, transportFactory, cacheNameBytes, topologyId, flags(), remoteQuery);
    }
 
+   /**
+    * The iteration operations don't take the flags of the invoking thread, since they are created lazily while
+    * iterating, possibly by a different thread than the one which opened the iterator.
+    */
+   public IterationStartOperation newIterationStartOperation(SocketAddress server, BitSet segments, int batchSize,
+                                                             boolean withValues) {
+      return new IterationStartOperation(
+            codec, transportFactory, server, cacheNameBytes, topologyId, null, segments, batchSize, withValues);
+   }
+
+   public IterationNextOperation newIterationNextOperation(SocketAddress server, String iterationId,
+                                                           boolean withValues) {
+      return new IterationNextOperation(
+            codec, transportFactory, server, cacheNameBytes, topologyId, null, iterationId, withValues);
+   }
+
+   public IterationEndOperation newIterationEndOperation(SocketAddress server, String iterationId) {
+      return new IterationEndOperation(
+            codec, transportFactory, server, cacheNameBytes, topologyId, null, iterationId);
+   }
+
+   public AddInvalidationListenerOperation newAddInvalidationListenerOperation(SocketAddress server) {
+      return new AddInvalidationListenerOperation(codec, transportFactory, server, cacheNameBytes, topologyId);
+   }
+
+   /**
+    * Returns the servers currently known to the client.
+    */
+   public Collection<SocketAddress> getServers() {
+      return transportFactory.getServers();
+   }
+
    private Flag[] flags() {
       List<Flag> flags = this.flagsMap.get();
       this.flagsMap.remove();
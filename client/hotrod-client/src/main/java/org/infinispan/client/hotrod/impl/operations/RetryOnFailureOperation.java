@@ -5,18 +5,28 @@
 import org.infinispan.client.hotrod.exceptions.HotRodClientException;
 import org.infinispan.client.hotrod.exceptions.RemoteNodeSuspectException;
 import org.infinispan.client.hotrod.exceptions.TransportException;
+import org.infinispan.client.hotrod.impl.async.ResponseFuture;
 import org.infinispan.client.hotrod.impl.protocol.Codec;
+import org.infinispan.client.hotrod.impl.protocol.HeaderParams;
 import org.infinispan.client.hotrod.impl.transport.Transport;
 import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+import org.infinispan.client.hotrod.impl.transport.tcp.PipelinedConnection;
+import org.infinispan.client.hotrod.impl.transport.tcp.PipelinedRequest;
+import org.infinispan.client.hotrod.impl.transport.tcp.PipelinedTransport;
 import org.infinispan.client.hotrod.logging.Log;
 import org.infinispan.client.hotrod.logging.LogFactory;
 
 
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Base class for all the operations that need retry logic: if the operation fails due to connection problems, try with 
  * another available connection.
+ * <p/>
+ * Operations which implement {@link #writeRequest(Transport)} and {@link #readResponse(Transport, HeaderParams)} can
+ * also be executed asynchronously through {@link #executeAsync(ExecutorService)}, which pipelines them over a
+ * non-blocking {@link PipelinedConnection} instead of tying up a thread until the response is received.
  *
  * @author Mircea.Markus@jboss.com
  * @since 4.1
@@ -84,7 +94,133 @@ protected void releaseTransport(Transport transport) {
          transportFactory.releaseTransport(transport);
    }
 
+   /**
+    * Executes the operation without blocking, retrying it on another connection if it fails due to connection
+    * problems. If the transport factory does not support pipelining, the operation is executed by the given executor.
+    */
+   public ResponseFuture<T> executeAsync(ExecutorService fallback) {
+      ResponseFuture<T> future = new ResponseFuture<T>();
+      new AsyncRequest(future, fallback).send();
+      return future;
+   }
+
    protected abstract Transport getTransport(int retryCount);
 
-   protected abstract T executeOperation(Transport transport);
+   protected PipelinedConnection getPipelinedConnection(int retryCount) {
+      return transportFactory.getPipelinedConnection(null);
+   }
+
+   protected T executeOperation(Transport transport) {
+      HeaderParams params = writeRequest(transport);
+      transport.flush();
+      return readResponse(transport, params);
+   }
+
+   /**
+    * Writes the request, without flushing the transport.
+    */
+   protected HeaderParams writeRequest(Transport transport) {
+      throw new UnsupportedOperationException(getClass().getSimpleName() + " cannot be pipelined");
+   }
+
+   /**
+    * Reads the response to the request written by {@link #writeRequest(Transport)}. When pipelined, this may be invoked
+    * more than once for the same response, see {@link PipelinedRequest#readResponse(Transport)}.
+    */
+   protected T readResponse(Transport transport, HeaderParams params) {
+      throw new UnsupportedOperationException(getClass().getSimpleName() + " cannot be pipelined");
+   }
+
+   @Override
+   protected short readHeaderAndValidate(Transport transport, HeaderParams params) {
+      if (transport instanceof PipelinedTransport) {
+         // the rest of a pipelined response may be read more than once, but not its header
+         return ((PipelinedTransport) transport).readHeader(codec, params);
+      }
+      return super.readHeaderAndValidate(transport, params);
+   }
+
+   private final class AsyncRequest implements Runnable {
+      private final ResponseFuture<T> future;
+      private final ExecutorService fallback;
+      private volatile int retryCount;
+      // the latest attempt, the responses to the previous ones are ignored
+      private volatile Attempt attempt;
+
+      AsyncRequest(ResponseFuture<T> future, ExecutorService fallback) {
+         this.future = future;
+         this.fallback = fallback;
+      }
+
+      void send() {
+         PipelinedConnection connection;
+         try {
+            connection = getPipelinedConnection(retryCount);
+         } catch (TransportException e) {
+            failed(attempt, e);
+            return;
+         }
+         if (connection == null) {
+            fallback.submit(this);
+         } else {
+            Attempt next = new Attempt();
+            attempt = next;
+            connection.send(next);
+         }
+      }
+
+      void failed(Attempt failed, Throwable cause) {
+         if (failed != attempt || future.isDone()) {
+            // an attempt that timed out and was retried already
+            return;
+         }
+         if (cause instanceof TransportException || cause instanceof RemoteNodeSuspectException) {
+            try {
+               logErrorAndThrowExceptionIfNeeded(retryCount, (HotRodClientException) cause);
+            } catch (HotRodClientException e) {
+               future.fail(e);
+               return;
+            }
+            retryCount++;
+            send();
+         } else {
+            future.fail(cause);
+         }
+      }
+
+      @Override
+      public void run() {
+         try {
+            future.complete(execute());
+         } catch (Throwable t) {
+            future.fail(t);
+         }
+      }
+
+      /**
+       * A single attempt at sending the request over a pipelined connection.
+       */
+      private final class Attempt implements PipelinedRequest {
+         private volatile HeaderParams params;
+
+         @Override
+         public long writeRequest(Transport transport) {
+            params = RetryOnFailureOperation.this.writeRequest(transport);
+            return params.getMessageId();
+         }
+
+         @Override
+         public void readResponse(Transport transport) {
+            T result = RetryOnFailureOperation.this.readResponse(transport, params);
+            if (attempt == this) {
+               future.complete(result);
+            }
+         }
+
+         @Override
+         public void failed(Throwable cause) {
+            AsyncRequest.this.failed(this, cause);
+         }
+      }
+   }
 }
@@ -0,0 +1,19 @@
+package org.infinispan.client.hotrod.impl.protocol;
+
+import org.infinispan.client.hotrod.impl.transport.Transport;
+
+/**
+ * A Hot Rod encoder/decoder for version 1.3 of the protocol. The header and the responses are the same as in
+ * version 1.2, version 1.3 adds the bulk GetAll and PutAll operations, the iteration operations and
+ * the registration of near cache invalidation listeners.
+ *
+ * @since 7.0
+ */
+public class Codec13 extends Codec12 {
+
+   @Override
+   public HeaderParams writeHeader(Transport transport, HeaderParams params) {
+      return writeHeader(transport, params, HotRodConstants.VERSION_13);
+   }
+
+}
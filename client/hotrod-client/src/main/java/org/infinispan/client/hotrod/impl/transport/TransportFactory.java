@@ -2,6 +2,7 @@
 
 import java.net.SocketAddress;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -11,6 +12,7 @@
 import org.infinispan.client.hotrod.configuration.Configuration;
 import org.infinispan.client.hotrod.impl.consistenthash.ConsistentHashFactory;
 import org.infinispan.client.hotrod.impl.protocol.Codec;
+import org.infinispan.client.hotrod.impl.transport.tcp.PipelinedConnection;
 
 /**
  * Transport factory for building and managing {@link org.infinispan.client.hotrod.impl.transport.Transport} objects.
@@ -47,4 +49,29 @@ public interface TransportFactory {
    void invalidateTransport(SocketAddress serverAddress, Transport transport);
 
    SSLContext getSSLContext();
+
+   /**
+    * Groups the given keys by the server which owns them according to the consistent hash, so that they can be
+    * operated upon with a single request per server. If no consistent hash is available, all the keys are returned as a
+    * single group.
+    */
+   Map<SocketAddress, List<byte[]>> groupKeysByServer(Collection<byte[]> keys);
+
+   /**
+    * Returns a non-blocking connection over which requests for the given key can be pipelined, or to a server chosen
+    * by the balancer if the key is <tt>null</tt>. Returns <tt>null</tt> if this factory does not support pipelining,
+    * in which case asynchronous operations are executed on the async executor using {@link #getTransport(byte[])}.
+    */
+   PipelinedConnection getPipelinedConnection(byte[] key);
+
+   /**
+    * Returns a transport to the given server, for operations which have to be executed by a specific server, e.g.
+    * those continuing an iteration opened on that server.
+    */
+   Transport getAddressTransport(SocketAddress server);
+
+   /**
+    * Returns the servers currently known to this factory.
+    */
+   Collection<SocketAddress> getServers();
 }
@@ -0,0 +1,124 @@
+package org.infinispan.client.hotrod.impl.transport.tcp;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.infinispan.client.hotrod.exceptions.TransportException;
+import org.infinispan.client.hotrod.logging.Log;
+import org.infinispan.client.hotrod.logging.LogFactory;
+import org.infinispan.commons.util.Util;
+
+/**
+ * Single threaded event loop driving all the {@link PipelinedConnection}s of a {@link TcpTransportFactory}: it
+ * performs the non-blocking connects, reads and writes, decodes the responses and periodically fails the requests
+ * that have been waiting longer than the socket timeout.
+ * <p/>
+ * All the I/O state of the connections is confined to the event loop thread; other threads interact with it by
+ * submitting tasks through {@link #execute(Runnable)}.
+ *
+ * @since 7.0
+ */
+public class NioEventLoop implements Runnable {
+
+   public static final String THREAD_NAME = "HotRod-client-nio";
+
+   private static final Log log = LogFactory.getLog(NioEventLoop.class, Log.class);
+   private static final AtomicInteger counter = new AtomicInteger(0);
+   private static final long MAX_TIMEOUT_CHECK_INTERVAL = 1000;
+
+   private final Selector selector;
+   private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<Runnable>();
+   private final long timeoutCheckInterval;
+   private final Thread thread;
+   private volatile boolean running = true;
+
+   public NioEventLoop(int soTimeout) {
+      try {
+         selector = Selector.open();
+      } catch (IOException e) {
+         throw new TransportException("Could not open selector", e, null);
+      }
+      timeoutCheckInterval = soTimeout > 0 ? Math.min(soTimeout, MAX_TIMEOUT_CHECK_INTERVAL) : MAX_TIMEOUT_CHECK_INTERVAL;
+      thread = new Thread(this, THREAD_NAME + "-" + counter.getAndIncrement());
+      thread.setDaemon(true);
+      thread.start();
+   }
+
+   /**
+    * Runs the given task in the event loop thread.
+    */
+   public void execute(Runnable task) {
+      tasks.add(task);
+      selector.wakeup();
+   }
+
+   public boolean inEventLoop() {
+      return Thread.currentThread() == thread;
+   }
+
+   Selector selector() {
+      return selector;
+   }
+
+   @Override
+   public void run() {
+      long nextTimeoutCheck = System.currentTimeMillis() + timeoutCheckInterval;
+      while (running) {
+         try {
+            selector.select(timeoutCheckInterval);
+            runTasks();
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+               SelectionKey key = keys.next();
+               keys.remove();
+               ((PipelinedConnection) key.attachment()).handle(key);
+            }
+            long now = System.currentTimeMillis();
+            if (now >= nextTimeoutCheck) {
+               for (SelectionKey key : selector.keys()) {
+                  ((PipelinedConnection) key.attachment()).checkTimeouts(now);
+               }
+               nextTimeoutCheck = now + timeoutCheckInterval;
+            }
+         } catch (Throwable t) {
+            // keep the loop alive, the affected connection has already failed its requests
+            log.tracef(t, "Unexpected exception in event loop %s", thread.getName());
+         }
+      }
+      runTasks();
+      List<PipelinedConnection> connections = new ArrayList<PipelinedConnection>();
+      for (SelectionKey key : selector.keys()) {
+         connections.add((PipelinedConnection) key.attachment());
+      }
+      for (PipelinedConnection connection : connections) {
+         connection.close(new TransportException("Transport factory stopped", connection.getServerAddress()));
+      }
+      Util.close(selector);
+   }
+
+   private void runTasks() {
+      Runnable task;
+      while ((task = tasks.poll()) != null) {
+         try {
+            task.run();
+         } catch (Throwable t) {
+            log.tracef(t, "Unexpected exception running task %s", task);
+         }
+      }
+   }
+
+   /**
+    * Stops the event loop, closing all its connections.
+    */
+   public void stop() {
+      running = false;
+      selector.wakeup();
+   }
+}
@@ -0,0 +1,411 @@
+package org.infinispan.client.hotrod.impl.transport.tcp;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.infinispan.client.hotrod.exceptions.HotRodClientException;
+import org.infinispan.client.hotrod.exceptions.InvalidResponseException;
+import org.infinispan.client.hotrod.exceptions.TransportException;
+import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+import org.infinispan.client.hotrod.logging.Log;
+import org.infinispan.client.hotrod.logging.LogFactory;
+import org.infinispan.commons.io.UnsignedNumeric;
+import org.infinispan.commons.util.Util;
+
+/**
+ * Non-blocking connection to a Hot Rod server over which any number of requests can be outstanding at the same time.
+ * <p/>
+ * Requests are encoded by the calling thread and queued for writing; the {@link NioEventLoop} writes them, reads the
+ * responses and matches each response to its request by the message id in the response header. Requests are kept in
+ * the order in which they were written, so that an error response which could not carry a message id (i.e. with a
+ * message id of 0) is attributed to the oldest outstanding request.
+ * <p/>
+ * Responses are not length-prefixed, so a response is decoded as soon as some of its bytes are received and decoded
+ * again from its start when more arrive, see {@link PipelinedRequest#readResponse}. Its header is only read once, and
+ * once the length of a value is known the connection waits until the whole value was received.
+ * <p/>
+ * A request which doesn't get a response within the socket timeout fails with a {@link TransportException}, so that
+ * it can be retried, but the connection stays open and discards the response if it arrives later. The connection is
+ * only closed as timed out once all its outstanding requests timed out and nothing was received for longer than the
+ * socket timeout. Any I/O error or protocol error closes the connection and fails all its outstanding requests with a
+ * {@link TransportException}, so that they can be retried on another connection.
+ *
+ * @since 7.0
+ */
+public class PipelinedConnection {
+
+   private static final Log log = LogFactory.getLog(PipelinedConnection.class, Log.class);
+   private static final boolean trace = log.isTraceEnabled();
+
+   private static final AtomicLong ID_COUNTER = new AtomicLong(0);
+   private static final int INITIAL_READ_BUFFER_SIZE = 64 * 1024;
+
+   private final long id = ID_COUNTER.incrementAndGet();
+   private final SocketAddress serverAddress;
+   private final NioEventLoop eventLoop;
+   private final SocketChannel channel;
+   private final long connectDeadline;
+   private final long soTimeout;
+
+   // guarded by this
+   private final LinkedHashMap<Long, Pending> pending = new LinkedHashMap<Long, Pending>();
+   private final ArrayDeque<ByteBuffer> writeQueue = new ArrayDeque<ByteBuffer>();
+   private boolean flushScheduled;
+   private volatile boolean closed;
+
+   private volatile boolean invalid;
+
+   // confined to the event loop thread
+   private final PipelinedTransport responseTransport;
+   private final ArrayDeque<ByteBuffer> outbound = new ArrayDeque<ByteBuffer>();
+   private ByteBuffer readBuffer = ByteBuffer.allocate(INITIAL_READ_BUFFER_SIZE);
+   // the length the partially received response at the start of the read buffer has at least, 0 if unknown
+   private int awaitedLength;
+   private long lastReceived = System.currentTimeMillis();
+   private SelectionKey key;
+   private boolean connected;
+
+   private final Runnable flushTask = new Runnable() {
+      @Override
+      public void run() {
+         flush();
+      }
+   };
+
+   public PipelinedConnection(SocketAddress serverAddress, TransportFactory transportFactory, NioEventLoop eventLoop) {
+      this.serverAddress = serverAddress;
+      this.eventLoop = eventLoop;
+      this.responseTransport = new PipelinedTransport(transportFactory, this);
+      this.connectDeadline = System.currentTimeMillis() + transportFactory.getConnectTimeout();
+      this.soTimeout = transportFactory.getSoTimeout();
+      try {
+         channel = SocketChannel.open();
+      } catch (IOException e) {
+         throw new TransportException(String.format("Could not connect to server: %s", serverAddress), e, serverAddress);
+      }
+      try {
+         channel.configureBlocking(false);
+         channel.socket().setTcpNoDelay(transportFactory.isTcpNoDelay());
+         final boolean connectedNow = channel.connect(serverAddress);
+         eventLoop.execute(new Runnable() {
+            @Override
+            public void run() {
+               register(connectedNow);
+            }
+         });
+      } catch (IOException e) {
+         Util.close(channel);
+         throw new TransportException(String.format("Could not connect to server: %s", serverAddress), e, serverAddress);
+      }
+   }
+
+   private void register(boolean connectedNow) {
+      if (closed) {
+         Util.close(channel);
+         return;
+      }
+      try {
+         key = channel.register(eventLoop.selector(), connectedNow ? SelectionKey.OP_READ : SelectionKey.OP_CONNECT, this);
+         if (connectedNow) {
+            connected();
+         }
+      } catch (IOException e) {
+         close(new TransportException(e, serverAddress));
+      }
+   }
+
+   private void connected() {
+      connected = true;
+      if (trace) {
+         log.tracef("Connected %s", this);
+      }
+      flush();
+   }
+
+   /**
+    * Encodes the request in the calling thread and queues it for writing. If the connection is closed, the request
+    * fails immediately with a {@link TransportException}.
+    */
+   public void send(PipelinedRequest request) {
+      PipelinedTransport transport = new PipelinedTransport(responseTransport.getTransportFactory(), this);
+      long messageId = request.writeRequest(transport);
+      ByteBuffer buffer = ByteBuffer.wrap(transport.toByteArray());
+      long deadline = soTimeout > 0 ? System.currentTimeMillis() + soTimeout : Long.MAX_VALUE;
+      boolean queued = false;
+      boolean scheduleFlush = false;
+      synchronized (this) {
+         if (!closed) {
+            pending.put(messageId, new Pending(messageId, request, deadline));
+            writeQueue.add(buffer);
+            scheduleFlush = !flushScheduled;
+            flushScheduled = true;
+            queued = true;
+         }
+      }
+      if (!queued) {
+         request.failed(new TransportException("Connection closed", serverAddress));
+         return;
+      }
+      if (trace) {
+         log.tracef("Queued request %d (%d bytes) on %s", messageId, buffer.remaining(), this);
+      }
+      if (scheduleFlush) {
+         eventLoop.execute(flushTask);
+      }
+   }
+
+   void handle(SelectionKey key) {
+      try {
+         if (key.isConnectable()) {
+            channel.finishConnect();
+            key.interestOps(SelectionKey.OP_READ);
+            connected();
+         }
+         if (key.isValid() && key.isWritable()) {
+            flush();
+         }
+         if (key.isValid() && key.isReadable()) {
+            read();
+         }
+      } catch (IOException e) {
+         close(new TransportException(e, serverAddress));
+      }
+   }
+
+   private void flush() {
+      synchronized (this) {
+         flushScheduled = false;
+         outbound.addAll(writeQueue);
+         writeQueue.clear();
+      }
+      if (!connected || closed) {
+         return;
+      }
+      try {
+         if (!outbound.isEmpty()) {
+            // a single gathering write for all the queued requests
+            channel.write(outbound.toArray(new ByteBuffer[outbound.size()]));
+            Iterator<ByteBuffer> it = outbound.iterator();
+            while (it.hasNext() && !it.next().hasRemaining()) {
+               it.remove();
+            }
+         }
+         // if the socket send buffer is full, wait until it is writable again
+         key.interestOps(outbound.isEmpty() ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+      } catch (IOException e) {
+         close(new TransportException("Problems writing data to stream", e, serverAddress));
+      }
+   }
+
+   private void read() throws IOException {
+      int read = channel.read(readBuffer);
+      if (read < 0) {
+         close(new TransportException("End of stream reached!", serverAddress));
+         return;
+      }
+      if (read > 0) {
+         lastReceived = System.currentTimeMillis();
+      }
+      // don't decode a partial response again before the value it is missing was fully received
+      if (readBuffer.position() >= awaitedLength) {
+         readBuffer.flip();
+         try {
+            decode();
+         } finally {
+            readBuffer.compact();
+         }
+      }
+      int required = Math.max(awaitedLength, readBuffer.position() + 1);
+      if (required > readBuffer.capacity()) {
+         // the buffer is too small for the partial response, make room for the rest of it
+         ByteBuffer larger = ByteBuffer.allocate(Math.max(required, readBuffer.capacity() * 2));
+         readBuffer.flip();
+         larger.put(readBuffer);
+         readBuffer = larger;
+      }
+   }
+
+   private void decode() {
+      responseTransport.setInput(readBuffer);
+      while (readBuffer.hasRemaining() && !closed) {
+         int start = readBuffer.position();
+         Pending request;
+         try {
+            // [magic][message id], validated again by the codec when decoding the response
+            readBuffer.get();
+            long messageId = UnsignedNumeric.readUnsignedLong(readBuffer);
+            request = pendingFor(messageId);
+            if (request == null) {
+               close(new TransportException(new InvalidResponseException(
+                     "Received a response for unknown message id " + messageId), serverAddress));
+               return;
+            }
+         } catch (BufferUnderflowException e) {
+            readBuffer.position(start);
+            return;
+         }
+         readBuffer.position(start);
+         responseTransport.startResponse(start);
+         try {
+            request.request.readResponse(responseTransport);
+         } catch (BufferUnderflowException e) {
+            awaitedLength = responseTransport.getAwaitedLength();
+            readBuffer.position(start);
+            return;
+         } catch (HotRodClientException e) {
+            remove(request);
+            request.request.failed(e);
+            if (invalid || e instanceof InvalidResponseException) {
+               close(new TransportException(e, serverAddress));
+            }
+            continue;
+         } catch (RuntimeException e) {
+            remove(request);
+            request.request.failed(e);
+            close(new TransportException(e, serverAddress));
+            return;
+         }
+         remove(request);
+         if (trace) {
+            log.tracef("Received response to request %d on %s", request.messageId, this);
+         }
+      }
+   }
+
+   private synchronized Pending pendingFor(long messageId) {
+      if (messageId == 0) {
+         // a failure noted before the server parsed the message id
+         return pending.isEmpty() ? null : pending.values().iterator().next();
+      }
+      return pending.get(messageId);
+   }
+
+   /**
+    * Forgets a request whose response was fully read.
+    */
+   private void remove(Pending request) {
+      responseTransport.endResponse();
+      awaitedLength = 0;
+      synchronized (this) {
+         pending.remove(request.messageId);
+      }
+   }
+
+   void checkTimeouts(long now) {
+      if (!connected && now >= connectDeadline) {
+         close(new TransportException(new SocketTimeoutException("Connect timed out"), serverAddress));
+         return;
+      }
+      List<Pending> timedOut = new ArrayList<Pending>();
+      boolean unresponsive;
+      synchronized (this) {
+         boolean waiting = false;
+         for (Pending request : pending.values()) {
+            if (request.deadline > now) {
+               waiting = true;
+            } else if (!request.timedOut) {
+               // keep the request until its response arrives, so that the response can be skipped
+               request.timedOut = true;
+               timedOut.add(request);
+            }
+         }
+         unresponsive = !pending.isEmpty() && !waiting && now - lastReceived >= soTimeout;
+      }
+      for (Pending request : timedOut) {
+         request.request.failed(new TransportException(new SocketTimeoutException(
+               "No response to request " + request.messageId + " within " + soTimeout + " ms"), serverAddress));
+      }
+      if (unresponsive) {
+         // none of the outstanding requests can still get a response in time, so closing fails none of them
+         close(new TransportException(new SocketTimeoutException(
+               "No response from server within " + soTimeout + " ms"), serverAddress));
+      }
+   }
+
+   /**
+    * Closes the connection and fails all its outstanding requests with the given cause. Must be invoked from the event
+    * loop thread, see {@link #closeAsync(TransportException)} otherwise.
+    */
+   void close(TransportException cause) {
+      List<Pending> failed;
+      synchronized (this) {
+         if (closed) {
+            return;
+         }
+         closed = true;
+         failed = new ArrayList<Pending>(pending.values());
+         pending.clear();
+         writeQueue.clear();
+      }
+      if (trace) {
+         log.tracef(cause, "Closing %s, failing %d outstanding requests", this, failed.size());
+      }
+      outbound.clear();
+      if (key != null) {
+         key.cancel();
+      }
+      Util.close(channel);
+      for (Pending request : failed) {
+         request.request.failed(cause);
+      }
+   }
+
+   public void closeAsync(final TransportException cause) {
+      eventLoop.execute(new Runnable() {
+         @Override
+         public void run() {
+            close(cause);
+         }
+      });
+   }
+
+   public boolean isClosed() {
+      return closed;
+   }
+
+   void invalidate() {
+      invalid = true;
+   }
+
+   public SocketAddress getServerAddress() {
+      return serverAddress;
+   }
+
+   public synchronized int getPendingCount() {
+      return pending.size();
+   }
+
+   @Override
+   public String toString() {
+      return "PipelinedConnection{" +
+            "serverAddress=" + serverAddress +
+            ", id=" + id +
+            ", closed=" + closed +
+            '}';
+   }
+
+   private static final class Pending {
+      final long messageId;
+      final PipelinedRequest request;
+      final long deadline;
+      // guarded by the connection
+      boolean timedOut;
+
+      Pending(long messageId, PipelinedRequest request, long deadline) {
+         this.messageId = messageId;
+         this.request = request;
+         this.deadline = deadline;
+      }
+   }
+}
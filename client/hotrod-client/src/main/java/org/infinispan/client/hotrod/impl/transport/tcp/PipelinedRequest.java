@@ -0,0 +1,37 @@
+package org.infinispan.client.hotrod.impl.transport.tcp;
+
+import org.infinispan.client.hotrod.impl.transport.Transport;
+
+/**
+ * A request sent over a {@link PipelinedConnection}, together with the logic for decoding its response.
+ *
+ * @since 7.0
+ */
+public interface PipelinedRequest {
+
+   /**
+    * Writes the request to the given transport, which buffers it in memory, and returns the message id of the request.
+    * The server echoes the message id in the response header, which is how responses are matched to requests.
+    */
+   long writeRequest(Transport transport);
+
+   /**
+    * Reads the response from the given transport. This is invoked by the event loop thread and must not block.
+    * <p/>
+    * If the response has not been fully received yet, the transport throws a
+    * {@link java.nio.BufferUnderflowException} and this method is invoked again, from the beginning of the response,
+    * once more data is available. Implementations must therefore only publish the result once the whole response has
+    * been read, and read the header through {@link PipelinedTransport#readHeader}, which only reads it the first time.
+    * <p/>
+    * The response to a request that timed out is still read when it arrives, after {@link #failed(Throwable)} was
+    * invoked, and must be ignored.
+    */
+   void readResponse(Transport transport);
+
+   /**
+    * Invoked when the response could not be read, either because the server replied with an error or because the
+    * connection failed, in which case the cause is a {@link org.infinispan.client.hotrod.exceptions.TransportException}
+    * and the request may be retried on another connection.
+    */
+   void failed(Throwable cause);
+}
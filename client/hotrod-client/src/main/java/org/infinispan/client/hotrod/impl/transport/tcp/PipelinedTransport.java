@@ -0,0 +1,195 @@
+package org.infinispan.client.hotrod.impl.transport.tcp;
+
+import static org.infinispan.commons.io.UnsignedNumeric.readUnsignedInt;
+import static org.infinispan.commons.io.UnsignedNumeric.readUnsignedLong;
+import static org.infinispan.commons.io.UnsignedNumeric.writeUnsignedInt;
+import static org.infinispan.commons.io.UnsignedNumeric.writeUnsignedLong;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+import org.infinispan.client.hotrod.exceptions.TransportException;
+import org.infinispan.client.hotrod.impl.protocol.Codec;
+import org.infinispan.client.hotrod.impl.protocol.HeaderParams;
+import org.infinispan.client.hotrod.impl.transport.AbstractTransport;
+import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+
+/**
+ * In-memory {@link org.infinispan.client.hotrod.impl.transport.Transport} used by {@link PipelinedConnection}, so that
+ * the existing codec and operations can encode requests and decode responses without performing any I/O.
+ * <p/>
+ * Requests are written to a growable byte array, which the connection then hands over to its event loop. Responses
+ * are read from the connection's receive buffer; reading past the bytes received so far throws a
+ * {@link BufferUnderflowException}, upon which the connection rewinds the buffer and decodes the response again once
+ * more bytes arrive. The header of a response, which may carry a new topology, is only read the first time, see
+ * {@link #readHeader(Codec, HeaderParams)}, and when the response is missing the bytes of a value of known length the
+ * connection waits for all of them before decoding it again.
+ *
+ * @since 7.0
+ */
+public class PipelinedTransport extends AbstractTransport {
+
+   private final PipelinedConnection connection;
+   private ByteArrayOutputStream out;
+   private ByteBuffer in;
+
+   // the position of the response being read in the input and, once its header was read, the length and status of
+   // the header, -1 before
+   private int responseStart;
+   private int headerLength = -1;
+   private short headerStatus;
+   // the length the response being read is known to have at least, 0 if unknown
+   private int awaitedLength;
+
+   PipelinedTransport(TransportFactory transportFactory, PipelinedConnection connection) {
+      super(transportFactory);
+      this.connection = connection;
+   }
+
+   void setInput(ByteBuffer in) {
+      this.in = in;
+   }
+
+   /**
+    * Starts reading the response at the given position of the input, either for the first time or again after more
+    * bytes were received.
+    */
+   void startResponse(int start) {
+      responseStart = start;
+      awaitedLength = 0;
+   }
+
+   /**
+    * Forgets the header of the response, which has been fully read.
+    */
+   void endResponse() {
+      headerLength = -1;
+      awaitedLength = 0;
+   }
+
+   /**
+    * @return the number of bytes the response being read has at least, counted from its start, or 0 if unknown
+    */
+   int getAwaitedLength() {
+      return awaitedLength;
+   }
+
+   /**
+    * Reads the header of the response with the given codec, or, if a previous attempt to read the response already
+    * read it, skips it and returns the status read back then. The codec applies the topology sent in the header, which
+    * must only happen once per response.
+    */
+   public short readHeader(Codec codec, HeaderParams params) {
+      if (headerLength >= 0) {
+         in.position(responseStart + headerLength);
+         return headerStatus;
+      }
+      short status = codec.readHeader(this, params);
+      headerStatus = status;
+      headerLength = in.position() - responseStart;
+      return status;
+   }
+
+   byte[] toByteArray() {
+      return out == null ? new byte[0] : out.toByteArray();
+   }
+
+   private ByteArrayOutputStream out() {
+      if (out == null) {
+         out = new ByteArrayOutputStream(64);
+      }
+      return out;
+   }
+
+   @Override
+   protected void writeBytes(byte[] toAppend) {
+      out().write(toAppend, 0, toAppend.length);
+   }
+
+   @Override
+   public void writeByte(short toWrite) {
+      out().write(toWrite);
+   }
+
+   @Override
+   public void writeVInt(int vint) {
+      try {
+         writeUnsignedInt(out(), vint);
+      } catch (IOException e) {
+         throw new TransportException(e, connection.getServerAddress());
+      }
+   }
+
+   @Override
+   public void writeVLong(long l) {
+      try {
+         writeUnsignedLong(out(), l);
+      } catch (IOException e) {
+         throw new TransportException(e, connection.getServerAddress());
+      }
+   }
+
+   @Override
+   public void flush() {
+      // the connection's event loop writes the request
+   }
+
+   @Override
+   public short readByte() {
+      return (short) (in.get() & 0xFF);
+   }
+
+   @Override
+   public int readVInt() {
+      return readUnsignedInt(in);
+   }
+
+   @Override
+   public long readVLong() {
+      return readUnsignedLong(in);
+   }
+
+   @Override
+   public byte[] readByteArray(int size) {
+      if (in.remaining() < size) {
+         awaitedLength = in.position() - responseStart + size;
+         throw new BufferUnderflowException();
+      }
+      byte[] result = new byte[size];
+      in.get(result);
+      return result;
+   }
+
+   @Override
+   public void release() {
+      // the connection is shared, nothing to release
+   }
+
+   @Override
+   public byte[] dumpStream() {
+      if (in == null) {
+         return new byte[0];
+      }
+      byte[] remaining = new byte[in.remaining()];
+      in.duplicate().get(remaining);
+      return remaining;
+   }
+
+   @Override
+   public SocketAddress getRemoteSocketAddress() {
+      return connection.getServerAddress();
+   }
+
+   @Override
+   public void invalidate() {
+      connection.invalidate();
+   }
+
+   @Override
+   public String toString() {
+      return "PipelinedTransport{connection=" + connection + "}";
+   }
+}
@@ -5,9 +5,13 @@
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.net.ssl.SSLContext;
@@ -50,6 +54,10 @@ public class TcpTransportFactory implements TransportFactory {
    private Collection<SocketAddress> servers;
    private ConsistentHash consistentHash;
    private final ConsistentHashFactory hashFactory = new ConsistentHashFactory();
+   private NioEventLoop eventLoop;
+   // connections are created lazily and replaced once closed, under the lock of their array
+   private final ConcurrentMap<SocketAddress, PipelinedConnection[]> pipelinedConnections = new ConcurrentHashMap<SocketAddress, PipelinedConnection[]>();
+   private final AtomicInteger pipelinedIndex = new AtomicInteger();
 
    // the primitive fields are often accessed separately from the rest so it makes sense not to require synchronization for them
    private volatile boolean tcpNoDelay;
@@ -57,6 +65,7 @@ public class TcpTransportFactory implements TransportFactory {
    private volatile int connectTimeout;
    private volatile int transportCount;
    private volatile SSLContext sslContext;
+   private volatile int asyncConnectionsPerServer;
 
    @Override
    public void start(Codec codec, Configuration configuration, AtomicInteger topologyId) {
@@ -72,6 +81,7 @@ public void start(Codec codec, Configuration configuration, AtomicInteger topolo
          tcpNoDelay = configuration.tcpNoDelay();
          soTimeout = configuration.socketTimeout();
          connectTimeout = configuration.connectionTimeout();
+         asyncConnectionsPerServer = configuration.asyncConnectionsPerServer();
 
          if (configuration.ssl().enabled()) {
             SslConfiguration ssl = configuration.ssl();
@@ -93,6 +103,10 @@ public void start(Codec codec, Configuration configuration, AtomicInteger topolo
                      new TransportObjectFactory(codec, this, topologyId, pingOnStartup),
                      configuration.connectionPool());
          createAndPreparePool(poolFactory);
+         if (sslContext == null && asyncConnectionsPerServer > 0) {
+            // pipelining is not supported over SSL, async operations then use the async executor
+            eventLoop = new NioEventLoop(soTimeout);
+         }
          balancer.setServers(servers);
          updateTransportCount();
       }
@@ -134,6 +148,11 @@ private void createAndPreparePool(PropsKeyedObjectPoolFactory<SocketAddress, Tcp
    @Override
    public void destroy() {
       synchronized (lock) {
+         if (eventLoop != null) {
+            eventLoop.stop();
+            eventLoop = null;
+            pipelinedConnections.clear();
+         }
          connectionPool.clear();
          try {
             connectionPool.close();
@@ -167,8 +186,17 @@ public Transport getTransport() {
 
    @Override
    public Transport getTransport(byte[] key) {
-      SocketAddress server;
+      return borrowTransportFromPool(getServer(key));
+   }
+
+   @Override
+   public Transport getAddressTransport(SocketAddress server) {
+      return borrowTransportFromPool(server);
+   }
+
+   private SocketAddress getServer(byte[] key) {
       synchronized (lock) {
+         SocketAddress server;
          if (consistentHash != null) {
             server = consistentHash.getServer(key);
             if (log.isTraceEnabled()) {
@@ -180,8 +208,61 @@ public Transport getTransport(byte[] key) {
                log.tracef("Using the balancer for determining the server: %s", server);
             }
          }
+         return server;
+      }
+   }
+
+   @Override
+   public Map<SocketAddress, List<byte[]>> groupKeysByServer(Collection<byte[]> keys) {
+      synchronized (lock) {
+         if (consistentHash == null) {
+            return Collections.singletonMap(balancer.nextServer(), (List<byte[]>) new ArrayList<byte[]>(keys));
+         }
+         Map<SocketAddress, List<byte[]>> keysByServer = new HashMap<SocketAddress, List<byte[]>>();
+         for (byte[] key : keys) {
+            SocketAddress server = consistentHash.getServer(key);
+            List<byte[]> serverKeys = keysByServer.get(server);
+            if (serverKeys == null) {
+               serverKeys = new ArrayList<byte[]>();
+               keysByServer.put(server, serverKeys);
+            }
+            serverKeys.add(key);
+         }
+         if (log.isTraceEnabled()) {
+            log.tracef("Split %d keys between servers %s", keys.size(), keysByServer.keySet());
+         }
+         return keysByServer;
+      }
+   }
+
+   @Override
+   public PipelinedConnection getPipelinedConnection(byte[] key) {
+      NioEventLoop loop;
+      SocketAddress server;
+      synchronized (lock) {
+         loop = eventLoop;
+         if (loop == null) {
+            return null;
+         }
+         server = key == null ? balancer.nextServer() : getServer(key);
+      }
+      PipelinedConnection[] connections = pipelinedConnections.get(server);
+      if (connections == null) {
+         connections = new PipelinedConnection[asyncConnectionsPerServer];
+         PipelinedConnection[] existing = pipelinedConnections.putIfAbsent(server, connections);
+         if (existing != null) {
+            connections = existing;
+         }
+      }
+      int index = (pipelinedIndex.getAndIncrement() & Integer.MAX_VALUE) % connections.length;
+      synchronized (connections) {
+         PipelinedConnection connection = connections[index];
+         if (connection == null || connection.isClosed()) {
+            connection = new PipelinedConnection(server, this, loop);
+            connections[index] = connection;
+         }
+         return connection;
       }
-      return borrowTransportFromPool(server);
    }
 
    @Override
@@ -259,6 +340,7 @@ public void updateServers(Collection<SocketAddress> newServers) {
          for (SocketAddress server : failedServers) {
             log.removingServer(server);
             connectionPool.clear(server);
+            closePipelinedConnections(server);
          }
 
          servers = Collections.unmodifiableList(new ArrayList(newServers));
@@ -266,6 +348,21 @@ public void updateServers(Collection<SocketAddress> newServers) {
       }
    }
 
+   private void closePipelinedConnections(SocketAddress server) {
+      PipelinedConnection[] connections = pipelinedConnections.remove(server);
+      if (connections != null) {
+         synchronized (connections) {
+            for (PipelinedConnection connection : connections) {
+               if (connection != null) {
+                  // outstanding requests fail with a TransportException and are retried on the remaining servers
+                  connection.closeAsync(new TransportException("Server removed from the topology", server));
+               }
+            }
+         }
+      }
+   }
+
+   @Override
    public Collection<SocketAddress> getServers() {
       synchronized (lock) {
          return servers;
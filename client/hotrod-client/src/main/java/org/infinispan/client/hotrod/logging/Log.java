@@ -125,4 +125,19 @@ public interface Log extends BasicLogger {
 
    @Message(value = "Cannot configure custom KeyStore and/or TrustStore when specifying a SSLContext", id = 4027)
    CacheConfigurationException xorSSLContext();
+
+   @LogMessage(level = WARN)
+   @Message(value = "Future listener %s threw an exception", id = 4028)
+   void futureListenerFailed(Object listener, @Cause Throwable t);
+
+   @Message(value = "The maximum number of near cache entries must be positive: %d", id = 4029)
+   CacheConfigurationException invalidNearCacheMaxEntries(int maxEntries);
+
+   @LogMessage(level = WARN)
+   @Message(value = "Lost the invalidation events connection to %s, the near cache is disabled until it is restored", id = 4030)
+   void nearCacheInvalidationsLost(SocketAddress server, @Cause Throwable t);
+
+   @LogMessage(level = WARN)
+   @Message(value = "The near cache of cache %s needs protocol version 1.3 or later, it is disabled", id = 4031)
+   void nearCacheNotSupported(String cacheName);
 }
@@ -1,5 +1,6 @@
 package org.infinispan.client.hotrod;
 
+import org.infinispan.commons.util.CloseableIterator;
 import org.infinispan.configuration.cache.ConfigurationBuilder;
 import org.infinispan.manager.EmbeddedCacheManager;
 import org.infinispan.server.hotrod.HotRodServer;
@@ -20,6 +21,9 @@
 import static org.infinispan.client.hotrod.test.HotRodClientTestingUtil.killServers;
 import static org.infinispan.server.hotrod.test.HotRodTestingUtil.hotRodCacheConfiguration;
 import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
 
 /**
  * Tests functionality related to getting multiple entries from a HotRod server
@@ -53,10 +57,22 @@ protected void createCacheManagers() throws Throwable {
 
       String servers = TestHelper.getServersString(hotrodServers);
 
-      remoteCacheManager = new RemoteCacheManager(servers);
+      org.infinispan.client.hotrod.configuration.ConfigurationBuilder clientBuilder =
+            new org.infinispan.client.hotrod.configuration.ConfigurationBuilder().addServers(servers);
+      if (protocolVersion() != null) {
+         clientBuilder.protocolVersion(protocolVersion());
+      }
+      remoteCacheManager = new RemoteCacheManager(clientBuilder.build());
       remoteCache = remoteCacheManager.getCache();
    }
 
+   /**
+    * The Hot Rod protocol version used by the client, or null for the default one.
+    */
+   protected String protocolVersion() {
+      return null;
+   }
+
    @AfterClass
    public void release() {
       killRemoteCacheManager(remoteCacheManager);
@@ -119,4 +135,75 @@ public void testBulkGetAfterLifespanExpire() throws InterruptedException {
             String.format("Data not empty, it contains: %s elements", dataOut.size());
    }
 
+   public void testGetAll() {
+      populateCacheManager();
+      Set<Object> keys = new HashSet<Object>();
+      for (int i = 0; i < 100; i += 2) {
+         keys.add(i);
+      }
+      keys.add("missing");
+      Map<Object, Object> map = remoteCache.getAll(keys);
+      assertEquals(50, map.size());
+      for (int i = 0; i < 100; i += 2) {
+         assertEquals(i, map.get(i));
+      }
+   }
+
+   public void testPutAll() {
+      Map<Object, Object> dataIn = new HashMap<Object, Object>();
+      for (int i = 0; i < 100; i++) {
+         dataIn.put("k" + i, "v" + i);
+      }
+      remoteCache.putAll(dataIn);
+      try {
+         assertEquals(dataIn, remoteCache.getAll(dataIn.keySet()));
+         for (int i = 0; i < 100; i++) {
+            VersionedValue<Object> versioned = remoteCache.getVersioned("k" + i);
+            assertEquals("v" + i, versioned.getValue());
+            assertTrue(remoteCache.replaceWithVersion("k" + i, "w" + i, versioned.getVersion()));
+         }
+      } finally {
+         // the other tests expect the cache to contain their entries only
+         for (Object key : dataIn.keySet()) {
+            remoteCache.remove(key);
+         }
+      }
+   }
+
+   public void testRetrieveEntries() {
+      populateCacheManager();
+      Map<Object, Object> map = new HashMap<Object, Object>();
+      CloseableIterator<Map.Entry<Object, Object>> it = remoteCache.retrieveEntries(7);
+      try {
+         while (it.hasNext()) {
+            Map.Entry<Object, Object> entry = it.next();
+            assertNull(map.put(entry.getKey(), entry.getValue()));
+         }
+      } finally {
+         it.close();
+      }
+      assertEquals(100, map.size());
+      for (int i = 0; i < 100; i++) {
+         assertEquals(i, map.get(i));
+      }
+      assertNoIterations();
+   }
+
+   public void testRetrieveKeysClosedEarly() {
+      populateCacheManager();
+      CloseableIterator<Object> it = remoteCache.retrieveKeys(10);
+      for (int i = 0; i < 15; i++) {
+         assertTrue(it.hasNext());
+         assertTrue((Integer) it.next() < 100);
+      }
+      it.close();
+      assertFalse(it.hasNext());
+      assertNoIterations();
+   }
+
+   private void assertNoIterations() {
+      for (HotRodServer server : hotrodServers) {
+         assertEquals(0, server.getIterationManager().getIterationCount());
+      }
+   }
 }
@@ -0,0 +1,19 @@
+package org.infinispan.client.hotrod;
+
+import org.infinispan.client.hotrod.impl.ConfigurationProperties;
+import org.testng.annotations.Test;
+
+/**
+ * Tests the bulk operations of a client speaking version 1.2 of the protocol, as during a rolling upgrade from
+ * servers that do not know the operations added in version 1.3.
+ *
+ * @since 7.0
+ */
+@Test(testName = "client.hotrod.BulkGetProtocol12Test", groups = "functional")
+public class BulkGetProtocol12Test extends BulkGetReplTest {
+
+   @Override
+   protected String protocolVersion() {
+      return ConfigurationProperties.PROTOCOL_VERSION_12;
+   }
+}
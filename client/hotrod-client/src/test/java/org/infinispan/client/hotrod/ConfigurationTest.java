@@ -37,6 +37,9 @@ public void testConfiguration() {
             .testWhileIdle(false)
             .minEvictableIdleTime(12000)
             .timeBetweenEvictionRuns(15000)
+         .nearCache()
+            .enable()
+            .maxEntries(500)
          .connectionTimeout(100)
          .consistentHashImpl(1, SomeCustomConsistentHashV1.class)
          .socketTimeout(100)
@@ -44,6 +47,7 @@ public void testConfiguration() {
          .pingOnStartup(false)
          .keySizeEstimate(128)
          .valueSizeEstimate(1024)
+         .asyncConnectionsPerServer(4)
          .transportFactory(SomeTransportfactory.class);
 
       Configuration configuration = builder.build();
@@ -79,5 +83,8 @@ private void validateConfiguration(Configuration configuration) {
       assertFalse(configuration.pingOnStartup());
       assertEquals(128, configuration.keySizeEstimate());
       assertEquals(1024, configuration.valueSizeEstimate());
+      assertEquals(4, configuration.asyncConnectionsPerServer());
+      assertTrue(configuration.nearCache().enabled());
+      assertEquals(500, configuration.nearCache().maxEntries());
    }
 }
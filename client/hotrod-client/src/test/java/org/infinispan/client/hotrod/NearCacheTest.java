@@ -0,0 +1,118 @@
+package org.infinispan.client.hotrod;
+
+import static org.infinispan.test.TestingUtil.k;
+import static org.infinispan.test.TestingUtil.v;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertSame;
+
+import java.lang.reflect.Method;
+
+import org.infinispan.client.hotrod.impl.RemoteCacheImpl;
+import org.infinispan.client.hotrod.test.MultiHotRodServersTest;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.testng.annotations.Test;
+
+/**
+ * Tests the near cache of the Hot Rod client, kept coherent by the invalidation events pushed by the servers.
+ *
+ * @since 7.0
+ */
+@Test(groups = "functional", testName = "client.hotrod.NearCacheTest")
+public class NearCacheTest extends MultiHotRodServersTest {
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      createHotRodServers(2, getDefaultClusteredCacheConfig(CacheMode.REPL_SYNC, false));
+   }
+
+   @Override
+   protected org.infinispan.client.hotrod.configuration.ConfigurationBuilder createHotRodClientConfigurationBuilder(int serverPort) {
+      org.infinispan.client.hotrod.configuration.ConfigurationBuilder builder = super.createHotRodClientConfigurationBuilder(serverPort);
+      builder.nearCache().enable().maxEntries(10);
+      return builder;
+   }
+
+   public void testGetServedLocally(final Method m) {
+      final RemoteCache<String, String> cache = nearCache(0);
+      cache.put(k(m), v(m));
+      assertEquals(v(m), cache.get(k(m)));
+      // a remote read unmarshalls another instance, and the event of the put may invalidate the first value read
+      eventually(new Condition() {
+         @Override
+         public boolean isSatisfied() throws Exception {
+            return cache.get(k(m)) == cache.get(k(m));
+         }
+      });
+   }
+
+   public void testGetAsyncUsesNearCache(final Method m) throws Exception {
+      final RemoteCache<String, String> cache = nearCache(0);
+      cache.put(k(m), v(m));
+      assertEquals(v(m), cache.getAsync(k(m)).get());
+      // the near cache is filled once the value is read, and the event of the put may invalidate the first value read
+      eventually(new Condition() {
+         @Override
+         public boolean isSatisfied() throws Exception {
+            return cache.getAsync(k(m)).get() == cache.getAsync(k(m)).get();
+         }
+      });
+      assertEquals(v(m), cache.get(k(m)));
+      assertSame(cache.get(k(m)), cache.getAsync(k(m)).get());
+   }
+
+   public void testInvalidatedByWriteFromOtherClient(final Method m) {
+      final RemoteCache<String, String> cache0 = nearCache(0);
+      RemoteCache<String, String> cache1 = nearCache(1);
+      cache0.put(k(m), v(m));
+      assertEquals(v(m), cache0.get(k(m)));
+
+      cache1.put(k(m), v(m, 2));
+      eventually(new Condition() {
+         @Override
+         public boolean isSatisfied() throws Exception {
+            return v(m, 2).equals(cache0.get(k(m)));
+         }
+      });
+
+      cache1.remove(k(m));
+      eventually(new Condition() {
+         @Override
+         public boolean isSatisfied() throws Exception {
+            return cache0.get(k(m)) == null;
+         }
+      });
+   }
+
+   public void testOwnWritesVisibleImmediately(final Method m) {
+      RemoteCache<String, String> cache = nearCache(0);
+      cache.put(k(m), v(m));
+      assertEquals(v(m), cache.get(k(m)));
+      cache.put(k(m), v(m, 2));
+      assertEquals(v(m, 2), cache.get(k(m)));
+      cache.remove(k(m));
+      assertNull(cache.get(k(m)));
+   }
+
+   public void testBounded(final Method m) {
+      RemoteCache<String, String> cache = nearCache(0);
+      for (int i = 0; i < 20; i++) {
+         cache.put(k(m, i), v(m, i));
+         assertEquals(v(m, i), cache.get(k(m, i)));
+      }
+      assert ((RemoteCacheImpl<String, String>) cache).getNearCache().size() <= 10;
+   }
+
+   private RemoteCache<String, String> nearCache(int i) {
+      final RemoteCacheImpl<String, String> cache = (RemoteCacheImpl<String, String>) client(i).<String, String>getCache();
+      // wait until the invalidation events are received from all the servers
+      eventually(new Condition() {
+         @Override
+         public boolean isSatisfied() throws Exception {
+            return cache.getNearCache().isServing();
+         }
+      });
+      return cache;
+   }
+}
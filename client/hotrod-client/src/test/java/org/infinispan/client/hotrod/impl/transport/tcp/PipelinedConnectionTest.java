@@ -0,0 +1,219 @@
+package org.infinispan.client.hotrod.impl.transport.tcp;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.infinispan.client.hotrod.exceptions.TransportException;
+import org.infinispan.client.hotrod.impl.async.ResponseFuture;
+import org.infinispan.client.hotrod.impl.operations.GetOperation;
+import org.infinispan.client.hotrod.impl.protocol.Codec;
+import org.infinispan.client.hotrod.impl.protocol.Codec12;
+import org.infinispan.client.hotrod.impl.protocol.HeaderParams;
+import org.infinispan.client.hotrod.impl.protocol.HotRodConstants;
+import org.infinispan.client.hotrod.impl.transport.Transport;
+import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+import org.infinispan.commons.io.UnsignedNumeric;
+import org.infinispan.test.AbstractInfinispanTest;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Tests how a {@link PipelinedConnection} matches responses to requests, against a server that writes raw Hot Rod
+ * responses.
+ *
+ * @since 7.0
+ */
+@Test(groups = "unit", testName = "client.hotrod.impl.transport.tcp.PipelinedConnectionTest")
+public class PipelinedConnectionTest extends AbstractInfinispanTest {
+
+   private static final byte[] CACHE_NAME = new byte[0];
+
+   private ServerSocket serverSocket;
+   private Socket socket;
+   private NioEventLoop eventLoop;
+   private TransportFactory transportFactory;
+   private PipelinedConnection connection;
+   private Codec codec;
+
+   @AfterMethod(alwaysRun = true)
+   protected void tearDown() throws IOException {
+      if (eventLoop != null) eventLoop.stop();
+      if (socket != null) socket.close();
+      if (serverSocket != null) serverSocket.close();
+   }
+
+   public void testResponsesOutOfOrder() throws Exception {
+      connect(60000);
+      ResponseFuture<byte[]> future1 = get("k1");
+      ResponseFuture<byte[]> future2 = get("k2");
+      long messageId1 = readGetRequest();
+      long messageId2 = readGetRequest();
+
+      writeFully(getResponse(messageId2, "v2".getBytes()));
+      assertEquals("v2", new String(future2.get(10, TimeUnit.SECONDS)));
+      assertFalse(future1.isDone());
+
+      writeFully(getResponse(messageId1, "v1".getBytes()));
+      assertEquals("v1", new String(future1.get(10, TimeUnit.SECONDS)));
+      assertEquals(0, connection.getPendingCount());
+   }
+
+   public void testResponseSplitAcrossReads() throws Exception {
+      connect(60000);
+      ResponseFuture<byte[]> future = get("k");
+      long messageId = readGetRequest();
+
+      // larger than the initial read buffer
+      byte[] value = new byte[200 * 1024];
+      Arrays.fill(value, (byte) 'v');
+      byte[] response = getResponse(messageId, value);
+      // the header, the value length and the value itself are all split
+      int[] splits = {2, 7, 1000, 70000, response.length};
+      int offset = 0;
+      for (int split : splits) {
+         OutputStream out = socket.getOutputStream();
+         out.write(response, offset, split - offset);
+         out.flush();
+         offset = split;
+         Thread.sleep(50);
+      }
+
+      assertTrue(Arrays.equals(value, future.get(10, TimeUnit.SECONDS)));
+      // the header, which may carry a new topology, is only read once
+      verify(codec, times(1)).readHeader(any(Transport.class), any(HeaderParams.class));
+   }
+
+   public void testTimeoutOnlyFailsTheRequest() throws Exception {
+      int soTimeout = 60000;
+      connect(soTimeout);
+      ResponseFuture<byte[]> timedOut = get("k1");
+      long sentTimedOut = System.currentTimeMillis();
+      long timedOutId = readGetRequest();
+      Thread.sleep(100);
+      ResponseFuture<byte[]> waiting = get("k2");
+      long waitingId = readGetRequest();
+
+      // the first request is past its deadline, the second one is not yet
+      checkTimeouts(sentTimedOut + soTimeout);
+      try {
+         timedOut.get(10, TimeUnit.SECONDS);
+         throw new AssertionError("The request should have timed out");
+      } catch (ExecutionException e) {
+         assertTrue(e.getCause() instanceof TransportException);
+         assertTrue(e.getCause().getCause() instanceof SocketTimeoutException);
+      }
+      assertFalse(waiting.isDone());
+      assertFalse(connection.isClosed());
+
+      // the late response is skipped
+      writeFully(getResponse(timedOutId, "v1".getBytes()));
+      writeFully(getResponse(waitingId, "v2".getBytes()));
+      assertEquals("v2", new String(waiting.get(10, TimeUnit.SECONDS)));
+      assertFalse(connection.isClosed());
+      eventually(new Condition() {
+         @Override
+         public boolean isSatisfied() throws Exception {
+            return connection.getPendingCount() == 0;
+         }
+      });
+   }
+
+   private void connect(int soTimeout) throws IOException {
+      serverSocket = new ServerSocket(0, 1, InetAddress.getByName("127.0.0.1"));
+      eventLoop = new NioEventLoop(soTimeout);
+      transportFactory = mock(TransportFactory.class);
+      when(transportFactory.getSoTimeout()).thenReturn(soTimeout);
+      when(transportFactory.getConnectTimeout()).thenReturn(10000);
+      when(transportFactory.isTcpNoDelay()).thenReturn(true);
+      when(transportFactory.getTransportCount()).thenReturn(1);
+      codec = spy(new Codec12());
+
+      connection = new PipelinedConnection(
+            new InetSocketAddress("127.0.0.1", serverSocket.getLocalPort()), transportFactory, eventLoop);
+      when(transportFactory.getPipelinedConnection(any(byte[].class))).thenReturn(connection);
+      socket = serverSocket.accept();
+      socket.setTcpNoDelay(true);
+   }
+
+   private ResponseFuture<byte[]> get(String key) {
+      GetOperation op = new GetOperation(codec, transportFactory, key.getBytes(), CACHE_NAME, new AtomicInteger(), null);
+      return op.executeAsync(mock(ExecutorService.class));
+   }
+
+   private void checkTimeouts(final long now) throws InterruptedException {
+      final CountDownLatch checked = new CountDownLatch(1);
+      eventLoop.execute(new Runnable() {
+         @Override
+         public void run() {
+            connection.checkTimeouts(now);
+            checked.countDown();
+         }
+      });
+      assertTrue(checked.await(10, TimeUnit.SECONDS));
+   }
+
+   /**
+    * Reads a get request and returns its message id.
+    */
+   private long readGetRequest() throws IOException {
+      InputStream in = socket.getInputStream();
+      assertEquals(HotRodConstants.REQUEST_MAGIC, in.read());
+      long messageId = UnsignedNumeric.readUnsignedLong(in);
+      in.read(); // version
+      assertEquals(HotRodConstants.GET_REQUEST, in.read());
+      readArray(in); // cache name
+      UnsignedNumeric.readUnsignedInt(in); // flags
+      in.read(); // client intelligence
+      UnsignedNumeric.readUnsignedInt(in); // topology id
+      in.read(); // transaction marker
+      readArray(in); // key
+      return messageId;
+   }
+
+   private static void readArray(InputStream in) throws IOException {
+      int length = UnsignedNumeric.readUnsignedInt(in);
+      for (int i = 0; i < length; i++) {
+         assertTrue(in.read() >= 0);
+      }
+   }
+
+   private static byte[] getResponse(long messageId, byte[] value) throws IOException {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      out.write(HotRodConstants.RESPONSE_MAGIC);
+      UnsignedNumeric.writeUnsignedLong(out, messageId);
+      out.write(HotRodConstants.GET_RESPONSE);
+      out.write(HotRodConstants.NO_ERROR_STATUS);
+      out.write(0); // no topology change
+      UnsignedNumeric.writeUnsignedInt(out, value.length);
+      out.write(value);
+      return out.toByteArray();
+   }
+
+   private void writeFully(byte[] bytes) throws IOException {
+      socket.getOutputStream().write(bytes);
+      socket.getOutputStream().flush();
+   }
+}
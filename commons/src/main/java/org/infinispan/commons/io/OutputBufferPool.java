@@ -0,0 +1,89 @@
+package org.infinispan.commons.io;
+
+import java.util.Arrays;
+
+/**
+ * A per-thread pool of {@link ExposedByteArrayOutputStream}s, used as scratch space by the marshallers.
+ * <p/>
+ * Marshalled bytes are usually kept by their consumer after the marshaller returns (JGroups may retransmit a message
+ * long after it was sent, stores and {@link org.infinispan.commons.marshall.Marshaller#objectToBuffer(Object)} callers
+ * keep the buffer), so a pooled buffer can't be handed out. Instead the output is marshalled into a pooled stream and
+ * {@link #toByteBuffer(ExposedByteArrayOutputStream)} copies it into an exactly sized array. This replaces the
+ * estimated-size buffer, the copies made while growing it and the copy made when trimming it with a single allocation,
+ * and avoids any allocation when the bytes are only copied into another stream.
+ * <p/>
+ * Streams are pooled per thread, so each thread can only release the streams it acquired. A few streams are kept per
+ * thread, since marshalling a command may marshal some of its parameters separately. Streams that grew larger than
+ * {@link #MAX_POOLED_SIZE} are not pooled.
+ *
+ * @since 7.0
+ */
+public final class OutputBufferPool {
+
+   /**
+    * The largest buffer kept in the pool
+    */
+   public static final int MAX_POOLED_SIZE = 64 * 1024;
+
+   private static final int STREAMS_PER_THREAD = 4;
+
+   private static final ThreadLocal<PerThreadStreams> streams = new ThreadLocal<PerThreadStreams>() {
+      @Override
+      protected PerThreadStreams initialValue() {
+         return new PerThreadStreams();
+      }
+   };
+
+   private OutputBufferPool() {
+   }
+
+   /**
+    * Returns an empty stream. It should be given back with {@link #release(ExposedByteArrayOutputStream)} by the same
+    * thread once its contents have been copied.
+    *
+    * @param estimatedSize an estimate of the number of bytes that will be written
+    */
+   public static ExposedByteArrayOutputStream acquire(int estimatedSize) {
+      if (estimatedSize <= MAX_POOLED_SIZE) {
+         PerThreadStreams threadStreams = streams.get();
+         if (threadStreams.available > 0) {
+            ExposedByteArrayOutputStream os = threadStreams.streams[--threadStreams.available];
+            threadStreams.streams[threadStreams.available] = null;
+            os.reset();
+            return os;
+         }
+      }
+      // large outputs get their own buffer, which won't be pooled
+      return new ExposedByteArrayOutputStream(estimatedSize);
+   }
+
+   /**
+    * Gives back a stream returned by {@link #acquire(int)}. The stream must not be used afterwards.
+    */
+   public static void release(ExposedByteArrayOutputStream os) {
+      if (os.getRawBuffer().length > MAX_POOLED_SIZE) return;
+
+      PerThreadStreams threadStreams = streams.get();
+      if (threadStreams.available < STREAMS_PER_THREAD) {
+         threadStreams.streams[threadStreams.available++] = os;
+      }
+   }
+
+   /**
+    * Returns the contents of a stream returned by {@link #acquire(int)} in a buffer that can be kept after the stream
+    * is released. Only streams that are too large to be pooled share their buffer, the others are copied.
+    */
+   public static ByteBuffer toByteBuffer(ExposedByteArrayOutputStream os) {
+      byte[] raw = os.getRawBuffer();
+      int size = os.size();
+      if (raw.length > MAX_POOLED_SIZE) {
+         return new ByteBufferImpl(raw, 0, size);
+      }
+      return new ByteBufferImpl(Arrays.copyOf(raw, size), 0, size);
+   }
+
+   private static final class PerThreadStreams {
+      final ExposedByteArrayOutputStream[] streams = new ExposedByteArrayOutputStream[STREAMS_PER_THREAD];
+      int available;
+   }
+}
@@ -78,5 +78,9 @@ public interface Log extends BasicLogger {
    @Message(value = "Unwrapping %s to a type of %s is not a supported", id = 909)
    IllegalArgumentException unableToUnwrap(Object o, Class<?> clazz);
 
+   @LogMessage(level = WARN)
+   @Message(value = "Future listener %s failed", id = 910)
+   void futureListenerFailed(Object listener, @Cause Throwable cause);
+
 }
 
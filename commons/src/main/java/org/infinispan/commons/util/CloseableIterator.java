@@ -0,0 +1,17 @@
+package org.infinispan.commons.util;
+
+import java.util.Iterator;
+
+/**
+ * An iterator which holds resources, e.g. a cursor on a remote server, until it is either exhausted or closed.
+ * Iterators which are abandoned before being exhausted should be closed explicitly.
+ *
+ * @since 7.0
+ */
+public interface CloseableIterator<E> extends Iterator<E> {
+
+   /**
+    * Releases the resources held by this iterator. Closing an iterator more than once has no effect.
+    */
+   void close();
+}
@@ -10,6 +10,9 @@
 import org.infinispan.eviction.EvictionManager;
 import org.infinispan.factories.ComponentRegistry;
 import org.infinispan.interceptors.base.CommandInterceptor;
+import org.infinispan.iteration.Converter;
+import org.infinispan.iteration.EntryIterator;
+import org.infinispan.iteration.KeyValueFilter;
 import org.infinispan.metadata.Metadata;
 import org.infinispan.remoting.rpc.RpcManager;
 import org.infinispan.util.concurrent.NotifyingFuture;
@@ -21,6 +24,8 @@
 import java.util.Collection;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Similar to {@link org.infinispan.AbstractDelegatingCache}, but for {@link AdvancedCache}.
@@ -176,11 +181,32 @@ public CacheEntry getCacheEntry(K key) {
       return cache.getCacheEntry(key);
    }
 
+   @Override
+   public Map<K, V> getAll(Set<?> keys) {
+      return cache.getAll(keys);
+   }
+
+   @Override
+   public <C> EntryIterator<K, C> entryIterator(KeyValueFilter<? super K, ? super V> filter,
+                                                Converter<? super K, ? super V, C> converter, int batchSize) {
+      return cache.entryIterator(filter, converter, batchSize);
+   }
+
+   @Override
+   public EntryIterator<K, V> entryIterator(KeyValueFilter<? super K, ? super V> filter, int batchSize) {
+      return cache.entryIterator(filter, batchSize);
+   }
+
    @Override
    public V put(K key, V value, Metadata metadata) {
       return cache.put(key, value, metadata);
    }
 
+   @Override
+   public void putAll(Map<? extends K, ? extends V> map, Metadata metadata) {
+      cache.putAll(map, metadata);
+   }
+
    @Override
    public V replace(K key, V value, Metadata metadata) {
       return cache.replace(key, value, metadata);
@@ -10,6 +10,9 @@
 import org.infinispan.eviction.EvictionManager;
 import org.infinispan.factories.ComponentRegistry;
 import org.infinispan.interceptors.base.CommandInterceptor;
+import org.infinispan.iteration.Converter;
+import org.infinispan.iteration.EntryIterator;
+import org.infinispan.iteration.KeyValueFilter;
 import org.infinispan.metadata.Metadata;
 import org.infinispan.remoting.rpc.RpcManager;
 import org.infinispan.stats.Stats;
@@ -20,6 +23,8 @@
 import javax.transaction.xa.XAResource;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * An advanced interface that exposes additional methods not available on {@link Cache}.
@@ -289,6 +294,18 @@
     */
    V put(K key, V value, Metadata metadata);
 
+   /**
+    * An overloaded form of {@link #putAll(Map)}, which takes in an instance of
+    * {@link org.infinispan.metadata.Metadata} which is stored alongside each of the values, e.g. to provide their
+    * lifespan or version.
+    *
+    * @param map mappings to be stored in this cache
+    * @param metadata information to store alongside the values
+    *
+    * @since 7.0
+    */
+   void putAll(Map<? extends K, ? extends V> map, Metadata metadata);
+
    /**
     * An overloaded form of {@link #replace(K, V)}, which takes in an
     * instance of {@link Metadata} which can be used to provide metadata
@@ -370,4 +387,56 @@
     */
    CacheEntry getCacheEntry(K key);
 
+   /**
+    * Gets a collection of entries, returning them as a {@link Map} of the values associated with the set of keys
+    * requested.
+    * <p/>
+    * If the cache has a cache loader configured, it is consulted only for the keys which are missing from memory. In
+    * a distributed cache the keys which are not available locally are retrieved with a single remote call per
+    * primary owner, with the calls to the different owners made in parallel.
+    * <p/>
+    * The returned {@link Map} is a copy, updates to it are not reflected in the cache and vice versa.
+    *
+    * @param keys the keys whose associated values are to be returned
+    * @return a map of the entries found for the given keys; keys which are not mapped to any value are not contained
+    *         in the returned map
+    * @throws NullPointerException if keys is null or contains a null key
+    *
+    * @since 7.0
+    */
+   Map<K, V> getAll(Set<?> keys);
+
+   /**
+    * Returns an iterator over all the entries of the cache, including the entries only stored in a cache store.
+    * <p/>
+    * In a distributed or replicated cache the entries of every segment are requested from the primary owner of the
+    * segment, <tt>batchSize</tt> entries at a time, so neither the caller nor the owners have to keep all the entries
+    * in memory. The filter and the converter are applied by the owners, before the entries are sent to the caller, so
+    * they must be marshallable. If the owner of a segment leaves or the segment is moved to another node during the
+    * iteration, the remaining entries of the segment are requested from its new owner, and every entry is still
+    * returned once.
+    * <p/>
+    * The iterator is not a snapshot of the cache: entries written during the iteration might or might not be
+    * returned. The iterator must be used by a single thread, and it should be {@link EntryIterator#close() closed} if
+    * it is not used until the end.
+    *
+    * @param filter    only the entries accepted by the filter are returned, might be null to return all the entries
+    * @param converter converts the values of the entries before they are returned, might be null to return the
+    *                  values of the entries
+    * @param batchSize the maximum number of entries requested from an owner at a time
+    * @return an iterator over the (converted) entries of the cache
+    *
+    * @since 7.0
+    */
+   <C> EntryIterator<K, C> entryIterator(KeyValueFilter<? super K, ? super V> filter,
+                                         Converter<? super K, ? super V, C> converter, int batchSize);
+
+   /**
+    * Returns an iterator over the entries of the cache accepted by a filter, see
+    * {@link #entryIterator(KeyValueFilter, Converter, int)}.
+    *
+    * @since 7.0
+    */
+   EntryIterator<K, V> entryIterator(KeyValueFilter<? super K, ? super V> filter, int batchSize);
+
 }
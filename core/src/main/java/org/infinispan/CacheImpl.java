@@ -6,6 +6,7 @@
 import org.infinispan.commands.VisitableCommand;
 import org.infinispan.commands.control.LockControlCommand;
 import org.infinispan.commands.read.EntrySetCommand;
+import org.infinispan.commands.read.GetAllCommand;
 import org.infinispan.commands.read.GetKeyValueCommand;
 import org.infinispan.commands.read.KeySetCommand;
 import org.infinispan.commands.read.SizeCommand;
@@ -17,23 +18,32 @@
 import org.infinispan.commands.write.PutMapCommand;
 import org.infinispan.commands.write.RemoveCommand;
 import org.infinispan.commands.write.ReplaceCommand;
+import org.infinispan.commons.util.InfinispanCollections;
+import org.infinispan.configuration.cache.CacheMode;
 import org.infinispan.configuration.cache.Configuration;
 import org.infinispan.commons.CacheConfigurationException;
 import org.infinispan.configuration.global.GlobalConfiguration;
 import org.infinispan.container.DataContainer;
 import org.infinispan.container.entries.CacheEntry;
+import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.context.Flag;
 import org.infinispan.context.InvocationContext;
 import org.infinispan.context.InvocationContextContainer;
 import org.infinispan.context.impl.TxInvocationContext;
+import org.infinispan.distribution.DataLocality;
 import org.infinispan.distribution.DistributionManager;
 import org.infinispan.eviction.EvictionManager;
 import org.infinispan.factories.ComponentRegistry;
 import org.infinispan.factories.annotations.ComponentName;
 import org.infinispan.factories.annotations.Inject;
 import org.infinispan.factories.annotations.SurvivesRestarts;
+import org.infinispan.interceptors.CacheMgmtInterceptor;
 import org.infinispan.interceptors.InterceptorChain;
 import org.infinispan.interceptors.base.CommandInterceptor;
+import org.infinispan.iteration.Converter;
+import org.infinispan.iteration.EntryIterator;
+import org.infinispan.iteration.EntryRetriever;
+import org.infinispan.iteration.KeyValueFilter;
 import org.infinispan.jmx.annotations.DataType;
 import org.infinispan.jmx.annotations.DisplayType;
 import org.infinispan.jmx.annotations.MBean;
@@ -49,6 +59,8 @@
 import org.infinispan.metadata.Metadata;
 import org.infinispan.notifications.KeyFilter;
 import org.infinispan.notifications.cachelistener.CacheNotifier;
+import org.infinispan.notifications.cachelistener.CacheNotifierImpl;
+import org.infinispan.notifications.cachelistener.annotation.CacheEntryVisited;
 import org.infinispan.remoting.rpc.RpcManager;
 import org.infinispan.stats.Stats;
 import org.infinispan.stats.StatsImpl;
@@ -120,7 +132,13 @@
    private RecoveryManager recoveryManager;
    private TransactionCoordinator txCoordinator;
    private GlobalConfiguration globalCfg;
+   private EntryRetriever entryRetriever;
    private boolean isClassLoaderInContext;
+   private boolean nonBlockingAsyncOps;
+   private boolean fastLocalReads;
+   private boolean fastLocalReadsCheckLocality;
+   private int fastLocalReadsChainVersion;
+   private CacheMgmtInterceptor cacheMgmtInterceptor;
 
    public CacheImpl(String name) {
       this.name = name;
@@ -143,7 +161,7 @@ public void injectDependencies(EvictionManager evictionManager,
                                   @ComponentName(ASYNC_TRANSPORT_EXECUTOR) ExecutorService asyncExecutor,
                                   TransactionTable txTable, RecoveryManager recoveryManager, TransactionCoordinator txCoordinator,
                                   LockManager lockManager,
-                                  GlobalConfiguration globalCfg) {
+                                  GlobalConfiguration globalCfg, EntryRetriever entryRetriever) {
       this.commandsFactory = commandsFactory;
       this.invoker = interceptorChain;
       this.config = configuration;
@@ -164,6 +182,7 @@ public void injectDependencies(EvictionManager evictionManager,
       this.txCoordinator = txCoordinator;
       this.lockManager = lockManager;
       this.globalCfg = globalCfg;
+      this.entryRetriever = entryRetriever;
    }
 
    private void assertKeyNotNull(Object key) {
@@ -185,6 +204,17 @@ private void assertValueNotNull(Object value) {
       }
    }
 
+   private void assertKeysNotNull(Collection<?> keys) {
+      if (keys == null) {
+         throw new NullPointerException("Expected collection cannot be null");
+      }
+      for (Object key : keys) {
+         if (key == null) {
+            throw new NullPointerException("Null keys are not supported!");
+         }
+      }
+   }
+
    private void assertKeysNotNull(Map<?, ?> data) {
       if (data == null) {
          throw new NullPointerException("Expected map cannot be null");
@@ -363,6 +393,12 @@ public final V get(Object key) {
    @SuppressWarnings("unchecked")
    final V get(Object key, EnumSet<Flag> explicitFlags, ClassLoader explicitClassLoader) {
       assertKeyNotNull(key);
+      if (fastLocalReads && explicitFlags == null && explicitClassLoader == null) {
+         Object value = getFromDataContainer(key);
+         if (value != null) {
+            return (V) value;
+         }
+      }
       InvocationContext ctx = getInvocationContextForRead(null, explicitClassLoader, 1);
       GetKeyValueCommand command = commandsFactory.buildGetKeyValueCommand(key, explicitFlags, false);
       return (V) invoker.invoke(ctx, command);
@@ -381,6 +417,32 @@ public final CacheEntry getCacheEntry(K key) {
       return getCacheEntry(key, null, null);
    }
 
+   @Override
+   public final Map<K, V> getAll(Set<?> keys) {
+      return getAll(keys, null, null);
+   }
+
+   @SuppressWarnings("unchecked")
+   final Map<K, V> getAll(Set<?> keys, EnumSet<Flag> explicitFlags, ClassLoader explicitClassLoader) {
+      assertKeysNotNull(keys);
+      if (keys.isEmpty())
+         return InfinispanCollections.emptyMap();
+      InvocationContext ctx = getInvocationContextForRead(null, explicitClassLoader, keys.size());
+      GetAllCommand command = commandsFactory.buildGetAllCommand(keys, explicitFlags, false);
+      return (Map<K, V>) invoker.invoke(ctx, command);
+   }
+
+   @Override
+   public <C> EntryIterator<K, C> entryIterator(KeyValueFilter<? super K, ? super V> filter,
+                                                Converter<? super K, ? super V, C> converter, int batchSize) {
+      return entryRetriever.retrieveEntries(filter, converter, batchSize);
+   }
+
+   @Override
+   public EntryIterator<K, V> entryIterator(KeyValueFilter<? super K, ? super V> filter, int batchSize) {
+      return entryRetriever.retrieveEntries(filter, null, batchSize);
+   }
+
    @Override
    public final V remove(Object key) {
       return remove(key, null, null);
@@ -670,10 +732,80 @@ public void start() {
       isClassLoaderInContext = config.clustering().cacheMode().isClustered()
             || config.persistence().usingStores()
             || config.storeAsBinary().enabled();
+      nonBlockingAsyncOps = supportsNonBlockingAsyncOps();
+      fastLocalReads = supportsFastLocalReads();
+      if (fastLocalReads) {
+         // with L1 disabled, the chain ignores the entries of keys this node doesn't own
+         fastLocalReadsCheckLocality = config.clustering().cacheMode().isDistributed() && !config.clustering().l1().enabled();
+         fastLocalReadsChainVersion = invoker.getVersion();
+         List<CommandInterceptor> mgmtInterceptors = invoker.getInterceptorsWithClass(CacheMgmtInterceptor.class);
+         cacheMgmtInterceptor = mgmtInterceptors.isEmpty() ? null : (CacheMgmtInterceptor) mgmtInterceptors.get(0);
+      }
 
       if (log.isDebugEnabled()) log.debugf("Started cache %s on %s", getName(), getCacheManager().getAddress());
    }
 
+   /**
+    * Whether {@link #getAsync(Object)} and {@link #putAsync(Object, Object)} can invoke the interceptor chain in
+    * asynchronous mode. Only the interceptors of a plain synchronous, non-transactional distributed cache know how to
+    * continue once a remote response arrives, so any configuration adding other interceptors keeps the thread per
+    * operation approach.
+    */
+   private boolean supportsNonBlockingAsyncOps() {
+      return config.clustering().cacheMode() == CacheMode.DIST_SYNC
+            && !config.transaction().transactionMode().isTransactional()
+            && !config.invocationBatching().enabled()
+            && !config.clustering().l1().enabled()
+            && !config.persistence().usingStores()
+            && !config.storeAsBinary().enabled()
+            && !config.compatibility().enabled()
+            && !config.deadlockDetection().enabled()
+            && !config.sites().hasEnabledBackups()
+            && config.customInterceptors().interceptors().isEmpty();
+   }
+
+   /**
+    * Whether a plain {@link #get(Object)} can read an entry straight from the data container, without invoking the
+    * interceptor chain, when the entry is there. This requires a non-transactional cache whose interceptors don't
+    * transform keys or values on reads.
+    */
+   private boolean supportsFastLocalReads() {
+      return !config.transaction().transactionMode().isTransactional()
+            && !config.invocationBatching().enabled()
+            && !config.storeAsBinary().enabled()
+            && !config.compatibility().enabled()
+            && config.customInterceptors().interceptors().isEmpty();
+   }
+
+   /**
+    * Reads the value of a key from the data container if this gives the same result as invoking the interceptor
+    * chain: the entry is there, so no interceptor needs to load it, and nothing needs to observe the read (statistics
+    * and {@link CacheEntryVisited} listeners). Interceptors added after the cache started disable the fast path.
+    *
+    * @return the value, or {@code null} if the interceptor chain must be invoked
+    */
+   private Object getFromDataContainer(Object key) {
+      if (invoker.getVersion() != fastLocalReadsChainVersion
+            || componentRegistry.getStatus() != ComponentStatus.RUNNING
+            || (cacheMgmtInterceptor != null && cacheMgmtInterceptor.getStatisticsEnabled())
+            || isVisitObserved()) {
+         return null;
+      }
+      if (fastLocalReadsCheckLocality && !distributionManager.getLocality(key).isLocal()) {
+         return null;
+      }
+      InternalCacheEntry entry = dataContainer.get(key);
+      return entry == null ? null : entry.getValue();
+   }
+
+   /**
+    * Whether the notifier must see the reads. Only the default notifier is known to ignore them when it has no
+    * {@link CacheEntryVisited} listener, any other implementation sees every read.
+    */
+   private boolean isVisitObserved() {
+      return !(notifier instanceof CacheNotifierImpl) || ((CacheNotifierImpl) notifier).hasListener(CacheEntryVisited.class);
+   }
+
    @Override
    @ManagedOperation(
          description = "Stops the cache.",
@@ -991,7 +1123,15 @@ public final NotifyingFuture<V> putAsync(K key, V value, long lifespan, TimeUnit
       return putAsync(key, value, metadata, null, null);
    }
 
+   @SuppressWarnings("unchecked")
    final NotifyingFuture<V> putAsync(final K key, final V value, final Metadata metadata, final EnumSet<Flag> explicitFlags, final ClassLoader explicitClassLoader) {
+      if (nonBlockingAsyncOps && distributionManager.getLocality(key) == DataLocality.NOT_LOCAL) {
+         // The command only needs to be forwarded to the primary owner, so don't tie up a thread waiting for it
+         assertKeyValueNotNull(key, value);
+         InvocationContext ctx = getInvocationContextWithImplicitTransaction(false, explicitClassLoader, 1);
+         PutKeyValueCommand command = commandsFactory.buildPutKeyValueCommand(key, value, metadata, explicitFlags);
+         return (NotifyingFuture<V>) (NotifyingFuture<?>) invoker.invokeAsync(ctx, command);
+      }
       final LegacyNotifyingFutureAdaptor<V> result = new LegacyNotifyingFutureAdaptor<V>();
       final InvocationContext ctx = getInvocationContextWithImplicitTransactionForAsyncOps(false, explicitClassLoader, 1);
       Future<V> returnValue = asyncExecutor.submit(new Callable<V>() {
@@ -1202,6 +1342,11 @@ NotifyingFuture<V> getAsync(final K key, final EnumSet<Flag> explicitFlags, fina
       // Optimization to not start a new thread only when the operation is cheap:
       if (asyncSkipsThread(explicitFlags, key)) {
          return wrapInFuture(get(key, explicitFlags, explicitClassLoader));
+      } else if (nonBlockingAsyncOps) {
+         assertKeyNotNull(key);
+         InvocationContext ctx = getInvocationContextForRead(null, explicitClassLoader, 1);
+         GetKeyValueCommand command = commandsFactory.buildGetKeyValueCommand(key, explicitFlags, false);
+         return (NotifyingFuture<V>) (NotifyingFuture<?>) invoker.invokeAsync(ctx, command);
       } else {
          // Make sure the flags are cleared
          final EnumSet<Flag> appliedFlags;
@@ -1349,6 +1494,11 @@ public V put(K key, V value, Metadata metadata) {
       return put(key, value, metadata, null, null);
    }
 
+   @Override
+   public void putAll(Map<? extends K, ? extends V> map, Metadata metadata) {
+      putAll(map, metadata, null, null);
+   }
+
    @Override
    public V replace(K key, V value, Metadata metadata) {
       return replace(key, value, metadata, null, null);
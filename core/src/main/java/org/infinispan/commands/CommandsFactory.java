@@ -5,14 +5,18 @@
 import org.infinispan.commands.control.LockControlCommand;
 import org.infinispan.commands.read.DistributedExecuteCommand;
 import org.infinispan.commands.read.EntrySetCommand;
+import org.infinispan.commands.read.GetAllCommand;
 import org.infinispan.commands.read.GetKeyValueCommand;
 import org.infinispan.commands.read.KeySetCommand;
 import org.infinispan.commands.read.MapCombineCommand;
 import org.infinispan.commands.read.ReduceCommand;
+import org.infinispan.commands.read.ShuffleCommand;
 import org.infinispan.commands.read.SizeCommand;
 import org.infinispan.commands.read.ValuesCommand;
+import org.infinispan.commands.remote.ClusteredGetAllCommand;
 import org.infinispan.commands.remote.ClusteredGetCommand;
 import org.infinispan.commands.remote.MultipleRpcCommand;
+import org.infinispan.commands.remote.MultipleRpcResponsesCommand;
 import org.infinispan.commands.remote.SingleRpcCommand;
 import org.infinispan.commands.remote.recovery.CompleteTransactionCommand;
 import org.infinispan.commands.remote.recovery.GetInDoubtTransactionsCommand;
@@ -29,6 +33,9 @@
 import org.infinispan.distexec.mapreduce.Reducer;
 import org.infinispan.factories.scopes.Scope;
 import org.infinispan.factories.scopes.Scopes;
+import org.infinispan.iteration.Converter;
+import org.infinispan.iteration.EntryRequestCommand;
+import org.infinispan.iteration.KeyValueFilter;
 import org.infinispan.statetransfer.StateChunk;
 import org.infinispan.statetransfer.StateRequestCommand;
 import org.infinispan.statetransfer.StateResponseCommand;
@@ -124,6 +131,16 @@ public interface CommandsFactory {
     */
    GetKeyValueCommand buildGetKeyValueCommand(Object key, Set<Flag> flags, boolean returnEntry);
 
+   /**
+    * Builds a GetAllCommand
+    * @param keys keys to get
+    * @param flags Command flags provided by cache
+    * @param returnEntries boolean indicating whether entire cache entries are
+    *                      returned, otherwise return just the value parts
+    * @return a GetAllCommand
+    */
+   GetAllCommand buildGetAllCommand(Collection<?> keys, Set<Flag> flags, boolean returnEntries);
+
    /**
     * Builds a KeySetCommand
     * @param flags Command flags provided by cache
@@ -229,6 +246,13 @@ public interface CommandsFactory {
     */
    MultipleRpcCommand buildReplicateCommand(List<ReplicableCommand> toReplicate);
 
+   /**
+    * Builds an RpcCommand "envelope" containing multiple ReplicableCommands, which sends back the response of each one
+    * @param toReplicate ReplicableCommands to include in the envelope
+    * @return a MultipleRpcResponsesCommand
+    */
+   MultipleRpcResponsesCommand buildReplicateWithResponsesCommand(List<ReplicableCommand> toReplicate);
+
    /**
     * Builds a SingleRpcCommand "envelope" containing a single ReplicableCommand
     * @param call ReplicableCommand to include in the envelope
@@ -243,6 +267,13 @@ public interface CommandsFactory {
     */
    ClusteredGetCommand buildClusteredGetCommand(Object key, Set<Flag> flags, boolean acquireRemoteLock, GlobalTransaction gtx);
 
+   /**
+    * Builds a ClusteredGetAllCommand, which is a remote lookup command for multiple keys owned by the same node
+    * @param keys keys to look up
+    * @return a ClusteredGetAllCommand
+    */
+   ClusteredGetAllCommand buildClusteredGetAllCommand(List<?> keys, Set<Flag> flags, GlobalTransaction gtx);
+
    /**
     * Builds a LockControlCommand to control explicit remote locking
     *
@@ -320,6 +351,24 @@ <KIn, VIn, KOut, VOut> MapCombineCommand<KIn, VIn, KOut, VOut> buildMapCombineCo
    <KOut, VOut> ReduceCommand<KOut, VOut> buildReduceCommand(String taskId,
             String destinationCache, Reducer<KOut, VOut> r, Collection<KOut> keys);
 
+   /**
+    * Builds a ShuffleCommand used to send intermediate values of MapReduce tasks to the reducing nodes.
+    *
+    * @param taskId id of the MapReduceTask
+    * @param values intermediate keys and their values, or null to discard the values received so far
+    * @param maxBufferedValues the number of values the reducing node keeps in memory before spilling them to disk
+    * @return created ShuffleCommand
+    */
+   <KOut, VOut> ShuffleCommand<KOut, VOut> buildShuffleCommand(String taskId, Map<KOut, List<VOut>> values,
+            int maxBufferedValues);
+
+   /**
+    * Builds an EntryRequestCommand used by entry iterators to request batches of entries from the nodes owning them.
+    */
+   EntryRequestCommand buildEntryRequestCommand(EntryRequestCommand.Type type, Address origin, UUID iterationId,
+                                                Set<Integer> segments, KeyValueFilter filter, Converter converter,
+                                                int batchSize);
+
    /**
     * @see GetInDoubtTxInfoCommand
     */
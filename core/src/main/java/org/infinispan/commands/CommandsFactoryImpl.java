@@ -7,14 +7,18 @@
 import org.infinispan.commands.module.ModuleCommandInitializer;
 import org.infinispan.commands.read.DistributedExecuteCommand;
 import org.infinispan.commands.read.EntrySetCommand;
+import org.infinispan.commands.read.GetAllCommand;
 import org.infinispan.commands.read.GetKeyValueCommand;
 import org.infinispan.commands.read.KeySetCommand;
 import org.infinispan.commands.read.MapCombineCommand;
 import org.infinispan.commands.read.ReduceCommand;
+import org.infinispan.commands.read.ShuffleCommand;
 import org.infinispan.commands.read.SizeCommand;
 import org.infinispan.commands.read.ValuesCommand;
+import org.infinispan.commands.remote.ClusteredGetAllCommand;
 import org.infinispan.commands.remote.ClusteredGetCommand;
 import org.infinispan.commands.remote.MultipleRpcCommand;
+import org.infinispan.commands.remote.MultipleRpcResponsesCommand;
 import org.infinispan.commands.remote.SingleRpcCommand;
 import org.infinispan.commands.remote.recovery.CompleteTransactionCommand;
 import org.infinispan.commands.remote.recovery.GetInDoubtTransactionsCommand;
@@ -54,12 +58,17 @@
 import org.infinispan.factories.annotations.Inject;
 import org.infinispan.factories.annotations.Start;
 import org.infinispan.interceptors.InterceptorChain;
+import org.infinispan.iteration.Converter;
+import org.infinispan.iteration.EntryRequestCommand;
+import org.infinispan.iteration.EntryRetriever;
+import org.infinispan.iteration.KeyValueFilter;
 import org.infinispan.statetransfer.StateProvider;
 import org.infinispan.statetransfer.StateConsumer;
 import org.infinispan.statetransfer.StateRequestCommand;
 import org.infinispan.statetransfer.StateResponseCommand;
 import org.infinispan.statetransfer.StateChunk;
 import org.infinispan.notifications.cachelistener.CacheNotifier;
+import org.infinispan.remoting.responses.ResponseGenerator;
 import org.infinispan.remoting.transport.Address;
 import org.infinispan.statetransfer.StateTransferManager;
 import org.infinispan.transaction.RemoteTransaction;
@@ -101,6 +110,7 @@ public class CommandsFactoryImpl implements CommandsFactory {
    private boolean totalOrderProtocol;
 
    private InterceptorChain interceptorChain;
+   private ResponseGenerator responseGenerator;
    private DistributionManager distributionManager;
    private InvocationContextContainer icc;
    private TransactionTable txTable;
@@ -111,6 +121,7 @@ public class CommandsFactoryImpl implements CommandsFactory {
    private LockManager lockManager;
    private InternalEntryFactory entryFactory;
    private MapReduceManager mapReduceManager;
+   private EntryRetriever entryRetriever;
    private StateTransferManager stateTransferManager;
    private BackupSender backupSender;
    private CancellationService cancellationService;
@@ -126,11 +137,13 @@ public void setupDependencies(DataContainer container, CacheNotifier notifier, C
                                  RecoveryManager recoveryManager, StateProvider stateProvider, StateConsumer stateConsumer,
                                  LockManager lockManager, InternalEntryFactory entryFactory, MapReduceManager mapReduceManager, 
                                  StateTransferManager stm, BackupSender backupSender, CancellationService cancellationService,
-                                 TimeService timeService) {
+                                 TimeService timeService, ResponseGenerator responseGenerator,
+                                 EntryRetriever entryRetriever) {
       this.dataContainer = container;
       this.notifier = notifier;
       this.cache = cache;
       this.interceptorChain = interceptorChain;
+      this.responseGenerator = responseGenerator;
       this.distributionManager = distributionManager;
       this.icc = icc;
       this.txTable = txTable;
@@ -146,6 +159,7 @@ public void setupDependencies(DataContainer container, CacheNotifier notifier, C
       this.backupSender = backupSender;
       this.cancellationService = cancellationService;
       this.timeService = timeService;
+      this.entryRetriever = entryRetriever;
    }
 
    @Start(priority = 1)
@@ -210,6 +224,11 @@ public GetKeyValueCommand buildGetKeyValueCommand(Object key, Set<Flag> flags, b
       return new GetKeyValueCommand(key, flags, returnEntry);
    }
 
+   @Override
+   public GetAllCommand buildGetAllCommand(Collection<?> keys, Set<Flag> flags, boolean returnEntries) {
+      return new GetAllCommand(keys, flags, returnEntries);
+   }
+
    @Override
    public PutMapCommand buildPutMapCommand(Map<?, ?> map, Metadata metadata, Set<Flag> flags) {
       return new PutMapCommand(map, notifier, metadata, flags);
@@ -259,6 +278,11 @@ public MultipleRpcCommand buildReplicateCommand(List<ReplicableCommand> toReplic
       return new MultipleRpcCommand(toReplicate, cacheName);
    }
 
+   @Override
+   public MultipleRpcResponsesCommand buildReplicateWithResponsesCommand(List<ReplicableCommand> toReplicate) {
+      return new MultipleRpcResponsesCommand(toReplicate, cacheName);
+   }
+
    @Override
    public SingleRpcCommand buildSingleRpcCommand(ReplicableCommand call) {
       return new SingleRpcCommand(cacheName, call);
@@ -270,6 +294,11 @@ public ClusteredGetCommand buildClusteredGetCommand(Object key, Set<Flag> flags,
             configuration.dataContainer().keyEquivalence());
    }
 
+   @Override
+   public ClusteredGetAllCommand buildClusteredGetAllCommand(List<?> keys, Set<Flag> flags, GlobalTransaction gtx) {
+      return new ClusteredGetAllCommand(cacheName, keys, flags, gtx);
+   }
+
    /**
     * @param isRemote true if the command is deserialized and is executed remote.
     */
@@ -297,6 +326,14 @@ public void initializeReplicableCommand(ReplicableCommand c, boolean isRemote) {
                   initializeReplicableCommand(nested, false);
                }
             break;
+         case MultipleRpcResponsesCommand.COMMAND_ID:
+            MultipleRpcResponsesCommand rrc = (MultipleRpcResponsesCommand) c;
+            rrc.init(interceptorChain, icc, responseGenerator);
+            if (rrc.getCommands() != null)
+               for (ReplicableCommand nested : rrc.getCommands()) {
+                  initializeReplicableCommand(nested, false);
+               }
+            break;
          case SingleRpcCommand.COMMAND_ID:
             SingleRpcCommand src = (SingleRpcCommand) c;
             src.init(interceptorChain, icc);
@@ -353,6 +390,10 @@ public void initializeReplicableCommand(ReplicableCommand c, boolean isRemote) {
                   interceptorChain, distributionManager, txTable,
                   configuration.dataContainer().keyEquivalence());
             break;
+         case ClusteredGetAllCommand.COMMAND_ID:
+            ClusteredGetAllCommand clusteredGetAllCommand = (ClusteredGetAllCommand) c;
+            clusteredGetAllCommand.initialize(icc, this, entryFactory, interceptorChain, distributionManager);
+            break;
          case LockControlCommand.COMMAND_ID:
             LockControlCommand lcc = (LockControlCommand) c;
             lcc.init(interceptorChain, icc, txTable);
@@ -395,6 +436,13 @@ public void initializeReplicableCommand(ReplicableCommand c, boolean isRemote) {
             ReduceCommand reduceCommand = (ReduceCommand)c;
             reduceCommand.init(mapReduceManager);
             break;
+         case ShuffleCommand.COMMAND_ID:
+            ShuffleCommand shuffleCommand = (ShuffleCommand)c;
+            shuffleCommand.init(mapReduceManager);
+            break;
+         case EntryRequestCommand.COMMAND_ID:
+            ((EntryRequestCommand) c).init(entryRetriever);
+            break;
          case DistributedExecuteCommand.COMMAND_ID:
             DistributedExecuteCommand dec = (DistributedExecuteCommand)c;
             dec.init(cache);
@@ -519,6 +567,19 @@ public <KOut, VOut> ReduceCommand<KOut, VOut> buildReduceCommand(String taskId,
       return new ReduceCommand<KOut, VOut>(taskId, r, destintationCache, keys);
    }
 
+   @Override
+   public <KOut, VOut> ShuffleCommand<KOut, VOut> buildShuffleCommand(String taskId, Map<KOut, List<VOut>> values,
+            int maxBufferedValues) {
+      return new ShuffleCommand<KOut, VOut>(cacheName, taskId, values, maxBufferedValues);
+   }
+
+   @Override
+   public EntryRequestCommand buildEntryRequestCommand(EntryRequestCommand.Type type, Address origin, UUID iterationId,
+                                                       Set<Integer> segments, KeyValueFilter filter,
+                                                       Converter converter, int batchSize) {
+      return new EntryRequestCommand(cacheName, type, origin, iterationId, segments, filter, converter, batchSize);
+   }
+
    @Override
    public CancelCommand buildCancelCommandCommand(UUID commandUUID) {
       return new CancelCommand(cacheName, commandUUID);
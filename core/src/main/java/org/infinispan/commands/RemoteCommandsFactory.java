@@ -7,9 +7,12 @@
 import org.infinispan.commands.read.GetKeyValueCommand;
 import org.infinispan.commands.read.MapCombineCommand;
 import org.infinispan.commands.read.ReduceCommand;
+import org.infinispan.commands.read.ShuffleCommand;
 import org.infinispan.commands.remote.CacheRpcCommand;
+import org.infinispan.commands.remote.ClusteredGetAllCommand;
 import org.infinispan.commands.remote.ClusteredGetCommand;
 import org.infinispan.commands.remote.MultipleRpcCommand;
+import org.infinispan.commands.remote.MultipleRpcResponsesCommand;
 import org.infinispan.commands.remote.SingleRpcCommand;
 import org.infinispan.commands.remote.recovery.CompleteTransactionCommand;
 import org.infinispan.commands.remote.recovery.GetInDoubtTransactionsCommand;
@@ -33,6 +36,7 @@
 import org.infinispan.factories.annotations.Inject;
 import org.infinispan.factories.scopes.Scope;
 import org.infinispan.factories.scopes.Scopes;
+import org.infinispan.iteration.EntryRequestCommand;
 import org.infinispan.persistence.manager.PersistenceManager;
 import org.infinispan.manager.EmbeddedCacheManager;
 import org.infinispan.statetransfer.StateRequestCommand;
@@ -179,12 +183,18 @@ public CacheRpcCommand fromStream(byte id, Object[] parameters, byte type, Strin
             case MultipleRpcCommand.COMMAND_ID:
                command = new MultipleRpcCommand(cacheName);
                break;
+            case MultipleRpcResponsesCommand.COMMAND_ID:
+               command = new MultipleRpcResponsesCommand(cacheName);
+               break;
             case SingleRpcCommand.COMMAND_ID:
                command = new SingleRpcCommand(cacheName);
                break;
             case ClusteredGetCommand.COMMAND_ID:
                command = new ClusteredGetCommand(cacheName);
                break;
+            case ClusteredGetAllCommand.COMMAND_ID:
+               command = new ClusteredGetAllCommand(cacheName);
+               break;
             case StateRequestCommand.COMMAND_ID:
                command = new StateRequestCommand(cacheName);
                break;
@@ -207,6 +217,12 @@ public CacheRpcCommand fromStream(byte id, Object[] parameters, byte type, Strin
             case ReduceCommand.COMMAND_ID:
                command = new ReduceCommand(cacheName);
                break;
+            case ShuffleCommand.COMMAND_ID:
+               command = new ShuffleCommand(cacheName);
+               break;
+            case EntryRequestCommand.COMMAND_ID:
+               command = new EntryRequestCommand(cacheName);
+               break;
             case DistributedExecuteCommand.COMMAND_ID:
                command = new DistributedExecuteCommand(cacheName);
                break;
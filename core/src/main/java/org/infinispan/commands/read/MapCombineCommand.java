@@ -11,6 +11,7 @@
 import org.infinispan.distexec.mapreduce.MapReduceManager;
 import org.infinispan.distexec.mapreduce.Mapper;
 import org.infinispan.distexec.mapreduce.Reducer;
+import org.infinispan.distribution.ch.ConsistentHash;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
@@ -31,6 +32,10 @@
    private String taskId;
    private boolean reducePhaseDistributed;
    private boolean emitCompositeIntermediateKeys;
+   private boolean inMemoryShuffle;
+   private int maxBufferedValues;
+   private ConsistentHash shuffleConsistentHash;
+   private int mapParallelism = 1;
    private MapReduceManager mrManager;
    private UUID uuid;
 
@@ -81,6 +86,52 @@ public void setEmitCompositeIntermediateKeys(boolean emitCompositeIntermediateKe
       this.emitCompositeIntermediateKeys = emitCompositeIntermediateKeys;
    }
 
+   /**
+    * @return true if the combined values are sent directly to the reducing nodes instead of being
+    *         stored in an intermediate cache
+    */
+   public boolean isInMemoryShuffle() {
+      return inMemoryShuffle;
+   }
+
+   public void setInMemoryShuffle(boolean inMemoryShuffle) {
+      this.inMemoryShuffle = inMemoryShuffle;
+   }
+
+   /**
+    * @return the number of values the reducing nodes keep in memory before spilling them to disk
+    */
+   public int getMaxBufferedValues() {
+      return maxBufferedValues;
+   }
+
+   public void setMaxBufferedValues(int maxBufferedValues) {
+      this.maxBufferedValues = maxBufferedValues;
+   }
+
+   /**
+    * @return the consistent hash of the node that submitted the task, which all the mapping nodes use
+    *         to pick the reducer of each intermediate key with the in-memory shuffle
+    */
+   public ConsistentHash getShuffleConsistentHash() {
+      return shuffleConsistentHash;
+   }
+
+   public void setShuffleConsistentHash(ConsistentHash shuffleConsistentHash) {
+      this.shuffleConsistentHash = shuffleConsistentHash;
+   }
+
+   /**
+    * @return the number of threads executing the map phase on the target node
+    */
+   public int getMapParallelism() {
+      return mapParallelism;
+   }
+
+   public void setMapParallelism(int mapParallelism) {
+      this.mapParallelism = mapParallelism;
+   }
+
    public boolean isReducePhaseDistributed() {
       return reducePhaseDistributed;
    }
@@ -118,7 +169,8 @@ public UUID getUUID() {
    @Override
    public Object[] getParameters() {
       return new Object[] { taskId, keys, mapper, combiner, reducePhaseDistributed,
-               emitCompositeIntermediateKeys, uuid };
+               emitCompositeIntermediateKeys, inMemoryShuffle, maxBufferedValues, shuffleConsistentHash,
+               mapParallelism, uuid };
    }
 
    @SuppressWarnings("unchecked")
@@ -133,6 +185,10 @@ public void setParameters(int commandId, Object[] args) {
       combiner = (Reducer<KOut,VOut>) args[i++];
       reducePhaseDistributed = (Boolean) args[i++];
       emitCompositeIntermediateKeys = (Boolean) args[i++];
+      inMemoryShuffle = (Boolean) args[i++];
+      maxBufferedValues = (Integer) args[i++];
+      shuffleConsistentHash = (ConsistentHash) args[i++];
+      mapParallelism = (Integer) args[i++];
       uuid = (UUID) args[i++];
    }
 
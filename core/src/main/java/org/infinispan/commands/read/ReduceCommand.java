@@ -28,6 +28,8 @@
    private Reducer<KOut, VOut> reducer;
    private String taskId;
    private boolean emitCompositeIntermediateKeys;
+   private boolean inMemoryShuffle;
+   private String resultsCacheName;
    private MapReduceManager mrManager;
    private UUID uuid;
 
@@ -74,6 +76,30 @@ public void setEmitCompositeIntermediateKeys(boolean emitCompositeIntermediateKe
       this.emitCompositeIntermediateKeys = emitCompositeIntermediateKeys;
    }
 
+   /**
+    * @return true if the values to reduce were shuffled to this node's memory instead of an intermediate
+    *         cache, in which case all of them are reduced and the command has no keys
+    */
+   public boolean isInMemoryShuffle() {
+      return inMemoryShuffle;
+   }
+
+   public void setInMemoryShuffle(boolean inMemoryShuffle) {
+      this.inMemoryShuffle = inMemoryShuffle;
+   }
+
+   /**
+    * @return the name of the cache storing the reduced values on the reducing node, or null if they are
+    *         returned to the invoker
+    */
+   public String getResultsCacheName() {
+      return resultsCacheName;
+   }
+
+   public void setResultsCacheName(String resultsCacheName) {
+      this.resultsCacheName = resultsCacheName;
+   }
+
    public Set<KOut> getKeys() {
       return keys;
    }
@@ -98,7 +124,7 @@ public UUID getUUID() {
 
    @Override
    public Object[] getParameters() {
-      return new Object[] { taskId, keys, reducer, emitCompositeIntermediateKeys, uuid };
+      return new Object[] { taskId, keys, reducer, emitCompositeIntermediateKeys, inMemoryShuffle, resultsCacheName, uuid };
    }
 
    @SuppressWarnings({ "unchecked", "rawtypes" })
@@ -111,6 +137,8 @@ public void setParameters(int commandId, Object[] args) {
       keys = (Set<KOut>) args[i++];
       reducer = (Reducer) args[i++];
       emitCompositeIntermediateKeys = (Boolean) args[i++];
+      inMemoryShuffle = (Boolean) args[i++];
+      resultsCacheName = (String) args[i++];
       uuid = (UUID) args[i++];
    }
 
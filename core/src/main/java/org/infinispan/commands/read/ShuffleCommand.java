@@ -0,0 +1,118 @@
+package org.infinispan.commands.read;
+
+import org.infinispan.commands.remote.BaseRpcCommand;
+import org.infinispan.context.InvocationContext;
+import org.infinispan.distexec.mapreduce.MapReduceManager;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ShuffleCommand carries a batch of intermediate keys and their combined values from the node executing
+ * the map phase of a MapReduceTask to the node that will reduce them, when the task uses the in-memory
+ * shuffle instead of an intermediate cache.
+ * <p>
+ * A command without values discards the values already received for the task, which is used to clean up
+ * after a task that failed before its reduce phase.
+ *
+ * @since 7.0
+ */
+public class ShuffleCommand<KOut, VOut> extends BaseRpcCommand {
+
+   public static final byte COMMAND_ID = 41;
+   private String taskId;
+   private Map<KOut, List<VOut>> values;
+   private int maxBufferedValues;
+   private MapReduceManager mrManager;
+
+   private ShuffleCommand() {
+      super(null); // For command id uniqueness test
+   }
+
+   public ShuffleCommand(String cacheName) {
+      super(cacheName);
+   }
+
+   public ShuffleCommand(String cacheName, String taskId, Map<KOut, List<VOut>> values, int maxBufferedValues) {
+      super(cacheName);
+      this.taskId = taskId;
+      this.values = values;
+      this.maxBufferedValues = maxBufferedValues;
+   }
+
+   public void init(MapReduceManager mrManager) {
+      this.mrManager = mrManager;
+   }
+
+   /**
+    * Adds the values to the reduce buffer of the task on this node, or discards the buffer
+    *
+    * @param context
+    *           invocation context
+    * @return null
+    */
+   @Override
+   public Object perform(InvocationContext context) throws Throwable {
+      if (isDiscard()) {
+         mrManager.discardShuffledValues(taskId);
+      } else {
+         mrManager.shuffle(this);
+      }
+      return null;
+   }
+
+   public String getTaskId() {
+      return taskId;
+   }
+
+   public Map<KOut, List<VOut>> getValues() {
+      return values;
+   }
+
+   /**
+    * @return the number of values the reduce buffer keeps in memory before spilling them to disk
+    */
+   public int getMaxBufferedValues() {
+      return maxBufferedValues;
+   }
+
+   public boolean isDiscard() {
+      return values == null;
+   }
+
+   @Override
+   public byte getCommandId() {
+      return COMMAND_ID;
+   }
+
+   @Override
+   public Object[] getParameters() {
+      return new Object[] { taskId, values, maxBufferedValues };
+   }
+
+   @SuppressWarnings("unchecked")
+   @Override
+   public void setParameters(int commandId, Object[] args) {
+      if (commandId != COMMAND_ID)
+         throw new IllegalStateException("Invalid method id");
+      int i = 0;
+      taskId = (String) args[i++];
+      values = (Map<KOut, List<VOut>>) args[i++];
+      maxBufferedValues = (Integer) args[i++];
+   }
+
+   @Override
+   public boolean isReturnValueExpected() {
+      return false;
+   }
+
+   @Override
+   public boolean canBlock() {
+      return true;
+   }
+
+   @Override
+   public String toString() {
+      return "ShuffleCommand [taskId=" + taskId + ", keys=" + (values == null ? "discard" : values.size()) + "]";
+   }
+}
@@ -0,0 +1,159 @@
+package org.infinispan.commands.remote;
+
+import org.infinispan.commands.CommandsFactory;
+import org.infinispan.commands.read.GetAllCommand;
+import org.infinispan.container.InternalEntryFactory;
+import org.infinispan.container.entries.CacheEntry;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.container.entries.InternalCacheValue;
+import org.infinispan.container.entries.MVCCEntry;
+import org.infinispan.context.Flag;
+import org.infinispan.context.InvocationContext;
+import org.infinispan.context.InvocationContextContainer;
+import org.infinispan.distribution.DistributionManager;
+import org.infinispan.interceptors.InterceptorChain;
+import org.infinispan.transaction.xa.GlobalTransaction;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Issues a remote get call for multiple keys owned by the same node, the multi-key counterpart of
+ * {@link ClusteredGetCommand}.
+ * <p/>
+ * The response holds the {@link InternalCacheValue} of each requested key, in request order, or no values at all if
+ * the target node cannot answer for some of the keys because of an ongoing rehash, in which case the caller is
+ * expected to look them up individually.
+ *
+ * @since 7.0
+ */
+public class ClusteredGetAllCommand extends BaseRpcCommand {
+
+   public static final byte COMMAND_ID = 40;
+   private static final Log log = LogFactory.getLog(ClusteredGetAllCommand.class);
+   private static final boolean trace = log.isTraceEnabled();
+
+   private List<?> keys;
+   private Set<Flag> flags;
+   private GlobalTransaction gtx;
+
+   private InvocationContextContainer icc;
+   private CommandsFactory commandsFactory;
+   private InterceptorChain invoker;
+   private DistributionManager distributionManager;
+   private InternalEntryFactory entryFactory;
+
+   private ClusteredGetAllCommand() {
+      super(null); // For command id uniqueness test
+   }
+
+   public ClusteredGetAllCommand(String cacheName) {
+      super(cacheName);
+   }
+
+   public ClusteredGetAllCommand(String cacheName, List<?> keys, Set<Flag> flags, GlobalTransaction gtx) {
+      super(cacheName);
+      this.keys = keys;
+      this.flags = flags;
+      this.gtx = gtx;
+   }
+
+   public void initialize(InvocationContextContainer icc, CommandsFactory commandsFactory, InternalEntryFactory entryFactory,
+                          InterceptorChain interceptorChain, DistributionManager distributionManager) {
+      this.icc = icc;
+      this.commandsFactory = commandsFactory;
+      this.entryFactory = entryFactory;
+      this.invoker = interceptorChain;
+      this.distributionManager = distributionManager;
+   }
+
+   /**
+    * Invokes a logical "getAll(keys)" on a remote cache and returns results.
+    *
+    * @param context invocation context, ignored.
+    * @return an array holding the <code>InternalCacheValue</code> of each key, in the order in which the keys were
+    *         requested, with <tt>null</tt> for keys not found; or <tt>null</tt> if any of the keys is affected by
+    *         a rehash and hence this node cannot reliably answer for all of them.
+    */
+   @Override
+   public InternalCacheValue[] perform(InvocationContext context) throws Throwable {
+      if (distributionManager != null) {
+         for (Object key : keys) {
+            if (distributionManager.isAffectedByRehash(key)) {
+               if (trace) log.tracef("Key %s is affected by rehash, returning null", key);
+               return null;
+            }
+         }
+      }
+      // make sure the get command doesn't perform a remote call
+      // as our caller is already calling the ClusteredGetAllCommand on the owner of the keys
+      Set<Flag> commandFlags = EnumSet.of(Flag.SKIP_REMOTE_LOOKUP, Flag.CACHE_MODE_LOCAL);
+      if (this.flags != null) commandFlags.addAll(this.flags);
+      GetAllCommand command = commandsFactory.buildGetAllCommand(keys, commandFlags, true);
+      InvocationContext invocationContext = icc.createRemoteInvocationContextForCommand(command, getOrigin());
+      Map<?, ?> entries = (Map<?, ?>) invoker.invoke(invocationContext, command);
+      InternalCacheValue[] values = new InternalCacheValue[keys.size()];
+      int i = 0;
+      for (Object key : keys) {
+         CacheEntry cacheEntry = (CacheEntry) entries.get(key);
+         if (cacheEntry == null) {
+            if (trace) log.tracef("Did not find anything for key %s", key);
+         } else if (cacheEntry instanceof MVCCEntry) {
+            //this might happen if the value was fetched from a cache loader
+            values[i] = entryFactory.createValue(cacheEntry);
+         } else {
+            values[i] = ((InternalCacheEntry) cacheEntry).toInternalCacheValue();
+         }
+         i++;
+      }
+      return values;
+   }
+
+   public List<?> getKeys() {
+      return keys;
+   }
+
+   public GlobalTransaction getGlobalTransaction() {
+      return gtx;
+   }
+
+   public Set<Flag> getFlags() {
+      return flags;
+   }
+
+   @Override
+   public byte getCommandId() {
+      return COMMAND_ID;
+   }
+
+   @Override
+   public Object[] getParameters() {
+      return new Object[]{keys, Flag.copyWithoutRemotableFlags(flags), gtx};
+   }
+
+   @Override
+   @SuppressWarnings("unchecked")
+   public void setParameters(int commandId, Object[] args) {
+      int i = 0;
+      keys = (List<?>) args[i++];
+      flags = (Set<Flag>) args[i++];
+      gtx = (GlobalTransaction) args[i];
+   }
+
+   @Override
+   public boolean isReturnValueExpected() {
+      return true;
+   }
+
+   @Override
+   public String toString() {
+      return "ClusteredGetAllCommand{" +
+            "keys=" + keys +
+            ", flags=" + flags +
+            '}';
+   }
+}
@@ -49,15 +49,19 @@ public MultipleRpcCommand(String cacheName) {
    public Object perform(InvocationContext ctx) throws Throwable {
       if (trace) log.tracef("Executing remotely originated commands: %d", commands.length);
       for (ReplicableCommand command : commands) {
-         if (command instanceof TransactionBoundaryCommand) {
-            command.perform(null);
-         } else {
-            processVisitableCommand(command);
-         }
+         performCommand(command);
       }
       return null;
    }
 
+   protected Object performCommand(ReplicableCommand command) throws Throwable {
+      if (command instanceof TransactionBoundaryCommand) {
+         return command.perform(null);
+      } else {
+         return processVisitableCommand(command);
+      }
+   }
+
    @Override
    public byte getCommandId() {
       return COMMAND_ID;
@@ -86,7 +90,7 @@ public void setParameters(int commandId, Object[] args) {
    @Override
    public boolean equals(Object o) {
       if (this == o) return true;
-      if (!(o instanceof MultipleRpcCommand)) return false;
+      if (o == null || getClass() != o.getClass()) return false;
 
       MultipleRpcCommand that = (MultipleRpcCommand) o;
 
@@ -108,7 +112,7 @@ public int hashCode() {
 
    @Override
    public String toString() {
-      return "MultipleRpcCommand{" +
+      return getClass().getSimpleName() + "{" +
             "commands=" + (commands == null ? null : Arrays.asList(commands)) +
             ", cacheName='" + cacheName + '\'' +
             '}';
@@ -0,0 +1,78 @@
+package org.infinispan.commands.remote;
+
+import org.infinispan.commands.ReplicableCommand;
+import org.infinispan.commons.CacheException;
+import org.infinispan.context.InvocationContext;
+import org.infinispan.context.InvocationContextContainer;
+import org.infinispan.interceptors.InterceptorChain;
+import org.infinispan.remoting.responses.ExceptionResponse;
+import org.infinispan.remoting.responses.Response;
+import org.infinispan.remoting.responses.ResponseGenerator;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+import java.util.List;
+
+/**
+ * A {@link MultipleRpcCommand} that sends back the response of each command. Every command is executed even if
+ * another one failed, and the result is an array holding the response each command would have produced if it was sent
+ * on its own in a {@link SingleRpcCommand}.
+ * <p/>
+ * It has its own command id, so that the wire format of {@link MultipleRpcCommand} is unchanged.
+ *
+ * @since 7.0
+ */
+public class MultipleRpcResponsesCommand extends MultipleRpcCommand {
+
+   public static final byte COMMAND_ID = 43;
+
+   private static final Log log = LogFactory.getLog(MultipleRpcResponsesCommand.class);
+
+   private ResponseGenerator responseGenerator;
+
+   private MultipleRpcResponsesCommand() {
+      super((String) null); // For command id uniqueness test
+   }
+
+   public MultipleRpcResponsesCommand(List<ReplicableCommand> modifications, String cacheName) {
+      super(modifications, cacheName);
+   }
+
+   public MultipleRpcResponsesCommand(String cacheName) {
+      super(cacheName);
+   }
+
+   public void init(InterceptorChain interceptorChain, InvocationContextContainer icc, ResponseGenerator responseGenerator) {
+      init(interceptorChain, icc);
+      this.responseGenerator = responseGenerator;
+   }
+
+   @Override
+   public Object perform(InvocationContext ctx) throws Throwable {
+      ReplicableCommand[] commands = getCommands();
+      Response[] responses = new Response[commands.length];
+      for (int i = 0; i < commands.length; i++) {
+         ReplicableCommand command = commands[i];
+         try {
+            Object retval = performCommand(command);
+            responses[i] = responseGenerator.getResponse(new SingleRpcCommand(cacheName, command), retval);
+         } catch (Throwable t) {
+            // same as if the command was sent on its own, without failing the others
+            Exception e = t instanceof Exception ? (Exception) t : new CacheException(t);
+            log.exceptionExecutingInboundCommand(e);
+            responses[i] = new ExceptionResponse(e);
+         }
+      }
+      return responses;
+   }
+
+   @Override
+   public byte getCommandId() {
+      return COMMAND_ID;
+   }
+
+   @Override
+   public boolean isReturnValueExpected() {
+      return true;
+   }
+}
@@ -2,6 +2,7 @@
 
 import java.util.Properties;
 
+import org.infinispan.commons.CacheConfigurationException;
 import org.infinispan.commons.configuration.Builder;
 import org.infinispan.commons.equivalence.AnyEquivalence;
 import org.infinispan.commons.equivalence.Equivalence;
@@ -20,6 +21,8 @@ public class DataContainerConfigurationBuilder extends AbstractConfigurationChil
    private DataContainer dataContainer;
    private Equivalence keyEquivalence = AnyEquivalence.getInstance();
    private Equivalence valueEquivalence = AnyEquivalence.getInstance();
+   private boolean offHeap = false;
+   private boolean segmented = false;
    // TODO: What are properties used for? Is it just legacy?
    private Properties properties = new Properties();
 
@@ -90,15 +93,58 @@ public <V> DataContainerConfigurationBuilder valueEquivalence(Equivalence<V> val
       return this;
    }
 
+   /**
+    * Store cache entries in marshalled form in memory allocated outside of the Java heap instead of keeping them as
+    * objects on the heap. This reduces garbage collection pressure for very large caches, at the cost of marshalling
+    * keys on every access and values on every read. Keys and values must be marshallable by the cache marshaller.
+    * Defaults to <tt>false</tt>.
+    *
+    * @param offHeap whether entries should be stored off-heap
+    * @return this configuration builder
+    */
+   public DataContainerConfigurationBuilder offHeap(boolean offHeap) {
+      this.offHeap = offHeap;
+      return this;
+   }
+
+   boolean offHeap() {
+      return offHeap;
+   }
+
+   /**
+    * Keep the entries of each segment in a separate map, so that state transfer can send, count and remove the entries
+    * of a segment without scanning the whole data container. Only distributed and replicated caches have segments, and
+    * the entries are not partitioned until this node has joined the cache. Cannot be used with eviction.
+    * Defaults to <tt>false</tt>.
+    *
+    * @param segmented whether entries should be partitioned by segment
+    * @return this configuration builder
+    */
+   public DataContainerConfigurationBuilder segmented(boolean segmented) {
+      this.segmented = segmented;
+      return this;
+   }
+
    @Override
    public void validate() {
+      if (offHeap && dataContainer != null)
+         throw new CacheConfigurationException("Off-heap storage cannot be enabled when a custom data container is specified");
+      if (segmented) {
+         if (dataContainer != null || offHeap)
+            throw new CacheConfigurationException("A segmented data container cannot be used with a custom data container or off-heap storage");
+         if (eviction().strategy().isEnabled())
+            throw new CacheConfigurationException("A segmented data container cannot be used with eviction");
+         CacheMode mode = clustering().cacheMode();
+         if (!mode.isDistributed() && !mode.isReplicated())
+            throw new CacheConfigurationException("A segmented data container requires a distributed or replicated cache, not " + mode);
+      }
    }
 
    @Override
    public DataContainerConfiguration create() {
       return new DataContainerConfiguration(dataContainer,
             TypedProperties.toTypedProperties(properties), keyEquivalence,
-            valueEquivalence);
+            valueEquivalence, offHeap, segmented);
    }
 
    @Override
@@ -107,6 +153,8 @@ public DataContainerConfigurationBuilder read(DataContainerConfiguration templat
       this.properties = template.properties();
       this.keyEquivalence = template.keyEquivalence();
       this.valueEquivalence = template.valueEquivalence();
+      this.offHeap = template.offHeap();
+      this.segmented = template.segmented();
 
       return this;
    }
@@ -118,6 +166,8 @@ public String toString() {
             ", properties=" + properties +
             ", keyEquivalence=" + keyEquivalence +
             ", valueEquivalence=" + valueEquivalence +
+            ", offHeap=" + offHeap +
+            ", segmented=" + segmented +
             '}';
    }
 
@@ -2,6 +2,7 @@
 
 import org.infinispan.eviction.EvictionStrategy;
 import org.infinispan.eviction.EvictionThreadPolicy;
+import org.infinispan.eviction.EvictionType;
 
 /**
  * Controls the eviction settings for the cache.
@@ -11,11 +12,16 @@ public class EvictionConfiguration {
    private final int maxEntries;
    private final EvictionStrategy strategy;
    private final EvictionThreadPolicy threadPolicy;
+   private final EvictionType type;
+   private final long maxMemory;
    
-   EvictionConfiguration(int maxEntries, EvictionStrategy strategy, EvictionThreadPolicy threadPolicy) {
+   EvictionConfiguration(int maxEntries, EvictionStrategy strategy, EvictionThreadPolicy threadPolicy,
+         EvictionType type, long maxMemory) {
       this.maxEntries = maxEntries;
       this.strategy = strategy;
       this.threadPolicy = threadPolicy;
+      this.type = type;
+      this.maxMemory = maxMemory;
    }
    
    /**
@@ -42,12 +48,30 @@ public int maxEntries() {
       return maxEntries;
    }
 
+   /**
+    * What the eviction bound applies to: the number of entries ({@link EvictionType#COUNT}) or the
+    * estimated amount of memory held by the entries ({@link EvictionType#MEMORY}).
+    */
+   public EvictionType type() {
+      return type;
+   }
+
+   /**
+    * Maximum estimated amount of memory, in bytes, held by the entries of a cache instance when
+    * eviction type is {@link EvictionType#MEMORY}.
+    */
+   public long maxMemory() {
+      return maxMemory;
+   }
+
    @Override
    public String toString() {
       return "EvictionConfiguration{" +
             "maxEntries=" + maxEntries +
             ", strategy=" + strategy +
             ", threadPolicy=" + threadPolicy +
+            ", type=" + type +
+            ", maxMemory=" + maxMemory +
             '}';
    }
 
@@ -61,6 +85,8 @@ public boolean equals(Object o) {
       if (maxEntries != that.maxEntries) return false;
       if (strategy != that.strategy) return false;
       if (threadPolicy != that.threadPolicy) return false;
+      if (type != that.type) return false;
+      if (maxMemory != that.maxMemory) return false;
 
       return true;
    }
@@ -70,6 +96,8 @@ public int hashCode() {
       int result = maxEntries;
       result = 31 * result + (strategy != null ? strategy.hashCode() : 0);
       result = 31 * result + (threadPolicy != null ? threadPolicy.hashCode() : 0);
+      result = 31 * result + (type != null ? type.hashCode() : 0);
+      result = 31 * result + (int) (maxMemory ^ (maxMemory >>> 32));
       return result;
    }
 
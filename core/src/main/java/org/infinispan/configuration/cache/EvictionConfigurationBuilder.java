@@ -4,6 +4,7 @@
 import org.infinispan.commons.CacheConfigurationException;
 import org.infinispan.eviction.EvictionStrategy;
 import org.infinispan.eviction.EvictionThreadPolicy;
+import org.infinispan.eviction.EvictionType;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
@@ -17,6 +18,8 @@ public class EvictionConfigurationBuilder extends AbstractConfigurationChildBuil
    private int maxEntries = -1;
    private EvictionStrategy strategy = EvictionStrategy.NONE;
    private EvictionThreadPolicy threadPolicy = EvictionThreadPolicy.DEFAULT;
+   private EvictionType type = EvictionType.COUNT;
+   private long maxMemory = -1;
 
    EvictionConfigurationBuilder(ConfigurationBuilder builder) {
       super(builder);
@@ -60,8 +63,37 @@ public EvictionConfigurationBuilder maxEntries(int maxEntries) {
       return this;
    }
 
+   /**
+    * What the eviction bound applies to. With {@link EvictionType#COUNT}, the default, the number of
+    * entries is bounded by {@link #maxEntries(int)}. With {@link EvictionType#MEMORY} the estimated
+    * amount of memory held by the entries is bounded by {@link #maxMemory(long)} instead, which is
+    * only supported by the LRU eviction strategy.
+    *
+    * @param type
+    */
+   public EvictionConfigurationBuilder type(EvictionType type) {
+      this.type = type;
+      return this;
+   }
+
+   /**
+    * Maximum estimated amount of memory, in bytes, held by the entries of a cache instance when
+    * eviction type is {@link EvictionType#MEMORY}. The size of each entry is estimated from its key,
+    * value and metadata, so the actual memory used may differ from this limit.
+    *
+    * @param maxMemory
+    */
+   public EvictionConfigurationBuilder maxMemory(long maxMemory) {
+      this.maxMemory = maxMemory;
+      return this;
+   }
+
    @Override
    public void validate() {
+      if (type == EvictionType.MEMORY) {
+         validateMemoryEviction();
+         return;
+      }
       if (!strategy.isEnabled() && getBuilder().persistence().passivation())
          log.passivationWithoutEviction();
       if(strategy == EvictionStrategy.FIFO)
@@ -74,9 +106,26 @@ public void validate() {
       }
    }
 
+   private void validateMemoryEviction() {
+      if (maxMemory <= 0)
+         throw new CacheConfigurationException("Eviction maxMemory value cannot be less than or equal to zero if eviction type is MEMORY");
+      if (strategy == EvictionStrategy.LIRS)
+         throw new CacheConfigurationException("Eviction type MEMORY is not supported by the LIRS eviction strategy");
+      if (strategy == EvictionStrategy.UNORDERED)
+         throw new CacheConfigurationException("Eviction type MEMORY is not supported by the UNORDERED eviction strategy");
+      if (getBuilder().dataContainer().offHeap())
+         throw new CacheConfigurationException("Eviction type MEMORY is not supported by the off-heap data container");
+      if (strategy == EvictionStrategy.FIFO)
+         log.warnFifoStrategyIsDeprecated();
+      if (!strategy.isEnabled()) {
+         strategy = EvictionStrategy.LRU;
+         log.debugf("Max memory configured (%d) without eviction strategy. Eviction strategy overriden to %s", maxMemory, strategy);
+      }
+   }
+
    @Override
    public EvictionConfiguration create() {
-      return new EvictionConfiguration(maxEntries, strategy, threadPolicy);
+      return new EvictionConfiguration(maxEntries, strategy, threadPolicy, type, maxMemory);
    }
 
    @Override
@@ -84,6 +133,8 @@ public EvictionConfigurationBuilder read(EvictionConfiguration template) {
       this.maxEntries = template.maxEntries();
       this.strategy = template.strategy();
       this.threadPolicy = template.threadPolicy();
+      this.type = template.type();
+      this.maxMemory = template.maxMemory();
 
       return this;
    }
@@ -94,6 +145,8 @@ public String toString() {
             "maxEntries=" + maxEntries +
             ", strategy=" + strategy +
             ", threadPolicy=" + threadPolicy +
+            ", type=" + type +
+            ", maxMemory=" + maxMemory +
             '}';
    }
 
@@ -18,10 +18,11 @@ public class HashConfiguration {
    private final float capacityFactor;
    private final GroupsConfiguration groupsConfiguration;
    private final StateTransferConfiguration stateTransferConfiguration;
+   private final RemoteReadPolicy remoteReadPolicy;
 
    HashConfiguration(ConsistentHashFactory consistentHashFactory, Hash hash, int numOwners, int numSegments,
                      float capacityFactor, GroupsConfiguration groupsConfiguration,
-                     StateTransferConfiguration stateTransferConfiguration) {
+                     StateTransferConfiguration stateTransferConfiguration, RemoteReadPolicy remoteReadPolicy) {
       this.consistentHashFactory = consistentHashFactory;
       this.hash = hash;
       this.numOwners = numOwners;
@@ -29,6 +30,7 @@ public class HashConfiguration {
       this.capacityFactor = capacityFactor;
       this.groupsConfiguration = groupsConfiguration;
       this.stateTransferConfiguration = stateTransferConfiguration;
+      this.remoteReadPolicy = remoteReadPolicy;
    }
 
    /**
@@ -127,6 +129,13 @@ public GroupsConfiguration groups() {
       return groupsConfiguration;
    }
 
+   /**
+    * Which owners are asked for the value of a key that isn't stored locally.
+    */
+   public RemoteReadPolicy remoteReadPolicy() {
+      return remoteReadPolicy;
+   }
+
    @Override
    public String toString() {
       return "HashConfiguration{" +
@@ -136,6 +145,7 @@ public String toString() {
             ", numSegments=" + numSegments +
             ", groupsConfiguration=" + groupsConfiguration +
             ", stateTransferConfiguration=" + stateTransferConfiguration +
+            ", remoteReadPolicy=" + remoteReadPolicy +
             '}';
    }
 
@@ -156,6 +166,7 @@ public boolean equals(Object o) {
          return false;
       if (stateTransferConfiguration != null ? !stateTransferConfiguration.equals(that.stateTransferConfiguration) : that.stateTransferConfiguration != null)
          return false;
+      if (remoteReadPolicy != that.remoteReadPolicy) return false;
 
       return true;
    }
@@ -168,6 +179,7 @@ public int hashCode() {
       result = 31 * result + numSegments;
       result = 31 * result + (groupsConfiguration != null ? groupsConfiguration.hashCode() : 0);
       result = 31 * result + (stateTransferConfiguration != null ? stateTransferConfiguration.hashCode() : 0);
+      result = 31 * result + (remoteReadPolicy != null ? remoteReadPolicy.hashCode() : 0);
       return result;
    }
 }
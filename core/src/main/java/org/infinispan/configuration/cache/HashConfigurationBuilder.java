@@ -24,6 +24,7 @@ public class HashConfigurationBuilder extends AbstractClusteringConfigurationChi
    // up to 6 members and the difference between nodes stays under 20% up to 12 members.
    private int numSegments = 60;
    private float capacityFactor = 1;
+   private RemoteReadPolicy remoteReadPolicy = RemoteReadPolicy.ALL_OWNERS;
 
    private final GroupsConfigurationBuilder groupsConfigurationBuilder;
 
@@ -162,6 +163,17 @@ public HashConfigurationBuilder capacityFactor(float capacityFactor) {
       return this;
    }
 
+   /**
+    * Which owners are asked for the value of a key that isn't stored locally. By default all the owners are asked at
+    * once, the other policies ask a single owner first and only ask the others if needed.
+    *
+    * @see RemoteReadPolicy
+    */
+   public HashConfigurationBuilder remoteReadPolicy(RemoteReadPolicy remoteReadPolicy) {
+      this.remoteReadPolicy = remoteReadPolicy;
+      return this;
+   }
+
    public GroupsConfigurationBuilder groups() {
       return groupsConfigurationBuilder;
    }
@@ -175,7 +187,7 @@ public void validate() {
    public HashConfiguration create() {
       // TODO stateTransfer().create() will create a duplicate StateTransferConfiguration instance. That's ok as long as none of the stateTransfer settings are modifiable at runtime.
       return new HashConfiguration(consistentHashFactory, hash, numOwners, numSegments, capacityFactor,
-            groupsConfigurationBuilder.create(), stateTransfer().create());
+            groupsConfigurationBuilder.create(), stateTransfer().create(), remoteReadPolicy);
    }
 
    @Override
@@ -186,6 +198,7 @@ public HashConfigurationBuilder read(HashConfiguration template) {
       this.numSegments = template.numSegments();
       this.groupsConfigurationBuilder.read(template.groups());
       this.capacityFactor = template.capacityFactor();
+      this.remoteReadPolicy = template.remoteReadPolicy();
       return this;
    }
 
@@ -197,6 +210,7 @@ public String toString() {
             ", numOwners=" + numOwners +
             ", numSegments=" + numSegments +
             ", groups=" + groupsConfigurationBuilder +
+            ", remoteReadPolicy=" + remoteReadPolicy +
             '}';
    }
 
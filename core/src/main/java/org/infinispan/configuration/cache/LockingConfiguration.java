@@ -13,14 +13,16 @@ public class LockingConfiguration {
    private final int concurrencyLevel;
    private final IsolationLevel isolationLevel;
    private long lockAcquisitionTimeout;
+   private final int lockTableSize;
    private final boolean useLockStriping;
    private final boolean writeSkewCheck;
 
    LockingConfiguration(int concurrencyLevel, IsolationLevel isolationLevel, long lockAcquisitionTimeout,
-         boolean useLockStriping, boolean writeSkewCheck) {
+         int lockTableSize, boolean useLockStriping, boolean writeSkewCheck) {
       this.concurrencyLevel = concurrencyLevel;
       this.isolationLevel = isolationLevel;
       this.lockAcquisitionTimeout = lockAcquisitionTimeout;
+      this.lockTableSize = lockTableSize;
       this.useLockStriping = useLockStriping;
       this.writeSkewCheck = writeSkewCheck;
    }
@@ -67,6 +69,16 @@ public LockingConfiguration lockAcquisitionTimeout(long lockAcquisitionTimeout)
       return this;
    }
 
+   /**
+    * If greater than 0, the locks are held in a pre-allocated table with this many slots instead of being created per
+    * entry. Each slot is claimed by a single key while it is locked, so unlike lock striping keys never share a lock,
+    * and the memory used by the locks doesn't depend on the number of locked keys. The table size is rounded up to a
+    * power of two. Ignored when {@link #useLockStriping()} is true. Defaults to 0, i.e. no lock table.
+    */
+   public int lockTableSize() {
+      return lockTableSize;
+   }
+
    /**
     * If true, a pool of shared locks is maintained for all entries that need to be locked.
     * Otherwise, a lock is created per entry in the cache. Lock striping helps control memory
@@ -92,6 +104,7 @@ public String toString() {
             "concurrencyLevel=" + concurrencyLevel +
             ", isolationLevel=" + isolationLevel +
             ", lockAcquisitionTimeout=" + lockAcquisitionTimeout +
+            ", lockTableSize=" + lockTableSize +
             ", useLockStriping=" + useLockStriping +
             ", writeSkewCheck=" + writeSkewCheck +
             '}';
@@ -106,6 +119,7 @@ public boolean equals(Object o) {
 
       if (concurrencyLevel != that.concurrencyLevel) return false;
       if (lockAcquisitionTimeout != that.lockAcquisitionTimeout) return false;
+      if (lockTableSize != that.lockTableSize) return false;
       if (useLockStriping != that.useLockStriping) return false;
       if (writeSkewCheck != that.writeSkewCheck) return false;
       if (isolationLevel != that.isolationLevel) return false;
@@ -118,6 +132,7 @@ public int hashCode() {
       int result = concurrencyLevel;
       result = 31 * result + (isolationLevel != null ? isolationLevel.hashCode() : 0);
       result = 31 * result + (int) (lockAcquisitionTimeout ^ (lockAcquisitionTimeout >>> 32));
+      result = 31 * result + lockTableSize;
       result = 31 * result + (useLockStriping ? 1 : 0);
       result = 31 * result + (writeSkewCheck ? 1 : 0);
       return result;
@@ -22,6 +22,7 @@ public class LockingConfigurationBuilder extends AbstractConfigurationChildBuild
    private int concurrencyLevel = 32;
    private IsolationLevel isolationLevel = IsolationLevel.READ_COMMITTED;
    private long lockAcquisitionTimeout = TimeUnit.SECONDS.toMillis(10);
+   private int lockTableSize = 0;
    private boolean useLockStriping = false;
    private boolean writeSkewCheck = false;
 
@@ -76,6 +77,17 @@ public LockingConfigurationBuilder lockAcquisitionTimeout(long l, TimeUnit unit)
       return lockAcquisitionTimeout(unit.toMillis(l));
    }
 
+   /**
+    * If greater than 0, the locks are held in a pre-allocated table with this many slots instead of being created per
+    * entry. Each slot is claimed by a single key while it is locked, so unlike lock striping keys never share a lock,
+    * and the memory used by the locks doesn't depend on the number of locked keys. The table size is rounded up to a
+    * power of two. Ignored when {@link #useLockStriping(boolean)} is true. Defaults to 0, i.e. no lock table.
+    */
+   public LockingConfigurationBuilder lockTableSize(int lockTableSize) {
+      this.lockTableSize = lockTableSize;
+      return this;
+   }
+
    /**
     * If true, a pool of shared locks is maintained for all entries that need to be locked.
     * Otherwise, a lock is created per entry in the cache. Lock striping helps control memory
@@ -99,6 +111,9 @@ public LockingConfigurationBuilder writeSkewCheck(boolean b) {
 
    @Override
    public void validate() {
+      if (lockTableSize < 0)
+         throw new CacheConfigurationException("The lock table size cannot be negative");
+
       if (writeSkewCheck) {
          if (isolationLevel != IsolationLevel.REPEATABLE_READ)
             throw new CacheConfigurationException("Write-skew checking only allowed with REPEATABLE_READ isolation level for cache");
@@ -125,7 +140,7 @@ && clustering().cacheMode() != CacheMode.LOCAL)
 
    @Override
    public LockingConfiguration create() {
-      return new LockingConfiguration(concurrencyLevel, isolationLevel, lockAcquisitionTimeout, useLockStriping, writeSkewCheck);
+      return new LockingConfiguration(concurrencyLevel, isolationLevel, lockAcquisitionTimeout, lockTableSize, useLockStriping, writeSkewCheck);
    }
 
    @Override
@@ -133,6 +148,7 @@ public LockingConfigurationBuilder read(LockingConfiguration template) {
       concurrencyLevel = template.concurrencyLevel();
       isolationLevel = template.isolationLevel();
       lockAcquisitionTimeout = template.lockAcquisitionTimeout();
+      lockTableSize = template.lockTableSize();
       useLockStriping = template.useLockStriping();
       writeSkewCheck = template.writeSkewCheck();
 
@@ -145,6 +161,7 @@ public String toString() {
             "concurrencyLevel=" + concurrencyLevel +
             ", isolationLevel=" + isolationLevel +
             ", lockAcquisitionTimeout=" + lockAcquisitionTimeout +
+            ", lockTableSize=" + lockTableSize +
             ", useLockStriping=" + useLockStriping +
             ", writeSkewCheck=" + writeSkewCheck +
             '}';
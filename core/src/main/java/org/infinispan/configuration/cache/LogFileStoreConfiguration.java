@@ -0,0 +1,92 @@
+package org.infinispan.configuration.cache;
+
+import org.infinispan.commons.configuration.BuiltBy;
+import org.infinispan.commons.configuration.ConfigurationFor;
+import org.infinispan.persistence.file.LogFileStore;
+
+import java.util.Properties;
+
+/**
+ * Defines the configuration for the log-structured file cache store.
+ *
+ * @since 7.0
+ */
+@BuiltBy(LogFileStoreConfigurationBuilder.class)
+@ConfigurationFor(LogFileStore.class)
+public class LogFileStoreConfiguration extends AbstractStoreConfiguration {
+
+   private final String location;
+
+   private final int maxFileSize;
+
+   private final double compactionThreshold;
+
+   private final boolean syncWrites;
+
+   public LogFileStoreConfiguration(boolean purgeOnStartup, boolean fetchPersistentState,
+                                    boolean ignoreModifications, AsyncStoreConfiguration async,
+                                    SingletonStoreConfiguration singletonStore, boolean preload, boolean shared,
+                                    Properties properties, String location, int maxFileSize,
+                                    double compactionThreshold, boolean syncWrites) {
+      super(purgeOnStartup, fetchPersistentState, ignoreModifications, async, singletonStore, preload, shared, properties);
+      this.location = location;
+      this.maxFileSize = maxFileSize;
+      this.compactionThreshold = compactionThreshold;
+      this.syncWrites = syncWrites;
+   }
+
+   public String location() {
+      return location;
+   }
+
+   public int maxFileSize() {
+      return maxFileSize;
+   }
+
+   public double compactionThreshold() {
+      return compactionThreshold;
+   }
+
+   public boolean syncWrites() {
+      return syncWrites;
+   }
+
+   @Override
+   public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      if (!super.equals(o)) return false;
+
+      LogFileStoreConfiguration that = (LogFileStoreConfiguration) o;
+
+      if (maxFileSize != that.maxFileSize) return false;
+      if (Double.compare(that.compactionThreshold, compactionThreshold) != 0) return false;
+      if (syncWrites != that.syncWrites) return false;
+      if (location != null ? !location.equals(that.location) : that.location != null)
+         return false;
+
+      return true;
+   }
+
+   @Override
+   public int hashCode() {
+      int result = super.hashCode();
+      long temp = Double.doubleToLongBits(compactionThreshold);
+      result = 31 * result + (location != null ? location.hashCode() : 0);
+      result = 31 * result + maxFileSize;
+      result = 31 * result + (int) (temp ^ (temp >>> 32));
+      result = 31 * result + (syncWrites ? 1 : 0);
+      return result;
+   }
+
+   @Override
+   public String toString() {
+      return "LogFileStoreConfiguration{" +
+            "location='" + location + '\'' +
+            ", maxFileSize=" + maxFileSize +
+            ", compactionThreshold=" + compactionThreshold +
+            ", syncWrites=" + syncWrites +
+            '}';
+   }
+
+}
@@ -0,0 +1,104 @@
+package org.infinispan.configuration.cache;
+
+import org.infinispan.commons.CacheConfigurationException;
+import org.infinispan.commons.configuration.Builder;
+
+/**
+ * Log-structured file cache store configuration builder.
+ *
+ * @since 7.0
+ */
+public class LogFileStoreConfigurationBuilder
+      extends AbstractStoreConfigurationBuilder<LogFileStoreConfiguration, LogFileStoreConfigurationBuilder> {
+
+   private String location = "Infinispan-LogFileStore";
+
+   private int maxFileSize = 16 * 1024 * 1024;
+
+   private double compactionThreshold = 0.5;
+
+   private boolean syncWrites = true;
+
+   public LogFileStoreConfigurationBuilder(PersistenceConfigurationBuilder builder) {
+      super(builder);
+   }
+
+   @Override
+   public LogFileStoreConfigurationBuilder self() {
+      return this;
+   }
+
+   /**
+    * Sets a location on disk where the store can write.
+    */
+   public LogFileStoreConfigurationBuilder location(String location) {
+      this.location = location;
+      return this;
+   }
+
+   /**
+    * Size in bytes after which the store stops appending to the current log file and rolls over to a new one. Only
+    * log files which are no longer appended to are compacted, so smaller files allow space to be reclaimed sooner at
+    * the cost of a larger number of open files.
+    */
+   public LogFileStoreConfigurationBuilder maxFileSize(int maxFileSize) {
+      this.maxFileSize = maxFileSize;
+      return this;
+   }
+
+   /**
+    * Ratio, between 0 and 1, of the space in a log file taken by overwritten, removed or expired entries above which
+    * the file is compacted: its live entries are copied to the end of the log and the file is deleted.
+    */
+   public LogFileStoreConfigurationBuilder compactionThreshold(double compactionThreshold) {
+      this.compactionThreshold = compactionThreshold;
+      return this;
+   }
+
+   /**
+    * If true, a write only returns after the log has been forced to disk. Concurrent writes are forced together, so
+    * the cost of a single fsync is shared by all the writes issued while the previous one was in progress.
+    */
+   public LogFileStoreConfigurationBuilder syncWrites(boolean syncWrites) {
+      this.syncWrites = syncWrites;
+      return this;
+   }
+
+   @Override
+   public void validate() {
+      super.validate();
+      if (maxFileSize <= 0)
+         throw new CacheConfigurationException("The log file store 'maxFileSize' must be positive!");
+      if (compactionThreshold <= 0 || compactionThreshold > 1)
+         throw new CacheConfigurationException("The log file store 'compactionThreshold' must be greater than 0 and not greater than 1!");
+   }
+
+   @Override
+   public LogFileStoreConfiguration create() {
+      return new LogFileStoreConfiguration(purgeOnStartup, fetchPersistentState, ignoreModifications,
+                                           async.create(), singletonStore.create(), preload,
+                                           shared, properties, location, maxFileSize, compactionThreshold, syncWrites);
+   }
+
+   @Override
+   public Builder<?> read(LogFileStoreConfiguration template) {
+      // LogFileStore-specific configuration
+      location = template.location();
+      maxFileSize = template.maxFileSize();
+      compactionThreshold = template.compactionThreshold();
+      syncWrites = template.syncWrites();
+
+      // AbstractStore-specific configuration
+      fetchPersistentState = template.fetchPersistentState();
+      ignoreModifications = template.ignoreModifications();
+      properties = template.properties();
+      purgeOnStartup = template.purgeOnStartup();
+      async.read(template.async());
+      singletonStore.read(template.singletonStore());
+      preload = template.preload();
+      shared = template.shared();
+
+      return this;
+   }
+
+}
@@ -0,0 +1,31 @@
+package org.infinispan.configuration.cache;
+
+/**
+ * Decides which owners a distributed cache asks for the value of a key that isn't stored locally.
+ *
+ * @since 7.0
+ */
+public enum RemoteReadPolicy {
+   /**
+    * Ask all the owners at once and use the first valid response.
+    */
+   ALL_OWNERS,
+   /**
+    * Ask only the primary owner, the other owners are only asked if it can't answer (e.g. during a rehash).
+    */
+   PRIMARY_OWNER,
+   /**
+    * Ask a random owner, the other owners are only asked if it can't answer.
+    */
+   RANDOM_OWNER,
+   /**
+    * Ask the owner with the lowest expected response time, based on its past response times and the number of
+    * requests still waiting for its response. The other owners are only asked if it can't answer.
+    */
+   LEAST_LOADED_OWNER,
+   /**
+    * Ask the least loaded owner, and ask the other owners as well if it hasn't answered within the 95th percentile of
+    * the past remote read response times.
+    */
+   STAGGERED
+}
@@ -14,15 +14,22 @@ public class StateTransferConfiguration {
    private int chunkSize;
    private boolean awaitInitialTransfer;
    private Boolean originalAwaitInitialTransfer;
+   private final boolean incrementalRejoin;
+   private final long maxOutboundBandwidth;
+   private final int maxConcurrentSegments;
 
    StateTransferConfiguration(boolean fetchInMemoryState, Boolean originalFetchInMemoryState, long timeout, int chunkSize,
-                              boolean awaitInitialTransfer, Boolean originalAwaitInitialTransfer) {
+                              boolean awaitInitialTransfer, Boolean originalAwaitInitialTransfer, boolean incrementalRejoin,
+                              long maxOutboundBandwidth, int maxConcurrentSegments) {
       this.fetchInMemoryState = fetchInMemoryState;
       this.originalFetchInMemoryState = originalFetchInMemoryState;
       this.timeout = timeout;
       this.chunkSize = chunkSize;
       this.awaitInitialTransfer = awaitInitialTransfer;
       this.originalAwaitInitialTransfer = originalAwaitInitialTransfer;
+      this.incrementalRejoin = incrementalRejoin;
+      this.maxOutboundBandwidth = maxOutboundBandwidth;
+      this.maxConcurrentSegments = maxConcurrentSegments;
    }
 
    /**
@@ -88,6 +95,34 @@ protected Boolean originalAwaitInitialTransfer() {
       return originalAwaitInitialTransfer;
    }
 
+   /**
+    * If {@code true}, a node joining with entries already in its local (non-shared) cache store sends digests of
+    * those entries along with its state requests, and the other nodes only send it the entries it is missing or which
+    * have changed, plus the keys it should remove. This avoids transferring the whole data set again when a node
+    * with a persistent store is restarted.
+    */
+   public boolean incrementalRejoin() {
+      return incrementalRejoin;
+   }
+
+   /**
+    * If &gt; 0, the maximum number of bytes per second this node sends to other nodes during state transfer, for all
+    * the segments, destinations and caches of the cache manager combined. If caches configure different limits, the
+    * lowest one applies to all of them. If &lt;= 0, the outbound state transfer of the cache is not throttled.
+    */
+   public long maxOutboundBandwidth() {
+      return maxOutboundBandwidth;
+   }
+
+   /**
+    * If &gt; 0, the maximum number of segments this node receives at the same time during state transfer. The
+    * segments with the most operations waiting for them are requested first. If &lt;= 0, all the segments are requested
+    * from each source at once.
+    */
+   public int maxConcurrentSegments() {
+      return maxConcurrentSegments;
+   }
+
    @Override
    public String toString() {
       return "StateTransferConfiguration{" +
@@ -97,6 +132,9 @@ public String toString() {
             ", timeout=" + timeout +
             ", awaitInitialTransfer=" + awaitInitialTransfer +
             ", originalAwaitInitialTransfer=" + originalAwaitInitialTransfer +
+            ", incrementalRejoin=" + incrementalRejoin +
+            ", maxOutboundBandwidth=" + maxOutboundBandwidth +
+            ", maxConcurrentSegments=" + maxConcurrentSegments +
             '}';
    }
 
@@ -113,6 +151,9 @@ public boolean equals(Object o) {
       if (originalFetchInMemoryState != null ? !originalFetchInMemoryState.equals(that.originalFetchInMemoryState) : that.originalFetchInMemoryState != null)
          return false;
       if (awaitInitialTransfer != that.awaitInitialTransfer) return false;
+      if (incrementalRejoin != that.incrementalRejoin) return false;
+      if (maxOutboundBandwidth != that.maxOutboundBandwidth) return false;
+      if (maxConcurrentSegments != that.maxConcurrentSegments) return false;
       if (originalAwaitInitialTransfer != null ? !originalAwaitInitialTransfer.equals(that.originalAwaitInitialTransfer) : that.originalAwaitInitialTransfer != null)
          return false;
 
@@ -127,6 +168,9 @@ public int hashCode() {
       result = 31 * result + chunkSize;
       result = 31 * result + (awaitInitialTransfer ? 1 : 0);
       result = 31 * result + (originalAwaitInitialTransfer != null ? originalAwaitInitialTransfer.hashCode() : 0);
+      result = 31 * result + (incrementalRejoin ? 1 : 0);
+      result = 31 * result + (int) (maxOutboundBandwidth ^ (maxOutboundBandwidth >>> 32));
+      result = 31 * result + maxConcurrentSegments;
       return result;
    }
 
@@ -22,6 +22,9 @@ public class StateTransferConfigurationBuilder extends
    private Boolean awaitInitialTransfer = null;
    private int chunkSize = 10000;
    private long timeout = TimeUnit.MINUTES.toMillis(4);
+   private boolean incrementalRejoin = false;
+   private long maxOutboundBandwidth = 0;
+   private int maxConcurrentSegments = 0;
 
    StateTransferConfigurationBuilder(ClusteringConfigurationBuilder builder) {
       super(builder);
@@ -79,6 +82,37 @@ public StateTransferConfigurationBuilder timeout(long l, TimeUnit unit) {
       return timeout(unit.toMillis(l));
    }
 
+   /**
+    * If {@code true}, a node joining with entries already in its local (non-shared) cache store sends digests of
+    * those entries along with its state requests, and the other nodes only send it the entries it is missing or which
+    * have changed, plus the keys it should remove. This avoids transferring the whole data set again when a node
+    * with a persistent store is restarted.
+    */
+   public StateTransferConfigurationBuilder incrementalRejoin(boolean b) {
+      this.incrementalRejoin = b;
+      return this;
+   }
+
+   /**
+    * If &gt; 0, the maximum number of bytes per second this node sends to other nodes during state transfer, for all
+    * the segments, destinations and caches of the cache manager combined. If caches configure different limits, the
+    * lowest one applies to all of them. If &lt;= 0, the outbound state transfer of the cache is not throttled.
+    */
+   public StateTransferConfigurationBuilder maxOutboundBandwidth(long bytesPerSecond) {
+      this.maxOutboundBandwidth = bytesPerSecond;
+      return this;
+   }
+
+   /**
+    * If &gt; 0, the maximum number of segments this node receives at the same time during state transfer. The
+    * segments with the most operations waiting for them are requested first. If &lt;= 0, all the segments are requested
+    * from each source at once.
+    */
+   public StateTransferConfigurationBuilder maxConcurrentSegments(int i) {
+      this.maxConcurrentSegments = i;
+      return this;
+   }
+
    @Override
    public void validate() {
       // certain combinations are illegal, such as state transfer + invalidation
@@ -118,7 +152,8 @@ public  StateTransferConfiguration create() {
          _awaitInitialTransfer = false;
       }
       return new StateTransferConfiguration(_fetchInMemoryState, fetchInMemoryState,
-            timeout, chunkSize, _awaitInitialTransfer, awaitInitialTransfer);
+            timeout, chunkSize, _awaitInitialTransfer, awaitInitialTransfer, incrementalRejoin,
+            maxOutboundBandwidth, maxConcurrentSegments);
    }
 
    @Override
@@ -127,6 +162,9 @@ public StateTransferConfigurationBuilder read(StateTransferConfiguration templat
       this.awaitInitialTransfer = template.originalAwaitInitialTransfer();
       this.timeout = template.timeout();
       this.chunkSize = template.chunkSize();
+      this.incrementalRejoin = template.incrementalRejoin();
+      this.maxOutboundBandwidth = template.maxOutboundBandwidth();
+      this.maxConcurrentSegments = template.maxConcurrentSegments();
       return this;
    }
 
@@ -137,6 +175,9 @@ public String toString() {
             ", fetchInMemoryState=" + fetchInMemoryState +
             ", awaitInitialTransfer=" + awaitInitialTransfer +
             ", timeout=" + timeout +
+            ", incrementalRejoin=" + incrementalRejoin +
+            ", maxOutboundBandwidth=" + maxOutboundBandwidth +
+            ", maxConcurrentSegments=" + maxConcurrentSegments +
             '}';
    }
 
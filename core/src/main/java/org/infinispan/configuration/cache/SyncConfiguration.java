@@ -8,10 +8,13 @@
 public class SyncConfiguration {
 
    private long replTimeout;
+   private final int writeBatchSize;
+   private final long writeBatchWindow;
 
-
-   SyncConfiguration(long replTimeout) {
+   SyncConfiguration(long replTimeout, int writeBatchSize, long writeBatchWindow) {
       this.replTimeout = replTimeout;
+      this.writeBatchSize = writeBatchSize;
+      this.writeBatchWindow = writeBatchWindow;
    }
 
    /**
@@ -31,10 +34,30 @@ public SyncConfiguration replTimeout(long l) {
       return this;
    }
 
+   /**
+    * The maximum number of concurrent writes sent to the same node that are replicated in a single message. Only
+    * non-transactional writes that don't need to be sent to more than one node at once are batched, each of them still
+    * gets its own response. 0 or 1 disables batching.
+    */
+   public int writeBatchSize() {
+      return writeBatchSize;
+   }
+
+   /**
+    * How long, in microseconds, the first write of a batch waits for other writes to the same node before the batch is
+    * sent. Writes queued while a batch is being collected are always added to it, so with a window of 0 only writes
+    * that are already waiting are batched.
+    */
+   public long writeBatchWindow() {
+      return writeBatchWindow;
+   }
+
    @Override
    public String toString() {
       return "SyncConfiguration{" +
             "replTimeout=" + replTimeout +
+            ", writeBatchSize=" + writeBatchSize +
+            ", writeBatchWindow=" + writeBatchWindow +
             '}';
    }
 
@@ -46,13 +69,18 @@ public boolean equals(Object o) {
       SyncConfiguration that = (SyncConfiguration) o;
 
       if (replTimeout != that.replTimeout) return false;
+      if (writeBatchSize != that.writeBatchSize) return false;
+      if (writeBatchWindow != that.writeBatchWindow) return false;
 
       return true;
    }
 
    @Override
    public int hashCode() {
-      return (int) (replTimeout ^ (replTimeout >>> 32));
+      int result = (int) (replTimeout ^ (replTimeout >>> 32));
+      result = 31 * result + writeBatchSize;
+      result = 31 * result + (int) (writeBatchWindow ^ (writeBatchWindow >>> 32));
+      return result;
    }
 
 }
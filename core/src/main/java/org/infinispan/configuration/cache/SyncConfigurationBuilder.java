@@ -2,6 +2,7 @@
 
 import java.util.concurrent.TimeUnit;
 
+import org.infinispan.commons.CacheConfigurationException;
 import org.infinispan.commons.configuration.Builder;
 
 /**
@@ -12,6 +13,8 @@
 public class SyncConfigurationBuilder extends AbstractClusteringConfigurationChildBuilder implements Builder<SyncConfiguration> {
 
    private long replTimeout = TimeUnit.SECONDS.toMillis(15);
+   private int writeBatchSize = 0;
+   private long writeBatchWindow = 10;
 
    protected SyncConfigurationBuilder(ClusteringConfigurationBuilder builder) {
       super(builder);
@@ -34,19 +37,51 @@ public SyncConfigurationBuilder replTimeout(long l, TimeUnit unit) {
       return replTimeout(unit.toMillis(l));
    }
 
+   /**
+    * The maximum number of concurrent writes sent to the same node that are replicated in a single message. Only
+    * non-transactional writes that don't need to be sent to more than one node at once are batched, each of them still
+    * gets its own response. 0 or 1 disables batching.
+    */
+   public SyncConfigurationBuilder writeBatchSize(int writeBatchSize) {
+      this.writeBatchSize = writeBatchSize;
+      return this;
+   }
+
+   /**
+    * How long, in microseconds, the first write of a batch waits for other writes to the same node before the batch is
+    * sent. Writes queued while a batch is being collected are always added to it, so with a window of 0 only writes
+    * that are already waiting are batched.
+    */
+   public SyncConfigurationBuilder writeBatchWindow(long writeBatchWindow) {
+      this.writeBatchWindow = writeBatchWindow;
+      return this;
+   }
+
+   /**
+    * How long the first write of a batch waits for other writes to the same node before the batch is sent.
+    */
+   public SyncConfigurationBuilder writeBatchWindow(long writeBatchWindow, TimeUnit unit) {
+      return writeBatchWindow(unit.toMicros(writeBatchWindow));
+   }
+
    @Override
    public void validate() {
-
+      if (writeBatchSize < 0)
+         throw new CacheConfigurationException("The write batch size cannot be negative");
+      if (writeBatchWindow < 0)
+         throw new CacheConfigurationException("The write batch window cannot be negative");
    }
 
    @Override
    public SyncConfiguration create() {
-      return new SyncConfiguration(replTimeout);
+      return new SyncConfiguration(replTimeout, writeBatchSize, writeBatchWindow);
    }
 
    @Override
    public SyncConfigurationBuilder read(SyncConfiguration template) {
       this.replTimeout = template.replTimeout();
+      this.writeBatchSize = template.writeBatchSize();
+      this.writeBatchWindow = template.writeBatchWindow();
       return this;
    }
 
@@ -54,6 +89,8 @@ public SyncConfigurationBuilder read(SyncConfiguration template) {
    public String toString() {
       return "SyncConfigurationBuilder{" +
             "replTimeout=" + replTimeout +
+            ", writeBatchSize=" + writeBatchSize +
+            ", writeBatchWindow=" + writeBatchWindow +
             '}';
    }
 
@@ -24,6 +24,7 @@ public enum Attribute {
     CHUNK_SIZE("chunkSize"),
     CLASS("class"),
     CLUSTER_NAME("clusterName"),
+    COMPACTION_THRESHOLD("compactionThreshold"),
     CONCURRENCY_LEVEL("concurrencyLevel"),
     DISTRIBUTED_SYNC_TIMEOUT("distributedSyncTimeout"),
     EAGER_LOCK_SINGLE_NODE("eagerLockSingleNode"),
@@ -41,6 +42,7 @@ public enum Attribute {
     HOOK_BEHAVIOR("hookBehavior"),
     ID("id"),
     IGNORE_MODIFICATIONS("ignoreModifications"),
+    INCREMENTAL_REJOIN("incrementalRejoin"),
     INDEX("index"),
     INDEX_LOCAL_ONLY("indexLocalOnly"),
     INITIAL_RETRY_WAIT_TIME("initialRetryWaitTime"),
@@ -52,12 +54,17 @@ public enum Attribute {
     INVALIDATION_CLEANUP_TASK_FREQUENCY("cleanupTaskFrequency"),
     LOCK_ACQUISITION_TIMEOUT("lockAcquisitionTimeout"),
     LOCKING_MODE("lockingMode"),
+    LOCK_TABLE_SIZE("lockTableSize"),
     LOG_FLUSH_TIMEOUT("logFlushTimeout"),
     MACHINE_ID("machineId"),
     MARSHALLER_CLASS("marshallerClass"),
+    MAX_CONCURRENT_SEGMENTS("maxConcurrentSegments"),
     MAX_ENTRIES("maxEntries"),
+    MAX_FILE_SIZE("maxFileSize"),
     MAX_IDLE("maxIdle"),
+    MAX_MEMORY("maxMemory"),
     MAX_NON_PROGRESSING_LOG_WRITES("maxProgressingLogWrites"),
+    MAX_OUTBOUND_BANDWIDTH("maxOutboundBandwidth"),
     MBEAN_SERVER_LOOKUP("mBeanServerLookup"),
     MODE("mode"),
     NODE_NAME("nodeName"),
@@ -67,6 +74,7 @@ public enum Attribute {
     NUM_SEGMENTS("numSegments"),
     NUM_RETRIES("numRetries"),
     NUM_VIRTUAL_NODES("numVirtualNodes"),
+    OFF_HEAP("offHeap"),
     ON_REHASH("onRehash"),
     PASSIVATION("passivation"),
     POSITION("position"),
@@ -81,11 +89,13 @@ public enum Attribute {
     REHASH_RPC_TIMEOUT("rehashRpcTimeout"),
     REHASH_WAIT("rehashWait"),
     REMOTE_CALL_TIMEOUT("remoteCallTimeout"),
+    REMOTE_READ_POLICY("remoteReadPolicy"),
     REPL_QUEUE_INTERVAL("replQueueInterval"),
     REPL_QUEUE_CLASS("replQueueClass"),
     REPL_QUEUE_MAX_ELEMENTS("replQueueMaxElements"),
     REPL_TIMEOUT("replTimeout"),
     RETRY_WAIT_TIME_INCREASE_FACTOR("retryWaitTimeIncreaseFactor"),
+    SEGMENTED("segmented"),
     SHARED("shared"),
     SHUTDOWN_TIMEOUT("shutdownTimeout"),
     SITE_ID("siteId"),
@@ -97,6 +107,7 @@ public enum Attribute {
     STREAM_BUFFER_SIZE("streamBufferSize"),
     SYNC_COMMIT_PHASE("syncCommitPhase"),
     SYNC_ROLLBACK_PHASE("syncRollbackPhase"),
+    SYNC_WRITES("syncWrites"),
     STRICT_PEER_TO_PEER("strictPeerToPeer"),
     THREAD_POLICY("threadPolicy"),
     THREAD_POOL_SIZE("threadPoolSize"),
@@ -113,6 +124,8 @@ public enum Attribute {
     VALUE("value"),
     VERSION("version"),
     WAKE_UP_INTERVAL("wakeUpInterval"),
+    WRITE_BATCH_SIZE("writeBatchSize"),
+    WRITE_BATCH_WINDOW("writeBatchWindow"),
     WRITE_SKEW_CHECK("writeSkewCheck"),
     USE_1PC_FOR_AUTOCOMMIT_TX("use1PcForAutoCommitTransactions"),
     VERSIONING_SCHEME("versioningScheme"),
@@ -130,6 +143,7 @@ public enum Attribute {
     TRANSACTION_PROTOCOL("transactionProtocol"),
     KEY_EQUIVALENCE("keyEquivalence"),
     VALUE_EQUIVALENCE("valueEquivalence"),
+    TYPE("type"),
     TYPE_CONVERTER("typeConverter"), PURGE_SYNCHRONOUSLY("purgeSynchronously"), PURGER_THREADS("purgerThreads");
 
     private final String name;
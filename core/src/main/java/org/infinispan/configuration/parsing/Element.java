@@ -31,6 +31,7 @@ public enum Element {
     EVICTION_SCHEDULED_EXECUTOR("evictionScheduledExecutor"),
     EXPIRATION("expiration"),
     SINGLE_FILE_STORE("singleFile"),
+    LOG_FILE_STORE("logFile"),
     GROUPS("groups"),
     GROUPER("grouper"),
     GLOBAL("global"),
@@ -18,6 +18,7 @@
 import org.infinispan.distribution.group.Grouper;
 import org.infinispan.eviction.EvictionStrategy;
 import org.infinispan.eviction.EvictionThreadPolicy;
+import org.infinispan.eviction.EvictionType;
 import org.infinispan.executors.ScheduledExecutorFactory;
 import org.infinispan.interceptors.base.CommandInterceptor;
 import org.infinispan.jmx.MBeanServerLookup;
@@ -509,6 +510,9 @@ private void parseLocking(final XMLExtendedStreamReader reader, final Configurat
             case LOCK_ACQUISITION_TIMEOUT:
                builder.locking().lockAcquisitionTimeout(Long.parseLong(value));
                break;
+            case LOCK_TABLE_SIZE:
+               builder.locking().lockTableSize(Integer.parseInt(value));
+               break;
             case USE_LOCK_STRIPING:
                builder.locking().useLockStriping(Boolean.parseBoolean(value));
                break;
@@ -551,6 +555,9 @@ private void parsePersistence(final XMLExtendedStreamReader reader, final Config
             case SINGLE_FILE_STORE:
                parseSingleFileStore(reader, holder);
                break;
+            case LOG_FILE_STORE:
+               parseLogFileStore(reader, holder);
+               break;
             case STORE:
                parseStore(reader, holder);
                break;
@@ -583,6 +590,35 @@ private void parseSingleFileStore(XMLExtendedStreamReader reader, ConfigurationB
       parseStoreChildren(reader, storeBuilder);
    }
 
+   private void parseLogFileStore(XMLExtendedStreamReader reader, ConfigurationBuilderHolder holder) throws XMLStreamException {
+      ConfigurationBuilder builder = holder.getCurrentConfigurationBuilder();
+      LogFileStoreConfigurationBuilder storeBuilder = builder.persistence().addStore(LogFileStoreConfigurationBuilder.class);
+      for (int i = 0; i < reader.getAttributeCount(); i++) {
+         ParseUtils.requireNoNamespaceAttribute(reader, i);
+         String value = replaceProperties(reader.getAttributeValue(i));
+         String attrName = reader.getAttributeLocalName(i);
+         Attribute attribute = Attribute.forName(attrName);
+         switch (attribute) {
+            case LOCATION:
+               storeBuilder.location(value);
+               break;
+            case MAX_FILE_SIZE:
+               storeBuilder.maxFileSize(Integer.parseInt(value));
+               break;
+            case COMPACTION_THRESHOLD:
+               storeBuilder.compactionThreshold(Double.parseDouble(value));
+               break;
+            case SYNC_WRITES:
+               storeBuilder.syncWrites(Boolean.parseBoolean(value));
+               break;
+            default:
+               parseCommonStoreAttributes(reader, storeBuilder, attrName, value, i);
+               break;
+         }
+      }
+      parseStoreChildren(reader, storeBuilder);
+   }
+
    private void parseClusterLoader(XMLExtendedStreamReader reader, ConfigurationBuilderHolder holder) throws XMLStreamException {
       ConfigurationBuilder builder = holder.getCurrentConfigurationBuilder();
       ClusterLoaderConfigurationBuilder cclb = builder.persistence().addClusterLoader();
@@ -922,6 +958,12 @@ private void parseEviction(final XMLExtendedStreamReader reader, final Configura
             case THREAD_POLICY:
                builder.eviction().threadPolicy(EvictionThreadPolicy.valueOf(value));
                break;
+            case TYPE:
+               builder.eviction().type(EvictionType.valueOf(value));
+               break;
+            case MAX_MEMORY:
+               builder.eviction().maxMemory(Long.parseLong(value));
+               break;
             default:
                throw ParseUtils.unexpectedAttribute(reader, i);
          }
@@ -973,6 +1015,12 @@ private void parseDataContainer(final XMLExtendedStreamReader reader, final Conf
             case VALUE_EQUIVALENCE:
                builder.dataContainer().valueEquivalence(Util.<Equivalence>getInstance(value, holder.getClassLoader()));
                break;
+            case OFF_HEAP:
+               builder.dataContainer().offHeap(Boolean.parseBoolean(value));
+               break;
+            case SEGMENTED:
+               builder.dataContainer().segmented(Boolean.parseBoolean(value));
+               break;
             default:
                throw ParseUtils.unexpectedAttribute(reader, i);
          }
@@ -1152,6 +1200,12 @@ private void parseSync(final XMLExtendedStreamReader reader, final Configuration
             case REPL_TIMEOUT:
                builder.clustering().sync().replTimeout(Long.parseLong(value));
                break;
+            case WRITE_BATCH_SIZE:
+               builder.clustering().sync().writeBatchSize(Integer.parseInt(value));
+               break;
+            case WRITE_BATCH_WINDOW:
+               builder.clustering().sync().writeBatchWindow(Long.parseLong(value));
+               break;
 
             default:
                throw ParseUtils.unexpectedAttribute(reader, i);
@@ -1181,6 +1235,15 @@ private void parseStateTransfer(final XMLExtendedStreamReader reader, final Conf
             case CHUNK_SIZE:
                builder.clustering().stateTransfer().chunkSize(Integer.parseInt(value));
                break;
+            case INCREMENTAL_REJOIN:
+               builder.clustering().stateTransfer().incrementalRejoin(Boolean.parseBoolean(value));
+               break;
+            case MAX_OUTBOUND_BANDWIDTH:
+               builder.clustering().stateTransfer().maxOutboundBandwidth(Long.parseLong(value));
+               break;
+            case MAX_CONCURRENT_SEGMENTS:
+               builder.clustering().stateTransfer().maxConcurrentSegments(Integer.parseInt(value));
+               break;
             default:
                throw ParseUtils.unexpectedAttribute(reader, i);
          }
@@ -1251,6 +1314,9 @@ private void parseHash(final XMLExtendedStreamReader reader, final Configuration
             case CAPACITY_FACTOR:
                builder.clustering().hash().capacityFactor(Float.parseFloat(value));
                break;
+            case REMOTE_READ_POLICY:
+               builder.clustering().hash().remoteReadPolicy(RemoteReadPolicy.valueOf(value));
+               break;
             default:
                throw ParseUtils.unexpectedAttribute(reader, i);
          }
@@ -6,6 +6,7 @@
 import org.infinispan.commons.logging.LogFactory;
 import org.infinispan.metadata.Metadata;
 import org.infinispan.commons.equivalence.Equivalence;
+import org.infinispan.commons.marshall.StreamingMarshaller;
 import org.infinispan.commons.util.CollectionFactory;
 import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.eviction.ActivationManager;
@@ -13,6 +14,7 @@
 import org.infinispan.eviction.EvictionStrategy;
 import org.infinispan.eviction.EvictionThreadPolicy;
 import org.infinispan.eviction.PassivationManager;
+import org.infinispan.factories.annotations.ComponentName;
 import org.infinispan.factories.annotations.Inject;
 import org.infinispan.persistence.manager.PersistenceManager;
 import org.infinispan.util.CoreImmutables;
@@ -30,6 +32,8 @@
 import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
 
+import static org.infinispan.factories.KnownComponentNames.CACHE_MARSHALLER;
+
 /**
  * DefaultDataContainer is both eviction and non-eviction based data container.
  *
@@ -50,6 +54,7 @@ public class DefaultDataContainer implements DataContainer {
    final protected ConcurrentMap<Object, InternalCacheEntry> entries;
    protected InternalEntryFactory entryFactory;
    final protected DefaultEvictionListener evictionListener;
+   private final InternalEntrySizeCalculator sizeCalculator;
    private EvictionManager evictionManager;
    private PassivationManager passivator;
    private ActivationManager activator;
@@ -60,6 +65,7 @@ public DefaultDataContainer(int concurrencyLevel) {
       // If no comparing implementations passed, could fallback on JDK CHM
       entries = CollectionFactory.makeConcurrentMap(128, concurrencyLevel);
       evictionListener = null;
+      sizeCalculator = null;
    }
 
    public DefaultDataContainer(int concurrencyLevel,
@@ -67,38 +73,51 @@ public DefaultDataContainer(int concurrencyLevel,
       // If at least one comparing implementation give, use ComparingCHMv8
       entries = CollectionFactory.makeConcurrentMap(128, concurrencyLevel, keyEq, valueEq);
       evictionListener = null;
+      sizeCalculator = null;
    }
 
    protected DefaultDataContainer(int concurrencyLevel, int maxEntries,
          EvictionStrategy strategy, EvictionThreadPolicy policy,
          Equivalence keyEquivalence, Equivalence valueEquivalence) {
+      evictionListener = createEvictionListener(policy);
+      sizeCalculator = null;
+      entries = new BoundedConcurrentHashMap<Object, InternalCacheEntry>(
+            maxEntries, concurrencyLevel, toEviction(strategy), evictionListener,
+            keyEquivalence, valueEquivalence);
+   }
+
+   protected DefaultDataContainer(int concurrencyLevel, long maxMemory,
+         EvictionStrategy strategy, EvictionThreadPolicy policy,
+         Equivalence keyEquivalence, Equivalence valueEquivalence) {
+      evictionListener = createEvictionListener(policy);
+      sizeCalculator = new InternalEntrySizeCalculator();
+      entries = new BoundedConcurrentHashMap<Object, InternalCacheEntry>(
+            maxMemory, concurrencyLevel, toEviction(strategy), evictionListener,
+            sizeCalculator, keyEquivalence, valueEquivalence);
+   }
+
+   private DefaultEvictionListener createEvictionListener(EvictionThreadPolicy policy) {
       // translate eviction policy and strategy
       switch (policy) {
          case PIGGYBACK:
          case DEFAULT:
-            evictionListener = new DefaultEvictionListener();
-            break;
+            return new DefaultEvictionListener();
          default:
-            throw new IllegalArgumentException("No such eviction thread policy " + strategy);
+            throw new IllegalArgumentException("No such eviction thread policy " + policy);
       }
+   }
 
-      Eviction eviction;
+   private static Eviction toEviction(EvictionStrategy strategy) {
       switch (strategy) {
          case FIFO:
          case UNORDERED:
          case LRU:
-            eviction = Eviction.LRU;
-            break;
+            return Eviction.LRU;
          case LIRS:
-            eviction = Eviction.LIRS;
-            break;
+            return Eviction.LIRS;
          default:
             throw new IllegalArgumentException("No such eviction strategy " + strategy);
       }
-
-      entries = new BoundedConcurrentHashMap<Object, InternalCacheEntry>(
-            maxEntries, concurrencyLevel, eviction, evictionListener,
-            keyEquivalence, valueEquivalence);
    }
 
    @Inject
@@ -112,6 +131,13 @@ public void initialize(EvictionManager evictionManager, PassivationManager passi
       this.timeService = timeService;
    }
 
+   @Inject
+   public void injectMarshaller(@ComponentName(CACHE_MARSHALLER) StreamingMarshaller marshaller) {
+      if (sizeCalculator != null) {
+         sizeCalculator.setMarshaller(marshaller);
+      }
+   }
+
    public static DataContainer boundedDataContainer(int concurrencyLevel, int maxEntries,
             EvictionStrategy strategy, EvictionThreadPolicy policy,
             Equivalence keyEquivalence, Equivalence valueEquivalence) {
@@ -119,6 +145,16 @@ public static DataContainer boundedDataContainer(int concurrencyLevel, int maxEn
             policy, keyEquivalence, valueEquivalence);
    }
 
+   /**
+    * Creates a data container bounded by the estimated amount of memory, in bytes, held by its entries.
+    */
+   public static DataContainer memoryBoundedDataContainer(int concurrencyLevel, long maxMemory,
+            EvictionStrategy strategy, EvictionThreadPolicy policy,
+            Equivalence keyEquivalence, Equivalence valueEquivalence) {
+      return new DefaultDataContainer(concurrencyLevel, maxMemory, strategy,
+            policy, keyEquivalence, valueEquivalence);
+   }
+
    public static DataContainer unBoundedDataContainer(int concurrencyLevel,
          Equivalence keyEquivalence, Equivalence valueEquivalence) {
       return new DefaultDataContainer(concurrencyLevel, keyEquivalence, valueEquivalence);
@@ -195,6 +231,14 @@ public int size() {
       return entries.size();
    }
 
+   /**
+    * @return the estimated size, in bytes, of the entries of a container bounded by memory, or <tt>-1</tt> if
+    *         this container is not bounded by memory
+    */
+   public long getMemoryUsed() {
+      return sizeCalculator != null ? ((BoundedConcurrentHashMap<?, ?>) entries).memoryUsed() : -1;
+   }
+
    @Override
    public void clear() {
       entries.clear();
@@ -0,0 +1,67 @@
+package org.infinispan.container;
+
+import org.infinispan.commons.marshall.StreamingMarshaller;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.container.entries.metadata.MetadataAware;
+import org.infinispan.marshall.core.MarshalledValue;
+import org.infinispan.util.concurrent.BoundedConcurrentHashMap.EntrySizeCalculator;
+
+/**
+ * Estimates the heap footprint of the entries of a data container bounded by memory. Strings, byte arrays,
+ * boxed primitives and marshalled values (used when storing as binary) are sized from their contents; the
+ * size of any other object is estimated from its marshalled size as predicted by the cache marshaller.
+ *
+ * @since 7.0
+ */
+final class InternalEntrySizeCalculator implements EntrySizeCalculator<Object, InternalCacheEntry> {
+
+   // container hash entry, LRU linked entry and the internal cache entry itself
+   private static final int ENTRY_OVERHEAD = 112;
+   private static final int METADATA_OVERHEAD = 32;
+   private static final int OBJECT_OVERHEAD = 16;
+   private static final int ARRAY_OVERHEAD = 16;
+   // object header, backing array reference and hash
+   private static final int STRING_OVERHEAD = 24;
+   // object header, byte stream and hash code fields
+   private static final int MARSHALLED_VALUE_OVERHEAD = 56;
+   private static final int DEFAULT_OBJECT_SIZE = 64;
+
+   private volatile StreamingMarshaller marshaller;
+
+   void setMarshaller(StreamingMarshaller marshaller) {
+      this.marshaller = marshaller;
+   }
+
+   @Override
+   public long calculateSize(Object key, InternalCacheEntry entry) {
+      long size = ENTRY_OVERHEAD + sizeOf(key) + sizeOf(entry.getValue());
+      if (entry instanceof MetadataAware)
+         size += METADATA_OVERHEAD;
+      return size;
+   }
+
+   private long sizeOf(Object o) {
+      if (o == null)
+         return 0;
+      if (o instanceof byte[])
+         return align(ARRAY_OVERHEAD + ((byte[]) o).length);
+      if (o instanceof String)
+         return STRING_OVERHEAD + align(ARRAY_OVERHEAD + 2L * ((String) o).length());
+      if (o instanceof MarshalledValue) {
+         // the backing array may be larger than the marshalled bytes
+         byte[] raw = ((MarshalledValue) o).getRaw().getRaw();
+         return MARSHALLED_VALUE_OVERHEAD + align(ARRAY_OVERHEAD + raw.length);
+      }
+      if (o instanceof Long || o instanceof Double)
+         return OBJECT_OVERHEAD + 8;
+      if (o instanceof Number || o instanceof Boolean || o instanceof Character)
+         return OBJECT_OVERHEAD;
+      StreamingMarshaller m = marshaller;
+      return m != null ? OBJECT_OVERHEAD + m.getBufferSizePredictor(o).nextSize(o) : DEFAULT_OBJECT_SIZE;
+   }
+
+   private static long align(long size) {
+      return (size + 7) & ~7L;
+   }
+
+}
@@ -0,0 +1,531 @@
+package org.infinispan.container;
+
+import net.jcip.annotations.ThreadSafe;
+import org.infinispan.commons.equivalence.Equivalence;
+import org.infinispan.commons.logging.Log;
+import org.infinispan.commons.logging.LogFactory;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.distribution.ch.ConsistentHash;
+import org.infinispan.eviction.ActivationManager;
+import org.infinispan.eviction.EvictionManager;
+import org.infinispan.eviction.PassivationManager;
+import org.infinispan.factories.annotations.Inject;
+import org.infinispan.jmx.annotations.DataType;
+import org.infinispan.jmx.annotations.MBean;
+import org.infinispan.jmx.annotations.ManagedAttribute;
+import org.infinispan.jmx.annotations.ManagedOperation;
+import org.infinispan.jmx.annotations.Parameter;
+import org.infinispan.metadata.Metadata;
+import org.infinispan.persistence.manager.PersistenceManager;
+import org.infinispan.util.CoreImmutables;
+import org.infinispan.util.TimeService;
+
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A data container that keeps the entries of each segment in a separate {@link DefaultDataContainer}, so that the
+ * entries of a segment can be iterated or counted without visiting the entries of the other segments.
+ * <p/>
+ * The segment of a key is only known once the first cache topology has been installed with
+ * {@link #setConsistentHash(ConsistentHash)}. Until then, e.g. while preloading, entries are kept in a separate map,
+ * and they are moved to the map of their segment when the topology is installed. State transfer installs it while
+ * holding the exclusive topology lock, so entries are not moved while they are written. Reads are not blocked though:
+ * while the entries are moved, a key which is not found in its new map is looked up in the map it is moved from. An
+ * entry is added to its new map before it is removed from the old one, and only if no newer entry was written there.
+ * <p/>
+ * Eviction is not supported, since it would only be able to pick entries within a segment.
+ *
+ * @since 7.0
+ */
+@ThreadSafe
+@MBean(objectName = "SegmentedDataContainer", description = "Data container that stores the entries of each segment separately")
+public class SegmentedDataContainer implements DataContainer {
+
+   private static final Log log = LogFactory.getLog(SegmentedDataContainer.class);
+
+   private final int concurrencyLevel;
+   private final Equivalence keyEquivalence;
+   private final Equivalence valueEquivalence;
+   // entries written before the segments are known
+   private final DefaultDataContainer unassigned;
+   private volatile Partition partition;
+
+   private EvictionManager evictionManager;
+   private PassivationManager passivator;
+   private InternalEntryFactory entryFactory;
+   private ActivationManager activator;
+   private PersistenceManager pm;
+   private TimeService timeService;
+
+   public SegmentedDataContainer(int concurrencyLevel, Equivalence keyEquivalence, Equivalence valueEquivalence) {
+      this.concurrencyLevel = concurrencyLevel;
+      this.keyEquivalence = keyEquivalence;
+      this.valueEquivalence = valueEquivalence;
+      this.unassigned = new DefaultDataContainer(concurrencyLevel, keyEquivalence, valueEquivalence);
+   }
+
+   @Inject
+   public void initialize(EvictionManager evictionManager, PassivationManager passivator,
+         InternalEntryFactory entryFactory, ActivationManager activator, PersistenceManager clm, TimeService timeService) {
+      this.evictionManager = evictionManager;
+      this.passivator = passivator;
+      this.entryFactory = entryFactory;
+      this.activator = activator;
+      this.pm = clm;
+      this.timeService = timeService;
+      unassigned.initialize(evictionManager, passivator, entryFactory, activator, clm, timeService);
+      Partition p = partition;
+      if (p != null) {
+         for (DefaultDataContainer container : p.containers) {
+            container.initialize(evictionManager, passivator, entryFactory, activator, clm, timeService);
+         }
+      }
+   }
+
+   /**
+    * Sets the consistent hash used to find the segment of a key. Only its segment function is used, so it needn't be
+    * updated when the owners change, only when the number of segments changes. Entries stored before the segments
+    * were known, or stored with a different number of segments, are moved to the map of their segment.
+    */
+   public synchronized void setConsistentHash(ConsistentHash ch) {
+      Partition previous = partition;
+      if (previous != null && previous.containers.length == ch.getNumSegments()) {
+         partition = new Partition(ch, previous.containers);
+         return;
+      }
+
+      DefaultDataContainer[] containers = new DefaultDataContainer[ch.getNumSegments()];
+      for (int i = 0; i < containers.length; i++) {
+         containers[i] = new DefaultDataContainer(concurrencyLevel, keyEquivalence, valueEquivalence);
+         containers[i].initialize(evictionManager, passivator, entryFactory, activator, pm, timeService);
+      }
+      Partition next = new Partition(ch, containers, previous, true);
+      partition = next;
+
+      int moved = moveEntries(unassigned, next);
+      if (previous != null) {
+         for (DefaultDataContainer container : previous.containers) {
+            moved += moveEntries(container, next);
+         }
+      }
+      partition = new Partition(ch, containers);
+      log.debugf("Partitioned the data container in %d segments, moved %d entries", containers.length, moved);
+   }
+
+   private int moveEntries(DefaultDataContainer from, Partition to) {
+      int moved = 0;
+      for (Map.Entry<Object, InternalCacheEntry> entry : from.entries.entrySet()) {
+         Object key = entry.getKey();
+         InternalCacheEntry ice = entry.getValue();
+         DefaultDataContainer target = to.containerFor(key);
+         // an entry written since the partition was installed is newer than the one being moved
+         target.entries.putIfAbsent(key, ice);
+         if (!from.entries.remove(key, ice)) {
+            // removed in the meantime, don't bring it back
+            target.entries.remove(key, ice);
+         }
+         moved++;
+      }
+      return moved;
+   }
+
+   /**
+    * @return the number of segments, or <tt>-1</tt> if the segments are not known yet
+    */
+   @ManagedAttribute(
+         description = "Number of segments the entries are partitioned in, -1 if the segments are not known yet",
+         displayName = "Number of segments"
+   )
+   public int getNumSegments() {
+      Partition p = partition;
+      return p != null ? p.containers.length : -1;
+   }
+
+   /**
+    * @return the number of entries stored in the given segment
+    */
+   @ManagedOperation(
+         description = "Returns the number of entries stored in a segment",
+         displayName = "Segment size"
+   )
+   public int segmentSize(@Parameter(name = "segment", description = "Segment id") int segment) {
+      Partition p = partition;
+      if (p == null || segment < 0 || segment >= p.containers.length) {
+         return 0;
+      }
+      return p.containers[segment].size();
+   }
+
+   @ManagedAttribute(
+         description = "Number of entries stored in each segment that has entries",
+         displayName = "Segment sizes",
+         dataType = DataType.TRAIT
+   )
+   public String getSegmentSizes() {
+      Partition p = partition;
+      StringBuilder sb = new StringBuilder("{");
+      if (p != null) {
+         for (int i = 0; i < p.containers.length; i++) {
+            int size = p.containers[i].size();
+            if (size > 0) {
+               if (sb.length() > 1) sb.append(", ");
+               sb.append(i).append('=').append(size);
+            }
+         }
+      }
+      return sb.append('}').toString();
+   }
+
+   /**
+    * Iterates over the entries of the given segments only. Like {@link #iterator()}, the entries are not copied and
+    * expired entries are not skipped. Until the segments are known, it iterates over all the entries, so callers
+    * still need to check the segment of each entry.
+    */
+   public Iterator<InternalCacheEntry> iterator(Set<Integer> segments) {
+      Partition p = partition;
+      if (p == null) {
+         return unassigned.iterator();
+      }
+      List<Iterator<InternalCacheEntry>> iterators = new ArrayList<Iterator<InternalCacheEntry>>(segments.size());
+      for (Integer segment : segments) {
+         if (segment >= 0 && segment < p.containers.length) {
+            iterators.add(p.containers[segment].iterator());
+         }
+      }
+      return new ConcatIterator(iterators, false);
+   }
+
+   @Override
+   public InternalCacheEntry get(Object k) {
+      Partition p = partition;
+      if (p == null) {
+         return unassigned.get(k);
+      }
+      DefaultDataContainer container = p.containerFor(k);
+      InternalCacheEntry e = container.get(k);
+      if (e == null) {
+         DefaultDataContainer source = sourceFor(p, k);
+         if (source != null) {
+            e = source.get(k);
+            if (e == null) {
+               // moved in the meantime
+               e = container.get(k);
+            }
+         }
+      }
+      return e;
+   }
+
+   @Override
+   public InternalCacheEntry peek(Object k) {
+      Partition p = partition;
+      if (p == null) {
+         return unassigned.peek(k);
+      }
+      DefaultDataContainer container = p.containerFor(k);
+      InternalCacheEntry e = container.peek(k);
+      if (e == null) {
+         DefaultDataContainer source = sourceFor(p, k);
+         if (source != null) {
+            e = source.peek(k);
+            if (e == null) {
+               // moved in the meantime
+               e = container.peek(k);
+            }
+         }
+      }
+      return e;
+   }
+
+   @Override
+   public void put(Object k, Object v, Metadata metadata) {
+      containerFor(k).put(k, v, metadata);
+   }
+
+   @Override
+   public boolean containsKey(Object k) {
+      Partition p = partition;
+      if (p == null) {
+         return unassigned.containsKey(k);
+      }
+      DefaultDataContainer container = p.containerFor(k);
+      if (container.containsKey(k)) {
+         return true;
+      }
+      DefaultDataContainer source = sourceFor(p, k);
+      // if not found in the source, it may have been moved in the meantime
+      return source != null && (source.containsKey(k) || container.containsKey(k));
+   }
+
+   @Override
+   public InternalCacheEntry remove(Object k) {
+      Partition p = partition;
+      if (p == null) {
+         return unassigned.remove(k);
+      }
+      // remove the entry from the container it is moved from first, since it is added to its new container before
+      // being removed from the old one
+      InternalCacheEntry e = null;
+      if (p.previous != null) {
+         e = p.previous.containerFor(k).remove(k);
+      }
+      if (p.moving || !unassigned.entries.isEmpty()) {
+         InternalCacheEntry unassignedEntry = unassigned.remove(k);
+         if (e == null) e = unassignedEntry;
+      }
+      InternalCacheEntry current = p.containerFor(k).remove(k);
+      return current != null ? current : e;
+   }
+
+   /**
+    * @return the container other than its segment's one where the entry of a key may still be found, either because
+    * the entries are being moved or because it was written before the segments were known, or <tt>null</tt>
+    */
+   private DefaultDataContainer sourceFor(Partition p, Object k) {
+      if (p.previous != null) {
+         DefaultDataContainer container = p.previous.containerFor(k);
+         if (container.peek(k) != null) {
+            return container;
+         }
+      }
+      return p.moving || !unassigned.entries.isEmpty() ? unassigned : null;
+   }
+
+   @Override
+   public int size() {
+      int size = 0;
+      for (DefaultDataContainer container : containers()) {
+         size += container.size();
+      }
+      return size;
+   }
+
+   @Override
+   public void clear() {
+      for (DefaultDataContainer container : containers()) {
+         container.clear();
+      }
+   }
+
+   @Override
+   public Set<Object> keySet() {
+      return new KeySet();
+   }
+
+   @Override
+   public Collection<Object> values() {
+      return new Values();
+   }
+
+   @Override
+   public Set<InternalCacheEntry> entrySet() {
+      return new EntrySet();
+   }
+
+   @Override
+   public void purgeExpired() {
+      for (DefaultDataContainer container : containers()) {
+         container.purgeExpired();
+      }
+   }
+
+   @Override
+   public Iterator<InternalCacheEntry> iterator() {
+      return new ConcatIterator(entryIterators(), false);
+   }
+
+   private DefaultDataContainer containerFor(Object key) {
+      Partition p = partition;
+      return p != null ? p.containerFor(key) : unassigned;
+   }
+
+   private List<DefaultDataContainer> containers() {
+      Partition p = partition;
+      List<DefaultDataContainer> containers = new ArrayList<DefaultDataContainer>();
+      containers.add(unassigned);
+      if (p != null) {
+         if (p.previous != null) {
+            // the entries not moved yet
+            Collections.addAll(containers, p.previous.containers);
+         }
+         Collections.addAll(containers, p.containers);
+      }
+      return containers;
+   }
+
+   private List<Iterator<InternalCacheEntry>> entryIterators() {
+      List<DefaultDataContainer> containers = containers();
+      List<Iterator<InternalCacheEntry>> iterators = new ArrayList<Iterator<InternalCacheEntry>>(containers.size());
+      for (DefaultDataContainer container : containers) {
+         iterators.add(container.iterator());
+      }
+      return iterators;
+   }
+
+   private static final class Partition {
+      final ConsistentHash ch;
+      final DefaultDataContainer[] containers;
+      // while the entries are moved to this partition, the partition they are moved from, if any
+      final Partition previous;
+      // whether the entries are being moved to this partition
+      final boolean moving;
+
+      Partition(ConsistentHash ch, DefaultDataContainer[] containers) {
+         this(ch, containers, null, false);
+      }
+
+      Partition(ConsistentHash ch, DefaultDataContainer[] containers, Partition previous, boolean moving) {
+         this.ch = ch;
+         this.containers = containers;
+         this.previous = previous;
+         this.moving = moving;
+      }
+
+      DefaultDataContainer containerFor(Object key) {
+         return containers[ch.getSegment(key)];
+      }
+   }
+
+   /**
+    * Iterates over the entries of several containers, one after the other.
+    */
+   private static class ConcatIterator implements Iterator<InternalCacheEntry> {
+      private final Iterator<Iterator<InternalCacheEntry>> iterators;
+      private final boolean immutable;
+      private Iterator<InternalCacheEntry> current;
+
+      ConcatIterator(List<Iterator<InternalCacheEntry>> iterators, boolean immutable) {
+         this.iterators = iterators.iterator();
+         this.immutable = immutable;
+         this.current = this.iterators.hasNext() ? this.iterators.next() : null;
+      }
+
+      @Override
+      public boolean hasNext() {
+         while (current != null) {
+            if (current.hasNext()) {
+               return true;
+            }
+            current = iterators.hasNext() ? iterators.next() : null;
+         }
+         return false;
+      }
+
+      @Override
+      public InternalCacheEntry next() {
+         if (!hasNext()) {
+            throw new NoSuchElementException();
+         }
+         InternalCacheEntry e = current.next();
+         return immutable ? CoreImmutables.immutableInternalCacheEntry(e) : e;
+      }
+
+      @Override
+      public void remove() {
+         throw new UnsupportedOperationException();
+      }
+   }
+
+   /**
+    * Minimal implementation needed for unmodifiable Set
+    */
+   private class KeySet extends AbstractSet<Object> {
+      @Override
+      public Iterator<Object> iterator() {
+         final Iterator<InternalCacheEntry> it = SegmentedDataContainer.this.iterator();
+         return new Iterator<Object>() {
+            @Override
+            public boolean hasNext() {
+               return it.hasNext();
+            }
+
+            @Override
+            public Object next() {
+               return it.next().getKey();
+            }
+
+            @Override
+            public void remove() {
+               throw new UnsupportedOperationException();
+            }
+         };
+      }
+
+      @Override
+      public boolean contains(Object o) {
+         return peek(o) != null;
+      }
+
+      @Override
+      public int size() {
+         return SegmentedDataContainer.this.size();
+      }
+   }
+
+   /**
+    * Minimal implementation needed for unmodifiable Set
+    */
+   private class EntrySet extends AbstractSet<InternalCacheEntry> {
+      @Override
+      public boolean contains(Object o) {
+         if (!(o instanceof Map.Entry)) {
+            return false;
+         }
+
+         @SuppressWarnings("rawtypes")
+         Map.Entry e = (Map.Entry) o;
+         InternalCacheEntry ice = peek(e.getKey());
+         return ice != null && ice.getValue().equals(e.getValue());
+      }
+
+      @Override
+      public Iterator<InternalCacheEntry> iterator() {
+         return new ConcatIterator(entryIterators(), true);
+      }
+
+      @Override
+      public int size() {
+         return SegmentedDataContainer.this.size();
+      }
+   }
+
+   /**
+    * Minimal implementation needed for unmodifiable Collection
+    */
+   private class Values extends AbstractCollection<Object> {
+      @Override
+      public Iterator<Object> iterator() {
+         final Iterator<InternalCacheEntry> it = SegmentedDataContainer.this.iterator();
+         return new Iterator<Object>() {
+            @Override
+            public boolean hasNext() {
+               return it.hasNext();
+            }
+
+            @Override
+            public Object next() {
+               return it.next().getValue();
+            }
+
+            @Override
+            public void remove() {
+               throw new UnsupportedOperationException();
+            }
+         };
+      }
+
+      @Override
+      public int size() {
+         return SegmentedDataContainer.this.size();
+      }
+   }
+}
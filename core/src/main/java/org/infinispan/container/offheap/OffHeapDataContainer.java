@@ -0,0 +1,918 @@
+package org.infinispan.container.offheap;
+
+import net.jcip.annotations.ThreadSafe;
+import org.infinispan.commons.CacheException;
+import org.infinispan.commons.io.ByteBuffer;
+import org.infinispan.commons.logging.Log;
+import org.infinispan.commons.logging.LogFactory;
+import org.infinispan.commons.marshall.StreamingMarshaller;
+import org.infinispan.container.DataContainer;
+import org.infinispan.container.InternalEntryFactory;
+import org.infinispan.container.entries.ExpiryHelper;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.eviction.ActivationManager;
+import org.infinispan.eviction.EvictionManager;
+import org.infinispan.eviction.PassivationManager;
+import org.infinispan.factories.annotations.ComponentName;
+import org.infinispan.factories.annotations.Inject;
+import org.infinispan.factories.annotations.Start;
+import org.infinispan.factories.annotations.Stop;
+import org.infinispan.metadata.EmbeddedMetadata;
+import org.infinispan.metadata.Metadata;
+import org.infinispan.util.CoreImmutables;
+import org.infinispan.util.TimeService;
+
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static org.infinispan.factories.KnownComponentNames.CACHE_MARSHALLER;
+
+/**
+ * A {@link DataContainer} which keeps keys, values and metadata in marshalled form in memory allocated outside of
+ * the Java heap, so that the number of live heap objects does not grow with the number of cached entries.
+ * <p />
+ * Entries are stored in native memory blocks chained from an off-heap hash index. Each block starts with a fixed
+ * size header holding the bucket chain pointer, the eviction order pointers, the key hash, the lengths of the
+ * marshalled sections and the expiration timestamps, followed by the marshalled key, value and metadata. Because
+ * the expiration data is kept in the header, {@link #purgeExpired()} and eviction never need to unmarshall an
+ * entry; only the entries which are actually returned to the caller (or evicted, so that they can be passivated and
+ * notified) are materialized as transient {@link InternalCacheEntry} instances.
+ * <p />
+ * Keys are compared using their marshalled form, so keys which are {@link Object#equals(Object)} must marshall to the
+ * same byte sequence. Modifications made to entries returned by this container are not reflected in native memory;
+ * changes must go through {@link #put(Object, Object, org.infinispan.metadata.Metadata)}.
+ * <p />
+ * When bounded, eviction is performed per lock stripe using a second chance (clock) approximation of LRU: reads
+ * only flag an entry as referenced and the eviction pass gives referenced entries another round before choosing them.
+ * The maximum number of entries is split exactly between the stripes, so the container never holds more entries than
+ * configured. Since keys rarely spread evenly over few entries per stripe, a small container uses fewer stripes than
+ * requested, down to a single one which then evicts in exact clock order.
+ *
+ * @since 7.0
+ */
+@ThreadSafe
+public class OffHeapDataContainer implements DataContainer {
+
+   private static final Log log = LogFactory.getLog(OffHeapDataContainer.class);
+   private static final boolean trace = log.isTraceEnabled();
+
+   // Layout of an entry block
+   private static final int NEXT_OFFSET = 0;
+   private static final int STRIPE_PREV_OFFSET = 8;
+   private static final int STRIPE_NEXT_OFFSET = 16;
+   private static final int HASH_OFFSET = 24;
+   private static final int KEY_LENGTH_OFFSET = 28;
+   private static final int VALUE_LENGTH_OFFSET = 32;
+   private static final int METADATA_LENGTH_OFFSET = 36;
+   private static final int CREATED_OFFSET = 40;
+   private static final int LAST_USED_OFFSET = 48;
+   private static final int LIFESPAN_OFFSET = 56;
+   private static final int MAX_IDLE_OFFSET = 64;
+   private static final int REFERENCED_OFFSET = 72;
+   private static final int HEADER_SIZE = 80;
+
+   private static final int MINIMUM_CAPACITY = 1024;
+   private static final int MAXIMUM_CAPACITY = 1 << 30;
+   private static final float LOAD_FACTOR = 0.75f;
+   // A bounded container doesn't use more lock stripes than it can give this many entries each
+   private static final int MIN_ENTRIES_PER_STRIPE = 64;
+
+   private final ReentrantReadWriteLock[] locks;
+   private final int stripeMask;
+   // Per stripe list of entries in insertion order, used as the eviction clock; guarded by the stripe's write lock
+   private final long[] stripeHead;
+   private final long[] stripeTail;
+   private final int[] stripeCount;
+   // null if unbounded
+   private final int[] maxEntriesPerStripe;
+   private final int initialCapacity;
+
+   private final AtomicInteger size = new AtomicInteger();
+   private final AtomicLong allocatedBytes = new AtomicLong();
+
+   // Only replaced while holding every stripe's write lock
+   private volatile long table;
+   private volatile int capacity;
+   // Only changed while holding every stripe's write lock, checked under a stripe lock before touching native memory
+   private volatile boolean stopped;
+
+   private StreamingMarshaller marshaller;
+   private InternalEntryFactory entryFactory;
+   private EvictionManager evictionManager;
+   private PassivationManager passivator;
+   private ActivationManager activator;
+   private TimeService timeService;
+
+   /**
+    * @param concurrencyLevel number of lock stripes protecting the index
+    * @param maxEntries maximum number of entries the container holds before evicting, or a negative value for an
+    *                   unbounded container
+    */
+   public OffHeapDataContainer(int concurrencyLevel, int maxEntries) {
+      int stripes = 1;
+      while (stripes < concurrencyLevel)
+         stripes <<= 1;
+      if (maxEntries >= 0) {
+         while (stripes > 1 && maxEntries / stripes < MIN_ENTRIES_PER_STRIPE)
+            stripes >>= 1;
+      }
+      locks = new ReentrantReadWriteLock[stripes];
+      for (int i = 0; i < stripes; i++)
+         locks[i] = new ReentrantReadWriteLock();
+      stripeMask = stripes - 1;
+      stripeHead = new long[stripes];
+      stripeTail = new long[stripes];
+      stripeCount = new int[stripes];
+      if (maxEntries < 0) {
+         maxEntriesPerStripe = null;
+      } else {
+         // the first stripes take the remainder, so the bounds add up to maxEntries
+         maxEntriesPerStripe = new int[stripes];
+         for (int i = 0; i < stripes; i++)
+            maxEntriesPerStripe[i] = Math.max(1, maxEntries / stripes + (i < maxEntries % stripes ? 1 : 0));
+      }
+
+      int cap = Math.max(MINIMUM_CAPACITY, stripes);
+      if (maxEntries > 0) {
+         while (cap < MAXIMUM_CAPACITY && cap * LOAD_FACTOR < maxEntries)
+            cap <<= 1;
+      }
+      initialCapacity = cap;
+      allocateTable();
+   }
+
+   @Inject
+   public void initialize(@ComponentName(CACHE_MARSHALLER) StreamingMarshaller marshaller,
+         InternalEntryFactory entryFactory, EvictionManager evictionManager, PassivationManager passivator,
+         ActivationManager activator, TimeService timeService) {
+      this.marshaller = marshaller;
+      this.entryFactory = entryFactory;
+      this.evictionManager = evictionManager;
+      this.passivator = passivator;
+      this.activator = activator;
+      this.timeService = timeService;
+   }
+
+   @Start
+   public void start() {
+      lockAll();
+      try {
+         if (table == 0)
+            allocateTable();
+         stopped = false;
+      } finally {
+         unlockAll();
+      }
+   }
+
+   /**
+    * Releases all native memory. Runs after {@link #clear()} so that a stopped cache does not hold on to the index.
+    */
+   @Stop(priority = 1000)
+   public void stop() {
+      lockAll();
+      try {
+         stopped = true;
+         freeAll();
+         if (table != 0) {
+            UnsafeMemory.free(table);
+            table = 0;
+            capacity = 0;
+         }
+      } finally {
+         unlockAll();
+      }
+   }
+
+   private void allocateTable() {
+      table = UnsafeMemory.allocateZeroed((long) initialCapacity * 8);
+      capacity = initialCapacity;
+   }
+
+   /**
+    * @return the number of bytes of native memory currently used by entry blocks, excluding the hash index
+    */
+   public long getAllocatedBytes() {
+      return allocatedBytes.get();
+   }
+
+   @Override
+   public InternalCacheEntry get(Object k) {
+      KeyBytes key = new KeyBytes(marshall(k));
+      long now = timeService.wallClockTime();
+      EntrySnapshot snapshot;
+      boolean expired = false;
+      ReentrantReadWriteLock.ReadLock lock = lockFor(key.hash).readLock();
+      lock.lock();
+      try {
+         checkRunning();
+         long address = find(key);
+         if (address == 0)
+            return null;
+         if (isExpired(address, now)) {
+            expired = true;
+            snapshot = null;
+         } else {
+            if (UnsafeMemory.getLong(address + MAX_IDLE_OFFSET) > -1)
+               UnsafeMemory.putLongVolatile(address + LAST_USED_OFFSET, now);
+            UnsafeMemory.putByteVolatile(address + REFERENCED_OFFSET, (byte) 1);
+            snapshot = new EntrySnapshot(address);
+         }
+      } finally {
+         lock.unlock();
+      }
+      if (expired) {
+         removeExpired(key, now);
+         return null;
+      }
+      return snapshot.toEntry();
+   }
+
+   @Override
+   public InternalCacheEntry peek(Object k) {
+      KeyBytes key = new KeyBytes(marshall(k));
+      EntrySnapshot snapshot;
+      ReentrantReadWriteLock.ReadLock lock = lockFor(key.hash).readLock();
+      lock.lock();
+      try {
+         checkRunning();
+         long address = find(key);
+         if (address == 0)
+            return null;
+         snapshot = new EntrySnapshot(address);
+      } finally {
+         lock.unlock();
+      }
+      return snapshot.toEntry();
+   }
+
+   @Override
+   public void put(Object k, Object v, Metadata metadata) {
+      KeyBytes key = new KeyBytes(marshall(k));
+      ByteBuffer value = marshall(v);
+      // Plain metadata is fully described by the expiration settings kept in the header
+      ByteBuffer meta = isStoreMetadata(metadata) ? marshall(metadata) : null;
+      long lifespan = metadata == null ? -1 : metadata.lifespan();
+      long maxIdle = metadata == null ? -1 : metadata.maxIdle();
+      long now = timeService.wallClockTime();
+
+      int metadataLength = meta == null ? 0 : meta.getLength();
+      long blockSize = (long) HEADER_SIZE + key.length + value.getLength() + metadataLength;
+      long block = UnsafeMemory.allocate(blockSize);
+      UnsafeMemory.putLong(block + NEXT_OFFSET, 0);
+      UnsafeMemory.putLong(block + STRIPE_PREV_OFFSET, 0);
+      UnsafeMemory.putLong(block + STRIPE_NEXT_OFFSET, 0);
+      UnsafeMemory.putInt(block + HASH_OFFSET, key.hash);
+      UnsafeMemory.putInt(block + KEY_LENGTH_OFFSET, key.length);
+      UnsafeMemory.putInt(block + VALUE_LENGTH_OFFSET, value.getLength());
+      UnsafeMemory.putInt(block + METADATA_LENGTH_OFFSET, metadataLength);
+      UnsafeMemory.putLong(block + CREATED_OFFSET, now);
+      UnsafeMemory.putLong(block + LAST_USED_OFFSET, now);
+      UnsafeMemory.putLong(block + LIFESPAN_OFFSET, lifespan);
+      UnsafeMemory.putLong(block + MAX_IDLE_OFFSET, maxIdle);
+      UnsafeMemory.putLong(block + REFERENCED_OFFSET, 0);
+      long data = block + HEADER_SIZE;
+      UnsafeMemory.putBytes(data, key.buf, key.offset, key.length);
+      data += key.length;
+      UnsafeMemory.putBytes(data, value.getBuf(), value.getOffset(), value.getLength());
+      data += value.getLength();
+      if (meta != null)
+         UnsafeMemory.putBytes(data, meta.getBuf(), meta.getOffset(), metadataLength);
+      allocatedBytes.addAndGet(blockSize);
+
+      if (trace)
+         log.tracef("Store key %s in container at address %d (%d bytes)", k, block, blockSize);
+
+      int stripe = key.hash & stripeMask;
+      List<EntrySnapshot> evicted = null;
+      boolean added;
+      ReentrantReadWriteLock.WriteLock lock = locks[stripe].writeLock();
+      lock.lock();
+      try {
+         if (stopped) {
+            free(block);
+            checkRunning();
+         }
+         long bucket = bucketAddress(key.hash);
+         long previous = 0;
+         long current = UnsafeMemory.getLong(bucket);
+         while (current != 0 && !matches(current, key)) {
+            previous = current;
+            current = UnsafeMemory.getLong(current + NEXT_OFFSET);
+         }
+         if (current != 0) {
+            // Replace the existing block in place within both the bucket chain and the eviction order
+            UnsafeMemory.putLong(block + NEXT_OFFSET, UnsafeMemory.getLong(current + NEXT_OFFSET));
+            if (previous == 0)
+               UnsafeMemory.putLong(bucket, block);
+            else
+               UnsafeMemory.putLong(previous + NEXT_OFFSET, block);
+            unlinkFromStripe(stripe, current);
+            linkToStripe(stripe, block);
+            free(current);
+            added = false;
+         } else {
+            UnsafeMemory.putLong(block + NEXT_OFFSET, UnsafeMemory.getLong(bucket));
+            UnsafeMemory.putLong(bucket, block);
+            linkToStripe(stripe, block);
+            stripeCount[stripe]++;
+            size.incrementAndGet();
+            added = true;
+            if (maxEntriesPerStripe != null) {
+               // When entry not present, attempt to activate if necessary
+               activator.activate(k);
+               if (stripeCount[stripe] > maxEntriesPerStripe[stripe])
+                  evicted = evict(stripe);
+            }
+         }
+      } finally {
+         lock.unlock();
+      }
+
+      if (evicted != null)
+         notifyEvicted(evicted);
+      if (added && size.get() > capacity * LOAD_FACTOR)
+         resize();
+   }
+
+   @Override
+   public boolean containsKey(Object k) {
+      KeyBytes key = new KeyBytes(marshall(k));
+      long now = timeService.wallClockTime();
+      boolean expired;
+      ReentrantReadWriteLock.ReadLock lock = lockFor(key.hash).readLock();
+      lock.lock();
+      try {
+         checkRunning();
+         long address = find(key);
+         if (address == 0)
+            return false;
+         expired = isExpired(address, now);
+      } finally {
+         lock.unlock();
+      }
+      if (expired)
+         removeExpired(key, now);
+      return !expired;
+   }
+
+   @Override
+   public InternalCacheEntry remove(Object k) {
+      KeyBytes key = new KeyBytes(marshall(k));
+      EntrySnapshot snapshot = remove(key);
+      return snapshot == null || snapshot.isExpired(timeService.wallClockTime()) ? null : snapshot.toEntry();
+   }
+
+   @Override
+   public int size() {
+      return size.get();
+   }
+
+   @Override
+   public void clear() {
+      lockAll();
+      try {
+         freeAll();
+      } finally {
+         unlockAll();
+      }
+   }
+
+   @Override
+   public Set<Object> keySet() {
+      return new KeySet();
+   }
+
+   @Override
+   public Collection<Object> values() {
+      return new Values();
+   }
+
+   @Override
+   public Set<InternalCacheEntry> entrySet() {
+      return new EntrySet();
+   }
+
+   @Override
+   public void purgeExpired() {
+      long now = timeService.wallClockTime();
+      for (int stripe = 0; stripe < locks.length; stripe++) {
+         ReentrantReadWriteLock.WriteLock lock = locks[stripe].writeLock();
+         lock.lock();
+         try {
+            long current = stripeHead[stripe];
+            while (current != 0) {
+               long next = UnsafeMemory.getLong(current + STRIPE_NEXT_OFFSET);
+               if (isExpired(current, now)) {
+                  unlink(stripe, current);
+                  free(current);
+               }
+               current = next;
+            }
+         } finally {
+            lock.unlock();
+         }
+      }
+   }
+
+   @Override
+   public Iterator<InternalCacheEntry> iterator() {
+      return new EntryIterator();
+   }
+
+   private EntrySnapshot remove(KeyBytes key) {
+      int stripe = key.hash & stripeMask;
+      ReentrantReadWriteLock.WriteLock lock = locks[stripe].writeLock();
+      lock.lock();
+      try {
+         checkRunning();
+         long address = find(key);
+         if (address == 0)
+            return null;
+         EntrySnapshot snapshot = new EntrySnapshot(address);
+         unlink(stripe, address);
+         free(address);
+         return snapshot;
+      } finally {
+         lock.unlock();
+      }
+   }
+
+   private void removeExpired(KeyBytes key, long now) {
+      int stripe = key.hash & stripeMask;
+      ReentrantReadWriteLock.WriteLock lock = locks[stripe].writeLock();
+      lock.lock();
+      try {
+         // Re-check, the entry might have been updated since the read lock was released
+         long address = find(key);
+         if (address != 0 && isExpired(address, now)) {
+            unlink(stripe, address);
+            free(address);
+         }
+      } finally {
+         lock.unlock();
+      }
+   }
+
+   /**
+    * Evicts entries from the given stripe until it is back within its bound. Must be called holding the stripe's
+    * write lock.
+    */
+   private List<EntrySnapshot> evict(int stripe) {
+      List<EntrySnapshot> evicted = new ArrayList<EntrySnapshot>(1);
+      while (stripeCount[stripe] > maxEntriesPerStripe[stripe]) {
+         long candidate = stripeHead[stripe];
+         if (UnsafeMemory.getByteVolatile(candidate + REFERENCED_OFFSET) != 0 && candidate != stripeTail[stripe]) {
+            // Give recently read entries a second chance
+            UnsafeMemory.putByteVolatile(candidate + REFERENCED_OFFSET, (byte) 0);
+            unlinkFromStripe(stripe, candidate);
+            linkToStripe(stripe, candidate);
+            continue;
+         }
+         EntrySnapshot snapshot = new EntrySnapshot(candidate);
+         unlink(stripe, candidate);
+         free(candidate);
+         if (passivator.isEnabled()) {
+            // Passivate while holding the lock, required to guarantee passivation/activation correctness
+            InternalCacheEntry entry = snapshot.toEntry();
+            snapshot.entry = entry;
+            passivator.passivate(entry);
+         }
+         evicted.add(snapshot);
+      }
+      return evicted;
+   }
+
+   private void notifyEvicted(List<EntrySnapshot> evicted) {
+      Map<Object, InternalCacheEntry> evictedEntries;
+      if (evicted.size() == 1) {
+         InternalCacheEntry entry = evicted.get(0).toEntry();
+         evictedEntries = Collections.singletonMap(entry.getKey(), entry);
+      } else {
+         evictedEntries = new HashMap<Object, InternalCacheEntry>(evicted.size());
+         for (EntrySnapshot snapshot : evicted) {
+            InternalCacheEntry entry = snapshot.toEntry();
+            evictedEntries.put(entry.getKey(), entry);
+         }
+         evictedEntries = Collections.unmodifiableMap(evictedEntries);
+      }
+      evictionManager.onEntryEviction(evictedEntries);
+   }
+
+   /**
+    * Doubles the size of the hash index, rehashing every entry using the hash stored in its header.
+    */
+   private void resize() {
+      lockAll();
+      try {
+         int oldCapacity = capacity;
+         if (table == 0 || oldCapacity >= MAXIMUM_CAPACITY || size.get() <= oldCapacity * LOAD_FACTOR)
+            return;
+         int newCapacity = oldCapacity << 1;
+         long oldTable = table;
+         long newTable = UnsafeMemory.allocateZeroed((long) newCapacity * 8);
+         int newMask = newCapacity - 1;
+         for (int i = 0; i < oldCapacity; i++) {
+            long current = UnsafeMemory.getLong(oldTable + (long) i * 8);
+            while (current != 0) {
+               long next = UnsafeMemory.getLong(current + NEXT_OFFSET);
+               long bucket = newTable + (long) (UnsafeMemory.getInt(current + HASH_OFFSET) & newMask) * 8;
+               UnsafeMemory.putLong(current + NEXT_OFFSET, UnsafeMemory.getLong(bucket));
+               UnsafeMemory.putLong(bucket, current);
+               current = next;
+            }
+         }
+         table = newTable;
+         capacity = newCapacity;
+         UnsafeMemory.free(oldTable);
+         if (trace)
+            log.tracef("Resized off-heap index from %d to %d buckets", oldCapacity, newCapacity);
+      } finally {
+         unlockAll();
+      }
+   }
+
+   /**
+    * Frees every entry block. Must be called holding all the stripe write locks.
+    */
+   private void freeAll() {
+      for (int stripe = 0; stripe < locks.length; stripe++) {
+         long current = stripeHead[stripe];
+         while (current != 0) {
+            long next = UnsafeMemory.getLong(current + STRIPE_NEXT_OFFSET);
+            free(current);
+            current = next;
+         }
+         stripeHead[stripe] = 0;
+         stripeTail[stripe] = 0;
+         stripeCount[stripe] = 0;
+      }
+      if (table != 0)
+         UnsafeMemory.zero(table, (long) capacity * 8);
+      size.set(0);
+   }
+
+   /**
+    * Fails an operation started after {@link #stop()} instead of dereferencing the freed index. Must be called
+    * holding a stripe lock.
+    */
+   private void checkRunning() {
+      if (stopped)
+         throw new IllegalStateException("Off-heap data container is stopped and its native memory was released");
+   }
+
+   private long find(KeyBytes key) {
+      if (table == 0)
+         return 0;
+      long current = UnsafeMemory.getLong(bucketAddress(key.hash));
+      while (current != 0 && !matches(current, key))
+         current = UnsafeMemory.getLong(current + NEXT_OFFSET);
+      return current;
+   }
+
+   private boolean matches(long address, KeyBytes key) {
+      return UnsafeMemory.getInt(address + HASH_OFFSET) == key.hash
+            && UnsafeMemory.getInt(address + KEY_LENGTH_OFFSET) == key.length
+            && UnsafeMemory.equals(address + HEADER_SIZE, key.buf, key.offset, key.length);
+   }
+
+   private boolean isExpired(long address, long now) {
+      long lifespan = UnsafeMemory.getLong(address + LIFESPAN_OFFSET);
+      long maxIdle = UnsafeMemory.getLong(address + MAX_IDLE_OFFSET);
+      if (lifespan < 0 && maxIdle < 0)
+         return false;
+      return ExpiryHelper.isExpiredTransientMortal(maxIdle, UnsafeMemory.getLongVolatile(address + LAST_USED_OFFSET),
+            lifespan, UnsafeMemory.getLong(address + CREATED_OFFSET), now);
+   }
+
+   private static boolean isStoreMetadata(Metadata metadata) {
+      return metadata != null && (metadata.version() != null || !(metadata instanceof EmbeddedMetadata));
+   }
+
+   private long bucketAddress(int hash) {
+      return table + (long) (hash & (capacity - 1)) * 8;
+   }
+
+   /**
+    * Removes the block from its bucket chain and from the stripe's eviction order.
+    */
+   private void unlink(int stripe, long address) {
+      long bucket = bucketAddress(UnsafeMemory.getInt(address + HASH_OFFSET));
+      long previous = 0;
+      long current = UnsafeMemory.getLong(bucket);
+      while (current != 0 && current != address) {
+         previous = current;
+         current = UnsafeMemory.getLong(current + NEXT_OFFSET);
+      }
+      if (current != 0) {
+         long next = UnsafeMemory.getLong(address + NEXT_OFFSET);
+         if (previous == 0)
+            UnsafeMemory.putLong(bucket, next);
+         else
+            UnsafeMemory.putLong(previous + NEXT_OFFSET, next);
+      }
+      unlinkFromStripe(stripe, address);
+      stripeCount[stripe]--;
+      size.decrementAndGet();
+   }
+
+   private void linkToStripe(int stripe, long address) {
+      long tail = stripeTail[stripe];
+      UnsafeMemory.putLong(address + STRIPE_PREV_OFFSET, tail);
+      UnsafeMemory.putLong(address + STRIPE_NEXT_OFFSET, 0);
+      if (tail == 0)
+         stripeHead[stripe] = address;
+      else
+         UnsafeMemory.putLong(tail + STRIPE_NEXT_OFFSET, address);
+      stripeTail[stripe] = address;
+   }
+
+   private void unlinkFromStripe(int stripe, long address) {
+      long prev = UnsafeMemory.getLong(address + STRIPE_PREV_OFFSET);
+      long next = UnsafeMemory.getLong(address + STRIPE_NEXT_OFFSET);
+      if (prev == 0)
+         stripeHead[stripe] = next;
+      else
+         UnsafeMemory.putLong(prev + STRIPE_NEXT_OFFSET, next);
+      if (next == 0)
+         stripeTail[stripe] = prev;
+      else
+         UnsafeMemory.putLong(next + STRIPE_PREV_OFFSET, prev);
+   }
+
+   private void free(long address) {
+      long blockSize = (long) HEADER_SIZE + UnsafeMemory.getInt(address + KEY_LENGTH_OFFSET)
+            + UnsafeMemory.getInt(address + VALUE_LENGTH_OFFSET) + UnsafeMemory.getInt(address + METADATA_LENGTH_OFFSET);
+      UnsafeMemory.free(address);
+      allocatedBytes.addAndGet(-blockSize);
+   }
+
+   private ReentrantReadWriteLock lockFor(int hash) {
+      return locks[hash & stripeMask];
+   }
+
+   private void lockAll() {
+      for (ReentrantReadWriteLock lock : locks)
+         lock.writeLock().lock();
+   }
+
+   private void unlockAll() {
+      for (int i = locks.length - 1; i >= 0; i--)
+         locks[i].writeLock().unlock();
+   }
+
+   /**
+    * Copies the entries of a bucket of the index as it was when it had <tt>baseCapacity</tt> buckets. Since the
+    * index only grows by doubling, such a bucket maps onto a fixed set of buckets of the current index, all of them
+    * guarded by the same stripe.
+    */
+   private void collectBucket(int index, int baseCapacity, List<EntrySnapshot> target) {
+      ReentrantReadWriteLock.ReadLock lock = locks[index & stripeMask].readLock();
+      lock.lock();
+      try {
+         if (table == 0)
+            return;
+         int currentCapacity = capacity;
+         for (int i = index; i < currentCapacity; i += baseCapacity) {
+            long current = UnsafeMemory.getLong(table + (long) i * 8);
+            while (current != 0) {
+               target.add(new EntrySnapshot(current));
+               current = UnsafeMemory.getLong(current + NEXT_OFFSET);
+            }
+         }
+      } finally {
+         lock.unlock();
+      }
+   }
+
+   private ByteBuffer marshall(Object o) {
+      try {
+         return marshaller.objectToBuffer(o);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new CacheException(e);
+      } catch (Exception e) {
+         throw new CacheException("Unable to marshall object " + o + " for off-heap storage", e);
+      }
+   }
+
+   private Object unmarshall(byte[] buf, int offset, int length) {
+      try {
+         return marshaller.objectFromByteBuffer(buf, offset, length);
+      } catch (Exception e) {
+         throw new CacheException("Unable to unmarshall entry read from off-heap storage", e);
+      }
+   }
+
+   private static int hash(byte[] buf, int offset, int length) {
+      int h = 1;
+      for (int i = offset; i < offset + length; i++)
+         h = 31 * h + buf[i];
+      // Spread bits to regularize both stripe and bucket locations,
+      // using variant of single-word Wang/Jenkins hash.
+      h += h << 15 ^ 0xffffcd7d;
+      h ^= h >>> 10;
+      h += h << 3;
+      h ^= h >>> 6;
+      h += (h << 2) + (h << 14);
+      return h ^ h >>> 16;
+   }
+
+   /**
+    * Marshalled form of a key, along with its hash.
+    */
+   private static final class KeyBytes {
+      final byte[] buf;
+      final int offset;
+      final int length;
+      final int hash;
+
+      KeyBytes(ByteBuffer bytes) {
+         this.buf = bytes.getBuf();
+         this.offset = bytes.getOffset();
+         this.length = bytes.getLength();
+         this.hash = OffHeapDataContainer.hash(buf, offset, length);
+      }
+   }
+
+   /**
+    * On-heap copy of an entry block taken while holding the stripe lock, so that unmarshalling can happen outside
+    * of it.
+    */
+   private final class EntrySnapshot {
+      final byte[] data;
+      final int keyLength;
+      final int valueLength;
+      final int metadataLength;
+      final long created;
+      final long lastUsed;
+      final long lifespan;
+      final long maxIdle;
+      InternalCacheEntry entry;
+
+      EntrySnapshot(long address) {
+         keyLength = UnsafeMemory.getInt(address + KEY_LENGTH_OFFSET);
+         valueLength = UnsafeMemory.getInt(address + VALUE_LENGTH_OFFSET);
+         metadataLength = UnsafeMemory.getInt(address + METADATA_LENGTH_OFFSET);
+         created = UnsafeMemory.getLong(address + CREATED_OFFSET);
+         lastUsed = UnsafeMemory.getLongVolatile(address + LAST_USED_OFFSET);
+         lifespan = UnsafeMemory.getLong(address + LIFESPAN_OFFSET);
+         maxIdle = UnsafeMemory.getLong(address + MAX_IDLE_OFFSET);
+         data = new byte[keyLength + valueLength + metadataLength];
+         UnsafeMemory.getBytes(address + HEADER_SIZE, data, 0, data.length);
+      }
+
+      boolean isExpired(long now) {
+         return ExpiryHelper.isExpiredTransientMortal(maxIdle, lastUsed, lifespan, created, now);
+      }
+
+      Object key() {
+         return unmarshall(data, 0, keyLength);
+      }
+
+      InternalCacheEntry toEntry() {
+         if (entry == null) {
+            Object key = key();
+            Object value = unmarshall(data, keyLength, valueLength);
+            Metadata metadata = metadataLength == 0 ? null
+                  : (Metadata) unmarshall(data, keyLength + valueLength, metadataLength);
+            entry = entryFactory.create(key, value, metadata, created, lifespan, lastUsed, maxIdle);
+         }
+         return entry;
+      }
+   }
+
+   /**
+    * Iterates over the index one bucket at a time, so that only the entries of a single bucket are copied on heap
+    * at any point in time.
+    */
+   private abstract class SnapshotIterator<T> implements Iterator<T> {
+      private final int baseCapacity = capacity;
+      private final List<EntrySnapshot> batch = new ArrayList<EntrySnapshot>();
+      private int nextBucket;
+      private int position;
+
+      @Override
+      public boolean hasNext() {
+         while (position >= batch.size()) {
+            if (nextBucket >= baseCapacity)
+               return false;
+            batch.clear();
+            position = 0;
+            collectBucket(nextBucket++, baseCapacity, batch);
+         }
+         return true;
+      }
+
+      @Override
+      public T next() {
+         if (!hasNext())
+            throw new NoSuchElementException();
+         return convert(batch.get(position++));
+      }
+
+      @Override
+      public void remove() {
+         throw new UnsupportedOperationException();
+      }
+
+      abstract T convert(EntrySnapshot snapshot);
+   }
+
+   private class EntryIterator extends SnapshotIterator<InternalCacheEntry> {
+      @Override
+      InternalCacheEntry convert(EntrySnapshot snapshot) {
+         return snapshot.toEntry();
+      }
+   }
+
+   /**
+    * Minimal implementation needed for unmodifiable Set
+    */
+   private class KeySet extends AbstractSet<Object> {
+      @Override
+      public Iterator<Object> iterator() {
+         return new SnapshotIterator<Object>() {
+            @Override
+            Object convert(EntrySnapshot snapshot) {
+               return snapshot.key();
+            }
+         };
+      }
+
+      @Override
+      public boolean contains(Object o) {
+         return peek(o) != null;
+      }
+
+      @Override
+      public int size() {
+         return OffHeapDataContainer.this.size();
+      }
+   }
+
+   /**
+    * Minimal implementation needed for unmodifiable Set
+    */
+   private class EntrySet extends AbstractSet<InternalCacheEntry> {
+      @Override
+      public boolean contains(Object o) {
+         if (!(o instanceof Map.Entry)) {
+            return false;
+         }
+
+         @SuppressWarnings("rawtypes")
+         Map.Entry e = (Map.Entry) o;
+         InternalCacheEntry ice = peek(e.getKey());
+         return ice != null && ice.getValue().equals(e.getValue());
+      }
+
+      @Override
+      public Iterator<InternalCacheEntry> iterator() {
+         return new SnapshotIterator<InternalCacheEntry>() {
+            @Override
+            InternalCacheEntry convert(EntrySnapshot snapshot) {
+               return CoreImmutables.immutableInternalCacheEntry(snapshot.toEntry());
+            }
+         };
+      }
+
+      @Override
+      public int size() {
+         return OffHeapDataContainer.this.size();
+      }
+   }
+
+   /**
+    * Minimal implementation needed for unmodifiable Collection
+    */
+   private class Values extends AbstractCollection<Object> {
+      @Override
+      public Iterator<Object> iterator() {
+         return new SnapshotIterator<Object>() {
+            @Override
+            Object convert(EntrySnapshot snapshot) {
+               return snapshot.toEntry().getValue();
+            }
+         };
+      }
+
+      @Override
+      public int size() {
+         return OffHeapDataContainer.this.size();
+      }
+   }
+
+}
@@ -0,0 +1,123 @@
+package org.infinispan.container.offheap;
+
+import java.lang.reflect.Field;
+import java.security.AccessController;
+import java.security.PrivilegedExceptionAction;
+
+import sun.misc.Unsafe;
+
+/**
+ * Thin wrapper around {@link sun.misc.Unsafe} giving access to memory allocated outside of the Java heap. All
+ * addresses handled by this class are raw native addresses; callers are responsible for bounds checking and for
+ * releasing every allocated block through {@link #free(long)}.
+ *
+ * @since 7.0
+ */
+final class UnsafeMemory {
+
+   private static final Unsafe UNSAFE = getUnsafe();
+   private static final long BYTE_ARRAY_OFFSET = UNSAFE.arrayBaseOffset(byte[].class);
+
+   private UnsafeMemory() {
+   }
+
+   static long allocate(long size) {
+      return UNSAFE.allocateMemory(size);
+   }
+
+   static long allocateZeroed(long size) {
+      long address = UNSAFE.allocateMemory(size);
+      UNSAFE.setMemory(address, size, (byte) 0);
+      return address;
+   }
+
+   static void zero(long address, long size) {
+      UNSAFE.setMemory(address, size, (byte) 0);
+   }
+
+   static void free(long address) {
+      UNSAFE.freeMemory(address);
+   }
+
+   static long getLong(long address) {
+      return UNSAFE.getLong(address);
+   }
+
+   static long getLongVolatile(long address) {
+      return UNSAFE.getLongVolatile(null, address);
+   }
+
+   static void putLong(long address, long value) {
+      UNSAFE.putLong(address, value);
+   }
+
+   static void putLongVolatile(long address, long value) {
+      UNSAFE.putLongVolatile(null, address, value);
+   }
+
+   static int getInt(long address) {
+      return UNSAFE.getInt(address);
+   }
+
+   static void putInt(long address, int value) {
+      UNSAFE.putInt(address, value);
+   }
+
+   static byte getByteVolatile(long address) {
+      return UNSAFE.getByteVolatile(null, address);
+   }
+
+   static void putByteVolatile(long address, byte value) {
+      UNSAFE.putByteVolatile(null, address, value);
+   }
+
+   /**
+    * Copies <tt>length</tt> bytes from the given array region into native memory.
+    */
+   static void putBytes(long address, byte[] src, int offset, int length) {
+      UNSAFE.copyMemory(src, BYTE_ARRAY_OFFSET + offset, null, address, length);
+   }
+
+   /**
+    * Copies <tt>length</tt> bytes from native memory into the given array region.
+    */
+   static void getBytes(long address, byte[] dst, int offset, int length) {
+      UNSAFE.copyMemory(null, address, dst, BYTE_ARRAY_OFFSET + offset, length);
+   }
+
+   /**
+    * Compares a native memory region with an array region, eight bytes at a time where possible.
+    */
+   static boolean equals(long address, byte[] bytes, int offset, int length) {
+      int i = 0;
+      for (; i + 8 <= length; i += 8) {
+         if (UNSAFE.getLong(address + i) != UNSAFE.getLong(bytes, BYTE_ARRAY_OFFSET + offset + i))
+            return false;
+      }
+      for (; i < length; i++) {
+         if (UNSAFE.getByte(address + i) != bytes[offset + i])
+            return false;
+      }
+      return true;
+   }
+
+   private static Unsafe getUnsafe() {
+      try {
+         return Unsafe.getUnsafe();
+      } catch (SecurityException se) {
+         try {
+            return AccessController.doPrivileged(new PrivilegedExceptionAction<Unsafe>() {
+               @Override
+               public Unsafe run() throws Exception {
+                  Field f = Unsafe.class.getDeclaredField("theUnsafe");
+                  f.setAccessible(true);
+                  return (Unsafe) f.get(null);
+               }
+            });
+         } catch (Exception e) {
+            throw new RuntimeException("Could not initialize intrinsics", e.getCause());
+         }
+      }
+   }
+
+}
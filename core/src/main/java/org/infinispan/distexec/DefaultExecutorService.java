@@ -22,6 +22,7 @@
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletionService;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
@@ -44,6 +45,7 @@
 import org.infinispan.commands.read.DistributedExecuteCommand;
 import org.infinispan.distexec.spi.DistributedTaskLifecycleService;
 import org.infinispan.distribution.DistributionManager;
+import org.infinispan.distribution.ch.ConsistentHash;
 import org.infinispan.factories.ComponentRegistry;
 import org.infinispan.interceptors.InterceptorChain;
 import org.infinispan.interceptors.locking.ClusteringDependentLogic;
@@ -58,6 +60,8 @@
 import org.infinispan.remoting.rpc.RpcManager;
 import org.infinispan.remoting.transport.Address;
 import org.infinispan.remoting.transport.TopologyAwareAddress;
+import org.infinispan.statetransfer.StateTransferManager;
+import org.infinispan.topology.CacheTopology;
 import org.infinispan.util.TimeService;
 import org.infinispan.commons.util.concurrent.FutureListener;
 import org.infinispan.commons.util.concurrent.NotifyingFuture;
@@ -115,6 +119,11 @@ public boolean include(TopologyAwareAddress thisAddress, TopologyAwareAddress ot
    public static final DistributedTaskFailoverPolicy NO_FAILOVER = new NoTaskFailoverPolicy();
    public static final DistributedTaskFailoverPolicy RANDOM_NODE_FAILOVER = new RandomNodeTaskFailoverPolicy();
 
+   /**
+    * The number of units of a work stealing task a node executes at the same time
+    */
+   private static final int WORK_STEALING_UNITS_IN_FLIGHT = 2;
+
    private static final Log log = LogFactory.getLog(DefaultExecutorService.class);
    private static final boolean trace = log.isTraceEnabled();
    protected final AtomicBoolean isShutdown = new AtomicBoolean(false);
@@ -242,6 +251,12 @@ private Address getAddress() {
       return clusterDependentLogic.getAddress();
    }
 
+   private ConsistentHash readConsistentHash() {
+      StateTransferManager stateTransferManager = cache.getComponentRegistry().getStateTransferManager();
+      CacheTopology cacheTopology = stateTransferManager == null ? null : stateTransferManager.getCacheTopology();
+      return cacheTopology == null ? null : cacheTopology.getReadConsistentHash();
+   }
+
    private List<Runnable> realShutdown(boolean interrupt) {
       isShutdown.set(true);
       // TODO cancel all tasks
@@ -502,7 +517,10 @@ public <T, K> List<Future<T>> submitEverywhere(Callable<T> task, K... input) {
    @Override
    public <T, K> List<Future<T>> submitEverywhere(DistributedTask<T> task, K... input) {
       if (task == null) throw new NullPointerException();
-      if(inputKeysSpecified(input)) {
+      ConsistentHash ch = task.isWorkStealing() ? readConsistentHash() : null;
+      if (inputKeysSpecified(input) && ch != null) {
+         return new WorkStealingExecution<T>(task).submit(ch, input);
+      } else if(inputKeysSpecified(input)) {
          List<Future<T>> futures = new ArrayList<Future<T>>(input.length * 2);
          Address me = getAddress();
          Map<Address, List<K>> nodesKeysMap = keysToExecutionNodes(task.getTaskExecutionPolicy(), input);
@@ -712,7 +730,8 @@ interface NodeFilter {
       private long timeout;
       private DistributedTaskExecutionPolicy executionPolicy = DistributedTaskExecutionPolicy.ALL;
       private DistributedTaskFailoverPolicy failoverPolicy = NO_FAILOVER;
-
+      private boolean workStealing;
+      private DistributedTaskProgressListener progressListener;
 
       public DefaultDistributedTaskBuilder(long taskTimeout) {
          this.timeout = taskTimeout;
@@ -751,12 +770,26 @@ public DistributedTaskBuilder<T> failoverPolicy(DistributedTaskFailoverPolicy po
          return this;
       }
 
+      @Override
+      public DistributedTaskBuilder<T> workStealing(boolean workStealing) {
+         this.workStealing = workStealing;
+         return this;
+      }
+
+      @Override
+      public DistributedTaskBuilder<T> progressListener(DistributedTaskProgressListener listener) {
+         this.progressListener = listener;
+         return this;
+      }
+
       @Override
       public DistributedTask<T> build() {
          DefaultDistributedTaskBuilder<T> task = new DefaultDistributedTaskBuilder<T>(timeout);
          task.callable(callable);
          task.executionPolicy(executionPolicy);
          task.failoverPolicy(failoverPolicy);
+         task.workStealing(workStealing);
+         task.progressListener(progressListener);
          return task;
       }
 
@@ -775,6 +808,16 @@ public DistributedTaskFailoverPolicy getTaskFailoverPolicy() {
          return failoverPolicy;
       }
 
+      @Override
+      public boolean isWorkStealing() {
+         return workStealing;
+      }
+
+      @Override
+      public DistributedTaskProgressListener getProgressListener() {
+         return progressListener;
+      }
+
       @Override
       public Callable<T> getCallable() {
          return callable;
@@ -1133,6 +1176,303 @@ private DefaultExecutorService getOuterType() {
       }
    }
 
+   /**
+    * WorkStealingExecution schedules the units of a task submitted with work stealing. Every unit holds
+    * the input keys of one segment and is queued at the first owner of the segment allowed by the
+    * execution policy. A node executes up to {@link #WORK_STEALING_UNITS_IN_FLIGHT} units at a time and,
+    * when one of them completes, it takes the next unit from its own queue or, once that is empty, steals
+    * the last queued unit it owns from the node with the longest queue. Units queued at a node that left
+    * the cluster can be stolen by any node.
+    */
+   private class WorkStealingExecution<T> {
+
+      private final DistributedTask<T> task;
+      // guarded by this
+      private final Map<Address, NodeUnits> nodes = new HashMap<Address, NodeUnits>();
+      private int remainingUnits;
+
+      public WorkStealingExecution(DistributedTask<T> task) {
+         this.task = task;
+      }
+
+      public <K> List<Future<T>> submit(ConsistentHash ch, K... input) {
+         Map<Integer, List<Object>> keysBySegment = new HashMap<Integer, List<Object>>();
+         for (K key : input) {
+            int segment = ch.getSegment(key);
+            List<Object> keys = keysBySegment.get(segment);
+            if (keys == null) {
+               keys = new ArrayList<Object>();
+               keysBySegment.put(segment, keys);
+            }
+            keys.add(key);
+         }
+
+         List<Future<T>> futures = new ArrayList<Future<T>>(keysBySegment.size());
+         synchronized (this) {
+            for (Address node : executionCandidates(task)) {
+               nodeUnits(node);
+            }
+            for (Entry<Integer, List<Object>> e : keysBySegment.entrySet()) {
+               List<Address> owners = ch.locateOwnersForSegment(e.getKey());
+               List<Address> filtered = filterMembers(task.getTaskExecutionPolicy(), owners);
+               if (!filtered.isEmpty()) {
+                  owners = filtered;
+               }
+               TaskUnit unit = new TaskUnit(e.getKey(), e.getValue(), owners);
+               nodeUnits(owners.get(0)).queue.add(unit);
+               futures.add(unit);
+            }
+            remainingUnits = futures.size();
+         }
+         if (trace) log.tracef("Split task %s into %s units", task, futures.size());
+         for (Address node : nodeAddresses()) {
+            runUnits(node);
+         }
+         return futures;
+      }
+
+      private NodeUnits nodeUnits(Address node) {
+         NodeUnits units = nodes.get(node);
+         if (units == null) {
+            units = new NodeUnits();
+            nodes.put(node, units);
+         }
+         return units;
+      }
+
+      private synchronized List<Address> nodeAddresses() {
+         return new ArrayList<Address>(nodes.keySet());
+      }
+
+      private void runUnits(Address node) {
+         while (true) {
+            TaskUnit unit;
+            synchronized (this) {
+               NodeUnits units = nodeUnits(node);
+               if (units.running >= WORK_STEALING_UNITS_IN_FLIGHT || !getMembers().contains(node)) {
+                  return;
+               }
+               unit = units.queue.poll();
+               if (unit == null) {
+                  unit = steal(node);
+                  if (unit == null) {
+                     return;
+                  }
+                  unit.stolen = true;
+               }
+               units.running++;
+               unit.assign(node);
+            }
+            unit.execute();
+         }
+      }
+
+      private TaskUnit steal(Address thief) {
+         List<Address> members = getMembers();
+         LinkedList<TaskUnit> victimQueue = null;
+         TaskUnit loot = null;
+         for (Entry<Address, NodeUnits> e : nodes.entrySet()) {
+            LinkedList<TaskUnit> queue = e.getValue().queue;
+            if (e.getKey().equals(thief) || (victimQueue != null && queue.size() <= victimQueue.size())) {
+               continue;
+            }
+            boolean victimLeft = !members.contains(e.getKey());
+            // the units at the tail of the queue are the ones the victim would execute last
+            for (Iterator<TaskUnit> it = queue.descendingIterator(); it.hasNext(); ) {
+               TaskUnit unit = it.next();
+               if (victimLeft || unit.owners.contains(thief)) {
+                  victimQueue = queue;
+                  loot = unit;
+                  break;
+               }
+            }
+         }
+         if (loot != null) {
+            if (trace) log.tracef("%s steals unit of segment %s of task %s", thief, loot.segment, task);
+            victimQueue.remove(loot);
+         }
+         return loot;
+      }
+
+      private synchronized boolean cancelQueued(TaskUnit unit) {
+         for (NodeUnits units : nodes.values()) {
+            if (units.queue.remove(unit)) {
+               unit.cancelled = true;
+               remainingUnits--;
+               return true;
+            }
+         }
+         return false;
+      }
+
+      private void unitCompleted(Address node, TaskUnit unit) {
+         int completed;
+         int stolen;
+         int remaining;
+         synchronized (this) {
+            NodeUnits units = nodeUnits(node);
+            units.running--;
+            units.completed++;
+            if (unit.stolen) {
+               units.stolen++;
+            }
+            completed = units.completed;
+            stolen = units.stolen;
+            remaining = --remainingUnits;
+         }
+         if (trace) log.tracef("Unit of segment %s of task %s completed at %s, %s units remaining", unit.segment,
+                               task, node, remaining);
+
+         DistributedTaskProgressListener listener = task.getProgressListener();
+         if (listener != null) {
+            try {
+               listener.unitCompleted(node, completed, stolen, remaining);
+            } catch (Throwable t) {
+               log.distributedTaskProgressListenerFailed(task, t);
+            }
+         }
+
+         if (getMembers().contains(node)) {
+            runUnits(node);
+         } else {
+            // the units still queued at the node that left can be stolen by any node
+            for (Address other : nodeAddresses()) {
+               runUnits(other);
+            }
+         }
+      }
+
+      private class NodeUnits {
+         final LinkedList<TaskUnit> queue = new LinkedList<TaskUnit>();
+         int running;
+         int completed;
+         int stolen;
+      }
+
+      /**
+       * TaskUnit is the future of a unit of a work stealing task, until the unit is assigned to a node
+       * and executed as a {@link DistributedTaskPart}
+       */
+      private class TaskUnit implements NotifyingFuture<T> {
+
+         private final int segment;
+         private final List<Object> keys;
+         private final List<Address> owners;
+         private final CountDownLatch started = new CountDownLatch(1);
+         // only modified while the unit is queued, guarded by the execution
+         private final List<FutureListener<T>> listeners = new ArrayList<FutureListener<T>>();
+         private boolean stolen;
+         private volatile DistributedTaskPart<T> part;
+         private volatile boolean cancelled;
+
+         public TaskUnit(int segment, List<Object> keys, List<Address> owners) {
+            this.segment = segment;
+            this.keys = keys;
+            this.owners = owners;
+         }
+
+         void assign(Address node) {
+            Address me = getAddress();
+            DistributedExecuteCommand<T> c = null;
+            if (node.equals(me)) {
+               c = factory.buildDistributedExecuteCommand(DefaultExecutorService.this.clone(task.getCallable()), me, keys);
+            } else {
+               c = factory.buildDistributedExecuteCommand(task.getCallable(), me, keys);
+            }
+            part = createDistributedTaskPart(task, c, keys, node, 0);
+         }
+
+         void execute() {
+            final Address node = part.getExecutionTarget();
+            part.attachListener(new FutureListener<T>() {
+               @Override
+               public void futureDone(Future<T> future) {
+                  unitCompleted(node, TaskUnit.this);
+               }
+            });
+            for (FutureListener<T> listener : listeners) {
+               part.attachListener(new UnitListener(listener));
+            }
+            part.execute();
+            started.countDown();
+         }
+
+         @Override
+         public boolean cancel(boolean mayInterruptIfRunning) {
+            if (!cancelQueued(this)) {
+               DistributedTaskPart<T> p = part;
+               return p != null && p.cancel(mayInterruptIfRunning);
+            }
+            started.countDown();
+            for (FutureListener<T> listener : listeners) {
+               listener.futureDone(this);
+            }
+            return true;
+         }
+
+         @Override
+         public boolean isCancelled() {
+            DistributedTaskPart<T> p = part;
+            return cancelled || (p != null && p.isCancelled());
+         }
+
+         @Override
+         public boolean isDone() {
+            DistributedTaskPart<T> p = part;
+            return cancelled || (p != null && p.isDone());
+         }
+
+         @Override
+         public T get() throws InterruptedException, ExecutionException {
+            started.await();
+            if (cancelled)
+               throw new CancellationException("Task already cancelled");
+            return part.get();
+         }
+
+         @Override
+         public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException,
+                                                          TimeoutException {
+            long endNanos = timeService.expectedEndTime(timeout, unit);
+            if (!started.await(timeout, unit))
+               throw new TimeoutException();
+            if (cancelled)
+               throw new CancellationException("Task already cancelled");
+            long remainingNanos = timeService.remainingTime(endNanos, TimeUnit.NANOSECONDS);
+            return part.get(Math.max(remainingNanos, 1), TimeUnit.NANOSECONDS);
+         }
+
+         @Override
+         public NotifyingFuture<T> attachListener(FutureListener<T> listener) {
+            synchronized (WorkStealingExecution.this) {
+               if (part == null && !cancelled) {
+                  listeners.add(listener);
+                  return this;
+               }
+            }
+            if (part == null) {
+               listener.futureDone(this);
+            } else {
+               part.attachListener(new UnitListener(listener));
+            }
+            return this;
+         }
+
+         private class UnitListener implements FutureListener<T> {
+            private final FutureListener<T> listener;
+
+            UnitListener(FutureListener<T> listener) {
+               this.listener = listener;
+            }
+
+            @Override
+            public void futureDone(Future<T> future) {
+               listener.futureDone(TaskUnit.this);
+            }
+         }
+      }
+   }
+
    private static final class RunnableAdapter<T> implements Callable<T>, Serializable {
 
       /** The serialVersionUID */
@@ -133,10 +133,16 @@ public interface DistributedExecutorService extends ExecutorService {
     * Execution environment will chose all nodes in Infinispan cluster where input keys are local,
     * migrate given Callable instance to those nodes, execute it and return result as a list of
     * Futures
+    * <p>
+    *
+    * If the task has {@link DistributedTaskBuilder#workStealing(boolean) work stealing} enabled, the
+    * input keys are split into one unit per segment instead, and the returned list holds one future
+    * per unit.
     *
     * @param task a task to execute across Infinispan cluster
     * @param input input keys for this task, effective if and only if task is instance of {@link DistributedCallable}
-    * @return a list of Futures, one future per Infinispan cluster node where task was executed
+    * @return a list of Futures, one future per Infinispan cluster node where task was executed, or one
+    *         future per unit of a work stealing task
     */
    <T, K > List<Future<T>> submitEverywhere(DistributedTask<T> task, K... input);
 
@@ -33,6 +33,21 @@
     */
    DistributedTaskFailoverPolicy getTaskFailoverPolicy();
 
+   /**
+    * Returns whether key based executions of this task are split into units per segment, which idle
+    * owners can steal from slower ones
+    *
+    * @return true if work stealing is enabled for this task
+    */
+   boolean isWorkStealing();
+
+   /**
+    * Returns the {@link DistributedTaskProgressListener} of this task
+    *
+    * @return task DistributedTaskProgressListener, or null
+    */
+   DistributedTaskProgressListener getProgressListener();
+
    /**
     * Returns {@link Callable} for this task
     * 
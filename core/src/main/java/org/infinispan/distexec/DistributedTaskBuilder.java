@@ -50,6 +50,33 @@
     */
    DistributedTaskBuilder<T> failoverPolicy(DistributedTaskFailoverPolicy policy);
 
+   /**
+    * Enables work stealing for key based executions of the task being built. The input keys are split
+    * into units of work, one for each segment, and the units are queued at the primary owners of their
+    * segments. Every node executes its units a few at a time, and a node that runs out of units steals
+    * the last queued units of the node with the most units left among the other owners of their
+    * segments, so a slow node does not hold up the whole execution.
+    * <p>
+    * {@link DistributedExecutorService#submitEverywhere(DistributedTask, Object...)} then returns one
+    * future per unit instead of one future per node. Failed units are failed over according to the
+    * {@link DistributedTaskFailoverPolicy} of the task.
+    *
+    * @param workStealing
+    *           whether to split key based executions of the task into units per segment
+    * @return this DistributedTaskBuilder
+    */
+   DistributedTaskBuilder<T> workStealing(boolean workStealing);
+
+   /**
+    * Provide {@link DistributedTaskProgressListener} notified as the units of a task executed with
+    * {@link #workStealing(boolean) work stealing} complete
+    *
+    * @param listener
+    *           DistributedTaskProgressListener for the task, or null
+    * @return this DistributedTaskBuilder
+    */
+   DistributedTaskBuilder<T> progressListener(DistributedTaskProgressListener listener);
+
    /**
     * Completes creation of DistributedTask with the currently provided attributes of this
     * DistributedTaskBuilder
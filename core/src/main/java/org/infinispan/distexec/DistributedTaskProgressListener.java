@@ -0,0 +1,29 @@
+package org.infinispan.distexec;
+
+import org.infinispan.remoting.transport.Address;
+
+/**
+ * DistributedTaskProgressListener receives the per node progress of a {@link DistributedTask} executed
+ * with work stealing, every time one of the units the input keys were split into completes.
+ *
+ * @see DistributedTaskBuilder#workStealing(boolean)
+ * @since 7.0
+ */
+public interface DistributedTaskProgressListener {
+
+   /**
+    * Invoked on the node that submitted the task when a unit of the task completes, successfully or
+    * not. Implementations should return quickly, as the next unit of <code>node</code> is only
+    * scheduled after this method returns.
+    *
+    * @param node
+    *           the node that executed the unit
+    * @param completedUnits
+    *           the units completed by <code>node</code> so far, including the ones it stole
+    * @param stolenUnits
+    *           the units <code>node</code> stole from other nodes so far
+    * @param remainingUnits
+    *           the units of the task that have not completed yet, on all nodes
+    */
+   void unitCompleted(Address node, int completedUnits, int stolenUnits, int remainingUnits);
+}
@@ -9,6 +9,7 @@
 
 import org.infinispan.commands.read.MapCombineCommand;
 import org.infinispan.commands.read.ReduceCommand;
+import org.infinispan.commands.read.ShuffleCommand;
 import org.infinispan.distribution.DistributionManager;
 import org.infinispan.remoting.transport.Address;
 
@@ -58,6 +59,21 @@ <KIn, VIn, KOut, VOut> Map<KOut, List<VOut>> mapAndCombineForLocalReduction(
     * @return map of reduced output keys and values returned to MapReduceTask
     */
    <KOut, VOut> Map<KOut, VOut> reduce(ReduceCommand<KOut, VOut> reducer) throws InterruptedException;
+
+   /**
+    * Invoked when ShuffleCommand arrives to a target Infinispan node. Implementations should keep the
+    * shuffled values until the ReduceCommand of the same task arrives.
+    *
+    * @param shuffleCommand ShuffleCommand sent from the nodes executing the map phase
+    */
+   <KOut, VOut> void shuffle(ShuffleCommand<KOut, VOut> shuffleCommand);
+
+   /**
+    * Discards the values shuffled to this node for a map/reduce task that will not reduce them
+    *
+    * @param taskId id of the map/reduce task
+    */
+   void discardShuffledValues(String taskId);
    
    /**
     * Maps Map/Reduce task intermediate or input keys to nodes on Infinispan cluster
@@ -3,16 +3,23 @@
 import org.infinispan.Cache;
 import org.infinispan.atomic.Delta;
 import org.infinispan.atomic.DeltaAware;
+import org.infinispan.commands.CommandsFactory;
 import org.infinispan.commands.read.MapCombineCommand;
 import org.infinispan.commands.read.ReduceCommand;
+import org.infinispan.commands.read.ShuffleCommand;
 import org.infinispan.commons.CacheException;
+import org.infinispan.commons.marshall.StreamingMarshaller;
+import org.infinispan.commons.util.concurrent.NotifyingFuture;
 import org.infinispan.commons.util.CollectionFactory;
+import org.infinispan.commons.util.Util;
 import org.infinispan.configuration.cache.Configuration;
 import org.infinispan.context.Flag;
 import org.infinispan.distexec.mapreduce.spi.MapReduceTaskLifecycleService;
 import org.infinispan.distribution.DistributionManager;
+import org.infinispan.distribution.ch.ConsistentHash;
 import org.infinispan.factories.annotations.ComponentName;
 import org.infinispan.factories.annotations.Inject;
+import org.infinispan.factories.annotations.Stop;
 import org.infinispan.interceptors.locking.ClusteringDependentLogic;
 import org.infinispan.persistence.CollectionKeyFilter;
 import org.infinispan.persistence.CompositeFilter;
@@ -20,6 +27,8 @@
 import org.infinispan.persistence.PrimaryOwnerFilter;
 import org.infinispan.persistence.spi.AdvancedCacheLoader;
 import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.remoting.responses.Response;
+import org.infinispan.remoting.rpc.RpcManager;
 import org.infinispan.remoting.transport.Address;
 import org.infinispan.util.TimeService;
 import org.infinispan.util.logging.Log;
@@ -29,19 +38,30 @@
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.infinispan.distexec.mapreduce.MapReduceTask.DEFAULT_TMP_CACHE_CONFIGURATION_NAME;
 import static org.infinispan.factories.KnownComponentNames.ASYNC_TRANSPORT_EXECUTOR;
+import static org.infinispan.factories.KnownComponentNames.CACHE_MARSHALLER;
 
 /**
  * Default implementation of {@link MapReduceManager}.
@@ -61,7 +81,15 @@ public class MapReduceManagerImpl implements MapReduceManager {
    private PersistenceManager persistenceManager;
    private ExecutorService executorService;
    private TimeService timeService;
+   private RpcManager rpcManager;
+   private CommandsFactory commandsFactory;
+   private StreamingMarshaller marshaller;
    private int chunkSize;
+   private long discardedTaskRetention;
+   // the values shuffled to this node by the tasks using the in-memory shuffle, by task id
+   private final ConcurrentMap<String, ShuffleBuffer<?, ?>> shuffleBuffers = CollectionFactory.makeConcurrentMap();
+   // the tasks whose shuffled values were reduced or discarded, with the time until which they are remembered
+   private final ConcurrentMap<String, Long> discardedTasks = CollectionFactory.makeConcurrentMap();
 
    MapReduceManagerImpl() {
    }
@@ -69,13 +97,27 @@ public class MapReduceManagerImpl implements MapReduceManager {
    @Inject
    public void init(EmbeddedCacheManager cacheManager, PersistenceManager persistenceManager,
             @ComponentName(ASYNC_TRANSPORT_EXECUTOR) ExecutorService asyncTransportExecutor,
-            ClusteringDependentLogic cdl, TimeService timeService, Configuration configuration) {
+            ClusteringDependentLogic cdl, TimeService timeService, Configuration configuration,
+            RpcManager rpcManager, CommandsFactory commandsFactory,
+            @ComponentName(CACHE_MARSHALLER) StreamingMarshaller marshaller) {
       this.cacheManager = cacheManager;
       this.persistenceManager = persistenceManager;
       this.cdl = cdl;
       this.executorService = asyncTransportExecutor;
       this.timeService = timeService;
       this.chunkSize = configuration.clustering().stateTransfer().chunkSize();
+      // a shuffle still in flight when its task ends arrives within a replication timeout of the end
+      this.discardedTaskRetention = 2 * configuration.clustering().sync().replTimeout();
+      this.rpcManager = rpcManager;
+      this.commandsFactory = commandsFactory;
+      this.marshaller = marshaller;
+   }
+
+   @Stop
+   public void stop() {
+      for (String taskId : shuffleBuffers.keySet()) {
+         discardShuffledValues(taskId);
+      }
    }
 
    @Override
@@ -104,6 +146,9 @@ public <KIn, VIn, KOut, VOut> Set<KOut> mapAndCombineForDistributedReduction(
    @Override
    public <KOut, VOut> Map<KOut, VOut> reduce(ReduceCommand<KOut, VOut> reduceCommand)
             throws InterruptedException {
+      if (reduceCommand.isInMemoryShuffle()) {
+         return reduceShuffled(reduceCommand);
+      }
       Cache<?, ?> cache = cacheManager.getCache(reduceCommand.getCacheName());
       Set<KOut> keys = reduceCommand.getKeys();
       String taskId = reduceCommand.getTaskId();
@@ -112,6 +157,7 @@ public <KOut, VOut> Map<KOut, VOut> reduce(ReduceCommand<KOut, VOut> reduceComma
       boolean noInputKeys = keys == null || keys.isEmpty();
       Cache<Object, List<VOut>> tmpCache = cacheManager.getCache(reduceCommand.getCacheName());
       Map<KOut,VOut> result = new HashMap<KOut, VOut>();
+      ResultsCacheCollector<KOut, VOut> resultsCollector = createResultsCollector(reduceCommand);
       if (noInputKeys) {
          //illegal state, raise exception
          throw new IllegalStateException("Reduce phase of MapReduceTask " + taskId + " on node "
@@ -137,9 +183,16 @@ public <KOut, VOut> Map<KOut, VOut> reduce(ReduceCommand<KOut, VOut> reduceComma
                }
                // and reduce it
                VOut reduced = reducer.reduce(key, value.iterator());
-               result.put(key, reduced);
+               if (resultsCollector != null) {
+                  resultsCollector.emit(key, reduced);
+               } else {
+                  result.put(key, reduced);
+               }
                log.tracef("For m/r task %s reduced %s to %s at %s ", taskId, key, reduced, cdl.getAddress());
             }
+            if (resultsCollector != null) {
+               resultsCollector.flush();
+            }
          } finally {
             if (log.isTraceEnabled()) {
                log.tracef("Reduce for task %s took %s milliseconds", reduceCommand.getTaskId(),
@@ -151,6 +204,117 @@ public <KOut, VOut> Map<KOut, VOut> reduce(ReduceCommand<KOut, VOut> reduceComma
       return result;
    }
 
+   private <KOut, VOut> Map<KOut, VOut> reduceShuffled(ReduceCommand<KOut, VOut> reduceCommand)
+            throws InterruptedException {
+      String taskId = reduceCommand.getTaskId();
+      Reducer<KOut, VOut> reducer = reduceCommand.getReducer();
+      Map<KOut, VOut> result = new HashMap<KOut, VOut>();
+      @SuppressWarnings("unchecked")
+      ShuffleBuffer<KOut, VOut> buffer = (ShuffleBuffer<KOut, VOut>) shuffleBuffers.remove(taskId);
+      markDiscarded(taskId);
+      if (buffer == null) {
+         // no intermediate values were shuffled to this node
+         return result;
+      }
+      Cache<?, ?> cache = cacheManager.getCache(reduceCommand.getCacheName());
+      ResultsCacheCollector<KOut, VOut> resultsCollector = createResultsCollector(reduceCommand);
+      MapReduceTaskLifecycleService taskLifecycleService = MapReduceTaskLifecycleService.getInstance();
+      log.tracef("For m/r task %s invoking %s on shuffled values at %s", taskId, reduceCommand, cdl.getAddress());
+      int interruptCount = 0;
+      long start = log.isTraceEnabled() ? timeService.time() : 0;
+      try {
+         taskLifecycleService.onPreExecute(reducer, cache);
+         // the spilled values are read back one partition at a time
+         for (int partition = 0; partition < buffer.getPartitionCount(); partition++) {
+            for (Entry<KOut, List<VOut>> e : buffer.removePartition(partition).entrySet()) {
+               if (checkInterrupt(interruptCount++) && Thread.currentThread().isInterrupted())
+                  throw new InterruptedException();
+               VOut reduced = reducer.reduce(e.getKey(), e.getValue().iterator());
+               if (resultsCollector != null) {
+                  resultsCollector.emit(e.getKey(), reduced);
+               } else {
+                  result.put(e.getKey(), reduced);
+               }
+               log.tracef("For m/r task %s reduced %s to %s at %s ", taskId, e.getKey(), reduced, cdl.getAddress());
+            }
+         }
+         if (resultsCollector != null) {
+            resultsCollector.flush();
+         }
+      } finally {
+         buffer.discard();
+         if (log.isTraceEnabled()) {
+            log.tracef("Reduce for task %s took %s milliseconds", taskId,
+                       timeService.timeDuration(start, TimeUnit.MILLISECONDS));
+         }
+         taskLifecycleService.onPostExecute(reducer);
+      }
+      return result;
+   }
+
+   private <KOut, VOut> ResultsCacheCollector<KOut, VOut> createResultsCollector(ReduceCommand<KOut, VOut> reduceCommand) {
+      String resultsCacheName = reduceCommand.getResultsCacheName();
+      if (resultsCacheName == null) {
+         return null;
+      }
+      Cache<KOut, VOut> resultsCache = cacheManager.getCache(resultsCacheName);
+      return new ResultsCacheCollector<KOut, VOut>(resultsCache, chunkSize);
+   }
+
+   @Override
+   public <KOut, VOut> void shuffle(ShuffleCommand<KOut, VOut> shuffleCommand) {
+      log.tracef("For m/r task %s received %s intermediate keys at %s", shuffleCommand.getTaskId(),
+                 shuffleCommand.getValues().size(), cdl.getAddress());
+      this.<KOut, VOut>getShuffleBuffer(shuffleCommand.getTaskId(), shuffleCommand.getMaxBufferedValues())
+            .add(shuffleCommand.getValues());
+   }
+
+   @Override
+   public void discardShuffledValues(String taskId) {
+      markDiscarded(taskId);
+      ShuffleBuffer<?, ?> buffer = shuffleBuffers.remove(taskId);
+      if (buffer != null) {
+         log.tracef("Discarding intermediate values of m/r task %s at %s", taskId, cdl.getAddress());
+         buffer.discard();
+      }
+   }
+
+   private void markDiscarded(String taskId) {
+      for (Iterator<Long> it = discardedTasks.values().iterator(); it.hasNext(); ) {
+         if (timeService.isTimeExpired(it.next())) {
+            it.remove();
+         }
+      }
+      discardedTasks.put(taskId, timeService.expectedEndTime(discardedTaskRetention, TimeUnit.MILLISECONDS));
+   }
+
+   @SuppressWarnings("unchecked")
+   private <KOut, VOut> ShuffleBuffer<KOut, VOut> getShuffleBuffer(String taskId, int maxBufferedValues) {
+      ShuffleBuffer<?, ?> buffer = shuffleBuffers.get(taskId);
+      if (buffer == null) {
+         rejectIfDiscarded(taskId);
+         buffer = new ShuffleBuffer<KOut, VOut>(taskId, maxBufferedValues, marshaller);
+         ShuffleBuffer<?, ?> existing = shuffleBuffers.putIfAbsent(taskId, buffer);
+         if (existing != null) {
+            buffer = existing;
+         } else if (discardedTasks.containsKey(taskId)) {
+            // the task was discarded while the buffer was created
+            if (shuffleBuffers.remove(taskId, buffer)) {
+               buffer.discard();
+            }
+            rejectIfDiscarded(taskId);
+         }
+      }
+      return (ShuffleBuffer<KOut, VOut>) buffer;
+   }
+
+   private void rejectIfDiscarded(String taskId) {
+      if (discardedTasks.containsKey(taskId)) {
+         throw new CacheException("Intermediate values of M/R task " + taskId + " were already reduced or discarded at "
+                                        + cdl.getAddress());
+      }
+   }
+
    protected <KIn, VIn, KOut, VOut> CollectableCollector<KOut, VOut> map(
             MapCombineCommand<KIn, VIn, KOut, VOut> mcc) throws InterruptedException {
       Cache<KIn, VIn> cache = cacheManager.getCache(mcc.getCacheName());
@@ -173,14 +337,21 @@ protected <KIn, VIn, KOut, VOut> CollectableCollector<KOut, VOut> map(
       long start = log.isTraceEnabled() ? timeService.time() : 0;
       try {
          taskLifecycleService.onPreExecute(mapper, cache);
-         for (KIn key : inputKeys) {
-            if (checkInterrupt(interruptCount++) && Thread.currentThread().isInterrupted())
-               throw new InterruptedException();
-
-            VIn value = cache.get(key);
-            mapper.map(key, value, collector);
+         if (mcc.getMapParallelism() > 1 && inputKeys.size() > 1) {
+            mapInParallel(mcc, cache, inputKeys, dm, collector);
             if (inputKeysSpecified) {
-               inputKeysCopy.remove(key);
+               inputKeysCopy.removeAll(inputKeys);
+            }
+         } else {
+            for (KIn key : inputKeys) {
+               if (checkInterrupt(interruptCount++) && Thread.currentThread().isInterrupted())
+                  throw new InterruptedException();
+
+               VIn value = cache.get(key);
+               mapper.map(key, value, collector);
+               if (inputKeysSpecified) {
+                  inputKeysCopy.remove(key);
+               }
             }
          }
 
@@ -204,6 +375,73 @@ protected <KIn, VIn, KOut, VOut> CollectableCollector<KOut, VOut> map(
       return collector;
    }
 
+   /**
+    * Maps the input keys with {@link MapCombineCommand#getMapParallelism()} workers running on the async
+    * transport executor, the calling thread being one of them. The keys are split by segment and each worker takes
+    * the segments one by one, mapping them with its own copy of the mapper into its own collector. Each worker
+    * combines its output with its own copy of the combiner before it is merged into the given collector.
+    * <p>
+    * The executor is bounded and may itself be running the calling thread, so the other workers are only helpers:
+    * those the executor rejects or hasn't started by the time the calling thread ran out of work are not waited for,
+    * the calling thread having mapped their share of the keys.
+    */
+   private <KIn, VIn, KOut, VOut> void mapInParallel(MapCombineCommand<KIn, VIn, KOut, VOut> mcc,
+            Cache<KIn, VIn> cache, Set<KIn> inputKeys, DistributionManager dm,
+            DefaultCollector<KOut, VOut> collector) throws InterruptedException {
+      int parallelism = mcc.getMapParallelism();
+      Queue<List<KIn>> workUnits = new ConcurrentLinkedQueue<List<KIn>>(splitKeys(inputKeys, dm, parallelism));
+      int workers = Math.min(parallelism, workUnits.size());
+      AtomicBoolean aborted = new AtomicBoolean();
+      log.tracef("For m/r task %s mapping %s segments of input keys with %s workers", mcc.getTaskId(),
+                 workUnits.size(), workers);
+      MapWorker<KIn, VIn, KOut, VOut> localWorker = new MapWorker<KIn, VIn, KOut, VOut>(cache, mcc.getMapper(),
+            mcc.getCombiner(), false, workUnits, aborted);
+      List<Future<Map<KOut, List<VOut>>>> futures = new ArrayList<Future<Map<KOut, List<VOut>>>>(workers);
+      try {
+         for (int i = 1; i < workers; i++) {
+            Reducer<KOut, VOut> combiner = mcc.getCombiner() == null ? null : Util.cloneWithMarshaller(marshaller, mcc.getCombiner());
+            MapWorker<KIn, VIn, KOut, VOut> worker = new MapWorker<KIn, VIn, KOut, VOut>(cache,
+                  Util.cloneWithMarshaller(marshaller, mcc.getMapper()), combiner, true, workUnits, aborted);
+            try {
+               futures.add(executorService.submit(worker));
+            } catch (RejectedExecutionException e) {
+               log.tracef("For m/r task %s the executor is busy, mapping with %s workers", mcc.getTaskId(), i);
+               break;
+            }
+         }
+         collector.emitAll(localWorker.call());
+         for (Future<Map<KOut, List<VOut>>> future : futures) {
+            // all the work units were taken, a worker that didn't start has nothing left to do
+            if (!future.cancel(false)) {
+               collector.emitAll(future.get());
+            }
+         }
+      } catch (ExecutionException e) {
+         throw new CacheException("Could not execute map phase of M/R task " + mcc.getTaskId(), e.getCause());
+      } finally {
+         // stops the other workers if this one failed or was interrupted
+         aborted.set(true);
+      }
+   }
+
+   private <KIn> Collection<List<KIn>> splitKeys(Set<KIn> keys, DistributionManager dm, int parallelism) {
+      Map<Integer, List<KIn>> workUnits = new HashMap<Integer, List<KIn>>();
+      ConsistentHash ch = dm != null ? dm.getReadConsistentHash() : null;
+      // without segments, several work units per worker still balance the load
+      int workUnitSize = Math.max(1, keys.size() / (parallelism * 4));
+      int i = 0;
+      for (KIn key : keys) {
+         Integer workUnit = ch != null ? ch.getSegment(key) : i++ / workUnitSize;
+         List<KIn> keysInWorkUnit = workUnits.get(workUnit);
+         if (keysInWorkUnit == null) {
+            keysInWorkUnit = new ArrayList<KIn>();
+            workUnits.put(workUnit, keysInWorkUnit);
+         }
+         keysInWorkUnit.add(key);
+      }
+      return workUnits.values();
+   }
+
    protected <KIn, VIn, KOut, VOut> Set<KOut> combine(MapCombineCommand<KIn, VIn, KOut, VOut> mcc,
             CollectableCollector<KOut, VOut> collector) throws Exception{
 
@@ -211,17 +449,7 @@ protected <KIn, VIn, KOut, VOut> Set<KOut> combine(MapCombineCommand<KIn, VIn, K
       boolean emitCompositeIntermediateKeys = mcc.isEmitCompositeIntermediateKeys();
       Reducer <KOut,VOut> combiner = mcc.getCombiner();
       Set<KOut> mapPhaseKeys = new HashSet<KOut>();
-      Cache<Object, DeltaAwareList<VOut>> tmpCache = null;
-      if (emitCompositeIntermediateKeys) {
-         tmpCache = cacheManager.getCache(DEFAULT_TMP_CACHE_CONFIGURATION_NAME);
-      } else {
-         tmpCache = cacheManager.getCache(taskId);
-      }
-      if (tmpCache == null) {
-         throw new IllegalStateException("Temporary cache for MapReduceTask " + taskId
-                  + " not found on " + cdl.getAddress());
-      }
-      DistributionManager dm = tmpCache.getAdvancedCache().getDistributionManager();
+      Map<KOut, List<VOut>> intermediateValues;
 
       if (combiner != null) {
          Cache<?, ?> cache = cacheManager.getCache(mcc.getCacheName());
@@ -250,16 +478,95 @@ protected <KIn, VIn, KOut, VOut> Set<KOut> combine(MapCombineCommand<KIn, VIn, K
             }
             taskLifecycleService.onPostExecute(combiner);
          }
-         migrateIntermediateKeys(mcc, taskId, emitCompositeIntermediateKeys, mapPhaseKeys, tmpCache, dm, combinedMap);
+         intermediateValues = combinedMap;
       } else {
-         // Combiner not specified so lets insert each key/uncombined-List pair into tmp cache
+         // Combiner not specified so lets move each key/uncombined-List pair to the reducers
+         intermediateValues = collector.collectedValues();
+      }
 
-         Map<KOut, List<VOut>> collectedValues = collector.collectedValues();
-         migrateIntermediateKeys(mcc, taskId, emitCompositeIntermediateKeys, mapPhaseKeys, tmpCache, dm, collectedValues);
+      if (mcc.isInMemoryShuffle()) {
+         // the reducers reduce all the values they received, the master doesn't need the keys
+         shuffleIntermediateKeys(mcc, taskId, intermediateValues);
+         return mapPhaseKeys;
+      }
+      Cache<Object, DeltaAwareList<VOut>> tmpCache = null;
+      if (emitCompositeIntermediateKeys) {
+         tmpCache = cacheManager.getCache(DEFAULT_TMP_CACHE_CONFIGURATION_NAME);
+      } else {
+         tmpCache = cacheManager.getCache(taskId);
       }
+      if (tmpCache == null) {
+         throw new IllegalStateException("Temporary cache for MapReduceTask " + taskId
+                  + " not found on " + cdl.getAddress());
+      }
+      DistributionManager dm = tmpCache.getAdvancedCache().getDistributionManager();
+      migrateIntermediateKeys(mcc, taskId, emitCompositeIntermediateKeys, mapPhaseKeys, tmpCache, dm, intermediateValues);
       return mapPhaseKeys;
    }
 
+   private <KIn, VIn, KOut, VOut> void shuffleIntermediateKeys(MapCombineCommand<KIn, VIn, KOut, VOut> mcc,
+            String taskId, Map<KOut, List<VOut>> values) throws InterruptedException {
+      Map<Address, List<KOut>> keysToNodes = mapKeysToReducers(mcc, values.keySet());
+      int maxBufferedValues = mcc.getMaxBufferedValues();
+      List<NotifyingFuture<Map<Address, Response>>> futures = new ArrayList<NotifyingFuture<Map<Address, Response>>>();
+
+      long start = log.isTraceEnabled() ? timeService.time() : 0;
+      try {
+         for (Entry<Address, List<KOut>> entry : keysToNodes.entrySet()) {
+            Address target = entry.getKey();
+            List<KOut> keysHashedToAddress = entry.getValue();
+            log.tracef("For m/r task %s shuffling %s intermediate keys to %s", taskId, keysHashedToAddress.size(), target);
+            for (int i = 0; i < keysHashedToAddress.size(); i += chunkSize) {
+               Map<KOut, List<VOut>> batch = new HashMap<KOut, List<VOut>>();
+               for (KOut key : keysHashedToAddress.subList(i, Math.min(keysHashedToAddress.size(), i + chunkSize))) {
+                  batch.put(key, values.get(key));
+               }
+               if (target.equals(cdl.getAddress())) {
+                  this.<KOut, VOut>getShuffleBuffer(taskId, maxBufferedValues).add(batch);
+               } else {
+                  ShuffleCommand<KOut, VOut> cmd = commandsFactory.buildShuffleCommand(taskId, batch, maxBufferedValues);
+                  futures.add(rpcManager.invokeRemotelyAsync(Collections.singleton(target), cmd,
+                                                             rpcManager.getDefaultRpcOptions(true)));
+               }
+            }
+         }
+         for (NotifyingFuture<Map<Address, Response>> future : futures) {
+            future.get();
+         }
+      } catch (ExecutionException e) {
+         throw new CacheException("Could not shuffle intermediate keys/values for M/R task " + taskId, e.getCause());
+      } finally {
+         if (log.isTraceEnabled()) {
+            log.tracef("Shuffling keys for task %s took %s milliseconds (Shuffled %s keys)",
+                  taskId, timeService.timeDuration(start, TimeUnit.MILLISECONDS), values.size());
+         }
+      }
+   }
+
+   /**
+    * Partitions the intermediate keys with the consistent hash the master sent along with the task, so
+    * that every mapper shuffles a given key to the same reducer even if the topology changes meanwhile.
+    */
+   private <KOut> Map<Address, List<KOut>> mapKeysToReducers(MapCombineCommand<?, ?, KOut, ?> mcc,
+            Collection<KOut> keys) {
+      ConsistentHash ch = mcc.getShuffleConsistentHash();
+      if (ch == null) {
+         DistributionManager dm = cacheManager.getCache(mcc.getCacheName()).getAdvancedCache().getDistributionManager();
+         return mapKeysToNodes(dm, mcc.getTaskId(), keys, false);
+      }
+      Map<Address, List<KOut>> addressToKey = new HashMap<Address, List<KOut>>();
+      for (KOut key : keys) {
+         Address ownerOfKey = ch.locatePrimaryOwner(key);
+         List<KOut> keysAtNode = addressToKey.get(ownerOfKey);
+         if (keysAtNode == null) {
+            keysAtNode = new ArrayList<KOut>();
+            addressToKey.put(ownerOfKey, keysAtNode);
+         }
+         keysAtNode.add(key);
+      }
+      return addressToKey;
+   }
+
    private <KIn, VIn, KOut, VOut> void migrateIntermediateKeys(MapCombineCommand<KIn, VIn, KOut, VOut> mcc, String taskId, boolean emitCompositeIntermediateKeys, Set<KOut> mapPhaseKeys, Cache<Object, DeltaAwareList<VOut>> tmpCache, DistributionManager dm, Map<KOut, List<VOut>> collectedValues) {
       Map<Address, List<KOut>> keysToNodes = mapKeysToNodes(dm, taskId, collectedValues.keySet(),
             emitCompositeIntermediateKeys);
@@ -396,6 +703,87 @@ public void emit(KOut key, VOut value) {
       public Map<KOut, List<VOut>> collectedValues() {
          return store;
       }
+
+      void emitAll(Map<KOut, List<VOut>> values) {
+         for (Entry<KOut, List<VOut>> e : values.entrySet()) {
+            List<VOut> list = store.get(e.getKey());
+            if (list == null) {
+               store.put(e.getKey(), e.getValue());
+            } else {
+               list.addAll(e.getValue());
+            }
+         }
+      }
+   }
+
+   /**
+    * Maps the work units of a parallel map phase until there are none left.
+    */
+   private static class MapWorker<KIn, VIn, KOut, VOut> implements Callable<Map<KOut, List<VOut>>> {
+
+      private final Cache<KIn, VIn> cache;
+      private final Mapper<KIn, VIn, KOut, VOut> mapper;
+      private final Reducer<KOut, VOut> combiner;
+      // true if the mapper and combiner are copies that need their own lifecycle callbacks
+      private final boolean copies;
+      private final Queue<List<KIn>> workUnits;
+      private final AtomicBoolean aborted;
+
+      MapWorker(Cache<KIn, VIn> cache, Mapper<KIn, VIn, KOut, VOut> mapper, Reducer<KOut, VOut> combiner,
+               boolean copies, Queue<List<KIn>> workUnits, AtomicBoolean aborted) {
+         this.cache = cache;
+         this.mapper = mapper;
+         this.combiner = combiner;
+         this.copies = copies;
+         this.workUnits = workUnits;
+         this.aborted = aborted;
+      }
+
+      @Override
+      public Map<KOut, List<VOut>> call() throws InterruptedException {
+         DefaultCollector<KOut, VOut> collector = new DefaultCollector<KOut, VOut>();
+         MapReduceTaskLifecycleService taskLifecycleService = MapReduceTaskLifecycleService.getInstance();
+         if (copies) {
+            taskLifecycleService.onPreExecute(mapper, cache);
+         }
+         try {
+            int interruptCount = 0;
+            List<KIn> keys;
+            while ((keys = workUnits.poll()) != null) {
+               for (KIn key : keys) {
+                  if (checkInterrupt(interruptCount++) && (aborted.get() || Thread.currentThread().isInterrupted()))
+                     throw new InterruptedException();
+                  mapper.map(key, cache.get(key), collector);
+               }
+            }
+         } finally {
+            if (copies) {
+               taskLifecycleService.onPostExecute(mapper);
+            }
+         }
+         Map<KOut, List<VOut>> values = collector.collectedValues();
+         if (combiner == null) {
+            return values;
+         }
+         if (copies) {
+            taskLifecycleService.onPreExecute(combiner, cache);
+         }
+         try {
+            for (Entry<KOut, List<VOut>> e : values.entrySet()) {
+               List<VOut> mapped = e.getValue();
+               if (mapped.size() > 1) {
+                  List<VOut> combined = new LinkedList<VOut>();
+                  combined.add(combiner.reduce(e.getKey(), mapped.iterator()));
+                  values.put(e.getKey(), combined);
+               }
+            }
+         } finally {
+            if (copies) {
+               taskLifecycleService.onPostExecute(combiner);
+            }
+         }
+         return values;
+      }
    }
 
    private interface CollectableCollector<K,V> extends Collector<K, V>{
@@ -8,9 +8,11 @@
 import org.infinispan.commands.CreateCacheCommand;
 import org.infinispan.commands.read.MapCombineCommand;
 import org.infinispan.commands.read.ReduceCommand;
+import org.infinispan.commands.read.ShuffleCommand;
 import org.infinispan.context.Flag;
 import org.infinispan.distexec.mapreduce.spi.MapReduceTaskLifecycleService;
 import org.infinispan.distribution.DistributionManager;
+import org.infinispan.distribution.ch.ConsistentHash;
 import org.infinispan.factories.ComponentRegistry;
 import org.infinispan.interceptors.locking.ClusteringDependentLogic;
 import org.infinispan.lifecycle.ComponentStatus;
@@ -36,17 +38,20 @@
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
@@ -140,12 +145,16 @@
 
    private static final Log log = LogFactory.getLog(MapReduceTask.class);
    public static final String DEFAULT_TMP_CACHE_CONFIGURATION_NAME= "__tmpMapReduce";
+   public static final int DEFAULT_SHUFFLE_BUFFER_SIZE = 100000;
 
    protected Mapper<KIn, VIn, KOut, VOut> mapper;
    protected Reducer<KOut, VOut> reducer;
    protected Reducer<KOut, VOut> combiner;
    protected final boolean distributeReducePhase;
    protected final boolean useIntermediateSharedCache;
+   protected boolean inMemoryShuffle;
+   protected int maxBufferedValues = DEFAULT_SHUFFLE_BUFFER_SIZE;
+   protected int mapParallelism = 1;
 
    protected final Collection<KIn> keys;
    protected final AdvancedCache<KIn, VIn> cache;
@@ -157,6 +166,10 @@
    protected final ClusteringDependentLogic clusteringDependentLogic;
    protected final boolean isLocalOnly;
    protected RpcOptionsBuilder rpcOptionsBuilder;
+   // the consistent hash all the mappers partition their intermediate keys with, for the in-memory shuffle
+   private ConsistentHash shuffleConsistentHash;
+   // the reduce parts whose results were received, in the order they were received
+   private final BlockingQueue<ReduceTaskPart<?>> completedReduceParts = new LinkedBlockingQueue<ReduceTaskPart<?>>();
 
    /**
     * Create a new MapReduceTask given a master cache node. All distributed task executions will be
@@ -292,6 +305,67 @@ public MapReduceTask<KIn, VIn, KOut, VOut> combinedWith(Reducer<KOut, VOut> comb
       return this;
    }
 
+   /**
+    * Sends the intermediate values of the map phase directly to the nodes reducing them, instead of
+    * storing them in an intermediate cache. Each node keeps at most
+    * {@link #DEFAULT_SHUFFLE_BUFFER_SIZE} intermediate values in memory before spilling them to disk.
+    * <p>
+    * See {@link #inMemoryShuffle(int)}.
+    *
+    * @return this MapReduceTask itself
+    * @since 7.0
+    */
+   public MapReduceTask<KIn, VIn, KOut, VOut> inMemoryShuffle() {
+      return inMemoryShuffle(DEFAULT_SHUFFLE_BUFFER_SIZE);
+   }
+
+   /**
+    * Sends the intermediate values of the map phase directly to the nodes reducing them, instead of
+    * storing them in an intermediate cache.
+    * <p>
+    * The nodes executing the map phase send their combined output in batches to the primary owner of
+    * each intermediate key, which keeps the values in memory until the reduce phase. When a node has more
+    * than <code>maxBufferedValues</code> values, it spills them to temporary files. The intermediate values
+    * are not replicated, so the task fails if a node leaves before the reduce phase.
+    * <p>
+    * Only used if this task was created with a distributed reduce phase.
+    *
+    * @param maxBufferedValues
+    *           the number of intermediate values each node keeps in memory before spilling them to disk
+    * @return this MapReduceTask itself
+    * @since 7.0
+    */
+   public MapReduceTask<KIn, VIn, KOut, VOut> inMemoryShuffle(int maxBufferedValues) {
+      if (maxBufferedValues <= 0)
+         throw new IllegalArgumentException("The number of buffered values must be positive");
+      this.inMemoryShuffle = true;
+      this.maxBufferedValues = maxBufferedValues;
+      return this;
+   }
+
+   /**
+    * Sets the number of threads each node uses to execute the map phase of this task. By default the map
+    * phase is executed by a single thread. The additional threads are taken from the async transport executor, so
+    * fewer of them may take part when it is busy.
+    * <p>
+    * The input keys are split by segment, and the threads take the segments one by one from a shared queue.
+    * Each thread maps its keys with its own copy of the {@link Mapper}, and combines its output with its own
+    * copy of the Combiner before it is merged with the output of the other threads, so the Combiner may
+    * be invoked again with already combined values. Entries only present in a cache store are mapped as
+    * before, with the original Mapper.
+    *
+    * @param parallelism
+    *           the number of threads executing the map phase on each node
+    * @return this MapReduceTask itself
+    * @since 7.0
+    */
+   public MapReduceTask<KIn, VIn, KOut, VOut> mapParallelism(int parallelism) {
+      if (parallelism <= 0)
+         throw new IllegalArgumentException("The map parallelism must be positive");
+      this.mapParallelism = parallelism;
+      return this;
+   }
+
    /**
     * See {@link #timeout(TimeUnit)}.
     *
@@ -320,6 +394,80 @@ public final long timeout(TimeUnit outputTimeUnit) {
     * @return a Map where each key is an output key and value is reduced value for that output key
     */
    public Map<KOut, VOut> execute() throws CacheException {
+      final Map<KOut, VOut> results = new HashMap<KOut, VOut>();
+      executeTask(new Collector<KOut, VOut>() {
+         @Override
+         public void emit(KOut key, VOut value) {
+            results.put(key, value);
+         }
+      }, null);
+      return results;
+   }
+
+   /**
+    * Executes this task across Infinispan cluster nodes and passes each reduced key and value to the given
+    * collector, instead of gathering all of them in a map.
+    * <p>
+    * With a distributed reduce phase, the results of each node are passed to the collector as soon as they
+    * are received, in the order the nodes finish, and are not kept afterwards. The results of a node are still
+    * received as a whole, so the master node must be able to hold the results of the largest node, and of the
+    * nodes finishing while the collector is busy; use {@link #execute(String)} if it can't. The collector is only
+    * invoked by the thread executing this task.
+    *
+    * @param resultsCollector
+    *           the collector receiving the reduced keys and values
+    * @since 7.0
+    */
+   public void execute(Collector<KOut, VOut> resultsCollector) throws CacheException {
+      if (resultsCollector == null)
+         throw new IllegalArgumentException("A valid reference of Collector is needed");
+      executeTask(resultsCollector, null);
+   }
+
+   /**
+    * Executes this task across Infinispan cluster nodes and stores the reduced keys and values in the cache
+    * with the given name.
+    * <p>
+    * With a distributed reduce phase, each node stores the results it reduces in the cache, so the results
+    * are never gathered on the node executing this task. Otherwise this node stores them as they are
+    * reduced. The results are stored in batches of
+    * {@link org.infinispan.configuration.cache.StateTransferConfiguration#chunkSize()} entries, and a
+    * cache with that name is created on the nodes storing results if it is not running yet.
+    *
+    * @param resultsCacheName
+    *           the name of the cache storing the results
+    * @since 7.0
+    */
+   public void execute(String resultsCacheName) throws CacheException {
+      if (resultsCacheName == null)
+         throw new IllegalArgumentException("A valid name of the results cache is needed");
+      executeTask(null, resultsCacheName);
+   }
+
+   /**
+    * Executes this task across Infinispan cluster nodes and stores the reduced keys and values in the given
+    * cache.
+    *
+    * @see #execute(String)
+    * @param resultsCache
+    *           the cache storing the results
+    * @since 7.0
+    */
+   public void execute(Cache<KOut, VOut> resultsCache) throws CacheException {
+      if (resultsCache == null)
+         throw new IllegalArgumentException("A valid reference of the results cache is needed");
+      executeTask(null, resultsCache.getName());
+   }
+
+   /**
+    * Executes this task, passing the results to a collector on this node or storing them in a cache.
+    *
+    * @param resultsCollector
+    *           the collector receiving the results, if <code>resultsCacheName</code> is null
+    * @param resultsCacheName
+    *           the name of the cache storing the results, or null
+    */
+   private void executeTask(Collector<KOut, VOut> resultsCollector, String resultsCacheName) throws CacheException {
       if (mapper == null)
          throw new NullPointerException("A valid reference of Mapper is not set " + mapper);
 
@@ -327,7 +475,9 @@ public Map<KOut, VOut> execute() throws CacheException {
          throw new NullPointerException("A valid reference of Reducer is not set " + reducer);
 
 
-      if(!isLocalOnly && distributeReducePhase()){
+      if(!isLocalOnly && distributeReducePhase() && useInMemoryShuffle()){
+         executeWithInMemoryShuffle(resultsCollector, resultsCacheName);
+      } else if(!isLocalOnly && distributeReducePhase()){
          boolean useCompositeKeys = useIntermediateSharedCache();
          String intermediateCacheName = DEFAULT_TMP_CACHE_CONFIGURATION_NAME;
          if (useIntermediatePerTaskCache()) {
@@ -342,7 +492,7 @@ public Map<KOut, VOut> execute() throws CacheException {
             Set<KOut> allMapPhasesResponses = executeMapPhase(useCompositeKeys);
 
             // reduce
-            return executeReducePhase(allMapPhasesResponses, useCompositeKeys);
+            executeReducePhase(allMapPhasesResponses, useCompositeKeys, resultsCollector, resultsCacheName);
          }
          catch (Exception cause){
             throw new CacheException(cause);
@@ -355,7 +505,16 @@ public Map<KOut, VOut> execute() throws CacheException {
          }
       } else {
          try {
-            return executeMapPhaseWithLocalReduction();
+            if (resultsCacheName != null) {
+               int batchSize = cache.getCacheConfiguration().clustering().stateTransfer().chunkSize();
+               Cache<KOut, VOut> resultsCache = cache.getCacheManager().getCache(resultsCacheName);
+               ResultsCacheCollector<KOut, VOut> resultsCacheCollector = new ResultsCacheCollector<KOut, VOut>(
+                     resultsCache, batchSize);
+               executeMapPhaseWithLocalReduction(resultsCacheCollector);
+               resultsCacheCollector.flush();
+            } else {
+               executeMapPhaseWithLocalReduction(resultsCollector);
+            }
          } catch (Exception cause){
             throw new CacheException(cause);
          }
@@ -374,6 +533,33 @@ protected boolean useIntermediatePerTaskCache() {
       return !useIntermediateSharedCache();
    }
 
+   protected boolean useInMemoryShuffle() {
+      return inMemoryShuffle;
+   }
+
+   protected void executeWithInMemoryShuffle(Collector<KOut, VOut> resultsCollector, String resultsCacheName) {
+      // a node that leaves before the reduce phase takes its intermediate values with it,
+      // so the reduce phase is also sent to the initial members to fail the task in that case
+      Set<Address> reducers = new HashSet<Address>(cache.getRpcManager().getMembers());
+      // every mapper shuffles with the same snapshot of the topology, so a node joining during the
+      // map phase can't receive some of the values of an intermediate key that another node reduces
+      shuffleConsistentHash = cache.getDistributionManager().getReadConsistentHash();
+      reducers.addAll(shuffleConsistentHash.getMembers());
+      boolean reduced = false;
+      try {
+         executeMapPhase(false);
+         reducers.addAll(cache.getRpcManager().getMembers());
+         executeShuffledReducePhase(reducers, resultsCollector, resultsCacheName);
+         reduced = true;
+      } catch (Exception cause) {
+         throw new CacheException(cause);
+      } finally {
+         if (!reduced) {
+            discardShuffledValues(reducers);
+         }
+      }
+   }
+
 
    protected void executeTaskInit(String tmpCacheName) {
       RpcManager rpc = cache.getRpcManager();
@@ -444,8 +630,8 @@ protected Set<KOut> executeMapPhase(boolean useCompositeKeys) throws Interrupted
       return mapPhasesResult;
    }
 
-   protected Map<KOut, VOut> executeMapPhaseWithLocalReduction() throws InterruptedException,
-            ExecutionException {
+   protected void executeMapPhaseWithLocalReduction(Collector<KOut, VOut> resultsCollector)
+            throws InterruptedException, ExecutionException {
       RpcManager rpc = cache.getRpcManager();
       MapCombineCommand<KIn, VIn, KOut, VOut> cmd = null;
       Map<KOut, List<VOut>> mapPhasesResult = new HashMap<KOut, List<VOut>>();
@@ -485,7 +671,6 @@ protected Map<KOut, VOut> executeMapPhaseWithLocalReduction() throws Interrupted
             futures.add(part);
          }
       }
-      Map<KOut, VOut> reducedResult = new HashMap<KOut, VOut>();
       try {
          for (MapTaskPart<Map<KOut, List<VOut>>> mapTaskPart : futures) {
             // TODO in parallel with futures
@@ -501,14 +686,16 @@ protected Map<KOut, VOut> executeMapPhaseWithLocalReduction() throws Interrupted
       log.tracef("For m/r task %s invoking %s locally", taskId, reducer);
       try {
          taskLifecycleService.onPreExecute(reducer, cache);
-         for (Entry<KOut, List<VOut>> e : mapPhasesResult.entrySet()) {
+         for (Iterator<Entry<KOut, List<VOut>>> it = mapPhasesResult.entrySet().iterator(); it.hasNext(); ) {
             // TODO in parallel with futures
-            reducedResult.put(e.getKey(), reducer.reduce(e.getKey(), e.getValue().iterator()));
+            Entry<KOut, List<VOut>> e = it.next();
+            resultsCollector.emit(e.getKey(), reducer.reduce(e.getKey(), e.getValue().iterator()));
+            // the intermediate values of a reduced key are not needed anymore
+            it.remove();
          }
       } finally {
          taskLifecycleService.onPostExecute(reducer);
       }
-      return reducedResult;
    }
 
    protected <V> MapTaskPart<V> createTaskMapPart(MapCombineCommand<KIn, VIn, KOut, VOut> cmd,
@@ -518,8 +705,9 @@ protected <V> MapTaskPart<V> createTaskMapPart(MapCombineCommand<KIn, VIn, KOut,
       return mapTaskPart;
    }
 
-   protected Map<KOut, VOut> executeReducePhase(Set<KOut> allMapPhasesResponses,
-            boolean useCompositeKeys) throws InterruptedException, ExecutionException {
+   protected void executeReducePhase(Set<KOut> allMapPhasesResponses, boolean useCompositeKeys,
+            Collector<KOut, VOut> resultsCollector, String resultsCacheName) throws InterruptedException,
+            ExecutionException {
       RpcManager rpc = cache.getRpcManager();
       String destCache = null;
       if (useCompositeKeys) {
@@ -530,7 +718,6 @@ protected Map<KOut, VOut> executeReducePhase(Set<KOut> allMapPhasesResponses,
       Cache<Object, Object> dstCache = cache.getCacheManager().getCache(destCache);
       Map<Address, ? extends Collection<KOut>> keysToNodes = mapKeysToNodes(dstCache.getAdvancedCache()
                .getDistributionManager(), allMapPhasesResponses, useCompositeKeys);
-      Map<KOut, VOut> reduceResult = new HashMap<KOut, VOut>();
       List<ReduceTaskPart<Map<KOut, VOut>>> reduceTasks = new ArrayList<ReduceTaskPart<Map<KOut, VOut>>>();
       ReduceCommand<KOut, VOut> reduceCommand = null;
       for (Entry<Address, ? extends Collection<KOut>> e : keysToNodes.entrySet()) {
@@ -543,18 +730,79 @@ protected Map<KOut, VOut> executeReducePhase(Set<KOut> allMapPhasesResponses,
             reduceCommand = buildReduceCommand(taskId.toString(), destCache, reducer, keys,
                      useCompositeKeys);
          }
+         reduceCommand.setResultsCacheName(resultsCacheName);
          ReduceTaskPart<Map<KOut, VOut>> part = createReducePart(reduceCommand, address, destCache);
          part.execute();
          reduceTasks.add(part);
       }
+      collectReduceResults(reduceTasks, resultsCollector);
+   }
+
+   protected void executeShuffledReducePhase(Collection<Address> reducers, Collector<KOut, VOut> resultsCollector,
+            String resultsCacheName) throws InterruptedException, ExecutionException {
+      RpcManager rpc = cache.getRpcManager();
+      String cacheName = cache.getName();
+      List<ReduceTaskPart<Map<KOut, VOut>>> reduceTasks = new ArrayList<ReduceTaskPart<Map<KOut, VOut>>>();
+      ReduceCommand<KOut, VOut> reduceCommand = null;
+      for (Address address : reducers) {
+         // each node reduces all the intermediate values shuffled to it
+         if (address.equals(rpc.getAddress())) {
+            reduceCommand = buildReduceCommand(taskId.toString(), cacheName, clone(reducer), null, false);
+         } else {
+            reduceCommand = buildReduceCommand(taskId.toString(), cacheName, reducer, null, false);
+         }
+         reduceCommand.setInMemoryShuffle(true);
+         reduceCommand.setResultsCacheName(resultsCacheName);
+         ReduceTaskPart<Map<KOut, VOut>> part = createReducePart(reduceCommand, address, cacheName);
+         part.execute();
+         reduceTasks.add(part);
+      }
+      collectReduceResults(reduceTasks, resultsCollector);
+   }
+
+   /**
+    * Passes the results of the reduce parts to the collector in the order they are received, so that a slow node
+    * doesn't hold back the results of the others. The results of a part are received as a single map, so the
+    * results of the parts received but not collected yet are all held in memory until the collector is done with
+    * the previous ones.
+    */
+   @SuppressWarnings("unchecked")
+   private void collectReduceResults(List<ReduceTaskPart<Map<KOut, VOut>>> reduceTasks,
+            Collector<KOut, VOut> resultsCollector) throws InterruptedException, ExecutionException {
       try {
-         for (ReduceTaskPart<Map<KOut, VOut>> reduceTaskPart : reduceTasks) {
-            reduceResult.putAll(reduceTaskPart.get());
+         while (!reduceTasks.isEmpty()) {
+            ReduceTaskPart<Map<KOut, VOut>> reduceTaskPart = (ReduceTaskPart<Map<KOut, VOut>>) completedReduceParts.take();
+            Map<KOut, VOut> reduceResult = reduceTaskPart.get();
+            // a finished part can't be cancelled, and its results are released once collected
+            reduceTasks.remove(reduceTaskPart);
+            cancellableTasks.remove(reduceTaskPart);
+            if (resultsCollector != null) {
+               for (Entry<KOut, VOut> e : reduceResult.entrySet()) {
+                  resultsCollector.emit(e.getKey(), e.getValue());
+               }
+            }
          }
       } finally {
          cancellableTasks.clear();
+         completedReduceParts.clear();
+      }
+   }
+
+   private void discardShuffledValues(Collection<Address> nodes) {
+      RpcManager rpc = cache.getRpcManager();
+      mapReduceManager.discardShuffledValues(taskId.toString());
+      List<Address> remoteNodes = new ArrayList<Address>(nodes);
+      remoteNodes.remove(rpc.getAddress());
+      remoteNodes.retainAll(rpc.getMembers());
+      if (!remoteNodes.isEmpty()) {
+         CommandsFactory factory = cache.getComponentRegistry().getComponent(CommandsFactory.class);
+         ShuffleCommand<KOut, VOut> discard = factory.buildShuffleCommand(taskId.toString(), null, maxBufferedValues);
+         try {
+            rpc.invokeRemotely(remoteNodes, discard, rpc.getDefaultRpcOptions(false));
+         } catch (Exception e) {
+            log.debugf(e, "Could not discard intermediate values of task %s", taskId);
+         }
       }
-      return reduceResult;
    }
 
    protected <V> ReduceTaskPart<V> createReducePart(ReduceCommand<KOut, VOut> cmd, Address target,
@@ -587,6 +835,12 @@ private MapCombineCommand<KIn, VIn, KOut, VOut> buildMapCombineCommand(
       MapCombineCommand<KIn, VIn, KOut, VOut> c = factory.buildMapCombineCommand(taskId, m, r, keys);
       c.setReducePhaseDistributed(reducePhaseDistributed);
       c.setEmitCompositeIntermediateKeys(emitCompositeIntermediateKeys);
+      c.setInMemoryShuffle(reducePhaseDistributed && useInMemoryShuffle());
+      c.setMaxBufferedValues(maxBufferedValues);
+      if (c.isInMemoryShuffle()) {
+         c.setShuffleConsistentHash(shuffleConsistentHash);
+      }
+      c.setMapParallelism(mapParallelism);
       return c;
    }
 
@@ -1002,7 +1256,12 @@ public void execute() {
                   return Collections.singletonMap(getAddress(), SuccessfulResponse.create(result));
                }
             };
-            FutureTask<V> futureTask = new FutureTask<V>((Callable<V>) callable);
+            FutureTask<V> futureTask = new FutureTask<V>((Callable<V>) callable) {
+               @Override
+               protected void done() {
+                  notifyDone();
+               }
+            };
             setNetworkFuture(futureTask);
             mapReduceManager.getExecutorService().submit(futureTask);
          } else {
@@ -1033,6 +1292,11 @@ private Map<KOut, VOut> invokeReduceLocally(Cache<Object, Object> dstCache) {
          return localReduceResult;
       }
 
+      @Override
+      public void notifyDone() {
+         completedReduceParts.add(this);
+      }
+
       @Override
       public UUID getUUID() {
          return rc.getUUID();
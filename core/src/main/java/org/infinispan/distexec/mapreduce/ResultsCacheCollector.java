@@ -0,0 +1,45 @@
+package org.infinispan.distexec.mapreduce;
+
+import org.infinispan.AdvancedCache;
+import org.infinispan.Cache;
+import org.infinispan.context.Flag;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Stores the results of a MapReduceTask in a cache, in batches of <code>batchSize</code> entries.
+ * <p>
+ * This is an internal class, not intended to be used by clients.
+ *
+ * @since 7.0
+ */
+class ResultsCacheCollector<KOut, VOut> implements Collector<KOut, VOut> {
+
+   private final AdvancedCache<KOut, VOut> resultsCache;
+   private final int batchSize;
+   private final Map<KOut, VOut> batch = new HashMap<KOut, VOut>();
+
+   ResultsCacheCollector(Cache<KOut, VOut> resultsCache, int batchSize) {
+      this.resultsCache = resultsCache.getAdvancedCache().withFlags(Flag.IGNORE_RETURN_VALUES);
+      this.batchSize = batchSize;
+   }
+
+   @Override
+   public void emit(KOut key, VOut value) {
+      batch.put(key, value);
+      if (batch.size() >= batchSize) {
+         flush();
+      }
+   }
+
+   /**
+    * Stores the results emitted since the last batch.
+    */
+   void flush() {
+      if (!batch.isEmpty()) {
+         resultsCache.putAll(batch);
+         batch.clear();
+      }
+   }
+}
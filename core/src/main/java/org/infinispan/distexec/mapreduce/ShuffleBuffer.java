@@ -0,0 +1,232 @@
+package org.infinispan.distexec.mapreduce;
+
+import net.jcip.annotations.ThreadSafe;
+import org.infinispan.commons.CacheException;
+import org.infinispan.commons.marshall.StreamingMarshaller;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * The values shuffled to this node for the reduce phase of a MapReduceTask using the in-memory shuffle.
+ * <p>
+ * The values are kept in memory until there are more than a configured number of them. Then they are
+ * spilled to temporary files, split into a fixed number of partitions by the hash code of their key, and
+ * the reduce phase reads back one partition at a time, so it only needs memory for the values of one
+ * partition.
+ * <p>
+ * This is an internal class, not intended to be used by clients.
+ *
+ * @since 7.0
+ */
+@ThreadSafe
+final class ShuffleBuffer<KOut, VOut> {
+
+   private static final Log log = LogFactory.getLog(ShuffleBuffer.class);
+   private static final int SPILL_PARTITIONS = 16;
+
+   private final String taskId;
+   private final int maxBufferedValues;
+   private final StreamingMarshaller marshaller;
+
+   private Map<KOut, List<VOut>> buffer = new HashMap<KOut, List<VOut>>();
+   private int bufferedValues;
+   // the spill files of each partition, null until the values are spilled the first time
+   private List<File>[] spillFiles;
+   private boolean discarded;
+
+   ShuffleBuffer(String taskId, int maxBufferedValues, StreamingMarshaller marshaller) {
+      this.taskId = taskId;
+      this.maxBufferedValues = maxBufferedValues;
+      this.marshaller = marshaller;
+   }
+
+   /**
+    * Adds a batch of shuffled values, spilling the buffered values to disk if there are too many of them.
+    */
+   synchronized void add(Map<KOut, List<VOut>> values) {
+      if (discarded) {
+         throw new IllegalStateException("Reduce buffer of MapReduceTask " + taskId + " was already discarded");
+      }
+      for (Entry<KOut, List<VOut>> e : values.entrySet()) {
+         List<VOut> list = buffer.get(e.getKey());
+         if (list == null) {
+            list = new ArrayList<VOut>(e.getValue());
+            buffer.put(e.getKey(), list);
+         } else {
+            list.addAll(e.getValue());
+         }
+         bufferedValues += e.getValue().size();
+      }
+      if (bufferedValues > maxBufferedValues) {
+         spill();
+      }
+   }
+
+   /**
+    * @return the number of partitions to pass to {@link #removePartition(int)}
+    */
+   synchronized int getPartitionCount() {
+      return spillFiles == null ? 1 : SPILL_PARTITIONS;
+   }
+
+   /**
+    * Removes the values of a partition from this buffer, reading back their spill files.
+    */
+   synchronized Map<KOut, List<VOut>> removePartition(int partition) {
+      if (spillFiles == null) {
+         Map<KOut, List<VOut>> values = buffer;
+         buffer = new HashMap<KOut, List<VOut>>();
+         bufferedValues = 0;
+         return values;
+      }
+      Map<KOut, List<VOut>> values = new HashMap<KOut, List<VOut>>();
+      for (Iterator<Entry<KOut, List<VOut>>> it = buffer.entrySet().iterator(); it.hasNext(); ) {
+         Entry<KOut, List<VOut>> e = it.next();
+         if (partition(e.getKey()) == partition) {
+            values.put(e.getKey(), e.getValue());
+            bufferedValues -= e.getValue().size();
+            it.remove();
+         }
+      }
+      List<File> files = spillFiles[partition];
+      for (File file : files) {
+         read(file, values);
+         deleteFile(file);
+      }
+      files.clear();
+      return values;
+   }
+
+   /**
+    * Releases the memory and the spill files of this buffer.
+    */
+   synchronized void discard() {
+      discarded = true;
+      buffer = new HashMap<KOut, List<VOut>>();
+      bufferedValues = 0;
+      if (spillFiles != null) {
+         for (List<File> files : spillFiles) {
+            for (File file : files) {
+               deleteFile(file);
+            }
+            files.clear();
+         }
+      }
+   }
+
+   @SuppressWarnings("unchecked")
+   private void spill() {
+      if (spillFiles == null) {
+         spillFiles = new List[SPILL_PARTITIONS];
+         for (int i = 0; i < SPILL_PARTITIONS; i++) {
+            spillFiles[i] = new ArrayList<File>();
+         }
+      }
+      List<Map<KOut, List<VOut>>> partitions = new ArrayList<Map<KOut, List<VOut>>>(SPILL_PARTITIONS);
+      for (int i = 0; i < SPILL_PARTITIONS; i++) {
+         partitions.add(new HashMap<KOut, List<VOut>>());
+      }
+      for (Entry<KOut, List<VOut>> e : buffer.entrySet()) {
+         partitions.get(partition(e.getKey())).put(e.getKey(), e.getValue());
+      }
+      log.tracef("For m/r task %s spilling %s intermediate values to disk", taskId, bufferedValues);
+      for (int i = 0; i < SPILL_PARTITIONS; i++) {
+         if (!partitions.get(i).isEmpty()) {
+            spillFiles[i].add(write(partitions.get(i)));
+         }
+      }
+      buffer = new HashMap<KOut, List<VOut>>();
+      bufferedValues = 0;
+   }
+
+   private File write(Map<KOut, List<VOut>> values) {
+      File file = null;
+      try {
+         file = File.createTempFile("mapreduce-" + taskId + "-", ".spill");
+         OutputStream os = new BufferedOutputStream(new FileOutputStream(file));
+         try {
+            ObjectOutput output = marshaller.startObjectOutput(os, true, 512);
+            try {
+               output.writeInt(values.size());
+               for (Entry<KOut, List<VOut>> e : values.entrySet()) {
+                  marshaller.objectToObjectStream(e.getKey(), output);
+                  marshaller.objectToObjectStream(e.getValue(), output);
+               }
+            } finally {
+               marshaller.finishObjectOutput(output);
+            }
+         } finally {
+            os.close();
+         }
+         return file;
+      } catch (IOException e) {
+         if (file != null) {
+            deleteFile(file);
+         }
+         throw new CacheException("Could not spill intermediate values of MapReduceTask " + taskId + " to disk", e);
+      }
+   }
+
+   @SuppressWarnings("unchecked")
+   private void read(File file, Map<KOut, List<VOut>> values) {
+      try {
+         InputStream is = new BufferedInputStream(new FileInputStream(file));
+         try {
+            ObjectInput input = marshaller.startObjectInput(is, true);
+            try {
+               int size = input.readInt();
+               for (int i = 0; i < size; i++) {
+                  KOut key = (KOut) marshaller.objectFromObjectStream(input);
+                  List<VOut> spilled = (List<VOut>) marshaller.objectFromObjectStream(input);
+                  List<VOut> list = values.get(key);
+                  if (list == null) {
+                     values.put(key, spilled);
+                  } else {
+                     list.addAll(spilled);
+                  }
+               }
+            } finally {
+               marshaller.finishObjectInput(input);
+            }
+         } finally {
+            is.close();
+         }
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new CacheException("Interrupted while reading intermediate values of MapReduceTask " + taskId, e);
+      } catch (Exception e) {
+         throw new CacheException("Could not read intermediate values of MapReduceTask " + taskId + " from "
+               + file, e);
+      }
+   }
+
+   private void deleteFile(File file) {
+      if (!file.delete() && file.exists()) {
+         log.debugf("Could not delete spill file %s of m/r task %s", file, taskId);
+         file.deleteOnExit();
+      }
+   }
+
+   private static int partition(Object key) {
+      int h = key == null ? 0 : key.hashCode();
+      h ^= (h >>> 16);
+      return h & (SPILL_PARTITIONS - 1);
+   }
+}
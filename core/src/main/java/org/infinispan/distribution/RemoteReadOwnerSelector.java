@@ -0,0 +1,171 @@
+package org.infinispan.distribution;
+
+import net.jcip.annotations.ThreadSafe;
+import org.infinispan.configuration.cache.RemoteReadPolicy;
+import org.infinispan.remoting.responses.Response;
+import org.infinispan.remoting.transport.Address;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Chooses the owner a remote read asks first, according to a {@link RemoteReadPolicy}, and keeps track of the owners'
+ * response times.
+ * <p/>
+ * The response time of each owner is an exponentially weighted moving average, so it follows changes in the owner's
+ * load quickly. The delay after which a {@link RemoteReadPolicy#STAGGERED staggered} read asks the other owners is the
+ * 95th percentile of the latest response times of all the owners.
+ *
+ * @since 7.0
+ */
+@ThreadSafe
+public class RemoteReadOwnerSelector {
+
+   // the delay used until enough response times are known
+   static final long DEFAULT_STAGGER_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+   static final int MIN_SAMPLES = 16;
+
+   private static final int NUM_SAMPLES = 512;
+   private static final int PERCENTILE_INTERVAL = 128;
+   private static final double PERCENTILE = 0.95;
+   private static final long MIN_STAGGER_DELAY_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+   private final RemoteReadPolicy policy;
+   private final Random random = new Random();
+   private final ConcurrentMap<Address, OwnerStats> owners = new ConcurrentHashMap<Address, OwnerStats>();
+   private final AtomicLongArray samples = new AtomicLongArray(NUM_SAMPLES);
+   private final AtomicInteger sampleCount = new AtomicInteger();
+   private volatile long staggerDelayNanos = DEFAULT_STAGGER_DELAY_NANOS;
+
+   public RemoteReadOwnerSelector(RemoteReadPolicy policy) {
+      this.policy = policy;
+   }
+
+   public RemoteReadPolicy getPolicy() {
+      return policy;
+   }
+
+   /**
+    * @param owners the owners of the key, primary owner first
+    * @param self   the local address, which is never chosen
+    * @return the owner to ask first, or {@code null} if all the owners should be asked at once
+    */
+   public Address select(List<Address> owners, Address self) {
+      List<Address> candidates = new ArrayList<Address>(owners);
+      candidates.remove(self);
+      if (candidates.isEmpty()) return null;
+
+      switch (policy) {
+         case PRIMARY_OWNER:
+            return candidates.get(0);
+         case RANDOM_OWNER:
+            return candidates.get(random.nextInt(candidates.size()));
+         case LEAST_LOADED_OWNER:
+         case STAGGERED:
+            return leastLoaded(candidates);
+         default:
+            return null;
+      }
+   }
+
+   /**
+    * @return how long a staggered read waits for the first owner before asking the others, in nanoseconds
+    */
+   public long getStaggerDelayNanos() {
+      return staggerDelayNanos;
+   }
+
+   /**
+    * Must be called before a read request is sent, and followed by
+    * {@link #requestDone(Collection, Map, long)} once the request has completed.
+    */
+   public void requestSent(Collection<Address> targets) {
+      for (Address target : targets) {
+         ownerStats(target).outstanding.incrementAndGet();
+      }
+   }
+
+   /**
+    * @param targets       the targets of the request
+    * @param responses     the responses received, or {@code null} if the request failed
+    * @param durationNanos how long the request took
+    */
+   public void requestDone(Collection<Address> targets, Map<Address, Response> responses, long durationNanos) {
+      for (Address target : targets) {
+         OwnerStats stats = ownerStats(target);
+         stats.outstanding.decrementAndGet();
+         if (responses != null && responses.containsKey(target)) {
+            stats.responseReceived(durationNanos);
+            addSample(durationNanos);
+         }
+      }
+   }
+
+   private Address leastLoaded(List<Address> candidates) {
+      Address best = null;
+      double bestCost = Double.MAX_VALUE;
+      for (Address candidate : candidates) {
+         OwnerStats stats = owners.get(candidate);
+         double cost;
+         if (stats == null) {
+            cost = 0;
+         } else if (stats.averageNanos == 0) {
+            // owners we haven't heard from yet are tried first
+            cost = stats.outstanding.get();
+         } else {
+            cost = stats.averageNanos * (stats.outstanding.get() + 1);
+         }
+         if (cost < bestCost) {
+            best = candidate;
+            bestCost = cost;
+         }
+      }
+      return best;
+   }
+
+   private OwnerStats ownerStats(Address owner) {
+      OwnerStats stats = owners.get(owner);
+      if (stats == null) {
+         stats = new OwnerStats();
+         OwnerStats existing = owners.putIfAbsent(owner, stats);
+         if (existing != null) stats = existing;
+      }
+      return stats;
+   }
+
+   private void addSample(long durationNanos) {
+      int count = sampleCount.incrementAndGet();
+      // NUM_SAMPLES and PERCENTILE_INTERVAL are powers of two, so the masks work even after the count overflows
+      samples.set((count - 1) & (NUM_SAMPLES - 1), durationNanos);
+      if (count == MIN_SAMPLES || (count & (PERCENTILE_INTERVAL - 1)) == 0) {
+         int numSamples = count > 0 ? Math.min(count, NUM_SAMPLES) : NUM_SAMPLES;
+         long[] sorted = new long[numSamples];
+         for (int i = 0; i < numSamples; i++) sorted[i] = samples.get(i);
+         Arrays.sort(sorted);
+         long percentile = sorted[Math.min(numSamples - 1, (int) (numSamples * PERCENTILE))];
+         staggerDelayNanos = Math.max(MIN_STAGGER_DELAY_NANOS, percentile);
+      }
+   }
+
+   private static final class OwnerStats {
+      private static final double WEIGHT = 0.2;
+
+      final AtomicInteger outstanding = new AtomicInteger();
+      // updated without synchronization, losing an update now and then doesn't matter
+      volatile double averageNanos;
+
+      void responseReceived(long durationNanos) {
+         double average = averageNanos;
+         averageNanos = average == 0 ? durationNanos : average + WEIGHT * (durationNanos - average);
+      }
+   }
+}
@@ -0,0 +1,17 @@
+package org.infinispan.eviction;
+
+/**
+ * Supported eviction types, i.e. what the eviction bound of a cache applies to
+ *
+ * @since 7.0
+ */
+public enum EvictionType {
+   /**
+    * Bounds the number of entries in the cache
+    */
+   COUNT,
+   /**
+    * Bounds the estimated amount of memory held by the entries in the cache
+    */
+   MEMORY
+}
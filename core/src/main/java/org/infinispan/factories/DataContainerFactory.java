@@ -5,8 +5,11 @@
 import org.infinispan.commons.CacheConfigurationException;
 import org.infinispan.container.DataContainer;
 import org.infinispan.container.DefaultDataContainer;
+import org.infinispan.container.SegmentedDataContainer;
+import org.infinispan.container.offheap.OffHeapDataContainer;
 import org.infinispan.eviction.EvictionStrategy;
 import org.infinispan.eviction.EvictionThreadPolicy;
+import org.infinispan.eviction.EvictionType;
 import org.infinispan.factories.annotations.DefaultFactoryFor;
 
 /**
@@ -25,6 +28,14 @@ public class DataContainerFactory extends AbstractNamedCacheComponentFactory imp
    public <T> T construct(Class<T> componentType) {
       if (configuration.dataContainer().dataContainer() != null) {
          return (T) configuration.dataContainer().dataContainer();
+      } else if (configuration.dataContainer().offHeap()) {
+         int level = configuration.locking().concurrencyLevel();
+         int maxEntries = configuration.eviction().strategy().isEnabled()
+               ? configuration.eviction().maxEntries() : -1;
+         return (T) new OffHeapDataContainer(level, maxEntries);
+      } else if (configuration.dataContainer().segmented()) {
+         return (T) new SegmentedDataContainer(configuration.locking().concurrencyLevel(),
+               configuration.dataContainer().keyEquivalence(), configuration.dataContainer().valueEquivalence());
       } else {
          EvictionStrategy st = configuration.eviction().strategy();
          int level = configuration.locking().concurrencyLevel();
@@ -39,6 +50,12 @@ public <T> T construct(Class<T> componentType) {
             case LRU:
             case FIFO:
             case LIRS:
+               EvictionThreadPolicy policy = configuration.eviction().threadPolicy();
+               if (configuration.eviction().type() == EvictionType.MEMORY) {
+                  return (T) DefaultDataContainer.memoryBoundedDataContainer(
+                     level, configuration.eviction().maxMemory(), st, policy, keyEquivalence, valueEquivalence);
+               }
+
                int maxEntries = configuration.eviction().maxEntries();
                //handle case when < 0 value signifies unbounded container 
                if(maxEntries < 0) {
@@ -46,8 +63,6 @@ public <T> T construct(Class<T> componentType) {
                          level, keyEquivalence, valueEquivalence);
                }
 
-               EvictionThreadPolicy policy = configuration.eviction().threadPolicy();
-
                return (T) DefaultDataContainer.boundedDataContainer(
                   level, maxEntries, st, policy, keyEquivalence, valueEquivalence);
             default:
@@ -10,6 +10,7 @@
 import org.infinispan.marshall.core.ExternalizerTable;
 import org.infinispan.remoting.InboundInvocationHandler;
 import org.infinispan.remoting.InboundInvocationHandlerImpl;
+import org.infinispan.statetransfer.OutboundStateThrottle;
 import org.infinispan.topology.ClusterTopologyManager;
 import org.infinispan.topology.ClusterTopologyManagerImpl;
 import org.infinispan.topology.DefaultRebalancePolicy;
@@ -31,7 +32,7 @@
 
 @DefaultFactoryFor(classes = {InboundInvocationHandler.class, RemoteCommandsFactory.class, ExternalizerTable.class,
                               RebalancePolicy.class, BackupReceiverRepository.class, CancellationService.class,
-                              TimeService.class})
+                              TimeService.class, OutboundStateThrottle.class})
 @Scope(Scopes.GLOBAL)
 public class EmptyConstructorFactory extends AbstractComponentFactory implements AutoInstantiableFactory {
 
@@ -56,7 +57,8 @@ else if (componentType.equals(CancellationService.class))
          return (T) new CancellationServiceImpl();
       else if (componentType.equals(TimeService.class)) {
          return (T) new DefaultTimeService();
-      }
+      } else if (componentType.equals(OutboundStateThrottle.class))
+         return (T) new OutboundStateThrottle();
 
       throw new CacheConfigurationException("Don't know how to create a " + componentType.getName());
    }
@@ -22,6 +22,8 @@
 import org.infinispan.eviction.PassivationManagerImpl;
 import org.infinispan.factories.annotations.DefaultFactoryFor;
 import org.infinispan.interceptors.locking.ClusteringDependentLogic;
+import org.infinispan.iteration.EntryRetriever;
+import org.infinispan.iteration.EntryRetrieverImpl;
 import org.infinispan.marshall.core.MarshalledEntryFactory;
 import org.infinispan.marshall.core.MarshalledEntryFactoryImpl;
 import org.infinispan.persistence.manager.PersistenceManager;
@@ -35,6 +37,7 @@
 import org.infinispan.transaction.xa.TransactionFactory;
 import org.infinispan.transaction.xa.recovery.RecoveryAdminOperations;
 import org.infinispan.util.concurrent.locks.containers.LockContainer;
+import org.infinispan.util.concurrent.locks.containers.OwnableReentrantLockTableContainer;
 import org.infinispan.util.concurrent.locks.containers.OwnableReentrantPerEntryLockContainer;
 import org.infinispan.util.concurrent.locks.containers.OwnableReentrantStripedLockContainer;
 import org.infinispan.util.concurrent.locks.containers.ReentrantPerEntryLockContainer;
@@ -59,7 +62,7 @@
                               ClusteringDependentLogic.class, LockContainer.class,
                               L1Manager.class, TransactionFactory.class, BackupSender.class,
                               TotalOrderManager.class, ByteBufferFactory.class, MarshalledEntryFactory.class,
-                              RemoteValueRetrievedListener.class})
+                              RemoteValueRetrievedListener.class, EntryRetriever.class})
 public class EmptyConstructorNamedCacheFactory extends AbstractNamedCacheComponentFactory implements AutoInstantiableFactory {
 
    @Override
@@ -105,6 +108,10 @@ public <T> T construct(Class<T> componentType) {
             return (T) new EvictionManagerImpl();
          } else if (componentType.equals(LockContainer.class)) {
             boolean  notTransactional = !isTransactional;
+            if (!configuration.locking().useLockStriping() && configuration.locking().lockTableSize() > 0) {
+               // the lock owner is the current thread in non-transactional caches
+               return (T) new OwnableReentrantLockTableContainer(configuration.locking().lockTableSize());
+            }
             LockContainer<?> lockContainer = configuration.locking().useLockStriping() ?
                   notTransactional ? new ReentrantStripedLockContainer(configuration.locking().concurrencyLevel())
                         : new OwnableReentrantStripedLockContainer(configuration.locking().concurrencyLevel()) :
@@ -126,6 +133,8 @@ public <T> T construct(Class<T> componentType) {
          } else if (componentType.equals(RemoteValueRetrievedListener.class)) {
             // L1Manager is currently only listener for remotely retrieved values
             return (T) componentRegistry.getComponent(L1Manager.class);
+         } else if (componentType.equals(EntryRetriever.class)) {
+            return (T) new EntryRetrieverImpl();
          }
       }
 
@@ -1,6 +1,7 @@
 package org.infinispan.interceptors;
 
 import org.infinispan.commands.FlagAffectedCommand;
+import org.infinispan.commands.read.GetAllCommand;
 import org.infinispan.commands.read.GetKeyValueCommand;
 import org.infinispan.commands.write.EvictCommand;
 import org.infinispan.commands.write.PutKeyValueCommand;
@@ -9,6 +10,8 @@
 import org.infinispan.commands.write.ReplaceCommand;
 import org.infinispan.commands.write.WriteCommand;
 import org.infinispan.container.DataContainer;
+import org.infinispan.container.DefaultDataContainer;
+import org.infinispan.container.offheap.OffHeapDataContainer;
 import org.infinispan.context.Flag;
 import org.infinispan.context.InvocationContext;
 import org.infinispan.factories.annotations.Inject;
@@ -83,14 +86,31 @@ public Object visitEvictCommand(InvocationContext ctx, EvictCommand command) thr
    }
 
    @Override
-   public Object visitGetKeyValueCommand(InvocationContext ctx, GetKeyValueCommand command) throws Throwable {
+   public Object visitGetKeyValueCommand(final InvocationContext ctx, GetKeyValueCommand command) throws Throwable {
       long start = 0;
-      boolean statisticsEnabled = getStatisticsEnabled(command);
+      final boolean statisticsEnabled = getStatisticsEnabled(command);
       if (statisticsEnabled)
          start = timeService.time();
 
       Object retval = invokeNextInterceptor(ctx, command);
 
+      if (retval instanceof InvocationFuture) {
+         final long startTime = start;
+         return ((InvocationFuture) retval).then(new InvocationFuture.Continuation() {
+            @Override
+            public Object apply(Object result, Throwable failure) throws Throwable {
+               if (failure != null)
+                  throw failure;
+               updateGetStatistics(ctx, statisticsEnabled, startTime, result);
+               return result;
+            }
+         });
+      }
+      updateGetStatistics(ctx, statisticsEnabled, start, retval);
+      return retval;
+   }
+
+   private void updateGetStatistics(InvocationContext ctx, boolean statisticsEnabled, long start, Object retval) {
       if (statisticsEnabled) {
          long intervalMilliseconds = timeService.timeDuration(start, TimeUnit.MILLISECONDS);
          if (ctx.isOriginLocal()) {
@@ -103,6 +123,34 @@ public Object visitGetKeyValueCommand(InvocationContext ctx, GetKeyValueCommand
             }
          }
       }
+   }
+
+   @Override
+   public Object visitGetAllCommand(InvocationContext ctx, GetAllCommand command) throws Throwable {
+      long start = 0;
+      boolean statisticsEnabled = getStatisticsEnabled(command);
+      if (statisticsEnabled)
+         start = timeService.time();
+
+      Map<?, ?> retval = (Map<?, ?>) invokeNextInterceptor(ctx, command);
+
+      if (statisticsEnabled && ctx.isOriginLocal()) {
+         long intervalMilliseconds = timeService.timeDuration(start, TimeUnit.MILLISECONDS);
+         int requests = command.getKeys().size();
+         if (requests > 0) {
+            // the time spent is shared evenly between the requested keys
+            int hitCount = retval.size();
+            int missCount = requests - hitCount;
+            if (hitCount > 0) {
+               hitTimes.add(intervalMilliseconds * hitCount / requests);
+               hits.add(hitCount);
+            }
+            if (missCount > 0) {
+               missTimes.add(intervalMilliseconds * missCount / requests);
+               misses.add(missCount);
+            }
+         }
+      }
 
       return retval;
    }
@@ -139,21 +187,36 @@ public Object visitReplaceCommand(InvocationContext ctx, ReplaceCommand command)
       return updateStoreStatistics(ctx, command);
    }
 
-   private Object updateStoreStatistics(InvocationContext ctx, WriteCommand command) throws Throwable {
+   private Object updateStoreStatistics(final InvocationContext ctx, final WriteCommand command) throws Throwable {
       long start = 0;
-      boolean statisticsEnabled = getStatisticsEnabled(command);
+      final boolean statisticsEnabled = getStatisticsEnabled(command);
       if (statisticsEnabled)
          start = timeService.time();
 
       Object retval = invokeNextInterceptor(ctx, command);
 
+      if (retval instanceof InvocationFuture) {
+         final long startTime = start;
+         return ((InvocationFuture) retval).then(new InvocationFuture.Continuation() {
+            @Override
+            public Object apply(Object result, Throwable failure) throws Throwable {
+               if (failure != null)
+                  throw failure;
+               updateStoreStatistics(ctx, command, statisticsEnabled, startTime);
+               return result;
+            }
+         });
+      }
+      updateStoreStatistics(ctx, command, statisticsEnabled, start);
+      return retval;
+   }
+
+   private void updateStoreStatistics(InvocationContext ctx, WriteCommand command, boolean statisticsEnabled, long start) {
       if (statisticsEnabled && ctx.isOriginLocal() && command.isSuccessful()) {
          long intervalMilliseconds = timeService.timeDuration(start, TimeUnit.MILLISECONDS);
          storeTimes.add(intervalMilliseconds);
          stores.increment();
       }
-
-      return retval;
    }
 
    @Override
@@ -237,6 +300,20 @@ public long getEvictions() {
       return evictions.sum();
    }
 
+   @ManagedAttribute(
+         description = "Estimated amount of memory, in bytes, held by the entries of the cache, or -1 if " +
+               "not tracked by the data container",
+         displayName = "Memory used by cache entries",
+         displayType = DisplayType.SUMMARY
+   )
+   public long getMemoryUsed() {
+      if (dataContainer instanceof DefaultDataContainer)
+         return ((DefaultDataContainer) dataContainer).getMemoryUsed();
+      if (dataContainer instanceof OffHeapDataContainer)
+         return ((OffHeapDataContainer) dataContainer).getAllocatedBytes();
+      return -1;
+   }
+
    @ManagedAttribute(
          description = "Percentage hit/(hit+miss) ratio for the cache",
          displayName = "Hit ratio",
@@ -3,6 +3,7 @@
 import org.infinispan.commands.AbstractVisitor;
 import org.infinispan.commands.CommandsFactory;
 import org.infinispan.commands.FlagAffectedCommand;
+import org.infinispan.commands.read.GetAllCommand;
 import org.infinispan.commands.read.GetKeyValueCommand;
 import org.infinispan.commands.tx.CommitCommand;
 import org.infinispan.commands.tx.PrepareCommand;
@@ -109,18 +110,58 @@ public Object visitCommitCommand(TxInvocationContext ctx, CommitCommand command)
    }
 
    @Override
-   public final Object visitGetKeyValueCommand(InvocationContext ctx, GetKeyValueCommand command) throws Throwable {
+   public final Object visitGetKeyValueCommand(final InvocationContext ctx, final GetKeyValueCommand command) throws Throwable {
+      Object result = null;
       try {
          entryFactory.wrapEntryForReading(ctx, command.getKey());
+         result = invokeNextInterceptor(ctx, command);
+      } finally {
+         if (!(result instanceof InvocationFuture))
+            afterGet(ctx, command);
+      }
+      if (result instanceof InvocationFuture) {
+         return ((InvocationFuture) result).then(new InvocationFuture.Continuation() {
+            @Override
+            public Object apply(Object result, Throwable failure) throws Throwable {
+               afterGet(ctx, command);
+               if (failure != null)
+                  throw failure;
+               return result;
+            }
+         });
+      }
+      return result;
+   }
+
+   private void afterGet(InvocationContext ctx, GetKeyValueCommand command) {
+      //needed because entries might be added in L1
+      if (!ctx.isInTxScope())
+         commitContextEntries(ctx, command, null);
+      else {
+         CacheEntry entry = ctx.lookupEntry(command.getKey());
+         if (entry != null) {
+            entry.setSkipRemoteGet(true);
+         }
+      }
+   }
+
+   @Override
+   public final Object visitGetAllCommand(InvocationContext ctx, GetAllCommand command) throws Throwable {
+      try {
+         for (Object key : command.getKeys()) {
+            entryFactory.wrapEntryForReading(ctx, key);
+         }
          return invokeNextInterceptor(ctx, command);
       } finally {
          //needed because entries might be added in L1
          if (!ctx.isInTxScope())
             commitContextEntries(ctx, command, null);
          else {
-            CacheEntry entry = ctx.lookupEntry(command.getKey());
-            if (entry != null) {
-               entry.setSkipRemoteGet(true);
+            for (Object key : command.getKeys()) {
+               CacheEntry entry = ctx.lookupEntry(key);
+               if (entry != null) {
+                  entry.setSkipRemoteGet(true);
+               }
             }
          }
       }
@@ -317,9 +358,23 @@ protected void commitContextEntry(CacheEntry entry, InvocationContext ctx,
       cdl.commitEntry(entry, metadata, command, ctx);
    }
 
-   private Object invokeNextAndApplyChanges(InvocationContext ctx, FlagAffectedCommand command, Metadata metadata) throws Throwable {
+   private Object invokeNextAndApplyChanges(final InvocationContext ctx, final FlagAffectedCommand command,
+                                            final Metadata metadata) throws Throwable {
       final Object result = invokeNextInterceptor(ctx, command);
+      if (result instanceof InvocationFuture) {
+         return ((InvocationFuture) result).then(new InvocationFuture.Continuation() {
+            @Override
+            public Object apply(Object result, Throwable failure) throws Throwable {
+               if (failure != null)
+                  throw failure;
+               return applyChanges(ctx, command, metadata, result);
+            }
+         });
+      }
+      return applyChanges(ctx, command, metadata, result);
+   }
 
+   private Object applyChanges(InvocationContext ctx, FlagAffectedCommand command, Metadata metadata, Object result) {
       if (!ctx.isInTxScope()) {
          stateTransferLock.acquireSharedTopologyLock();
          try {
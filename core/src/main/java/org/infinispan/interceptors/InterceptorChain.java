@@ -4,6 +4,7 @@
 import org.infinispan.commons.CacheException;
 import org.infinispan.commons.util.InfinispanCollections;
 import org.infinispan.commons.util.ReflectionUtil;
+import org.infinispan.commons.util.concurrent.NotifyingFuture;
 import org.infinispan.commons.CacheConfigurationException;
 import org.infinispan.context.InvocationContext;
 import org.infinispan.factories.annotations.Inject;
@@ -20,6 +21,7 @@
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
@@ -39,6 +41,11 @@ public class InterceptorChain {
     */
    private volatile CommandInterceptor firstInChain;
 
+   /**
+    * incremented whenever the chain is modified
+    */
+   private final AtomicInteger version = new AtomicInteger();
+
    final ReentrantLock lock = new ReentrantLock();
    final ComponentMetadataRepo componentMetadataRepo;
 
@@ -86,6 +93,7 @@ public void addInterceptor(CommandInterceptor interceptor, int position) {
       final ReentrantLock lock = this.lock;
       lock.lock();
       try {
+         version.incrementAndGet();
          Class<? extends CommandInterceptor> interceptorClass = interceptor.getClass();
          assertNotAdded(interceptorClass);
          validateCustomInterceptor(interceptorClass);
@@ -121,6 +129,7 @@ public void removeInterceptor(int position) {
       final ReentrantLock lock = this.lock;
       lock.lock();
       try {
+         version.incrementAndGet();
          if (firstInChain == null) return;
          if (position == 0) {
             firstInChain = firstInChain.getNext();
@@ -181,6 +190,7 @@ public void removeInterceptor(Class<? extends CommandInterceptor> clazz) {
       final ReentrantLock lock = this.lock;
       lock.lock();
       try {
+         version.incrementAndGet();
          if (isFirstInChain(clazz)) {
             firstInChain = firstInChain.getNext();
          }
@@ -211,6 +221,7 @@ public boolean addInterceptorAfter(CommandInterceptor toAdd, Class<? extends Com
       final ReentrantLock lock = this.lock;
       lock.lock();
       try {
+         version.incrementAndGet();
          Class<? extends CommandInterceptor> interceptorClass = toAdd.getClass();
          assertNotAdded(interceptorClass);
          validateCustomInterceptor(interceptorClass);
@@ -238,6 +249,7 @@ public boolean addInterceptorBefore(CommandInterceptor toAdd, Class<? extends Co
       final ReentrantLock lock = this.lock;
       lock.lock();
       try {
+         version.incrementAndGet();
          Class<? extends CommandInterceptor> interceptorClass = toAdd.getClass();
          assertNotAdded(interceptorClass);
          validateCustomInterceptor(interceptorClass);
@@ -273,6 +285,7 @@ public boolean replaceInterceptor(CommandInterceptor replacingInterceptor, Class
       final ReentrantLock lock = this.lock;
       lock.lock();
       try {
+         version.incrementAndGet();
          Class<? extends CommandInterceptor> interceptorClass = replacingInterceptor.getClass();
          assertNotAdded(interceptorClass);
          validateCustomInterceptor(interceptorClass);
@@ -305,6 +318,7 @@ public boolean replaceInterceptor(CommandInterceptor replacingInterceptor, Class
     */
    public void appendInterceptor(CommandInterceptor ci, boolean isCustom) {
       if (isCustom) validateCustomInterceptor(ci.getClass());
+      version.incrementAndGet();
       // Called when building interceptor chain and so concurrent start calls are protected already
       CommandInterceptor it = firstInChain;
       while (it.hasNext()) it = it.getNext();
@@ -330,6 +344,39 @@ public Object invoke(InvocationContext ctx, VisitableCommand command) {
       }
    }
 
+   /**
+    * Walks the command through the interceptor chain in asynchronous mode: interceptors which would otherwise block
+    * waiting for a remote response may return an {@link InvocationFuture} instead, and the interceptors before them
+    * continue once it completes. The returned future completes with the result, or the exception, {@link
+    * #invoke(InvocationContext, VisitableCommand)} would have returned or thrown. Work which doesn't depend on remote
+    * responses is still done by the calling thread.
+    */
+   public NotifyingFuture<Object> invokeAsync(InvocationContext ctx, VisitableCommand command) {
+      ctx.setUseFutureReturnType(true);
+      Object result;
+      try {
+         result = command.acceptVisitor(ctx, firstInChain);
+      } catch (Throwable t) {
+         return InvocationFuture.failed(asRuntimeException(t));
+      }
+      if (!(result instanceof InvocationFuture))
+         return InvocationFuture.completed(result);
+
+      return ((InvocationFuture) result).then(new InvocationFuture.Continuation() {
+         @Override
+         public Object apply(Object result, Throwable failure) {
+            if (failure != null) throw asRuntimeException(failure);
+            return result;
+         }
+      });
+   }
+
+   private static RuntimeException asRuntimeException(Throwable t) {
+      if (t instanceof RuntimeException)
+         return (RuntimeException) t;
+      return new CacheException(t);
+   }
+
    /**
     * @return the first interceptor in the chain.
     */
@@ -344,9 +391,17 @@ public CommandInterceptor getFirstInChain() {
     * @param interceptor interceptor to be used as the first interceptor in the chain.
     */
    public void setFirstInChain(CommandInterceptor interceptor) {
+      version.incrementAndGet();
       this.firstInChain = interceptor;
    }
 
+   /**
+    * @return a number that changes whenever interceptors are added to, removed from or replaced in the chain
+    */
+   public int getVersion() {
+      return version.get();
+   }
+
    /**
     * Returns all interceptors which extend the given command interceptor.
     */
@@ -0,0 +1,113 @@
+package org.infinispan.interceptors;
+
+import org.infinispan.commons.util.concurrent.CompletableNotifyingFuture;
+import org.infinispan.commons.util.concurrent.FutureListener;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * The return value of an interceptor invoked in asynchronous mode (see {@link InterceptorChain#invokeAsync}), standing
+ * for a result which depends on a remote response that hasn't arrived yet. Interceptors closer to the caller either
+ * return it as is, or use {@link #then(Continuation)} to continue their work once it completes instead of waiting for
+ * it.
+ * <p/>
+ * Continuations run on the thread completing the future, usually a transport thread, so they must not block.
+ *
+ * @since 7.0
+ */
+@SuppressWarnings("deprecation")
+public final class InvocationFuture extends CompletableNotifyingFuture<Object>
+      implements org.infinispan.util.concurrent.NotifyingFuture<Object> {
+
+   /**
+    * The remainder of an interceptor's work, run once the result of the rest of the chain is known.
+    */
+   public interface Continuation {
+      /**
+       * @param result  the result of the rest of the chain, if it succeeded
+       * @param failure the failure of the rest of the chain, or <tt>null</tt> if it succeeded
+       * @return the interceptor's result, which may itself be an {@link InvocationFuture}
+       */
+      Object apply(Object result, Throwable failure) throws Throwable;
+   }
+
+   /**
+    * @return a future completed with the result of applying the continuation to this future's outcome
+    */
+   public InvocationFuture then(final Continuation continuation) {
+      final InvocationFuture next = new InvocationFuture();
+      attachListener(new FutureListener<Object>() {
+         @Override
+         public void futureDone(Future<Object> future) {
+            Object result = null;
+            Throwable failure = null;
+            try {
+               result = future.get();
+            } catch (ExecutionException e) {
+               failure = e.getCause();
+            } catch (CancellationException e) {
+               failure = e;
+            } catch (InterruptedException e) {
+               // cannot happen, the future is done
+               Thread.currentThread().interrupt();
+               failure = e;
+            }
+            try {
+               next.completeWith(continuation.apply(result, failure));
+            } catch (Throwable t) {
+               next.fail(t);
+            }
+         }
+      });
+      return next;
+   }
+
+   @Override
+   public InvocationFuture attachListener(org.infinispan.util.concurrent.FutureListener<Object> listener) {
+      attachListener((FutureListener<Object>) listener);
+      return this;
+   }
+
+   /**
+    * Completes this future with the given result, or once the given result completes if it is an {@link
+    * InvocationFuture} itself.
+    */
+   public void completeWith(Object result) {
+      if (result instanceof InvocationFuture) {
+         ((InvocationFuture) result).attachListener(new FutureListener<Object>() {
+            @Override
+            public void futureDone(Future<Object> future) {
+               try {
+                  complete(future.get());
+               } catch (ExecutionException e) {
+                  fail(e.getCause());
+               } catch (Throwable t) {
+                  fail(t);
+               }
+            }
+         });
+      } else {
+         complete(result);
+      }
+   }
+
+   /**
+    * @return a future already completed with the given result
+    */
+   public static InvocationFuture completed(Object result) {
+      InvocationFuture future = new InvocationFuture();
+      future.complete(result);
+      return future;
+   }
+
+   /**
+    * @return a future already completed with the given failure
+    */
+   public static InvocationFuture failed(Throwable failure) {
+      InvocationFuture future = new InvocationFuture();
+      future.fail(failure);
+      return future;
+   }
+}
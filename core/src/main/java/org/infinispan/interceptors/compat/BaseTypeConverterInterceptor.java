@@ -2,6 +2,7 @@
 
 import org.infinispan.commands.MetadataAwareCommand;
 import org.infinispan.commands.read.EntrySetCommand;
+import org.infinispan.commands.read.GetAllCommand;
 import org.infinispan.commands.read.GetKeyValueCommand;
 import org.infinispan.commands.read.KeySetCommand;
 import org.infinispan.commands.write.PutKeyValueCommand;
@@ -20,7 +21,11 @@
 import org.infinispan.metadata.Metadata;
 import org.infinispan.util.TimeService;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -95,6 +100,47 @@ public Object visitGetKeyValueCommand(InvocationContext ctx, GetKeyValueCommand
       return null;
    }
 
+   @Override
+   @SuppressWarnings("unchecked")
+   public Object visitGetAllCommand(InvocationContext ctx, GetAllCommand command) throws Throwable {
+      TypeConverter<Object, Object, Object, Object> converter =
+            determineTypeConverter(command.getFlags());
+      Map<Object, Object> keyMapping = null;
+      if (ctx.isOriginLocal()) {
+         keyMapping = new HashMap<Object, Object>();
+         List<Object> boxedKeys = new ArrayList<Object>(command.getKeys().size());
+         for (Object key : command.getKeys()) {
+            Object boxedKey = converter.boxKey(key);
+            keyMapping.put(boxedKey, key);
+            boxedKeys.add(boxedKey);
+         }
+         command.setKeys(boxedKeys);
+      }
+      Map<Object, Object> ret = (Map<Object, Object>) invokeNextInterceptor(ctx, command);
+      Map<Object, InternalCacheEntry> remotelyFetched = command.getRemotelyFetched();
+      Map<Object, Object> unboxed = new HashMap<Object, Object>(ret.size());
+      for (Map.Entry<Object, Object> e : ret.entrySet()) {
+         Object key = e.getKey();
+         boolean fetchedRemotely = remotelyFetched != null && remotelyFetched.containsKey(key);
+         Object value = e.getValue();
+         if (command.isReturnEntries()) {
+            CacheEntry entry = (CacheEntry) value;
+            Object returnValue = fetchedRemotely ? entry.getValue() : converter.unboxValue(entry.getValue());
+            // Create a copy of the entry to avoid modifying the internal entry
+            value = entryFactory.create(
+                  entry.getKey(), returnValue, entry.getMetadata(),
+                  entry.getLifespan(), entry.getMaxIdle());
+         } else if (!fetchedRemotely) {
+            value = converter.unboxValue(value);
+         }
+         if (keyMapping != null && keyMapping.containsKey(key)) {
+            key = keyMapping.get(key);
+         }
+         unboxed.put(key, value);
+      }
+      return unboxed;
+   }
+
    @Override
    public Object visitReplaceCommand(InvocationContext ctx, ReplaceCommand command) throws Throwable {
       Object key = command.getKey();
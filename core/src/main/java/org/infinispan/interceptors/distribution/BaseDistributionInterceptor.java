@@ -1,18 +1,29 @@
 package org.infinispan.interceptors.distribution;
 
 import org.infinispan.commands.FlagAffectedCommand;
+import org.infinispan.commands.remote.ClusteredGetAllCommand;
 import org.infinispan.commands.remote.ClusteredGetCommand;
 import org.infinispan.commands.write.DataWriteCommand;
 import org.infinispan.commands.write.WriteCommand;
 import org.infinispan.commons.CacheException;
+import org.infinispan.commons.util.concurrent.FutureListener;
+import org.infinispan.commons.util.concurrent.NotifyingFuture;
+import org.infinispan.commons.util.concurrent.NotifyingFutureImpl;
+import org.infinispan.configuration.cache.RemoteReadPolicy;
 import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.container.entries.InternalCacheValue;
 import org.infinispan.context.InvocationContext;
 import org.infinispan.context.impl.TxInvocationContext;
 import org.infinispan.distribution.DistributionManager;
+import org.infinispan.distribution.RemoteReadOwnerSelector;
 import org.infinispan.distribution.RemoteValueRetrievedListener;
+import org.infinispan.distribution.ch.ConsistentHash;
+import org.infinispan.factories.KnownComponentNames;
+import org.infinispan.factories.annotations.ComponentName;
 import org.infinispan.factories.annotations.Inject;
+import org.infinispan.factories.annotations.Start;
 import org.infinispan.interceptors.ClusteringInterceptor;
+import org.infinispan.interceptors.InvocationFuture;
 import org.infinispan.interceptors.locking.ClusteringDependentLogic;
 import org.infinispan.remoting.RemoteException;
 import org.infinispan.remoting.responses.CacheNotFoundResponse;
@@ -23,8 +34,8 @@
 import org.infinispan.remoting.rpc.ResponseFilter;
 import org.infinispan.remoting.rpc.ResponseMode;
 import org.infinispan.remoting.rpc.RpcOptions;
-import org.infinispan.remoting.rpc.RpcOptionsBuilder;
 import org.infinispan.remoting.transport.Address;
+import org.infinispan.remoting.transport.jgroups.SuspectException;
 import org.infinispan.statetransfer.OutdatedTopologyException;
 import org.infinispan.topology.CacheTopology;
 import org.infinispan.transaction.xa.GlobalTransaction;
@@ -34,9 +45,15 @@
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Base class for distribution of entries across a cluster.
@@ -53,6 +70,8 @@ public abstract class BaseDistributionInterceptor extends ClusteringInterceptor
 
    protected ClusteringDependentLogic cdl;
    protected RemoteValueRetrievedListener rvrl;
+   private ScheduledExecutorService scheduledExecutor;
+   private RemoteReadOwnerSelector ownerSelector;
 
    private static final Log log = LogFactory.getLog(BaseDistributionInterceptor.class);
    private static final boolean trace = log.isTraceEnabled();
@@ -64,10 +83,18 @@ protected Log getLog() {
 
    @Inject
    public void injectDependencies(DistributionManager distributionManager, ClusteringDependentLogic cdl,
-                                  RemoteValueRetrievedListener rvrl) {
+                                  RemoteValueRetrievedListener rvrl,
+                                  @ComponentName(KnownComponentNames.EVICTION_SCHEDULED_EXECUTOR) ScheduledExecutorService scheduledExecutor) {
       this.dm = distributionManager;
       this.cdl = cdl;
       this.rvrl = rvrl;
+      this.scheduledExecutor = scheduledExecutor;
+   }
+
+   @Start
+   public void startRemoteReads() {
+      RemoteReadPolicy policy = cacheConfiguration.clustering().hash().remoteReadPolicy();
+      ownerSelector = policy == RemoteReadPolicy.ALL_OWNERS ? null : new RemoteReadOwnerSelector(policy);
    }
 
    @Override
@@ -76,13 +103,86 @@ protected final InternalCacheEntry retrieveFromRemoteSource(Object key, Invocati
       ClusteredGetCommand get = cf.buildClusteredGetCommand(key, command.getFlags(), acquireRemoteLock, gtx);
       get.setWrite(isWrite);
 
+      InvocationFuture result = new InvocationFuture();
+      // a remote lock must be acquired on all the owners
+      new RemoteGet(key, get, result, acquireRemoteLock ? null : ownerSelector).next(false);
+      try {
+         return (InternalCacheEntry) result.get();
+      } catch (ExecutionException e) {
+         Throwable cause = e.getCause();
+         if (cause instanceof Exception) throw (Exception) cause;
+         throw new CacheException(cause);
+      }
+   }
+
+   /**
+    * Same as {@link #retrieveFromRemoteSource(Object, InvocationContext, boolean, FlagAffectedCommand, boolean)} for
+    * a non-locking read, except that it doesn't wait for the remote responses: the returned future completes with the
+    * entry, or <tt>null</tt> if none of the owners had a value.
+    */
+   protected final InvocationFuture retrieveFromRemoteSourceAsync(Object key, InvocationContext ctx, FlagAffectedCommand command) {
+      ClusteredGetCommand get = cf.buildClusteredGetCommand(key, command.getFlags(), false, null);
+      get.setWrite(false);
+      InvocationFuture result = new InvocationFuture();
+      new RemoteGet(key, get, result, ownerSelector).next(false);
+      return result;
+   }
 
-      RpcOptionsBuilder rpcOptionsBuilder = rpcManager.getRpcOptionsBuilder(ResponseMode.WAIT_FOR_VALID_RESPONSE, false);
-      int lastTopologyId = -1;
-      InternalCacheEntry value = null;
-      while (value == null) {
+   private InternalCacheEntry getCacheEntry(Map<Address, Response> responses, Object key) {
+      if (responses != null && !responses.isEmpty()) {
+         for (Response r : responses.values()) {
+            if (r instanceof SuccessfulResponse) {
+
+               // The response value might be null.
+               SuccessfulResponse response = (SuccessfulResponse) r;
+               Object responseValue = response.getResponseValue();
+               if (responseValue == null) {
+                  continue;
+               }
+
+               InternalCacheValue cacheValue = (InternalCacheValue) responseValue;
+               return cacheValue.toInternalCacheEntry(key);
+            }
+         }
+      }
+      return null;
+   }
+
+   private static boolean hasValidResponse(Map<Address, Response> responses) {
+      if (responses != null) {
+         for (Response r : responses.values()) {
+            if (r instanceof SuccessfulResponse) return true;
+         }
+      }
+      return false;
+   }
+
+   /**
+    * Chooses the owners a remote get asks next: first the read owners in the current topology, then the write owners
+    * not contacted yet, then the read owners again whenever the topology changes.
+    * <p/>
+    * With a {@link RemoteReadOwnerSelector}, the read owners are split in two rounds: the owner chosen by the selector
+    * is asked first, and the other read owners are only asked if it didn't send a valid response.
+    */
+   private class RemoteGetTargets {
+      private final Object key;
+      private final RemoteReadOwnerSelector selector;
+      private int lastTopologyId = -1;
+      private List<Address> deferredOwners;
+      int currentTopologyId;
+
+      RemoteGetTargets(Object key, RemoteReadOwnerSelector selector) {
+         this.key = key;
+         this.selector = selector;
+      }
+
+      /**
+       * @param previousRoundValid whether the previous round received a valid response
+       * @return the owners to ask next, or <tt>null</tt> if there are no more owners to ask
+       */
+      List<Address> next(boolean previousRoundValid) {
          final CacheTopology cacheTopology = stateTransferManager.getCacheTopology();
-         final int currentTopologyId = cacheTopology.getTopologyId();
+         currentTopologyId = cacheTopology.getTopologyId();
 
          if (trace) {
             log.tracef("Perform remote get for key %s. topologyId=%s, currentTopologyId=%s",
@@ -93,6 +193,19 @@ protected final InternalCacheEntry retrieveFromRemoteSource(Object key, Invocati
             // Cache topology has changed or it is the first time.
             lastTopologyId = currentTopologyId;
             targets = new ArrayList<Address>(cacheTopology.getReadConsistentHash().locateOwners(key));
+            deferredOwners = null;
+            Address first = selector != null ? selector.select(targets, rpcManager.getAddress()) : null;
+            if (first != null) {
+               targets.remove(first);
+               deferredOwners = targets;
+               targets = Collections.singletonList(first);
+            }
+         } else if (lastTopologyId == currentTopologyId && deferredOwners != null) {
+            // A valid response from one of the read owners is as good as a valid response from all of them
+            targets = takeDeferredOwners();
+            if (previousRoundValid || targets.isEmpty()) {
+               return next(previousRoundValid);
+            }
          } else if (lastTopologyId == currentTopologyId) {
             // Same topologyId, but the owners could have already installed the next topology
             // Lets try with write consistent owners (the read owners in the next topology)
@@ -104,51 +217,267 @@ protected final InternalCacheEntry retrieveFromRemoteSource(Object key, Invocati
                if (trace) {
                   log.tracef("No valid values found for key '%s' (topologyId=%s).", key, currentTopologyId);
                }
-               break;
+               return null;
             }
          } else { // lastTopologyId > currentTopologyId
             // We have not received a valid value from the write CH owners either, and the topology id hasn't changed
             if (trace) {
                log.tracef("No valid values found for key '%s' (topologyId=%s).", key, currentTopologyId);
             }
-            break;
+            return null;
          }
+         return targets;
+      }
 
-         value = invokeClusterGetCommandRemotely(targets, rpcOptionsBuilder, get, key);
-         if (trace) {
-            log.tracef("Remote get of key '%s' (topologyId=%s) returns %s", key, currentTopologyId, value);
-         }
+      /**
+       * @return the read owners that weren't asked yet in the current round, or <tt>null</tt> if there are none
+       */
+      List<Address> takeDeferredOwners() {
+         List<Address> owners = deferredOwners;
+         deferredOwners = null;
+         return owners;
       }
-      return value;
    }
 
-   private InternalCacheEntry invokeClusterGetCommandRemotely(List<Address> targets, RpcOptionsBuilder rpcOptionsBuilder,
-                                                      ClusteredGetCommand get, Object key) {
-      ResponseFilter filter = new ClusteredGetResponseValidityFilter(targets, rpcManager.getAddress());
-      RpcOptions options = rpcOptionsBuilder.responseFilter(filter).build();
-      Map<Address, Response> responses = rpcManager.invokeRemotely(targets, get, options);
+   /**
+    * A remote get which asks the owners chosen by {@link RemoteGetTargets} one round at a time, sending each round
+    * once the previous one's responses have arrived instead of waiting for them.
+    * <p/>
+    * With the {@link RemoteReadPolicy#STAGGERED} policy, the other read owners are also asked if the first owner
+    * hasn't answered within the {@link RemoteReadOwnerSelector#getStaggerDelayNanos() stagger delay}, and the round
+    * completes with the first value received.
+    */
+   private class RemoteGet {
+      private final Object key;
+      private final ClusteredGetCommand get;
+      private final InvocationFuture result;
+      private final RemoteReadOwnerSelector selector;
+      private final RemoteGetTargets remoteGetTargets;
 
-      if (!responses.isEmpty()) {
-         for (Response r : responses.values()) {
-            if (r instanceof SuccessfulResponse) {
+      RemoteGet(Object key, ClusteredGetCommand get, InvocationFuture result, RemoteReadOwnerSelector selector) {
+         this.key = key;
+         this.get = get;
+         this.result = result;
+         this.selector = selector;
+         this.remoteGetTargets = new RemoteGetTargets(key, selector);
+      }
 
-               // The response value might be null.
-               SuccessfulResponse response = (SuccessfulResponse) r;
-               Object responseValue = response.getResponseValue();
-               if (responseValue == null) {
-                  continue;
+      void next(boolean previousRoundValid) {
+         try {
+            List<Address> targets = remoteGetTargets.next(previousRoundValid);
+            if (targets == null) {
+               result.complete(null);
+               return;
+            }
+            new Round().start(targets);
+         } catch (Throwable t) {
+            result.fail(t);
+         }
+      }
+
+      private class Round implements Runnable {
+         // guarded by this
+         private int outstanding;
+         private boolean validResponse;
+         private boolean done;
+         private ScheduledFuture<?> staggerTask;
+
+         void start(List<Address> targets) {
+            synchronized (this) {
+               outstanding = 1;
+            }
+            if (selector != null && selector.getPolicy() == RemoteReadPolicy.STAGGERED && targets.size() == 1) {
+               ScheduledFuture<?> task = scheduledExecutor.schedule(this, selector.getStaggerDelayNanos(), TimeUnit.NANOSECONDS);
+               synchronized (this) {
+                  if (done) {
+                     task.cancel(false);
+                  } else {
+                     staggerTask = task;
+                  }
                }
+            }
+            send(targets);
+         }
 
-               InternalCacheValue cacheValue = (InternalCacheValue) responseValue;
-               InternalCacheEntry ice = cacheValue.toInternalCacheEntry(key);
+         /**
+          * The first owner didn't answer within the stagger delay, ask the others.
+          */
+         @Override
+         public void run() {
+            List<Address> targets;
+            synchronized (this) {
+               if (done) return;
+               targets = remoteGetTargets.takeDeferredOwners();
+               if (targets == null || targets.isEmpty()) return;
+               outstanding++;
+            }
+            if (trace) log.tracef("No response for key %s after %d ns, asking %s", key, selector.getStaggerDelayNanos(), targets);
+            send(targets);
+         }
+
+         private void send(final List<Address> targets) {
+            final long startNanos = System.nanoTime();
+            if (selector != null) selector.requestSent(targets);
+            try {
+               ResponseFilter filter = new ClusteredGetResponseValidityFilter(targets, rpcManager.getAddress());
+               RpcOptions options = rpcManager.getRpcOptionsBuilder(ResponseMode.WAIT_FOR_VALID_RESPONSE, false)
+                     .responseFilter(filter).build();
+               rpcManager.invokeRemotelyAsync(targets, get, options).attachListener(new FutureListener<Map<Address, Response>>() {
+                  @Override
+                  public void futureDone(Future<Map<Address, Response>> future) {
+                     Map<Address, Response> responses = null;
+                     Throwable failure = null;
+                     try {
+                        responses = future.get();
+                     } catch (ExecutionException e) {
+                        failure = e.getCause();
+                     } catch (Throwable t) {
+                        failure = t;
+                     }
+                     if (selector != null) selector.requestDone(targets, responses, System.nanoTime() - startNanos);
+                     requestDone(responses, failure);
+                  }
+               });
+            } catch (Throwable t) {
+               if (selector != null) selector.requestDone(targets, null, System.nanoTime() - startNanos);
+               requestDone(null, t);
+            }
+         }
+
+         private void requestDone(Map<Address, Response> responses, Throwable failure) {
+            InternalCacheEntry value = failure == null ? getCacheEntry(responses, key) : null;
+            boolean valid;
+            synchronized (this) {
+               if (done) return;
+               outstanding--;
+               validResponse |= hasValidResponse(responses);
+               if (failure == null && value == null && outstanding > 0) return;
+               done = true;
+               valid = validResponse;
+               if (staggerTask != null) staggerTask.cancel(false);
+            }
+
+            if (failure != null) {
+               result.fail(failure);
+               return;
+            }
+            if (trace) {
+               log.tracef("Remote get of key '%s' (topologyId=%s) returns %s", key, remoteGetTargets.currentTopologyId, value);
+            }
+            if (value != null) {
+               if (rvrl != null) {
+                  rvrl.remoteValueFound(value);
+               }
+               result.complete(value);
+            } else {
+               next(valid);
+            }
+         }
+      }
+   }
+
+   /**
+    * Retrieves multiple cache entries from remote sources. The keys are grouped by their primary owner and a single
+    * {@link ClusteredGetAllCommand} is sent to each owner, all of them in parallel. The keys an owner cannot answer
+    * for, e.g. because it is affected by a rehash or has left the cluster, are then retrieved one by one with
+    * {@link #retrieveFromRemoteSource(Object, InvocationContext, boolean, FlagAffectedCommand, boolean)}.
+    *
+    * @param keys keys to look up
+    * @return the internal cache entries found, keyed by the requested keys. Keys which could not be located are not
+    *         included
+    */
+   protected final Map<Object, InternalCacheEntry> retrieveAllFromRemoteSource(Collection<?> keys, InvocationContext ctx, FlagAffectedCommand command) throws Exception {
+      GlobalTransaction gtx = ctx.isInTxScope() ? ((TxInvocationContext)ctx).getGlobalTransaction() : null;
+      ConsistentHash readCH = stateTransferManager.getCacheTopology().getReadConsistentHash();
+      Map<Address, List<Object>> keysByOwner = new HashMap<Address, List<Object>>();
+      for (Object key : keys) {
+         Address owner = readCH.locatePrimaryOwner(key);
+         List<Object> ownerKeys = keysByOwner.get(owner);
+         if (ownerKeys == null) {
+            ownerKeys = new ArrayList<Object>();
+            keysByOwner.put(owner, ownerKeys);
+         }
+         ownerKeys.add(key);
+      }
+
+      RpcOptions options = rpcManager.getRpcOptionsBuilder(ResponseMode.SYNCHRONOUS_IGNORE_LEAVERS, false).build();
+      Map<Address, ResponseFuture> futures = new HashMap<Address, ResponseFuture>(keysByOwner.size());
+      for (Map.Entry<Address, List<Object>> e : keysByOwner.entrySet()) {
+         if (trace) log.tracef("Perform remote get for keys %s on %s", e.getValue(), e.getKey());
+         ClusteredGetAllCommand get = cf.buildClusteredGetAllCommand(e.getValue(), command.getFlags(), gtx);
+         ResponseFuture future = new ResponseFuture();
+         rpcManager.invokeRemotelyInFuture(Collections.singleton(e.getKey()), get, options, future);
+         futures.put(e.getKey(), future);
+      }
+
+      Map<Object, InternalCacheEntry> entries = new HashMap<Object, InternalCacheEntry>(keys.size());
+      List<Object> retryKeys = new ArrayList<Object>();
+      for (Map.Entry<Address, ResponseFuture> e : futures.entrySet()) {
+         Address owner = e.getKey();
+         List<Object> ownerKeys = keysByOwner.get(owner);
+         Object responseValue = null;
+         Response response = e.getValue().getResponse(owner);
+         if (response instanceof SuccessfulResponse) {
+            responseValue = ((SuccessfulResponse) response).getResponseValue();
+         }
+         if (responseValue == null) {
+            if (trace) log.tracef("No valid response from %s (%s), retrieving keys %s one by one", owner, response, ownerKeys);
+            retryKeys.addAll(ownerKeys);
+            continue;
+         }
+         InternalCacheValue[] values = (InternalCacheValue[]) responseValue;
+         for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+               Object key = ownerKeys.get(i);
+               InternalCacheEntry ice = values[i].toInternalCacheEntry(key);
                if (rvrl != null) {
                   rvrl.remoteValueFound(ice);
                }
-               return ice;
+               entries.put(key, ice);
             }
          }
       }
-      return null;
+
+      for (Object key : retryKeys) {
+         InternalCacheEntry ice = retrieveFromRemoteSource(key, ctx, false, command, false);
+         if (ice != null) {
+            entries.put(key, ice);
+         }
+      }
+      return entries;
+   }
+
+   /**
+    * Gives access to the responses of a command invoked with
+    * {@link org.infinispan.remoting.rpc.RpcManager#invokeRemotelyInFuture(java.util.Collection, org.infinispan.commands.ReplicableCommand, RpcOptions, org.infinispan.commons.util.concurrent.NotifyingNotifiableFuture)}.
+    */
+   private static class ResponseFuture extends NotifyingFutureImpl<Object> {
+      private volatile Future<Object> networkFuture;
+
+      ResponseFuture() {
+         super(null);
+      }
+
+      @Override
+      public void setNetworkFuture(Future<Object> future) {
+         super.setNetworkFuture(future);
+         this.networkFuture = future;
+      }
+
+      @SuppressWarnings("unchecked")
+      Response getResponse(Address target) throws Exception {
+         Map<Address, Response> responses;
+         try {
+            responses = (Map<Address, Response>) networkFuture.get();
+         } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SuspectException) {
+               return null;
+            }
+            throw cause instanceof Exception ? (Exception) cause : new CacheException(cause);
+         }
+         return responses == null ? null : responses.get(target);
+      }
    }
 
    protected final Object handleNonTxWriteCommand(InvocationContext ctx, DataWriteCommand command) throws Throwable {
@@ -213,6 +542,10 @@ protected final Object handleNonTxWriteCommand(InvocationContext ctx, DataWriteC
             Object localResult = invokeNextInterceptor(ctx, command);
             boolean isSyncForwarding = isSync || isNeedReliableReturnValues(command);
 
+            if (isSyncForwarding && ctx.isUseFutureReturnType()) {
+               return forwardToPrimaryOwnerAsync(primaryOwner, command);
+            }
+
             Map<Address, Response> addressResponseMap;
             try {
                addressResponseMap = rpcManager.invokeRemotely(Collections.singletonList(primaryOwner), command,
@@ -236,6 +569,37 @@ protected final Object handleNonTxWriteCommand(InvocationContext ctx, DataWriteC
       }
    }
 
+   /**
+    * Forwards the command to the primary owner without waiting for its response: the returned future completes with
+    * the primary owner's return value instead.
+    */
+   private InvocationFuture forwardToPrimaryOwnerAsync(final Address primaryOwner, final DataWriteCommand command) throws Exception {
+      NotifyingFuture<Map<Address, Response>> rpcFuture = rpcManager.invokeRemotelyAsync(
+            Collections.singletonList(primaryOwner), command, rpcManager.getDefaultRpcOptions(true));
+      final InvocationFuture result = new InvocationFuture();
+      rpcFuture.attachListener(new FutureListener<Map<Address, Response>>() {
+         @Override
+         public void futureDone(Future<Map<Address, Response>> future) {
+            try {
+               result.complete(getResponseFromPrimaryOwner(primaryOwner, future.get()));
+            } catch (ExecutionException e) {
+               Throwable ce = e.getCause();
+               while (ce instanceof RemoteException) {
+                  ce = ce.getCause();
+               }
+               if (ce instanceof OutdatedTopologyException) {
+                  // If the primary owner throws an OutdatedTopologyException, it must be because the command succeeded there
+                  command.setIgnorePreviousValue(true);
+               }
+               result.fail(e.getCause());
+            } catch (Throwable t) {
+               result.fail(t);
+            }
+         }
+      });
+      return result;
+   }
+
    private Object getResponseFromPrimaryOwner(Address primaryOwner, Map<Address, Response> addressResponseMap) {
       Response fromPrimaryOwner = addressResponseMap.get(primaryOwner);
       if (fromPrimaryOwner == null) {
@@ -1,6 +1,7 @@
 package org.infinispan.interceptors.distribution;
 
 import org.infinispan.commands.FlagAffectedCommand;
+import org.infinispan.commands.read.GetAllCommand;
 import org.infinispan.commands.read.GetKeyValueCommand;
 import org.infinispan.commands.write.ClearCommand;
 import org.infinispan.commands.write.PutKeyValueCommand;
@@ -8,9 +9,12 @@
 import org.infinispan.commands.write.RemoveCommand;
 import org.infinispan.commands.write.ReplaceCommand;
 import org.infinispan.commands.write.WriteCommand;
+import org.infinispan.commons.util.InfinispanCollections;
 import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.context.Flag;
 import org.infinispan.context.InvocationContext;
+import org.infinispan.distribution.ch.ConsistentHash;
+import org.infinispan.interceptors.InvocationFuture;
 import org.infinispan.remoting.transport.Address;
 import org.infinispan.remoting.transport.jgroups.SuspectException;
 import org.infinispan.util.logging.Log;
@@ -45,6 +49,9 @@ public Object visitGetKeyValueCommand(InvocationContext ctx, GetKeyValueCommand
          if (returnValue == null) {
             Object key = command.getKey();
             if (needsRemoteGet(ctx, command)) {
+               if (ctx.isUseFutureReturnType() && !isL1Enabled) {
+                  return remoteGetAsync(ctx, command);
+               }
                InternalCacheEntry remoteEntry = remoteGetCacheEntry(ctx, key, command);
                returnValue = computeGetReturn(remoteEntry, command);
             }
@@ -60,6 +67,30 @@ public Object visitGetKeyValueCommand(InvocationContext ctx, GetKeyValueCommand
       }
    }
 
+   private InvocationFuture remoteGetAsync(final InvocationContext ctx, final GetKeyValueCommand command) {
+      if (trace) log.tracef("Doing an asynchronous remote get for key %s", command.getKey());
+      return retrieveFromRemoteSourceAsync(command.getKey(), ctx, command).then(new InvocationFuture.Continuation() {
+         @Override
+         public Object apply(Object result, Throwable failure) throws Throwable {
+            if (failure instanceof SuspectException) {
+               // retry
+               return visitGetKeyValueCommand(ctx, command);
+            } else if (failure != null) {
+               throw failure;
+            }
+            InternalCacheEntry remoteEntry = (InternalCacheEntry) result;
+            command.setRemotelyFetchedValue(remoteEntry);
+            Object returnValue = computeGetReturn(remoteEntry, command);
+            Object key = command.getKey();
+            if (returnValue == null && isValueAvailableLocally(dm.getReadConsistentHash(), key)) {
+               InternalCacheEntry localEntry = localGetCacheEntry(ctx, key, false, command);
+               returnValue = computeGetReturn(localEntry, command);
+            }
+            return returnValue;
+         }
+      });
+   }
+
    private Object computeGetReturn(InternalCacheEntry entry, GetKeyValueCommand command) {
       if (!command.isReturnEntry() && entry != null)
          return entry.getValue();
@@ -67,6 +98,46 @@ private Object computeGetReturn(InternalCacheEntry entry, GetKeyValueCommand com
       return entry;
    }
 
+   @Override
+   @SuppressWarnings("unchecked")
+   public Object visitGetAllCommand(InvocationContext ctx, GetAllCommand command) throws Throwable {
+      try {
+         Map<Object, Object> map = (Map<Object, Object>) invokeNextInterceptor(ctx, command);
+         List<Object> missingKeys = new ArrayList<Object>();
+         List<Object> remoteKeys = new ArrayList<Object>();
+         for (Object key : command.getKeys()) {
+            if (!map.containsKey(key)) {
+               missingKeys.add(key);
+               if (needsRemoteGet(ctx, command, key))
+                  remoteKeys.add(key);
+            }
+         }
+         if (missingKeys.isEmpty())
+            return map;
+
+         Map<Object, InternalCacheEntry> remoteEntries = InfinispanCollections.emptyMap();
+         if (!remoteKeys.isEmpty()) {
+            if (trace) log.tracef("Doing a remote get for keys %s", remoteKeys);
+            remoteEntries = retrieveAllFromRemoteSource(remoteKeys, ctx, command);
+            command.setRemotelyFetched(remoteEntries);
+         }
+         ConsistentHash readCH = dm.getReadConsistentHash();
+         for (Object key : missingKeys) {
+            InternalCacheEntry entry = remoteEntries.get(key);
+            if (entry == null && isValueAvailableLocally(readCH, key)) {
+               entry = localGetCacheEntry(ctx, key, false, command);
+            }
+            if (entry != null) {
+               map.put(key, command.isReturnEntries() ? entry : entry.getValue());
+            }
+         }
+         return map;
+      } catch (SuspectException e) {
+         // retry
+         return visitGetAllCommand(ctx, command);
+      }
+   }
+
    @Override
    public Object visitPutKeyValueCommand(InvocationContext ctx, PutKeyValueCommand command) throws Throwable {
       return handleNonTxWriteCommand(ctx, command);
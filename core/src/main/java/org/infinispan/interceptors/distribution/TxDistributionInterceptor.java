@@ -1,6 +1,7 @@
 package org.infinispan.interceptors.distribution;
 
 import org.infinispan.atomic.DeltaCompositeKey;
+import org.infinispan.commands.read.GetAllCommand;
 import org.infinispan.container.entries.CacheEntry;
 import org.infinispan.commands.FlagAffectedCommand;
 import org.infinispan.commands.control.LockControlCommand;
@@ -33,6 +34,7 @@
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeoutException;
 
 /**
@@ -152,6 +154,46 @@ private Object visitGetCommand(InvocationContext ctx, GetKeyValueCommand command
       }
    }
 
+   @Override
+   @SuppressWarnings("unchecked")
+   public Object visitGetAllCommand(InvocationContext ctx, GetAllCommand command) throws Throwable {
+      try {
+         Map<Object, Object> map = (Map<Object, Object>) invokeNextInterceptor(ctx, command);
+         if (!ctx.isOriginLocal())
+            return map;
+
+         List<Object> remoteKeys = new ArrayList<Object>();
+         for (Object key : command.getKeys()) {
+            //if the cache entry has the value lock flag set, skip the remote get.
+            CacheEntry entry = ctx.lookupEntry(key);
+            boolean skipRemoteGet = entry != null && entry.skipRemoteGet();
+            if (!skipRemoteGet && !map.containsKey(key) && needsRemoteGet(ctx, command, key)) {
+               remoteKeys.add(key);
+            }
+         }
+         if (remoteKeys.isEmpty())
+            return map;
+
+         Map<Object, InternalCacheEntry> remoteEntries = retrieveAllFromRemoteSource(remoteKeys, ctx, command);
+         command.setRemotelyFetched(remoteEntries);
+         for (Object key : remoteKeys) {
+            InternalCacheEntry ice = remoteEntries.get(key);
+            if (ice != null) {
+               putRemoteValueInContext(ctx, key, ice, false, command);
+               map.put(key, command.isReturnEntries() ? ice : ice.getValue());
+            } else if (!ctx.isEntryRemovedInContext(key)) {
+               Object returnValue = localGet(ctx, key, false, command, command.isReturnEntries());
+               if (returnValue != null)
+                  map.put(key, returnValue);
+            }
+         }
+         return map;
+      } catch (SuspectException e) {
+         // retry
+         return visitGetAllCommand(ctx, command);
+      }
+   }
+
    protected void lockAndWrap(InvocationContext ctx, Object key, InternalCacheEntry ice, FlagAffectedCommand command) throws InterruptedException {
       boolean skipLocking = hasSkipLocking(command);
       long lockTimeout = getLockAcquisitionTimeout(command, skipLocking);
@@ -326,20 +368,7 @@ private InternalCacheEntry remoteGet(InvocationContext ctx, Object key, boolean
          }
 
          if (ice != null) {
-            if (useClusteredWriteSkewCheck && ctx.isInTxScope()) {
-               ((TxInvocationContext)ctx).getCacheTransaction().putLookedUpRemoteVersion(key, ice.getMetadata().version());
-            }
-
-            if (!ctx.replaceValue(key, ice)) {
-               if (isWrite)
-                  lockAndWrap(ctx, key, ice, command);
-               else {
-                  ctx.putLookedUpEntry(key, ice);
-                  if (ctx.isInTxScope()) {
-                     ((TxInvocationContext) ctx).getCacheTransaction().replaceVersionRead(key, ice.getMetadata().version());
-                  }
-               }
-            }
+            putRemoteValueInContext(ctx, key, ice, isWrite, command);
             return ice;
          }
       } else {
@@ -347,4 +376,22 @@ private InternalCacheEntry remoteGet(InvocationContext ctx, Object key, boolean
       }
       return null;
    }
+
+   private void putRemoteValueInContext(InvocationContext ctx, Object key, InternalCacheEntry ice, boolean isWrite,
+         FlagAffectedCommand command) throws Throwable {
+      if (useClusteredWriteSkewCheck && ctx.isInTxScope()) {
+         ((TxInvocationContext)ctx).getCacheTransaction().putLookedUpRemoteVersion(key, ice.getMetadata().version());
+      }
+
+      if (!ctx.replaceValue(key, ice)) {
+         if (isWrite)
+            lockAndWrap(ctx, key, ice, command);
+         else {
+            ctx.putLookedUpEntry(key, ice);
+            if (ctx.isInTxScope()) {
+               ((TxInvocationContext) ctx).getCacheTransaction().replaceVersionRead(key, ice.getMetadata().version());
+            }
+         }
+      }
+   }
 }
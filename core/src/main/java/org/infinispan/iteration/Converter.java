@@ -0,0 +1,23 @@
+package org.infinispan.iteration;
+
+import org.infinispan.metadata.Metadata;
+
+/**
+ * Converts the value of an entry before it is returned by an {@link EntryIterator}, e.g. to only return the part of
+ * the value the caller needs.
+ * <p>
+ * In clustered caches the converter is sent to the nodes that own the entries and applied there, before the entries
+ * are sent to the iterating node, so it must be marshallable.
+ *
+ * @since 7.0
+ */
+public interface Converter<K, V, C> {
+
+   /**
+    * @param key      key of the entry
+    * @param value    value of the entry
+    * @param metadata metadata of the entry, might be null for entries loaded from a store
+    * @return the value to return for the entry
+    */
+   C convert(K key, V value, Metadata metadata);
+}
@@ -0,0 +1,109 @@
+package org.infinispan.iteration;
+
+import org.infinispan.commons.marshall.AbstractExternalizer;
+import org.infinispan.marshall.core.Ids;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A batch of entries sent by the node owning them to the node iterating over them with an {@link EntryIterator}.
+ * <p>
+ * Besides the entries, a batch tells the iterating node which of the requested segments were completely iterated,
+ * and which segments the sender no longer owns, so they must be requested from their new owners.
+ * <p>
+ * This is an internal class, not intended to be used by clients.
+ *
+ * @since 7.0
+ */
+public class EntryBatch {
+
+   /**
+    * The keys of the entries and their (converted) values.
+    */
+   private final Map<Object, Object> entries;
+
+   /**
+    * The segments for which all the entries were sent.
+    */
+   private final Set<Integer> completedSegments;
+
+   /**
+    * The segments the sender no longer owns. The entries of these segments sent so far are still valid.
+    */
+   private final Set<Integer> lostSegments;
+
+   /**
+    * The topology id of the sender when the batch was created.
+    */
+   private final int topologyId;
+
+   public EntryBatch(Map<Object, Object> entries, Set<Integer> completedSegments, Set<Integer> lostSegments,
+                     int topologyId) {
+      this.entries = entries;
+      this.completedSegments = completedSegments;
+      this.lostSegments = lostSegments;
+      this.topologyId = topologyId;
+   }
+
+   public Map<Object, Object> getEntries() {
+      return entries;
+   }
+
+   public Set<Integer> getCompletedSegments() {
+      return completedSegments;
+   }
+
+   public Set<Integer> getLostSegments() {
+      return lostSegments;
+   }
+
+   public int getTopologyId() {
+      return topologyId;
+   }
+
+   @Override
+   public String toString() {
+      return "EntryBatch{" +
+            "entries=" + entries.size() +
+            ", completedSegments=" + completedSegments +
+            ", lostSegments=" + lostSegments +
+            ", topologyId=" + topologyId +
+            '}';
+   }
+
+   public static class Externalizer extends AbstractExternalizer<EntryBatch> {
+
+      @Override
+      public Integer getId() {
+         return Ids.ENTRY_BATCH;
+      }
+
+      @Override
+      public Set<Class<? extends EntryBatch>> getTypeClasses() {
+         return Collections.<Class<? extends EntryBatch>>singleton(EntryBatch.class);
+      }
+
+      @Override
+      public void writeObject(ObjectOutput output, EntryBatch object) throws IOException {
+         output.writeObject(object.entries);
+         output.writeObject(object.completedSegments);
+         output.writeObject(object.lostSegments);
+         output.writeInt(object.topologyId);
+      }
+
+      @Override
+      @SuppressWarnings("unchecked")
+      public EntryBatch readObject(ObjectInput input) throws IOException, ClassNotFoundException {
+         Map<Object, Object> entries = (Map<Object, Object>) input.readObject();
+         Set<Integer> completedSegments = (Set<Integer>) input.readObject();
+         Set<Integer> lostSegments = (Set<Integer>) input.readObject();
+         int topologyId = input.readInt();
+         return new EntryBatch(entries, completedSegments, lostSegments, topologyId);
+      }
+   }
+}
@@ -0,0 +1,23 @@
+package org.infinispan.iteration;
+
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Iterates over the entries of a cache, as returned by
+ * {@link org.infinispan.AdvancedCache#entryIterator(KeyValueFilter, Converter, int)}.
+ * <p>
+ * The entries are fetched in batches, so only one batch of entries is kept in memory at a time. Iterators that are
+ * not used until the end should be closed, to release the resources held for them by the nodes owning the entries.
+ * <p>
+ * {@link #remove()} is not supported.
+ *
+ * @since 7.0
+ */
+public interface EntryIterator<K, C> extends Iterator<Map.Entry<K, C>> {
+
+   /**
+    * Stops the iteration. {@link #hasNext()} returns false after the iterator is closed.
+    */
+   void close();
+}
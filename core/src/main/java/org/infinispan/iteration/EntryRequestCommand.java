@@ -0,0 +1,158 @@
+package org.infinispan.iteration;
+
+import org.infinispan.commands.remote.BaseRpcCommand;
+import org.infinispan.commons.CacheException;
+import org.infinispan.context.InvocationContext;
+import org.infinispan.remoting.transport.Address;
+
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * This command is used by an {@link EntryIterator} to request batches of entries from the node owning them.
+ * <p>
+ * The first request of an iteration carries the segments to iterate over, the filter and the converter, and the
+ * owner keeps the state of the iteration until all the segments were iterated over or the iteration is cancelled.
+ *
+ * @since 7.0
+ */
+public class EntryRequestCommand extends BaseRpcCommand {
+
+   public enum Type {
+      START_ITERATION,
+      NEXT_BATCH,
+      CANCEL_ITERATION
+   }
+
+   public static final byte COMMAND_ID = 42;
+
+   private Type type = Type.CANCEL_ITERATION;
+
+   private UUID iterationId;
+
+   private Set<Integer> segments;
+
+   private KeyValueFilter filter;
+
+   private Converter converter;
+
+   private int batchSize;
+
+   private EntryRetriever entryRetriever;
+
+   private EntryRequestCommand() {
+      super(null);  // for command id uniqueness test
+   }
+
+   public EntryRequestCommand(String cacheName) {
+      super(cacheName);
+   }
+
+   public EntryRequestCommand(String cacheName, Type type, Address origin, UUID iterationId, Set<Integer> segments,
+                              KeyValueFilter filter, Converter converter, int batchSize) {
+      super(cacheName);
+      this.type = type;
+      setOrigin(origin);
+      this.iterationId = iterationId;
+      this.segments = segments;
+      this.filter = filter;
+      this.converter = converter;
+      this.batchSize = batchSize;
+   }
+
+   public void init(EntryRetriever entryRetriever) {
+      this.entryRetriever = entryRetriever;
+   }
+
+   @Override
+   public Object perform(InvocationContext ctx) throws Throwable {
+      switch (type) {
+         case START_ITERATION:
+            entryRetriever.startIteration(this);
+            return entryRetriever.nextBatch(getOrigin(), iterationId);
+
+         case NEXT_BATCH:
+            return entryRetriever.nextBatch(getOrigin(), iterationId);
+
+         case CANCEL_ITERATION:
+            entryRetriever.cancelIteration(getOrigin(), iterationId);
+            // originator does not care about the result
+            return null;
+
+         default:
+            throw new CacheException("Unknown entry request command type: " + type);
+      }
+   }
+
+   @Override
+   public boolean isReturnValueExpected() {
+      return type != Type.CANCEL_ITERATION;
+   }
+
+   @Override
+   public boolean canBlock() {
+      // reading the entries from a store can block
+      return type != Type.CANCEL_ITERATION;
+   }
+
+   public Type getType() {
+      return type;
+   }
+
+   public UUID getIterationId() {
+      return iterationId;
+   }
+
+   public Set<Integer> getSegments() {
+      return segments;
+   }
+
+   public KeyValueFilter getFilter() {
+      return filter;
+   }
+
+   public Converter getConverter() {
+      return converter;
+   }
+
+   public int getBatchSize() {
+      return batchSize;
+   }
+
+   @Override
+   public byte getCommandId() {
+      return COMMAND_ID;
+   }
+
+   @Override
+   public Object[] getParameters() {
+      return new Object[]{(byte) type.ordinal(), getOrigin(), iterationId, segments, filter, converter, batchSize};
+   }
+
+   @Override
+   @SuppressWarnings("unchecked")
+   public void setParameters(int commandId, Object[] parameters) {
+      if (commandId != COMMAND_ID)
+         throw new IllegalStateException("Invalid method id");
+      int i = 0;
+      type = Type.values()[(Byte) parameters[i++]];
+      setOrigin((Address) parameters[i++]);
+      iterationId = (UUID) parameters[i++];
+      segments = (Set<Integer>) parameters[i++];
+      filter = (KeyValueFilter) parameters[i++];
+      converter = (Converter) parameters[i++];
+      batchSize = (Integer) parameters[i];
+   }
+
+   @Override
+   public String toString() {
+      return "EntryRequestCommand{" +
+            "cache=" + cacheName +
+            ", origin=" + getOrigin() +
+            ", type=" + type +
+            ", iterationId=" + iterationId +
+            ", segments=" + segments +
+            ", batchSize=" + batchSize +
+            '}';
+   }
+}
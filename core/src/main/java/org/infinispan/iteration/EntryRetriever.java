@@ -0,0 +1,66 @@
+package org.infinispan.iteration;
+
+import org.infinispan.distribution.ch.ConsistentHash;
+import org.infinispan.remoting.transport.Address;
+
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * EntryRetriever is an internal Infinispan component that iterates over the entries of a cache, pulling them in
+ * batches from the primary owners of their segments. It also serves the {@link EntryRequestCommand}s sent by the
+ * iterators of other nodes.
+ * <p>
+ * This interface should never be implemented by clients.
+ *
+ * @since 7.0
+ */
+public interface EntryRetriever {
+
+   /**
+    * Creates an iterator over all the entries of the cache, including the entries only stored in a cache store.
+    *
+    * @param filter    only entries accepted by the filter are returned, might be null to return all the entries
+    * @param converter converts the values of the entries before they are returned, might be null to return the
+    *                  values of the entries
+    * @param batchSize the number of entries requested from an owner at a time
+    * @see org.infinispan.AdvancedCache#entryIterator(KeyValueFilter, Converter, int)
+    */
+   <K, V, C> EntryIterator<K, C> retrieveEntries(KeyValueFilter<? super K, ? super V> filter,
+                                                 Converter<? super K, ? super V, ? extends C> converter, int batchSize);
+
+   /**
+    * Invoked when an EntryRequestCommand arrives to start iterating over the segments of the command on this node.
+    */
+   void startIteration(EntryRequestCommand command);
+
+   /**
+    * Starts iterating over some segments of this node only, on behalf of a client outside of the cluster. The batches
+    * are retrieved with {@link #nextBatch(Address, UUID)}, with this node's address as origin, and the iteration must
+    * be ended with {@link #cancelIteration(Address, UUID)}.
+    * <p>
+    * Unlike the iterations started by an {@link EntryRequestCommand}, the segments are iterated over even if this node
+    * stops owning them, each batch only holds the entries of a single segment, and once all the segments were iterated
+    * over the following batches are empty.
+    *
+    * @param iterationId the id of the new iteration
+    * @param ch          the consistent hash defining the segments, might be null to iterate over the whole cache as
+    *                    segment 0
+    * @param segments    the segments to iterate over
+    * @param filter      only entries accepted by the filter are returned, might be null to return all the entries
+    * @param converter   converts the values of the entries before they are returned, might be null
+    * @param batchSize   the maximum number of entries in a batch
+    */
+   void startLocalIteration(UUID iterationId, ConsistentHash ch, Set<Integer> segments, KeyValueFilter filter,
+                            Converter converter, int batchSize);
+
+   /**
+    * Invoked when an EntryRequestCommand arrives to get the next batch of entries of an iteration started on this node.
+    */
+   EntryBatch nextBatch(Address origin, UUID iterationId);
+
+   /**
+    * Invoked when an EntryRequestCommand arrives to stop an iteration before all its segments were iterated over.
+    */
+   void cancelIteration(Address origin, UUID iterationId);
+}
@@ -0,0 +1,681 @@
+package org.infinispan.iteration;
+
+import org.infinispan.Cache;
+import org.infinispan.commands.CommandsFactory;
+import org.infinispan.commons.CacheException;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.Configuration;
+import org.infinispan.container.DataContainer;
+import org.infinispan.container.SegmentedDataContainer;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.distribution.ch.ConsistentHash;
+import org.infinispan.factories.annotations.ComponentName;
+import org.infinispan.factories.annotations.Inject;
+import org.infinispan.factories.annotations.Start;
+import org.infinispan.factories.annotations.Stop;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.marshall.core.MarshalledEntry;
+import org.infinispan.metadata.Metadata;
+import org.infinispan.notifications.Listener;
+import org.infinispan.notifications.cachemanagerlistener.annotation.ViewChanged;
+import org.infinispan.notifications.cachemanagerlistener.event.ViewChangedEvent;
+import org.infinispan.persistence.CollectionKeyFilter;
+import org.infinispan.persistence.CompositeFilter;
+import org.infinispan.persistence.StoreEntryIterator;
+import org.infinispan.persistence.manager.PersistenceManager;
+import org.infinispan.persistence.spi.AdvancedCacheLoader;
+import org.infinispan.remoting.responses.CacheNotFoundResponse;
+import org.infinispan.remoting.responses.Response;
+import org.infinispan.remoting.responses.SuccessfulResponse;
+import org.infinispan.remoting.rpc.ResponseMode;
+import org.infinispan.remoting.rpc.RpcManager;
+import org.infinispan.remoting.transport.Address;
+import org.infinispan.remoting.transport.jgroups.SuspectException;
+import org.infinispan.statetransfer.StateTransferLock;
+import org.infinispan.statetransfer.StateTransferManager;
+import org.infinispan.topology.CacheTopology;
+import org.infinispan.util.ReadOnlyDataContainerBackedKeySet;
+import org.infinispan.util.TimeService;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.infinispan.factories.KnownComponentNames.PERSISTENCE_EXECUTOR;
+
+/**
+ * Default implementation of {@link EntryRetriever}.
+ * <p>
+ * An iterator requests the segments of the cache from their primary owners, one owner at a time, and gets the entries
+ * from an owner in batches. The owner keeps the state of the iteration between batches. It iterates over the requested
+ * segments over the data container first, then over the entries only present in the cache stores. With a
+ * {@link SegmentedDataContainer} the segments are iterated over one at a time, visiting only the entries of the
+ * segment, and each segment is reported as completed as soon as it was iterated over, so the iterator can forget the
+ * keys it returned for it. Other data containers can't be iterated over by segment, so they are iterated over once for
+ * all the requested segments, which are all reported as completed at the end. The cache stores are read on the
+ * persistence executor, at most a batch of entries ahead of the iteration.
+ * <p>
+ * Clients outside of the cluster, e.g. Hot Rod clients, iterate over the segments of a single node with
+ * {@link #startLocalIteration}. Such an iteration sticks to the segments it was started with, even if this node stops
+ * owning them, and returns the entries of a single segment per batch.
+ * <p/>
+ * An owner discards the iterations that were not accessed for {@link #IDLE_TIMEOUT} milliseconds whenever a new one is
+ * started, in case their iterator was abandoned without being closed.
+ * <p>
+ * When the owner of a segment leaves, or the segment is moved to another node, the segment is requested again from
+ * its new primary owner. The iterator remembers the keys it already returned for the segments that were not completed
+ * yet, so it doesn't return them twice.
+ * <p>
+ * This is an internal class, not intended to be used by clients.
+ *
+ * @since 7.0
+ */
+public class EntryRetrieverImpl implements EntryRetriever {
+
+   private static final Log log = LogFactory.getLog(EntryRetrieverImpl.class);
+   private static final boolean trace = log.isTraceEnabled();
+
+   public static final long IDLE_TIMEOUT = TimeUnit.MINUTES.toMillis(5);
+
+   /**
+    * The iterations over the entries of this node started by the iterators of this node or of other nodes.
+    */
+   private final ConcurrentMap<UUID, LocalIteration> iterations = new ConcurrentHashMap<UUID, LocalIteration>();
+   private final IterationOriginListener originListener = new IterationOriginListener();
+
+   private String cacheName;
+   private Configuration configuration;
+   private DataContainer dataContainer;
+   private PersistenceManager persistenceManager;
+   private TimeService timeService;
+   private CommandsFactory commandsFactory;
+   private RpcManager rpcManager;
+   private StateTransferManager stateTransferManager;
+   private StateTransferLock stateTransferLock;
+   private EmbeddedCacheManager cacheManager;
+   private ExecutorService persistenceExecutor;
+   private boolean clustered;
+
+   @Inject
+   public void inject(Cache<?, ?> cache, Configuration configuration, DataContainer dataContainer,
+                      PersistenceManager persistenceManager, TimeService timeService, CommandsFactory commandsFactory,
+                      RpcManager rpcManager, StateTransferManager stateTransferManager,
+                      StateTransferLock stateTransferLock, EmbeddedCacheManager cacheManager,
+                      @ComponentName(PERSISTENCE_EXECUTOR) ExecutorService persistenceExecutor) {
+      this.cacheName = cache.getName();
+      this.configuration = configuration;
+      this.dataContainer = dataContainer;
+      this.persistenceManager = persistenceManager;
+      this.timeService = timeService;
+      this.commandsFactory = commandsFactory;
+      this.rpcManager = rpcManager;
+      this.stateTransferManager = stateTransferManager;
+      this.stateTransferLock = stateTransferLock;
+      this.cacheManager = cacheManager;
+      this.persistenceExecutor = persistenceExecutor;
+   }
+
+   @Start
+   public void start() {
+      // invalidation caches don't have segments, each node only iterates over its own entries
+      CacheMode cacheMode = configuration.clustering().cacheMode();
+      clustered = cacheMode.isDistributed() || cacheMode.isReplicated();
+      if (clustered) {
+         cacheManager.addListener(originListener);
+      }
+   }
+
+   @Stop
+   public void stop() {
+      if (clustered) {
+         cacheManager.removeListener(originListener);
+      }
+      for (LocalIteration iteration : iterations.values()) {
+         iteration.close();
+      }
+      iterations.clear();
+   }
+
+   @Override
+   public <K, V, C> EntryIterator<K, C> retrieveEntries(KeyValueFilter<? super K, ? super V> filter,
+                                                        Converter<? super K, ? super V, ? extends C> converter,
+                                                        int batchSize) {
+      if (batchSize <= 0) {
+         throw new IllegalArgumentException("The batch size must be positive, but was " + batchSize);
+      }
+      return new ClusterEntryIterator<K, C>(filter, converter, batchSize);
+   }
+
+   @Override
+   public void startIteration(EntryRequestCommand command) {
+      removeIdle();
+      ConsistentHash ch = readConsistentHash();
+      // with a segmented data container every segment is iterated over separately, so it can be reported as completed
+      // as soon as possible, other data containers would have to be iterated over fully for each segment
+      boolean segmented = ch != null && dataContainer instanceof SegmentedDataContainer;
+      Queue<Set<Integer>> segmentGroups = new LinkedList<Set<Integer>>();
+      if (segmented) {
+         for (Integer segment : command.getSegments()) {
+            segmentGroups.add(new HashSet<Integer>(Collections.singleton(segment)));
+         }
+      } else {
+         segmentGroups.add(new HashSet<Integer>(command.getSegments()));
+      }
+      if (trace) {
+         log.tracef("Starting iteration %s over segments %s of cache %s for node %s", command.getIterationId(),
+                    command.getSegments(), cacheName, command.getOrigin());
+      }
+      iterations.put(command.getIterationId(), new LocalIteration(command.getOrigin(), command.getFilter(),
+                                                                  command.getConverter(), command.getBatchSize(),
+                                                                  segmentGroups, segmented, false, null));
+   }
+
+   @Override
+   public void startLocalIteration(UUID iterationId, ConsistentHash ch, Set<Integer> segments, KeyValueFilter filter,
+                                   Converter converter, int batchSize) {
+      if (batchSize <= 0) {
+         throw new IllegalArgumentException("The batch size must be positive, but was " + batchSize);
+      }
+      removeIdle();
+      // a batch holds the entries of a single segment, so the segments are iterated over one at a time anyway
+      Queue<Set<Integer>> segmentGroups = new LinkedList<Set<Integer>>();
+      for (Integer segment : segments) {
+         segmentGroups.add(new HashSet<Integer>(Collections.singleton(segment)));
+      }
+      boolean segmented = ch != null && dataContainer instanceof SegmentedDataContainer;
+      Address origin = rpcManager != null ? rpcManager.getAddress() : null;
+      if (trace) {
+         log.tracef("Starting local iteration %s over segments %s of cache %s", iterationId, segments, cacheName);
+      }
+      iterations.put(iterationId, new LocalIteration(origin, filter, converter, batchSize, segmentGroups, segmented,
+                                                     true, ch));
+   }
+
+   @Override
+   public EntryBatch nextBatch(Address origin, UUID iterationId) {
+      LocalIteration iteration = iterations.get(iterationId);
+      if (iteration == null) {
+         throw new CacheException("Iteration " + iterationId + " of node " + origin + " over cache " + cacheName
+                                        + " was not started or was already cancelled");
+      }
+      synchronized (iteration) {
+         EntryBatch batch = iteration.nextBatch(iterationId);
+         // local iterations return empty batches until they are cancelled
+         if (iteration.isDone() && !iteration.local) {
+            iterations.remove(iterationId);
+            iteration.close();
+         }
+         if (trace) {
+            log.tracef("Sending batch %s of iteration %s to node %s", batch, iterationId, origin);
+         }
+         return batch;
+      }
+   }
+
+   @Override
+   public void cancelIteration(Address origin, UUID iterationId) {
+      LocalIteration iteration = iterations.remove(iterationId);
+      if (iteration != null) {
+         iteration.close();
+         if (trace) {
+            log.tracef("Iteration %s of node %s over cache %s was cancelled", iterationId, origin, cacheName);
+         }
+      }
+   }
+
+   private void removeIdle() {
+      long idleSince = timeService.wallClockTime() - IDLE_TIMEOUT;
+      for (Iterator<Map.Entry<UUID, LocalIteration>> it = iterations.entrySet().iterator(); it.hasNext(); ) {
+         Map.Entry<UUID, LocalIteration> entry = it.next();
+         LocalIteration iteration = entry.getValue();
+         if (iteration.lastAccessed < idleSince) {
+            log.debugf("Discarding iteration %s of node %s over cache %s, it was not accessed for %d ms", entry.getKey(),
+                       iteration.origin, cacheName, IDLE_TIMEOUT);
+            it.remove();
+            iteration.close();
+         }
+      }
+   }
+
+   private ConsistentHash readConsistentHash() {
+      if (!clustered) {
+         return null;
+      }
+      CacheTopology cacheTopology = stateTransferManager.getCacheTopology();
+      return cacheTopology != null ? cacheTopology.getReadConsistentHash() : null;
+   }
+
+   private int currentTopologyId() {
+      if (!clustered) {
+         return -1;
+      }
+      CacheTopology cacheTopology = stateTransferManager.getCacheTopology();
+      return cacheTopology != null ? cacheTopology.getTopologyId() : -1;
+   }
+
+   private static int segmentOf(ConsistentHash ch, Object key) {
+      // a cache without a consistent hash is iterated over as a single segment
+      return ch == null ? 0 : ch.getSegment(key);
+   }
+
+   private void waitForTopology(int topologyId) {
+      try {
+         stateTransferLock.waitForTopology(topologyId, configuration.clustering().stateTransfer().timeout(),
+                                           TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new CacheException("Interrupted while waiting for topology " + topologyId, e);
+      }
+   }
+
+   /**
+    * The state of an iteration over some segments of this node.
+    */
+   private class LocalIteration {
+
+      private final Address origin;
+      private final KeyValueFilter filter;
+      private final Converter converter;
+      private final int batchSize;
+      // the segments to iterate over after the current group
+      private final Queue<Set<Integer>> segmentGroups;
+      // whether the data container can be iterated over by segment
+      private final boolean segmented;
+      // whether the iteration was started with startLocalIteration, and sticks to its segments
+      private final boolean local;
+      // the consistent hash of a local iteration's segments, null if the cache is iterated over as a single segment
+      private final ConsistentHash localCh;
+      // the segments iterated over now, null before the next group is started
+      private Set<Integer> segments;
+      // the entries of the data container, null once they were iterated over
+      private Iterator<InternalCacheEntry> containerIterator;
+      // the entries of the current segments that are only present in the cache stores, null until the data container
+      // was iterated over or if there are no cache stores
+      private StoreEntryIterator storeEntries;
+      private volatile long lastAccessed;
+      private boolean closed;
+
+      LocalIteration(Address origin, KeyValueFilter filter, Converter converter, int batchSize,
+                     Queue<Set<Integer>> segmentGroups, boolean segmented, boolean local, ConsistentHash localCh) {
+         this.origin = origin;
+         this.filter = filter;
+         this.converter = converter;
+         this.batchSize = batchSize;
+         this.segmentGroups = segmentGroups;
+         this.segmented = segmented;
+         this.local = local;
+         this.localCh = localCh;
+         this.lastAccessed = timeService.wallClockTime();
+      }
+
+      boolean isDone() {
+         return segments == null && segmentGroups.isEmpty();
+      }
+
+      EntryBatch nextBatch(UUID iterationId) {
+         if (closed) {
+            throw new CacheException("Iteration " + iterationId + " of node " + origin + " over cache " + cacheName
+                                           + " was cancelled");
+         }
+         lastAccessed = timeService.wallClockTime();
+         int topologyId = currentTopologyId();
+         ConsistentHash ch;
+         Set<Integer> lostSegments;
+         if (local) {
+            ch = localCh;
+            lostSegments = Collections.emptySet();
+         } else {
+            ch = readConsistentHash();
+            lostSegments = removeLostSegments(ch);
+         }
+         Set<Integer> completedSegments = new HashSet<Integer>();
+         Map<Object, Object> entries = new HashMap<Object, Object>();
+         long now = timeService.wallClockTime();
+         while (entries.size() < batchSize) {
+            if (segments == null) {
+               segments = segmentGroups.poll();
+               if (segments == null) {
+                  break;
+               }
+               containerIterator = segmented
+                     ? ((SegmentedDataContainer) dataContainer).iterator(segments) : dataContainer.iterator();
+            }
+
+            if (containerIterator != null) {
+               if (containerIterator.hasNext()) {
+                  InternalCacheEntry ice = containerIterator.next();
+                  if (segments.contains(segmentOf(ch, ice.getKey())) && !ice.isExpired(now)) {
+                     addEntry(entries, ice.getKey(), ice.getValue(), ice.getMetadata());
+                  }
+                  continue;
+               }
+               containerIterator = null;
+               // the segments may be changed by this thread while the stores are read by another one
+               storeEntries = iterateStores(ch, new HashSet<Integer>(segments));
+            }
+
+            if (storeEntries != null && storeEntries.hasNext()) {
+               MarshalledEntry me = storeEntries.next();
+               if (me.getMetadata() == null || !me.getMetadata().isExpired(now)) {
+                  addEntry(entries, me.getKey(), me.getValue(), me.getMetadata());
+               }
+            } else {
+               completedSegments.addAll(segments);
+               segments = null;
+               storeEntries = null;
+               if (local && !entries.isEmpty()) {
+                  // the entries of the next segment go in the next batch
+                  break;
+               }
+            }
+         }
+         return new EntryBatch(entries, completedSegments, lostSegments, topologyId);
+      }
+
+      /**
+       * Stops reading the cache stores, the iteration can't be continued afterwards.
+       */
+      synchronized void close() {
+         closed = true;
+         if (storeEntries != null) {
+            storeEntries.close();
+            storeEntries = null;
+         }
+      }
+
+      @SuppressWarnings("unchecked")
+      private void addEntry(Map<Object, Object> entries, Object key, Object value, Metadata metadata) {
+         if (filter == null || filter.accept(key, value, metadata)) {
+            entries.put(key, converter == null ? value : converter.convert(key, value, metadata));
+         }
+      }
+
+      /**
+       * Removes the segments this node doesn't own any more from the iteration.
+       */
+      private Set<Integer> removeLostSegments(ConsistentHash ch) {
+         if (ch == null) {
+            return Collections.emptySet();
+         }
+         Set<Integer> ownedSegments = ch.getSegmentsForOwner(rpcManager.getAddress());
+         Set<Integer> lostSegments = new HashSet<Integer>();
+         if (segments != null) {
+            removeLostSegments(segments, ownedSegments, lostSegments);
+            if (segments.isEmpty()) {
+               segments = null;
+               containerIterator = null;
+               if (storeEntries != null) {
+                  storeEntries.close();
+                  storeEntries = null;
+               }
+            }
+         }
+         for (Iterator<Set<Integer>> it = segmentGroups.iterator(); it.hasNext(); ) {
+            Set<Integer> group = it.next();
+            removeLostSegments(group, ownedSegments, lostSegments);
+            if (group.isEmpty()) {
+               it.remove();
+            }
+         }
+         return lostSegments;
+      }
+
+      private void removeLostSegments(Set<Integer> group, Set<Integer> ownedSegments, Set<Integer> lostSegments) {
+         for (Iterator<Integer> it = group.iterator(); it.hasNext(); ) {
+            Integer segment = it.next();
+            if (!ownedSegments.contains(segment)) {
+               lostSegments.add(segment);
+               it.remove();
+            }
+         }
+      }
+
+      /**
+       * @return the entries of the given segments that are only present in the cache stores, or {@code null} if there
+       * are no cache stores
+       */
+      private StoreEntryIterator iterateStores(final ConsistentHash ch, final Set<Integer> segments) {
+         if (!configuration.persistence().usingStores()) {
+            return null;
+         }
+         AdvancedCacheLoader.KeyFilter segmentFilter = new AdvancedCacheLoader.KeyFilter() {
+            @Override
+            public boolean shouldLoadKey(Object key) {
+               return segments.contains(segmentOf(ch, key));
+            }
+         };
+         // the entries in the data container were already iterated over
+         AdvancedCacheLoader.KeyFilter filter = new CompositeFilter(segmentFilter,
+               new CollectionKeyFilter(new ReadOnlyDataContainerBackedKeySet(dataContainer)));
+         return new StoreEntryIterator(persistenceManager, persistenceExecutor, filter, true, true, batchSize);
+      }
+   }
+
+   /**
+    * Iterates over all the segments of the cache, requesting them from their primary owners one owner at a time.
+    */
+   private class ClusterEntryIterator<K, C> implements EntryIterator<K, C> {
+
+      private final KeyValueFilter filter;
+      private final Converter converter;
+      private final int batchSize;
+      // the segments that were not completely iterated over yet
+      private final Set<Integer> remainingSegments = new HashSet<Integer>();
+      // the keys already returned for the segments that were not completed yet, by segment
+      private final Map<Integer, Set<Object>> returnedKeys = new HashMap<Integer, Set<Object>>();
+      private final Queue<Map.Entry<K, C>> batch = new ArrayDeque<Map.Entry<K, C>>();
+
+      // the owner the segments are requested from, only valid while ownerSegments is not null
+      private Address owner;
+      private Set<Integer> ownerSegments;
+      private UUID iterationId;
+      private int topologyId;
+      private boolean closed;
+
+      ClusterEntryIterator(KeyValueFilter filter, Converter converter, int batchSize) {
+         this.filter = filter;
+         this.converter = converter;
+         this.batchSize = batchSize;
+         ConsistentHash ch = readConsistentHash();
+         int numSegments = ch == null ? 1 : ch.getNumSegments();
+         for (int i = 0; i < numSegments; i++) {
+            remainingSegments.add(i);
+         }
+      }
+
+      @Override
+      public boolean hasNext() {
+         while (batch.isEmpty() && !closed) {
+            if (remainingSegments.isEmpty()) {
+               closed = true;
+            } else {
+               fetchBatch();
+            }
+         }
+         return !batch.isEmpty();
+      }
+
+      @Override
+      public Map.Entry<K, C> next() {
+         if (!hasNext()) {
+            throw new NoSuchElementException();
+         }
+         return batch.poll();
+      }
+
+      @Override
+      public void remove() {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public void close() {
+         if (closed) {
+            return;
+         }
+         closed = true;
+         batch.clear();
+         if (ownerSegments != null) {
+            if (isLocal(owner)) {
+               cancelIteration(owner, iterationId);
+            } else {
+               EntryRequestCommand command = commandsFactory.buildEntryRequestCommand(
+                     EntryRequestCommand.Type.CANCEL_ITERATION, rpcManager.getAddress(), iterationId, null, null,
+                     null, batchSize);
+               rpcManager.invokeRemotely(Collections.singleton(owner), command, rpcManager.getDefaultRpcOptions(false));
+            }
+            ownerSegments = null;
+         }
+      }
+
+      @SuppressWarnings("unchecked")
+      private void fetchBatch() {
+         ConsistentHash ch = readConsistentHash();
+         EntryBatch response;
+         if (ownerSegments == null) {
+            topologyId = currentTopologyId();
+            chooseOwner(ch);
+            iterationId = UUID.randomUUID();
+            response = request(EntryRequestCommand.Type.START_ITERATION, ownerSegments);
+         } else {
+            response = request(EntryRequestCommand.Type.NEXT_BATCH, null);
+         }
+
+         if (response == null) {
+            // the owner left the cluster or stopped the cache, request its segments from the new owners
+            log.debugf("Node %s left while iterating over segments %s of cache %s, requesting them again",
+                       owner, ownerSegments, cacheName);
+            ownerSegments = null;
+            waitForTopology(topologyId + 1);
+            return;
+         }
+
+         for (Map.Entry<Object, Object> e : response.getEntries().entrySet()) {
+            Integer segment = segmentOf(ch, e.getKey());
+            Set<Object> keys = returnedKeys.get(segment);
+            if (keys == null) {
+               keys = new HashSet<Object>();
+               returnedKeys.put(segment, keys);
+            }
+            if (keys.add(e.getKey())) {
+               batch.add(new AbstractMap.SimpleImmutableEntry<K, C>((K) e.getKey(), (C) e.getValue()));
+            }
+         }
+         for (Integer segment : response.getCompletedSegments()) {
+            remainingSegments.remove(segment);
+            returnedKeys.remove(segment);
+         }
+         ownerSegments.removeAll(response.getCompletedSegments());
+         ownerSegments.removeAll(response.getLostSegments());
+         if (ownerSegments.isEmpty()) {
+            // the owner already discarded the iteration
+            ownerSegments = null;
+         }
+         if (!response.getLostSegments().isEmpty()) {
+            log.debugf("Node %s no longer owns segments %s of cache %s, requesting them again",
+                       owner, response.getLostSegments(), cacheName);
+            // make sure the next owner is chosen with a consistent hash at least as recent as the one of the owner
+            waitForTopology(response.getTopologyId());
+         }
+      }
+
+      /**
+       * Chooses the owner of the next segments to iterate over, preferring this node.
+       */
+      private void chooseOwner(ConsistentHash ch) {
+         if (ch == null) {
+            owner = null;
+            ownerSegments = new HashSet<Integer>(remainingSegments);
+            return;
+         }
+         Map<Address, Set<Integer>> segmentsByOwner = new HashMap<Address, Set<Integer>>();
+         for (Integer segment : remainingSegments) {
+            Address primaryOwner = ch.locatePrimaryOwnerForSegment(segment);
+            Set<Integer> segments = segmentsByOwner.get(primaryOwner);
+            if (segments == null) {
+               segments = new HashSet<Integer>();
+               segmentsByOwner.put(primaryOwner, segments);
+            }
+            segments.add(segment);
+         }
+         owner = segmentsByOwner.containsKey(rpcManager.getAddress())
+               ? rpcManager.getAddress() : segmentsByOwner.keySet().iterator().next();
+         ownerSegments = segmentsByOwner.get(owner);
+      }
+
+      private boolean isLocal(Address address) {
+         return !clustered || address == null || address.equals(rpcManager.getAddress());
+      }
+
+      /**
+       * @return the next batch of entries of the owner, or null if the owner is no longer running the cache
+       */
+      private EntryBatch request(EntryRequestCommand.Type type, Set<Integer> segments) {
+         Address localAddress = clustered ? rpcManager.getAddress() : null;
+         EntryRequestCommand command = commandsFactory.buildEntryRequestCommand(type, localAddress, iterationId,
+                                                                                segments, filter, converter, batchSize);
+         if (isLocal(owner)) {
+            if (type == EntryRequestCommand.Type.START_ITERATION) {
+               startIteration(command);
+            }
+            return nextBatch(localAddress, iterationId);
+         }
+
+         if (trace) {
+            log.tracef("Requesting entries from node %s: %s", owner, command);
+         }
+         Map<Address, Response> responses;
+         try {
+            responses = rpcManager.invokeRemotely(Collections.singleton(owner), command,
+                                                  rpcManager.getRpcOptionsBuilder(ResponseMode.SYNCHRONOUS).build());
+         } catch (SuspectException e) {
+            return null;
+         }
+         Response response = responses.get(owner);
+         if (response instanceof SuccessfulResponse) {
+            return (EntryBatch) ((SuccessfulResponse) response).getResponseValue();
+         } else if (response == null || response instanceof CacheNotFoundResponse) {
+            return null;
+         }
+         throw new CacheException("Unexpected response from node " + owner + " while iterating over cache "
+                                        + cacheName + ": " + response);
+      }
+   }
+
+   /**
+    * Discards the iterations started by nodes that left the cluster.
+    */
+   @Listener
+   public class IterationOriginListener {
+
+      @ViewChanged
+      public void viewChanged(ViewChangedEvent e) {
+         List<Address> members = e.getNewMembers();
+         for (Iterator<Map.Entry<UUID, LocalIteration>> it = iterations.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<UUID, LocalIteration> entry = it.next();
+            if (!members.contains(entry.getValue().origin)) {
+               log.debugf("Discarding iteration %s over cache %s, node %s left", entry.getKey(), cacheName,
+                          entry.getValue().origin);
+               it.remove();
+               entry.getValue().close();
+            }
+         }
+      }
+   }
+}
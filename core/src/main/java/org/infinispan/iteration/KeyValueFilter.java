@@ -0,0 +1,22 @@
+package org.infinispan.iteration;
+
+import org.infinispan.metadata.Metadata;
+
+/**
+ * A filter for the entries returned by an {@link EntryIterator}.
+ * <p>
+ * In clustered caches the filter is sent to the nodes that own the entries and applied there, so it must be
+ * marshallable.
+ *
+ * @since 7.0
+ */
+public interface KeyValueFilter<K, V> {
+
+   /**
+    * @param key      key of the entry
+    * @param value    value of the entry
+    * @param metadata metadata of the entry, might be null for entries loaded from a store
+    * @return true if the entry should be returned by the iterator
+    */
+   boolean accept(K key, V value, Metadata metadata);
+}
@@ -0,0 +1,4 @@
+/**
+ * Iteration over all the entries of a cache, pulling them from the nodes that own them in batches.
+ */
+package org.infinispan.iteration;
@@ -51,6 +51,7 @@
 import org.infinispan.factories.annotations.Stop;
 import org.infinispan.factories.scopes.Scope;
 import org.infinispan.factories.scopes.Scopes;
+import org.infinispan.iteration.EntryBatch;
 import org.infinispan.marshall.exts.ArrayListExternalizer;
 import org.infinispan.marshall.exts.CacheRpcCommandExternalizer;
 import org.infinispan.marshall.exts.LinkedListExternalizer;
@@ -284,6 +285,7 @@ private void loadInternalMarshallables() {
       addInternalExternalizer(new CacheJoinInfo.Externalizer());
       addInternalExternalizer(new TransactionInfo.Externalizer());
       addInternalExternalizer(new StateChunk.Externalizer());
+      addInternalExternalizer(new EntryBatch.Externalizer());
 
       addInternalExternalizer(new Flag.Externalizer());
 
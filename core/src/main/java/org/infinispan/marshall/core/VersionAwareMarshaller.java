@@ -2,7 +2,7 @@
 
 import org.infinispan.Cache;
 import org.infinispan.commons.io.ByteBuffer;
-import org.infinispan.commons.io.ByteBufferImpl;
+import org.infinispan.commons.io.OutputBufferPool;
 import org.infinispan.configuration.cache.Configuration;
 import org.infinispan.configuration.global.GlobalConfiguration;
 import org.infinispan.context.InvocationContextContainer;
@@ -71,25 +71,29 @@ public void stop() {
 
    @Override
    protected ByteBuffer objectToBuffer(Object obj, int estimatedSize) throws IOException, InterruptedException {
-      ExposedByteArrayOutputStream baos = new ExposedByteArrayOutputStream(estimatedSize);
-      ObjectOutput out = startObjectOutput(baos, false, estimatedSize);
+      ExposedByteArrayOutputStream baos = OutputBufferPool.acquire(estimatedSize);
       try {
-         defaultMarshaller.objectToObjectStream(obj, out);
-      } catch (java.io.NotSerializableException nse) {
-         if (log.isDebugEnabled()) log.debug("Object is not serializable", nse);
-         throw new NotSerializableException(nse.getMessage(), nse.getCause());
-      } catch (IOException ioe) {
-         if (ioe.getCause() instanceof InterruptedException) {
-            if (log.isTraceEnabled()) log.trace("Interrupted exception while marshalling", ioe.getCause());
-            throw (InterruptedException) ioe.getCause();
-         } else {
-            log.errorMarshallingObject(ioe, obj);
-            throw ioe;
+         ObjectOutput out = startObjectOutput(baos, false, estimatedSize);
+         try {
+            defaultMarshaller.objectToObjectStream(obj, out);
+         } catch (java.io.NotSerializableException nse) {
+            if (log.isDebugEnabled()) log.debug("Object is not serializable", nse);
+            throw new NotSerializableException(nse.getMessage(), nse.getCause());
+         } catch (IOException ioe) {
+            if (ioe.getCause() instanceof InterruptedException) {
+               if (log.isTraceEnabled()) log.trace("Interrupted exception while marshalling", ioe.getCause());
+               throw (InterruptedException) ioe.getCause();
+            } else {
+               log.errorMarshallingObject(ioe, obj);
+               throw ioe;
+            }
+         } finally {
+            finishObjectOutput(out);
          }
+         return OutputBufferPool.toByteBuffer(baos);
       } finally {
-         finishObjectOutput(out);
+         OutputBufferPool.release(baos);
       }
-      return new ByteBufferImpl(baos.getRawBuffer(), 0, baos.size());
    }
 
    @Override
@@ -8,9 +8,12 @@
 import org.infinispan.commands.read.DistributedExecuteCommand;
 import org.infinispan.commands.read.MapCombineCommand;
 import org.infinispan.commands.read.ReduceCommand;
+import org.infinispan.commands.read.ShuffleCommand;
 import org.infinispan.commands.remote.CacheRpcCommand;
+import org.infinispan.commands.remote.ClusteredGetAllCommand;
 import org.infinispan.commands.remote.ClusteredGetCommand;
 import org.infinispan.commands.remote.MultipleRpcCommand;
+import org.infinispan.commands.remote.MultipleRpcResponsesCommand;
 import org.infinispan.commands.remote.SingleRpcCommand;
 import org.infinispan.commands.remote.recovery.CompleteTransactionCommand;
 import org.infinispan.commands.remote.recovery.GetInDoubtTransactionsCommand;
@@ -30,7 +33,9 @@
 import org.infinispan.factories.GlobalComponentRegistry;
 import org.infinispan.factories.KnownComponentNames;
 import org.infinispan.commons.io.ExposedByteArrayOutputStream;
+import org.infinispan.commons.io.OutputBufferPool;
 import org.infinispan.commons.io.UnsignedNumeric;
+import org.infinispan.iteration.EntryRequestCommand;
 import org.infinispan.lifecycle.ComponentStatus;
 import org.infinispan.commons.marshall.AbstractExternalizer;
 import org.infinispan.commons.marshall.BufferSizePredictor;
@@ -71,9 +76,10 @@ public CacheRpcCommandExternalizer(GlobalComponentRegistry gcr, ReplicableComman
    @Override
    public Set<Class<? extends CacheRpcCommand>> getTypeClasses() {
       Set<Class<? extends CacheRpcCommand>> coreCommands = Util.asSet(MapCombineCommand.class,
-               ReduceCommand.class, DistributedExecuteCommand.class, LockControlCommand.class,
-               StateRequestCommand.class, StateResponseCommand.class, ClusteredGetCommand.class,
-               MultipleRpcCommand.class, SingleRpcCommand.class, CommitCommand.class,
+               ReduceCommand.class, ShuffleCommand.class, DistributedExecuteCommand.class, LockControlCommand.class,
+               StateRequestCommand.class, EntryRequestCommand.class, StateResponseCommand.class, ClusteredGetCommand.class,
+               ClusteredGetAllCommand.class,
+               MultipleRpcCommand.class, MultipleRpcResponsesCommand.class, SingleRpcCommand.class, CommitCommand.class,
                PrepareCommand.class, RollbackCommand.class, RemoveCacheCommand.class,
                TxCompletionNotificationCommand.class, GetInDoubtTransactionsCommand.class,
                GetInDoubtTxInfoCommand.class, CompleteTransactionCommand.class,
@@ -96,28 +102,32 @@ public void writeObject(ObjectOutput output, CacheRpcCommand command) throws IOE
 
       // Take the cache marshaller and generate the payload for the rest of
       // the command using that cache marshaller and the write the bytes in
-      // the original payload.
-      ExposedByteArrayOutputStream os = marshallParameters(command, marshaller);
-      UnsignedNumeric.writeUnsignedInt(output, os.size());
-      // Do not rely on the raw buffer's length which is likely to be much longer!
-      output.write(os.getRawBuffer(), 0, os.size());
+      // the original payload. The bytes are copied, so the buffer goes back
+      // to the pool right away.
+      BufferSizePredictor sizePredictor = marshaller.getBufferSizePredictor(command);
+      int estimatedSize = sizePredictor.nextSize(command);
+      ExposedByteArrayOutputStream os = OutputBufferPool.acquire(estimatedSize);
+      try {
+         marshallParameters(command, marshaller, os, estimatedSize);
+         UnsignedNumeric.writeUnsignedInt(output, os.size());
+         // Do not rely on the raw buffer's length which is likely to be much longer!
+         output.write(os.getRawBuffer(), 0, os.size());
+      } finally {
+         OutputBufferPool.release(os);
+      }
       if (command instanceof TopologyAffectedCommand) {
          output.writeInt(((TopologyAffectedCommand) command).getTopologyId());
       }
    }
 
-   private ExposedByteArrayOutputStream marshallParameters(
-         CacheRpcCommand cmd, StreamingMarshaller marshaller) throws IOException {
-      BufferSizePredictor sizePredictor = marshaller.getBufferSizePredictor(cmd);
-      int estimatedSize = sizePredictor.nextSize(cmd);
-      ExposedByteArrayOutputStream baos = new ExposedByteArrayOutputStream(estimatedSize);
+   private void marshallParameters(CacheRpcCommand cmd, StreamingMarshaller marshaller,
+         ExposedByteArrayOutputStream baos, int estimatedSize) throws IOException {
       ObjectOutput output = marshaller.startObjectOutput(baos, true, estimatedSize);
       try {
          cmdExt.writeCommandParameters(output, cmd);
       } finally {
          marshaller.finishObjectOutput(output);
       }
-      return baos;
    }
 
    @Override
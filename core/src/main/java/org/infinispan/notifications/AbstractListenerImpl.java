@@ -24,6 +24,7 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 
 /**
@@ -36,6 +37,9 @@ public abstract class AbstractListenerImpl {
 
    protected final Map<Class<? extends Annotation>, List<ListenerInvocation>> listenersMap = new HashMap<Class<? extends Annotation>, List<ListenerInvocation>>(16, 0.99f);
 
+   // the queues of the listeners with a queue size
+   private final List<ListenerQueue> listenerQueues = new CopyOnWriteArrayList<ListenerQueue>();
+
 
    // two separate executor services, one for sync and one for async listeners
    protected ExecutorService syncProcessor;
@@ -60,6 +64,10 @@ void stop() {
       for (List<ListenerInvocation> list : listenersMap.values()) {
          if (list != null) list.clear();
       }
+      for (ListenerQueue queue : listenerQueues) {
+         queue.close();
+      }
+      listenerQueues.clear();
 
       if (syncProcessor != null) syncProcessor.shutdownNow();
    }
@@ -77,6 +85,13 @@ protected List<ListenerInvocation> getListenerCollectionForAnnotation(Class<? ex
    public void removeListener(Object listener) {
       for (Class<? extends Annotation> annotation : getAllowedMethodAnnotations().keySet())
          removeListenerInvocation(annotation, listener);
+      if (listener == null) return;
+      for (ListenerQueue queue : listenerQueues) {
+         if (listener.equals(queue.target)) {
+            queue.close();
+            listenerQueues.remove(queue);
+         }
+      }
    }
 
    private void removeListenerInvocation(Class<? extends Annotation> annotation, Object listener) {
@@ -113,6 +128,10 @@ public Set<Object> getListeners() {
     */
    protected void validateAndAddListenerInvocation(Object listener, KeyFilter filter, ClassLoader classLoader) {
       Listener l = testListenerClassValidity(listener.getClass());
+      ListenerQueue queue = null;
+      if (l.queueSize() > 0) {
+         queue = new ListenerQueue(listener, l.queueSize(), l.overflowPolicy(), asyncProcessor);
+      }
       boolean foundMethods = false;
       Map<Class<? extends Annotation>, Class<?>> allowedListeners = getAllowedMethodAnnotations();
       // now try all methods on the listener for anything that we like.  Note that only PUBLIC methods are scanned.
@@ -124,7 +143,7 @@ protected void validateAndAddListenerInvocation(Object listener, KeyFilter filte
             if (m.isAnnotationPresent(key)) {
                testListenerMethodValidity(m, value, key.getName());
                m.setAccessible(true);
-               addListenerInvocation(key, new ListenerInvocation(listener, m, l.sync(), l.primaryOnly(), filter, classLoader));
+               addListenerInvocation(key, new ListenerInvocation(listener, m, l.sync(), l.primaryOnly(), filter, classLoader, queue));
                foundMethods = true;
             }
          }
@@ -132,6 +151,8 @@ protected void validateAndAddListenerInvocation(Object listener, KeyFilter filte
 
       if (!foundMethods)
          getLog().noAnnotateMethodsFoundInListener(listener.getClass());
+      else if (queue != null)
+         listenerQueues.add(queue);
    }
 
    private void addListenerInvocation(Class<? extends Annotation> annotation, ListenerInvocation li) {
@@ -149,6 +170,10 @@ protected static Listener testListenerClassValidity(Class<?> listenerClass) {
       Listener l = ReflectionUtil.getAnnotation(listenerClass, Listener.class);
       if (l == null)
          throw new IncorrectListenerException(String.format("Cache listener class %s must be annotated with org.infinispan.notifications.annotation.Listener", listenerClass.getName()));
+      if (l.queueSize() < 0)
+         throw new IncorrectListenerException(String.format("Cache listener class %s has a negative queue size", listenerClass.getName()));
+      if (l.queueSize() > 0 && l.sync())
+         throw new IncorrectListenerException(String.format("Cache listener class %s has a queue size, so it must be asynchronous", listenerClass.getName()));
       return l;
    }
 
@@ -159,6 +184,47 @@ protected static void testListenerMethodValidity(Method m, Class<?> allowedParam
          throw new IncorrectListenerException("Methods annotated with " + annotationName + " should have a return type of void.");
    }
 
+   /**
+    * @return the number of events waiting in the queues of the listeners
+    */
+   protected int getQueuedEventCount() {
+      int count = 0;
+      for (ListenerQueue queue : listenerQueues) count += queue.size();
+      return count;
+   }
+
+   /**
+    * @return how long the oldest event waiting in the queues of the listeners has been queued, in milliseconds
+    */
+   protected long getMaxQueueLagMillis() {
+      long lag = 0;
+      for (ListenerQueue queue : listenerQueues) lag = Math.max(lag, queue.lagMillis());
+      return lag;
+   }
+
+   protected long getDroppedEventCount() {
+      long count = 0;
+      for (ListenerQueue queue : listenerQueues) count += queue.getDroppedEvents();
+      return count;
+   }
+
+   protected long getCoalescedEventCount() {
+      long count = 0;
+      for (ListenerQueue queue : listenerQueues) count += queue.getCoalescedEvents();
+      return count;
+   }
+
+   /**
+    * @return the size, lag and statistics of the queue of each listener
+    */
+   protected String getListenerQueueSummary() {
+      return listenerQueues.toString();
+   }
+
+   protected void resetListenerQueueStatistics() {
+      for (ListenerQueue queue : listenerQueues) queue.resetStatistics();
+   }
+
    protected abstract Transaction suspendIfNeeded();
 
    protected abstract void resumeIfNeeded(Transaction transaction);
@@ -174,14 +240,21 @@ protected class ListenerInvocation {
       public final boolean onlyPrimary;
       public final WeakReference<ClassLoader> classLoader;
       public final KeyFilter filter;
+      private final ListenerQueue queue;
 
       public ListenerInvocation(Object target, Method method, boolean sync, boolean onlyPrimary, KeyFilter filter, ClassLoader classLoader) {
+         this(target, method, sync, onlyPrimary, filter, classLoader, null);
+      }
+
+      ListenerInvocation(Object target, Method method, boolean sync, boolean onlyPrimary, KeyFilter filter,
+                         ClassLoader classLoader, ListenerQueue queue) {
          this.target = target;
          this.method = method;
          this.sync = sync;
          this.onlyPrimary = onlyPrimary;
          this.filter = filter;
          this.classLoader = new WeakReference<ClassLoader>(classLoader);
+         this.queue = queue;
       }
 
       public void invoke(final Object event) {
@@ -194,34 +267,16 @@ public void invoke(final Object event, boolean isLocalNodePrimaryOwner) {
 
       private void invoke(final Object event, boolean isLocalNodePrimaryOwner, boolean unKeyed) {
          if (unKeyed || shouldInvoke(event, isLocalNodePrimaryOwner)) {
+            if (queue != null) {
+               queue.offer(this, event);
+               return;
+            }
+
             Runnable r = new Runnable() {
 
                @Override
                public void run() {
-                  ClassLoader contextClassLoader = null;
-                  Transaction transaction = suspendIfNeeded();
-                  if (classLoader != null && classLoader.get() != null) {
-                     contextClassLoader = setContextClassLoader(classLoader.get());
-                  }
-                  try {
-                     method.invoke(target, event);
-                  } catch (InvocationTargetException exception) {
-                     Throwable cause = getRealException(exception);
-                     if (sync) {
-                        throw getLog().exceptionInvokingListener(
-                              cause.getClass().getName(), method, target, cause);
-                     } else {
-                        getLog().unableToInvokeListenerMethod(method, target, cause);
-                     }
-                  } catch (IllegalAccessException exception) {
-                     getLog().unableToInvokeListenerMethod(method, target, exception);
-                     removeListener(target);
-                  } finally {
-                     if (classLoader != null && classLoader.get() != null) {
-                        setContextClassLoader(contextClassLoader);
-                     }
-                     resumeIfNeeded(transaction);
-                  }
+                  deliver(event);
                }
             };
 
@@ -232,6 +287,36 @@ public void run() {
          }
       }
 
+      /**
+       * Invokes the listener method in the current thread.
+       */
+      void deliver(Object event) {
+         ClassLoader contextClassLoader = null;
+         Transaction transaction = suspendIfNeeded();
+         if (classLoader != null && classLoader.get() != null) {
+            contextClassLoader = setContextClassLoader(classLoader.get());
+         }
+         try {
+            method.invoke(target, event);
+         } catch (InvocationTargetException exception) {
+            Throwable cause = getRealException(exception);
+            if (sync) {
+               throw getLog().exceptionInvokingListener(
+                     cause.getClass().getName(), method, target, cause);
+            } else {
+               getLog().unableToInvokeListenerMethod(method, target, cause);
+            }
+         } catch (IllegalAccessException exception) {
+            getLog().unableToInvokeListenerMethod(method, target, exception);
+            removeListener(target);
+         } finally {
+            if (classLoader != null && classLoader.get() != null) {
+               setContextClassLoader(contextClassLoader);
+            }
+            resumeIfNeeded(transaction);
+         }
+      }
+
       private boolean shouldInvoke(Object event, boolean isLocalNodePrimaryOwner) {
          if (onlyPrimary && !isLocalNodePrimaryOwner) return false;
          return filter == null ||
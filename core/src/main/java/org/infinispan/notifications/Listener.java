@@ -213,4 +213,24 @@
     *  @since 5.3
     */
    boolean primaryOnly() default false;
+
+   /**
+    * The number of events that can be waiting for an asynchronous listener. If greater than zero, the events of the
+    * listener are kept in a bounded queue of its own and delivered by one thread at a time, in the order they were
+    * fired, so the listener sees the events of a key in order and a slow listener doesn't delay the other listeners.
+    * What happens when the queue is full is decided by {@link #overflowPolicy()}. Only allowed if {@link #sync()} is
+    * <tt>false</tt>. Defaults to <tt>0</tt>, i.e. events are handed directly to the asynchronous notification
+    * executor, without any ordering guarantee.
+    *
+    * @since 7.0
+    */
+   int queueSize() default 0;
+
+   /**
+    * What happens when an event is fired while the queue of the listener is full, see {@link #queueSize()}. Defaults
+    * to {@link QueueOverflowPolicy#BLOCK}.
+    *
+    * @since 7.0
+    */
+   QueueOverflowPolicy overflowPolicy() default QueueOverflowPolicy.BLOCK;
 }
@@ -0,0 +1,331 @@
+package org.infinispan.notifications;
+
+import net.jcip.annotations.ThreadSafe;
+import org.infinispan.notifications.cachelistener.event.EventImpl;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The bounded queue of a listener with a {@link Listener#queueSize()}.
+ * <p/>
+ * The events are delivered in the order they were queued by a single task running on the asynchronous notification
+ * executor, which is only submitted while the queue has events. The task delivers a limited number of events before
+ * giving its thread back to the executor, so a busy listener doesn't starve the other listeners.
+ * <p/>
+ * When an event is coalesced, the event it replaces is cancelled and the new event is queued last, so the events of a
+ * key are still delivered in order. Cancelled events stay in the queue until they are polled, but they don't count
+ * towards its size; at most as many cancelled events as the size of the queue are kept.
+ * <p/>
+ * A listener that fires events itself while it is being notified would wait for itself if its queue is full, so
+ * events fired from the delivering thread are always queued, even if that exceeds the size of the queue. A thread
+ * doesn't wait for room longer than {@link #MAX_BLOCK_MILLIS} either, after which its event is dropped, so a stalled
+ * listener can't block the threads firing events forever.
+ * <p/>
+ * An exception thrown while delivering an event is logged and doesn't prevent the delivery of the next events. If the
+ * executor rejects the delivering task, the task is submitted again by the next thread firing an event, or by a thread
+ * waiting for room.
+ *
+ * @since 7.0
+ */
+@ThreadSafe
+class ListenerQueue implements Runnable {
+
+   private static final Log log = LogFactory.getLog(ListenerQueue.class);
+
+   /**
+    * The maximum time a thread firing an event waits for room in the queue, in milliseconds.
+    */
+   static final long MAX_BLOCK_MILLIS = TimeUnit.SECONDS.toMillis(30);
+   // how often a thread waiting for room checks that the delivering task is submitted
+   private static final long RESUBMIT_CHECK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+   // the maximum number of events delivered before the delivering task is resubmitted
+   private static final int MAX_EVENTS_PER_RUN = 64;
+
+   final Object target;
+   private final int capacity;
+   private final QueueOverflowPolicy overflowPolicy;
+   private final Executor executor;
+
+   private final ReentrantLock lock = new ReentrantLock();
+   private final Condition notFull = lock.newCondition();
+   // the queued events, including the cancelled ones
+   private final ArrayDeque<QueuedEvent> queue;
+   // the latest queued event for each key, listener method and pre flag, used for coalescing
+   private final Map<CoalescingKey, QueuedEvent> latest = new HashMap<CoalescingKey, QueuedEvent>();
+   private int size;
+   private boolean scheduled;
+   private boolean closed;
+   private volatile Thread deliveringThread;
+
+   private final AtomicLong droppedEvents = new AtomicLong();
+   private final AtomicLong coalescedEvents = new AtomicLong();
+
+   ListenerQueue(Object target, int capacity, QueueOverflowPolicy overflowPolicy, Executor executor) {
+      this.target = target;
+      this.capacity = capacity;
+      this.overflowPolicy = overflowPolicy;
+      this.executor = executor;
+      this.queue = new ArrayDeque<QueuedEvent>(capacity);
+   }
+
+   /**
+    * Queues an event for the given listener method, waiting for room if needed by the overflow policy.
+    */
+   void offer(AbstractListenerImpl.ListenerInvocation invocation, Object event) {
+      CoalescingKey coalescingKey = null;
+      if (event instanceof EventImpl && ((EventImpl) event).getKey() != null) {
+         coalescingKey = new CoalescingKey(((EventImpl) event).getKey(), invocation, ((EventImpl) event).isPre());
+      }
+      boolean submit = false;
+      boolean interrupted = false;
+      lock.lock();
+      try {
+         QueuedEvent replaced = null;
+         long remainingNanos = TimeUnit.MILLISECONDS.toNanos(MAX_BLOCK_MILLIS);
+         while (!closed && size >= capacity && Thread.currentThread() != deliveringThread) {
+            if (overflowPolicy == QueueOverflowPolicy.DROP) {
+               droppedEvents.incrementAndGet();
+               return;
+            }
+            if (overflowPolicy == QueueOverflowPolicy.COALESCE && coalescingKey != null && queue.size() < 2 * capacity) {
+               replaced = latest.get(coalescingKey);
+               if (replaced != null) break;
+            }
+            if (remainingNanos <= 0) {
+               log.warnf("Dropping event %s, listener %s didn't make room for it in %d ms", event, target,
+                          MAX_BLOCK_MILLIS);
+               droppedEvents.incrementAndGet();
+               return;
+            }
+            if (!scheduled) {
+               // the executor rejected the delivering task
+               scheduled = true;
+               lock.unlock();
+               try {
+                  schedule();
+               } finally {
+                  lock.lock();
+               }
+            }
+            long waitNanos = Math.min(remainingNanos, RESUBMIT_CHECK_NANOS);
+            try {
+               remainingNanos -= waitNanos - notFull.awaitNanos(waitNanos);
+            } catch (InterruptedException e) {
+               // keep waiting like before, but let the caller know it was interrupted
+               interrupted = true;
+            }
+         }
+         if (closed) {
+            return;
+         }
+         if (replaced != null) {
+            replaced.cancelled = true;
+            size--;
+            coalescedEvents.incrementAndGet();
+         }
+         QueuedEvent queued = new QueuedEvent(invocation, event, coalescingKey);
+         queue.addLast(queued);
+         size++;
+         if (coalescingKey != null) {
+            latest.put(coalescingKey, queued);
+         }
+         if (!scheduled) {
+            scheduled = true;
+            submit = true;
+         }
+      } finally {
+         lock.unlock();
+         if (interrupted) {
+            Thread.currentThread().interrupt();
+         }
+      }
+      if (submit) {
+         schedule();
+      }
+   }
+
+   /**
+    * Submits the delivering task, which must be marked as scheduled.
+    */
+   private void schedule() {
+      try {
+         executor.execute(this);
+      } catch (RejectedExecutionException e) {
+         log.debugf(e, "Could not submit the delivery of the events of listener %s", target);
+         lock.lock();
+         try {
+            scheduled = false;
+            // let the threads waiting for room submit it again
+            notFull.signalAll();
+         } finally {
+            lock.unlock();
+         }
+      }
+   }
+
+   @Override
+   public void run() {
+      deliveringThread = Thread.currentThread();
+      boolean drained = false;
+      try {
+         for (int i = 0; i < MAX_EVENTS_PER_RUN && !drained; i++) {
+            QueuedEvent next = poll();
+            if (next == null) {
+               drained = true;
+            } else {
+               try {
+                  next.invocation.deliver(next.event);
+               } catch (Throwable t) {
+                  log.errorf(t, "Failed to deliver event %s to listener %s", next.event, target);
+               }
+            }
+         }
+      } finally {
+         deliveringThread = null;
+      }
+      if (!drained) {
+         // more events may be waiting, let the other tasks of the executor run first
+         schedule();
+      }
+   }
+
+   private QueuedEvent poll() {
+      lock.lock();
+      try {
+         QueuedEvent next;
+         do {
+            next = queue.pollFirst();
+         } while (next != null && next.cancelled);
+         // polling cancelled events makes room for coalescing too
+         notFull.signalAll();
+         if (next == null) {
+            scheduled = false;
+            return null;
+         }
+         size--;
+         if (next.coalescingKey != null && latest.get(next.coalescingKey) == next) {
+            latest.remove(next.coalescingKey);
+         }
+         return next;
+      } finally {
+         lock.unlock();
+      }
+   }
+
+   /**
+    * Discards the queued events and wakes up the threads waiting for room.
+    */
+   void close() {
+      lock.lock();
+      try {
+         closed = true;
+         queue.clear();
+         latest.clear();
+         size = 0;
+         notFull.signalAll();
+      } finally {
+         lock.unlock();
+      }
+   }
+
+   /**
+    * @return the number of events waiting to be delivered
+    */
+   int size() {
+      lock.lock();
+      try {
+         return size;
+      } finally {
+         lock.unlock();
+      }
+   }
+
+   /**
+    * @return how long the oldest waiting event has been queued, in milliseconds
+    */
+   long lagMillis() {
+      lock.lock();
+      try {
+         for (QueuedEvent queued : queue) {
+            if (!queued.cancelled) {
+               return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - queued.queuedNanos);
+            }
+         }
+         return 0;
+      } finally {
+         lock.unlock();
+      }
+   }
+
+   long getDroppedEvents() {
+      return droppedEvents.get();
+   }
+
+   long getCoalescedEvents() {
+      return coalescedEvents.get();
+   }
+
+   void resetStatistics() {
+      droppedEvents.set(0);
+      coalescedEvents.set(0);
+   }
+
+   @Override
+   public String toString() {
+      return target.getClass().getName() + "{size=" + size() + ", lag=" + lagMillis() + "ms, dropped="
+            + droppedEvents.get() + ", coalesced=" + coalescedEvents.get() + "}";
+   }
+
+   private static final class QueuedEvent {
+      final AbstractListenerImpl.ListenerInvocation invocation;
+      final Object event;
+      final CoalescingKey coalescingKey;
+      final long queuedNanos = System.nanoTime();
+      // set under the lock when a newer event replaces this one
+      boolean cancelled;
+
+      QueuedEvent(AbstractListenerImpl.ListenerInvocation invocation, Object event, CoalescingKey coalescingKey) {
+         this.invocation = invocation;
+         this.event = event;
+         this.coalescingKey = coalescingKey;
+      }
+   }
+
+   private static final class CoalescingKey {
+      final Object key;
+      final AbstractListenerImpl.ListenerInvocation invocation;
+      final boolean pre;
+
+      CoalescingKey(Object key, AbstractListenerImpl.ListenerInvocation invocation, boolean pre) {
+         this.key = key;
+         this.invocation = invocation;
+         this.pre = pre;
+      }
+
+      @Override
+      public boolean equals(Object o) {
+         if (this == o) return true;
+         if (!(o instanceof CoalescingKey)) return false;
+         CoalescingKey that = (CoalescingKey) o;
+         return pre == that.pre && invocation == that.invocation && key.equals(that.key);
+      }
+
+      @Override
+      public int hashCode() {
+         int result = key.hashCode();
+         result = 31 * result + System.identityHashCode(invocation);
+         result = 31 * result + (pre ? 1 : 0);
+         return result;
+      }
+   }
+}
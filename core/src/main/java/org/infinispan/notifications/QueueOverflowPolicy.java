@@ -0,0 +1,26 @@
+package org.infinispan.notifications;
+
+/**
+ * What happens when an event is fired for a listener whose queue is full, see {@link Listener#queueSize()}.
+ *
+ * @since 7.0
+ */
+public enum QueueOverflowPolicy {
+   /**
+    * The thread firing the event waits until the listener has room for it. If the listener doesn't make room within
+    * 30 seconds, the event is dropped and a warning is logged.
+    */
+   BLOCK,
+   /**
+    * The event is discarded.
+    */
+   DROP,
+   /**
+    * The event replaces the queued event with the same key, listener method and
+    * {@link org.infinispan.notifications.cachelistener.event.Event#isPre() pre} flag, if there is one, so the listener
+    * only sees the latest value of a key that changed several times. The new event is queued last, so the events of
+    * each key are still delivered in order. If there is no such event, the thread firing the event waits, as with
+    * {@link #BLOCK}.
+    */
+   COALESCE
+}
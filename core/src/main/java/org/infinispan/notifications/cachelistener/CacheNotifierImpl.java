@@ -10,6 +10,13 @@
 import org.infinispan.distribution.ch.ConsistentHash;
 import org.infinispan.factories.annotations.Inject;
 import org.infinispan.interceptors.locking.ClusteringDependentLogic;
+import org.infinispan.jmx.annotations.DataType;
+import org.infinispan.jmx.annotations.DisplayType;
+import org.infinispan.jmx.annotations.MBean;
+import org.infinispan.jmx.annotations.ManagedAttribute;
+import org.infinispan.jmx.annotations.ManagedOperation;
+import org.infinispan.jmx.annotations.MeasurementType;
+import org.infinispan.jmx.annotations.Units;
 import org.infinispan.notifications.AbstractListenerImpl;
 import org.infinispan.notifications.KeyFilter;
 import org.infinispan.notifications.cachelistener.annotation.*;
@@ -41,6 +48,7 @@
  * @author Mircea.Markus@jboss.com
  * @since 4.0
  */
+@MBean(objectName = "CacheNotifier", description = "Component that notifies the cache listeners")
 public final class CacheNotifierImpl extends AbstractListenerImpl implements CacheNotifier {
 
    private static final Log log = LogFactory.getLog(CacheNotifierImpl.class);
@@ -422,6 +430,15 @@ public void notifyTopologyChanged(ConsistentHash oldConsistentHash, ConsistentHa
       }
    }
 
+   /**
+    * @return {@code true} if at least one listener is registered for the events of the given annotation type, e.g.
+    * {@link org.infinispan.notifications.cachelistener.annotation.CacheEntryVisited}
+    */
+   public boolean hasListener(Class<? extends Annotation> annotationClass) {
+      List<ListenerInvocation> listeners = listenersMap.get(annotationClass);
+      return listeners != null && !listeners.isEmpty();
+   }
+
    public boolean isNotificationAllowed(
          FlagAffectedCommand cmd, List<ListenerInvocation> listeners) {
       return (cmd == null || !cmd.hasFlag(Flag.SKIP_LISTENER_NOTIFICATION))
@@ -437,4 +454,60 @@ public void addListener(Object listener, KeyFilter filter, ClassLoader classLoad
    public void addListener(Object listener, KeyFilter filter) {
       validateAndAddListenerInvocation(listener, filter, null);
    }
+
+   @ManagedAttribute(
+         description = "Number of events waiting in the queues of the listeners with a queue size",
+         displayName = "Queued events",
+         displayType = DisplayType.SUMMARY
+   )
+   public int getQueuedEvents() {
+      return getQueuedEventCount();
+   }
+
+   @ManagedAttribute(
+         description = "How long the oldest event waiting in the queue of a listener has been waiting",
+         displayName = "Maximum listener queue lag",
+         units = Units.MILLISECONDS,
+         displayType = DisplayType.SUMMARY
+   )
+   public long getMaxQueueLag() {
+      return getMaxQueueLagMillis();
+   }
+
+   @ManagedAttribute(
+         description = "Number of events dropped because the queue of their listener was full",
+         displayName = "Dropped events",
+         measurementType = MeasurementType.TRENDSUP,
+         displayType = DisplayType.SUMMARY
+   )
+   public long getDroppedEvents() {
+      return getDroppedEventCount();
+   }
+
+   @ManagedAttribute(
+         description = "Number of events merged with a queued event for the same key because the queue of their listener was full",
+         displayName = "Coalesced events",
+         measurementType = MeasurementType.TRENDSUP,
+         displayType = DisplayType.SUMMARY
+   )
+   public long getCoalescedEvents() {
+      return getCoalescedEventCount();
+   }
+
+   @ManagedAttribute(
+         description = "Size, lag and statistics of the queue of each listener with a queue size",
+         displayName = "Listener queues",
+         dataType = DataType.TRAIT
+   )
+   public String getListenerQueues() {
+      return getListenerQueueSummary();
+   }
+
+   @ManagedOperation(
+         description = "Resets the dropped and coalesced event counts",
+         displayName = "Reset statistics"
+   )
+   public void resetStatistics() {
+      resetListenerQueueStatistics();
+   }
 }
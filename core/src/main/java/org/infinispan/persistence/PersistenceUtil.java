@@ -7,6 +7,8 @@
 import org.infinispan.metadata.InternalMetadata;
 import org.infinispan.metadata.InternalMetadataImpl;
 import org.infinispan.persistence.spi.AdvancedCacheLoader;
+import org.infinispan.persistence.spi.BatchingCacheWriter;
+import org.infinispan.persistence.spi.CacheWriter;
 import org.infinispan.util.concurrent.WithinThreadExecutor;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
@@ -65,6 +67,34 @@ public void processEntry(MarshalledEntry ce, AdvancedCacheLoader.TaskContext tas
       return set;
    }
 
+   /**
+    * Persists the entries with a single {@link BatchingCacheWriter#writeBatch(Iterable)} call if the writer supports
+    * it, or one {@link CacheWriter#write(MarshalledEntry)} call per entry otherwise.
+    */
+   @SuppressWarnings("unchecked")
+   public static void writeBatch(CacheWriter writer, Iterable<? extends MarshalledEntry> entries) {
+      if (writer instanceof BatchingCacheWriter) {
+         ((BatchingCacheWriter) writer).writeBatch(entries);
+      } else {
+         for (MarshalledEntry entry : entries)
+            writer.write(entry);
+      }
+   }
+
+   /**
+    * Removes the keys with a single {@link BatchingCacheWriter#deleteBatch(Iterable)} call if the writer supports
+    * it, or one {@link CacheWriter#delete(Object)} call per key otherwise.
+    */
+   @SuppressWarnings("unchecked")
+   public static void deleteBatch(CacheWriter writer, Iterable<?> keys) {
+      if (writer instanceof BatchingCacheWriter) {
+         ((BatchingCacheWriter) writer).deleteBatch(keys);
+      } else {
+         for (Object key : keys)
+            writer.delete(key);
+      }
+   }
+
    public static long getExpiryTime(InternalMetadata internalMetadata) {
       return internalMetadata == null ? -1 : internalMetadata.expiryTime();
    }
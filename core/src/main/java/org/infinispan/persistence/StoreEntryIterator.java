@@ -0,0 +1,146 @@
+package org.infinispan.persistence;
+
+import org.infinispan.commons.CacheException;
+import org.infinispan.commons.util.CloseableIterator;
+import org.infinispan.marshall.core.MarshalledEntry;
+import org.infinispan.persistence.manager.PersistenceManager;
+import org.infinispan.persistence.spi.AdvancedCacheLoader;
+import org.infinispan.persistence.spi.PersistenceException;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Iterates over the entries of all the cache stores accepted by a filter, without reading all of them at once.
+ * <p/>
+ * The stores are processed with {@link PersistenceManager#processOnAllStores(AdvancedCacheLoader.KeyFilter,
+ * AdvancedCacheLoader.CacheLoaderTask, boolean, boolean)} on a thread of the given executor, which hands the entries
+ * over to the consumer and waits while <tt>readAhead</tt> entries are already waiting to be consumed. The stores are
+ * therefore only read as fast as the entries are consumed, and at most <tt>readAhead</tt> entries are held in memory.
+ * If the executor runs the task in the calling thread instead, the entries are all read ahead, since the consumer
+ * could never make room for them.
+ * <p/>
+ * An iterator abandoned before being exhausted must be closed, so that the processing of the stores is stopped. The
+ * iterator is not thread safe, but it may be consumed by a different thread for every call.
+ *
+ * @since 7.0
+ */
+public class StoreEntryIterator implements CloseableIterator<MarshalledEntry> {
+
+   private static final Log log = LogFactory.getLog(StoreEntryIterator.class);
+
+   // queued once the stores have been processed
+   private static final Object END = new Object();
+   // how often a producer waiting for room checks whether the iterator was closed
+   private static final long CLOSE_CHECK_MILLIS = 100;
+
+   private final BlockingQueue<Object> queue = new LinkedBlockingQueue<Object>();
+   private final Semaphore room;
+   private volatile boolean closed;
+   private volatile Throwable failure;
+   private MarshalledEntry next;
+   private boolean done;
+
+   public StoreEntryIterator(final PersistenceManager persistenceManager, Executor executor,
+                             final AdvancedCacheLoader.KeyFilter filter, final boolean fetchValue,
+                             final boolean fetchMetadata, int readAhead) {
+      if (readAhead <= 0) {
+         throw new IllegalArgumentException("The read ahead must be positive, but was " + readAhead);
+      }
+      this.room = new Semaphore(readAhead);
+      final Thread consumer = Thread.currentThread();
+      executor.execute(new Runnable() {
+         @Override
+         public void run() {
+            final boolean bounded = Thread.currentThread() != consumer;
+            if (!bounded) {
+               log.tracef("Reading all the store entries ahead, the executor runs the processing in the calling thread");
+            }
+            try {
+               persistenceManager.processOnAllStores(filter, new AdvancedCacheLoader.CacheLoaderTask() {
+                  @Override
+                  public void processEntry(MarshalledEntry marshalledEntry, AdvancedCacheLoader.TaskContext taskContext)
+                        throws InterruptedException {
+                     if (!handOver(marshalledEntry, bounded)) {
+                        taskContext.stop();
+                     }
+                  }
+               }, fetchValue, fetchMetadata);
+            } catch (Throwable t) {
+               failure = t;
+            } finally {
+               queue.add(END);
+            }
+         }
+      });
+   }
+
+   private boolean handOver(MarshalledEntry entry, boolean bounded) throws InterruptedException {
+      if (bounded) {
+         while (!room.tryAcquire(CLOSE_CHECK_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (closed) {
+               return false;
+            }
+         }
+      }
+      if (closed) {
+         return false;
+      }
+      queue.add(entry);
+      return true;
+   }
+
+   @Override
+   public boolean hasNext() {
+      if (next == null && !done) {
+         Object element;
+         try {
+            element = queue.take();
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CacheException("Interrupted while reading the entries of the cache stores", e);
+         }
+         if (element == END) {
+            done = true;
+            if (failure != null) {
+               throw new PersistenceException("Failed to read the entries of the cache stores", failure);
+            }
+         } else {
+            room.release();
+            next = (MarshalledEntry) element;
+         }
+      }
+      return next != null;
+   }
+
+   @Override
+   public MarshalledEntry next() {
+      if (!hasNext()) {
+         throw new NoSuchElementException();
+      }
+      MarshalledEntry entry = next;
+      next = null;
+      return entry;
+   }
+
+   @Override
+   public void remove() {
+      throw new UnsupportedOperationException();
+   }
+
+   @Override
+   public void close() {
+      if (!closed) {
+         closed = true;
+         done = true;
+         next = null;
+         queue.clear();
+      }
+   }
+}
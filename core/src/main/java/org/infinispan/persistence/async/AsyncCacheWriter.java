@@ -6,7 +6,9 @@
 import org.infinispan.configuration.cache.AsyncStoreConfiguration;
 import org.infinispan.configuration.cache.Configuration;
 import org.infinispan.persistence.spi.PersistenceException;
+import org.infinispan.persistence.PersistenceUtil;
 import org.infinispan.persistence.modifications.Modification;
+import org.infinispan.persistence.modifications.ModificationsList;
 import org.infinispan.persistence.modifications.Remove;
 import org.infinispan.persistence.modifications.Store;
 import org.infinispan.commons.util.CollectionFactory;
@@ -147,19 +149,44 @@ public boolean delete(Object key) {
       return true;
    }
 
+   @Override
+   public void writeBatch(Iterable entries) {
+      List<Modification> mods = new ArrayList<Modification>();
+      for (Object entry : entries)
+         mods.add(new Store(((MarshalledEntry) entry).getKey(), (MarshalledEntry) entry));
+      if (!mods.isEmpty())
+         put(new ModificationsList(mods), mods.size());
+   }
+
+   @Override
+   public void deleteBatch(Iterable keys) {
+      List<Modification> mods = new ArrayList<Modification>();
+      for (Object key : keys)
+         mods.add(new Remove(key));
+      if (!mods.isEmpty())
+         put(new ModificationsList(mods), mods.size());
+   }
+
    protected void applyModificationsSync(List<Modification> mods) throws PersistenceException {
+      List<MarshalledEntry> entries = new ArrayList<MarshalledEntry>(mods.size());
+      List<Object> keys = new ArrayList<Object>();
       for (Modification m : mods) {
          switch (m.getType()) {
             case STORE:
-               actual.write(((Store) m).getStoredValue());
+               entries.add(((Store) m).getStoredValue());
                break;
             case REMOVE:
-               actual.delete(((Remove) m).getKey());
+               keys.add(((Remove) m).getKey());
                break;
             default:
                throw new IllegalArgumentException("Unknown modification type " + m.getType());
          }
       }
+      // modifications are coalesced by key, so writes and removals can be applied in any order
+      if (!entries.isEmpty())
+         PersistenceUtil.writeBatch(actual, entries);
+      if (!keys.isEmpty())
+         PersistenceUtil.deleteBatch(actual, keys);
    }
 
 
@@ -0,0 +1,912 @@
+package org.infinispan.persistence.file;
+
+import org.infinispan.commons.equivalence.AnyEquivalence;
+import org.infinispan.commons.equivalence.Equivalence;
+import org.infinispan.commons.io.ByteBufferFactory;
+import org.infinispan.commons.util.CollectionFactory;
+import org.infinispan.configuration.cache.LogFileStoreConfiguration;
+import org.infinispan.executors.ExecutorAllCompletionService;
+import org.infinispan.marshall.core.MarshalledEntry;
+import org.infinispan.persistence.PersistenceUtil;
+import org.infinispan.persistence.TaskContextImpl;
+import org.infinispan.persistence.spi.AdvancedLoadWriteStore;
+import org.infinispan.persistence.spi.InitializationContext;
+import org.infinispan.persistence.spi.PersistenceException;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A log-structured, filesystem-based implementation of a {@link org.infinispan.persistence.spi.CacheLoader}, meant
+ * for write-heavy workloads such as passivation.
+ * <p/>
+ * Instead of overwriting records in place like {@link SingleFileStore} does, this store appends every write and
+ * every removal to the end of a log made of numbered files <tt>&lt;location&gt;/&lt;cache name&gt;/&lt;n&gt;.log</tt>.
+ * Once the current log file exceeds {@link LogFileStoreConfiguration#maxFileSize()} a new one is started. Writes are
+ * therefore always sequential and, when {@link LogFileStoreConfiguration#syncWrites()} is enabled, concurrent writers
+ * share a single fsync of the log.
+ * <p/>
+ * Keys and the position of their latest record are kept in memory. Overwritten, removed and expired records are
+ * accounted as garbage in the file that holds them, and a background thread compacts files whose garbage ratio
+ * exceeds {@link LogFileStoreConfiguration#compactionThreshold()} by appending their live records to the log and
+ * deleting them. Removal records hide older records of the same key, so they only count as garbage once the file
+ * that holds them is the oldest one of the log.
+ * <p/>
+ * The in-memory index is written to <tt>&lt;location&gt;/&lt;cache name&gt;/index</tt> when the store is stopped and
+ * read back on start, so the log only needs to be scanned if the store was not stopped cleanly.
+ * <p/>
+ * This class is fully thread safe, loads never block and writes only serialize while appending to the log.
+ *
+ * @since 7.0
+ */
+public class LogFileStore implements AdvancedLoadWriteStore {
+   private static final Log log = LogFactory.getLog(LogFileStore.class);
+   private static final boolean trace = log.isTraceEnabled();
+
+   private static final byte[] INDEX_MAGIC = new byte[]{'L', 'F', 'I', '2'};
+   private static final String INDEX_FILE = "index";
+   private static final String LOG_FILE_SUFFIX = ".log";
+   private static final int HEADER_SIZE = 4 + 4 + 4 + 4 + 8;
+   private static final int TOMBSTONE = -1;
+   private static final int STOP_COMPACTOR = -1;
+
+   private LogFileStoreConfiguration configuration;
+
+   protected InitializationContext ctx;
+
+   private File dir;
+   private ConcurrentNavigableMap<Integer, LogFile> files;
+   private ConcurrentMap<Object, EntryPosition> index;
+   // Serializes appends, so that the order of the records in the log is the order in which the index is updated
+   private final Lock appendLock = new ReentrantLock();
+   // Held by the compactor while it compacts a file, prevents clear() from deleting the file under its feet
+   private final Lock compactionLock = new ReentrantLock();
+   private final Object syncMonitor = new Object();
+   private LogFile appendFile;
+   private int nextFileId;
+   private long appended;
+   private volatile long synced;
+   private BlockingQueue<Integer> compactionQueue;
+   private Thread compactor;
+   private volatile boolean stopped;
+
+   @Override
+   public void init(InitializationContext ctx) {
+      this.ctx = ctx;
+      this.configuration = ctx.getConfiguration();
+   }
+
+   @Override
+   public void start() {
+      try {
+         String location = configuration.location();
+         if (location == null || location.trim().length() == 0)
+            location = "Infinispan-LogFileStore";
+
+         dir = new File(location, ctx.getCache().getName());
+         if (!dir.mkdirs() && !dir.exists()) {
+            throw log.directoryCannotBeCreated(dir.getAbsolutePath());
+         }
+
+         files = new ConcurrentSkipListMap<Integer, LogFile>();
+         Equivalence<Object> keyEq = ctx.getCache().getCacheConfiguration().dataContainer().keyEquivalence();
+         index = CollectionFactory.makeConcurrentMap(keyEq, AnyEquivalence.<EntryPosition>getInstance());
+         compactionQueue = new LinkedBlockingQueue<Integer>();
+         stopped = false;
+         appended = 0;
+         synced = 0;
+
+         for (File file : listLogFiles()) {
+            int id = Integer.parseInt(file.getName().substring(0, file.getName().length() - LOG_FILE_SUFFIX.length()));
+            LogFile logFile = new LogFile(id, file);
+            logFile.size = logFile.channel.size();
+            files.put(id, logFile);
+         }
+
+         // the index is only valid until the log is modified again, so never read it twice
+         File indexFile = new File(dir, INDEX_FILE);
+         if (!loadIndex(indexFile)) {
+            index.clear();
+            for (LogFile logFile : files.values()) {
+               logFile.free.set(0);
+               logFile.tombstones.set(0);
+            }
+            rebuildIndex();
+         }
+         if (indexFile.exists() && !indexFile.delete())
+            throw new PersistenceException("Unable to delete index file " + indexFile.getAbsolutePath());
+
+         nextFileId = files.isEmpty() ? 0 : files.lastKey() + 1;
+         appendFile = newLogFile();
+
+         compactor = new Thread(new Compactor(), "LogFileStoreCompactor-" + ctx.getCache().getName());
+         compactor.setDaemon(true);
+         compactor.start();
+
+         appendLock.lock();
+         try {
+            for (LogFile logFile : files.values())
+               scheduleCompaction(logFile);
+         } finally {
+            appendLock.unlock();
+         }
+      } catch (PersistenceException e) {
+         throw e;
+      } catch (Exception e) {
+         throw new PersistenceException(e);
+      }
+   }
+
+   @Override
+   public void stop() {
+      if (compactor == null)
+         return;
+
+      stopped = true;
+      compactionQueue.add(STOP_COMPACTOR);
+      try {
+         compactor.join();
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+      }
+      compactor = null;
+
+      try {
+         log.tracef("Stopping store %s, size = %d, log files = %d", ctx.getCache().getName(), index.size(), files.size());
+         appendLock.lock();
+         try {
+            appendFile.channel.force(false);
+            writeIndex(new File(dir, INDEX_FILE));
+            for (LogFile logFile : files.values())
+               logFile.channel.close();
+         } finally {
+            appendLock.unlock();
+         }
+         files = null;
+         index = null;
+         appendFile = null;
+      } catch (Exception e) {
+         throw new PersistenceException(e);
+      }
+   }
+
+   private File[] listLogFiles() {
+      File[] logFiles = dir.listFiles(new FilenameFilter() {
+         @Override
+         public boolean accept(File dir, String name) {
+            return name.endsWith(LOG_FILE_SUFFIX);
+         }
+      });
+      return logFiles == null ? new File[0] : logFiles;
+   }
+
+   /**
+    * Reads the index written by the last {@link #stop()}.
+    *
+    * @return true if the index was found and matches the log files on disk
+    */
+   private boolean loadIndex(File indexFile) {
+      if (!indexFile.exists())
+         return false;
+
+      DataInputStream in = null;
+      try {
+         in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)));
+         byte[] header = new byte[INDEX_MAGIC.length];
+         in.readFully(header);
+         if (!Arrays.equals(INDEX_MAGIC, header))
+            return false;
+
+         int fileCount = in.readInt();
+         if (fileCount != files.size())
+            return false;
+         for (int i = 0; i < fileCount; i++) {
+            LogFile logFile = files.get(in.readInt());
+            if (logFile == null || logFile.size != in.readLong())
+               return false;
+            logFile.free.set(in.readLong());
+            logFile.tombstones.set(in.readLong());
+         }
+
+         int entryCount = in.readInt();
+         byte[] keyBytes = new byte[64];
+         for (int i = 0; i < entryCount; i++) {
+            EntryPosition position = new EntryPosition(in.readInt(), in.readLong(), in.readInt(), in.readLong());
+            int keyLen = in.readInt();
+            if (keyBytes.length < keyLen)
+               keyBytes = new byte[keyLen];
+            in.readFully(keyBytes, 0, keyLen);
+            index.put(ctx.getMarshaller().objectFromByteBuffer(keyBytes, 0, keyLen), position);
+         }
+         if (trace) log.tracef("Read index of %d entries from %s", entryCount, indexFile);
+         return true;
+      } catch (Exception e) {
+         log.debugf(e, "Unable to read index file %s, scanning the log instead", indexFile);
+         return false;
+      } finally {
+         if (in != null) {
+            try {
+               in.close();
+            } catch (IOException e) {
+               log.tracef(e, "Unable to close index file %s", indexFile);
+            }
+         }
+      }
+   }
+
+   private void writeIndex(File indexFile) throws Exception {
+      DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile)));
+      try {
+         out.write(INDEX_MAGIC);
+         out.writeInt(files.size());
+         for (LogFile logFile : files.values()) {
+            out.writeInt(logFile.id);
+            out.writeLong(logFile.size);
+            out.writeLong(logFile.free.get());
+            out.writeLong(logFile.tombstones.get());
+         }
+         out.writeInt(index.size());
+         for (Map.Entry<Object, EntryPosition> entry : index.entrySet()) {
+            EntryPosition position = entry.getValue();
+            out.writeInt(position.fileId);
+            out.writeLong(position.offset);
+            out.writeInt(position.size);
+            out.writeLong(position.expiryTime);
+            org.infinispan.commons.io.ByteBuffer key = ctx.getMarshaller().objectToBuffer(entry.getKey());
+            out.writeInt(key.getLength());
+            out.write(key.getBuf(), key.getOffset(), key.getLength());
+         }
+      } finally {
+         out.close();
+      }
+   }
+
+   /**
+    * Rebuilds the in-memory index by scanning every record of the log, oldest first.
+    */
+   private void rebuildIndex() throws Exception {
+      long now = System.currentTimeMillis();
+      ByteBuffer buf = ByteBuffer.allocate(HEADER_SIZE);
+      for (LogFile logFile : files.values()) {
+         long offset = 0;
+         while (offset < logFile.size) {
+            buf.clear().limit(HEADER_SIZE);
+            read(logFile.channel, buf, offset);
+            if (buf.remaining() > 0 || offset + buf.getInt(0) > logFile.size) {
+               // the last record was not fully written before the store was stopped
+               truncate(logFile, offset);
+               break;
+            }
+            buf.flip();
+            int size = buf.getInt();
+            int keyLen = buf.getInt();
+            int dataLen = buf.getInt();
+            int metadataLen = buf.getInt();
+            long expiryTime = buf.getLong();
+            if (keyLen <= 0 || size < HEADER_SIZE + keyLen + Math.max(dataLen, 0) + metadataLen)
+               throw log.errorReadingFileStore(logFile.file.getPath(), offset);
+
+            if (buf.capacity() < keyLen)
+               buf = ByteBuffer.allocate(keyLen);
+            buf.clear().limit(keyLen);
+            read(logFile.channel, buf, offset + HEADER_SIZE);
+            Object key = ctx.getMarshaller().objectFromByteBuffer(buf.array(), 0, keyLen);
+
+            EntryPosition previous;
+            if (dataLen == TOMBSTONE) {
+               previous = index.remove(key);
+               logFile.tombstones.addAndGet(size);
+            } else {
+               EntryPosition position = new EntryPosition(logFile.id, offset, size, expiryTime);
+               if (position.isExpired(now)) {
+                  previous = index.remove(key);
+                  logFile.free.addAndGet(size);
+               } else {
+                  previous = index.put(key, position);
+               }
+            }
+            if (previous != null)
+               files.get(previous.fileId).free.addAndGet(previous.size);
+            offset += size;
+         }
+      }
+      if (trace) log.tracef("Rebuilt index of %d entries from %d log files", index.size(), files.size());
+   }
+
+   private void truncate(LogFile logFile, long size) throws IOException {
+      log.debugf("Truncating incomplete record at the end of %s, offset %d", logFile.file, size);
+      logFile.channel.truncate(size);
+      logFile.size = size;
+   }
+
+   /**
+    * Creates a new, empty, log file.
+    */
+   private LogFile newLogFile() throws IOException {
+      int id = nextFileId++;
+      LogFile logFile = new LogFile(id, new File(dir, id + LOG_FILE_SUFFIX));
+      files.put(id, logFile);
+      if (trace) log.tracef("Started log file %s", logFile.file);
+      return logFile;
+   }
+
+   @Override
+   public boolean contains(Object key) {
+      EntryPosition position = index.get(key);
+      return position != null && !position.isExpired(System.currentTimeMillis());
+   }
+
+   @Override
+   public void write(MarshalledEntry marshalledEntry) {
+      try {
+         org.infinispan.commons.io.ByteBuffer key = marshalledEntry.getKeyBytes();
+         org.infinispan.commons.io.ByteBuffer data = marshalledEntry.getValueBytes();
+         org.infinispan.commons.io.ByteBuffer metadata = marshalledEntry.getMetadataBytes();
+         int metadataLength = metadata == null ? 0 : metadata.getLength();
+         long expiryTime = metadata != null ? marshalledEntry.getMetadata().expiryTime() : -1;
+
+         int len = HEADER_SIZE + key.getLength() + data.getLength() + metadataLength;
+         ByteBuffer buf = ByteBuffer.allocate(len);
+         buf.putInt(len);
+         buf.putInt(key.getLength());
+         buf.putInt(data.getLength());
+         buf.putInt(metadataLength);
+         buf.putLong(expiryTime);
+         buf.put(key.getBuf(), key.getOffset(), key.getLength());
+         buf.put(data.getBuf(), data.getOffset(), data.getLength());
+         if (metadata != null)
+            buf.put(metadata.getBuf(), metadata.getOffset(), metadata.getLength());
+         buf.flip();
+
+         long position;
+         appendLock.lock();
+         try {
+            EntryPosition entryPosition = append(buf, expiryTime);
+            release(index.put(marshalledEntry.getKey(), entryPosition));
+            position = appended;
+         } finally {
+            appendLock.unlock();
+         }
+         if (trace) log.tracef("Wrote entry %s", marshalledEntry.getKey());
+         if (configuration.syncWrites())
+            sync(position);
+      } catch (Exception e) {
+         throw new PersistenceException(e);
+      }
+   }
+
+   @Override
+   public boolean delete(Object key) {
+      try {
+         long position;
+         appendLock.lock();
+         try {
+            EntryPosition previous = index.remove(key);
+            if (previous == null)
+               return false;
+
+            // removals must be logged too, otherwise a scan of the log would bring the entry back
+            org.infinispan.commons.io.ByteBuffer keyBytes = ctx.getMarshaller().objectToBuffer(key);
+            appendTombstone(tombstone(keyBytes.getBuf(), keyBytes.getOffset(), keyBytes.getLength()));
+            release(previous);
+            position = appended;
+         } finally {
+            appendLock.unlock();
+         }
+         if (trace) log.tracef("Deleted entry %s", key);
+         if (configuration.syncWrites())
+            sync(position);
+         return true;
+      } catch (Exception e) {
+         throw new PersistenceException(e);
+      }
+   }
+
+   /**
+    * Creates a record logging the removal of a key.
+    */
+   private static ByteBuffer tombstone(byte[] key, int offset, int length) {
+      int len = HEADER_SIZE + length;
+      ByteBuffer buf = ByteBuffer.allocate(len);
+      buf.putInt(len);
+      buf.putInt(length);
+      buf.putInt(TOMBSTONE);
+      buf.putInt(0);
+      buf.putLong(-1);
+      buf.put(key, offset, length);
+      buf.flip();
+      return buf;
+   }
+
+   /**
+    * Appends a record to the log, rolling over to a new log file if the current one is full.
+    * <p/>
+    * Note: Caller must hold the {@code appendLock}.
+    */
+   private EntryPosition append(ByteBuffer record, long expiryTime) throws IOException {
+      int len = record.remaining();
+      if (appendFile.size > 0 && appendFile.size + len > configuration.maxFileSize()) {
+         // make sure everything appended so far is durable, so that sync() only needs to force the current file
+         LogFile full = appendFile;
+         full.channel.force(false);
+         synced = appended;
+         appendFile = newLogFile();
+         scheduleCompaction(full);
+      }
+      long offset = appendFile.size;
+      write(appendFile.channel, record, offset);
+      appendFile.size += len;
+      appended += len;
+      return new EntryPosition(appendFile.id, offset, len, expiryTime);
+   }
+
+   /**
+    * Appends a removal record to the log.
+    * <p/>
+    * Note: Caller must hold the {@code appendLock}.
+    */
+   private void appendTombstone(ByteBuffer record) throws IOException {
+      EntryPosition position = append(record, -1);
+      appendFile.tombstones.addAndGet(position.size);
+   }
+
+   /**
+    * Waits until the log has been forced to disk up to the given logical position. If another thread is already
+    * forcing the log, the caller waits for it and then forces everything appended in the meantime on behalf of all
+    * the threads waiting, so concurrent writes share a single fsync.
+    */
+   private void sync(long position) throws IOException {
+      if (synced >= position)
+         return;
+
+      synchronized (syncMonitor) {
+         if (synced >= position)
+            return;
+
+         long target;
+         LogFile logFile;
+         appendLock.lock();
+         try {
+            target = appended;
+            logFile = appendFile;
+         } finally {
+            appendLock.unlock();
+         }
+         try {
+            logFile.channel.force(false);
+         } catch (ClosedChannelException e) {
+            // the file was rolled over, hence forced, and compacted since
+         }
+         if (target > synced)
+            synced = target;
+      }
+   }
+
+   /**
+    * Accounts the space taken by a record which has been overwritten, removed or has expired as garbage.
+    * <p/>
+    * Note: Caller must hold the {@code appendLock}.
+    */
+   private void release(EntryPosition position) {
+      if (position != null) {
+         LogFile logFile = files.get(position.fileId);
+         if (logFile != null) {
+            logFile.free.addAndGet(position.size);
+            scheduleCompaction(logFile);
+         }
+      }
+   }
+
+   /**
+    * Note: Caller must hold the {@code appendLock}.
+    */
+   private void scheduleCompaction(LogFile logFile) {
+      if (logFile != appendFile && !logFile.scheduled) {
+         long garbage = garbage(logFile);
+         if (garbage >= configuration.compactionThreshold() * logFile.size) {
+            if (trace) log.tracef("Scheduling compaction of %s, %d out of %d bytes are free",
+                                  logFile.file, garbage, logFile.size);
+            logFile.scheduled = true;
+            compactionQueue.add(logFile.id);
+         }
+      }
+   }
+
+   /**
+    * Bytes of a log file that compacting it would reclaim. Removal records are only reclaimed from the oldest file, as
+    * long as older files exist they may hold records of the same key that would otherwise come back on a scan.
+    */
+   private long garbage(LogFile logFile) {
+      long garbage = logFile.free.get();
+      Map.Entry<Integer, LogFile> oldest = files.firstEntry();
+      if (oldest != null && oldest.getValue() == logFile)
+         garbage += logFile.tombstones.get();
+      return garbage;
+   }
+
+   /**
+    * Removes an expired entry from the index, unless it has been replaced in the meantime. No removal record is
+    * logged, a scan of the log ignores expired records anyway.
+    */
+   private boolean expire(Object key, EntryPosition position) {
+      appendLock.lock();
+      try {
+         if (index.remove(key, position)) {
+            release(position);
+            return true;
+         }
+         return false;
+      } finally {
+         appendLock.unlock();
+      }
+   }
+
+   @Override
+   public void clear() {
+      compactionLock.lock();
+      try {
+         appendLock.lock();
+         try {
+            for (LogFile logFile : files.values()) {
+               logFile.channel.close();
+               if (!logFile.file.delete())
+                  log.debugf("Unable to delete log file %s", logFile.file);
+            }
+            files.clear();
+            index.clear();
+            compactionQueue.clear();
+            appendFile = newLogFile();
+            synced = appended;
+         } finally {
+            appendLock.unlock();
+         }
+      } catch (Exception e) {
+         throw new PersistenceException(e);
+      } finally {
+         compactionLock.unlock();
+      }
+   }
+
+   @Override
+   public MarshalledEntry load(Object key) {
+      return _load(key, true, true);
+   }
+
+   private MarshalledEntry _load(Object key, boolean loadValue, boolean loadMetadata) {
+      for (; ; ) {
+         EntryPosition position = index.get(key);
+         if (position == null)
+            return null;
+
+         if (position.isExpired(System.currentTimeMillis())) {
+            expire(key, position);
+            return null;
+         }
+
+         LogFile logFile = files.get(position.fileId);
+         if (logFile == null)
+            continue; // compacted in the meantime, look the entry up again
+
+         byte[] record = new byte[position.size];
+         try {
+            read(logFile.channel, ByteBuffer.wrap(record), position.offset);
+         } catch (ClosedChannelException e) {
+            // the compactor moves the entry before closing the file, so this is only expected if it did
+            if (index.get(key) == position)
+               throw new PersistenceException(e);
+            continue;
+         } catch (IOException e) {
+            throw new PersistenceException(e);
+         }
+
+         ByteBuffer header = ByteBuffer.wrap(record);
+         header.getInt();
+         int keyLen = header.getInt();
+         int dataLen = header.getInt();
+         int metadataLen = header.getInt();
+
+         if (trace) log.tracef("Read entry %s from %s at %d", key, logFile.file, position.offset);
+         ByteBufferFactory factory = ctx.getByteBufferFactory();
+         org.infinispan.commons.io.ByteBuffer keyBb = factory.newByteBuffer(record, HEADER_SIZE, keyLen);
+         org.infinispan.commons.io.ByteBuffer valueBb = null;
+         org.infinispan.commons.io.ByteBuffer metadataBb = null;
+         if (loadValue) {
+            valueBb = factory.newByteBuffer(record, HEADER_SIZE + keyLen, dataLen);
+            if (loadMetadata && metadataLen > 0)
+               metadataBb = factory.newByteBuffer(record, HEADER_SIZE + keyLen + dataLen, metadataLen);
+         }
+         return ctx.getMarshalledEntryFactory().newMarshalledEntry(keyBb, valueBb, metadataBb);
+      }
+   }
+
+   @Override
+   public void process(KeyFilter filter, final CacheLoaderTask task, Executor executor, final boolean fetchValue, final boolean fetchMetadata) {
+      filter = PersistenceUtil.notNull(filter);
+      Set<Object> keysToLoad = new HashSet<Object>(index.size());
+      for (Object k : index.keySet()) {
+         if (filter.shouldLoadKey(k))
+            keysToLoad.add(k);
+      }
+
+      ExecutorAllCompletionService eacs = new ExecutorAllCompletionService(executor);
+
+      final TaskContextImpl taskContext = new TaskContextImpl();
+      for (final Object key : keysToLoad) {
+         if (taskContext.isStopped())
+            break;
+
+         eacs.submit(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+               try {
+                  final MarshalledEntry marshalledEntry = _load(key, fetchValue, fetchMetadata);
+                  if (marshalledEntry != null) {
+                     task.processEntry(marshalledEntry, taskContext);
+                  }
+                  return null;
+               } catch (Exception e) {
+                  log.errorExecutingParallelStoreTask(e);
+                  throw e;
+               }
+            }
+         });
+      }
+      eacs.waitUntilAllCompleted();
+      if (eacs.isExceptionThrown()) {
+         throw new PersistenceException("Execution exception!", eacs.getFirstException());
+      }
+   }
+
+   @Override
+   public void purge(Executor threadPool, final PurgeListener task) {
+      threadPool.execute(new Runnable() {
+         @Override
+         public void run() {
+            long now = System.currentTimeMillis();
+            List<Object> purged = new ArrayList<Object>();
+            for (Map.Entry<Object, EntryPosition> entry : index.entrySet()) {
+               if (entry.getValue().isExpired(now) && expire(entry.getKey(), entry.getValue()))
+                  purged.add(entry.getKey());
+            }
+            if (task != null) {
+               for (Object key : purged)
+                  task.entryPurged(key);
+            }
+         }
+      });
+   }
+
+   @Override
+   public int size() {
+      return index.size();
+   }
+
+   /**
+    * Copies the live records of a log file to the end of the log and deletes the file.
+    * <p/>
+    * Note: Caller must hold the {@code compactionLock}.
+    */
+   private void compact(LogFile logFile) throws Exception {
+      // removal records are only needed as long as older files may hold a record for the same key
+      boolean oldest = files.firstKey() == logFile.id;
+      long now = System.currentTimeMillis();
+      long offset = 0;
+      int copied = 0;
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      while (offset < logFile.size) {
+         if (stopped)
+            return;
+
+         header.clear();
+         read(logFile.channel, header, offset);
+         header.flip();
+         int size = header.getInt();
+         int keyLen = header.getInt();
+         int dataLen = header.getInt();
+         header.getInt();
+         long expiryTime = header.getLong();
+         if (keyLen <= 0 || size < HEADER_SIZE + keyLen)
+            throw log.errorReadingFileStore(logFile.file.getPath(), offset);
+
+         byte[] record = new byte[size];
+         read(logFile.channel, ByteBuffer.wrap(record), offset);
+         Object key = ctx.getMarshaller().objectFromByteBuffer(record, HEADER_SIZE, keyLen);
+
+         appendLock.lock();
+         try {
+            EntryPosition position = index.get(key);
+            boolean current = position != null && position.fileId == logFile.id && position.offset == offset;
+            boolean expired = expiryTime > 0 && expiryTime < now;
+            if (dataLen == TOMBSTONE) {
+               if (!oldest && position == null) {
+                  appendTombstone(ByteBuffer.wrap(record));
+                  copied++;
+               }
+            } else if (!expired) {
+               if (current) {
+                  index.put(key, append(ByteBuffer.wrap(record), expiryTime));
+                  copied++;
+               }
+            } else if (!oldest && (current || position == null)) {
+               // expiration is not logged, so an expired record hides older records of the key as a removal would
+               index.remove(key, position);
+               appendTombstone(tombstone(record, HEADER_SIZE, keyLen));
+               copied++;
+            }
+         } finally {
+            appendLock.unlock();
+         }
+         offset += size;
+      }
+
+      // the copies must be durable before the originals are deleted
+      long position;
+      appendLock.lock();
+      try {
+         position = appended;
+      } finally {
+         appendLock.unlock();
+      }
+      sync(position);
+
+      files.remove(logFile.id);
+      logFile.channel.close();
+      if (!logFile.file.delete())
+         log.debugf("Unable to delete log file %s", logFile.file);
+      if (trace) log.tracef("Compacted %s, copied %d records", logFile.file, copied);
+
+      // the removal records of the file that is now the oldest one have become garbage
+      appendLock.lock();
+      try {
+         Map.Entry<Integer, LogFile> first = files.firstEntry();
+         if (first != null)
+            scheduleCompaction(first.getValue());
+      } finally {
+         appendLock.unlock();
+      }
+   }
+
+   private static void read(FileChannel channel, ByteBuffer buf, long position) throws IOException {
+      while (buf.hasRemaining()) {
+         int read = channel.read(buf, position);
+         if (read < 0)
+            return;
+         position += read;
+      }
+   }
+
+   private static void write(FileChannel channel, ByteBuffer buf, long position) throws IOException {
+      while (buf.hasRemaining()) {
+         position += channel.write(buf, position);
+      }
+   }
+
+   Set<Integer> getLogFileIds() {
+      return files.keySet();
+   }
+
+   public LogFileStoreConfiguration getConfiguration() {
+      return configuration;
+   }
+
+   private class Compactor implements Runnable {
+      @Override
+      public void run() {
+         while (!stopped) {
+            int fileId;
+            try {
+               fileId = compactionQueue.take();
+            } catch (InterruptedException e) {
+               return;
+            }
+            if (fileId == STOP_COMPACTOR)
+               return;
+
+            compactionLock.lock();
+            try {
+               LogFile logFile = files.get(fileId);
+               // the file is gone if the store was cleared after it was scheduled
+               if (logFile != null)
+                  compact(logFile);
+            } catch (Exception e) {
+               log.errorf(e, "Error compacting log file %d of store %s", fileId, ctx.getCache().getName());
+            } finally {
+               compactionLock.unlock();
+            }
+         }
+      }
+   }
+
+   /**
+    * A file of the log. Records are laid out as follows:
+    * <ul>
+    * <li>4 bytes: size of the record</li>
+    * <li>4 bytes: size of the serialized key</li>
+    * <li>4 bytes: size of the serialized data, -1 if the record logs a removal</li>
+    * <li>4 bytes: size of the serialized metadata</li>
+    * <li>8 bytes: time stamp when the entry will expire</li>
+    * <li>serialized key, data and metadata</li>
+    * </ul>
+    */
+   private static class LogFile {
+      private final int id;
+      private final File file;
+      private final FileChannel channel;
+
+      /**
+       * Bytes written to this file, only modified while holding the {@code appendLock}.
+       */
+      private volatile long size;
+
+      /**
+       * Bytes taken by overwritten, removed or expired records.
+       */
+      private final AtomicLong free = new AtomicLong();
+
+      /**
+       * Bytes taken by removal records, garbage only once this file is the oldest one.
+       */
+      private final AtomicLong tombstones = new AtomicLong();
+
+      /**
+       * Whether the file has been queued for compaction.
+       */
+      private volatile boolean scheduled;
+
+      LogFile(int id, File file) throws IOException {
+         this.id = id;
+         this.file = file;
+         this.channel = new RandomAccessFile(file, "rw").getChannel();
+      }
+   }
+
+   /**
+    * Position of the latest record of a key in the log.
+    */
+   private static class EntryPosition {
+      private final int fileId;
+      private final long offset;
+      private final int size;
+      private final long expiryTime;
+
+      EntryPosition(int fileId, long offset, int size, long expiryTime) {
+         this.fileId = fileId;
+         this.offset = offset;
+         this.size = size;
+         this.expiryTime = expiryTime;
+      }
+
+      boolean isExpired(long now) {
+         return expiryTime > 0 && expiryTime < now;
+      }
+   }
+}
@@ -12,6 +12,7 @@
 import org.infinispan.persistence.PersistenceUtil;
 import org.infinispan.persistence.TaskContextImpl;
 import org.infinispan.persistence.spi.AdvancedLoadWriteStore;
+import org.infinispan.persistence.spi.BatchingCacheWriter;
 import org.infinispan.persistence.spi.InitializationContext;
 import org.infinispan.util.KeyValuePair;
 import org.infinispan.util.logging.Log;
@@ -65,7 +66,7 @@
  * @author Mircea Markus
  * @since 6.0
  */
-public class SingleFileStore implements AdvancedLoadWriteStore {
+public class SingleFileStore implements AdvancedLoadWriteStore, BatchingCacheWriter {
    private static final Log log = LogFactory.getLog(SingleFileStore.class);
    private static final boolean trace = log.isTraceEnabled();
 
@@ -286,15 +287,7 @@ public void write(MarshalledEntry marshalledEntry) {
             fe = new FileEntry(fe, key.getLength(), data.getLength(), metadataLength, expiryTime);
 
             ByteBuffer buf = ByteBuffer.allocate(len);
-            buf.putInt(fe.size);
-            buf.putInt(fe.keyLen);
-            buf.putInt(fe.dataLen);
-            buf.putInt(fe.metadataLen);
-            buf.putLong(fe.expiryTime);
-            buf.put(key.getBuf(), key.getOffset(), key.getLength());
-            buf.put(data.getBuf(), data.getOffset(), data.getLength());
-            if (metadata != null)
-               buf.put(metadata.getBuf(), metadata.getOffset(), metadata.getLength());
+            putEntry(buf, fe, marshalledEntry);
             buf.flip();
             channel.write(buf, fe.offset);
             if (trace) log.tracef("Wrote entry %s at %d", marshalledEntry.getKey(), fe.offset);
@@ -318,6 +311,94 @@ public void write(MarshalledEntry marshalledEntry) {
       }
    }
 
+   /**
+    * Writes all the entries into a single, newly allocated, section at the end of the file, with a single write
+    * call. The space of the replaced entries is freed as usual.
+    */
+   @Override
+   public void writeBatch(Iterable marshalledEntries) {
+      try {
+         List<MarshalledEntry> batch = new ArrayList<MarshalledEntry>();
+         int totalLen = 0;
+         for (Object marshalledEntry : marshalledEntries) {
+            batch.add((MarshalledEntry) marshalledEntry);
+            totalLen += entryLength((MarshalledEntry) marshalledEntry);
+         }
+         if (batch.isEmpty())
+            return;
+
+         resizeLock.readLock().lock();
+         try {
+            long offset;
+            synchronized (freeList) {
+               offset = filePos;
+               filePos += totalLen;
+            }
+
+            ByteBuffer buf = ByteBuffer.allocate(totalLen);
+            FileEntry[] fileEntries = new FileEntry[batch.size()];
+            for (int i = 0; i < fileEntries.length; i++) {
+               MarshalledEntry marshalledEntry = batch.get(i);
+               org.infinispan.commons.io.ByteBuffer metadata = marshalledEntry.getMetadataBytes();
+               fileEntries[i] = new FileEntry(offset + buf.position(), entryLength(marshalledEntry),
+                     marshalledEntry.getKeyBytes().getLength(), marshalledEntry.getValueBytes().getLength(),
+                     metadata == null ? 0 : metadata.getLength(),
+                     metadata != null ? marshalledEntry.getMetadata().expiryTime() : -1);
+               putEntry(buf, fileEntries[i], marshalledEntry);
+            }
+            buf.flip();
+            channel.write(buf, offset);
+            if (trace) log.tracef("Wrote %d entries at %d", fileEntries.length, offset);
+
+            for (int i = 0; i < fileEntries.length; i++) {
+               // add the new entry to in-memory index, then free the replaced or evicted entry
+               FileEntry fe = entries.put(batch.get(i).getKey(), fileEntries[i]);
+               if (fe == null)
+                  fe = evict();
+               free(fe);
+            }
+         } finally {
+            resizeLock.readLock().unlock();
+         }
+      } catch (Exception e) {
+         throw new PersistenceException(e);
+      }
+   }
+
+   @Override
+   public void deleteBatch(Iterable keys) {
+      resizeLock.readLock().lock();
+      try {
+         for (Object key : keys)
+            free(entries.remove(key));
+      } catch (Exception e) {
+         throw new PersistenceException(e);
+      } finally {
+         resizeLock.readLock().unlock();
+      }
+   }
+
+   private static int entryLength(MarshalledEntry marshalledEntry) {
+      org.infinispan.commons.io.ByteBuffer metadata = marshalledEntry.getMetadataBytes();
+      return KEY_POS + marshalledEntry.getKeyBytes().getLength() + marshalledEntry.getValueBytes().getLength()
+            + (metadata == null ? 0 : metadata.getLength());
+   }
+
+   private static void putEntry(ByteBuffer buf, FileEntry fe, MarshalledEntry marshalledEntry) {
+      org.infinispan.commons.io.ByteBuffer key = marshalledEntry.getKeyBytes();
+      org.infinispan.commons.io.ByteBuffer data = marshalledEntry.getValueBytes();
+      org.infinispan.commons.io.ByteBuffer metadata = marshalledEntry.getMetadataBytes();
+      buf.putInt(fe.size);
+      buf.putInt(fe.keyLen);
+      buf.putInt(fe.dataLen);
+      buf.putInt(fe.metadataLen);
+      buf.putLong(fe.expiryTime);
+      buf.put(key.getBuf(), key.getOffset(), key.getLength());
+      buf.put(data.getBuf(), data.getOffset(), data.getLength());
+      if (metadata != null)
+         buf.put(metadata.getBuf(), metadata.getOffset(), metadata.getLength());
+   }
+
    /**
     * Try to evict an entry if the capacity of the cache store is reached.
     *
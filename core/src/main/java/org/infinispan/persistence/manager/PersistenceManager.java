@@ -51,6 +51,18 @@ public interface PersistenceManager extends Lifecycle {
 
    void writeToAllStores(MarshalledEntry marshalledEntry, boolean skipSharedStores);
 
+   /**
+    * Writes the entries to all the stores, using a single batch per store if the store is a {@link
+    * org.infinispan.persistence.spi.BatchingCacheWriter}.
+    */
+   void writeBatchToAllStores(Iterable<? extends MarshalledEntry> marshalledEntries, boolean skipSharedStores);
+
+   /**
+    * Removes the keys from all the stores, using a single batch per store if the store is a {@link
+    * org.infinispan.persistence.spi.BatchingCacheWriter}.
+    */
+   void deleteBatchFromAllStores(Iterable<?> keys, boolean skipSharedStores);
+
    /**
     * Returns the store one configured with fetch persistent state, or null if none exist.
     */
@@ -0,0 +1,33 @@
+package org.infinispan.persistence.spi;
+
+import net.jcip.annotations.ThreadSafe;
+import org.infinispan.marshall.core.MarshalledEntry;
+
+/**
+ * Optional extension of {@link CacheWriter} for stores able to persist or remove several entries with fewer round
+ * trips to the external storage than writing them one by one, e.g. by using JDBC batches.
+ * <p/>
+ * Callers should not check for this interface themselves but use {@link
+ * org.infinispan.persistence.PersistenceUtil#writeBatch(CacheWriter, Iterable)} and {@link
+ * org.infinispan.persistence.PersistenceUtil#deleteBatch(CacheWriter, Iterable)}, which fall back to {@link
+ * #write(org.infinispan.marshall.core.MarshalledEntry)} and {@link #delete(Object)} for writers not implementing it.
+ *
+ * @since 7.0
+ */
+@ThreadSafe
+public interface BatchingCacheWriter<K, V> extends CacheWriter<K, V> {
+
+   /**
+    * Persists all the entries to the storage. The entries are expected to have distinct keys.
+    *
+    * @throws PersistenceException in case of an error, e.g. communicating with the external storage
+    */
+   void writeBatch(Iterable<MarshalledEntry<K, V>> entries);
+
+   /**
+    * Removes all the keys from the storage, keys not present in the storage are ignored.
+    *
+    * @throws PersistenceException in case of an error, e.g. communicating with the external storage
+    */
+   void deleteBatch(Iterable<K> keys);
+}
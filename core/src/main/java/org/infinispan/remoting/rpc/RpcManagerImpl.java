@@ -6,6 +6,8 @@
 import org.infinispan.commands.ReplicableCommand;
 import org.infinispan.commands.TopologyAffectedCommand;
 import org.infinispan.commands.remote.CacheRpcCommand;
+import org.infinispan.commands.remote.SingleRpcCommand;
+import org.infinispan.configuration.cache.CacheMode;
 import org.infinispan.configuration.cache.Configuration;
 import org.infinispan.configuration.global.GlobalConfiguration;
 import org.infinispan.factories.annotations.ComponentName;
@@ -28,6 +30,9 @@
 import org.infinispan.topology.CacheTopology;
 import org.infinispan.topology.LocalTopologyManager;
 import org.infinispan.util.TimeService;
+import org.infinispan.commons.util.concurrent.CompletableNotifyingFuture;
+import org.infinispan.commons.util.concurrent.FutureListener;
+import org.infinispan.commons.util.concurrent.NotifyingFuture;
 import org.infinispan.commons.util.concurrent.NotifyingNotifiableFuture;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
@@ -38,7 +43,9 @@
 import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -75,6 +82,7 @@ public class RpcManagerImpl implements RpcManager {
    private StateTransferManager stateTransferManager;
    private String cacheName;
    private TimeService timeService;
+   private SyncWriteBatcher writeBatcher;
 
    @Inject
    public void injectDependencies(Transport t, Cache cache, Configuration cfg,
@@ -99,6 +107,13 @@ private void start() {
 
       if (configuration.transaction().transactionProtocol().isTotalOrder())
          t.checkTotalOrderSupported();
+
+      CacheMode cacheMode = configuration.clustering().cacheMode();
+      int writeBatchSize = configuration.clustering().sync().writeBatchSize();
+      if (cacheMode.isSynchronous() && cacheMode.isClustered() && writeBatchSize > 1) {
+         writeBatcher = new SyncWriteBatcher(cf, writeBatchSize, configuration.clustering().sync().writeBatchWindow(),
+                                             cacheMode.isDistributed());
+      }
    }
 
    @ManagedAttribute(description = "Retrieves the committed view.", displayName = "Committed view", dataType = DataType.TRAIT)
@@ -278,9 +293,15 @@ public Map<Address, Response> invokeRemotely(Collection<Address> recipients, Rep
                topologyAffectedCommand.setTopologyId(stateTransferManager.getCacheTopology().getTopologyId());
             }
          }
-         Map<Address, Response> result = t.invokeRemotely(recipients, rpc, options.responseMode(), options.timeUnit().toMillis(options.timeout()),
-                                                          !options.fifoOrder(), options.responseFilter(), options.totalOrder(),
-                                                          configuration.clustering().cacheMode().isDistributed());
+         Map<Address, Response> result;
+         if (writeBatcher != null && writeBatcher.canBatch(recipients, rpc, options)) {
+            result = writeBatcher.invoke(t, recipients.iterator().next(), (SingleRpcCommand) rpc,
+                                         options.timeUnit().toMillis(options.timeout()));
+         } else {
+            result = t.invokeRemotely(recipients, rpc, options.responseMode(), options.timeUnit().toMillis(options.timeout()),
+                                      !options.fifoOrder(), options.responseFilter(), options.totalOrder(),
+                                      configuration.clustering().cacheMode().isDistributed());
+         }
          if (statisticsEnabled) replicationCount.incrementAndGet();
          if (trace) log.tracef("Response(s) to %s is %s", rpc, result);
          return result;
@@ -300,6 +321,79 @@ public Map<Address, Response> invokeRemotely(Collection<Address> recipients, Rep
       }
    }
 
+   @Override
+   public NotifyingFuture<Map<Address, Response>> invokeRemotelyAsync(Collection<Address> recipients, ReplicableCommand rpc,
+                                                                      RpcOptions options) {
+      if (trace) log.tracef("%s invoking %s to recipient list %s with options %s, without waiting", t.getAddress(), rpc, recipients, options);
+
+      final CompletableNotifyingFuture<Map<Address, Response>> result = new CompletableNotifyingFuture<Map<Address, Response>>();
+      if (!options.skipReplicationQueue() && useReplicationQueue(options.responseMode().isSynchronous())) {
+         if (trace) {
+            log.tracef("Using replication queue for command [%s]", rpc);
+         }
+         replicationQueue.add(rpc);
+         result.complete(null);
+         return result;
+      }
+      if (!configuration.clustering().cacheMode().isClustered())
+         throw new IllegalStateException("Trying to invoke a remote command but the cache is not clustered");
+      if (!(rpc instanceof CacheRpcCommand)) {
+         rpc = cf.buildSingleRpcCommand(rpc);
+      }
+      final long startTimeNanos = statisticsEnabled ? timeService.time() : 0;
+      final ReplicableCommand command = rpc;
+      NotifyingFuture<Map<Address, Response>> responses;
+      try {
+         if (rpc instanceof TopologyAffectedCommand) {
+            TopologyAffectedCommand topologyAffectedCommand = (TopologyAffectedCommand) rpc;
+            if (topologyAffectedCommand.getTopologyId() == -1) {
+               topologyAffectedCommand.setTopologyId(stateTransferManager.getCacheTopology().getTopologyId());
+            }
+         }
+         responses = t.invokeRemotelyAsync(recipients, rpc, options.responseMode(), options.timeUnit().toMillis(options.timeout()),
+                                           !options.fifoOrder(), options.responseFilter(), options.totalOrder(),
+                                           configuration.clustering().cacheMode().isDistributed());
+      } catch (Throwable th) {
+         replicationDone(command, startTimeNanos, null, th, result);
+         return result;
+      }
+      responses.attachListener(new FutureListener<Map<Address, Response>>() {
+         @Override
+         public void futureDone(Future<Map<Address, Response>> future) {
+            try {
+               replicationDone(command, startTimeNanos, future.get(), null, result);
+            } catch (ExecutionException e) {
+               replicationDone(command, startTimeNanos, null, e.getCause(), result);
+            } catch (Throwable th) {
+               replicationDone(command, startTimeNanos, null, th, result);
+            }
+         }
+      });
+      return result;
+   }
+
+   private void replicationDone(ReplicableCommand rpc, long startTimeNanos, Map<Address, Response> responses,
+                                Throwable failure, CompletableNotifyingFuture<Map<Address, Response>> result) {
+      if (statisticsEnabled) {
+         long timeTaken = timeService.timeDuration(startTimeNanos, TimeUnit.MILLISECONDS);
+         totalReplicationTime.getAndAdd(timeTaken);
+      }
+      if (failure == null) {
+         if (statisticsEnabled) replicationCount.incrementAndGet();
+         if (trace) log.tracef("Response(s) to %s is %s", rpc, responses);
+         result.complete(responses);
+      } else {
+         if (statisticsEnabled) replicationFailures.incrementAndGet();
+         if (failure instanceof CacheException) {
+            log.trace("replication exception: ", failure);
+            result.fail(failure);
+         } else {
+            log.unexpectedErrorReplicating(failure);
+            result.fail(new CacheException(failure));
+         }
+      }
+   }
+
    @Override
    public void invokeRemotelyInFuture(final Collection<Address> recipients, final ReplicableCommand rpc,
                                       final RpcOptions options, final NotifyingNotifiableFuture<Object> future) {
@@ -345,6 +439,7 @@ public void resetStatistics() {
       replicationCount.set(0);
       replicationFailures.set(0);
       totalReplicationTime.set(0);
+      if (writeBatcher != null) writeBatcher.resetStatistics();
    }
 
    @ManagedAttribute(description = "Number of successful replications", displayName = "Number of successful replications", measurementType = MeasurementType.TRENDSUP, displayType = DisplayType.SUMMARY)
@@ -363,6 +458,22 @@ public long getReplicationFailures() {
       return replicationFailures.get();
    }
 
+   @ManagedAttribute(description = "Number of synchronous writes replicated together with other writes", displayName = "Number of batched writes", measurementType = MeasurementType.TRENDSUP, displayType = DisplayType.SUMMARY)
+   public long getBatchedWriteCount() {
+      if (!isStatisticsEnabled()) {
+         return -1;
+      }
+      return writeBatcher == null ? 0 : writeBatcher.getBatchedWrites();
+   }
+
+   @ManagedAttribute(description = "Average number of writes replicated in a single message, counting only messages with more than one write", displayName = "Average write batch size", displayType = DisplayType.SUMMARY)
+   public double getAverageWriteBatchSize() {
+      if (!isStatisticsEnabled() || writeBatcher == null || writeBatcher.getBatches() == 0) {
+         return 0;
+      }
+      return (double) writeBatcher.getBatchedWrites() / writeBatcher.getBatches();
+   }
+
    @ManagedAttribute(description = "Statistics enabled", displayName = "Statistics enabled", dataType = DataType.TRAIT, writable = true)
    public boolean isStatisticsEnabled() {
       return statisticsEnabled;
@@ -0,0 +1,302 @@
+package org.infinispan.remoting.rpc;
+
+import org.infinispan.commands.CommandsFactory;
+import org.infinispan.commands.ReplicableCommand;
+import org.infinispan.commands.remote.MultipleRpcResponsesCommand;
+import org.infinispan.commands.remote.SingleRpcCommand;
+import org.infinispan.commands.tx.TransactionBoundaryCommand;
+import org.infinispan.commands.write.WriteCommand;
+import org.infinispan.commons.CacheException;
+import org.infinispan.commons.util.InfinispanCollections;
+import org.infinispan.remoting.responses.ExceptionResponse;
+import org.infinispan.remoting.responses.Response;
+import org.infinispan.remoting.responses.SuccessfulResponse;
+import org.infinispan.remoting.transport.Address;
+import org.infinispan.remoting.transport.Transport;
+import org.infinispan.remoting.transport.jgroups.SuspectException;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replicates concurrent synchronous writes sent to the same node in a single {@link MultipleRpcResponsesCommand}.
+ * <p/>
+ * Each caller queues its command for the target node. One of the callers becomes the leader: if another batch is
+ * already in flight to that node it waits up to the batch window for more commands (or until the batch is full), then
+ * takes the queued commands, hands the leadership to the next waiting caller and sends the batch. The target executes
+ * the commands in order, as it would execute FIFO messages from the same sender, and sends back the response of each
+ * command, which is returned to its caller as if the command was sent on its own. A write sent while nothing else is
+ * in flight to its target is sent immediately, so batching doesn't add latency to uncontended writes.
+ * <p/>
+ * Only commands that would be sent as FIFO messages to a single node without a response filter are batched, see
+ * {@link #canBatch(Collection, ReplicableCommand, RpcOptions)}.
+ *
+ * @since 7.0
+ */
+class SyncWriteBatcher {
+
+   private static final Log log = LogFactory.getLog(SyncWriteBatcher.class);
+   private static final boolean trace = log.isTraceEnabled();
+
+   // followers check whether they should lead the next batch at least this often, in case they missed a wake up
+   private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+   private final ConcurrentMap<Address, Destination> destinations = new ConcurrentHashMap<Address, Destination>();
+   private final CommandsFactory commandsFactory;
+   private final int maxBatchSize;
+   private final long windowNanos;
+   private final boolean distributed;
+   private final AtomicLong batchedWrites = new AtomicLong();
+   private final AtomicLong batches = new AtomicLong();
+
+   SyncWriteBatcher(CommandsFactory commandsFactory, int maxBatchSize, long windowMicros, boolean distributed) {
+      this.commandsFactory = commandsFactory;
+      this.maxBatchSize = maxBatchSize;
+      this.windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+      this.distributed = distributed;
+   }
+
+   /**
+    * @return {@code true} if the command can be sent as part of a batch
+    */
+   boolean canBatch(Collection<Address> recipients, ReplicableCommand rpc, RpcOptions options) {
+      if (recipients == null || recipients.size() != 1) return false;
+      if (options.responseMode() != ResponseMode.SYNCHRONOUS || !options.fifoOrder() || options.totalOrder()
+            || options.responseFilter() != null) {
+         return false;
+      }
+      if (!(rpc instanceof SingleRpcCommand)) return false;
+      ReplicableCommand command = ((SingleRpcCommand) rpc).getCommand();
+      return command instanceof WriteCommand && !(command instanceof TransactionBoundaryCommand);
+   }
+
+   /**
+    * Sends the command to the target, possibly along with other commands, and waits for its response.
+    *
+    * @return the responses, as returned by {@link Transport#invokeRemotely}
+    */
+   Map<Address, Response> invoke(Transport transport, Address target, SingleRpcCommand rpc, long timeoutMillis) throws Exception {
+      Destination destination = destinations.get(target);
+      if (destination == null) {
+         destination = new Destination();
+         Destination existing = destinations.putIfAbsent(target, destination);
+         if (existing != null) destination = existing;
+      }
+
+      PendingWrite write = new PendingWrite(rpc, timeoutMillis);
+      // counted before it's queued, so the size is never lower than the number of queued writes
+      int size = destination.size.incrementAndGet();
+      destination.queue.add(write);
+      if (size >= maxBatchSize) {
+         // the batch is full, the leader needn't wait any longer
+         Thread collector = destination.collector;
+         if (collector != null) LockSupport.unpark(collector);
+      }
+
+      boolean interrupted = false;
+      try {
+         while (!write.done) {
+            if (destination.collecting.compareAndSet(false, true)) {
+               List<PendingWrite> batch;
+               try {
+                  batch = collect(destination);
+               } finally {
+                  destination.collecting.set(false);
+               }
+               wakeUpNext(destination);
+               if (!batch.isEmpty()) send(transport, target, destination, batch);
+            } else {
+               LockSupport.parkNanos(this, MAX_PARK_NANOS);
+               if (Thread.interrupted()) {
+                  // once a leader took the command we must wait for its response, so the interruption is deferred
+                  if (destination.queue.remove(write)) {
+                     destination.size.decrementAndGet();
+                     throw new InterruptedException();
+                  }
+                  interrupted = true;
+               }
+            }
+         }
+      } finally {
+         if (interrupted) Thread.currentThread().interrupt();
+      }
+      return write.getResponses();
+   }
+
+   /**
+    * @return the number of writes that were sent together with other writes
+    */
+   long getBatchedWrites() {
+      return batchedWrites.get();
+   }
+
+   /**
+    * @return the number of messages that carried more than one write
+    */
+   long getBatches() {
+      return batches.get();
+   }
+
+   /**
+    * @return the number of writes waiting to be sent to the given node
+    */
+   int getQueuedWrites(Address target) {
+      Destination destination = destinations.get(target);
+      return destination == null ? 0 : destination.size.get();
+   }
+
+   void resetStatistics() {
+      batchedWrites.set(0);
+      batches.set(0);
+   }
+
+   private List<PendingWrite> collect(Destination destination) {
+      // nothing is in flight, so no other write is likely to show up soon: don't wait
+      if (destination.inFlight.get() > 0 && windowNanos > 0) {
+         long deadline = System.nanoTime() + windowNanos;
+         destination.collector = Thread.currentThread();
+         try {
+            long remaining;
+            // woken up early by the write that fills the batch
+            while (destination.size.get() < maxBatchSize && (remaining = deadline - System.nanoTime()) > 0) {
+               LockSupport.parkNanos(this, remaining);
+            }
+         } finally {
+            destination.collector = null;
+         }
+      }
+      List<PendingWrite> batch = new ArrayList<PendingWrite>(Math.min(destination.size.get(), maxBatchSize));
+      PendingWrite write;
+      while (batch.size() < maxBatchSize && (write = destination.queue.poll()) != null) {
+         destination.size.decrementAndGet();
+         batch.add(write);
+      }
+      return batch;
+   }
+
+   private void wakeUpNext(Destination destination) {
+      PendingWrite next = destination.queue.peek();
+      if (next != null) LockSupport.unpark(next.thread);
+   }
+
+   private void send(Transport transport, Address target, Destination destination, List<PendingWrite> batch) {
+      Collection<Address> recipients = Collections.singleton(target);
+      destination.inFlight.incrementAndGet();
+      try {
+         if (batch.size() == 1) {
+            PendingWrite write = batch.get(0);
+            try {
+               write.complete(transport.invokeRemotely(recipients, write.rpc, ResponseMode.SYNCHRONOUS,
+                                                       write.timeoutMillis, false, null, false, distributed));
+            } catch (Throwable t) {
+               write.fail(t);
+            }
+            return;
+         }
+
+         List<ReplicableCommand> commands = new ArrayList<ReplicableCommand>(batch.size());
+         long timeoutMillis = 0;
+         for (PendingWrite write : batch) {
+            commands.add(write.rpc.getCommand());
+            timeoutMillis = Math.max(timeoutMillis, write.timeoutMillis);
+         }
+         MultipleRpcResponsesCommand rpc = commandsFactory.buildReplicateWithResponsesCommand(commands);
+         if (trace) log.tracef("Sending %d writes to %s in a single message", batch.size(), target);
+         batches.incrementAndGet();
+         batchedWrites.addAndGet(batch.size());
+         try {
+            Map<Address, Response> responses = transport.invokeRemotely(recipients, rpc, ResponseMode.SYNCHRONOUS,
+                                                                        timeoutMillis, false, null, false, distributed);
+            Response response = responses == null ? null : responses.get(target);
+            Object value = response instanceof SuccessfulResponse ? ((SuccessfulResponse) response).getResponseValue() : null;
+            if (value instanceof Response[] && ((Response[]) value).length == batch.size()) {
+               Response[] split = (Response[]) value;
+               for (int i = 0; i < split.length; i++) {
+                  complete(batch.get(i), target, split[i]);
+               }
+            } else {
+               // e.g. the cache is not running on the target, every write gets the same response
+               for (PendingWrite write : batch) write.complete(responses);
+            }
+         } catch (Throwable t) {
+            for (PendingWrite write : batch) write.fail(t);
+         }
+      } finally {
+         destination.inFlight.decrementAndGet();
+      }
+   }
+
+   private void complete(PendingWrite write, Address target, Response response) {
+      if (response instanceof ExceptionResponse) {
+         // the same exceptions the transport throws when a single command fails
+         Exception e = ((ExceptionResponse) response).getException();
+         if (e instanceof SuspectException) {
+            write.fail(log.thirdPartySuspected(target, (SuspectException) e));
+         } else {
+            write.fail(log.remoteException(target, e));
+         }
+      } else {
+         write.complete(Collections.singletonMap(target, response));
+      }
+   }
+
+   private static final class Destination {
+      final Queue<PendingWrite> queue = new ConcurrentLinkedQueue<PendingWrite>();
+      // the queue's size() is linear
+      final AtomicInteger size = new AtomicInteger();
+      final AtomicBoolean collecting = new AtomicBoolean();
+      final AtomicInteger inFlight = new AtomicInteger();
+      // the leader waiting for the batch to fill up, if any
+      volatile Thread collector;
+   }
+
+   private static final class PendingWrite {
+      final SingleRpcCommand rpc;
+      final long timeoutMillis;
+      final Thread thread = Thread.currentThread();
+      volatile boolean done;
+      Map<Address, Response> responses;
+      Throwable failure;
+
+      PendingWrite(SingleRpcCommand rpc, long timeoutMillis) {
+         this.rpc = rpc;
+         this.timeoutMillis = timeoutMillis;
+      }
+
+      void complete(Map<Address, Response> responses) {
+         this.responses = responses == null ? InfinispanCollections.<Address, Response>emptyMap() : responses;
+         done();
+      }
+
+      void fail(Throwable failure) {
+         this.failure = failure;
+         done();
+      }
+
+      private void done() {
+         done = true;
+         LockSupport.unpark(thread);
+      }
+
+      Map<Address, Response> getResponses() throws Exception {
+         if (failure == null) return responses;
+         if (failure instanceof Exception) throw (Exception) failure;
+         if (failure instanceof Error) throw (Error) failure;
+         throw new CacheException(failure);
+      }
+   }
+}
@@ -1,6 +1,7 @@
 package org.infinispan.remoting.transport;
 
 import org.infinispan.commands.ReplicableCommand;
+import org.infinispan.commons.util.concurrent.NotifyingFuture;
 import org.infinispan.factories.annotations.Start;
 import org.infinispan.factories.annotations.Stop;
 import org.infinispan.factories.scopes.Scope;
@@ -50,6 +51,23 @@ Map<Address, Response> invokeRemotely(Collection<Address> recipients, Replicable
                                  boolean anycast) throws Exception;
 
 
+   /**
+    * Invokes an RPC call on other caches in the cluster, like {@link #invokeRemotely(java.util.Collection,
+    * org.infinispan.commands.ReplicableCommand, org.infinispan.remoting.rpc.ResponseMode, long, boolean,
+    * org.infinispan.remoting.rpc.ResponseFilter, boolean, boolean)}, but without blocking the caller until the responses
+    * arrive. The returned future completes with the map of responses, or with the exception, that invokeRemotely would
+    * have returned or thrown. It may be completed by a transport thread, so listeners attached to it must not block.
+    * Implementations which cannot avoid blocking for some calls, e.g. total order ones, may complete the future
+    * before returning it.
+    *
+    * @return a future of the map of responses from each member contacted.
+    * @throws Exception in the event of problems detected before sending the command.
+    */
+   NotifyingFuture<Map<Address, Response>> invokeRemotelyAsync(Collection<Address> recipients, ReplicableCommand rpcCommand,
+                                                               ResponseMode mode, long timeout, boolean usePriorityQueue,
+                                                               ResponseFilter responseFilter, boolean totalOrder,
+                                                               boolean anycast) throws Exception;
+
    BackupResponse backupRemotely(Collection<XSiteBackup> backups, ReplicableCommand rpcCommand) throws Exception;
 
    /**
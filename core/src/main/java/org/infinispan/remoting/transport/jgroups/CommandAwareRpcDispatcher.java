@@ -7,6 +7,7 @@
 import org.infinispan.commands.remote.SingleRpcCommand;
 import org.infinispan.commons.CacheException;
 import org.infinispan.commons.util.Util;
+import org.infinispan.commons.util.concurrent.CompletableNotifyingFuture;
 import org.infinispan.context.Flag;
 import org.infinispan.factories.GlobalComponentRegistry;
 import org.infinispan.remoting.responses.SuccessfulResponse;
@@ -39,12 +40,15 @@
 import org.jgroups.util.NotifyingFuture;
 import org.jgroups.util.Rsp;
 import org.jgroups.util.RspList;
+import org.jgroups.util.TimeScheduler;
 
 import java.io.NotSerializableException;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -180,6 +184,42 @@ public Response call() throws Exception {
       }
    }
 
+   /**
+    * Sends the command to each of the recipients in parallel, without waiting for their responses. The returned future
+    * is completed by the thread delivering the last awaited response, or by the JGroups timer if the timeout expires
+    * first, so listeners attached to it must not block.
+    * <p/>
+    * With a filter, the future holds the first acceptable response, as {@link #invokeRemoteCommands} would return.
+    * Without one, it holds a response for each recipient, and a recipient which left the cluster is flagged as
+    * suspected rather than failing the call. In both cases it holds <tt>null</tt> if no recipient returned anything.
+    *
+    * @param recipients Guaranteed not to be null or empty.  Must <b>not</b> contain self.
+    */
+   public CompletableNotifyingFuture<RspList<Object>> invokeRemoteCommandsAsync(List<Address> recipients, ReplicableCommand command,
+                                                                               ResponseMode mode, long timeout, boolean oob,
+                                                                               RspFilter filter) {
+      if (trace) log.tracef("Replication task sending %s to addresses %s with response mode %s, without waiting", command, recipients, mode);
+
+      /// HACK ALERT!  Used for ISPN-1789.  Enable RSVP if the command is a state transfer control command or cache topology control command.
+      boolean rsvp = command instanceof StateRequestCommand || command instanceof StateResponseCommand
+            || command instanceof CacheTopologyControlCommand
+            || isRsvpCommand(command);
+
+      ResponseCollector collector = new ResponseCollector(filter, recipients, timeout);
+      try {
+         Buffer buf = marshallCall(req_marshaller, command);
+         RequestOptions opts = new RequestOptions(mode, timeout);
+         for (Address a : recipients) {
+            sendMessageWithFuture(constructMessage(buf, a, oob, mode, rsvp, false), opts, collector.listenerFor(a));
+         }
+      } catch (Exception e) {
+         collector.fail(rewrapAsCacheException(e));
+         return collector.future;
+      }
+      collector.scheduleTimeout(getChannel().getProtocolStack().getTransport().getTimer());
+      return collector.future;
+   }
+
    public RspList<Object> broadcastRemoteCommands(ReplicableCommand command, ResponseMode mode, long timeout,
                                                   boolean oob, RspFilter filter,
                                                   boolean asyncMarshalling, boolean ignoreLeavers, boolean totalOrder)
@@ -486,6 +526,139 @@ public String toString() {
       }
    }
 
+   /**
+    * Gathers the responses of {@link #invokeRemoteCommandsAsync}, and completes its future once every awaited response
+    * has arrived or the timeout has expired.
+    */
+   final static class ResponseCollector implements Runnable {
+      final CompletableNotifyingFuture<RspList<Object>> future = new CompletableNotifyingFuture<RspList<Object>>();
+      final RspFilter filter;
+      final long timeout;
+      @GuardedBy("this")
+      private final Set<Address> pending;
+      @GuardedBy("this")
+      private final RspList<Object> responses = new RspList<Object>();
+      @GuardedBy("this")
+      private Exception exception;
+      private volatile Future<?> timeoutTask;
+
+      ResponseCollector(RspFilter filter, List<Address> recipients, long timeout) {
+         this.filter = filter;
+         this.timeout = timeout;
+         this.pending = new HashSet<Address>(recipients);
+      }
+
+      FutureListener<Object> listenerFor(final Address sender) {
+         return new FutureListener<Object>() {
+            @Override
+            public void futureDone(Future<Object> f) {
+               responseDone(sender, f);
+            }
+         };
+      }
+
+      void scheduleTimeout(TimeScheduler timer) {
+         timeoutTask = timer.schedule(this, timeout, MILLISECONDS);
+         if (future.isDone()) timeoutTask.cancel(false);
+      }
+
+      private void responseDone(Address sender, Future<Object> f) {
+         RspList<Object> result = null;
+         Exception failure = null;
+         synchronized (this) {
+            // JGroups may notify a listener twice, and responses arriving after the outcome is known are useless
+            if (future.isDone() || !pending.remove(sender))
+               return;
+            try {
+               Object response = f.get();
+               if (trace) log.tracef("Received response: %s from %s", response, sender);
+               if (filter == null) {
+                  responses.addRsp(sender, response);
+               } else {
+                  filter.isAcceptable(response, sender);
+                  if (!filter.needMoreResponses())
+                     result = new RspList<Object>(Collections.singleton(new Rsp<Object>(sender, response)));
+               }
+            } catch (InterruptedException e) {
+               // cannot happen, the future is done
+               Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+               Throwable cause = e.getCause();
+               if (filter == null) {
+                  Rsp<Object> rsp;
+                  if (cause instanceof SuspectedException) {
+                     rsp = new Rsp<Object>(sender);
+                     rsp.setSuspected();
+                  } else {
+                     rsp = new Rsp<Object>(sender, cause);
+                  }
+                  responses.put(sender, rsp);
+               } else {
+                  if (cause instanceof org.jgroups.TimeoutException)
+                     exception = new TimeoutException("Timeout!", e);
+                  else if (cause instanceof Exception)
+                     exception = (Exception) cause;
+                  else
+                     exception = new CacheException("Caught a throwable", cause);
+                  if (log.isDebugEnabled())
+                     log.debugf("Caught exception %s from sender %s.  Will skip this response.", exception.getClass().getName(), sender);
+               }
+            }
+            if (result == null && pending.isEmpty()) {
+               if (filter == null)
+                  result = responses;
+               else if (exception != null)
+                  failure = exception;
+               else
+                  failure = new RpcException(format("No more valid responses.  Received invalid responses from all of %s", responses.keySet()));
+            }
+         }
+         if (result != null) {
+            complete(result);
+         } else if (failure != null) {
+            fail(failure);
+         }
+      }
+
+      /**
+       * Invoked by the timer when the timeout expires.
+       */
+      @Override
+      public void run() {
+         String missing;
+         synchronized (this) {
+            if (future.isDone())
+               return;
+            missing = pending.toString();
+         }
+         fail(new TimeoutException(format("Timed out after %s waiting for a response from %s",
+                                          Util.prettyPrintTime(timeout), missing)));
+      }
+
+      private void complete(RspList<Object> result) {
+         if (trace) log.tracef("Responses: %s", result);
+         boolean onlyNulls = true;
+         for (Rsp<Object> r : result.values()) {
+            if (r.getValue() != null || !r.wasReceived() || r.wasSuspected()) {
+               onlyNulls = false;
+               break;
+            }
+         }
+         future.complete(onlyNulls ? null : result);
+         cancelTimeout();
+      }
+
+      void fail(Exception e) {
+         future.fail(e);
+         cancelTimeout();
+      }
+
+      private void cancelTimeout() {
+         Future<?> task = timeoutTask;
+         if (task != null) task.cancel(false);
+      }
+   }
+
    final static class FutureCollator implements FutureListener<Object> {
       final RspFilter filter;
       final Map<Future<Object>, SenderContainer> futures = new HashMap<Future<Object>, SenderContainer>(4);
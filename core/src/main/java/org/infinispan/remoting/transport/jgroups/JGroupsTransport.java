@@ -15,6 +15,9 @@
 import org.infinispan.commons.util.InfinispanCollections;
 import org.infinispan.commons.util.TypedProperties;
 import org.infinispan.commons.util.Util;
+import org.infinispan.commons.util.concurrent.CompletableNotifyingFuture;
+import org.infinispan.commons.util.concurrent.FutureListener;
+import org.infinispan.commons.util.concurrent.NotifyingFuture;
 import org.infinispan.notifications.cachemanagerlistener.CacheManagerNotifier;
 import org.infinispan.remoting.InboundInvocationHandler;
 import org.infinispan.remoting.responses.Response;
@@ -61,6 +64,7 @@
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 
@@ -540,19 +544,75 @@ usePriorityQueue, toJGroupsFilter(responseFilter),
             responses = Collections.singletonMap(fromJGroupsAddress(singleJGAddress), singleResponse);
          }
       } else {
-         Map<Address, Response> retval = new HashMap<Address, Response>(rsps.size());
+         responses = toResponseMap(rsps, responseFilter != null, ignoreLeavers);
+      }
+      return responses;
+   }
+
+   private Map<Address, Response> toResponseMap(RspList<Object> rsps, boolean usedResponseFilter, boolean ignoreLeavers) throws Exception {
+      Map<Address, Response> retval = new HashMap<Address, Response>(rsps.size());
 
-         boolean noValidResponses = true;
-         for (Rsp<Object> rsp : rsps.values()) {
-            noValidResponses &= parseResponseAndAddToResponseList(rsp.getValue(), rsp.getException(), retval, rsp.wasSuspected(), rsp.wasReceived(), fromJGroupsAddress(rsp.getSender()),
-                  responseFilter != null, ignoreLeavers);
+      boolean noValidResponses = true;
+      for (Rsp<Object> rsp : rsps.values()) {
+         noValidResponses &= parseResponseAndAddToResponseList(rsp.getValue(), rsp.getException(), retval, rsp.wasSuspected(), rsp.wasReceived(), fromJGroupsAddress(rsp.getSender()),
+               usedResponseFilter, ignoreLeavers);
+      }
+
+      if (noValidResponses)
+         throw new TimeoutException("Timed out waiting for valid responses!");
+      return retval;
+   }
+
+   @Override
+   public NotifyingFuture<Map<Address, Response>> invokeRemotelyAsync(Collection<Address> recipients, ReplicableCommand rpcCommand,
+                                                                      ResponseMode mode, long timeout, boolean usePriorityQueue,
+                                                                      final ResponseFilter responseFilter, boolean totalOrder,
+                                                                      boolean anycast) throws Exception {
+      final CompletableNotifyingFuture<Map<Address, Response>> result = new CompletableNotifyingFuture<Map<Address, Response>>();
+      if (!mode.isSynchronous() || totalOrder) {
+         // Asynchronous calls don't wait anyway, and total order needs the ordering of the blocking path
+         result.complete(invokeRemotely(recipients, rpcCommand, mode, timeout, usePriorityQueue, responseFilter, totalOrder, anycast));
+         return result;
+      }
+
+      if (trace)
+         log.tracef("dests=%s, command=%s, mode=%s, timeout=%s, without waiting", recipients, rpcCommand, mode, timeout);
+      final boolean ignoreLeavers = mode == ResponseMode.SYNCHRONOUS_IGNORE_LEAVERS || mode == ResponseMode.WAIT_FOR_VALID_RESPONSE;
+      if (recipients != null && !getMembers().containsAll(recipients)) {
+         if (ignoreLeavers) {
+            recipients = new HashSet<Address>(recipients);
+            recipients.retainAll(getMembers());
+         } else {
+            throw new SuspectException("One or more nodes have left the cluster while replicating command " + rpcCommand);
          }
+      }
+      if (!usePriorityQueue && (ResponseMode.SYNCHRONOUS == mode || ResponseMode.SYNCHRONOUS_IGNORE_LEAVERS == mode))
+         usePriorityQueue = true;
 
-         if (noValidResponses)
-            throw new TimeoutException("Timed out waiting for valid responses!");
-         responses = retval;
+      List<org.jgroups.Address> jgAddressList = toJGroupsAddressListExcludingSelf(recipients == null ? members : recipients, false);
+      if (jgAddressList.isEmpty()) {
+         log.trace("Destination list is empty: no need to send message");
+         result.complete(InfinispanCollections.<Address, Response>emptyMap());
+         return result;
       }
-      return responses;
+
+      dispatcher.invokeRemoteCommandsAsync(jgAddressList, rpcCommand, toJGroupsMode(mode), timeout, usePriorityQueue,
+                                           toJGroupsFilter(responseFilter))
+            .attachListener(new FutureListener<RspList<Object>>() {
+               @Override
+               public void futureDone(Future<RspList<Object>> future) {
+                  try {
+                     RspList<Object> rsps = future.get();
+                     result.complete(rsps == null ? InfinispanCollections.<Address, Response>emptyMap()
+                                           : toResponseMap(rsps, responseFilter != null, ignoreLeavers));
+                  } catch (ExecutionException e) {
+                     result.fail(e.getCause());
+                  } catch (Exception e) {
+                     result.fail(e);
+                  }
+               }
+            });
+      return result;
    }
 
    @Override
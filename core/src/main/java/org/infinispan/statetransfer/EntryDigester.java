@@ -0,0 +1,64 @@
+package org.infinispan.statetransfer;
+
+import org.infinispan.commons.CacheException;
+import org.infinispan.commons.hash.MurmurHash3;
+import org.infinispan.commons.marshall.StreamingMarshaller;
+import org.infinispan.metadata.Metadata;
+
+/**
+ * Computes the digests exchanged by incremental state transfer (see
+ * {@link org.infinispan.configuration.cache.StateTransferConfiguration#incrementalRejoin()}). A joiner sends the
+ * digests of the entries it already has, keyed by the digests of their keys, and the provider skips the entries whose
+ * digests match.
+ * <p/>
+ * Both digests are computed from the marshalled form of the key, value and version, so they are the same on every
+ * node regardless of the in-memory representation of the entry.
+ *
+ * @since 7.0
+ */
+public class EntryDigester {
+
+   private static final int SEED = 9001;
+
+   private final StreamingMarshaller marshaller;
+
+   public EntryDigester(StreamingMarshaller marshaller) {
+      this.marshaller = marshaller;
+   }
+
+   /**
+    * @return the digest identifying a key
+    */
+   public long keyDigest(Object key) {
+      return MurmurHash3.MurmurHash3_x64_64(marshall(key), SEED);
+   }
+
+   /**
+    * @return the digest of an entry's value and metadata, changing whenever the value, version or expiration changes
+    */
+   public long entryDigest(Object value, Metadata metadata) {
+      long versionDigest = 0;
+      long lifespan = -1;
+      long maxIdle = -1;
+      if (metadata != null) {
+         if (metadata.version() != null) {
+            versionDigest = MurmurHash3.MurmurHash3_x64_64(marshall(metadata.version()), SEED);
+         }
+         lifespan = metadata.lifespan();
+         maxIdle = metadata.maxIdle();
+      }
+      long valueDigest = MurmurHash3.MurmurHash3_x64_64(marshall(value), SEED);
+      return MurmurHash3.MurmurHash3_x64_64(new long[]{valueDigest, versionDigest, lifespan, maxIdle}, SEED);
+   }
+
+   private byte[] marshall(Object o) {
+      try {
+         return marshaller.objectToByteBuffer(o);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new CacheException(e);
+      } catch (Exception e) {
+         throw new CacheException("Unable to marshall " + o + " to compute its digest", e);
+      }
+   }
+}
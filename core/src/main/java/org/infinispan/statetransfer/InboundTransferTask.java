@@ -108,6 +108,10 @@ public Set<Integer> getUnfinishedSegments() {
       return unfinishedSegments;
    }
 
+   boolean isCancelled() {
+      return isCancelled;
+   }
+
    public Address getSource() {
       return source;
    }
@@ -123,6 +127,7 @@ public boolean requestSegments() {
          // start transfer of cache entries
          try {
             StateRequestCommand cmd = commandsFactory.buildStateRequestCommand(StateRequestCommand.Type.START_STATE_TRANSFER, rpcManager.getAddress(), topologyId, segments);
+            cmd.setDigests(stateConsumer.computeLocalDigests(segments));
             Map<Address, Response> responses = rpcManager.invokeRemotely(Collections.singleton(source), cmd, rpcOptions);
             Response response = responses.get(source);
             if (response instanceof SuccessfulResponse) {
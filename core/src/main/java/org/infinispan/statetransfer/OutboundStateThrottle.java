@@ -0,0 +1,169 @@
+package org.infinispan.statetransfer;
+
+import org.infinispan.commons.marshall.StreamingMarshaller;
+import org.infinispan.commons.util.CollectionFactory;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.factories.annotations.Inject;
+import org.infinispan.factories.scopes.Scope;
+import org.infinispan.factories.scopes.Scopes;
+import org.infinispan.util.TimeService;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the rate at which a node sends state to other nodes (see
+ * {@link org.infinispan.configuration.cache.StateTransferConfiguration#maxOutboundBandwidth()}). There is one throttle
+ * per cache manager, shared by the outbound transfers of all the caches that limit their bandwidth, which must call
+ * {@link #acquire(long)} before sending each batch of chunks. If these caches configure different limits, the lowest
+ * one applies to all of them.
+ * <p/>
+ * The budget is refilled continuously and can accumulate up to one second worth of bytes, so short bursts are sent
+ * right away. A batch larger than the remaining budget is still sent, but the caller waits until the budget has been
+ * paid back.
+ *
+ * @since 7.0
+ */
+@Scope(Scopes.GLOBAL)
+public class OutboundStateThrottle {
+
+   private static final Log log = LogFactory.getLog(OutboundStateThrottle.class);
+   private static final boolean trace = log.isTraceEnabled();
+
+   private static final long ONE_SECOND_NANOS = TimeUnit.SECONDS.toNanos(1);
+   // the marshalled size of a removed key digest
+   private static final int DIGEST_SIZE = 8;
+
+   private final ConcurrentMap<String, Long> bandwidthByCache = CollectionFactory.makeConcurrentMap();
+
+   private TimeService timeService;
+
+   // guarded by this
+   private long bytesPerSecond;
+   private long availableBytes;
+   private long lastRefillNanos;
+   private long acquiredBytes;
+   private long throttledNanos;
+
+   @Inject
+   public void injectTimeService(TimeService timeService) {
+      this.timeService = timeService;
+   }
+
+   /**
+    * Limits the outbound state transfer of the given cache.
+    */
+   void register(String cacheName, long bytesPerSecond) {
+      bandwidthByCache.put(cacheName, bytesPerSecond);
+      updateBandwidth();
+   }
+
+   void unregister(String cacheName) {
+      if (bandwidthByCache.remove(cacheName) != null) {
+         updateBandwidth();
+      }
+   }
+
+   private synchronized void updateBandwidth() {
+      long lowest = 0;
+      for (long bandwidth : bandwidthByCache.values()) {
+         if (lowest == 0 || bandwidth < lowest) {
+            lowest = bandwidth;
+         }
+      }
+      if (bytesPerSecond == 0) {
+         // start with a full budget
+         availableBytes = lowest;
+         lastRefillNanos = timeService.time();
+      } else {
+         availableBytes = Math.min(availableBytes, lowest);
+      }
+      bytesPerSecond = lowest;
+   }
+
+   /**
+    * Blocks until the given number of bytes can be sent without exceeding the configured bandwidth.
+    */
+   void acquire(long bytes) throws InterruptedException {
+      long waitNanos = reserve(bytes);
+      if (waitNanos > 0) {
+         if (trace) log.tracef("Throttling outbound state transfer for %d ms", TimeUnit.NANOSECONDS.toMillis(waitNanos));
+         TimeUnit.NANOSECONDS.sleep(waitNanos);
+      }
+   }
+
+   /**
+    * Takes the given number of bytes from the budget.
+    *
+    * @return how long the caller must wait, in nanoseconds, before sending them
+    */
+   synchronized long reserve(long bytes) {
+      if (bytesPerSecond <= 0) {
+         return 0;
+      }
+      acquiredBytes += bytes;
+      long now = timeService.time();
+      // the budget can't hold more than one second worth of bytes, which also keeps the product from overflowing
+      long elapsedNanos = Math.min(now - lastRefillNanos, ONE_SECOND_NANOS);
+      long refill = elapsedNanos * bytesPerSecond / ONE_SECOND_NANOS;
+      if (refill > 0) {
+         availableBytes = Math.min(bytesPerSecond, availableBytes + refill);
+         lastRefillNanos = now;
+      }
+      availableBytes -= bytes;
+      long waitNanos = availableBytes >= 0 ? 0 : -availableBytes * ONE_SECOND_NANOS / bytesPerSecond;
+      throttledNanos += waitNanos;
+      return waitNanos;
+   }
+
+   /**
+    * Returns the number of bytes sent under a bandwidth limit so far.
+    */
+   synchronized long getAcquiredBytes() {
+      return acquiredBytes;
+   }
+
+   /**
+    * Returns the total time, in nanoseconds, the senders were told to wait so far.
+    */
+   synchronized long getThrottledNanos() {
+      return throttledNanos;
+   }
+
+   /**
+    * Estimates the marshalled size of the given chunks from the size of their first entry, so that they needn't be
+    * marshalled once more just to be measured.
+    */
+   static long estimateSize(Collection<StateChunk> chunks, StreamingMarshaller marshaller) throws InterruptedException {
+      long numEntries = 0;
+      long numDigests = 0;
+      InternalCacheEntry sample = null;
+      for (StateChunk chunk : chunks) {
+         Collection<InternalCacheEntry> entries = chunk.getCacheEntries();
+         if (entries != null && !entries.isEmpty()) {
+            numEntries += entries.size();
+            if (sample == null) {
+               sample = entries.iterator().next();
+            }
+         }
+         if (chunk.getRemovedKeyDigests() != null) {
+            numDigests += chunk.getRemovedKeyDigests().size();
+         }
+      }
+      long size = numDigests * DIGEST_SIZE;
+      if (sample != null) {
+         try {
+            size += numEntries * marshaller.objectToBuffer(sample).getLength();
+         } catch (InterruptedException e) {
+            throw e;
+         } catch (Exception e) {
+            // an entry that can't be marshalled will fail the transfer anyway, don't hold it back
+            if (trace) log.tracef(e, "Could not compute the size of cache entry %s", sample);
+         }
+      }
+      return size;
+   }
+}
@@ -6,8 +6,10 @@
 import org.infinispan.commons.util.InfinispanCollections;
 import org.infinispan.container.DataContainer;
 import org.infinispan.container.InternalEntryFactory;
+import org.infinispan.container.SegmentedDataContainer;
 import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.distribution.ch.ConsistentHash;
+import org.infinispan.metadata.Metadata;
 import org.infinispan.persistence.CollectionKeyFilter;
 import org.infinispan.persistence.manager.PersistenceManager;
 import org.infinispan.persistence.spi.AdvancedCacheLoader;
@@ -82,10 +84,38 @@ public class OutboundTransferTask implements Runnable {
 
    private InternalEntryFactory entryFactory;
 
+   /**
+    * The digests of the entries the destination already has and that were not visited yet, by segment and key digest.
+    * Null unless this is an incremental transfer. The keys left over at the end were removed on this node.
+    */
+   private final Map<Integer, Map<Long, Long>> destinationDigests;
+
+   private final EntryDigester entryDigester;
+
+   /**
+    * The segments of an incremental transfer whose entries couldn't all be compared with the destination's, so they are
+    * copied in full after asking the destination to remove all its keys.
+    */
+   private final Set<Integer> fullCopySegments = new HashSet<Integer>();
+
+   /**
+    * The number of entries not sent because the destination already had them.
+    */
+   private int skippedEntries;
+
    public OutboundTransferTask(Address destination, Set<Integer> segments, int stateTransferChunkSize,
                                int topologyId, ConsistentHash readCh, StateProviderImpl stateProvider, DataContainer dataContainer,
                                PersistenceManager persistenceManager, RpcManager rpcManager,
                                CommandsFactory commandsFactory, InternalEntryFactory ef, long timeout, String cacheName) {
+      this(destination, segments, stateTransferChunkSize, topologyId, readCh, stateProvider, dataContainer,
+           persistenceManager, rpcManager, commandsFactory, ef, timeout, cacheName, null, null);
+   }
+
+   public OutboundTransferTask(Address destination, Set<Integer> segments, int stateTransferChunkSize,
+                               int topologyId, ConsistentHash readCh, StateProviderImpl stateProvider, DataContainer dataContainer,
+                               PersistenceManager persistenceManager, RpcManager rpcManager,
+                               CommandsFactory commandsFactory, InternalEntryFactory ef, long timeout, String cacheName,
+                               Map<Integer, Map<Long, Long>> destinationDigests, EntryDigester entryDigester) {
       if (segments == null || segments.isEmpty()) {
          throw new IllegalArgumentException("Segments must not be null or empty");
       }
@@ -108,6 +138,16 @@ public OutboundTransferTask(Address destination, Set<Integer> segments, int stat
       this.commandsFactory = commandsFactory;
       this.timeout = timeout;
       this.cacheName = cacheName;
+      if (destinationDigests != null && entryDigester != null) {
+         // copy the digests, the task removes the ones it visits
+         this.destinationDigests = new HashMap<Integer, Map<Long, Long>>();
+         for (Map.Entry<Integer, Map<Long, Long>> e : destinationDigests.entrySet()) {
+            this.destinationDigests.put(e.getKey(), new HashMap<Long, Long>(e.getValue()));
+         }
+      } else {
+         this.destinationDigests = null;
+      }
+      this.entryDigester = entryDigester;
       //the rpc options does not change in runtime. re-use the same instance
       this.rpcOptions = rpcManager.getRpcOptionsBuilder(ResponseMode.SYNCHRONOUS)
             .timeout(timeout, TimeUnit.MILLISECONDS).build();
@@ -137,37 +177,22 @@ public Set<Integer> getSegments() {
    //todo [anistor] check thread interrupt status in loops to implement faster cancellation
    public void run() {
       try {
-         // send data container entries
-         for (InternalCacheEntry ice : dataContainer) {
-            Object key = ice.getKey();  //todo [anistor] should we check for expired entries?
-            int segmentId = readCh.getSegment(key);
-            if (segments.contains(segmentId)) {
-               sendEntry(ice, segmentId);
-            }
-         }
-
-         AdvancedCacheLoader stProvider = persistenceManager.getStateTransferProvider();
-         if (stProvider != null) {
-            try {
-               CollectionKeyFilter filter = new CollectionKeyFilter(new ReadOnlyDataContainerBackedKeySet(dataContainer));
-               AdvancedCacheLoader.CacheLoaderTask task = new AdvancedCacheLoader.CacheLoaderTask() {
-                  @Override
-                  public void processEntry(MarshalledEntry me, AdvancedCacheLoader.TaskContext taskContext) throws InterruptedException {
-                        int segmentId = readCh.getSegment(me.getKey());
-                        if (segments.contains(segmentId)) {
-                           try {
-                              InternalCacheEntry icv = entryFactory.create(me.getKey(), me.getValue(), me.getMetadata());
-                              sendEntry(icv, segmentId);
-                           } catch (CacheException e) {
-                              log.failedLoadingValueFromCacheStore(me.getKey(), e);
-                           }
-                        }
-                     }
-                  };
-               stProvider.process(filter, task, new WithinThreadExecutor(), true, true);
-            } catch (CacheException e) {
-               log.failedLoadingKeysFromCacheStore(e);
+         sendSegments(segments);
+
+         Set<Integer> clearedSegments = new HashSet<Integer>(fullCopySegments);
+         clearedSegments.retainAll(segments);
+         if (!clearedSegments.isEmpty()) {
+            log.debugf("Could not compare all the entries of segments %s of cache %s with the ones of node %s, copying them in full",
+                       clearedSegments, cacheName, destination);
+            // the destination must remove its keys after receiving the entries already sent and before the full copy
+            sendEntries(false);
+            accumulatedEntries = 0;
+            List<StateChunk> chunks = new ArrayList<StateChunk>(clearedSegments.size());
+            for (int segmentId : clearedSegments) {
+               chunks.add(new StateChunk(segmentId, InfinispanCollections.<InternalCacheEntry>emptyList(), false, null, true));
             }
+            sendChunks(chunks);
+            sendSegments(clearedSegments);
          }
 
          // send the last chunk of all segments
@@ -181,6 +206,94 @@ public void processEntry(MarshalledEntry me, AdvancedCacheLoader.TaskContext tas
       if (trace) {
          log.tracef("Outbound transfer of segments %s of cache %s to node %s is complete", segments, cacheName, destination);
       }
+      if (destinationDigests != null) {
+         log.debugf("Incremental transfer of segments %s of cache %s to node %s skipped %d unchanged entries",
+                    segments, cacheName, destination, skippedEntries);
+      }
+   }
+
+   /**
+    * Sends the entries of the data container and of the cache store that belong to the given segments.
+    */
+   private void sendSegments(final Set<Integer> sentSegments) {
+      // only visit the requested segments if the data container is segmented
+      Iterator<InternalCacheEntry> dataContainerIterator = dataContainer instanceof SegmentedDataContainer
+            ? ((SegmentedDataContainer) dataContainer).iterator(sentSegments) : dataContainer.iterator();
+      while (dataContainerIterator.hasNext()) {
+         InternalCacheEntry ice = dataContainerIterator.next();
+         Object key = ice.getKey();  //todo [anistor] should we check for expired entries?
+         int segmentId = readCh.getSegment(key);
+         if (isSent(sentSegments, segmentId) && !isUnchangedAtDestination(key, ice.getValue(), ice.getMetadata(), segmentId)) {
+            sendEntry(ice, segmentId);
+         }
+      }
+
+      AdvancedCacheLoader stProvider = persistenceManager.getStateTransferProvider();
+      if (stProvider != null) {
+         try {
+            CollectionKeyFilter filter = new CollectionKeyFilter(new ReadOnlyDataContainerBackedKeySet(dataContainer));
+            AdvancedCacheLoader.CacheLoaderTask task = new AdvancedCacheLoader.CacheLoaderTask() {
+               @Override
+               public void processEntry(MarshalledEntry me, AdvancedCacheLoader.TaskContext taskContext) throws InterruptedException {
+                     int segmentId = readCh.getSegment(me.getKey());
+                     if (isSent(sentSegments, segmentId)
+                           && !isUnchangedAtDestination(me.getKey(), me.getValue(), me.getMetadata(), segmentId)) {
+                        try {
+                           InternalCacheEntry icv = entryFactory.create(me.getKey(), me.getValue(), me.getMetadata());
+                           sendEntry(icv, segmentId);
+                        } catch (CacheException e) {
+                           log.failedLoadingValueFromCacheStore(me.getKey(), e);
+                        }
+                     }
+                  }
+               };
+            stProvider.process(filter, task, new WithinThreadExecutor(), true, true);
+         } catch (CacheException e) {
+            log.failedLoadingKeysFromCacheStore(e);
+         }
+      }
+   }
+
+   private boolean isSent(Set<Integer> sentSegments, int segmentId) {
+      // segments may be cancelled while they are sent
+      return sentSegments.contains(segmentId) && segments.contains(segmentId);
+   }
+
+   /**
+    * Checks whether the destination already has an identical entry, in which case it needn't be sent again.
+    */
+   private boolean isUnchangedAtDestination(Object key, Object value, Metadata metadata, int segmentId) {
+      if (destinationDigests == null) {
+         return false;
+      }
+      Map<Long, Long> segmentDigests = destinationDigests.get(segmentId);
+      if (segmentDigests == null || segmentDigests.isEmpty()) {
+         return false;
+      }
+      try {
+         Long destinationDigest = segmentDigests.remove(entryDigester.keyDigest(key));
+         if (destinationDigest != null && destinationDigest == entryDigester.entryDigest(value, metadata)) {
+            skippedEntries++;
+            return true;
+         }
+      } catch (CacheException e) {
+         // without the key digest we can't tell which of the destination's keys are stale, so copy the segment in full
+         if (trace) log.tracef(e, "Could not compute the digest of key %s, copying segment %d in full", key, segmentId);
+         destinationDigests.remove(segmentId);
+         fullCopySegments.add(segmentId);
+      }
+      return false;
+   }
+
+   /**
+    * @return the digests of the keys the destination has in the given segment but this node doesn't, or null
+    */
+   private Collection<Long> getRemovedKeyDigests(int segmentId) {
+      if (destinationDigests == null) {
+         return null;
+      }
+      Map<Long, Long> segmentDigests = destinationDigests.get(segmentId);
+      return segmentDigests == null || segmentDigests.isEmpty() ? null : new ArrayList<Long>(segmentDigests.keySet());
    }
 
    private void sendEntry(InternalCacheEntry ice, int segmentId) {
@@ -204,7 +317,8 @@ private void sendEntries(boolean isLast) {
       for (Map.Entry<Integer, List<InternalCacheEntry>> e : entriesBySegment.entrySet()) {
          List<InternalCacheEntry> entries = e.getValue();
          if (!entries.isEmpty() || isLast) {
-            chunks.add(new StateChunk(e.getKey(), new ArrayList<InternalCacheEntry>(entries), isLast));
+            chunks.add(new StateChunk(e.getKey(), new ArrayList<InternalCacheEntry>(entries), isLast,
+                                      isLast ? getRemovedKeyDigests(e.getKey()) : null));
             entries.clear();
          }
       }
@@ -213,7 +327,8 @@ private void sendEntries(boolean isLast) {
          for (int segmentId : segments) {
             List<InternalCacheEntry> entries = entriesBySegment.get(segmentId);
             if (entries == null) {
-               chunks.add(new StateChunk(segmentId, InfinispanCollections.<InternalCacheEntry>emptyList(), true));
+               chunks.add(new StateChunk(segmentId, InfinispanCollections.<InternalCacheEntry>emptyList(), true,
+                                         getRemovedKeyDigests(segmentId)));
             }
          }
       }
@@ -227,16 +342,28 @@ private void sendEntries(boolean isLast) {
             }
          }
 
-         StateResponseCommand cmd = commandsFactory.buildStateResponseCommand(rpcManager.getAddress(), topologyId, chunks);
-         // send synchronously, in order. it is important that the last chunk is received last in order to correctly detect completion of the stream of chunks
-         try {
-            rpcManager.invokeRemotely(Collections.singleton(destination), cmd, rpcOptions);
-         } catch (SuspectException e) {
-            log.errorf(e, "Node %s left cache %s: %s", destination, cacheName, e.getMessage());
-            cancel();
-         } catch (Exception e) {
-            log.errorf(e, "Failed to send entries to node %s : %s", destination, e.getMessage());
-         }
+         sendChunks(chunks);
+      }
+   }
+
+   private void sendChunks(List<StateChunk> chunks) {
+      try {
+         stateProvider.throttle(chunks);
+      } catch (InterruptedException e) {
+         // the task was cancelled
+         Thread.currentThread().interrupt();
+         return;
+      }
+
+      StateResponseCommand cmd = commandsFactory.buildStateResponseCommand(rpcManager.getAddress(), topologyId, chunks);
+      // send synchronously, in order. it is important that the last chunk is received last in order to correctly detect completion of the stream of chunks
+      try {
+         rpcManager.invokeRemotely(Collections.singleton(destination), cmd, rpcOptions);
+      } catch (SuspectException e) {
+         log.errorf(e, "Node %s left cache %s: %s", destination, cacheName, e.getMessage());
+         cancel();
+      } catch (Exception e) {
+         log.errorf(e, "Failed to send entries to node %s : %s", destination, e.getMessage());
       }
    }
 
@@ -35,10 +35,34 @@ public class StateChunk {
     */
    private final boolean isLastChunk;
 
+   /**
+    * The digests of the keys the receiver reported having but the sender no longer has, only sent by incremental
+    * state transfer and only in the last chunk of a segment. May be null.
+    */
+   private final Collection<Long> removedKeyDigests;
+
+   /**
+    * Instructs the receiver of an incremental state transfer to remove all the keys it had in the segment, because
+    * the sender could not compare them and sends all its entries of the segment after this chunk.
+    */
+   private final boolean clearSegment;
+
    public StateChunk(int segmentId, Collection<InternalCacheEntry> cacheEntries, boolean isLastChunk) {
+      this(segmentId, cacheEntries, isLastChunk, null);
+   }
+
+   public StateChunk(int segmentId, Collection<InternalCacheEntry> cacheEntries, boolean isLastChunk,
+                     Collection<Long> removedKeyDigests) {
+      this(segmentId, cacheEntries, isLastChunk, removedKeyDigests, false);
+   }
+
+   public StateChunk(int segmentId, Collection<InternalCacheEntry> cacheEntries, boolean isLastChunk,
+                     Collection<Long> removedKeyDigests, boolean clearSegment) {
       this.segmentId = segmentId;
       this.cacheEntries = cacheEntries;
       this.isLastChunk = isLastChunk;
+      this.removedKeyDigests = removedKeyDigests;
+      this.clearSegment = clearSegment;
    }
 
    public int getSegmentId() {
@@ -53,12 +77,22 @@ public boolean isLastChunk() {
       return isLastChunk;
    }
 
+   public Collection<Long> getRemovedKeyDigests() {
+      return removedKeyDigests;
+   }
+
+   public boolean isClearSegment() {
+      return clearSegment;
+   }
+
    @Override
    public String toString() {
       return "StateChunk{" +
             "segmentId=" + segmentId +
             ", cacheEntries=" + cacheEntries +
             ", isLastChunk=" + isLastChunk +
+            ", removedKeyDigests=" + removedKeyDigests +
+            ", clearSegment=" + clearSegment +
             '}';
    }
 
@@ -79,6 +113,8 @@ public void writeObject(ObjectOutput output, StateChunk object) throws IOExcepti
          output.writeInt(object.segmentId);
          output.writeObject(object.cacheEntries);
          output.writeBoolean(object.isLastChunk);
+         output.writeObject(object.removedKeyDigests);
+         output.writeBoolean(object.clearSegment);
       }
 
       @Override
@@ -87,7 +123,9 @@ public StateChunk readObject(ObjectInput input) throws IOException, ClassNotFoun
          int segmentId = input.readInt();
          Collection<InternalCacheEntry> cacheEntries = (Collection<InternalCacheEntry>) input.readObject();
          boolean isLastChunk = input.readBoolean();
-         return new StateChunk(segmentId, cacheEntries, isLastChunk);
+         Collection<Long> removedKeyDigests = (Collection<Long>) input.readObject();
+         boolean clearSegment = input.readBoolean();
+         return new StateChunk(segmentId, cacheEntries, isLastChunk, removedKeyDigests, clearSegment);
       }
    }
 }
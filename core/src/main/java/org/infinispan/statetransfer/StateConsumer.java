@@ -74,4 +74,20 @@ public interface StateConsumer {
     * @return  true if this node has already received the first rebalance command
     */
    boolean ownsData();
+
+   /**
+    * @return the number of cache entries received per second since the start of the current (or last) rebalance
+    */
+   double getInboundTransferRate();
+
+   /**
+    * @return the number of segments waiting to be requested from other nodes
+    */
+   int getQueuedSegments();
+
+   /**
+    * @return the estimated number of milliseconds until all the pending segments are received, 0 if no segments are
+    * pending or -1 if no segment was received yet
+    */
+   long getEstimatedTimeToCompletion();
 }
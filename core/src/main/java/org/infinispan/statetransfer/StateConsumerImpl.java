@@ -3,12 +3,14 @@
 import org.infinispan.Cache;
 import org.infinispan.commands.CommandsFactory;
 import org.infinispan.commands.write.InvalidateCommand;
-import org.infinispan.commands.write.PutKeyValueCommand;
+import org.infinispan.commands.write.WriteCommand;
 import org.infinispan.commons.CacheException;
+import org.infinispan.commons.marshall.StreamingMarshaller;
 import org.infinispan.commons.util.InfinispanCollections;
 import org.infinispan.commons.util.concurrent.jdk8backported.EquivalentConcurrentHashMapV8;
 import org.infinispan.configuration.cache.Configuration;
 import org.infinispan.container.DataContainer;
+import org.infinispan.container.SegmentedDataContainer;
 import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.context.Flag;
 import org.infinispan.context.InvocationContext;
@@ -22,6 +24,7 @@
 import org.infinispan.factories.annotations.Start;
 import org.infinispan.factories.annotations.Stop;
 import org.infinispan.interceptors.InterceptorChain;
+import org.infinispan.metadata.Metadata;
 import org.infinispan.persistence.CollectionKeyFilter;
 import org.infinispan.persistence.manager.PersistenceManager;
 import org.infinispan.persistence.spi.AdvancedCacheLoader;
@@ -43,6 +46,7 @@
 import org.infinispan.util.ReadOnlyDataContainerBackedKeySet;
 import org.infinispan.util.concurrent.BlockingTaskAwareExecutorService;
 import org.infinispan.util.concurrent.ConcurrentHashSet;
+import org.infinispan.util.concurrent.WithinThreadExecutor;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
@@ -56,17 +60,22 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.BlockingDeque;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.transaction.Transaction;
 import javax.transaction.TransactionManager;
 
 import static org.infinispan.context.Flag.*;
 import static org.infinispan.factories.KnownComponentNames.ASYNC_TRANSPORT_EXECUTOR;
+import static org.infinispan.factories.KnownComponentNames.CACHE_MARSHALLER;
 
 /**
  * {@link StateConsumer} implementation.
@@ -103,6 +112,8 @@ public class StateConsumerImpl implements StateConsumer {
    private boolean isInvalidationMode;
    private boolean isTotalOrder;
    private boolean isL1OnRehash;
+   private int maxConcurrentSegments;
+   private EntryDigester entryDigester;
    private volatile KeyInvalidationListener keyInvalidationListener; //for test purpose only!
 
    private volatile CacheTopology cacheTopology;
@@ -148,6 +159,22 @@ public class StateConsumerImpl implements StateConsumer {
 
    private boolean isTransferThreadRunning;
 
+   /**
+    * The number of operations that found each segment still in transit during the current rebalance. Only tracked if
+    * the number of concurrently transferred segments is limited, to request the most wanted segments first.
+    */
+   private final ConcurrentHashMap<Integer, AtomicInteger> segmentDemand = new ConcurrentHashMap<Integer, AtomicInteger>();
+
+   private volatile long rebalanceStartNanos;
+   private final AtomicLong receivedEntries = new AtomicLong();
+   private final AtomicInteger receivedSegments = new AtomicInteger();
+
+   /**
+    * The keys this node had in each segment when it requested the segment with incremental state transfer, by key
+    * digest. They are needed to remove the keys that the provider no longer has, which it only sends as digests.
+    */
+   private final ConcurrentHashMap<Integer, Map<Long, Object>> localKeysByDigest = new ConcurrentHashMap<Integer, Map<Long, Object>>();
+
    private volatile boolean ownsData = false;
 
    private RpcOptions rpcOptions;
@@ -255,6 +282,12 @@ public void init(Cache cache,
       isL1OnRehash = configuration.clustering().l1().onRehash();
 
       timeout = configuration.clustering().stateTransfer().timeout();
+      maxConcurrentSegments = configuration.clustering().stateTransfer().maxConcurrentSegments();
+   }
+
+   @Inject
+   public void injectMarshaller(@ComponentName(CACHE_MARSHALLER) StreamingMarshaller marshaller) {
+      this.entryDigester = new EntryDigester(marshaller);
    }
 
    public boolean hasActiveTransfers() {
@@ -284,7 +317,13 @@ public boolean isStateTransferInProgressForKey(Object key) {
          Address address = rpcManager.getAddress();
          boolean keyWillBeLocal = localCacheTopology.getPendingCH().isKeyLocalToNode(address, key);
          boolean keyIsLocal = localCacheTopology.getCurrentCH().isKeyLocalToNode(address, key);
-         return keyWillBeLocal && !keyIsLocal;
+         if (keyWillBeLocal && !keyIsLocal) {
+            if (maxConcurrentSegments > 0) {
+               recordDemand(localCacheTopology.getPendingCH().getSegment(key));
+            }
+            return true;
+         }
+         return false;
       }
    }
 
@@ -293,6 +332,66 @@ public boolean ownsData() {
       return ownsData;
    }
 
+   @Override
+   public double getInboundTransferRate() {
+      long start = rebalanceStartNanos;
+      if (start == 0) {
+         return 0;
+      }
+      long elapsedNanos = Math.max(1, System.nanoTime() - start);
+      return receivedEntries.get() * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+   }
+
+   @Override
+   public int getQueuedSegments() {
+      int queued = 0;
+      for (InboundTransferTask task : taskQueue) {
+         queued += task.getSegments().size();
+      }
+      return queued;
+   }
+
+   @Override
+   public long getEstimatedTimeToCompletion() {
+      int pending;
+      synchronized (this) {
+         pending = transfersBySegment.size();
+      }
+      if (pending == 0) {
+         return 0;
+      }
+      long start = rebalanceStartNanos;
+      int received = receivedSegments.get();
+      if (start == 0 || received == 0) {
+         return -1;
+      }
+      long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+      return elapsedMillis * pending / received;
+   }
+
+   private void recordDemand(int segmentId) {
+      AtomicInteger demand = segmentDemand.get(segmentId);
+      if (demand == null) {
+         AtomicInteger newDemand = new AtomicInteger();
+         demand = segmentDemand.putIfAbsent(segmentId, newDemand);
+         if (demand == null) {
+            demand = newDemand;
+         }
+      }
+      demand.incrementAndGet();
+   }
+
+   private int getDemand(InboundTransferTask task) {
+      int demand = 0;
+      for (Integer segmentId : task.getSegments()) {
+         AtomicInteger segmentDemand = this.segmentDemand.get(segmentId);
+         if (segmentDemand != null) {
+            demand += segmentDemand.get();
+         }
+      }
+      return demand;
+   }
+
    @Override
    public void onTopologyUpdate(final CacheTopology cacheTopology, final boolean isRebalance) {
       final boolean isMember = cacheTopology.getMembers().contains(rpcManager.getAddress());
@@ -303,6 +402,10 @@ public void onTopologyUpdate(final CacheTopology cacheTopology, final boolean is
             ownsData = true;
          }
          rebalanceInProgress.set(true);
+         segmentDemand.clear();
+         receivedEntries.set(0);
+         receivedSegments.set(0);
+         rebalanceStartNanos = System.nanoTime();
          cacheNotifier.notifyDataRehashed(cacheTopology.getCurrentCH(), cacheTopology.getPendingCH(),
                cacheTopology.getTopologyId(), true);
 
@@ -344,6 +447,10 @@ public void onTopologyUpdate(final CacheTopology cacheTopology, final boolean is
       // Ensures writes to the data container use the right consistent hash
       // No need for a try/finally block, since it's just an assignment
       stateTransferLock.acquireExclusiveTopologyLock();
+      if (dataContainer instanceof SegmentedDataContainer) {
+         // writes are blocked by the topology lock while the entries are moved to their segments
+         ((SegmentedDataContainer) dataContainer).setConsistentHash(cacheTopology.getReadConsistentHash());
+      }
       this.cacheTopology = cacheTopology;
       if (isRebalance) {
          if (trace) log.tracef("Start keeping track of keys for rebalance");
@@ -488,8 +595,19 @@ public void applyState(Address sender, int topologyId, Collection<StateChunk> st
             inboundTransfer = transfersBySegment.get(stateChunk.getSegmentId());
          }
          if (inboundTransfer != null) {
+            if (stateChunk.isClearSegment()) {
+               clearSegment(sender, stateChunk.getSegmentId());
+            }
             if (stateChunk.getCacheEntries() != null) {
                doApplyState(sender, stateChunk.getSegmentId(), stateChunk.getCacheEntries());
+               receivedEntries.addAndGet(stateChunk.getCacheEntries().size());
+            }
+            if (stateChunk.getRemovedKeyDigests() != null) {
+               applyRemovedKeys(sender, stateChunk.getSegmentId(), stateChunk.getRemovedKeyDigests());
+            }
+            if (stateChunk.isLastChunk()) {
+               localKeysByDigest.remove(stateChunk.getSegmentId());
+               receivedSegments.incrementAndGet();
             }
 
             inboundTransfer.onStateReceived(stateChunk.getSegmentId(), stateChunk.isLastChunk());
@@ -516,50 +634,154 @@ private void doApplyState(Address sender, int segmentId, Collection<InternalCach
          log.tracef("Received keys %s for segment %d of cache %s from node %s", keys, segmentId, cacheName, sender);
       }
 
-      // CACHE_MODE_LOCAL avoids handling by StateTransferInterceptor and any potential locks in StateTransferLock
-      EnumSet<Flag> flags = EnumSet.of(PUT_FOR_STATE_TRANSFER, CACHE_MODE_LOCAL, IGNORE_RETURN_VALUES, SKIP_REMOTE_LOOKUP, SKIP_SHARED_CACHE_STORE, SKIP_OWNERSHIP_CHECK, SKIP_XSITE_BACKUP);
+      EnumSet<Flag> flags = stateTransferFlags();
       for (InternalCacheEntry e : cacheEntries) {
-         try {
-            InvocationContext ctx;
-            if (transactionManager != null) {
-               // cache is transactional
-               transactionManager.begin();
-               Transaction transaction = transactionManager.getTransaction();
-               ctx = icc.createInvocationContext(transaction);
-               ((TxInvocationContext) ctx).setImplicitTransaction(true);
-            } else {
-               // non-tx cache
-               ctx = icc.createSingleKeyNonTxInvocationContext();
-            }
+         applyStateCommand(e.getKey(), commandsFactory.buildPutKeyValueCommand(
+               e.getKey(), e.getValue(), e.getMetadata(), flags));
+      }
+      log.debugf("Finished applying state for segment %d of cache %s", segmentId, cacheName);
+   }
 
-            PutKeyValueCommand put = commandsFactory.buildPutKeyValueCommand(
-                  e.getKey(), e.getValue(), e.getMetadata(), flags);
+   /**
+    * Removes the keys that this node had when it requested a segment with incremental state transfer, but which the
+    * provider doesn't have anymore.
+    */
+   private void applyRemovedKeys(Address sender, int segmentId, Collection<Long> removedKeyDigests) {
+      Map<Long, Object> keysByDigest = localKeysByDigest.get(segmentId);
+      if (keysByDigest == null) {
+         return;
+      }
+      log.debugf("Removing %d stale keys of segment %d of cache %s, as instructed by node %s", removedKeyDigests.size(),
+                 segmentId, cacheName, sender);
+      // the removals are guarded like the puts, so they don't overwrite keys updated by user code in the meantime
+      EnumSet<Flag> flags = stateTransferFlags();
+      for (Long keyDigest : removedKeyDigests) {
+         Object key = keysByDigest.get(keyDigest);
+         if (key != null) {
+            applyStateCommand(key, commandsFactory.buildRemoveCommand(key, null, flags));
+         }
+      }
+   }
 
-            boolean success = false;
-            try {
-               interceptorChain.invoke(ctx, put);
-               success = true;
-            } finally {
-               if (ctx.isInTxScope()) {
-                  if (success) {
-                     try {
-                        transactionManager.commit();
-                     } catch (Throwable ex) {
-                        log.errorf(ex, "Could not commit transaction created by state transfer of key %s", e.getKey());
-                        if (transactionManager.getTransaction() != null) {
-                           transactionManager.rollback();
-                        }
+   /**
+    * Removes all the keys that this node had when it requested a segment with incremental state transfer, because the
+    * provider couldn't tell which of them it still has and sends all its entries of the segment instead.
+    */
+   private void clearSegment(Address sender, int segmentId) {
+      Map<Long, Object> keysByDigest = localKeysByDigest.get(segmentId);
+      if (keysByDigest != null) {
+         applyRemovedKeys(sender, segmentId, new ArrayList<Long>(keysByDigest.keySet()));
+      }
+   }
+
+   private static EnumSet<Flag> stateTransferFlags() {
+      // CACHE_MODE_LOCAL avoids handling by StateTransferInterceptor and any potential locks in StateTransferLock
+      return EnumSet.of(PUT_FOR_STATE_TRANSFER, CACHE_MODE_LOCAL, IGNORE_RETURN_VALUES, SKIP_REMOTE_LOOKUP,
+                        SKIP_SHARED_CACHE_STORE, SKIP_OWNERSHIP_CHECK, SKIP_XSITE_BACKUP);
+   }
+
+   private void applyStateCommand(Object key, WriteCommand command) {
+      try {
+         InvocationContext ctx;
+         if (transactionManager != null) {
+            // cache is transactional
+            transactionManager.begin();
+            Transaction transaction = transactionManager.getTransaction();
+            ctx = icc.createInvocationContext(transaction);
+            ((TxInvocationContext) ctx).setImplicitTransaction(true);
+         } else {
+            // non-tx cache
+            ctx = icc.createSingleKeyNonTxInvocationContext();
+         }
+
+         boolean success = false;
+         try {
+            interceptorChain.invoke(ctx, command);
+            success = true;
+         } finally {
+            if (ctx.isInTxScope()) {
+               if (success) {
+                  try {
+                     transactionManager.commit();
+                  } catch (Throwable ex) {
+                     log.errorf(ex, "Could not commit transaction created by state transfer of key %s", key);
+                     if (transactionManager.getTransaction() != null) {
+                        transactionManager.rollback();
                      }
-                  } else {
-                     transactionManager.rollback();
                   }
+               } else {
+                  transactionManager.rollback();
                }
             }
-         } catch (Exception ex) {
-            log.problemApplyingStateForKey(ex.getMessage(), e.getKey(), ex);
          }
+      } catch (Exception ex) {
+         log.problemApplyingStateForKey(ex.getMessage(), key, ex);
+      }
+   }
+
+   /**
+    * Computes the digests of the entries this node already has in the given segments, so that the provider only sends
+    * the entries that changed while this node was away.
+    *
+    * @return the entry digests by key digest for each segment, or {@code null} if incremental rejoin is disabled
+    */
+   Map<Integer, Map<Long, Long>> computeLocalDigests(final Set<Integer> segments) {
+      if (entryDigester == null || !configuration.clustering().stateTransfer().incrementalRejoin()) {
+         return null;
+      }
+      final Map<Integer, Map<Long, Long>> digests = new HashMap<Integer, Map<Long, Long>>();
+      final Map<Integer, Map<Long, Object>> keysByDigest = new HashMap<Integer, Map<Long, Object>>();
+      for (Integer segmentId : segments) {
+         digests.put(segmentId, new HashMap<Long, Long>());
+         keysByDigest.put(segmentId, new HashMap<Long, Object>());
+      }
+
+      for (Iterator<InternalCacheEntry> it = dataContainerIterator(segments); it.hasNext(); ) {
+         InternalCacheEntry ice = it.next();
+         addLocalDigest(ice.getKey(), ice.getValue(), ice.getMetadata(), digests, keysByDigest);
+      }
+      AdvancedCacheLoader stProvider = persistenceManager.getStateTransferProvider();
+      if (stProvider != null) {
+         try {
+            CollectionKeyFilter filter = new CollectionKeyFilter(new ReadOnlyDataContainerBackedKeySet(dataContainer));
+            stProvider.process(filter, new AdvancedCacheLoader.CacheLoaderTask() {
+               @Override
+               public void processEntry(MarshalledEntry me, AdvancedCacheLoader.TaskContext taskContext) throws InterruptedException {
+                  addLocalDigest(me.getKey(), me.getValue(), me.getMetadata(), digests, keysByDigest);
+               }
+            }, new WithinThreadExecutor(), true, true);
+         } catch (CacheException e) {
+            log.failedLoadingKeysFromCacheStore(e);
+         }
+      }
+
+      localKeysByDigest.putAll(keysByDigest);
+      if (trace) log.tracef("Computed the digests of %d local keys for segments %s of cache %s", sizeOf(digests), segments, cacheName);
+      return digests;
+   }
+
+   private void addLocalDigest(Object key, Object value, Metadata metadata,
+                               Map<Integer, Map<Long, Long>> digests, Map<Integer, Map<Long, Object>> keysByDigest) {
+      Map<Long, Long> segmentDigests = digests.get(getSegment(key));
+      if (segmentDigests == null) {
+         return;
+      }
+      try {
+         long keyDigest = entryDigester.keyDigest(key);
+         segmentDigests.put(keyDigest, entryDigester.entryDigest(value, metadata));
+         keysByDigest.get(getSegment(key)).put(keyDigest, key);
+      } catch (CacheException e) {
+         // the provider will send the entry anyway
+         if (trace) log.tracef(e, "Could not compute the digest of key %s", key);
       }
-      log.debugf("Finished applying state for segment %d of cache %s", segmentId, cacheName);
+   }
+
+   private static int sizeOf(Map<Integer, Map<Long, Long>> digests) {
+      int size = 0;
+      for (Map<Long, Long> segmentDigests : digests.values()) {
+         size += segmentDigests.size();
+      }
+      return size;
    }
 
    private void applyTransactions(Address sender, Collection<TransactionInfo> transactions, int topologyId) {
@@ -768,7 +990,7 @@ public void run() {
                   while (true) {
                      InboundTransferTask task;
                      try {
-                        task = taskQueue.pollFirst(200, TimeUnit.MILLISECONDS);
+                        task = pollNextTask();
                         if (task == null) {
                            break;
                         }
@@ -834,6 +1056,36 @@ public void run() {
       });
    }
 
+   /**
+    * Picks the next task to run. If the number of concurrently transferred segments is limited, this is the queued task
+    * whose segments are needed by the most operations, otherwise it's simply the first queued task.
+    */
+   private InboundTransferTask pollNextTask() throws InterruptedException {
+      InboundTransferTask task = taskQueue.pollFirst(200, TimeUnit.MILLISECONDS);
+      if (task == null || segmentDemand.isEmpty()) {
+         return task;
+      }
+      synchronized (this) {
+         InboundTransferTask next = task;
+         int maxDemand = getDemand(task);
+         for (InboundTransferTask queued : taskQueue) {
+            int demand = getDemand(queued);
+            if (demand > maxDemand) {
+               next = queued;
+               maxDemand = demand;
+            }
+         }
+         if (next != task && taskQueue.remove(next)) {
+            if (!task.isCancelled()) {
+               taskQueue.addFirst(task);
+            }
+            if (trace) log.tracef("Requesting segments %s of cache %s first, %d operations are waiting for them", next.getSegments(), cacheName, maxDemand);
+            return next;
+         }
+         return task;
+      }
+   }
+
    /**
     * Cancel transfers for segments we no longer own.
     *
@@ -876,7 +1128,19 @@ private void invalidateSegments(final Set<Integer> newSegments, final Set<Intege
       final ConcurrentHashSet<Object> keysToRemove = new ConcurrentHashSet<Object>();
 
       // gather all keys from data container that belong to the segments that are being removed/moved to L1
-      for (InternalCacheEntry ice : dataContainer) {
+      // L1 on rehash needs to visit the entries of the segments we keep as well
+      Iterator<InternalCacheEntry> dataContainerIterator;
+      if (isL1OnRehash) {
+         dataContainerIterator = dataContainer.iterator();
+      } else {
+         Set<Integer> droppedSegments = new HashSet<Integer>();
+         for (int i = 0; i < newCH.getNumSegments(); i++) {
+            if (!newSegments.contains(i)) droppedSegments.add(i);
+         }
+         dataContainerIterator = dataContainerIterator(droppedSegments);
+      }
+      while (dataContainerIterator.hasNext()) {
+         InternalCacheEntry ice = dataContainerIterator.next();
          Object key = ice.getKey();
          int keySegment = getSegment(key);
          if (segmentsToL1.contains(keySegment)) {
@@ -991,35 +1255,62 @@ private void restartBrokenTransfers(CacheTopology cacheTopology, Set<Integer> ad
       }
    }
 
+   /**
+    * @return an iterator over the entries of the given segments, which may include entries of other segments if the
+    *         data container is not segmented
+    */
+   private Iterator<InternalCacheEntry> dataContainerIterator(Set<Integer> segments) {
+      if (dataContainer instanceof SegmentedDataContainer) {
+         return ((SegmentedDataContainer) dataContainer).iterator(segments);
+      }
+      return dataContainer.iterator();
+   }
+
    private int getSegment(Object key) {
       // here we can use any CH version because the routing table is not involved in computing the segment
       return cacheTopology.getReadConsistentHash().getSegment(key);
    }
 
-   private InboundTransferTask addTransfer(Address source, Set<Integer> segmentsFromSource) {
+   private void addTransfer(Address source, Set<Integer> segmentsFromSource) {
       synchronized (this) {
          log.tracef("Adding transfer from %s for segments %s", source, segmentsFromSource);
          segmentsFromSource.removeAll(transfersBySegment.keySet());  // already in progress segments are excluded
-         if (!segmentsFromSource.isEmpty()) {
-            InboundTransferTask inboundTransfer = new InboundTransferTask(segmentsFromSource, source,
-                  cacheTopology.getTopologyId(), this, rpcManager, commandsFactory, timeout, cacheName);
-            for (int segmentId : segmentsFromSource) {
-               transfersBySegment.put(segmentId, inboundTransfer);
-            }
-            List<InboundTransferTask> inboundTransfers = transfersBySource.get(inboundTransfer.getSource());
-            if (inboundTransfers == null) {
-               inboundTransfers = new ArrayList<InboundTransferTask>();
-               transfersBySource.put(inboundTransfer.getSource(), inboundTransfers);
+         if (maxConcurrentSegments <= 0 || segmentsFromSource.size() <= maxConcurrentSegments) {
+            if (!segmentsFromSource.isEmpty()) {
+               addTransferTask(source, segmentsFromSource);
             }
-            inboundTransfers.add(inboundTransfer);
-            taskQueue.add(inboundTransfer);
-            return inboundTransfer;
          } else {
-            return null;
+            // the transfer thread runs one task at a time, so smaller tasks limit the segments transferred concurrently
+            Set<Integer> batch = new HashSet<Integer>();
+            for (Integer segmentId : new TreeSet<Integer>(segmentsFromSource)) {
+               batch.add(segmentId);
+               if (batch.size() == maxConcurrentSegments) {
+                  addTransferTask(source, batch);
+                  batch = new HashSet<Integer>();
+               }
+            }
+            if (!batch.isEmpty()) {
+               addTransferTask(source, batch);
+            }
          }
       }
    }
 
+   private void addTransferTask(Address source, Set<Integer> segments) {
+      InboundTransferTask inboundTransfer = new InboundTransferTask(segments, source,
+            cacheTopology.getTopologyId(), this, rpcManager, commandsFactory, timeout, cacheName);
+      for (int segmentId : segments) {
+         transfersBySegment.put(segmentId, inboundTransfer);
+      }
+      List<InboundTransferTask> inboundTransfers = transfersBySource.get(inboundTransfer.getSource());
+      if (inboundTransfers == null) {
+         inboundTransfers = new ArrayList<InboundTransferTask>();
+         transfersBySource.put(inboundTransfer.getSource(), inboundTransfers);
+      }
+      inboundTransfers.add(inboundTransfer);
+      taskQueue.add(inboundTransfer);
+   }
+
    private boolean removeTransfer(InboundTransferTask inboundTransfer) {
       synchronized (this) {
          log.tracef("Removing inbound transfers for segments %s from source %s for cache %s",
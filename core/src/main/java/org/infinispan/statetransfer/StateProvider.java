@@ -6,6 +6,7 @@
 import org.infinispan.topology.CacheTopology;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -49,6 +50,20 @@ public interface StateProvider {
     */
    void startOutboundTransfer(Address destination, int topologyId, Set<Integer> segments) throws InterruptedException;
 
+   /**
+    * Start to send the cache entries that belong to the given set of segments and differ from the ones the requester
+    * already has, followed by the keys the requester should remove. This is invoked in response to a
+    * StateRequestCommand of type StateRequestCommand.Type.START_STATE_TRANSFER sent by incremental state transfer.
+    *
+    * @param destination the address of the requester
+    * @param topologyId
+    * @param segments
+    * @param digests     the digests of the entries the requester already has, by segment and key digest (see {@link
+    *                    EntryDigester}), or {@code null} to send all the entries
+    */
+   void startOutboundTransfer(Address destination, int topologyId, Set<Integer> segments,
+                              Map<Integer, Map<Long, Long>> digests) throws InterruptedException;
+
    /**
     * Cancel sending of cache entries that belong to the given set of segments. This is invoked in response to a
     * StateRequestCommand of type StateRequestCommand.Type.CANCEL_STATE_TRANSFER.
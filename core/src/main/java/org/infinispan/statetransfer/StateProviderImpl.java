@@ -3,6 +3,7 @@
 import org.infinispan.Cache;
 import org.infinispan.commands.CommandsFactory;
 import org.infinispan.commands.write.WriteCommand;
+import org.infinispan.commons.marshall.StreamingMarshaller;
 import org.infinispan.configuration.cache.Configuration;
 import org.infinispan.container.DataContainer;
 import org.infinispan.container.InternalEntryFactory;
@@ -30,6 +31,7 @@
 import java.util.concurrent.TimeUnit;
 
 import static org.infinispan.factories.KnownComponentNames.ASYNC_TRANSPORT_EXECUTOR;
+import static org.infinispan.factories.KnownComponentNames.CACHE_MARSHALLER;
 
 /**
  * {@link StateProvider} implementation.
@@ -54,6 +56,10 @@ public class StateProviderImpl implements StateProvider {
    private ExecutorService executorService;
    private StateTransferLock stateTransferLock;
    private InternalEntryFactory entryFactory;
+   private StreamingMarshaller marshaller;
+   private EntryDigester entryDigester;
+   private OutboundStateThrottle throttle;
+   private volatile boolean throttled;
    private long timeout;
    private int chunkSize;
 
@@ -100,6 +106,17 @@ public void init(Cache cache,
       this.chunkSize = chunkSize > 0 ? chunkSize : Integer.MAX_VALUE;
    }
 
+   @Inject
+   public void injectMarshaller(@ComponentName(CACHE_MARSHALLER) StreamingMarshaller marshaller) {
+      this.marshaller = marshaller;
+      this.entryDigester = new EntryDigester(marshaller);
+   }
+
+   @Inject
+   public void injectThrottle(OutboundStateThrottle throttle) {
+      this.throttle = throttle;
+   }
+
    public boolean isStateTransferInProgress() {
       synchronized (transfersByDestination) {
          return !transfersByDestination.isEmpty();
@@ -137,9 +154,23 @@ public void onTopologyUpdate(CacheTopology cacheTopology, boolean isRebalance) {
    @Start(priority = 60)
    @Override
    public void start() {
+      long maxOutboundBandwidth = configuration.clustering().stateTransfer().maxOutboundBandwidth();
+      if (maxOutboundBandwidth > 0 && marshaller != null) {
+         throttle.register(cacheName, maxOutboundBandwidth);
+         throttled = true;
+      }
       cacheNotifier.addListener(this);
    }
 
+   /**
+    * Blocks until the given chunks can be sent without exceeding the outbound bandwidth, if it is limited.
+    */
+   void throttle(List<StateChunk> chunks) throws InterruptedException {
+      if (throttled) {
+         throttle.acquire(OutboundStateThrottle.estimateSize(chunks, marshaller));
+      }
+   }
+
    @Stop(priority = 20)
    @Override
    public void stop() {
@@ -160,6 +191,10 @@ public void stop() {
       } catch (Throwable t) {
          log.errorf(t, "Failed to stop StateProvider of cache %s on node %s", cacheName, rpcManager.getAddress());
       }
+      if (throttled) {
+         throttled = false;
+         throttle.unregister(cacheName);
+      }
    }
 
    public List<TransactionInfo> getTransactionsForSegments(Address destination, int requestTopologyId, Set<Integer> segments) throws InterruptedException {
@@ -266,16 +301,23 @@ private void collectTransactionsToTransfer(Address destination,
    @Override
    public void startOutboundTransfer(Address destination, int requestTopologyId, Set<Integer> segments)
          throws InterruptedException {
+      startOutboundTransfer(destination, requestTopologyId, segments, null);
+   }
+
+   @Override
+   public void startOutboundTransfer(Address destination, int requestTopologyId, Set<Integer> segments,
+                                     Map<Integer, Map<Long, Long>> digests) throws InterruptedException {
       if (trace) {
-         log.tracef("Starting outbound transfer of segments %s to node %s with topology id %d for cache %s", segments,
-               destination, requestTopologyId, cacheName);
+         log.tracef("Starting %s outbound transfer of segments %s to node %s with topology id %d for cache %s",
+               digests != null ? "incremental" : "full", segments, destination, requestTopologyId, cacheName);
       }
 
       final CacheTopology cacheTopology = getCacheTopology(requestTopologyId, destination, false);
 
       // the destination node must already have an InboundTransferTask waiting for these segments
       OutboundTransferTask outboundTransfer = new OutboundTransferTask(destination, segments, chunkSize, cacheTopology.getTopologyId(),
-            cacheTopology.getReadConsistentHash(), this, dataContainer, persistenceManager, rpcManager, commandsFactory, entryFactory, timeout, cacheName);
+            cacheTopology.getReadConsistentHash(), this, dataContainer, persistenceManager, rpcManager, commandsFactory, entryFactory, timeout, cacheName,
+            digests, entryDigester);
       addTransfer(outboundTransfer);
       outboundTransfer.execute(executorService);
    }
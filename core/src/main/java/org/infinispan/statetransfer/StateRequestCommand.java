@@ -7,6 +7,7 @@
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -33,6 +34,12 @@ public enum Type {
 
    private Set<Integer> segments;
 
+   /**
+    * The digests of the entries the requester already has, by segment and key digest. Only set by incremental state
+    * transfer.
+    */
+   private Map<Integer, Map<Long, Long>> digests;
+
    private StateProvider stateProvider;
 
    private StateRequestCommand() {
@@ -65,7 +72,7 @@ public Object perform(InvocationContext ctx) throws Throwable {
                return stateProvider.getTransactionsForSegments(getOrigin(), topologyId, segments);
 
             case START_STATE_TRANSFER:
-               stateProvider.startOutboundTransfer(getOrigin(), topologyId, segments);
+               stateProvider.startOutboundTransfer(getOrigin(), topologyId, segments, digests);
                // return a non-null value to ensure it will reach back to originator wrapped in a SuccessfulResponse (a null would not be sent back)
                return true;
 
@@ -104,6 +111,14 @@ public Set<Integer> getSegments() {
       return segments;
    }
 
+   public Map<Integer, Map<Long, Long>> getDigests() {
+      return digests;
+   }
+
+   public void setDigests(Map<Integer, Map<Long, Long>> digests) {
+      this.digests = digests;
+   }
+
    @Override
    public byte getCommandId() {
       return COMMAND_ID;
@@ -111,7 +126,7 @@ public byte getCommandId() {
 
    @Override
    public Object[] getParameters() {
-      return new Object[]{(byte) type.ordinal(), getOrigin(), topologyId, segments};
+      return new Object[]{(byte) type.ordinal(), getOrigin(), topologyId, segments, digests};
    }
 
    @Override
@@ -121,7 +136,8 @@ public void setParameters(int commandId, Object[] parameters) {
       type = Type.values()[(Byte) parameters[i++]];
       setOrigin((Address) parameters[i++]);
       topologyId = (Integer) parameters[i++];
-      segments = (Set<Integer>) parameters[i];
+      segments = (Set<Integer>) parameters[i++];
+      digests = (Map<Integer, Map<Long, Long>>) parameters[i];
    }
 
    @Override
@@ -132,6 +148,7 @@ public String toString() {
             ", type=" + type +
             ", topologyId=" + topologyId +
             ", segments=" + segments +
+            ", digests=" + (digests != null ? digests.keySet() : null) +
             '}';
    }
 }
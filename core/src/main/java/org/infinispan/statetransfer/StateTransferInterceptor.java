@@ -13,7 +13,9 @@
 import org.infinispan.context.Flag;
 import org.infinispan.context.InvocationContext;
 import org.infinispan.context.impl.TxInvocationContext;
+import org.infinispan.factories.annotations.ComponentName;
 import org.infinispan.factories.annotations.Inject;
+import org.infinispan.interceptors.InvocationFuture;
 import org.infinispan.interceptors.base.CommandInterceptor;
 import org.infinispan.remoting.RemoteException;
 import org.infinispan.remoting.transport.Address;
@@ -24,8 +26,11 @@
 import org.infinispan.util.logging.LogFactory;
 
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 
+import static org.infinispan.factories.KnownComponentNames.ASYNC_TRANSPORT_EXECUTOR;
+
 //todo [anistor] command forwarding breaks the rule that we have only one originator for a command. this opens now the possibility to have two threads processing incoming remote commands for the same TX
 /**
  * This interceptor has two tasks:
@@ -58,6 +63,8 @@ public class StateTransferInterceptor extends CommandInterceptor {
 
    private CommandsFactory commandFactory;
 
+   private ExecutorService asyncExecutor;
+
    private boolean useVersioning;
    private long transactionDataTimeout;
 
@@ -70,8 +77,10 @@ protected Log getLog() {
 
    @Inject
    public void init(StateTransferLock stateTransferLock, Configuration configuration,
-                    CommandsFactory commandFactory, StateTransferManager stateTransferManager) {
+                    CommandsFactory commandFactory, StateTransferManager stateTransferManager,
+                    @ComponentName(ASYNC_TRANSPORT_EXECUTOR) ExecutorService asyncExecutor) {
       this.stateTransferLock = stateTransferLock;
+      this.asyncExecutor = asyncExecutor;
       this.commandFactory = commandFactory;
       this.stateTransferManager = stateTransferManager;
 
@@ -194,7 +203,7 @@ private Object handleTxCommand(TxInvocationContext ctx, TransactionBoundaryComma
     * new owners like we do for tx commands. But we only retry on the originator, and only if the command doesn't have
     * the {@code CACHE_MODE_LOCAL} flag.
     */
-   private Object handleNonTxWriteCommand(InvocationContext ctx, WriteCommand command) throws Throwable {
+   private Object handleNonTxWriteCommand(final InvocationContext ctx, final WriteCommand command) throws Throwable {
       log.tracef("handleNonTxWriteCommand for command %s", command);
 
       if (isLocalOnly(ctx, command)) {
@@ -208,26 +217,30 @@ private Object handleNonTxWriteCommand(InvocationContext ctx, WriteCommand comma
          return invokeNextInterceptor(ctx, command);
       }
 
-      int commandTopologyId = command.getTopologyId();
+      final int commandTopologyId = command.getTopologyId();
       Object localResult;
       try {
          localResult = invokeNextInterceptor(ctx, command);
-         return localResult;
       } catch (CacheException e) {
-         Throwable ce = e;
-         while (ce instanceof RemoteException) {
-            ce = ce.getCause();
-         }
-         if (!(ce instanceof OutdatedTopologyException))
+         if (!isOutdatedTopology(e))
             throw e;
+         waitForNewTopology(command, commandTopologyId);
+         return handleNonTxWriteCommand(ctx, command);
+      }
 
-         log.tracef("Retrying command because of topology change: %s", command);
-         // We increment the topology id so that updateTopologyIdAndWaitForTransactionData waits for the next topology.
-         // Without this, we could retry the command too fast and we could get the OutdatedTopologyException again.
-         int newTopologyId = Math.max(stateTransferManager.getCacheTopology().getTopologyId(), commandTopologyId + 1);
-         command.setTopologyId(newTopologyId);
-         stateTransferLock.waitForTransactionData(newTopologyId, transactionDataTimeout, TimeUnit.MILLISECONDS);
-         localResult = handleNonTxWriteCommand(ctx, command);
+      if (localResult instanceof InvocationFuture) {
+         // The command is waiting for a remote response, and the retry must wait for the new topology without
+         // blocking the thread delivering that response.
+         return ((InvocationFuture) localResult).then(new InvocationFuture.Continuation() {
+            @Override
+            public Object apply(Object result, Throwable failure) throws Throwable {
+               if (failure == null)
+                  return result;
+               if (!(failure instanceof CacheException) || !isOutdatedTopology((CacheException) failure))
+                  throw failure;
+               return retryAsync(ctx, command, commandTopologyId);
+            }
+         });
       }
 
       // We retry the command every time the topology changes, either in NonTxConcurrentDistributionInterceptor or in
@@ -236,6 +249,40 @@ private Object handleNonTxWriteCommand(InvocationContext ctx, WriteCommand comma
       return localResult;
    }
 
+   private boolean isOutdatedTopology(CacheException e) {
+      Throwable ce = e;
+      while (ce instanceof RemoteException) {
+         ce = ce.getCause();
+      }
+      return ce instanceof OutdatedTopologyException;
+   }
+
+   private void waitForNewTopology(WriteCommand command, int commandTopologyId) throws InterruptedException {
+      log.tracef("Retrying command because of topology change: %s", command);
+      // We increment the topology id so that updateTopologyIdAndWaitForTransactionData waits for the next topology.
+      // Without this, we could retry the command too fast and we could get the OutdatedTopologyException again.
+      int newTopologyId = Math.max(stateTransferManager.getCacheTopology().getTopologyId(), commandTopologyId + 1);
+      command.setTopologyId(newTopologyId);
+      stateTransferLock.waitForTransactionData(newTopologyId, transactionDataTimeout, TimeUnit.MILLISECONDS);
+   }
+
+   private InvocationFuture retryAsync(final InvocationContext ctx, final WriteCommand command,
+                                       final int commandTopologyId) {
+      final InvocationFuture retry = new InvocationFuture();
+      asyncExecutor.execute(new Runnable() {
+         @Override
+         public void run() {
+            try {
+               waitForNewTopology(command, commandTopologyId);
+               retry.completeWith(handleNonTxWriteCommand(ctx, command));
+            } catch (Throwable t) {
+               retry.fail(t);
+            }
+         }
+      });
+      return retry;
+   }
+
    @Override
    protected Object handleDefault(InvocationContext ctx, VisitableCommand command) throws Throwable {
       if (command instanceof TopologyAffectedCommand) {
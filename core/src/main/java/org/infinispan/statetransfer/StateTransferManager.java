@@ -4,7 +4,9 @@
 import org.infinispan.factories.scopes.Scope;
 import org.infinispan.factories.scopes.Scopes;
 import org.infinispan.jmx.annotations.DataType;
+import org.infinispan.jmx.annotations.DisplayType;
 import org.infinispan.jmx.annotations.ManagedAttribute;
+import org.infinispan.jmx.annotations.Units;
 import org.infinispan.remoting.transport.Address;
 import org.infinispan.topology.CacheTopology;
 
@@ -31,6 +33,15 @@ public interface StateTransferManager {
    @ManagedAttribute(description = "Checks whether there is a pending inbound state transfer on this cluster member.", displayName = "Is state transfer in progress?", dataType = DataType.TRAIT)
    boolean isStateTransferInProgress();
 
+   @ManagedAttribute(description = "Number of cache entries received per second during the current or last rebalance", displayName = "Inbound transfer rate", displayType = DisplayType.SUMMARY)
+   double getInboundTransferRate();
+
+   @ManagedAttribute(description = "Number of segments waiting to be requested from other nodes", displayName = "Queued segments", displayType = DisplayType.SUMMARY)
+   int getQueuedSegments();
+
+   @ManagedAttribute(description = "Estimated time until all the pending segments are received, or -1 if no segment was received yet", displayName = "Estimated time to completion", units = Units.MILLISECONDS, displayType = DisplayType.SUMMARY)
+   long getEstimatedTimeToCompletion();
+
    /**
     * Checks if an inbound state transfer is in progress for a given key.
     *
@@ -222,6 +222,21 @@ public boolean isStateTransferInProgress() {
       return stateConsumer.isStateTransferInProgress();
    }
 
+   @Override
+   public double getInboundTransferRate() {
+      return stateConsumer.getInboundTransferRate();
+   }
+
+   @Override
+   public int getQueuedSegments() {
+      return stateConsumer.getQueuedSegments();
+   }
+
+   @Override
+   public long getEstimatedTimeToCompletion() {
+      return stateConsumer.getEstimatedTimeToCompletion();
+   }
+
    @Override
    public boolean isStateTransferInProgressForKey(Object key) {
       return stateConsumer.isStateTransferInProgressForKey(key);
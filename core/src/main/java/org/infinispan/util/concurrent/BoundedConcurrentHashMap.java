@@ -131,6 +131,12 @@
     */
    static final int MAXIMUM_CAPACITY = 1 << 30;
 
+   /**
+    * The initial per-segment table capacity of a map bounded by memory rather
+    * than by number of entries. Such tables grow on demand.
+    */
+   static final int DEFAULT_SEGMENT_CAPACITY = 16;
+
    /**
     * The maximum number of segments to allow; used to bound
     * constructor arguments.
@@ -171,6 +177,8 @@
    private transient final Equivalence<V> valueEquivalence;
    private transient final EvictionListener<K, V> evictionListener;
    private final int evictCap;
+   private transient final EntrySizeCalculator<? super K, ? super V> sizeCalculator;
+   private final long evictMemoryCap;
 
    /* ---------------- Small Utilities -------------- */
 
@@ -220,6 +228,8 @@ final Segment<K,V> segmentFor(int hash) {
       final int hash;
       volatile V value;
       final HashEntry<K, V> next;
+      // estimated memory cost, only maintained by maps bounded by memory; guarded by the segment lock
+      int cost;
 
       HashEntry(K key, int hash, HashEntry<K, V> next, V value) {
          this.key = key;
@@ -270,7 +280,7 @@ public <K, V> EvictionPolicy<K, V> make(Segment<K, V> s, int capacity, float lf)
          @Override
          public <K, V> EvictionPolicy<K, V> make(Segment<K, V> s, int capacity, float lf) {
             boolean isIBMJavaVendor = Util.isIBMJavaVendor();
-            if (isIBMJavaVendor) {
+            if (isIBMJavaVendor && !s.isMemoryBounded()) {
                return new IBMLRU<K, V>(s,capacity,lf,capacity*10,lf);
             } else {
                return new LRU<K, V>(s,capacity,lf,capacity*10,lf);
@@ -298,6 +308,18 @@ public <K, V> EvictionPolicy<K, V> make(Segment<K, V> s, int capacity, float lf)
       void onEntryRemoved(Object key);
    }
 
+   /**
+    * Estimates the memory held by a mapping, used by maps bounded by memory
+    * rather than by number of entries.
+    */
+   public interface EntrySizeCalculator<K, V> {
+
+      /**
+       * @return the estimated size, in bytes, of the given key and value
+       */
+      long calculateSize(K key, V value);
+   }
+
    static final class NullEvictionListener<K, V> implements EvictionListener<K, V> {
       @Override
       public void onEntryEviction(Map<K, V> evicted) {
@@ -449,7 +471,8 @@ public HashEntry<K, V> createNewEntry(K key, int hash, HashEntry<K, V> next, V v
       public LRU(Segment<K,V> s, int capacity, float lf, int maxBatchSize, float batchThresholdFactor) {
          super(capacity, lf, true);
          this.segment = s;
-         this.trimDownSize = capacity;
+         // a segment bounded by memory is trimmed by trimToMemoryCapacity instead
+         this.trimDownSize = s.isMemoryBounded() ? Integer.MAX_VALUE : capacity;
          this.maxBatchQueueSize = maxBatchSize > MAX_BATCH_SIZE ? MAX_BATCH_SIZE : maxBatchSize;
          this.batchQueueSizeThreshold = batchThresholdFactor * this.maxBatchQueueSize;
          this.accessQueue = new ConcurrentLinkedQueue<HashEntry<K, V>>();
@@ -462,6 +485,9 @@ public Set<HashEntry<K, V>> execute() {
          for (HashEntry<K, V> e : accessQueue) {
             put(e, e.value);
          }
+         if (segment.isMemoryBounded()) {
+            trimToMemoryCapacity();
+         }
          evictedCopy.addAll(evicted);
          accessQueue.clear();
          accessQueueSize.set(0);
@@ -525,6 +551,27 @@ protected boolean isAboveThreshold(){
          return size() > trimDownSize;
       }
 
+      /**
+       * Evicts least recently used entries until the segment fits in its memory budget again. The most
+       * recently used entry is always kept, even if it exceeds the budget on its own.
+       * <p>
+       * Victims are unlinked with {@link Segment#evict(Object, int)} rather than removed, so that the other
+       * entries of their buckets keep their place in the LRU order and the victims already collected in
+       * this pass are not drained by {@link #onEntryMiss(HashEntry)}.
+       */
+      private void trimToMemoryCapacity() {
+         while (size() > 1 && segment.exceedsMemoryCapacity()) {
+            HashEntry<K, V> eldest = keySet().iterator().next();
+            remove(eldest);
+            V value = segment.evict(eldest.key, eldest.hash);
+            if (value != null) {
+               // eldest could be a stale copy left behind by a rehash or a removal
+               eldest.value = value;
+               evicted.add(eldest);
+            }
+         }
+      }
+
       @Override
       protected boolean removeEldestEntry(Map.Entry<HashEntry<K,V>,V> eldest){
          boolean aboveThreshold = isAboveThreshold();
@@ -1373,6 +1420,12 @@ public HashEntry<K, V> createNewEntry(K key, int hash, HashEntry<K, V> next, V v
        */
       transient int threshold;
 
+      /**
+       * The estimated memory, in bytes, held by the entries of this
+       * segment. Only maintained when the map is bounded by memory.
+       */
+      transient volatile long memoryUsed;
+
       /**
        * The per-segment table.
        */
@@ -1393,7 +1446,7 @@ public HashEntry<K, V> createNewEntry(K key, int hash, HashEntry<K, V> next, V v
       Segment(int cap, float lf, Eviction es, BoundedConcurrentHashMap map) {
          this.map = map;
          loadFactor = lf;
-         eviction = es.make(this, map.evictCap, lf);
+         eviction = es.make(this, isMemoryBounded() ? cap : map.evictCap, lf);
          setTable(HashEntry.<K, V> newArray(cap));
       }
 
@@ -1406,6 +1459,49 @@ EvictionListener<K, V> getEvictionListener() {
          return map.evictionListener;
       }
 
+      boolean isMemoryBounded() {
+         return map.sizeCalculator != null;
+      }
+
+      boolean exceedsMemoryCapacity() {
+         return exceedsMemoryCapacity(0);
+      }
+
+      private boolean exceedsMemoryCapacity(int additionalCost) {
+         return map.sizeCalculator != null && memoryUsed + additionalCost > map.evictMemoryCap;
+      }
+
+      /**
+       * Returns the estimated cost of a mapping, or 0 if the map is not bounded by memory.
+       */
+      @SuppressWarnings("unchecked")
+      private int costOf(K key, V value) {
+         if (map.sizeCalculator == null) {
+            return 0;
+         }
+         long size = map.sizeCalculator.calculateSize(key, value);
+         return size > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) size;
+      }
+
+      /**
+       * Sets the cost of an entry and accounts for it in the memory used by this segment.
+       * Call only while holding lock.
+       */
+      private void setCost(HashEntry<K, V> e, int cost) {
+         if (map.sizeCalculator != null) {
+            memoryUsed += cost - e.cost;
+            e.cost = cost;
+         }
+      }
+
+      /**
+       * Recomputes the cost of an entry after its value was set.
+       * Call only while holding lock.
+       */
+      private void updateCost(HashEntry<K, V> e) {
+         setCost(e, costOf(e.key, e.value));
+      }
+
       /**
        * Sets table to new HashEntry array.
        * Call only while holding lock or in constructor.
@@ -1516,7 +1612,8 @@ boolean replace(K key, int hash, V oldValue, V newValue) {
             if (e != null && map.valueEquivalence.equals(oldValue, e.value)) {
                replaced = true;
                e.value = newValue;
-               if (eviction.onEntryHit(e)) {
+               updateCost(e);
+               if (eviction.onEntryHit(e) || exceedsMemoryCapacity()) {
                   evicted = attemptEviction(true);
                }
             }
@@ -1540,7 +1637,8 @@ V replace(K key, int hash, V newValue) {
             if (e != null) {
                oldValue = e.value;
                e.value = newValue;
-               if (eviction.onEntryHit(e)) {
+               updateCost(e);
+               if (eviction.onEntryHit(e) || exceedsMemoryCapacity()) {
                   evicted = attemptEviction(true);
                }
             }
@@ -1556,7 +1654,7 @@ V put(K key, int hash, V value, boolean onlyIfAbsent) {
          Set<HashEntry<K, V>> evicted = null;
          try {
             int c = count;
-            if (c++ > threshold && eviction.strategy() == Eviction.NONE) {
+            if (c++ > threshold && (eviction.strategy() == Eviction.NONE || isMemoryBounded())) {
                rehash();
             }
             HashEntry<K, V>[] tab = table;
@@ -1572,14 +1670,20 @@ V put(K key, int hash, V value, boolean onlyIfAbsent) {
                oldValue = e.value;
                if (!onlyIfAbsent) {
                   e.value = value;
+                  updateCost(e);
                   eviction.onEntryHit(e);
+                  if (exceedsMemoryCapacity()) {
+                     evicted = eviction.execute();
+                  }
                }
             } else {
                oldValue = null;
                ++modCount;
                count = c; // write-volatile
                if (eviction.strategy() != Eviction.NONE) {
-                  if (c > map.evictCap) {
+                  int cost = costOf(key, value);
+                  // replay pending accesses first so that the new entry ends up as the most recently used one
+                  if (c > map.evictCap || exceedsMemoryCapacity(cost)) {
                      // remove entries;lower count
                      evicted = eviction.execute();
                      // re-read first
@@ -1587,6 +1691,7 @@ V put(K key, int hash, V value, boolean onlyIfAbsent) {
                   }
                   // add a new entry
                   tab[index] = eviction.createNewEntry(key, hash, first, value);
+                  setCost(tab[index], cost);
                   // notify a miss
                   Set<HashEntry<K, V>> newlyEvicted = eviction.onEntryMiss(tab[index]);
                   if (!newlyEvicted.isEmpty()) {
@@ -1596,6 +1701,14 @@ V put(K key, int hash, V value, boolean onlyIfAbsent) {
                         evicted = newlyEvicted;
                      }
                   }
+                  if (exceedsMemoryCapacity()) {
+                     newlyEvicted = eviction.execute();
+                     if (evicted != null) {
+                        evicted.addAll(newlyEvicted);
+                     } else {
+                        evicted = newlyEvicted;
+                     }
+                  }
                } else {
                   tab[index] = eviction.createNewEntry(key, hash, first, value);
                }
@@ -1665,6 +1778,7 @@ void rehash() {
                      int k = p.hash & sizeMask;
                      HashEntry<K,V> n = newTable[k];
                      newTable[k] = eviction.createNewEntry(p.key, p.hash, n, p.value);
+                     newTable[k].cost = p.cost;
                   }
                }
             }
@@ -1705,6 +1819,9 @@ V remove(Object key, int hash, Object value, boolean isEvict) {
 
                   // e was removed
                   eviction.onEntryRemove(e);
+                  if (isMemoryBounded()) {
+                     memoryUsed -= e.cost;
+                  }
 
                   HashEntry<K, V> newFirst = e.next;
                   for (HashEntry<K, V> p = first; p != e; p = p.next) {
@@ -1712,6 +1829,7 @@ V remove(Object key, int hash, Object value, boolean isEvict) {
                      // allow p to be GC-ed
                      eviction.onEntryRemove(p);
                      newFirst = eviction.createNewEntry(p.key, p.hash, newFirst, p.value);
+                     newFirst.cost = p.cost;
                      // and notify eviction algorithm about new hash entries
                      eviction.onEntryMiss(newFirst);
                   }
@@ -1735,6 +1853,42 @@ V remove(Object key, int hash, Object value, boolean isEvict) {
          }
       }
 
+      /**
+       * Unlinks an entry chosen for eviction by the eviction policy itself. Unlike {@link #remove(Object, int, Object, boolean)},
+       * the entries preceding it in its bucket are cloned without notifying the eviction policy: the clones are equal to
+       * the entries the policy already tracks, so their recency is unchanged. Must be called holding the segment lock.
+       *
+       * @return the value of the evicted entry, or null if the key is not mapped
+       */
+      V evict(Object key, int hash) {
+         HashEntry<K, V>[] tab = table;
+         int index = hash & tab.length - 1;
+         HashEntry<K, V> first = tab[index];
+         HashEntry<K, V> e = first;
+         while (e != null && (e.hash != hash || !map.keyEquivalence.equals(key, e.key))) {
+            e = e.next;
+         }
+         if (e == null) {
+            return null;
+         }
+
+         V value = e.value;
+         // Required to guarantee passivation/activation correctness.
+         map.evictionListener.onEntryChosenForEviction(value);
+         ++modCount;
+         if (isMemoryBounded()) {
+            memoryUsed -= e.cost;
+         }
+         HashEntry<K, V> newFirst = e.next;
+         for (HashEntry<K, V> p = first; p != e; p = p.next) {
+            newFirst = eviction.createNewEntry(p.key, p.hash, newFirst, p.value);
+            newFirst.cost = p.cost;
+         }
+         tab[index] = newFirst;
+         count = count - 1; // write-volatile
+         return value;
+      }
+
       private boolean isEvictionRemoval(boolean isEvict, V oldValue) {
          return isEvict ||
                ((oldValue instanceof CacheEntry) && ((CacheEntry) oldValue).isEvicted());
@@ -1750,6 +1904,7 @@ void clear() {
                }
                ++modCount;
                eviction.clear();
+               memoryUsed = 0;
                count = 0; // write-volatile
             } finally {
                unlock();
@@ -1773,7 +1928,7 @@ private Set<HashEntry<K, V>> attemptEviction(boolean lockedAlready) {
          Set<HashEntry<K, V>> evicted = null;
          if (shouldAttemptEvict) {
             try {
-               if (eviction.thresholdExpired()) {
+               if (eviction.thresholdExpired() || exceedsMemoryCapacity()) {
                   evicted = eviction.execute();
                }
             } finally {
@@ -1878,12 +2033,86 @@ public BoundedConcurrentHashMap(int capacity, int concurrencyLevel,
       }
 
       this.evictCap = c;
+      this.sizeCalculator = null;
+      this.evictMemoryCap = -1;
 
       for (int i = 0; i < this.segments.length; ++i) {
          this.segments[i] = new Segment<K, V>(cap, DEFAULT_LOAD_FACTOR, evictionStrategy, this);
       }
    }
 
+   /**
+    * Creates a new, empty map bounded by the estimated amount of memory held by its entries
+    * rather than by their number. Entries are evicted in LRU order from a segment as soon as the
+    * estimated size of its entries exceeds its share of <tt>maxMemory</tt>.
+    *
+    * @param maxMemory
+    *            is the upper bound, in bytes, of the estimated size of all entries in this map
+    *
+    * @param concurrencyLevel
+    *            the estimated number of concurrently updating threads. The implementation performs
+    *            internal sizing to try to accommodate this many threads.
+    *
+    * @param evictionStrategy
+    *            the algorithm used to evict elements from this map; only {@link Eviction#LRU} is
+    *            supported
+    *
+    * @param evictionListener
+    *            the evicton listener callback to be notified about evicted elements
+    *
+    * @param sizeCalculator
+    *            estimates the size of each entry
+    *
+    * @throws IllegalArgumentException
+    *             if maxMemory or concurrencyLevel are nonpositive, or if the eviction strategy is
+    *             not {@link Eviction#LRU}
+    */
+   public BoundedConcurrentHashMap(long maxMemory, int concurrencyLevel,
+         Eviction evictionStrategy, EvictionListener<K, V> evictionListener,
+         EntrySizeCalculator<? super K, ? super V> sizeCalculator,
+         Equivalence<K> keyEquivalence, Equivalence<V> valueEquivalence) {
+      this.keyEquivalence = keyEquivalence;
+      this.valueEquivalence = valueEquivalence;
+
+      if (maxMemory <= 0 || concurrencyLevel <= 0) {
+         throw new IllegalArgumentException();
+      }
+
+      if (evictionStrategy != Eviction.LRU) {
+         throw new IllegalArgumentException("Memory based eviction is only supported by the LRU eviction strategy");
+      }
+
+      if (evictionListener == null || sizeCalculator == null) {
+         throw new IllegalArgumentException();
+      }
+
+      this.evictionListener = evictionListener;
+      this.sizeCalculator = sizeCalculator;
+
+      if (concurrencyLevel > MAX_SEGMENTS) {
+         concurrencyLevel = MAX_SEGMENTS;
+      }
+
+      // Find power-of-two sizes best matching arguments
+      int sshift = 0;
+      int ssize = 1;
+      while (ssize < concurrencyLevel) {
+         ++sshift;
+         ssize <<= 1;
+      }
+      segmentShift = 32 - sshift;
+      segmentMask = ssize - 1;
+      this.segments = Segment.newArray(ssize);
+
+      // segments grow on demand, the number of entries is only bounded by their size
+      this.evictCap = Integer.MAX_VALUE;
+      this.evictMemoryCap = Math.max(maxMemory / ssize, 1);
+
+      for (int i = 0; i < this.segments.length; ++i) {
+         this.segments[i] = new Segment<K, V>(DEFAULT_SEGMENT_CAPACITY, DEFAULT_LOAD_FACTOR, evictionStrategy, this);
+      }
+   }
+
    /**
     * Creates a new, empty map with the specified maximum capacity, load factor, concurrency
     * level and LRU eviction policy.
@@ -1951,6 +2180,23 @@ public BoundedConcurrentHashMap(Equivalence<K> keyEquivalence, Equivalence<V> va
       this(DEFAULT_MAXIMUM_CAPACITY, DEFAULT_CONCURRENCY_LEVEL, keyEquivalence, valueEquivalence);
    }
 
+   /**
+    * Returns the estimated size, in bytes, of all entries of a map bounded by memory.
+    *
+    * @return the estimated size of all entries, or <tt>-1</tt> if this map is not bounded
+    *         by memory
+    */
+   public long memoryUsed() {
+      if (sizeCalculator == null) {
+         return -1;
+      }
+      long sum = 0;
+      for (Segment<K, V> segment : segments) {
+         sum += segment.memoryUsed;
+      }
+      return sum;
+   }
+
    /**
     * Returns <tt>true</tt> if this map contains no key-value mappings.
     *
@@ -157,8 +157,10 @@ public long getTotalNumberOfDetectedDeadlocks() {
       return localTxStopped.get() + remoteTxStopped.get();
    }
 
+   @Override
    @ManagedOperation(description = "Resets statistics gathered by this component", displayName = "Reset statistics")
    public void resetStatistics() {
+      super.resetStatistics();
       localTxStopped.set(0);
       remoteTxStopped.set(0);
       cannotRunDld.set(0);
@@ -8,6 +8,8 @@
 import org.infinispan.jmx.annotations.DataType;
 import org.infinispan.jmx.annotations.MBean;
 import org.infinispan.jmx.annotations.ManagedAttribute;
+import org.infinispan.jmx.annotations.ManagedOperation;
+import org.infinispan.jmx.annotations.MeasurementType;
 import org.infinispan.marshall.core.MarshalledValue;
 import org.infinispan.util.concurrent.TimeoutException;
 import org.infinispan.util.concurrent.locks.containers.*;
@@ -38,6 +40,7 @@ public class LockManagerImpl implements LockManager {
    private static final Log log = LogFactory.getLog(LockManagerImpl.class);
    protected static final boolean trace = log.isTraceEnabled();
    private static final String ANOTHER_THREAD = "(another thread)";
+   private static final int HOT_SLOTS = 10;
 
    @Inject
    public void injectDependencies(Configuration configuration, LockContainer<?> lockContainer) {
@@ -150,6 +153,35 @@ public int getNumberOfLocksAvailable() {
       return lockContainer.size() - lockContainer.getNumLocksHeld();
    }
 
+   @ManagedAttribute(description = "The number of lock acquisitions that had to wait because the key was already locked. Only available when the lock table is used.", displayName = "Number of contended lock acquisitions", measurementType = MeasurementType.TRENDSUP)
+   public long getNumberOfContendedLockAcquisitions() {
+      LockContainer<?> container = lockContainer;
+      return container instanceof OwnableReentrantLockTableContainer ?
+            ((OwnableReentrantLockTableContainer) container).getContendedAcquisitions() : 0;
+   }
+
+   @ManagedAttribute(description = "The number of lock acquisitions that didn't find a free slot in the lock table and created a new lock. Only available when the lock table is used.", displayName = "Number of lock table overflows", measurementType = MeasurementType.TRENDSUP)
+   public long getNumberOfLockTableOverflows() {
+      LockContainer<?> container = lockContainer;
+      return container instanceof OwnableReentrantLockTableContainer ?
+            ((OwnableReentrantLockTableContainer) container).getOverflowAcquisitions() : 0;
+   }
+
+   @ManagedAttribute(description = "The lock table slots with the most contended acquisitions. Only available when the lock table is used.", displayName = "Hot lock slots")
+   public String getHotLockSlots() {
+      LockContainer<?> container = lockContainer;
+      return container instanceof OwnableReentrantLockTableContainer ?
+            ((OwnableReentrantLockTableContainer) container).getHotSlots(HOT_SLOTS).toString() : "[]";
+   }
+
+   @ManagedOperation(description = "Resets statistics gathered by this component", displayName = "Reset statistics")
+   public void resetStatistics() {
+      LockContainer<?> container = lockContainer;
+      if (container instanceof OwnableReentrantLockTableContainer) {
+         ((OwnableReentrantLockTableContainer) container).resetStatistics();
+      }
+   }
+
    @Override
    public int getLockId(Object key) {
       return lockContainer.getLockId(key);
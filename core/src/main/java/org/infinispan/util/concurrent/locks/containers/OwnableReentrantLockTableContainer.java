@@ -0,0 +1,310 @@
+package org.infinispan.util.concurrent.locks.containers;
+
+import net.jcip.annotations.ThreadSafe;
+import org.infinispan.util.concurrent.locks.OwnableReentrantLock;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+import static org.infinispan.commons.util.Util.toStr;
+
+/**
+ * A LockContainer that holds {@link OwnableReentrantLock}s in a pre-allocated, open-addressed table.
+ * <p/>
+ * A key claims a free slot near the slot its hash code points to while it is locked, and gives it back when the last
+ * owner or waiter releases it. Unlike lock striping, a slot is never shared by two keys, and unlike the per-entry
+ * containers no lock is allocated when a key is locked. Acquiring an uncontended slot only needs a CAS, the slot's
+ * waiter queue is only used when the key is already locked.
+ * <p/>
+ * The bookkeeping of a key's slot (claiming it, counting its references and freeing it) is done while holding the
+ * monitor of the key's home slot, so it is serialized for each key but never while waiting for the lock itself. If all
+ * the slots near the home slot are claimed by other keys, a lock is created just for that key, as in
+ * {@link OwnableReentrantPerEntryLockContainer}.
+ *
+ * @see OwnableReentrantPerEntryLockContainer
+ * @see OwnableReentrantStripedLockContainer
+ * @since 7.0
+ */
+@ThreadSafe
+public class OwnableReentrantLockTableContainer extends AbstractLockContainer<OwnableReentrantLock> {
+
+   private static final Log log = LogFactory.getLog(OwnableReentrantLockTableContainer.class);
+   private static final boolean trace = log.isTraceEnabled();
+
+   private static final int MAX_PROBES = 16;
+
+   private final LockSlot[] slots;
+   private final int mask;
+   private final int maxProbes;
+   private final ConcurrentMap<Object, LockSlot> overflow = new ConcurrentHashMap<Object, LockSlot>();
+   private final AtomicLong overflowAcquisitions = new AtomicLong();
+
+   /**
+    * Creates a new LockContainer with a fixed number of lock slots.
+    *
+    * @param tableSize number of slots to create.  Slots are created in powers of two, with a minimum of tableSize
+    *                  created.
+    */
+   public OwnableReentrantLockTableContainer(int tableSize) {
+      int numSlots = 1;
+      while (numSlots < tableSize) numSlots <<= 1;
+      slots = new LockSlot[numSlots];
+      for (int i = 0; i < numSlots; i++) slots[i] = new LockSlot(i);
+      mask = numSlots - 1;
+      maxProbes = Math.min(MAX_PROBES, numSlots);
+   }
+
+   @Override
+   protected Log getLog() {
+      return log;
+   }
+
+   @Override
+   public OwnableReentrantLock acquireLock(Object lockOwner, Object key, long timeout, TimeUnit unit) throws InterruptedException {
+      int home = homeIndex(key);
+      LockSlot slot = reference(key, home);
+      boolean locked = false;
+      try {
+         // a zero timeout only tries the CAS, it never queues
+         locked = slot.tryLock(lockOwner, 0, TimeUnit.NANOSECONDS);
+         if (!locked) {
+            slot.contentions.incrementAndGet();
+            locked = slot.tryLock(lockOwner, timeout, unit);
+         }
+      } finally {
+         if (!locked) dereference(slot, key, home);
+      }
+      if (!locked) {
+         if (trace) log.tracef("Timed out attempting to acquire lock for key %s", toStr(key));
+         return null;
+      }
+      // only the lock owner updates the counter
+      slot.acquisitions++;
+      return slot;
+   }
+
+   @Override
+   public void releaseLock(Object lockOwner, Object key) {
+      int home = homeIndex(key);
+      LockSlot slot = find(key, home);
+      if (slot == null) return;
+
+      if (trace) log.tracef("Unlocking lock instance for key %s", toStr(key));
+      // if the unlock fails, the exception propagates and we keep our reference
+      unlock(slot, lockOwner);
+      dereference(slot, key, home);
+   }
+
+   @Override
+   public final OwnableReentrantLock getLock(Object key) {
+      return find(key, homeIndex(key));
+   }
+
+   @Override
+   public final boolean ownsLock(Object key, Object owner) {
+      OwnableReentrantLock lock = getLock(key);
+      return lock != null && owner.equals(lock.getOwner());
+   }
+
+   @Override
+   public final boolean isLocked(Object key) {
+      OwnableReentrantLock lock = getLock(key);
+      return lock != null && lock.isLocked();
+   }
+
+   @Override
+   public int getNumLocksHeld() {
+      int i = 0;
+      for (LockSlot slot : slots) if (slot.isLocked()) i++;
+      for (LockSlot slot : overflow.values()) if (slot.isLocked()) i++;
+      return i;
+   }
+
+   @Override
+   public int size() {
+      return slots.length;
+   }
+
+   @Override
+   public int getLockId(Object key) {
+      LockSlot slot = find(key, homeIndex(key));
+      if (slot == null) return -1;
+      return slot.index >= 0 ? slot.index : System.identityHashCode(slot);
+   }
+
+   /**
+    * @return the number of acquisitions that found the key already locked
+    */
+   public long getContendedAcquisitions() {
+      long contentions = 0;
+      for (LockSlot slot : slots) contentions += slot.contentions.get();
+      return contentions;
+   }
+
+   /**
+    * @return the number of acquisitions that didn't find a free slot and had to create a lock
+    */
+   public long getOverflowAcquisitions() {
+      return overflowAcquisitions.get();
+   }
+
+   /**
+    * @param maxSlots maximum number of slots to describe
+    * @return the slots with the most contended acquisitions, and then with the most acquisitions, most used first
+    */
+   public List<String> getHotSlots(int maxSlots) {
+      List<LockSlot> used = new ArrayList<LockSlot>();
+      for (LockSlot slot : slots) {
+         if (slot.acquisitions > 0 || slot.contentions.get() > 0) used.add(slot);
+      }
+      Collections.sort(used, new Comparator<LockSlot>() {
+         @Override
+         public int compare(LockSlot s1, LockSlot s2) {
+            int result = compareLongs(s2.contentions.get(), s1.contentions.get());
+            return result != 0 ? result : compareLongs(s2.acquisitions, s1.acquisitions);
+         }
+      });
+      List<String> hotSlots = new ArrayList<String>(Math.min(maxSlots, used.size()));
+      for (LockSlot slot : used.subList(0, Math.min(maxSlots, used.size()))) {
+         hotSlots.add(slot.describe());
+      }
+      return hotSlots;
+   }
+
+   /**
+    * Resets the acquisition statistics of all the slots.
+    */
+   public void resetStatistics() {
+      for (LockSlot slot : slots) {
+         slot.acquisitions = 0;
+         slot.contentions.set(0);
+      }
+      overflowAcquisitions.set(0);
+   }
+
+   @Override
+   protected boolean tryLock(OwnableReentrantLock lock, long timeout, TimeUnit unit, Object lockOwner) throws InterruptedException {
+      return lock.tryLock(lockOwner, timeout, unit);
+   }
+
+   @Override
+   protected void lock(OwnableReentrantLock lock, Object lockOwner) {
+      lock.lock(lockOwner);
+   }
+
+   @Override
+   protected void unlock(OwnableReentrantLock l, Object owner) {
+      l.unlock(owner);
+   }
+
+   @Override
+   public String toString() {
+      return "OwnableReentrantLockTableContainer{" +
+            "size=" + slots.length +
+            ", locksHeld=" + getNumLocksHeld() +
+            ", overflow=" + overflow +
+            '}';
+   }
+
+   private int homeIndex(Object key) {
+      return AbstractStripedLockContainer.hash(key) & mask;
+   }
+
+   private LockSlot find(Object key, int home) {
+      for (int i = 0; i < maxProbes; i++) {
+         LockSlot slot = slots[(home + i) & mask];
+         Object slotKey = slot.key;
+         if (slotKey != null && slotKey.equals(key)) return slot;
+      }
+      return overflow.get(key);
+   }
+
+   private LockSlot reference(Object key, int home) {
+      synchronized (slots[home]) {
+         LockSlot slot = find(key, home);
+         if (slot != null) {
+            slot.references++;
+            return slot;
+         }
+         for (int i = 0; i < maxProbes; i++) {
+            slot = slots[(home + i) & mask];
+            // slots near our home slot may be claimed concurrently by keys with a different home slot
+            if (slot.key == null && slot.claim(key)) {
+               slot.references = 1;
+               return slot;
+            }
+         }
+         if (trace) log.tracef("No free lock slot for key %s, creating a new lock", toStr(key));
+         overflowAcquisitions.incrementAndGet();
+         slot = new LockSlot(-1);
+         slot.key = key;
+         slot.references = 1;
+         overflow.put(key, slot);
+         return slot;
+      }
+   }
+
+   private void dereference(LockSlot slot, Object key, int home) {
+      synchronized (slots[home]) {
+         int references = --slot.references;
+         if (references < 0) {
+            throw new IllegalStateException("Negative reference count for lock " + key + ": " + slot);
+         }
+         if (references == 0) {
+            if (slot.index < 0) {
+               overflow.remove(key);
+            } else {
+               slot.key = null;
+            }
+         }
+      }
+   }
+
+   private static int compareLongs(long l1, long l2) {
+      return l1 < l2 ? -1 : (l1 == l2 ? 0 : 1);
+   }
+
+   private static final class LockSlot extends OwnableReentrantLock {
+
+      private static final long serialVersionUID = -2592735837536453467L;
+
+      private static final AtomicReferenceFieldUpdater<LockSlot, Object> KEY_UPDATER =
+            AtomicReferenceFieldUpdater.newUpdater(LockSlot.class, Object.class, "key");
+
+      final int index;
+      volatile Object key;
+      // only accessed while holding the monitor of the key's home slot
+      int references;
+      // only updated by the lock owner
+      long acquisitions;
+      final AtomicLong contentions = new AtomicLong();
+
+      LockSlot(int index) {
+         this.index = index;
+      }
+
+      boolean claim(Object key) {
+         return KEY_UPDATER.compareAndSet(this, null, key);
+      }
+
+      String describe() {
+         Object owner = getOwner();
+         return "slot " + index + ": " + acquisitions + " acquisitions, " + contentions.get() + " contended" +
+               (owner == null ? "" : ", locked by " + owner + " for key " + toStr(key));
+      }
+
+      @Override
+      public String toString() {
+         return super.toString() + "[Slot: " + index + ", References: " + references + "]";
+      }
+   }
+}
@@ -1041,4 +1041,8 @@ void asyncStoreShutdownTimeoutTooHigh(long configuredAsyncStopTimeout,
    @Message(value = "%s reported that a third node was suspected, see cause for info on the node that was suspected", id = 281)
    SuspectException thirdPartySuspected(Address sender, @Cause SuspectException e);
 
+   @LogMessage(level = WARN)
+   @Message(value = "Progress listener of distributed task %s failed", id = 282)
+   void distributedTaskProgressListenerFailed(Object task, @Cause Throwable t);
+
 }
@@ -0,0 +1,125 @@
+package org.infinispan.api;
+
+import org.infinispan.commands.CommandsFactory;
+import org.infinispan.commands.read.GetKeyValueCommand;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.context.Flag;
+import org.infinispan.context.InvocationContext;
+import org.infinispan.interceptors.CacheMgmtInterceptor;
+import org.infinispan.interceptors.base.CommandInterceptor;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.notifications.Listener;
+import org.infinispan.notifications.cachelistener.annotation.CacheEntryVisited;
+import org.infinispan.notifications.cachelistener.event.CacheEntryVisitedEvent;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.CleanupAfterMethod;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.testng.annotations.Test;
+
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+
+/**
+ * Tests that a plain get in a non-transactional cache reads local entries without invoking the interceptor chain, and
+ * that it still invokes the chain whenever something needs to observe the read.
+ *
+ * @since 7.0
+ */
+@Test(groups = "functional", testName = "api.FastLocalReadTest")
+@CleanupAfterMethod
+public class FastLocalReadTest extends SingleCacheManagerTest {
+
+   private CommandsFactory commandsFactory;
+
+   @Override
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.jmxStatistics().enable();
+      EmbeddedCacheManager cm = TestCacheManagerFactory.createCacheManager(builder);
+      cache = cm.getCache();
+      // statistics are enabled for testStatistics, but the other tests don't want them
+      statistics().setStatisticsEnabled(false);
+      commandsFactory = spy(TestingUtil.extractComponent(cache, CommandsFactory.class));
+      TestingUtil.replaceComponent(cache, CommandsFactory.class, commandsFactory, true);
+      return cm;
+   }
+
+   public void testLocalHitSkipsInterceptorChain() {
+      cache.put("k", "v");
+      assertEquals("v", cache.get("k"));
+      verify(commandsFactory, never()).buildGetKeyValueCommand(any(), any(EnumSet.class), anyBoolean());
+
+      // misses and flags still go through the chain
+      assertNull(cache.get("missing"));
+      assertEquals("v", cache.getAdvancedCache().withFlags(Flag.SKIP_CACHE_LOAD).get("k"));
+      verify(commandsFactory, times(2)).buildGetKeyValueCommand(any(), any(EnumSet.class), anyBoolean());
+   }
+
+   public void testExpiredEntry() {
+      cache.put("k", "v", 1, TimeUnit.MILLISECONDS);
+      TestingUtil.sleepThread(10);
+      assertNull(cache.get("k"));
+   }
+
+   public void testVisitedListener() {
+      cache.put("k", "v");
+      VisitedListener listener = new VisitedListener();
+      cache.addListener(listener);
+      assertEquals("v", cache.get("k"));
+      assertEquals(2, listener.visits.get());
+
+      cache.removeListener(listener);
+      assertEquals("v", cache.get("k"));
+      assertEquals(2, listener.visits.get());
+   }
+
+   public void testStatistics() {
+      cache.put("k", "v");
+      statistics().setStatisticsEnabled(true);
+      assertEquals("v", cache.get("k"));
+      assertEquals(1, statistics().getHits());
+   }
+
+   public void testInterceptorAddedAfterStart() {
+      cache.put("k", "v");
+      GetCountingInterceptor interceptor = new GetCountingInterceptor();
+      cache.getAdvancedCache().addInterceptor(interceptor, 0);
+      assertEquals("v", cache.get("k"));
+      assertEquals(1, interceptor.gets.get());
+   }
+
+   private CacheMgmtInterceptor statistics() {
+      return TestingUtil.findInterceptor(cache, CacheMgmtInterceptor.class);
+   }
+
+   @Listener
+   public static class VisitedListener {
+      final AtomicInteger visits = new AtomicInteger();
+
+      @CacheEntryVisited
+      public void entryVisited(CacheEntryVisitedEvent event) {
+         visits.incrementAndGet();
+      }
+   }
+
+   static class GetCountingInterceptor extends CommandInterceptor {
+      final AtomicInteger gets = new AtomicInteger();
+
+      @Override
+      public Object visitGetKeyValueCommand(InvocationContext ctx, GetKeyValueCommand command) throws Throwable {
+         gets.incrementAndGet();
+         return invokeNextInterceptor(ctx, command);
+      }
+   }
+}
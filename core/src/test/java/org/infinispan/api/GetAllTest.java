@@ -0,0 +1,76 @@
+package org.infinispan.api;
+
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.interceptors.CacheLoaderInterceptor;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.persistence.dummy.DummyInMemoryStoreConfigurationBuilder;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Tests {@link org.infinispan.AdvancedCache#getAll(java.util.Set)} in a local cache backed by a cache store.
+ *
+ * @since 7.0
+ */
+@Test(groups = "functional", testName = "api.GetAllTest")
+public class GetAllTest extends SingleCacheManagerTest {
+
+   @Override
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      ConfigurationBuilder builder = TestCacheManagerFactory.getDefaultCacheConfiguration(false);
+      builder.jmxStatistics().enable()
+            .persistence().addStore(DummyInMemoryStoreConfigurationBuilder.class)
+            .storeName(getClass().getName());
+      return TestCacheManagerFactory.createCacheManager(builder);
+   }
+
+   public void testGetAll() {
+      Map<Object, Object> expected = new HashMap<Object, Object>();
+      for (int i = 0; i < 10; i++) {
+         cache.put("k" + i, "v" + i);
+         expected.put("k" + i, "v" + i);
+      }
+      Set<Object> keys = new HashSet<Object>(expected.keySet());
+      keys.add("missing");
+      assertEquals(expected, cache.getAdvancedCache().getAll(keys));
+   }
+
+   public void testGetAllLoadsOnlyMisses() {
+      Map<Object, Object> expected = new HashMap<Object, Object>();
+      for (int i = 0; i < 10; i++) {
+         cache.put("l" + i, "v" + i);
+         expected.put("l" + i, "v" + i);
+      }
+      for (int i = 0; i < 4; i++) {
+         cache.evict("l" + i);
+      }
+      CacheLoaderInterceptor loader = TestingUtil.findInterceptor(cache, CacheLoaderInterceptor.class);
+      loader.resetStatistics();
+
+      assertEquals(expected, cache.getAdvancedCache().getAll(expected.keySet()));
+      assertEquals(4, loader.getCacheLoaderLoads());
+      for (int i = 0; i < 4; i++) {
+         assertTrue(cache.getAdvancedCache().getDataContainer().containsKey("l" + i));
+      }
+   }
+
+   public void testGetAllEmpty() {
+      assertTrue(cache.getAdvancedCache().getAll(Collections.emptySet()).isEmpty());
+   }
+
+   @Test(expectedExceptions = NullPointerException.class)
+   public void testGetAllNullKey() {
+      cache.getAdvancedCache().getAll(Collections.singleton(null));
+   }
+}
@@ -11,6 +11,8 @@
 import org.infinispan.test.fwk.TestCacheManagerFactory;
 import org.testng.annotations.Test;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
@@ -74,6 +76,19 @@ public void testPutAsyncWithVersion() throws Exception {
       assertEquals(EQUAL, version.compareTo(entry.getMetadata().version()));
    }
 
+   public void testPutAllWithVersion() {
+      NumericVersion version = new NumericVersion(1);
+      Map<Integer, String> map = new HashMap<Integer, String>();
+      map.put(1001, "v1");
+      map.put(1002, "v2");
+      advCache.putAll(map, withVersion(version));
+      for (Map.Entry<Integer, String> entry : map.entrySet()) {
+         CacheEntry cacheEntry = advCache.getCacheEntry(entry.getKey());
+         assertEquals(entry.getValue(), cacheEntry.getValue());
+         assertEquals(EQUAL, version.compareTo(cacheEntry.getMetadata().version()));
+      }
+   }
+
    public void testGetCustomMetadataForMortalEntries() throws Exception {
       final Integer key = 5;
       Metadata meta = new CustomMetadata(3000, -1);
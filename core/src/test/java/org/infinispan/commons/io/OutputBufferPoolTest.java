@@ -0,0 +1,76 @@
+package org.infinispan.commons.io;
+
+import org.infinispan.commons.marshall.jboss.GenericJBossMarshaller;
+import org.infinispan.test.AbstractInfinispanTest;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNotSame;
+import static org.testng.AssertJUnit.assertSame;
+
+/**
+ * Tests {@link OutputBufferPool}.
+ *
+ * @since 7.0
+ */
+@Test(groups = "unit", testName = "commons.io.OutputBufferPoolTest")
+public class OutputBufferPoolTest extends AbstractInfinispanTest {
+
+   public void testStreamsReused() {
+      ExposedByteArrayOutputStream os = OutputBufferPool.acquire(16);
+      os.write(1);
+      // nested acquisitions get another stream
+      ExposedByteArrayOutputStream nested = OutputBufferPool.acquire(16);
+      assertNotSame(os, nested);
+      OutputBufferPool.release(nested);
+      OutputBufferPool.release(os);
+
+      ExposedByteArrayOutputStream reused = OutputBufferPool.acquire(16);
+      assertSame(os, reused);
+      assertEquals(0, reused.size());
+      OutputBufferPool.release(reused);
+   }
+
+   public void testLargeStreamsNotPooled() {
+      ExposedByteArrayOutputStream os = OutputBufferPool.acquire(OutputBufferPool.MAX_POOLED_SIZE + 1);
+      byte[] bytes = new byte[OutputBufferPool.MAX_POOLED_SIZE + 1];
+      os.write(bytes, 0, bytes.length);
+      ByteBuffer buffer = OutputBufferPool.toByteBuffer(os);
+      // too large to be pooled, so the buffer is shared instead of copied
+      assertSame(os.getRawBuffer(), buffer.getBuf());
+      OutputBufferPool.release(os);
+
+      ExposedByteArrayOutputStream other = OutputBufferPool.acquire(16);
+      assertNotSame(os, other);
+      OutputBufferPool.release(other);
+   }
+
+   public void testByteBufferSurvivesRelease() {
+      ExposedByteArrayOutputStream os = OutputBufferPool.acquire(16);
+      os.write(new byte[]{1, 2, 3}, 0, 3);
+      ByteBuffer buffer = OutputBufferPool.toByteBuffer(os);
+      OutputBufferPool.release(os);
+
+      ExposedByteArrayOutputStream reused = OutputBufferPool.acquire(16);
+      reused.write(new byte[]{4, 5, 6}, 0, 3);
+      OutputBufferPool.release(reused);
+
+      assertEquals(0, buffer.getOffset());
+      assertEquals(3, buffer.getLength());
+      assertEquals(3, buffer.getBuf().length);
+      assertEquals(Arrays.toString(new byte[]{1, 2, 3}), Arrays.toString(buffer.getBuf()));
+   }
+
+   public void testMarshallerBuffersExactlySized() throws Exception {
+      GenericJBossMarshaller marshaller = new GenericJBossMarshaller();
+      for (int i = 0; i < 10; i++) {
+         String value = "value" + i;
+         ByteBuffer buffer = marshaller.objectToBuffer(value);
+         assertEquals(buffer.getLength(), buffer.getBuf().length);
+         assertEquals(value, marshaller.objectFromByteBuffer(buffer.getBuf(), buffer.getOffset(), buffer.getLength()));
+         assertEquals(value, marshaller.objectFromByteBuffer(marshaller.objectToByteBuffer(value)));
+      }
+   }
+}
@@ -21,6 +21,7 @@
 import org.infinispan.configuration.cache.ConfigurationBuilder;
 import org.infinispan.configuration.global.GlobalConfigurationBuilder;
 import org.infinispan.eviction.EvictionStrategy;
+import org.infinispan.eviction.EvictionType;
 import org.infinispan.persistence.dummy.DummyInMemoryStoreConfigurationBuilder;
 import org.infinispan.marshall.TestObjectStreamMarshaller;
 import org.infinispan.test.CacheManagerCallable;
@@ -54,6 +55,37 @@ public void testEvictionMaxEntries() {
       Assert.assertEquals(configuration.eviction().maxEntries(), 20);
    }
 
+   @Test
+   public void testEvictionMaxMemory() {
+      Configuration configuration = new ConfigurationBuilder()
+         .eviction().type(EvictionType.MEMORY).maxMemory(1024)
+         .build();
+      Assert.assertEquals(configuration.eviction().type(), EvictionType.MEMORY);
+      Assert.assertEquals(configuration.eviction().maxMemory(), 1024);
+      Assert.assertEquals(configuration.eviction().strategy(), EvictionStrategy.LRU);
+   }
+
+   @Test(expectedExceptions = CacheConfigurationException.class)
+   public void testEvictionMaxMemoryWithLIRS() {
+      new ConfigurationBuilder()
+         .eviction().type(EvictionType.MEMORY).maxMemory(1024).strategy(EvictionStrategy.LIRS)
+         .build();
+   }
+
+   @Test(expectedExceptions = CacheConfigurationException.class)
+   public void testEvictionMaxMemoryWithUnordered() {
+      new ConfigurationBuilder()
+         .eviction().type(EvictionType.MEMORY).maxMemory(1024).strategy(EvictionStrategy.UNORDERED)
+         .build();
+   }
+
+   @Test(expectedExceptions = CacheConfigurationException.class)
+   public void testEvictionMemoryWithoutMaxMemory() {
+      new ConfigurationBuilder()
+         .eviction().type(EvictionType.MEMORY).strategy(EvictionStrategy.LRU)
+         .build();
+   }
+
    @Test
    public void testDistSyncAutoCommit() {
       Configuration configuration = new ConfigurationBuilder()
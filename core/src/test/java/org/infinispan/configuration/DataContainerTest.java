@@ -5,6 +5,7 @@
 import org.infinispan.container.DataContainer;
 import org.infinispan.container.DefaultDataContainer;
 import org.infinispan.container.InternalEntryFactoryImpl;
+import org.infinispan.container.offheap.OffHeapDataContainer;
 import org.infinispan.manager.EmbeddedCacheManager;
 import org.infinispan.test.TestingUtil;
 import org.infinispan.test.fwk.TestCacheManagerFactory;
@@ -44,6 +45,25 @@ public void testDefault() throws IOException {
       }
    }
 
+   @Test
+   public void testOffHeap() throws IOException {
+      String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>" +
+              "<infinispan>" +
+              "<default><dataContainer offHeap=\"true\" /></default>" +
+              "</infinispan>";
+
+      InputStream stream = new ByteArrayInputStream(xml.getBytes());
+      EmbeddedCacheManager cm = TestCacheManagerFactory.fromStream(stream);
+
+      try {
+         Assert.assertTrue(cm.getDefaultCacheConfiguration().dataContainer().offHeap());
+
+         Assert.assertEquals(cm.getCache().getAdvancedCache().getDataContainer().getClass(), OffHeapDataContainer.class);
+      } finally {
+         TestingUtil.killCacheManagers(cm);
+      }
+   }
+
    @Test
    public void testCustomDataContainerClass() throws IOException {
       String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>" +
@@ -24,6 +24,8 @@
 import org.infinispan.configuration.cache.ClusterLoaderConfiguration;
 import org.infinispan.configuration.cache.Configuration;
 import org.infinispan.configuration.cache.InterceptorConfiguration;
+import org.infinispan.configuration.cache.LogFileStoreConfiguration;
+import org.infinispan.configuration.cache.RemoteReadPolicy;
 import org.infinispan.configuration.cache.SingleFileStoreConfiguration;
 import org.infinispan.configuration.global.GlobalConfiguration;
 import org.infinispan.configuration.global.ShutdownHookBehavior;
@@ -261,6 +263,31 @@ public void call() {
       });
    }
 
+   public void testLogFileStore() throws Exception {
+      String config = INFINISPAN_START_TAG +
+            "   <default>\n" +
+            "      <persistence>\n" +
+            "         <logFile location=\"/tmp/LogFileStore-Location\" maxFileSize=\"4096\" compactionThreshold=\"0.75\"\n" +
+            "                  syncWrites=\"false\" purgeOnStartup=\"true\" />\n" +
+            "      </persistence>\n" +
+            "   </default>\n" +
+            TestingUtil.INFINISPAN_END_TAG;
+      InputStream is = new ByteArrayInputStream(config.getBytes());
+      withCacheManager(new CacheManagerCallable(TestCacheManagerFactory.fromStream(is)) {
+         @Override
+         public void call() {
+            Configuration cfg = cm.getDefaultCacheConfiguration();
+            assertEquals(1, cfg.persistence().stores().size());
+            LogFileStoreConfiguration storeCfg = (LogFileStoreConfiguration) cfg.persistence().stores().get(0);
+            assertEquals("/tmp/LogFileStore-Location", storeCfg.location());
+            assertEquals(4096, storeCfg.maxFileSize());
+            assertEquals(0.75, storeCfg.compactionThreshold(), 0.0);
+            assertFalse(storeCfg.syncWrites());
+            assertTrue(storeCfg.purgeOnStartup());
+         }
+      });
+   }
+
    public void testCompatibility() throws Exception {
       String config = INFINISPAN_START_TAG +
             "   <default>\n" +
@@ -462,6 +489,10 @@ private void assertNamedCacheFile(EmbeddedCacheManager cm, boolean deprecated) {
       assertTrue(!c.clustering().stateTransfer().fetchInMemoryState());
       assertTrue(c.clustering().stateTransfer().awaitInitialTransfer());
       assertEquals(15000, c.clustering().sync().replTimeout());
+      if (!deprecated) {
+         assertEquals(32, c.clustering().sync().writeBatchSize());
+         assertEquals(50, c.clustering().sync().writeBatchWindow());
+      }
 
       c = cm.getCacheConfiguration("asyncRepl");
 
@@ -493,6 +524,7 @@ private void assertNamedCacheFile(EmbeddedCacheManager cm, boolean deprecated) {
       assertEquals(20000, c.locking().lockAcquisitionTimeout());
       assertEquals(1000, c.locking().concurrencyLevel());
       assertEquals(IsolationLevel.REPEATABLE_READ, c.locking().isolationLevel());
+      if (!deprecated) assertEquals(1024, c.locking().lockTableSize());
       assertTrue(!c.storeAsBinary().enabled());
 
       c = cm.getCacheConfiguration("storeAsBinary");
@@ -541,6 +573,7 @@ private void assertNamedCacheFile(EmbeddedCacheManager cm, boolean deprecated) {
       assertEquals(null, c.clustering().hash().consistentHash()); // this is just an override.
       assertEquals(3, c.clustering().hash().numOwners());
       assertTrue(c.clustering().l1().enabled());
+      if (!deprecated) assertTrue(c.dataContainer().segmented());
 
       c = cm.getCacheConfiguration("dist_with_capacity_factors");
       assertEquals(CacheMode.DIST_SYNC, c.clustering().cacheMode());
@@ -551,7 +584,10 @@ private void assertNamedCacheFile(EmbeddedCacheManager cm, boolean deprecated) {
       assertEquals(3, c.clustering().hash().numOwners());
       assertTrue(c.clustering().l1().enabled());
       assertEquals(0.0f, c.clustering().hash().capacityFactor());
-      if (!deprecated) assertEquals(1000, c.clustering().hash().numSegments());
+      if (!deprecated) {
+         assertEquals(1000, c.clustering().hash().numSegments());
+         assertEquals(RemoteReadPolicy.STAGGERED, c.clustering().hash().remoteReadPolicy());
+      }
 
       c = cm.getCacheConfiguration("groups");
       assertTrue(c.clustering().hash().groups().enabled());
@@ -562,6 +598,11 @@ private void assertNamedCacheFile(EmbeddedCacheManager cm, boolean deprecated) {
       assertTrue(c.clustering().stateTransfer().fetchInMemoryState());
       assertEquals(120000, c.clustering().stateTransfer().timeout());
       assertEquals(1000, c.clustering().stateTransfer().chunkSize());
+      if (!deprecated) {
+         assertTrue(c.clustering().stateTransfer().incrementalRejoin());
+         assertEquals(10485760, c.clustering().stateTransfer().maxOutboundBandwidth());
+         assertEquals(4, c.clustering().stateTransfer().maxConcurrentSegments());
+      }
 
       c = cm.getCacheConfiguration("cacheWithCustomInterceptors");
       assertTrue(!c.customInterceptors().interceptors().isEmpty());
@@ -0,0 +1,162 @@
+package org.infinispan.container;
+
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.container.offheap.OffHeapDataContainer;
+import org.infinispan.eviction.ActivationManager;
+import org.infinispan.eviction.EvictionManager;
+import org.infinispan.eviction.PassivationManager;
+import org.infinispan.marshall.TestObjectStreamMarshaller;
+import org.infinispan.metadata.EmbeddedMetadata;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+import static org.testng.AssertJUnit.fail;
+
+@Test(groups = "unit", testName = "container.OffHeapDataContainerTest")
+public class OffHeapDataContainerTest extends SimpleDataContainerTest {
+
+   @Override
+   protected DataContainer createContainer() {
+      return createContainer(-1);
+   }
+
+   private OffHeapDataContainer createContainer(int maxEntries) {
+      OffHeapDataContainer dc = new OffHeapDataContainer(16, maxEntries);
+      InternalEntryFactoryImpl internalEntryFactory = new InternalEntryFactoryImpl();
+      internalEntryFactory.injectTimeService(TIME_SERVICE);
+      dc.initialize(new TestObjectStreamMarshaller(), internalEntryFactory, mock(EvictionManager.class),
+            mock(PassivationManager.class), mock(ActivationManager.class), TIME_SERVICE);
+      return dc;
+   }
+
+   @AfterMethod
+   @Override
+   public void tearDown() {
+      ((OffHeapDataContainer) dc).stop();
+      super.tearDown();
+   }
+
+   /**
+    * Entries returned by an off-heap container are transient copies, so the last used timestamp is checked on fresh
+    * reads rather than on a previously returned instance.
+    */
+   @Override
+   public void testUpdatingLastUsed() throws Exception {
+      long idle = 600000;
+      dc.put("k", "v", new EmbeddedMetadata.Builder().maxIdle(idle, TimeUnit.MILLISECONDS).build());
+      long oldTime = System.currentTimeMillis();
+      Thread.sleep(100); // for time calc granularity
+      InternalCacheEntry ice = dc.get("k");
+      assertEquals(transienttype(), ice.getClass());
+      assertTrue(ice.getLastUsed() > oldTime);
+      assertEquals(idle, ice.getMaxIdle());
+
+      oldTime = System.currentTimeMillis();
+      Thread.sleep(100); // for time calc granularity
+      assertNotNull(dc.get("k"));
+      assertTrue(dc.peek("k").getLastUsed() > oldTime);
+   }
+
+   public void testRemoveAndClearReleaseMemory() {
+      OffHeapDataContainer offHeap = (OffHeapDataContainer) dc;
+      for (int i = 0; i < 100; i++)
+         dc.put(i, "value" + i, new EmbeddedMetadata.Builder().build());
+      assertEquals(100, dc.size());
+      assertTrue(offHeap.getAllocatedBytes() > 0);
+
+      assertEquals("value7", dc.remove(7).getValue());
+      assertNull(dc.get(7));
+      assertEquals(99, dc.size());
+
+      dc.clear();
+      assertEquals(0, dc.size());
+      assertEquals(0, offHeap.getAllocatedBytes());
+   }
+
+   public void testIndexResize() {
+      int numEntries = 5000;
+      for (int i = 0; i < numEntries; i++)
+         dc.put("k" + i, i, new EmbeddedMetadata.Builder().build());
+      assertEquals(numEntries, dc.size());
+      for (int i = 0; i < numEntries; i++)
+         assertEquals(i, dc.get("k" + i).getValue());
+
+      int count = 0;
+      for (InternalCacheEntry ignored : dc) count++;
+      assertEquals(numEntries, count);
+   }
+
+   public void testBoundedContainerEvicts() {
+      OffHeapDataContainer bounded = createContainer(64);
+      try {
+         for (int i = 0; i < 1000; i++)
+            bounded.put(i, "value" + i, new EmbeddedMetadata.Builder().build());
+         assertTrue("Too many entries: " + bounded.size(), bounded.size() <= 64);
+         // the most recently written entry is never the eviction victim
+         assertEquals("value999", bounded.get(999).getValue());
+      } finally {
+         bounded.stop();
+      }
+   }
+
+   public void testSmallBoundedContainer() {
+      OffHeapDataContainer bounded = createContainer(10);
+      try {
+         // with one entry per stripe, two of these keys would have been enough to evict one of them
+         for (int i = 0; i < 10; i++)
+            bounded.put(i, "value" + i, new EmbeddedMetadata.Builder().build());
+         assertEquals(10, bounded.size());
+         for (int i = 0; i < 10; i++)
+            assertEquals("value" + i, bounded.get(i).getValue());
+
+         for (int i = 10; i < 100; i++) {
+            bounded.put(i, "value" + i, new EmbeddedMetadata.Builder().build());
+            assertEquals(10, bounded.size());
+         }
+      } finally {
+         bounded.stop();
+      }
+   }
+
+   public void testBoundNotExceededWithManyStripes() {
+      // not a multiple of the number of stripes
+      OffHeapDataContainer bounded = createContainer(1001);
+      try {
+         for (int i = 0; i < 5000; i++) {
+            bounded.put(i, "value" + i, new EmbeddedMetadata.Builder().build());
+            assertTrue("Too many entries: " + bounded.size(), bounded.size() <= 1001);
+         }
+      } finally {
+         bounded.stop();
+      }
+   }
+
+   public void testOperationsFailAfterStop() {
+      OffHeapDataContainer stopped = createContainer(64);
+      stopped.put("k", "v", new EmbeddedMetadata.Builder().build());
+      stopped.stop();
+      try {
+         stopped.put("k2", "v2", new EmbeddedMetadata.Builder().build());
+         fail("A write to a stopped container should fail");
+      } catch (IllegalStateException expected) {
+      }
+      try {
+         stopped.get("k");
+         fail("A read from a stopped container should fail");
+      } catch (IllegalStateException expected) {
+      }
+      assertEquals(0, stopped.getAllocatedBytes());
+
+      stopped.start();
+      stopped.put("k", "v", new EmbeddedMetadata.Builder().build());
+      assertEquals("v", stopped.get("k").getValue());
+      stopped.stop();
+   }
+}
@@ -0,0 +1,194 @@
+package org.infinispan.container;
+
+import org.infinispan.commons.equivalence.AnyEquivalence;
+import org.infinispan.commons.hash.MurmurHash3;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.distribution.TestAddress;
+import org.infinispan.distribution.ch.ConsistentHash;
+import org.infinispan.distribution.ch.ReplicatedConsistentHash;
+import org.infinispan.metadata.EmbeddedMetadata;
+import org.infinispan.remoting.transport.Address;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+@Test(groups = "unit", testName = "container.SegmentedDataContainerTest")
+public class SegmentedDataContainerTest extends SimpleDataContainerTest {
+
+   private static final int NUM_SEGMENTS = 8;
+   private static final int NUM_KEYS = 100;
+
+   @Override
+   protected DataContainer createContainer() {
+      SegmentedDataContainer dc = createSegmentedContainer();
+      dc.setConsistentHash(consistentHash(NUM_SEGMENTS));
+      return dc;
+   }
+
+   private SegmentedDataContainer createSegmentedContainer() {
+      SegmentedDataContainer dc = new SegmentedDataContainer(16, AnyEquivalence.getInstance(), AnyEquivalence.getInstance());
+      InternalEntryFactoryImpl internalEntryFactory = new InternalEntryFactoryImpl();
+      internalEntryFactory.injectTimeService(TIME_SERVICE);
+      dc.initialize(null, null, internalEntryFactory, null, null, TIME_SERVICE);
+      return dc;
+   }
+
+   private ConsistentHash consistentHash(int numSegments) {
+      return new ReplicatedConsistentHash(new MurmurHash3(), Collections.<Address>singletonList(new TestAddress(0)),
+                                          new int[numSegments]);
+   }
+
+   public void testSegmentIterator() {
+      SegmentedDataContainer sdc = (SegmentedDataContainer) dc;
+      ConsistentHash ch = consistentHash(NUM_SEGMENTS);
+      for (int i = 0; i < NUM_KEYS; i++) {
+         sdc.put("k" + i, "v" + i, new EmbeddedMetadata.Builder().build());
+      }
+
+      int total = 0;
+      for (int segment = 0; segment < NUM_SEGMENTS; segment++) {
+         int count = 0;
+         for (Iterator<InternalCacheEntry> it = sdc.iterator(Collections.singleton(segment)); it.hasNext(); ) {
+            assertEquals(segment, ch.getSegment(it.next().getKey()));
+            count++;
+         }
+         assertEquals(count, sdc.segmentSize(segment));
+         total += count;
+      }
+      assertEquals(NUM_KEYS, total);
+      assertEquals(NUM_KEYS, sdc.size());
+      assertEquals(NUM_SEGMENTS, sdc.getNumSegments());
+   }
+
+   public void testEntriesMovedWhenSegmentsKnown() {
+      SegmentedDataContainer sdc = createSegmentedContainer();
+      for (int i = 0; i < NUM_KEYS; i++) {
+         sdc.put("k" + i, "v" + i, new EmbeddedMetadata.Builder().build());
+      }
+      assertEquals(-1, sdc.getNumSegments());
+      assertEquals(0, sdc.segmentSize(0));
+      assertEquals(NUM_KEYS, sdc.size());
+
+      sdc.setConsistentHash(consistentHash(NUM_SEGMENTS));
+      assertSegmentsMatch(sdc, consistentHash(NUM_SEGMENTS));
+
+      // a different number of segments moves the entries again
+      sdc.setConsistentHash(consistentHash(3));
+      assertSegmentsMatch(sdc, consistentHash(3));
+   }
+
+   public void testRemove() {
+      SegmentedDataContainer sdc = (SegmentedDataContainer) dc;
+      sdc.put("k", "v", new EmbeddedMetadata.Builder().build());
+      int segment = consistentHash(NUM_SEGMENTS).getSegment("k");
+      assertEquals(1, sdc.segmentSize(segment));
+      assertEquals("{" + segment + "=1}", sdc.getSegmentSizes());
+
+      assertEquals("v", sdc.remove("k").getValue());
+      assertNull(sdc.peek("k"));
+      assertEquals(0, sdc.segmentSize(segment));
+      assertEquals("{}", sdc.getSegmentSizes());
+   }
+
+   public void testReadsAndWritesWhileEntriesAreMoved() throws Exception {
+      final SegmentedDataContainer sdc = (SegmentedDataContainer) dc;
+      for (int i = 0; i < NUM_KEYS; i++) {
+         sdc.put("k" + i, "v" + i, new EmbeddedMetadata.Builder().build());
+      }
+
+      // a consistent hash that blocks the thread moving the entries before it moves the first one
+      final ConsistentHash realCh = consistentHash(3);
+      final CountDownLatch moving = new CountDownLatch(1);
+      final CountDownLatch proceed = new CountDownLatch(1);
+      final Thread testThread = Thread.currentThread();
+      final ConsistentHash ch = mock(ConsistentHash.class);
+      when(ch.getNumSegments()).thenReturn(realCh.getNumSegments());
+      when(ch.getSegment(any())).thenAnswer(new Answer<Integer>() {
+         @Override
+         public Integer answer(InvocationOnMock invocation) throws Throwable {
+            if (Thread.currentThread() != testThread && moving.getCount() > 0) {
+               moving.countDown();
+               assertTrue(proceed.await(10, TimeUnit.SECONDS));
+            }
+            return realCh.getSegment(invocation.getArguments()[0]);
+         }
+      });
+      Future<Void> mover = fork(new Callable<Void>() {
+         @Override
+         public Void call() throws Exception {
+            sdc.setConsistentHash(ch);
+            return null;
+         }
+      });
+      assertTrue(moving.await(10, TimeUnit.SECONDS));
+
+      // the entries that are not moved yet are still found
+      assertEquals(NUM_KEYS, sdc.size());
+      for (int i = 0; i < NUM_KEYS; i++) {
+         String key = "k" + i;
+         assertEquals("v" + i, sdc.get(key).getValue());
+         assertEquals("v" + i, sdc.peek(key).getValue());
+         assertTrue(sdc.containsKey(key));
+      }
+      sdc.put("k0", "new", new EmbeddedMetadata.Builder().build());
+      assertEquals("new", sdc.get("k0").getValue());
+      assertEquals("v1", sdc.remove("k1").getValue());
+      assertFalse(sdc.containsKey("k1"));
+
+      proceed.countDown();
+      mover.get(10, TimeUnit.SECONDS);
+
+      // the moved entries don't overwrite or bring back the entries written in the meantime
+      assertEquals(realCh.getNumSegments(), sdc.getNumSegments());
+      assertEquals("new", sdc.get("k0").getValue());
+      assertNull(sdc.get("k1"));
+      assertEquals(NUM_KEYS - 1, sdc.size());
+      int total = 0;
+      for (int segment = 0; segment < realCh.getNumSegments(); segment++) {
+         total += sdc.segmentSize(segment);
+      }
+      assertEquals(NUM_KEYS - 1, total);
+      for (int i = 2; i < NUM_KEYS; i++) {
+         assertEquals("v" + i, sdc.get("k" + i).getValue());
+      }
+   }
+
+   private void assertSegmentsMatch(SegmentedDataContainer sdc, ConsistentHash ch) {
+      assertEquals(ch.getNumSegments(), sdc.getNumSegments());
+      assertEquals(NUM_KEYS, sdc.size());
+      Set<Integer> allSegments = new HashSet<Integer>();
+      int total = 0;
+      for (int segment = 0; segment < ch.getNumSegments(); segment++) {
+         allSegments.add(segment);
+         total += sdc.segmentSize(segment);
+      }
+      assertEquals(NUM_KEYS, total);
+      for (int i = 0; i < NUM_KEYS; i++) {
+         String key = "k" + i;
+         assertEquals("v" + i, sdc.get(key).getValue());
+         assertTrue(sdc.containsKey(key));
+      }
+      int iterated = 0;
+      for (Iterator<InternalCacheEntry> it = sdc.iterator(allSegments); it.hasNext(); it.next()) {
+         iterated++;
+      }
+      assertEquals(NUM_KEYS, iterated);
+   }
+}
@@ -0,0 +1,141 @@
+package org.infinispan.distexec;
+
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.distribution.ch.ConsistentHash;
+import org.infinispan.remoting.transport.Address;
+import org.infinispan.test.MultipleCacheManagersTest;
+import org.testng.annotations.Test;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Tests key based executions of DistributedExecutorService tasks with work stealing enabled.
+ *
+ * @since 7.0
+ */
+@Test(groups = "functional", testName = "distexec.DistributedExecutorWorkStealingTest")
+public class DistributedExecutorWorkStealingTest extends MultipleCacheManagersTest {
+
+   private static final int NUM_KEYS = 100;
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      ConfigurationBuilder builder = getDefaultClusteredCacheConfig(CacheMode.DIST_SYNC, false);
+      builder.clustering().hash().numOwners(2).numSegments(20);
+      createCluster(builder, 3);
+      waitForClusterToForm();
+   }
+
+   public void testEveryKeyExecutedOnce() throws Exception {
+      String[] keys = populate();
+      DistributedExecutorService des = new DefaultExecutorService(cache(0));
+      try {
+         DistributedTask<List<String>> task = des.createDistributedTaskBuilder(new KeysCallable(null))
+               .workStealing(true).build();
+         List<Future<List<String>>> futures = des.submitEverywhere(task, keys);
+
+         ConsistentHash ch = advancedCache(0).getDistributionManager().getReadConsistentHash();
+         Set<Integer> segments = new HashSet<Integer>();
+         for (String key : keys) {
+            segments.add(ch.getSegment(key));
+         }
+         assertEquals(segments.size(), futures.size());
+         assertKeysExecutedOnce(keys, futures);
+      } finally {
+         des.shutdownNow();
+      }
+   }
+
+   public void testIdleNodesStealFromSlowNode() throws Exception {
+      String[] keys = populate();
+      Address slowNode = address(1);
+      final Map<Address, Integer> stolenUnits = new ConcurrentHashMap<Address, Integer>();
+      final Map<Address, Integer> completedUnits = new ConcurrentHashMap<Address, Integer>();
+      DistributedExecutorService des = new DefaultExecutorService(cache(0));
+      try {
+         DistributedTask<List<String>> task = des.createDistributedTaskBuilder(new KeysCallable(slowNode.toString()))
+               .workStealing(true).progressListener(new DistributedTaskProgressListener() {
+                  @Override
+                  public void unitCompleted(Address node, int completed, int stolen, int remaining) {
+                     completedUnits.put(node, completed);
+                     stolenUnits.put(node, stolen);
+                  }
+               }).build();
+         List<Future<List<String>>> futures = des.submitEverywhere(task, keys);
+         assertKeysExecutedOnce(keys, futures);
+
+         int completed = 0;
+         for (int c : completedUnits.values()) {
+            completed += c;
+         }
+         assertEquals(futures.size(), completed);
+         Integer stolenBySlowNode = stolenUnits.get(slowNode);
+         assertTrue(stolenBySlowNode == null || stolenBySlowNode == 0);
+         int stolen = 0;
+         for (int s : stolenUnits.values()) {
+            stolen += s;
+         }
+         assertTrue("No units were stolen from the slow node: " + stolenUnits, stolen > 0);
+      } finally {
+         des.shutdownNow();
+      }
+   }
+
+   private String[] populate() {
+      String[] keys = new String[NUM_KEYS];
+      for (int i = 0; i < NUM_KEYS; i++) {
+         keys[i] = "k" + i;
+         cache(i % caches().size()).put(keys[i], "v" + i);
+      }
+      return keys;
+   }
+
+   private void assertKeysExecutedOnce(String[] keys, List<Future<List<String>>> futures) throws Exception {
+      Set<String> executed = new HashSet<String>();
+      for (Future<List<String>> f : futures) {
+         for (String key : f.get()) {
+            assertTrue("Key executed twice: " + key, executed.add(key));
+         }
+      }
+      assertEquals(keys.length, executed.size());
+   }
+
+   static class KeysCallable implements DistributedCallable<String, String, List<String>>, Serializable {
+
+      /** The serialVersionUID */
+      private static final long serialVersionUID = -3517384416357226284L;
+      private final String slowNode;
+      private transient Cache<String, String> cache;
+      private transient Set<String> keys;
+
+      KeysCallable(String slowNode) {
+         this.slowNode = slowNode;
+      }
+
+      @Override
+      public void setEnvironment(Cache<String, String> cache, Set<String> inputKeys) {
+         this.cache = cache;
+         this.keys = inputKeys;
+      }
+
+      @Override
+      public List<String> call() throws Exception {
+         if (cache.getCacheManager().getAddress().toString().equals(slowNode)) {
+            Thread.sleep(300);
+         }
+         return new ArrayList<String>(keys);
+      }
+   }
+}
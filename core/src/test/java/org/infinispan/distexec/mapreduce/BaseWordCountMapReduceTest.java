@@ -3,6 +3,7 @@
 import org.infinispan.Cache;
 import org.infinispan.commons.CacheException;
 import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.manager.EmbeddedCacheManager;
 import org.infinispan.test.MultipleCacheManagersTest;
 import org.testng.AssertJUnit;
 import org.testng.annotations.Test;
@@ -288,6 +289,36 @@ public Integer collate(Map<String, Integer> reducedResults) {
      assertWordCount(totalWords, 13); 
    }
 
+   public void testInvokeMapReduceOnAllKeysWithResultsCollector() throws Exception {
+      MapReduceTask<String,String,String,Integer> task = invokeMapReduce(null);
+      final Map<String, Integer> results = new HashMap<String, Integer>();
+      task.execute(new Collector<String, Integer>() {
+         @Override
+         public void emit(String key, Integer value) {
+            assertTrue("Key " + key + " was reduced twice", !results.containsKey(key));
+            results.put(key, value);
+         }
+      });
+      verifyResults(results);
+      assertEquals(invokeMapReduce(null).execute(), results);
+   }
+
+   public void testInvokeMapReduceOnAllKeysWithResultsCache() throws Exception {
+      String resultsCacheName = "mapreduceresults";
+      for (EmbeddedCacheManager cm : getCacheManagers()) {
+         cm.defineConfiguration(resultsCacheName, cm.getCache(cacheName()).getCacheConfiguration());
+         cm.getCache(resultsCacheName);
+      }
+      MapReduceTask<String,String,String,Integer> task = invokeMapReduce(null);
+      task.execute(resultsCacheName);
+
+      Map<String, Integer> expected = invokeMapReduce(null).execute();
+      Cache<String, Integer> resultsCache = cache(0, resultsCacheName);
+      for (Entry<String, Integer> e : expected.entrySet()) {
+         assertEquals(e.getValue(), resultsCache.get(e.getKey()));
+      }
+   }
+
    @Test(expectedExceptions = CacheException.class)
    public void testCombinerForDistributedReductionWithException() throws Exception {
       MapReduceTask<String, String, String, Integer> task = invokeMapReduce(null);
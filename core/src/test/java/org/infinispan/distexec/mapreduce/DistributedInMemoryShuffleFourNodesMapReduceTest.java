@@ -0,0 +1,76 @@
+package org.infinispan.distexec.mapreduce;
+
+import org.infinispan.Cache;
+import org.infinispan.commands.CommandsFactory;
+import org.infinispan.commands.read.ShuffleCommand;
+import org.infinispan.commons.CacheException;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.test.TestingUtil;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * DistributedInMemoryShuffleFourNodesMapReduceTest tests Map/Reduce functionality using four Infinispan nodes,
+ * distributed reduce and in-memory shuffle of the intermediate key/values, with a buffer small enough
+ * to spill them to disk
+ *
+ * @since 7.0
+ */
+@Test(groups = "functional", testName = "distexec.mapreduce.DistributedInMemoryShuffleFourNodesMapReduceTest")
+public class DistributedInMemoryShuffleFourNodesMapReduceTest extends BaseWordCountMapReduceTest {
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      ConfigurationBuilder builder = getDefaultClusteredCacheConfig(getCacheMode(), true);
+      builder.clustering().stateTransfer().chunkSize(2);
+      createClusteredCaches(4, cacheName(), builder);
+   }
+
+   @SuppressWarnings({ "rawtypes", "unchecked" })
+   protected MapReduceTask<String, String, String, Integer> createMapReduceTask(Cache c){
+      //run distributed reduce with in-memory shuffle
+      return new MapReduceTask<String, String, String, Integer>(c, true, false).inMemoryShuffle(3);
+   }
+
+   public void testNoIntermediateCacheOrBuffersLeft() throws Exception {
+      MapReduceTask<String,String,String,Integer> task = invokeMapReduce(null, false);
+      Map<String, Integer> mapReduce = task.execute();
+      verifyResults(mapReduce);
+      assertEquals(counts.size(), mapReduce.size());
+
+      for (int i = 0; i < nodeCount(); i++) {
+         assertFalse(manager(i).cacheExists(task.taskId.toString()));
+         assertFalse(manager(i).cacheExists(MapReduceTask.DEFAULT_TMP_CACHE_CONFIGURATION_NAME));
+         MapReduceManager mapReduceManager = TestingUtil.extractComponent(cache(i, cacheName()), MapReduceManager.class);
+         Map<?, ?> shuffleBuffers = (Map<?, ?>) TestingUtil.extractField(mapReduceManager, "shuffleBuffers");
+         assertTrue(shuffleBuffers.isEmpty());
+      }
+   }
+
+   public void testLateShuffleIsRejected() throws Exception {
+      MapReduceTask<String,String,String,Integer> task = invokeMapReduce(null, false);
+      verifyResults(task.execute());
+
+      for (int i = 0; i < nodeCount(); i++) {
+         Cache<?, ?> cache = cache(i, cacheName());
+         CommandsFactory commandsFactory = TestingUtil.extractComponent(cache, CommandsFactory.class);
+         MapReduceManager mapReduceManager = TestingUtil.extractComponent(cache, MapReduceManager.class);
+         Map<String, List<Integer>> values = Collections.singletonMap("late", Collections.singletonList(1));
+         ShuffleCommand<String, Integer> shuffle = commandsFactory.buildShuffleCommand(task.taskId.toString(), values, 3);
+         try {
+            mapReduceManager.shuffle(shuffle);
+            throw new AssertionError("A shuffle for a finished task was accepted");
+         } catch (CacheException expected) {
+         }
+         Map<?, ?> shuffleBuffers = (Map<?, ?>) TestingUtil.extractField(mapReduceManager, "shuffleBuffers");
+         assertTrue(shuffleBuffers.isEmpty());
+      }
+   }
+}
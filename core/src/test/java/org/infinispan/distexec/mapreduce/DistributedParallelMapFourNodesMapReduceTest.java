@@ -0,0 +1,20 @@
+package org.infinispan.distexec.mapreduce;
+
+import org.infinispan.Cache;
+import org.testng.annotations.Test;
+
+/**
+ * DistributedParallelMapFourNodesMapReduceTest tests Map/Reduce functionality using four Infinispan nodes,
+ * distributed reduce and a map phase executed by several threads on each node
+ *
+ * @since 7.0
+ */
+@Test(groups = "functional", testName = "distexec.mapreduce.DistributedParallelMapFourNodesMapReduceTest")
+public class DistributedParallelMapFourNodesMapReduceTest extends DistributedFourNodesMapReduceTest {
+
+   @SuppressWarnings({ "rawtypes", "unchecked" })
+   protected MapReduceTask<String, String, String, Integer> createMapReduceTask(Cache c){
+      //run distributed reduce with per task cache and 4 map threads per node
+      return new MapReduceTask<String, String, String, Integer>(c, true, false).mapParallelism(4);
+   }
+}
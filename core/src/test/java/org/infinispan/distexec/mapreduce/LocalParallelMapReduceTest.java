@@ -0,0 +1,19 @@
+package org.infinispan.distexec.mapreduce;
+
+import org.infinispan.Cache;
+import org.testng.annotations.Test;
+
+/**
+ * LocalParallelMapReduceTest tests Map/Reduce functionality on a local cache with a map phase executed by
+ * several threads
+ *
+ * @since 7.0
+ */
+@Test(groups = "functional", testName = "distexec.mapreduce.LocalParallelMapReduceTest")
+public class LocalParallelMapReduceTest extends LocalMapReduceTest {
+
+   @SuppressWarnings({ "rawtypes", "unchecked" })
+   protected MapReduceTask<String, String, String, Integer> createMapReduceTask(Cache c){
+      return new MapReduceTask<String, String, String, Integer>(c).mapParallelism(4);
+   }
+}
@@ -0,0 +1,81 @@
+package org.infinispan.distribution;
+
+import org.infinispan.Cache;
+import org.infinispan.remoting.transport.Address;
+import org.infinispan.util.CountingRpcManager;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+/**
+ * Tests {@link org.infinispan.AdvancedCache#getAll(java.util.Set)} in a distributed cache.
+ *
+ * @since 7.0
+ */
+@Test(groups = "functional", testName = "distribution.DistGetAllTest")
+public class DistGetAllTest extends BaseDistFunctionalTest<Object, String> {
+
+   public DistGetAllTest() {
+      sync = true;
+      tx = false;
+      l1CacheEnabled = false;
+   }
+
+   public void testGetAll() {
+      Map<Object, String> expected = new HashMap<Object, String>();
+      for (int i = 0; i < 50; i++) {
+         expected.put("k" + i, "v" + i);
+         c1.put("k" + i, "v" + i);
+      }
+      Set<Object> keys = new HashSet<Object>(expected.keySet());
+      keys.add("missing");
+
+      for (Cache<Object, String> c : caches) {
+         assertEquals(expected, c.getAdvancedCache().getAll(keys));
+      }
+   }
+
+   public void testSingleRemoteGetPerOwner() {
+      Map<Object, String> expected = new HashMap<Object, String>();
+      for (int i = 0; expected.size() < 30; i++) {
+         String key = "remote" + i;
+         if (!isOwner(c1, key)) {
+            c2.put(key, "v" + i);
+            expected.put(key, "v" + i);
+         }
+      }
+      Set<Object> keys = new HashSet<Object>(expected.keySet());
+      keys.add("missing");
+      Set<Address> primaryOwners = new HashSet<Address>();
+      for (Object key : keys) {
+         if (!isOwner(c1, key))
+            primaryOwners.add(getConsistentHash(c1).locatePrimaryOwner(key));
+      }
+
+      CountingRpcManager rpcManager = CountingRpcManager.replaceRpcManager(c1);
+      rpcManager.resetStats();
+      assertEquals(expected, c1.getAdvancedCache().getAll(keys));
+      assertEquals(0, rpcManager.clusterGet);
+      assertEquals(primaryOwners.size(), rpcManager.clusterGetAll);
+   }
+
+   public void testGetAllAfterRemove() {
+      c1.put("k", "v");
+      c1.put("removed", "v");
+      c1.remove("removed");
+      Set<Object> keys = new HashSet<Object>();
+      keys.add("k");
+      keys.add("removed");
+
+      Map<Object, String> expected = new HashMap<Object, String>();
+      expected.put("k", "v");
+      for (Cache<Object, String> c : caches) {
+         assertEquals(expected, c.getAdvancedCache().getAll(keys));
+      }
+   }
+}
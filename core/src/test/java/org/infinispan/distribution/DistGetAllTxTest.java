@@ -0,0 +1,11 @@
+package org.infinispan.distribution;
+
+import org.testng.annotations.Test;
+
+@Test(groups = "functional", testName = "distribution.DistGetAllTxTest")
+public class DistGetAllTxTest extends DistGetAllTest {
+
+   public DistGetAllTxTest() {
+      tx = true;
+   }
+}
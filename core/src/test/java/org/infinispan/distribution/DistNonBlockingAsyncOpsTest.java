@@ -0,0 +1,90 @@
+package org.infinispan.distribution;
+
+import org.infinispan.commands.write.PutKeyValueCommand;
+import org.infinispan.context.InvocationContext;
+import org.infinispan.interceptors.base.CommandInterceptor;
+import org.infinispan.interceptors.distribution.NonTxDistributionInterceptor;
+import org.infinispan.util.concurrent.NotifyingFuture;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests the asynchronous methods of a non-transactional distributed cache when the interceptor chain is invoked in
+ * asynchronous mode, i.e. when the remote responses complete the futures instead of a thread waiting for them.
+ *
+ * @since 7.0
+ */
+@Test(groups = "functional", testName = "distribution.DistNonBlockingAsyncOpsTest")
+public class DistNonBlockingAsyncOpsTest extends BaseDistFunctionalTest<Object, String> {
+
+   public DistNonBlockingAsyncOpsTest() {
+      INIT_CLUSTER_SIZE = 3;
+      numOwners = 1;
+      sync = true;
+      tx = false;
+      l1CacheEnabled = false;
+   }
+
+   public void testPutAndGetFromNonOwner() throws Exception {
+      MagicKey key = new MagicKey(c2);
+
+      NotifyingFuture<String> f = c1.putAsync(key, "v1");
+      assertNull(f.get(10, TimeUnit.SECONDS));
+      assertEquals(c2.get(key), "v1");
+
+      f = c1.putAsync(key, "v2");
+      assertEquals(f.get(10, TimeUnit.SECONDS), "v1");
+
+      assertEquals(c1.getAsync(key).get(10, TimeUnit.SECONDS), "v2");
+      assertEquals(c3.getAsync(key).get(10, TimeUnit.SECONDS), "v2");
+      assertNull(c1.getAsync(new MagicKey(c2)).get(10, TimeUnit.SECONDS));
+   }
+
+   public void testPutCompletesWhenPrimaryOwnerReplies() throws Exception {
+      MagicKey key = new MagicKey(c3);
+      CyclicBarrier barrier = new CyclicBarrier(2);
+      c3.getAdvancedCache().addInterceptorBefore(new BlockingInterceptor(barrier, PutKeyValueCommand.class, false),
+                                                 NonTxDistributionInterceptor.class);
+      try {
+         NotifyingFuture<String> f = c1.putAsync(key, "v1");
+         // the put has reached the primary owner
+         barrier.await(10, TimeUnit.SECONDS);
+         assertFalse(f.isDone());
+         // let the primary owner continue
+         barrier.await(10, TimeUnit.SECONDS);
+         assertNull(f.get(10, TimeUnit.SECONDS));
+         assertEquals(c1.get(key), "v1");
+      } finally {
+         c3.getAdvancedCache().removeInterceptor(BlockingInterceptor.class);
+      }
+   }
+
+   public void testFailureOnPrimaryOwner() throws Exception {
+      MagicKey key = new MagicKey(c2);
+      c2.getAdvancedCache().addInterceptorBefore(new FailingInterceptor(), NonTxDistributionInterceptor.class);
+      try {
+         c1.putAsync(key, "v1").get(10, TimeUnit.SECONDS);
+         fail("The put should have failed on the primary owner");
+      } catch (ExecutionException e) {
+         // expected
+      } finally {
+         c2.getAdvancedCache().removeInterceptor(FailingInterceptor.class);
+      }
+      assertNull(c2.get(key));
+   }
+
+   static class FailingInterceptor extends CommandInterceptor {
+      @Override
+      public Object visitPutKeyValueCommand(InvocationContext ctx, PutKeyValueCommand command) {
+         throw new IllegalStateException("Induced failure");
+      }
+   }
+}
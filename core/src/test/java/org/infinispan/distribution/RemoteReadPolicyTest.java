@@ -0,0 +1,166 @@
+package org.infinispan.distribution;
+
+import org.infinispan.Cache;
+import org.infinispan.commands.read.GetKeyValueCommand;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.configuration.cache.RemoteReadPolicy;
+import org.infinispan.context.InvocationContext;
+import org.infinispan.interceptors.base.CommandInterceptor;
+import org.infinispan.remoting.transport.Address;
+import org.infinispan.test.MultipleCacheManagersTest;
+import org.infinispan.test.TestingUtil;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Tests the owners asked by remote gets with each {@link RemoteReadPolicy}.
+ *
+ * @since 7.0
+ */
+@Test(groups = "functional", testName = "distribution.RemoteReadPolicyTest")
+public class RemoteReadPolicyTest extends MultipleCacheManagersTest {
+
+   private static final int NUM_GETS = 20;
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      createCluster(new ConfigurationBuilder(), 3);
+      for (RemoteReadPolicy policy : RemoteReadPolicy.values()) {
+         ConfigurationBuilder builder = getDefaultClusteredCacheConfig(CacheMode.DIST_SYNC, false);
+         builder.clustering().hash().numOwners(2).remoteReadPolicy(policy)
+               .l1().disable();
+         defineConfigurationOnAllManagers(policy.name(), builder);
+      }
+      for (RemoteReadPolicy policy : RemoteReadPolicy.values()) {
+         waitForClusterToForm(policy.name());
+      }
+   }
+
+   public void testAllOwners() {
+      Owners owners = read(RemoteReadPolicy.ALL_OWNERS, 0);
+      // the get doesn't wait for the second response, so its request may not have been received yet
+      assertTrue(owners.primaryGets() + owners.backupGets() > NUM_GETS);
+   }
+
+   public void testPrimaryOwner() {
+      Owners owners = read(RemoteReadPolicy.PRIMARY_OWNER, 0);
+      assertEquals(NUM_GETS, owners.primaryGets());
+      assertEquals(0, owners.backupGets());
+   }
+
+   public void testRandomOwner() {
+      Owners owners = read(RemoteReadPolicy.RANDOM_OWNER, 0);
+      assertEquals(NUM_GETS, owners.primaryGets() + owners.backupGets());
+   }
+
+   public void testLeastLoadedOwner() {
+      // the primary owner is much slower, so it's only asked until its response time is known
+      Owners owners = read(RemoteReadPolicy.LEAST_LOADED_OWNER, 50);
+      assertEquals(NUM_GETS, owners.primaryGets() + owners.backupGets());
+      assertTrue("Primary owner asked " + owners.primaryGets() + " times", owners.primaryGets() <= 2);
+   }
+
+   public void testStaggered() {
+      String name = RemoteReadPolicy.STAGGERED.name();
+      Owners owners = new Owners(name, "k");
+      cache(owners.primary, name).put("k", "v");
+      owners.primaryCounter.delay = 2000;
+      try {
+         long start = System.nanoTime();
+         assertEquals("v", cache(owners.nonOwner, name).get("k"));
+         // the backup owner is asked once the primary owner hasn't answered for a while
+         assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1500);
+         assertEquals(1, owners.backupGets());
+      } finally {
+         owners.primaryCounter.delay = 0;
+      }
+   }
+
+   public void testMissingKey() {
+      String name = RemoteReadPolicy.PRIMARY_OWNER.name();
+      Owners owners = new Owners(name, "missing");
+      for (int i = 0; i < NUM_GETS; i++) {
+         assertNull(cache(owners.nonOwner, name).get("missing"));
+      }
+      // a valid response from the primary owner is enough, the backup owner isn't asked
+      assertEquals(NUM_GETS, owners.primaryGets());
+      assertEquals(0, owners.backupGets());
+   }
+
+   private Owners read(RemoteReadPolicy policy, long primaryDelay) {
+      String name = policy.name();
+      Owners owners = new Owners(name, "k");
+      cache(owners.primary, name).put("k", "v");
+      owners.primaryCounter.delay = primaryDelay;
+      try {
+         for (int i = 0; i < NUM_GETS; i++) {
+            assertEquals("v", cache(owners.nonOwner, name).get("k"));
+         }
+      } finally {
+         owners.primaryCounter.delay = 0;
+      }
+      return owners;
+   }
+
+   private class Owners {
+      final int primary;
+      final int nonOwner;
+      final RemoteGetCountingInterceptor primaryCounter;
+      final RemoteGetCountingInterceptor backupCounter;
+
+      Owners(String cacheName, Object key) {
+         List<Address> owners = advancedCache(0, cacheName).getDistributionManager().locate(key);
+         int primary = -1, backup = -1, nonOwner = -1;
+         for (int i = 0; i < 3; i++) {
+            Address address = address(i);
+            if (address.equals(owners.get(0))) primary = i;
+            else if (address.equals(owners.get(1))) backup = i;
+            else nonOwner = i;
+         }
+         this.primary = primary;
+         this.nonOwner = nonOwner;
+         primaryCounter = addCounter(cache(primary, cacheName));
+         backupCounter = addCounter(cache(backup, cacheName));
+      }
+
+      int primaryGets() {
+         return primaryCounter.remoteGets.get();
+      }
+
+      int backupGets() {
+         return backupCounter.remoteGets.get();
+      }
+
+      private RemoteGetCountingInterceptor addCounter(Cache<?, ?> cache) {
+         RemoteGetCountingInterceptor counter = TestingUtil.findInterceptor(cache, RemoteGetCountingInterceptor.class);
+         if (counter == null) {
+            counter = new RemoteGetCountingInterceptor();
+            cache.getAdvancedCache().addInterceptor(counter, 0);
+         }
+         counter.remoteGets.set(0);
+         return counter;
+      }
+   }
+
+   static class RemoteGetCountingInterceptor extends CommandInterceptor {
+      final AtomicInteger remoteGets = new AtomicInteger();
+      volatile long delay;
+
+      @Override
+      public Object visitGetKeyValueCommand(InvocationContext ctx, GetKeyValueCommand command) throws Throwable {
+         if (!ctx.isOriginLocal()) {
+            remoteGets.incrementAndGet();
+            if (delay > 0) Thread.sleep(delay);
+         }
+         return invokeNextInterceptor(ctx, command);
+      }
+   }
+}
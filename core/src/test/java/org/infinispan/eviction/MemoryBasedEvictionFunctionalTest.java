@@ -0,0 +1,66 @@
+package org.infinispan.eviction;
+
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.container.DefaultDataContainer;
+import org.infinispan.interceptors.CacheMgmtInterceptor;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.testng.annotations.Test;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+@Test(groups = "functional", testName = "eviction.MemoryBasedEvictionFunctionalTest")
+public class MemoryBasedEvictionFunctionalTest extends SingleCacheManagerTest {
+
+   private static final long MAX_MEMORY = 64 * 1024;
+
+   public MemoryBasedEvictionFunctionalTest() {
+      cleanup = CleanupPhase.AFTER_METHOD;
+   }
+
+   @Override
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      ConfigurationBuilder builder = TestCacheManagerFactory.getDefaultCacheConfiguration(false);
+      builder.eviction().type(EvictionType.MEMORY).maxMemory(MAX_MEMORY).strategy(EvictionStrategy.LRU)
+            .jmxStatistics().enable();
+      EmbeddedCacheManager cm = TestCacheManagerFactory.createCacheManager(builder);
+      cache = cm.getCache();
+      return cm;
+   }
+
+   public void testEvictionByMemory() {
+      DefaultDataContainer dc = (DefaultDataContainer) cache.getAdvancedCache().getDataContainer();
+      assertEquals(0, dc.getMemoryUsed());
+
+      for (int i = 0; i < 256; i++) {
+         cache.put("key-" + i, new byte[1024]);
+         assertTrue("memory used too big: " + dc.getMemoryUsed(), dc.getMemoryUsed() <= MAX_MEMORY);
+      }
+      assertTrue("cache size too big: " + cache.size(), cache.size() < 64);
+      // the most recently written entry is always kept
+      assertNotNull(cache.get("key-255"));
+      assertNull(cache.get("key-0"));
+   }
+
+   public void testMemoryUsedTracksEntries() {
+      DefaultDataContainer dc = (DefaultDataContainer) cache.getAdvancedCache().getDataContainer();
+      cache.put("k", new byte[104]);
+      long small = dc.getMemoryUsed();
+      cache.put("k", new byte[1000]);
+      assertEquals(small + 896, dc.getMemoryUsed());
+      cache.remove("k");
+      assertEquals(0, dc.getMemoryUsed());
+   }
+
+   public void testMemoryUsedStatistic() {
+      CacheMgmtInterceptor stats = TestingUtil.findInterceptor(cache, CacheMgmtInterceptor.class);
+      cache.put("k", new byte[100]);
+      assertEquals(((DefaultDataContainer) cache.getAdvancedCache().getDataContainer()).getMemoryUsed(),
+            stats.getMemoryUsed());
+   }
+}
@@ -0,0 +1,58 @@
+package org.infinispan.eviction;
+
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.container.offheap.OffHeapDataContainer;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+@Test(groups = "functional", testName = "eviction.OffHeapEvictionFunctionalTest")
+public class OffHeapEvictionFunctionalTest extends SingleCacheManagerTest {
+
+   private static final int CACHE_SIZE = 128;
+
+   public OffHeapEvictionFunctionalTest() {
+      cleanup = CleanupPhase.AFTER_METHOD;
+   }
+
+   @Override
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      ConfigurationBuilder builder = TestCacheManagerFactory.getDefaultCacheConfiguration(false);
+      builder.dataContainer().offHeap(true)
+            .eviction().maxEntries(CACHE_SIZE).strategy(EvictionStrategy.LRU)
+            .expiration().wakeUpInterval(100L);
+      EmbeddedCacheManager cm = TestCacheManagerFactory.createCacheManager(builder);
+      cache = cm.getCache();
+      return cm;
+   }
+
+   public void testOffHeapContainerInUse() {
+      assertTrue(cache.getAdvancedCache().getDataContainer() instanceof OffHeapDataContainer);
+      cache.put("k", "v");
+      assertEquals("v", cache.get("k"));
+      assertEquals("v", cache.remove("k"));
+      assertNull(cache.get("k"));
+   }
+
+   public void testSimpleEvictionMaxEntries() {
+      for (int i = 0; i < CACHE_SIZE * 2; i++) {
+         cache.put("key-" + (i + 1), "value-" + (i + 1), 1, TimeUnit.MINUTES);
+      }
+      assertTrue("cache size too big: " + cache.size(), CACHE_SIZE >= cache.size());
+   }
+
+   public void testSimpleExpiration() throws Exception {
+      for (int i = 0; i < CACHE_SIZE; i++) {
+         cache.put("key-" + (i + 1), "value-" + (i + 1), 1, TimeUnit.MILLISECONDS);
+      }
+      Thread.sleep(1000); // sleep long enough to allow the thread to wake-up and purge all expired entries
+      assertEquals(0, cache.getAdvancedCache().getDataContainer().size());
+   }
+}
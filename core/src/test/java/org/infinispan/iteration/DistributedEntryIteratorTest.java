@@ -0,0 +1,175 @@
+package org.infinispan.iteration;
+
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.metadata.Metadata;
+import org.infinispan.remoting.transport.Address;
+import org.infinispan.test.MultipleCacheManagersTest;
+import org.infinispan.test.TestingUtil;
+import org.testng.annotations.Test;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNull;
+
+/**
+ * Tests iterating over the entries of a distributed cache, including while nodes join and leave.
+ *
+ * @since 7.0
+ */
+@Test(groups = "functional", testName = "iteration.DistributedEntryIteratorTest")
+public class DistributedEntryIteratorTest extends MultipleCacheManagersTest {
+
+   private static final int NUM_KEYS = 200;
+   private static final int BATCH_SIZE = 7;
+
+   protected ConfigurationBuilder builder;
+
+   public DistributedEntryIteratorTest() {
+      cleanup = CleanupPhase.AFTER_METHOD;
+   }
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      builder = getDefaultClusteredCacheConfig(CacheMode.DIST_SYNC, false);
+      builder.clustering().hash().numOwners(2).numSegments(20);
+      createCluster(builder, 3);
+      waitForClusterToForm();
+   }
+
+   public void testIterateOverAllEntries() {
+      Map<String, String> expected = populate();
+      for (Cache<String, String> cache : this.<String, String>caches()) {
+         assertEquals(expected, iterate(cache.getAdvancedCache().entryIterator(null, BATCH_SIZE)));
+      }
+      assertNoIterationsLeft();
+   }
+
+   public void testFilterAndConverter() {
+      populate();
+      Map<String, Integer> expected = new HashMap<String, Integer>();
+      for (int i = 0; i < NUM_KEYS; i += 2) {
+         expected.put("k" + i, ("v" + i).length());
+      }
+      Cache<String, String> cache = cache(0);
+      EntryIterator<String, Integer> it = cache.getAdvancedCache().entryIterator(new EvenKeyFilter(),
+                                                                                 new ValueLengthConverter(), BATCH_SIZE);
+      assertEquals(expected, iterate(it));
+      assertNoIterationsLeft();
+   }
+
+   public void testClose() {
+      populate();
+      Cache<String, String> cache = cache(0);
+      EntryIterator<String, String> it = cache.getAdvancedCache().entryIterator(null, BATCH_SIZE);
+      // read past the local entries, so the iteration is in progress on another node
+      for (int i = 0; i < NUM_KEYS / 2; i++) {
+         it.next();
+      }
+      it.close();
+      assertFalse(it.hasNext());
+      assertNoIterationsLeft();
+   }
+
+   public void testOwnerLeavesDuringIteration() {
+      Map<String, String> expected = populate();
+      Cache<String, String> cache = cache(0);
+      EntryIterator<String, String> it = cache.getAdvancedCache().entryIterator(null, BATCH_SIZE);
+      Map<String, String> entries = new HashMap<String, String>();
+      for (int i = 0; i < NUM_KEYS / 2; i++) {
+         Map.Entry<String, String> e = it.next();
+         assertNull("Entry returned twice: " + e, entries.put(e.getKey(), e.getValue()));
+      }
+
+      Address owner = (Address) TestingUtil.extractField(it, "owner");
+      for (int i = 1; i < caches().size(); i++) {
+         if (address(i).equals(owner)) {
+            killMember(i);
+            break;
+         }
+      }
+
+      while (it.hasNext()) {
+         Map.Entry<String, String> e = it.next();
+         assertNull("Entry returned twice: " + e, entries.put(e.getKey(), e.getValue()));
+      }
+      assertEquals(expected, entries);
+      assertNoIterationsLeft();
+   }
+
+   public void testNodeJoinsDuringIteration() {
+      Map<String, String> expected = populate();
+      Cache<String, String> cache = cache(0);
+      EntryIterator<String, String> it = cache.getAdvancedCache().entryIterator(null, BATCH_SIZE);
+      Map<String, String> entries = new HashMap<String, String>();
+      for (int i = 0; i < BATCH_SIZE; i++) {
+         Map.Entry<String, String> e = it.next();
+         entries.put(e.getKey(), e.getValue());
+      }
+
+      // the owners lose some of their segments to the joiner
+      addClusterEnabledCacheManager(builder);
+      waitForClusterToForm();
+
+      while (it.hasNext()) {
+         Map.Entry<String, String> e = it.next();
+         assertNull("Entry returned twice: " + e, entries.put(e.getKey(), e.getValue()));
+      }
+      assertEquals(expected, entries);
+      assertNoIterationsLeft();
+   }
+
+   private Map<String, String> populate() {
+      Map<String, String> expected = new HashMap<String, String>();
+      for (int i = 0; i < NUM_KEYS; i++) {
+         cache(i % caches().size()).put("k" + i, "v" + i);
+         expected.put("k" + i, "v" + i);
+      }
+      return expected;
+   }
+
+   private <K, C> Map<K, C> iterate(EntryIterator<K, C> it) {
+      Map<K, C> entries = new HashMap<K, C>();
+      while (it.hasNext()) {
+         Map.Entry<K, C> e = it.next();
+         assertNull("Entry returned twice: " + e, entries.put(e.getKey(), e.getValue()));
+      }
+      return entries;
+   }
+
+   private void assertNoIterationsLeft() {
+      // the cancel command is asynchronous
+      eventually(new Condition() {
+         @Override
+         public boolean isSatisfied() throws Exception {
+            for (Cache<Object, Object> cache : caches()) {
+               EntryRetriever entryRetriever = TestingUtil.extractComponent(cache, EntryRetriever.class);
+               Map<?, ?> iterations = (Map<?, ?>) TestingUtil.extractField(entryRetriever, "iterations");
+               if (!iterations.isEmpty()) {
+                  return false;
+               }
+            }
+            return true;
+         }
+      });
+   }
+
+   static class EvenKeyFilter implements KeyValueFilter<String, String>, Serializable {
+      @Override
+      public boolean accept(String key, String value, Metadata metadata) {
+         return Integer.parseInt(key.substring(1)) % 2 == 0;
+      }
+   }
+
+   static class ValueLengthConverter implements Converter<String, String, Integer>, Serializable {
+      @Override
+      public Integer convert(String key, String value, Metadata metadata) {
+         return value.length();
+      }
+   }
+}
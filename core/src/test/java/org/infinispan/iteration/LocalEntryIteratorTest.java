@@ -0,0 +1,83 @@
+package org.infinispan.iteration;
+
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.persistence.dummy.DummyInMemoryStoreConfigurationBuilder;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNull;
+
+/**
+ * Tests iterating over the entries of a local cache, with some of the entries passivated to a store.
+ *
+ * @since 7.0
+ */
+@Test(groups = "functional", testName = "iteration.LocalEntryIteratorTest")
+public class LocalEntryIteratorTest extends SingleCacheManagerTest {
+
+   private static final int NUM_KEYS = 50;
+
+   @Override
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      ConfigurationBuilder builder = getDefaultStandaloneCacheConfig(false);
+      builder.persistence().passivation(true)
+            .addStore(DummyInMemoryStoreConfigurationBuilder.class).storeName(getClass().getName());
+      return TestCacheManagerFactory.createCacheManager(builder);
+   }
+
+   public void testIterateOverMemoryAndStore() {
+      Map<String, String> expected = populate();
+      Cache<String, String> cache = cache();
+      assertEquals(expected, iterate(cache.getAdvancedCache().entryIterator(null, 3)));
+   }
+
+   public void testFilterAndConverter() {
+      populate();
+      Map<String, Integer> expected = new HashMap<String, Integer>();
+      for (int i = 0; i < NUM_KEYS; i += 2) {
+         expected.put("k" + i, ("v" + i).length());
+      }
+      Cache<String, String> cache = cache();
+      EntryIterator<String, Integer> it = cache.getAdvancedCache().entryIterator(
+            new DistributedEntryIteratorTest.EvenKeyFilter(), new DistributedEntryIteratorTest.ValueLengthConverter(), 4);
+      assertEquals(expected, iterate(it));
+   }
+
+   public void testClose() {
+      populate();
+      EntryIterator<Object, Object> it = cache.getAdvancedCache().entryIterator(null, 5);
+      it.next();
+      it.close();
+      assertFalse(it.hasNext());
+   }
+
+   private Map<String, String> populate() {
+      Map<String, String> expected = new HashMap<String, String>();
+      for (int i = 0; i < NUM_KEYS; i++) {
+         cache.put("k" + i, "v" + i);
+         expected.put("k" + i, "v" + i);
+      }
+      // passivate every third entry
+      for (int i = 0; i < NUM_KEYS; i += 3) {
+         cache.evict("k" + i);
+      }
+      return expected;
+   }
+
+   private <K, C> Map<K, C> iterate(EntryIterator<K, C> it) {
+      Map<K, C> entries = new HashMap<K, C>();
+      while (it.hasNext()) {
+         Map.Entry<K, C> e = it.next();
+         assertNull("Entry returned twice: " + e, entries.put(e.getKey(), e.getValue()));
+      }
+      return entries;
+   }
+}
@@ -0,0 +1,24 @@
+package org.infinispan.iteration;
+
+import org.infinispan.configuration.cache.CacheMode;
+import org.testng.annotations.Test;
+
+/**
+ * Tests iterating over the entries of a distributed cache with a segmented data container, which is iterated over
+ * one segment at a time.
+ *
+ * @since 7.0
+ */
+@Test(groups = "functional", testName = "iteration.SegmentedDistributedEntryIteratorTest")
+public class SegmentedDistributedEntryIteratorTest extends DistributedEntryIteratorTest {
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      builder = getDefaultClusteredCacheConfig(CacheMode.DIST_SYNC, false);
+      builder.clustering().hash().numOwners(2).numSegments(20)
+            .l1().disable()
+            .dataContainer().segmented(true);
+      createCluster(builder, 3);
+      waitForClusterToForm();
+   }
+}
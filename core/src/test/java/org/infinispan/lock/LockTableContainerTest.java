@@ -0,0 +1,130 @@
+package org.infinispan.lock;
+
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.test.AbstractInfinispanTest;
+import org.infinispan.test.CacheManagerCallable;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.infinispan.util.concurrent.locks.LockManagerImpl;
+import org.infinispan.util.concurrent.locks.OwnableReentrantLock;
+import org.infinispan.util.concurrent.locks.containers.LockContainer;
+import org.infinispan.util.concurrent.locks.containers.OwnableReentrantLockTableContainer;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.infinispan.test.TestingUtil.withCacheManager;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNotSame;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertSame;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Tests {@link OwnableReentrantLockTableContainer}.
+ *
+ * @since 7.0
+ */
+@Test(groups = "unit", testName = "lock.LockTableContainerTest")
+public class LockTableContainerTest extends AbstractInfinispanTest {
+
+   public void testSlotFreedOnRelease() throws Exception {
+      OwnableReentrantLockTableContainer lc = new OwnableReentrantLockTableContainer(16);
+      Object owner = new Object();
+      OwnableReentrantLock lock = lc.acquireLock(owner, "k", 0, TimeUnit.MILLISECONDS);
+      assertNotNull(lock);
+      assertTrue(lc.isLocked("k"));
+      assertTrue(lc.ownsLock("k", owner));
+      assertEquals(1, lc.getNumLocksHeld());
+
+      // reentrant acquisitions use the same slot
+      assertSame(lock, lc.acquireLock(owner, "k", 0, TimeUnit.MILLISECONDS));
+      lc.releaseLock(owner, "k");
+      assertTrue(lc.isLocked("k"));
+
+      lc.releaseLock(owner, "k");
+      assertFalse(lc.isLocked("k"));
+      assertNull(lc.getLock("k"));
+      assertEquals(-1, lc.getLockId("k"));
+      assertEquals(0, lc.getNumLocksHeld());
+      assertEquals(16, lc.size());
+   }
+
+   public void testKeysNeverShareSlots() throws Exception {
+      // a single slot, so every key has the same home slot
+      OwnableReentrantLockTableContainer lc = new OwnableReentrantLockTableContainer(1);
+      Object owner1 = new Object();
+      Object owner2 = new Object();
+      OwnableReentrantLock lock1 = lc.acquireLock(owner1, "k1", 0, TimeUnit.MILLISECONDS);
+      OwnableReentrantLock lock2 = lc.acquireLock(owner2, "k2", 0, TimeUnit.MILLISECONDS);
+      assertNotNull(lock1);
+      assertNotNull(lock2);
+      assertNotSame(lock1, lock2);
+      assertEquals(1, lc.getOverflowAcquisitions());
+      assertEquals(0, lc.getContendedAcquisitions());
+      assertEquals(2, lc.getNumLocksHeld());
+
+      // the overflow lock is removed once released, and the slot is reused once free
+      lc.releaseLock(owner2, "k2");
+      lc.releaseLock(owner1, "k1");
+      assertEquals(0, lc.getNumLocksHeld());
+      assertSame(lock1, lc.acquireLock(owner2, "k2", 0, TimeUnit.MILLISECONDS));
+      lc.releaseLock(owner2, "k2");
+   }
+
+   public void testContendedAcquisition() throws Exception {
+      final OwnableReentrantLockTableContainer lc = new OwnableReentrantLockTableContainer(16);
+      final Object owner = new Object();
+      lc.acquireLock(owner, "k", 0, TimeUnit.MILLISECONDS);
+
+      assertNull(lc.acquireLock(new Object(), "k", 10, TimeUnit.MILLISECONDS));
+      assertEquals(1, lc.getContendedAcquisitions());
+      assertEquals(1, lc.getNumLocksHeld());
+
+      Future<OwnableReentrantLock> waiter = fork(new Callable<OwnableReentrantLock>() {
+         @Override
+         public OwnableReentrantLock call() throws Exception {
+            return lc.acquireLock(Thread.currentThread(), "k", 10, TimeUnit.SECONDS);
+         }
+      });
+      Thread.sleep(100);
+      assertFalse(waiter.isDone());
+      lc.releaseLock(owner, "k");
+      assertNotNull(waiter.get(10, TimeUnit.SECONDS));
+      assertEquals(2, lc.getContendedAcquisitions());
+
+      List<String> hotSlots = lc.getHotSlots(10);
+      assertEquals(1, hotSlots.size());
+      assertTrue(hotSlots.get(0), hotSlots.get(0).contains("2 acquisitions, 2 contended"));
+
+      lc.resetStatistics();
+      assertEquals(0, lc.getContendedAcquisitions());
+      assertTrue(lc.getHotSlots(10).isEmpty());
+   }
+
+   public void testCacheUsesLockTable() {
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.locking().lockTableSize(64);
+      withCacheManager(new CacheManagerCallable(TestCacheManagerFactory.createCacheManager(builder)) {
+         @Override
+         public void call() {
+            Cache<Object, Object> cache = cm.getCache();
+            LockContainer<?> lockContainer = TestingUtil.extractComponent(cache, LockContainer.class);
+            assertTrue(lockContainer instanceof OwnableReentrantLockTableContainer);
+
+            cache.put("k", "v");
+            assertEquals("v", cache.get("k"));
+            LockManagerImpl lockManager = (LockManagerImpl) TestingUtil.extractLockManager(cache);
+            assertEquals(0, lockManager.getNumberOfLocksHeld());
+            assertEquals(64, lockManager.getNumberOfLocksAvailable());
+            assertTrue(lockManager.getHotLockSlots(), lockManager.getHotLockSlots().contains("1 acquisitions"));
+         }
+      });
+   }
+}
@@ -0,0 +1,103 @@
+package org.infinispan.notifications;
+
+import org.infinispan.notifications.cachelistener.CacheNotifierImpl;
+import org.infinispan.test.AbstractInfinispanTest;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+/**
+ * Tests that a {@link ListenerQueue} keeps delivering events after a listener failed or the executor rejected the
+ * delivering task.
+ *
+ * @since 7.0
+ */
+@Test(groups = "unit", testName = "notifications.ListenerQueueTest")
+public class ListenerQueueTest extends AbstractInfinispanTest {
+
+   private ExecutorService executor;
+
+   @BeforeMethod
+   public void setUp() {
+      executor = Executors.newSingleThreadExecutor(getTestThreadFactory("ListenerQueue"));
+   }
+
+   @AfterMethod(alwaysRun = true)
+   public void tearDown() {
+      executor.shutdownNow();
+   }
+
+   public void testListenerExceptionDoesNotStopDelivery() throws Exception {
+      RecordingTarget target = new RecordingTarget();
+      ListenerQueue queue = new ListenerQueue(target, 1, QueueOverflowPolicy.BLOCK, executor);
+      // a synchronous invocation rethrows the exceptions of the listener
+      AbstractListenerImpl.ListenerInvocation invocation = invocation(target, true, queue);
+
+      queue.offer(invocation, "fail");
+      queue.offer(invocation, "e1");
+      queue.offer(invocation, "e2");
+      awaitEvents(target, "e1", "e2");
+   }
+
+   public void testRejectedDeliveryIsSubmittedAgain() throws Exception {
+      final AtomicInteger rejected = new AtomicInteger();
+      Executor rejectOnce = new Executor() {
+         @Override
+         public void execute(Runnable command) {
+            if (rejected.compareAndSet(0, 1)) {
+               throw new RejectedExecutionException("Expected");
+            }
+            executor.execute(command);
+         }
+      };
+      RecordingTarget target = new RecordingTarget();
+      ListenerQueue queue = new ListenerQueue(target, 1, QueueOverflowPolicy.BLOCK, rejectOnce);
+      AbstractListenerImpl.ListenerInvocation invocation = invocation(target, false, queue);
+
+      queue.offer(invocation, "e1");
+      assertEquals(1, rejected.get());
+      // the queue is full and nothing delivers it, the writer must submit the delivering task again
+      queue.offer(invocation, "e2");
+      awaitEvents(target, "e1", "e2");
+      assertEquals(0, queue.getDroppedEvents());
+   }
+
+   private AbstractListenerImpl.ListenerInvocation invocation(RecordingTarget target, boolean sync,
+                                                              ListenerQueue queue) throws Exception {
+      CacheNotifierImpl notifier = new CacheNotifierImpl();
+      return notifier.new ListenerInvocation(target, RecordingTarget.class.getMethod("onEvent", Object.class), sync,
+                                             false, null, null, queue);
+   }
+
+   private void awaitEvents(final RecordingTarget target, final Object... events) {
+      eventually(new Condition() {
+         @Override
+         public boolean isSatisfied() throws Exception {
+            return target.events.size() >= events.length;
+         }
+      });
+      assertEquals(Arrays.asList(events), target.events);
+   }
+
+   public static class RecordingTarget {
+      final List<Object> events = new CopyOnWriteArrayList<Object>();
+
+      public void onEvent(Object event) {
+         if ("fail".equals(event)) {
+            throw new IllegalStateException("Expected");
+         }
+         events.add(event);
+      }
+   }
+}
@@ -0,0 +1,206 @@
+package org.infinispan.notifications.cachelistener;
+
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.notifications.IncorrectListenerException;
+import org.infinispan.notifications.Listener;
+import org.infinispan.notifications.QueueOverflowPolicy;
+import org.infinispan.notifications.cachelistener.annotation.CacheEntryModified;
+import org.infinispan.notifications.cachelistener.event.CacheEntryModifiedEvent;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertTrue;
+import static org.testng.AssertJUnit.fail;
+
+/**
+ * Tests the delivery of events to listeners with a {@link Listener#queueSize()}.
+ *
+ * @since 7.0
+ */
+@Test(groups = "functional", testName = "notifications.cachelistener.QueuedListenerTest")
+public class QueuedListenerTest extends SingleCacheManagerTest {
+
+   private static final int NUM_PUTS = 20;
+
+   @Override
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      return TestCacheManagerFactory.createCacheManager(new ConfigurationBuilder());
+   }
+
+   public void testEventsOfKeyDeliveredInOrder() throws Exception {
+      BlockListener listener = new BlockListener();
+      cache.addListener(listener);
+      try {
+         // the listener is blocked, but the caller doesn't wait for it
+         for (int i = 0; i < NUM_PUTS; i++) {
+            cache.put("k", "v" + i);
+         }
+         assertTrue(listener.started.await(10, TimeUnit.SECONDS));
+         assertTrue(notifier().getQueuedEvents() > 0);
+         assertTrue(notifier().getListenerQueues().contains(BlockListener.class.getName()));
+
+         listener.release.countDown();
+         awaitValue(listener, "v" + (NUM_PUTS - 1));
+         for (int i = 0; i < NUM_PUTS; i++) {
+            assertEquals("v" + i, listener.values.get(i));
+         }
+         assertEquals(0, notifier().getQueuedEvents());
+      } finally {
+         listener.release.countDown();
+         cache.removeListener(listener);
+      }
+   }
+
+   public void testDrop() throws Exception {
+      DropListener listener = new DropListener();
+      cache.addListener(listener);
+      try {
+         for (int i = 0; i < NUM_PUTS; i++) {
+            cache.put("k" + i, "v");
+         }
+         assertTrue(notifier().getDroppedEvents() > 0);
+         listener.release.countDown();
+         eventually(new Condition() {
+            @Override
+            public boolean isSatisfied() throws Exception {
+               return notifier().getQueuedEvents() == 0;
+            }
+         });
+         assertTrue(listener.values.size() < NUM_PUTS);
+
+         notifier().resetStatistics();
+         assertEquals(0, notifier().getDroppedEvents());
+      } finally {
+         listener.release.countDown();
+         cache.removeListener(listener);
+      }
+   }
+
+   public void testCoalesce() throws Exception {
+      CoalesceListener listener = new CoalesceListener();
+      cache.addListener(listener);
+      try {
+         for (int i = 0; i < NUM_PUTS; i++) {
+            cache.put("k", "v" + i);
+         }
+         assertTrue(notifier().getCoalescedEvents() > 0);
+         listener.release.countDown();
+         awaitValue(listener, "v" + (NUM_PUTS - 1));
+         // only the latest value is delivered after the first one
+         assertTrue(listener.values.size() < NUM_PUTS);
+         assertEquals("v0", listener.values.get(0));
+      } finally {
+         listener.release.countDown();
+         cache.removeListener(listener);
+      }
+   }
+
+   public void testBlock() throws Exception {
+      final BlockWhenFullListener listener = new BlockWhenFullListener();
+      cache.addListener(listener);
+      try {
+         Future<Void> future = fork(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+               for (int i = 0; i < NUM_PUTS; i++) {
+                  cache.put("k" + i, "v");
+               }
+               return null;
+            }
+         });
+         assertTrue(listener.started.await(10, TimeUnit.SECONDS));
+         try {
+            future.get(500, TimeUnit.MILLISECONDS);
+            fail("The writer should wait for the listener");
+         } catch (TimeoutException expected) {
+         }
+         assertTrue(notifier().getMaxQueueLag() >= 0);
+
+         listener.release.countDown();
+         future.get(10, TimeUnit.SECONDS);
+         awaitValues(listener, NUM_PUTS);
+      } finally {
+         listener.release.countDown();
+         cache.removeListener(listener);
+      }
+   }
+
+   public void testQueueSizeRequiresAsyncListener() {
+      try {
+         cache.addListener(new SyncQueuedListener());
+         fail("Synchronous listeners can't have a queue");
+      } catch (IncorrectListenerException expected) {
+      }
+      assertFalse(cache.getListeners().iterator().hasNext());
+   }
+
+   private void awaitValue(final RecordingListener listener, final Object value) {
+      eventually(new Condition() {
+         @Override
+         public boolean isSatisfied() throws Exception {
+            List<Object> values = listener.values;
+            return !values.isEmpty() && values.get(values.size() - 1).equals(value);
+         }
+      });
+   }
+
+   private void awaitValues(final RecordingListener listener, final int count) {
+      eventually(new Condition() {
+         @Override
+         public boolean isSatisfied() throws Exception {
+            return listener.values.size() == count;
+         }
+      });
+   }
+
+   private CacheNotifierImpl notifier() {
+      return (CacheNotifierImpl) TestingUtil.extractComponent(cache, CacheNotifier.class);
+   }
+
+   public static abstract class RecordingListener {
+      final CountDownLatch started = new CountDownLatch(1);
+      final CountDownLatch release = new CountDownLatch(1);
+      final List<Object> values = new CopyOnWriteArrayList<Object>();
+
+      @CacheEntryModified
+      public void entryModified(CacheEntryModifiedEvent<Object, Object> event) throws InterruptedException {
+         if (event.isPre()) return;
+         started.countDown();
+         release.await(10, TimeUnit.SECONDS);
+         values.add(event.getValue());
+      }
+   }
+
+   @Listener(sync = false, queueSize = 100)
+   public static class BlockListener extends RecordingListener {
+   }
+
+   @Listener(sync = false, queueSize = 4, overflowPolicy = QueueOverflowPolicy.DROP)
+   public static class DropListener extends RecordingListener {
+   }
+
+   @Listener(sync = false, queueSize = 4, overflowPolicy = QueueOverflowPolicy.COALESCE)
+   public static class CoalesceListener extends RecordingListener {
+   }
+
+   @Listener(sync = false, queueSize = 4)
+   public static class BlockWhenFullListener extends RecordingListener {
+   }
+
+   @Listener(queueSize = 4)
+   public static class SyncQueuedListener extends RecordingListener {
+   }
+}
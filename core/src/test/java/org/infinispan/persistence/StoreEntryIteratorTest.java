@@ -0,0 +1,136 @@
+package org.infinispan.persistence;
+
+import org.infinispan.marshall.core.MarshalledEntryImpl;
+import org.infinispan.persistence.manager.PersistenceManager;
+import org.infinispan.persistence.spi.AdvancedCacheLoader;
+import org.infinispan.persistence.spi.PersistenceException;
+import org.infinispan.test.AbstractInfinispanTest;
+import org.infinispan.util.concurrent.WithinThreadExecutor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertTrue;
+import static org.testng.AssertJUnit.fail;
+
+/**
+ * Tests that {@link StoreEntryIterator} only reads a bounded number of entries ahead of its consumer.
+ *
+ * @since 7.0
+ */
+@Test(groups = "unit", testName = "persistence.StoreEntryIteratorTest")
+public class StoreEntryIteratorTest extends AbstractInfinispanTest {
+
+   private ExecutorService executor;
+
+   @BeforeMethod
+   public void setUp() {
+      executor = Executors.newSingleThreadExecutor(getTestThreadFactory("StoreEntryIterator"));
+   }
+
+   @AfterMethod(alwaysRun = true)
+   public void tearDown() {
+      executor.shutdownNow();
+   }
+
+   public void testReadAheadIsBounded() throws Exception {
+      final AtomicInteger produced = new AtomicInteger();
+      PersistenceManager pm = storeWithEntries(100, produced, new AtomicBoolean());
+      StoreEntryIterator it = new StoreEntryIterator(pm, executor, null, true, true, 5);
+      eventually(new Condition() {
+         @Override
+         public boolean isSatisfied() throws Exception {
+            return produced.get() == 5;
+         }
+      });
+      Thread.sleep(200);
+      assertEquals(5, produced.get());
+
+      for (int i = 0; i < 100; i++) {
+         assertTrue(it.hasNext());
+         assertEquals(i, it.next().getKey());
+      }
+      assertFalse(it.hasNext());
+      assertEquals(100, produced.get());
+   }
+
+   public void testCloseStopsProcessing() throws Exception {
+      final AtomicInteger produced = new AtomicInteger();
+      final AtomicBoolean finished = new AtomicBoolean();
+      PersistenceManager pm = storeWithEntries(1000, produced, finished);
+      StoreEntryIterator it = new StoreEntryIterator(pm, executor, null, true, true, 5);
+      assertEquals(0, it.next().getKey());
+      it.close();
+      eventually(new Condition() {
+         @Override
+         public boolean isSatisfied() throws Exception {
+            return finished.get();
+         }
+      });
+      assertTrue("Too many entries read: " + produced.get(), produced.get() < 1000);
+      assertFalse(it.hasNext());
+   }
+
+   public void testCallerRunsExecutor() {
+      PersistenceManager pm = storeWithEntries(100, new AtomicInteger(), new AtomicBoolean());
+      StoreEntryIterator it = new StoreEntryIterator(pm, new WithinThreadExecutor(), null, true, true, 5);
+      int count = 0;
+      while (it.hasNext()) {
+         assertEquals(count++, it.next().getKey());
+      }
+      assertEquals(100, count);
+   }
+
+   public void testFailureIsRethrown() {
+      PersistenceManager pm = mock(PersistenceManager.class);
+      doThrow(new PersistenceException("Expected")).when(pm).processOnAllStores(
+            any(AdvancedCacheLoader.KeyFilter.class), any(AdvancedCacheLoader.CacheLoaderTask.class), anyBoolean(),
+            anyBoolean());
+      StoreEntryIterator it = new StoreEntryIterator(pm, executor, null, true, true, 5);
+      try {
+         it.hasNext();
+         fail("The failure of the stores should have been rethrown");
+      } catch (PersistenceException expected) {
+      }
+   }
+
+   /**
+    * A persistence manager whose stores contain the keys <tt>0</tt> to <tt>numEntries - 1</tt>.
+    */
+   private PersistenceManager storeWithEntries(final int numEntries, final AtomicInteger produced,
+                                               final AtomicBoolean finished) {
+      PersistenceManager pm = mock(PersistenceManager.class);
+      doAnswer(new Answer<Void>() {
+         @Override
+         public Void answer(InvocationOnMock invocation) throws Throwable {
+            AdvancedCacheLoader.CacheLoaderTask task = (AdvancedCacheLoader.CacheLoaderTask) invocation.getArguments()[1];
+            TaskContextImpl taskContext = new TaskContextImpl();
+            try {
+               for (int i = 0; i < numEntries && !taskContext.isStopped(); i++) {
+                  task.processEntry(new MarshalledEntryImpl<Integer, String>(i, "value" + i, null, null), taskContext);
+                  produced.incrementAndGet();
+               }
+            } finally {
+               finished.set(true);
+            }
+            return null;
+         }
+      }).when(pm).processOnAllStores(any(AdvancedCacheLoader.KeyFilter.class),
+                                     any(AdvancedCacheLoader.CacheLoaderTask.class), anyBoolean(), anyBoolean());
+      return pm;
+   }
+}
@@ -0,0 +1,43 @@
+package org.infinispan.persistence.file;
+
+import org.infinispan.configuration.cache.LogFileStoreConfigurationBuilder;
+import org.infinispan.configuration.cache.PersistenceConfigurationBuilder;
+import org.infinispan.persistence.BaseStoreFunctionalTest;
+import org.infinispan.test.TestingUtil;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.File;
+
+/**
+ * Log-structured file cache store functional test.
+ *
+ * @since 7.0
+ */
+@Test(groups = "unit", testName = "persistence.file.LogFileStoreFunctionalTest")
+public class LogFileStoreFunctionalTest extends BaseStoreFunctionalTest {
+
+   private String tmpDirectory;
+
+   @BeforeClass
+   protected void setUpTempDir() {
+      tmpDirectory = TestingUtil.tmpDirectory(this.getClass());
+   }
+
+   @AfterClass
+   protected void clearTempDir() {
+      TestingUtil.recursiveFileRemove(tmpDirectory);
+      new File(tmpDirectory).mkdirs();
+   }
+
+   @Override
+   protected PersistenceConfigurationBuilder createCacheStoreConfig(PersistenceConfigurationBuilder persistence, boolean preload) {
+      persistence
+         .addStore(LogFileStoreConfigurationBuilder.class)
+         .location(tmpDirectory)
+         .preload(preload);
+      return persistence;
+   }
+
+}
@@ -0,0 +1,147 @@
+package org.infinispan.persistence.file;
+
+import org.infinispan.commons.io.ByteBufferFactoryImpl;
+import org.infinispan.configuration.cache.LogFileStoreConfiguration;
+import org.infinispan.configuration.cache.LogFileStoreConfigurationBuilder;
+import org.infinispan.marshall.core.MarshalledEntryFactoryImpl;
+import org.infinispan.marshall.core.MarshalledEntryImpl;
+import org.infinispan.persistence.BaseStoreTest;
+import org.infinispan.persistence.DummyInitializationContext;
+import org.infinispan.persistence.spi.AdvancedLoadWriteStore;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.File;
+
+import static org.infinispan.test.TestingUtil.recursiveFileRemove;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Low level log-structured file cache store tests.
+ *
+ * @since 7.0
+ */
+@Test(groups = "unit", testName = "persistence.file.LogFileStoreTest")
+public class LogFileStoreTest extends BaseStoreTest {
+
+   LogFileStore store;
+   String tmpDirectory;
+
+   @BeforeClass
+   protected void setUpTempDir() {
+      tmpDirectory = TestingUtil.tmpDirectory(this.getClass());
+   }
+
+   @AfterClass
+   protected void clearTempDir() {
+      recursiveFileRemove(tmpDirectory);
+   }
+
+   @Override
+   protected AdvancedLoadWriteStore createStore() throws Exception {
+      clearTempDir();
+      store = newStore();
+      store.start();
+      return store;
+   }
+
+   private LogFileStore newStore() {
+      LogFileStore store = new LogFileStore();
+      LogFileStoreConfiguration fileStoreConfiguration = TestCacheManagerFactory
+            .getDefaultCacheConfiguration(false)
+            .persistence()
+               .addStore(LogFileStoreConfigurationBuilder.class)
+                  .location(this.tmpDirectory)
+                  .maxFileSize(1024)
+                  .create();
+      store.init(new DummyInitializationContext(fileStoreConfiguration, getCache(), getMarshaller(), new ByteBufferFactoryImpl(),
+                                                new MarshalledEntryFactoryImpl(getMarshaller())));
+      return store;
+   }
+
+   public void testIndexPersistedOnStop() {
+      for (int i = 0; i < 50; i++)
+         store.write(new MarshalledEntryImpl("k" + i, "v" + i, null, getMarshaller()));
+      store.delete("k0");
+      store.stop();
+      File index = new File(new File(tmpDirectory, getCache().getName()), "index");
+      assertTrue(index.exists());
+
+      store.start();
+      assertFalse(index.exists());
+      assertEquals(49, store.size());
+      assertNull(store.load("k0"));
+      for (int i = 1; i < 50; i++)
+         assertEquals("v" + i, store.load("k" + i).getValue());
+   }
+
+   public void testRebuildIndexFromLog() {
+      for (int i = 0; i < 50; i++)
+         store.write(new MarshalledEntryImpl("k" + i, "v" + i, null, getMarshaller()));
+      for (int i = 0; i < 10; i++)
+         store.delete("k" + i);
+      store.write(new MarshalledEntryImpl("k0", "v0-2", null, getMarshaller()));
+
+      // without the index the restarted store only finds the log, as if it had crashed
+      store.stop();
+      File index = new File(new File(tmpDirectory, getCache().getName()), "index");
+      assertTrue(index.delete());
+      store.start();
+
+      assertEquals(41, store.size());
+      assertEquals("v0-2", store.load("k0").getValue());
+      for (int i = 1; i < 10; i++)
+         assertFalse(store.contains("k" + i));
+      for (int i = 10; i < 50; i++)
+         assertEquals("v" + i, store.load("k" + i).getValue());
+   }
+
+   public void testRemovalsAreCompacted() throws Exception {
+      for (int i = 0; i < 50; i++)
+         store.write(new MarshalledEntryImpl("k" + i, "v" + i, null, getMarshaller()));
+      for (int i = 0; i < 50; i++)
+         store.delete("k" + i);
+      eventually(new Condition() {
+         @Override
+         public boolean isSatisfied() throws Exception {
+            // files holding only removal records are compacted as soon as they are the oldest ones
+            return store.getLogFileIds().size() == 1;
+         }
+      });
+      assertEquals(0, store.size());
+
+      store.stop();
+      store.start();
+      assertEquals(0, store.size());
+      for (int i = 0; i < 50; i++)
+         assertNull(store.load("k" + i));
+   }
+
+   public void testCompaction() throws Exception {
+      for (int round = 0; round < 20; round++) {
+         for (int i = 0; i < 10; i++)
+            store.write(new MarshalledEntryImpl("k" + i, "v" + i + "-" + round, null, getMarshaller()));
+      }
+      eventually(new Condition() {
+         @Override
+         public boolean isSatisfied() throws Exception {
+            // every full file but the latest ones holds only overwritten entries
+            return store.getLogFileIds().size() <= 4;
+         }
+      });
+      assertEquals(10, store.size());
+      for (int i = 0; i < 10; i++)
+         assertEquals("v" + i + "-19", store.load("k" + i).getValue());
+
+      store.stop();
+      store.start();
+      for (int i = 0; i < 10; i++)
+         assertEquals("v" + i + "-19", store.load("k" + i).getValue());
+   }
+}
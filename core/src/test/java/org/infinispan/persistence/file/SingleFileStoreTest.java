@@ -3,7 +3,9 @@
 import org.infinispan.commons.io.ByteBufferFactoryImpl;
 import org.infinispan.configuration.cache.SingleFileStoreConfiguration;
 import org.infinispan.configuration.cache.SingleFileStoreConfigurationBuilder;
+import org.infinispan.marshall.core.MarshalledEntry;
 import org.infinispan.marshall.core.MarshalledEntryFactoryImpl;
+import org.infinispan.marshall.core.MarshalledEntryImpl;
 import org.infinispan.persistence.BaseStoreTest;
 import org.infinispan.persistence.DummyInitializationContext;
 import org.infinispan.persistence.spi.AdvancedLoadWriteStore;
@@ -13,7 +15,13 @@
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 import static org.infinispan.test.TestingUtil.recursiveFileRemove;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
 
 /**
  * Low level single-file cache store tests.
@@ -52,4 +60,24 @@ protected AdvancedLoadWriteStore createStore() throws Exception {
       store.start();
       return store;
    }
+
+   public void testWriteAndDeleteBatch() throws Exception {
+      cl.write(new MarshalledEntryImpl("k0", "old", null, getMarshaller()));
+      List<MarshalledEntry> batch = new ArrayList<MarshalledEntry>();
+      for (int i = 0; i < 10; i++) {
+         batch.add(new MarshalledEntryImpl("k" + i, "v" + i, null, getMarshaller()));
+      }
+      store.writeBatch(batch);
+
+      store.deleteBatch(Arrays.<Object>asList("k1", "k3", "missing"));
+
+      // the batch must also be readable after a restart
+      store.stop();
+      store.start();
+      assertEquals(8, store.size());
+      assertEquals("v0", store.load("k0").getValue());
+      assertNull(store.load("k1"));
+      assertEquals("v2", store.load("k2").getValue());
+      assertNull(store.load("k3"));
+   }
 }
@@ -0,0 +1,170 @@
+package org.infinispan.remoting.rpc;
+
+import org.infinispan.Cache;
+import org.infinispan.commands.write.PutKeyValueCommand;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.distribution.BlockingInterceptor;
+import org.infinispan.distribution.MagicKey;
+import org.infinispan.interceptors.EntryWrappingInterceptor;
+import org.infinispan.remoting.transport.Address;
+import org.infinispan.test.MultipleCacheManagersTest;
+import org.infinispan.test.TestingUtil;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+
+/**
+ * Tests that concurrent synchronous writes batched by {@link SyncWriteBatcher} still get their own return values.
+ *
+ * @since 7.0
+ */
+@Test(groups = "functional", testName = "remoting.rpc.SyncWriteBatchingTest")
+public class SyncWriteBatchingTest extends MultipleCacheManagersTest {
+
+   private static final int NUM_THREADS = 8;
+   private static final int NUM_KEYS = 200;
+   private static final int BATCH_SIZE = 4;
+   private static final String FULL_BATCH_CACHE = "fullBatch";
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      ConfigurationBuilder builder = getDefaultClusteredCacheConfig(CacheMode.DIST_SYNC, false);
+      // every write goes to exactly one other node
+      builder.clustering().hash().numOwners(2)
+            .sync().writeBatchSize(16).writeBatchWindow(200, TimeUnit.MICROSECONDS)
+            .jmxStatistics().enable();
+      createCluster(builder, 2);
+
+      // the batch is only sent once it is full
+      ConfigurationBuilder fullBatchBuilder = getDefaultClusteredCacheConfig(CacheMode.DIST_SYNC, false);
+      fullBatchBuilder.clustering().hash().numOwners(2)
+            .sync().writeBatchSize(BATCH_SIZE).writeBatchWindow(1, TimeUnit.MINUTES)
+            .jmxStatistics().enable();
+      defineConfigurationOnAllManagers(FULL_BATCH_CACHE, fullBatchBuilder);
+      waitForClusterToForm(null, FULL_BATCH_CACHE);
+   }
+
+   public void testConcurrentWrites() throws Exception {
+      final Cache<Object, Object> cache = cache(0);
+      final CyclicBarrier barrier = new CyclicBarrier(NUM_THREADS);
+      List<Future<Void>> futures = new ArrayList<Future<Void>>();
+      for (int t = 0; t < NUM_THREADS; t++) {
+         final int thread = t;
+         futures.add(fork(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+               barrier.await(10, TimeUnit.SECONDS);
+               for (int i = 0; i < NUM_KEYS; i++) {
+                  String key = "k" + thread + "-" + i;
+                  assertNull(cache.put(key, "v1"));
+                  assertEquals("v1", cache.put(key, "v2"));
+               }
+               return null;
+            }
+         }));
+      }
+      for (Future<Void> future : futures) {
+         future.get(30, TimeUnit.SECONDS);
+      }
+
+      for (int t = 0; t < NUM_THREADS; t++) {
+         for (int i = 0; i < NUM_KEYS; i++) {
+            String key = "k" + t + "-" + i;
+            assertEquals("v2", cache(0).get(key));
+            assertEquals("v2", cache(1).get(key));
+         }
+      }
+   }
+
+   public void testWritesBatchedWhileAnotherWriteIsInFlight() throws Exception {
+      final Cache<Object, Object> cache = cache(0, FULL_BATCH_CACHE);
+      RpcManagerImpl rpcManager = (RpcManagerImpl) cache.getAdvancedCache().getRpcManager();
+      rpcManager.resetStatistics();
+
+      // the first write is sent on its own, and blocked on the backup owner
+      CyclicBarrier barrier = new CyclicBarrier(2);
+      advancedCache(1, FULL_BATCH_CACHE).addInterceptorBefore(
+            new BlockingInterceptor(barrier, PutKeyValueCommand.class, false), EntryWrappingInterceptor.class);
+      final MagicKey blockedKey = new MagicKey("blocked", cache);
+      Future<Object> blocked = fork(new Callable<Object>() {
+         @Override
+         public Object call() throws Exception {
+            return cache.put(blockedKey, "v");
+         }
+      });
+      barrier.await(10, TimeUnit.SECONDS);
+
+      // while it is in flight, the next writes wait for the batch to be full
+      List<Future<Object>> futures = new ArrayList<Future<Object>>();
+      for (int i = 0; i < BATCH_SIZE; i++) {
+         final MagicKey key = new MagicKey("k" + i, cache);
+         final String value = "v" + i;
+         futures.add(fork(new Callable<Object>() {
+            @Override
+            public Object call() throws Exception {
+               return cache.put(key, value);
+            }
+         }));
+      }
+      // once they are all queued, they are sent together even if the first write completes before the batch is full
+      final SyncWriteBatcher batcher = (SyncWriteBatcher) TestingUtil.extractField(rpcManager, "writeBatcher");
+      final Address target = address(1);
+      eventually(new Condition() {
+         @Override
+         public boolean isSatisfied() throws Exception {
+            return batcher.getQueuedWrites(target) == BATCH_SIZE;
+         }
+      });
+      advancedCache(1, FULL_BATCH_CACHE).removeInterceptor(BlockingInterceptor.class);
+      barrier.await(10, TimeUnit.SECONDS);
+
+      assertNull(blocked.get(10, TimeUnit.SECONDS));
+      for (Future<Object> future : futures) {
+         assertNull(future.get(10, TimeUnit.SECONDS));
+      }
+      assertEquals(BATCH_SIZE, rpcManager.getBatchedWriteCount());
+      assertEquals((double) BATCH_SIZE, rpcManager.getAverageWriteBatchSize());
+      assertEquals(BATCH_SIZE + 1, cache(1, FULL_BATCH_CACHE).size());
+
+      rpcManager.resetStatistics();
+      assertEquals(0, rpcManager.getBatchedWriteCount());
+   }
+
+   public void testConditionalWrites() throws Exception {
+      final Cache<Object, Object> cache = cache(0);
+      final CyclicBarrier barrier = new CyclicBarrier(NUM_THREADS);
+      List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+      for (int t = 0; t < NUM_THREADS; t++) {
+         final int thread = t;
+         futures.add(fork(new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+               barrier.await(10, TimeUnit.SECONDS);
+               int wins = 0;
+               for (int i = 0; i < NUM_KEYS; i++) {
+                  if (cache.putIfAbsent("c" + i, thread) == null) wins++;
+               }
+               return wins;
+            }
+         }));
+      }
+      int wins = 0;
+      for (Future<Integer> future : futures) {
+         wins += future.get(30, TimeUnit.SECONDS);
+      }
+      // every key was written by exactly one thread
+      assertEquals(NUM_KEYS, wins);
+      for (int i = 0; i < NUM_KEYS; i++) {
+         assertEquals(cache(0).get("c" + i), cache(1).get("c" + i));
+      }
+   }
+}
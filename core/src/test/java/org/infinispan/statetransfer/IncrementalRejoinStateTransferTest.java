@@ -0,0 +1,120 @@
+package org.infinispan.statetransfer;
+
+import org.infinispan.commands.write.PutKeyValueCommand;
+import org.infinispan.commands.write.RemoveCommand;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.configuration.cache.InterceptorConfiguration;
+import org.infinispan.context.Flag;
+import org.infinispan.context.InvocationContext;
+import org.infinispan.interceptors.base.CommandInterceptor;
+import org.infinispan.test.MultipleCacheManagersTest;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.CleanupAfterMethod;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+
+/**
+ * Tests that a node rejoining with the entries it had before leaving only receives the entries that changed in the
+ * meantime, and removes the ones that were removed.
+ *
+ * @since 7.0
+ */
+@Test(groups = "functional", testName = "statetransfer.IncrementalRejoinStateTransferTest")
+@CleanupAfterMethod
+public class IncrementalRejoinStateTransferTest extends MultipleCacheManagersTest {
+
+   private File tmpDir;
+
+   @Override
+   protected void createCacheManagers() {
+      tmpDir = new File(TestingUtil.tmpDirectory(this.getClass()));
+      TestingUtil.recursiveFileRemove(tmpDir);
+
+      addClusterEnabledCacheManager(buildConfiguration("store0", null));
+      addClusterEnabledCacheManager(buildConfiguration("store1", null));
+      waitForClusterToForm();
+   }
+
+   private ConfigurationBuilder buildConfiguration(String storeLocation, CommandInterceptor interceptor) {
+      ConfigurationBuilder builder = getDefaultClusteredCacheConfig(CacheMode.REPL_SYNC, false);
+      builder.clustering().stateTransfer().fetchInMemoryState(true).incrementalRejoin(true)
+            .persistence().addSingleFileStore().location(new File(tmpDir, storeLocation).getAbsolutePath())
+            .shared(false).preload(false).fetchPersistentState(true).purgeOnStartup(false);
+      if (interceptor != null) {
+         builder.customInterceptors().addInterceptor().interceptor(interceptor)
+               .position(InterceptorConfiguration.Position.FIRST);
+      }
+      return builder;
+   }
+
+   @AfterClass
+   protected void clearTempDir() {
+      TestingUtil.recursiveFileRemove(tmpDir);
+   }
+
+   public void testRejoinOnlyReceivesChanges() throws Exception {
+      final int numKeys = 100;
+      for (int i = 0; i < numKeys; i++) {
+         cache(0).put(i, "v" + i);
+      }
+      assertEquals("v0", cache(1).get(0));
+
+      killMember(1);
+
+      for (int i = 0; i < 10; i++) {
+         cache(0).put(i, "modified" + i);
+      }
+      for (int i = 10; i < 20; i++) {
+         cache(0).remove(i);
+      }
+      for (int i = numKeys; i < numKeys + 10; i++) {
+         cache(0).put(i, "v" + i);
+      }
+
+      StateTransferCountingInterceptor counter = new StateTransferCountingInterceptor();
+      addClusterEnabledCacheManager(buildConfiguration("store1", counter));
+      waitForClusterToForm();
+
+      for (int i = 0; i < 10; i++) {
+         assertEquals("modified" + i, cache(1).getAdvancedCache().withFlags(Flag.CACHE_MODE_LOCAL).get(i));
+      }
+      for (int i = 10; i < 20; i++) {
+         assertNull(cache(1).getAdvancedCache().withFlags(Flag.CACHE_MODE_LOCAL).get(i));
+      }
+      for (int i = 20; i < numKeys + 10; i++) {
+         assertEquals("v" + i, cache(1).getAdvancedCache().withFlags(Flag.CACHE_MODE_LOCAL).get(i));
+      }
+
+      // only the modified and the new entries were transferred
+      assertEquals(20, counter.puts.get());
+      assertEquals(10, counter.removes.get());
+   }
+
+   static class StateTransferCountingInterceptor extends CommandInterceptor {
+      final AtomicInteger puts = new AtomicInteger();
+      final AtomicInteger removes = new AtomicInteger();
+
+      @Override
+      public Object visitPutKeyValueCommand(InvocationContext ctx, PutKeyValueCommand command) throws Throwable {
+         if (command.hasFlag(Flag.PUT_FOR_STATE_TRANSFER)) {
+            puts.incrementAndGet();
+         }
+         return invokeNextInterceptor(ctx, command);
+      }
+
+      @Override
+      public Object visitRemoveCommand(InvocationContext ctx, RemoveCommand command) throws Throwable {
+         if (command.hasFlag(Flag.PUT_FOR_STATE_TRANSFER)) {
+            removes.incrementAndGet();
+         }
+         return invokeNextInterceptor(ctx, command);
+      }
+   }
+}
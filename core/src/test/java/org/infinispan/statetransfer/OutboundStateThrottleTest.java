@@ -0,0 +1,90 @@
+package org.infinispan.statetransfer;
+
+import org.infinispan.test.AbstractInfinispanTest;
+import org.infinispan.util.DefaultTimeService;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+/**
+ * Tests the budget of the {@link OutboundStateThrottle} against a time source controlled by the test.
+ *
+ * @since 7.0
+ */
+@Test(groups = "unit", testName = "statetransfer.OutboundStateThrottleTest")
+public class OutboundStateThrottleTest extends AbstractInfinispanTest {
+
+   private static final long BANDWIDTH = 1000;
+   private static final long ONE_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+   private ControlledTimeService timeService;
+   private OutboundStateThrottle throttle;
+
+   @BeforeMethod
+   public void setUp() {
+      timeService = new ControlledTimeService();
+      throttle = new OutboundStateThrottle();
+      throttle.injectTimeService(timeService);
+   }
+
+   public void testUnlimited() {
+      assertEquals(0, throttle.reserve(1000000));
+      assertEquals(0, throttle.getAcquiredBytes());
+      assertEquals(0, throttle.getThrottledNanos());
+   }
+
+   public void testBurstWithinBudget() {
+      throttle.register("cache", BANDWIDTH);
+      assertEquals(0, throttle.reserve(400));
+      assertEquals(0, throttle.reserve(600));
+      // the budget is spent, the next batch must wait until it is paid back
+      assertEquals(ONE_SECOND / 10, throttle.reserve(100));
+      assertEquals(1100, throttle.getAcquiredBytes());
+      assertEquals(ONE_SECOND / 10, throttle.getThrottledNanos());
+   }
+
+   public void testBudgetRefilled() {
+      throttle.register("cache", BANDWIDTH);
+      assertEquals(ONE_SECOND, throttle.reserve(2 * BANDWIDTH));
+
+      // the caller waited, and paid the debt back
+      timeService.advance(ONE_SECOND);
+      assertEquals(0, throttle.reserve(0));
+      timeService.advance(ONE_SECOND / 2);
+      assertEquals(0, throttle.reserve(BANDWIDTH / 2));
+      assertEquals(ONE_SECOND / 2, throttle.reserve(BANDWIDTH / 2));
+   }
+
+   public void testBudgetCappedToOneSecond() {
+      throttle.register("cache", BANDWIDTH);
+      timeService.advance(10 * ONE_SECOND);
+      assertEquals(0, throttle.reserve(BANDWIDTH));
+      assertEquals(ONE_SECOND, throttle.reserve(BANDWIDTH));
+   }
+
+   public void testLowestBandwidthApplies() {
+      throttle.register("fast", 10 * BANDWIDTH);
+      throttle.register("slow", BANDWIDTH);
+      assertEquals(ONE_SECOND, throttle.reserve(2 * BANDWIDTH));
+
+      throttle.unregister("slow");
+      throttle.unregister("fast");
+      assertEquals(0, throttle.reserve(100 * BANDWIDTH));
+   }
+
+   private static class ControlledTimeService extends DefaultTimeService {
+      private long now = 1;
+
+      void advance(long nanos) {
+         now += nanos;
+      }
+
+      @Override
+      public long time() {
+         return now;
+      }
+   }
+}
@@ -0,0 +1,87 @@
+package org.infinispan.statetransfer;
+
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.container.DataContainer;
+import org.infinispan.container.SegmentedDataContainer;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.distribution.ch.ConsistentHash;
+import org.infinispan.remoting.transport.Address;
+import org.infinispan.test.MultipleCacheManagersTest;
+import org.testng.annotations.Test;
+
+import java.util.Set;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Tests that state transfer sends and removes the right entries when the data container is segmented.
+ *
+ * @since 7.0
+ */
+@Test(groups = "functional", testName = "statetransfer.SegmentedDataContainerStateTransferTest")
+public class SegmentedDataContainerStateTransferTest extends MultipleCacheManagersTest {
+
+   private static final int NUM_KEYS = 500;
+
+   private ConfigurationBuilder builder;
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      builder = getDefaultClusteredCacheConfig(CacheMode.DIST_SYNC, false);
+      builder.clustering().hash().numOwners(2).numSegments(20)
+            .l1().disable()
+            .dataContainer().segmented(true);
+      createCluster(builder, 3);
+      waitForClusterToForm();
+   }
+
+   public void testJoinAndLeave() {
+      for (int i = 0; i < NUM_KEYS; i++) {
+         cache(i % 3).put("k" + i, "v" + i);
+      }
+      assertContainersMatchOwnership();
+
+      addClusterEnabledCacheManager(builder);
+      waitForClusterToForm();
+      assertContainersMatchOwnership();
+
+      killMember(0);
+      assertContainersMatchOwnership();
+   }
+
+   private void assertContainersMatchOwnership() {
+      int totalEntries = 0;
+      for (Cache<Object, Object> cache : caches()) {
+         DataContainer dc = cache.getAdvancedCache().getDataContainer();
+         assertTrue(dc instanceof SegmentedDataContainer);
+         SegmentedDataContainer sdc = (SegmentedDataContainer) dc;
+         ConsistentHash ch = cache.getAdvancedCache().getDistributionManager().getReadConsistentHash();
+         Address self = cache.getAdvancedCache().getRpcManager().getAddress();
+         assertEquals(ch.getNumSegments(), sdc.getNumSegments());
+
+         Set<Integer> ownedSegments = ch.getSegmentsForOwner(self);
+         int segmentEntries = 0;
+         for (int segment = 0; segment < ch.getNumSegments(); segment++) {
+            int size = sdc.segmentSize(segment);
+            if (!ownedSegments.contains(segment)) {
+               assertEquals("Segment " + segment + " is not owned by " + self, 0, size);
+            }
+            segmentEntries += size;
+         }
+         assertEquals(sdc.size(), segmentEntries);
+         for (InternalCacheEntry ice : sdc) {
+            assertTrue(ch.isKeyLocalToNode(self, ice.getKey()));
+         }
+         totalEntries += segmentEntries;
+      }
+      assertEquals(NUM_KEYS * 2, totalEntries);
+      for (Cache<Object, Object> cache : caches()) {
+         for (int i = 0; i < NUM_KEYS; i++) {
+            assertEquals("v" + i, cache.get("k" + i));
+         }
+      }
+   }
+}
@@ -0,0 +1,63 @@
+package org.infinispan.statetransfer;
+
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.test.MultipleCacheManagersTest;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.CleanupAfterMethod;
+import org.testng.annotations.Test;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Tests state transfer with a limited outbound bandwidth and a limited number of concurrently transferred segments.
+ *
+ * @since 7.0
+ */
+@Test(groups = "functional", testName = "statetransfer.ThrottledStateTransferTest")
+@CleanupAfterMethod
+public class ThrottledStateTransferTest extends MultipleCacheManagersTest {
+
+   private static final int BANDWIDTH = 10000;
+   private static final int NUM_KEYS = 300;
+
+   private ConfigurationBuilder builder;
+
+   @Override
+   protected void createCacheManagers() {
+      builder = getDefaultClusteredCacheConfig(CacheMode.REPL_SYNC, false);
+      builder.clustering().hash().numSegments(20)
+            .stateTransfer().maxOutboundBandwidth(BANDWIDTH).maxConcurrentSegments(3);
+      createCluster(builder, 1);
+      waitForClusterToForm();
+   }
+
+   public void testJoinWithThrottledStateTransfer() {
+      StringBuilder sb = new StringBuilder();
+      for (int i = 0; i < 100; i++) {
+         sb.append('x');
+      }
+      for (int i = 0; i < NUM_KEYS; i++) {
+         // distinct values, so the marshaller can't share them
+         cache(0).put("k" + i, sb.toString() + i);
+      }
+
+      addClusterEnabledCacheManager(builder);
+      waitForClusterToForm();
+
+      Cache<Object, Object> joiner = cache(1);
+      assertEquals(NUM_KEYS, joiner.getAdvancedCache().getDataContainer().size());
+
+      // all the state went through the throttle, whose budget is tested by OutboundStateThrottleTest
+      OutboundStateThrottle throttle = TestingUtil.extractGlobalComponent(manager(0), OutboundStateThrottle.class);
+      long acquiredBytes = throttle.getAcquiredBytes();
+      assertTrue("Only " + acquiredBytes + " bytes went through the throttle", acquiredBytes > 3 * BANDWIDTH);
+
+      StateTransferManager stm = TestingUtil.extractComponent(joiner, StateTransferManager.class);
+      assertEquals(0, stm.getQueuedSegments());
+      assertEquals(0, stm.getEstimatedTimeToCompletion());
+      assertTrue(stm.getInboundTransferRate() > 0);
+   }
+}
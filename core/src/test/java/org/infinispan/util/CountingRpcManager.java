@@ -4,6 +4,7 @@
 import org.infinispan.Cache;
 import org.infinispan.commands.ReplicableCommand;
 import org.infinispan.commands.control.LockControlCommand;
+import org.infinispan.commands.remote.ClusteredGetAllCommand;
 import org.infinispan.commands.remote.ClusteredGetCommand;
 import org.infinispan.remoting.rpc.RpcManager;
 
@@ -17,6 +18,7 @@ public class CountingRpcManager extends AbstractControlledRpcManager {
 
    public volatile int lockCount;
    public volatile int clusterGet;
+   public volatile int clusterGetAll;
    public volatile int otherCount;
 
    public CountingRpcManager(RpcManager realOne) {
@@ -35,6 +37,7 @@ public static CountingRpcManager replaceRpcManager(Cache c) {
    public void resetStats() {
       lockCount = 0;
       clusterGet = 0;
+      clusterGetAll = 0;
       otherCount = 0;
    }
 
@@ -44,6 +47,8 @@ protected void beforeInvokeRemotely(ReplicableCommand rpcCommand) {
          lockCount++;
       } else if (rpcCommand instanceof ClusteredGetCommand) {
          clusterGet++;
+      } else if (rpcCommand instanceof ClusteredGetAllCommand) {
+         clusterGetAll++;
       } else {
          otherCount++;
       }
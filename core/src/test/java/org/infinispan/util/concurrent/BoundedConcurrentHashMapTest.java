@@ -1,9 +1,13 @@
 package org.infinispan.util.concurrent;
 
+import org.infinispan.commons.equivalence.ByteArrayEquivalence;
+import org.infinispan.commons.equivalence.Equivalence;
 import org.infinispan.util.EquivalentHashMapTest;
 import org.testng.annotations.Test;
 
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
@@ -38,6 +42,92 @@ public void testByteArrayPutIfAbsentFail() {
       byteArrayPutIfAbsentFail(createComparingConcurrentMap(), true);
    }
 
+   public void testMemoryBoundedAccounting() {
+      BoundedConcurrentHashMap<byte[], byte[]> map = createMemoryBoundedMap(1000);
+      byte[] key = {1};
+      map.put(key, new byte[10]);
+      assertEquals(11, map.memoryUsed());
+      byte[] value = new byte[20];
+      map.put(key, value);
+      assertEquals(21, map.memoryUsed());
+      map.replace(key, value, new byte[5]);
+      assertEquals(6, map.memoryUsed());
+      map.put(new byte[]{2}, new byte[9]);
+      assertEquals(16, map.memoryUsed());
+      map.remove(key);
+      assertEquals(10, map.memoryUsed());
+      map.clear();
+      assertEquals(0, map.memoryUsed());
+   }
+
+   public void testMemoryBoundedEviction() {
+      BoundedConcurrentHashMap<byte[], byte[]> map = createMemoryBoundedMap(100);
+      for (byte i = 0; i < 10; i++)
+         map.put(new byte[]{i}, new byte[19]);
+
+      assertEquals(5, map.size());
+      assertEquals(100, map.memoryUsed());
+      for (byte i = 0; i < 5; i++)
+         assertNull(map.get(new byte[]{i}));
+      for (byte i = 5; i < 10; i++)
+         assertNotNull(map.get(new byte[]{i}));
+
+      // an entry larger than the budget evicts everything else but is kept
+      map.put(new byte[]{10}, new byte[199]);
+      assertEquals(1, map.size());
+      assertEquals(200, map.memoryUsed());
+   }
+
+   public void testMemoryBoundedEvictionOfCollidingKeys() {
+      final Map<byte[], byte[]> evicted = new HashMap<byte[], byte[]>();
+      BoundedConcurrentHashMap<byte[], byte[]> map = new BoundedConcurrentHashMap<byte[], byte[]>(100, 1,
+            BoundedConcurrentHashMap.Eviction.LRU,
+            new BoundedConcurrentHashMap.EvictionListener<byte[], byte[]>() {
+               @Override
+               public void onEntryEviction(Map<byte[], byte[]> entries) {
+                  evicted.putAll(entries);
+               }
+
+               @Override
+               public void onEntryChosenForEviction(byte[] value) {
+               }
+
+               @Override
+               public void onEntryActivated(Object key) {
+               }
+
+               @Override
+               public void onEntryRemoved(Object key) {
+               }
+            }, BYTE_ARRAY_SIZE, SAME_HASH_EQUIVALENCE, EQUIVALENCE);
+      // every key lands in the same bucket, so each victim has predecessors in its chain
+      for (byte i = 0; i < 5; i++)
+         map.put(new byte[]{i}, new byte[19]);
+      assertTrue(evicted.isEmpty());
+
+      // victims are picked in LRU order, even after the bucket chain has been rebuilt
+      for (byte i = 5; i < 8; i++) {
+         map.put(new byte[]{i}, new byte[19]);
+         assertEquals(i - 4, evicted.size());
+         assertNull(map.get(new byte[]{(byte) (i - 5)}));
+      }
+
+      // an entry evicting several others in the same pass reports all of them
+      evicted.clear();
+      map.put(new byte[]{8}, new byte[59]);
+      assertEquals(3, evicted.size());
+      assertEquals(3, map.size());
+      assertEquals(100, map.memoryUsed());
+      for (byte i = 3; i < 6; i++)
+         assertNull(map.get(new byte[]{i}));
+      for (byte i = 6; i < 9; i++)
+         assertNotNull(map.get(new byte[]{i}));
+   }
+
+   public void testCountBoundedMemoryNotTracked() {
+      assertEquals(-1, new BoundedConcurrentHashMap<byte[], byte[]>(EQUIVALENCE, EQUIVALENCE).memoryUsed());
+   }
+
    protected void byteArrayConditionalRemove(
          ConcurrentMap<byte[], byte[]> map, boolean expectRemove) {
       byte[] key = {1, 2, 3};
@@ -94,6 +184,27 @@ protected ConcurrentMap<byte[], byte[]> createComparingConcurrentMap() {
       return new BoundedConcurrentHashMap<byte[], byte[]>(EQUIVALENCE, EQUIVALENCE);
    }
 
+   private BoundedConcurrentHashMap<byte[], byte[]> createMemoryBoundedMap(long maxMemory) {
+      return new BoundedConcurrentHashMap<byte[], byte[]>(maxMemory, 1, BoundedConcurrentHashMap.Eviction.LRU,
+            new BoundedConcurrentHashMap.NullEvictionListener<byte[], byte[]>(), BYTE_ARRAY_SIZE,
+            EQUIVALENCE, EQUIVALENCE);
+   }
+
+   private static final BoundedConcurrentHashMap.EntrySizeCalculator<byte[], byte[]> BYTE_ARRAY_SIZE =
+         new BoundedConcurrentHashMap.EntrySizeCalculator<byte[], byte[]>() {
+            @Override
+            public long calculateSize(byte[] key, byte[] value) {
+               return key.length + value.length;
+            }
+         };
+
+   private static final Equivalence<byte[]> SAME_HASH_EQUIVALENCE = new ByteArrayEquivalence() {
+      @Override
+      public int hashCode(Object obj) {
+         return 1;
+      }
+   };
+
 //
 //   TODO: Enable test when Comparing.compare() function for a byte[] has been created, and hence tree based hash bins can be used.
 //
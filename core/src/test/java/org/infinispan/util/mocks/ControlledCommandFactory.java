@@ -10,14 +10,18 @@
 import org.infinispan.commands.control.LockControlCommand;
 import org.infinispan.commands.read.DistributedExecuteCommand;
 import org.infinispan.commands.read.EntrySetCommand;
+import org.infinispan.commands.read.GetAllCommand;
 import org.infinispan.commands.read.GetKeyValueCommand;
 import org.infinispan.commands.read.KeySetCommand;
 import org.infinispan.commands.read.MapCombineCommand;
 import org.infinispan.commands.read.ReduceCommand;
+import org.infinispan.commands.read.ShuffleCommand;
 import org.infinispan.commands.read.SizeCommand;
 import org.infinispan.commands.read.ValuesCommand;
+import org.infinispan.commands.remote.ClusteredGetAllCommand;
 import org.infinispan.commands.remote.ClusteredGetCommand;
 import org.infinispan.commands.remote.MultipleRpcCommand;
+import org.infinispan.commands.remote.MultipleRpcResponsesCommand;
 import org.infinispan.commands.remote.SingleRpcCommand;
 import org.infinispan.commands.remote.recovery.CompleteTransactionCommand;
 import org.infinispan.commands.remote.recovery.GetInDoubtTransactionsCommand;
@@ -33,6 +37,9 @@
 import org.infinispan.distexec.mapreduce.Mapper;
 import org.infinispan.distexec.mapreduce.Reducer;
 import org.infinispan.factories.ComponentRegistry;
+import org.infinispan.iteration.Converter;
+import org.infinispan.iteration.EntryRequestCommand;
+import org.infinispan.iteration.KeyValueFilter;
 import org.infinispan.manager.EmbeddedCacheManager;
 import org.infinispan.remoting.transport.Address;
 import org.infinispan.statetransfer.StateChunk;
@@ -155,6 +162,11 @@ public GetKeyValueCommand buildGetKeyValueCommand(Object key, Set<Flag> flags, b
       return actual.buildGetKeyValueCommand(key, flags, returnEntry);
    }
 
+   @Override
+   public GetAllCommand buildGetAllCommand(Collection<?> keys, Set<Flag> flags, boolean returnEntries) {
+      return actual.buildGetAllCommand(keys, flags, returnEntries);
+   }
+
    @Override
    public KeySetCommand buildKeySetCommand(Set<Flag> flags) {
       return actual.buildKeySetCommand(flags);
@@ -215,6 +227,11 @@ public MultipleRpcCommand buildReplicateCommand(List<ReplicableCommand> toReplic
       return actual.buildReplicateCommand(toReplicate);
    }
 
+   @Override
+   public MultipleRpcResponsesCommand buildReplicateWithResponsesCommand(List<ReplicableCommand> toReplicate) {
+      return actual.buildReplicateWithResponsesCommand(toReplicate);
+   }
+
    @Override
    public SingleRpcCommand buildSingleRpcCommand(ReplicableCommand call) {
       return actual.buildSingleRpcCommand(call);
@@ -225,6 +242,11 @@ public ClusteredGetCommand buildClusteredGetCommand(Object key, Set<Flag> flags,
       return actual.buildClusteredGetCommand(key, flags, acquireRemoteLock, gtx);
    }
 
+   @Override
+   public ClusteredGetAllCommand buildClusteredGetAllCommand(List<?> keys, Set<Flag> flags, GlobalTransaction gtx) {
+      return actual.buildClusteredGetAllCommand(keys, flags, gtx);
+   }
+
    @Override
    public LockControlCommand buildLockControlCommand(Collection<Object> keys, Set<Flag> flags, GlobalTransaction gtx) {
       return actual.buildLockControlCommand(keys, flags, gtx);
@@ -280,6 +302,18 @@ public <KOut, VOut> ReduceCommand<KOut, VOut> buildReduceCommand(String taskId,
       return actual.buildReduceCommand(taskId, destinationCache, r, keys);
    }
 
+   @Override
+   public <KOut, VOut> ShuffleCommand<KOut, VOut> buildShuffleCommand(String taskId, Map<KOut, List<VOut>> values, int maxBufferedValues) {
+      return actual.buildShuffleCommand(taskId, values, maxBufferedValues);
+   }
+
+   @Override
+   public EntryRequestCommand buildEntryRequestCommand(EntryRequestCommand.Type type, Address origin, UUID iterationId,
+                                                       Set<Integer> segments, KeyValueFilter filter,
+                                                       Converter converter, int batchSize) {
+      return actual.buildEntryRequestCommand(type, origin, iterationId, segments, filter, converter, batchSize);
+   }
+
    @Override
    public GetInDoubtTxInfoCommand buildGetInDoubtTxInfoCommand() {
       return actual.buildGetInDoubtTxInfoCommand();
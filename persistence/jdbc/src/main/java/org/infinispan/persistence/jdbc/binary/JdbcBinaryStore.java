@@ -16,6 +16,7 @@
 import org.infinispan.persistence.jdbc.connectionfactory.ManagedConnectionFactory;
 import org.infinispan.persistence.jdbc.logging.Log;
 import org.infinispan.persistence.spi.AdvancedLoadWriteStore;
+import org.infinispan.persistence.spi.BatchingCacheWriter;
 import org.infinispan.persistence.spi.InitializationContext;
 import org.infinispan.persistence.support.Bucket;
 import org.infinispan.util.concurrent.locks.StripedLock;
@@ -27,12 +28,15 @@
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Executor;
 
@@ -53,7 +57,7 @@
  * @see org.infinispan.persistence.jdbc.configuration.JdbcBinaryStoreConfiguration
  * @see org.infinispan.persistence.jdbc.stringbased.JdbcStringBasedStore
  */
-public class JdbcBinaryStore implements AdvancedLoadWriteStore {
+public class JdbcBinaryStore implements AdvancedLoadWriteStore, BatchingCacheWriter {
 
    private static final Log log = LogFactory.getLog(JdbcBinaryStore.class, Log.class);
 
@@ -126,6 +130,93 @@ public final void write(MarshalledEntry entry) {
       }
    }
 
+   /**
+    * Groups the entries by bucket so that each affected bucket is loaded and stored only once. Buckets are locked one
+    * at a time, as for {@link #write(MarshalledEntry)}.
+    */
+   @Override
+   public void writeBatch(Iterable entries) {
+      Map<Integer, List<MarshalledEntry>> buckets = new TreeMap<Integer, List<MarshalledEntry>>();
+      List<Object> expired = new ArrayList<Object>();
+      long now = ctx.getTimeService().wallClockTime();
+      for (Object o : entries) {
+         MarshalledEntry entry = (MarshalledEntry) o;
+         InternalMetadata m = entry.getMetadata();
+         if (m != null && m.isExpired(now)) {
+            expired.add(entry.getKey());
+            continue;
+         }
+         Integer bucketId = getBuckedId(entry.getKey());
+         List<MarshalledEntry> bucketEntries = buckets.get(bucketId);
+         if (bucketEntries == null) {
+            bucketEntries = new ArrayList<MarshalledEntry>();
+            buckets.put(bucketId, bucketEntries);
+         }
+         bucketEntries.add(entry);
+      }
+      log.tracef("writeBatch(%d buckets, %d expired)", buckets.size(), expired.size());
+
+      for (Map.Entry<Integer, List<MarshalledEntry>> e : buckets.entrySet()) {
+         Integer bucketId = e.getKey();
+         lockBucketForWriting(bucketId);
+         try {
+            Bucket bucket = loadBucket(bucketId);
+            boolean exists = bucket != null;
+            if (!exists) {
+               bucket = new Bucket(keyEquivalence);
+               bucket.setBucketId(bucketId);
+            }
+            for (MarshalledEntry me : e.getValue()) {
+               bucket.addEntry(me.getKey(), me);
+            }
+            if (exists) {
+               updateBucket(bucket);
+            } else {
+               insertBucket(bucket);
+            }
+         } finally {
+            unlock(bucketId);
+         }
+      }
+      if (!expired.isEmpty()) {
+         deleteBatch(expired);
+      }
+   }
+
+   @Override
+   public void deleteBatch(Iterable keys) {
+      Map<Integer, List<Object>> buckets = new TreeMap<Integer, List<Object>>();
+      for (Object key : keys) {
+         Integer bucketId = getBuckedId(key);
+         List<Object> bucketKeys = buckets.get(bucketId);
+         if (bucketKeys == null) {
+            bucketKeys = new ArrayList<Object>();
+            buckets.put(bucketId, bucketKeys);
+         }
+         bucketKeys.add(key);
+      }
+
+      for (Map.Entry<Integer, List<Object>> e : buckets.entrySet()) {
+         Integer bucketId = e.getKey();
+         lockBucketForWriting(bucketId);
+         try {
+            Bucket bucket = loadBucket(bucketId);
+            if (bucket == null) {
+               continue;
+            }
+            boolean removed = false;
+            for (Object key : e.getValue()) {
+               removed |= bucket.removeEntry(key);
+            }
+            if (removed) {
+               updateBucket(bucket);
+            }
+         } finally {
+            unlock(bucketId);
+         }
+      }
+   }
+
    @Override
    public final MarshalledEntry load(Object key) {
       Integer bucketId = getBuckedId(key);
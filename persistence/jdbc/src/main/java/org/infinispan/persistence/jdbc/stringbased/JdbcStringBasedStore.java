@@ -14,6 +14,7 @@
 import org.infinispan.persistence.keymappers.TwoWayKey2StringMapper;
 import org.infinispan.persistence.keymappers.UnsupportedKeyTypeException;
 import org.infinispan.persistence.spi.AdvancedLoadWriteStore;
+import org.infinispan.persistence.spi.BatchingCacheWriter;
 import org.infinispan.persistence.spi.InitializationContext;
 import org.infinispan.util.KeyValuePair;
 import org.infinispan.util.logging.LogFactory;
@@ -24,6 +25,10 @@
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
@@ -66,7 +71,7 @@
  * @see org.infinispan.persistence.keymappers.Key2StringMapper
  * @see org.infinispan.persistence.keymappers.DefaultTwoWayKey2StringMapper
  */
-public class JdbcStringBasedStore implements AdvancedLoadWriteStore {
+public class JdbcStringBasedStore implements AdvancedLoadWriteStore, BatchingCacheWriter {
 
    private static final Log log = LogFactory.getLog(JdbcStringBasedStore.class, Log.class);
 
@@ -178,6 +183,100 @@ public void write(MarshalledEntry entry) {
       }
    }
 
+   /**
+    * Replaces the rows of all the entries within a single transaction: the existing rows are removed and the new ones
+    * inserted, each through a single JDBC batch.
+    */
+   @Override
+   public void writeBatch(Iterable entries) {
+      Map<String, MarshalledEntry> batch = new LinkedHashMap<String, MarshalledEntry>();
+      for (Object entry : entries) {
+         batch.put(key2Str(((MarshalledEntry) entry).getKey()), (MarshalledEntry) entry);
+      }
+      if (batch.isEmpty())
+         return;
+
+      Connection connection = null;
+      PreparedStatement deletePs = null;
+      PreparedStatement insertPs = null;
+      boolean autoCommit = true;
+      try {
+         connection = connectionFactory.getConnection();
+         autoCommit = connection.getAutoCommit();
+         connection.setAutoCommit(false);
+         deletePs = connection.prepareStatement(tableManipulation.getDeleteRowSql());
+         insertPs = connection.prepareStatement(tableManipulation.getInsertRowSql());
+         for (Map.Entry<String, MarshalledEntry> e : batch.entrySet()) {
+            deletePs.setString(1, e.getKey());
+            deletePs.addBatch();
+            updateStatement(e.getValue(), e.getKey(), insertPs);
+            insertPs.addBatch();
+         }
+         if (log.isTraceEnabled()) {
+            log.tracef("Writing a batch of %d rows", batch.size());
+         }
+         deletePs.executeBatch();
+         insertPs.executeBatch();
+         connection.commit();
+      } catch (SQLException ex) {
+         rollback(connection);
+         log.sqlFailureStoringKeys(ex);
+         throw new PersistenceException("Error while storing a batch of string keys to database", ex);
+      } catch (InterruptedException e) {
+         rollback(connection);
+         if (log.isTraceEnabled()) {
+            log.trace("Interrupted while marshalling to store");
+         }
+         Thread.currentThread().interrupt();
+      } finally {
+         JdbcUtil.safeClose(deletePs);
+         JdbcUtil.safeClose(insertPs);
+         restoreAutoCommit(connection, autoCommit);
+         connectionFactory.releaseConnection(connection);
+      }
+   }
+
+   /**
+    * Removes the rows of all the keys through a single JDBC batch, within a single transaction.
+    */
+   @Override
+   public void deleteBatch(Iterable keys) {
+      List<String> batch = new ArrayList<String>();
+      for (Object key : keys) {
+         batch.add(key2Str(key));
+      }
+      if (batch.isEmpty())
+         return;
+
+      Connection connection = null;
+      PreparedStatement ps = null;
+      boolean autoCommit = true;
+      try {
+         String sql = tableManipulation.getDeleteRowSql();
+         connection = connectionFactory.getConnection();
+         autoCommit = connection.getAutoCommit();
+         connection.setAutoCommit(false);
+         ps = connection.prepareStatement(sql);
+         for (String key : batch) {
+            ps.setString(1, key);
+            ps.addBatch();
+         }
+         if (log.isTraceEnabled()) {
+            log.tracef("Running sql '%s' on a batch of %d keys", sql, batch.size());
+         }
+         ps.executeBatch();
+         connection.commit();
+      } catch (SQLException ex) {
+         rollback(connection);
+         log.sqlFailureRemovingKeys(ex);
+         throw new PersistenceException("Error while removing string keys from database", ex);
+      } finally {
+         JdbcUtil.safeClose(ps);
+         restoreAutoCommit(connection, autoCommit);
+         connectionFactory.releaseConnection(connection);
+      }
+   }
+
    @Override
    public MarshalledEntry load(Object key) {
       String lockingKey = key2Str(key);
@@ -390,6 +489,26 @@ private void updateStatement(MarshalledEntry entry, String key, PreparedStatemen
       ps.setString(3, key);
    }
 
+   private void rollback(Connection connection) {
+      if (connection != null) {
+         try {
+            connection.rollback();
+         } catch (SQLException e) {
+            log.tracef(e, "Failed to rollback batch");
+         }
+      }
+   }
+
+   private void restoreAutoCommit(Connection connection, boolean autoCommit) {
+      if (connection != null) {
+         try {
+            connection.setAutoCommit(autoCommit);
+         } catch (SQLException e) {
+            log.tracef(e, "Failed to restore auto-commit");
+         }
+      }
+   }
+
    private String key2Str(Object key) throws PersistenceException {
       if (!key2StringMapper.isSupportedType(key.getClass())) {
          throw new UnsupportedKeyTypeException(key);
@@ -2,6 +2,7 @@
 
 import org.infinispan.commons.io.ByteBufferFactoryImpl;
 import org.infinispan.marshall.core.MarshalledEntryFactoryImpl;
+import org.infinispan.marshall.core.MarshalledEntryImpl;
 import org.infinispan.persistence.BaseStoreTest;
 import org.infinispan.persistence.spi.PersistenceException;
 import org.infinispan.persistence.InitializationContextImpl;
@@ -15,8 +16,13 @@
 import org.infinispan.util.DefaultTimeService;
 import org.testng.annotations.Test;
 
+import java.util.Arrays;
+
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.reset;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.fail;
 
 /**
  * Tester class  for {@link JdbcStringBasedStore}.
@@ -74,6 +80,49 @@ public void testNotCreateConnectionFactory() throws Exception {
       stringBasedCacheStore.stop();
    }
 
+   public void testWriteBatch() throws Exception {
+      JdbcStringBasedStore store = (JdbcStringBasedStore) cl;
+      store.write(new MarshalledEntryImpl("k1", "v1", null, getMarshaller()));
+      store.writeBatch(Arrays.asList(new MarshalledEntryImpl("k1", "v2", null, getMarshaller()),
+                                     new MarshalledEntryImpl("k2", "v2", null, getMarshaller())));
+      assertEquals("v2", store.load("k1").getValue());
+      assertEquals("v2", store.load("k2").getValue());
+      assertEquals(2, store.size());
+   }
+
+   public void testDeleteBatch() throws Exception {
+      JdbcStringBasedStore store = (JdbcStringBasedStore) cl;
+      for (int i = 0; i < 3; i++) {
+         store.write(new MarshalledEntryImpl("k" + i, "v" + i, null, getMarshaller()));
+      }
+      store.deleteBatch(Arrays.asList("k0", "k1", "missing"));
+      assertFalse(store.contains("k0"));
+      assertFalse(store.contains("k1"));
+      assertEquals("v2", store.load("k2").getValue());
+      assertEquals(1, store.size());
+   }
+
+   public void testFailingBatchIsRolledBack() throws Exception {
+      JdbcStringBasedStore store = (JdbcStringBasedStore) cl;
+      store.write(new MarshalledEntryImpl("k1", "v1", null, getMarshaller()));
+      // longer than the id column, so the insert fails after the existing row was deleted
+      char[] tooLong = new char[300];
+      Arrays.fill(tooLong, 'k');
+      try {
+         store.writeBatch(Arrays.asList(new MarshalledEntryImpl("k1", "v2", null, getMarshaller()),
+                                        new MarshalledEntryImpl(new String(tooLong), "v", null, getMarshaller())));
+         fail("The batch should have failed");
+      } catch (PersistenceException e) {
+         // expected
+      }
+      assertEquals("v1", store.load("k1").getValue());
+      assertEquals(1, store.size());
+
+      // the store is still usable
+      store.write(new MarshalledEntryImpl("k2", "v2", null, getMarshaller()));
+      assertEquals("v2", store.load("k2").getValue());
+   }
+
    @Override
    @Test(expectedExceptions = UnsupportedKeyTypeException.class)
    public void testLoadAndStoreMarshalledValues() throws PersistenceException {
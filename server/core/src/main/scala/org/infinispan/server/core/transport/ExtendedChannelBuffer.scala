@@ -16,9 +16,12 @@ object ExtendedChannelBuffer {
    def readRangedBytes(bf: ChannelBuffer): Array[Byte] = {
       val length = readUnsignedInt(bf)
       if (length > 0) {
+         // Slice first: if the bytes haven't all arrived yet, a replaying
+         // decoder gives up here, before allocating an array it'd throw away
+         val slice = bf.readSlice(length)
          val array = new Array[Byte](length)
-         bf.readBytes(array)
-         array;
+         slice.readBytes(array)
+         array
       } else {
          Array[Byte]()
       }
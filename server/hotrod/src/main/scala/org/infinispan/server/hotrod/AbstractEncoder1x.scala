@@ -12,6 +12,7 @@ import org.infinispan.configuration.cache.Configuration
 import org.infinispan.distribution.ch.DefaultConsistentHash
 import collection.mutable.ArrayBuffer
 import org.infinispan.server.hotrod.util.BulkUtil
+import java.util.BitSet
 
 /**
  * Hot Rod encoder for protocol version 1.1
@@ -62,28 +63,6 @@ abstract class AbstractEncoder1x extends AbstractVersionedEncoder with Constants
                writeString(value, buf)
             }
          }
-         case g: GetWithVersionResponse => {
-            if (g.status == Success) {
-               buf.writeLong(g.dataVersion)
-               writeRangedBytes(g.data.get, buf)
-            }
-         }
-         case g: GetWithMetadataResponse => {
-            if (g.status == Success) {
-               val flags = (if (g.lifespan < 0) INFINITE_LIFESPAN else 0) + (if (g.maxIdle < 0 ) INFINITE_MAXIDLE else 0)
-               buf.writeByte(flags)
-               if (g.lifespan >= 0) {
-                  buf.writeLong(g.created)
-                  writeUnsignedInt(g.lifespan, buf)
-               }
-               if (g.maxIdle >= 0) {
-                  buf.writeLong(g.lastUsed)
-                  writeUnsignedInt(g.maxIdle, buf)
-               }
-               buf.writeLong(g.dataVersion)
-               writeRangedBytes(g.data.get, buf)
-            }
-         }
          case g: BulkGetResponse => {
             log.trace("About to respond to bulk get request")
             if (g.status == Success) {
@@ -117,8 +96,35 @@ abstract class AbstractEncoder1x extends AbstractVersionedEncoder with Constants
                buf.writeByte(0) // Done
             }
          }
+         case g: GetAllResponse => {
+            writeUnsignedInt(g.entries.size, buf)
+            for ((key, value) <- g.entries) {
+               writeRangedBytes(key, buf)
+               writeRangedBytes(value, buf)
+            }
+         }
+         case s: IterationStartResponse => {
+            writeString(if (s.iterationId == null) "" else s.iterationId, buf)
+            writeUnsignedInt(s.numSegments, buf)
+            writeSegments(s.segments, buf)
+         }
+         case n: IterationNextResponse => {
+            if (n.status == Success) {
+               writeSegments(n.batch.getFinishedSegments, buf)
+               writeUnsignedInt(n.batch.getSegment, buf)
+               writeUnsignedInt(n.batch.getEntries.size, buf)
+               for (entry <- n.batch.getEntries) {
+                  writeRangedBytes(entry.getKey, buf)
+                  if (n.withValues) writeRangedBytes(entry.getValue, buf)
+               }
+            }
+         }
+         case e: InvalidationEvent => writeRangedBytes(e.key, buf)
          case g: GetResponse =>
-            if (g.status == Success) writeRangedBytes(g.data.get, buf)
+            if (g.status == Success) {
+               writeGetMetadata(g, buf)
+               writeRangedBytes(g.data.get, buf)
+            }
          case q: QueryResponse =>
             writeRangedBytes(q.result, buf)
          case e: ErrorResponse => writeString(e.msg, buf)
@@ -127,6 +133,41 @@ abstract class AbstractEncoder1x extends AbstractVersionedEncoder with Constants
       }
    }
 
+   override def writeResponseWrappingValue(r: Response, buf: ChannelBuffer,
+           cacheManager: EmbeddedCacheManager, server: HotRodServer, threshold: Int): Array[Byte] = {
+      r match {
+         case g: GetResponse if g.status == Success && g.data.get.length >= threshold => {
+            writeGetMetadata(g, buf)
+            writeUnsignedInt(g.data.get.length, buf)
+            g.data.get
+         }
+         case _ => super.writeResponseWrappingValue(r, buf, cacheManager, server, threshold)
+      }
+   }
+
+   /**
+    * Writes whatever precedes the value in a successful get response.
+    */
+   private def writeGetMetadata(g: GetResponse, buf: ChannelBuffer) {
+      g match {
+         case g: GetWithVersionResponse => buf.writeLong(g.dataVersion)
+         case g: GetWithMetadataResponse => {
+            val flags = (if (g.lifespan < 0) INFINITE_LIFESPAN else 0) + (if (g.maxIdle < 0 ) INFINITE_MAXIDLE else 0)
+            buf.writeByte(flags)
+            if (g.lifespan >= 0) {
+               buf.writeLong(g.created)
+               writeUnsignedInt(g.lifespan, buf)
+            }
+            if (g.maxIdle >= 0) {
+               buf.writeLong(g.lastUsed)
+               writeUnsignedInt(g.maxIdle, buf)
+            }
+            buf.writeLong(g.dataVersion)
+         }
+         case _ => // plain gets carry nothing but the value
+      }
+   }
+
    def getTopologyResponse(r: Response, addressCache: Cache[Address, ServerAddress],
            server: HotRodServer): AbstractTopologyResponse = {
       // If clustered, set up a cache for topology information
@@ -253,6 +294,15 @@ abstract class AbstractEncoder1x extends AbstractVersionedEncoder with Constants
    }
 
 
+   private def writeSegments(segments: BitSet, buffer: ChannelBuffer) {
+      writeUnsignedInt(segments.cardinality, buffer)
+      var segment = segments.nextSetBit(0)
+      while (segment >= 0) {
+         writeUnsignedInt(segment, buffer)
+         segment = segments.nextSetBit(segment + 1)
+      }
+   }
+
    def writeNoTopologyUpdate(buffer: ChannelBuffer) {
       trace("Write topology response header with no change")
       buffer.writeByte(0)
@@ -3,7 +3,7 @@ package org.infinispan.server.hotrod
 import org.infinispan.AdvancedCache
 import org.infinispan.stats.Stats
 import org.jboss.netty.buffer.ChannelBuffer
-import org.infinispan.server.core.{QueryFacade, RequestParameters}
+import org.infinispan.server.core.RequestParameters
 import org.infinispan.server.core.transport.NettyTransport
 import org.infinispan.container.entries.CacheEntry
 
@@ -30,6 +30,11 @@ abstract class AbstractVersionedDecoder {
     */
    def readParameters(header: HotRodHeader, buffer: ChannelBuffer): (RequestParameters, Boolean)
 
+   /**
+    * Read the parameters and the entries of a bulk put operation.
+    */
+   def readEntries(header: HotRodHeader, buffer: ChannelBuffer): (RequestParameters, java.util.Map[Array[Byte], Array[Byte]])
+
    /**
     * Create a successful response.
     */
@@ -59,7 +64,7 @@ abstract class AbstractVersionedDecoder {
     * Handle a protocol specific key reading.
     */
    def customReadKey(header: HotRodHeader, buffer: ChannelBuffer, cache: AdvancedCache[Array[Byte], Array[Byte]],
-           queryFacades: Seq[QueryFacade]): AnyRef
+           server: HotRodServer): AnyRef
 
    /**
     * Handle a protocol specific value reading.
@@ -25,4 +25,17 @@ abstract class AbstractVersionedEncoder {
     */
    def writeResponse(r: Response, buf: ChannelBuffer, cacheManager: EmbeddedCacheManager, server: HotRodServer)
 
+   /**
+    * Write operation response using the given channel buffer, except for a
+    * trailing value of at least threshold bytes. Such a value's length is
+    * written, but the value itself is returned so that the caller can send it
+    * as is instead of copying it into the buffer. Returns null when the whole
+    * response has been written.
+    */
+   def writeResponseWrappingValue(r: Response, buf: ChannelBuffer,
+         cacheManager: EmbeddedCacheManager, server: HotRodServer, threshold: Int): Array[Byte] = {
+      writeResponse(r, buf, cacheManager, server)
+      null
+   }
+
 }
@@ -17,6 +17,7 @@ import org.infinispan.server.core.transport.ExtendedChannelBuffer._
 import transport.NettyTransport
 import org.infinispan.container.entries.{CacheEntry, InternalCacheEntry}
 import org.infinispan.container.versioning.NumericVersion
+import java.util.BitSet
 
 /**
  * HotRod protocol decoder specific for specification version 1.0.
@@ -29,6 +30,7 @@ object Decoder10 extends AbstractVersionedDecoder with ServerConstants with Log
    import ProtocolFlag._
    type SuitableHeader = HotRodHeader
    private val isTrace = isTraceEnabled
+   private val MaxInitialCapacity = 1024
 
    override def readHeader(buffer: ChannelBuffer, version: Byte, messageId: Long, header: HotRodHeader): Boolean = {
       val streamOp = buffer.readUnsignedByte
@@ -49,9 +51,18 @@ object Decoder10 extends AbstractVersionedDecoder with ServerConstants with Log
          case 0x1B => (GetWithMetadataRequest, false)
          case 0x1D => (BulkGetKeysRequest, false)
          case 0x1F => (QueryRequest, false)
+         case 0x21 => (GetAllRequest, false)
+         case 0x23 => (PutAllRequest, false)
+         case 0x25 => (IterationStartRequest, false)
+         case 0x27 => (IterationNextRequest, false)
+         case 0x29 => (IterationEndRequest, false)
+         case 0x2B => (AddInvalidationListenerRequest, true)
          case _ => throw new HotRodUnknownOperationException(
                "Unknown operation: " + streamOp, version, messageId)
       }
+      if (version < Constants.VERSION_13 && isVersion13Operation(op))
+         throw new HotRodUnknownOperationException(
+               "Operation " + op + " requires protocol version 1.3 or later", version, messageId)
       if (isTrace) trace("Operation code: %d has been matched to %s", streamOp, op)
 
       val cacheName = readString(buffer)
@@ -73,6 +84,13 @@ object Decoder10 extends AbstractVersionedDecoder with ServerConstants with Log
       endOfOp
    }
 
+   private def isVersion13Operation(op: Enumeration#Value): Boolean = op match {
+      case GetAllRequest | PutAllRequest => true
+      case IterationStartRequest | IterationNextRequest | IterationEndRequest => true
+      case AddInvalidationListenerRequest => true
+      case _ => false
+   }
+
    override def readKey(h: HotRodHeader, buffer: ChannelBuffer): (Array[Byte], Boolean) = {
       val k = readKey(buffer)
       h.op match {
@@ -103,6 +121,28 @@ object Decoder10 extends AbstractVersionedDecoder with ServerConstants with Log
       }
    }
 
+   override def readEntries(header: HotRodHeader, buffer: ChannelBuffer): (RequestParameters, java.util.Map[Array[Byte], Array[Byte]]) = {
+      val lifespan = readLifespanOrMaxIdle(buffer, hasFlag(header, ProtocolFlag.DefaultLifespan))
+      val maxIdle = readLifespanOrMaxIdle(buffer, hasFlag(header, ProtocolFlag.DefaultMaxIdle))
+      val count = readCount(header, buffer)
+      val entries = new java.util.HashMap[Array[Byte], Array[Byte]](math.min(count, MaxInitialCapacity))
+      for (i <- 0 until count)
+         entries.put(readKey(buffer), readRangedBytes(buffer))
+      (new RequestParameters(-1, lifespan, maxIdle, -1), entries)
+   }
+
+   /**
+    * Reads the number of keys or entries of a bulk request. The count comes from the client, so it is only
+    * used to size the collections up to a limit: a corrupt count must not make the server allocate memory
+    * for entries that were never sent.
+    */
+   private def readCount(h: HotRodHeader, buffer: ChannelBuffer): Int = {
+      val count = readUnsignedInt(buffer)
+      if (count < 0)
+         throw new RequestParsingException("Invalid number of keys: " + count, h.version, h.messageId)
+      count
+   }
+
    private def hasFlag(h: HotRodHeader, f: ProtocolFlag): Boolean = {
       (h.flag & f.id) == f.id
    }
@@ -169,7 +209,7 @@ object Decoder10 extends AbstractVersionedDecoder with ServerConstants with Log
    }
 
    override def customReadKey(h: HotRodHeader, buffer: ChannelBuffer,
-           cache: AdvancedCache[Array[Byte], Array[Byte]], queryFacades: Seq[QueryFacade]): AnyRef = {
+           cache: AdvancedCache[Array[Byte], Array[Byte]], server: HotRodServer): AnyRef = {
       h.op match {
          case RemoveIfUnmodifiedRequest => {
             val k = readKey(buffer)
@@ -217,15 +257,55 @@ object Decoder10 extends AbstractVersionedDecoder with ServerConstants with Log
             val k = readKey(buffer)
             getKeyMetadata(h, k, cache)
          }
+         case GetAllRequest => {
+            val count = readCount(h, buffer)
+            if (isTrace) trace("About to create get all response, count = %d", count)
+            // Read all the keys before going to the cache, the request might be replayed otherwise
+            val keys = new java.util.HashSet[Array[Byte]](math.min(count, MaxInitialCapacity))
+            for (i <- 0 until count)
+               keys.add(readKey(buffer))
+            new GetAllResponse(h.version, h.messageId, h.cacheName, h.clientIntel,
+                               GetAllResponse, Success, h.topologyId, cache.getAll(keys))
+         }
+         case IterationStartRequest => {
+            val segments = readSegments(h, buffer, server.getIterationManager.getNumSegments(cache))
+            val batchSize = readUnsignedInt(buffer)
+            val withValues = buffer.readByte == 1
+            val state = server.getIterationManager.start(cache,
+               if (segments.isEmpty) null else segments, batchSize, withValues)
+            new IterationStartResponse(h.version, h.messageId, h.cacheName, h.clientIntel,
+               h.topologyId, state.getId, state.getNumSegments, state.getSegments)
+         }
+         case IterationEndRequest => {
+            val iterationId = readString(buffer)
+            val status = if (server.getIterationManager.end(iterationId)) Success else KeyDoesNotExist
+            new Response(h.version, h.messageId, h.cacheName, h.clientIntel,
+               IterationEndResponse, status, h.topologyId)
+         }
          case QueryRequest => {
             val query = readRangedBytes(buffer)
-            val result = queryFacades.head.query(cache, query)
+            val result = server.getQueryFacades.head.query(cache, query)
             new QueryResponse(h.version, h.messageId, h.cacheName, h.clientIntel,
                h.topologyId, result)
          }
       }
    }
 
+   private def readSegments(h: HotRodHeader, buffer: ChannelBuffer, numSegments: Int): BitSet = {
+      val count = readUnsignedInt(buffer)
+      if (count < 0 || count > numSegments)
+         throw new RequestParsingException("Invalid number of segments: " + count, h.version, h.messageId)
+      val segments = new BitSet(numSegments)
+      for (i <- 0 until count) {
+         val segment = readUnsignedInt(buffer)
+         if (segment < 0 || segment >= numSegments)
+            throw new RequestParsingException("Invalid segment " + segment + ", the cache has " + numSegments
+                  + " segments", h.version, h.messageId)
+         segments.set(segment)
+      }
+      segments
+   }
+
    def getKeyMetadata(h: HotRodHeader, k: Array[Byte],
            cache: AdvancedCache[Array[Byte], Array[Byte]]): GetWithMetadataResponse = {
       val ce = cache.getAdvancedCache.getCacheEntry(k)
@@ -305,6 +385,12 @@ object Decoder10 extends AbstractVersionedDecoder with ServerConstants with Log
          case BulkGetRequest => BulkGetResponse
          case GetWithMetadataRequest => GetWithMetadataResponse
          case BulkGetKeysRequest => BulkGetKeysResponse
+         case GetAllRequest => GetAllResponse
+         case PutAllRequest => PutAllResponse
+         case IterationStartRequest => IterationStartResponse
+         case IterationNextRequest => IterationNextResponse
+         case IterationEndRequest => IterationEndResponse
+         case AddInvalidationListenerRequest => AddInvalidationListenerResponse
       }
    }
 
@@ -328,6 +414,13 @@ object OperationResponse extends Enumeration {
    val GetWithMetadataResponse = Value(0x1C)
    val BulkGetKeysResponse = Value(0x1E)
    val QueryResponse = Value(0x20)
+   val GetAllResponse = Value(0x22)
+   val PutAllResponse = Value(0x24)
+   val IterationStartResponse = Value(0x26)
+   val IterationNextResponse = Value(0x28)
+   val IterationEndResponse = Value(0x2A)
+   val AddInvalidationListenerResponse = Value(0x2C)
+   val InvalidationEvent = Value(0x2E)
    val ErrorResponse = Value(0x50)
 }
 
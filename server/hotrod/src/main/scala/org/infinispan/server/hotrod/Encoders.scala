@@ -32,7 +32,7 @@ object Encoders {
    object Encoder11 extends AbstractTopologyAwareEncoder1x with Log
 
    /**
-    * Encoder for version 1.2 of the Hot Rod protocol.
+    * Encoder for versions 1.2 and 1.3 of the Hot Rod protocol, 1.3 only adds operations.
     */
    object Encoder12 extends AbstractTopologyAwareEncoder1x with Log
 }
@@ -13,6 +13,7 @@ import org.jboss.netty.channel.Channel
 import java.lang.StringBuilder
 import org.infinispan.container.entries.CacheEntry
 import org.infinispan.server.hotrod.configuration.HotRodServerConfiguration
+import org.infinispan.server.hotrod.event.InvalidationListener
 
 /**
  * Top level Hot Rod decoder that after figuring out the version, delegates the rest of the reading to the
@@ -131,11 +132,69 @@ class HotRodDecoder(cacheManager: EmbeddedCacheManager, transport: NettyTranspor
    override def createMultiGetResponse(pairs: Map[Array[Byte], CacheEntry]): AnyRef =
       null // Unsupported
 
-   override protected def customDecodeHeader(ch: Channel, buffer: ChannelBuffer): AnyRef =
-      writeResponse(ch, header.decoder.customReadHeader(header, buffer, cache))
+   override protected def customDecodeHeader(ch: Channel, buffer: ChannelBuffer): AnyRef = {
+      header.op match {
+         case HotRodOperation.AddInvalidationListenerRequest => addInvalidationListener(ch)
+         case _ => writeResponse(ch, header.decoder.customReadHeader(header, buffer, cache))
+      }
+   }
+
+   private def addInvalidationListener(ch: Channel): AnyRef = {
+      // Register before responding so that no modification is missed once the client gets the response. Events may
+      // then be written before the response, which the client skips. The channel only carries events from now on,
+      // so topology updates are never sent over it.
+      InvalidationListener.register(cache, ch, header.version, header.cacheName)
+      writeResponse(ch, new Response(header.version, header.messageId, header.cacheName, Constants.INTELLIGENCE_BASIC,
+                   OperationResponse.AddInvalidationListenerResponse, Success, header.topologyId))
+   }
+
+   override protected def customDecodeKey(ch: Channel, buffer: ChannelBuffer): AnyRef = {
+      header.op match {
+         case HotRodOperation.PutAllRequest => writeResponse(ch, putAll(buffer))
+         case HotRodOperation.IterationNextRequest => iterationNext(ch, buffer)
+         case _ => writeResponse(ch, header.decoder.customReadKey(header, buffer, cache, server))
+      }
+   }
 
-   override protected def customDecodeKey(ch: Channel, buffer: ChannelBuffer): AnyRef =
-      writeResponse(ch, header.decoder.customReadKey(header, buffer, cache, server.getQueryFacades))
+   private def iterationNext(ch: Channel, buffer: ChannelBuffer): AnyRef = {
+      val h = header
+      val iterationId = readString(buffer)
+      val state = server.getIterationManager.get(iterationId)
+      if (state == null) {
+         writeResponse(ch, new IterationNextResponse(h.version, h.messageId, h.cacheName, h.clientIntel,
+               KeyDoesNotExist, h.topologyId, false, null))
+      } else {
+         // Reading the batch may block on the cache stores, so it must not hold up the worker thread, which serves
+         // other channels too. The response is written once the batch is read.
+         server.getIterationManager.execute(new Runnable {
+            override def run() {
+               val response = try {
+                  new IterationNextResponse(h.version, h.messageId, h.cacheName, h.clientIntel,
+                        Success, h.topologyId, state.isWithValues, state.next())
+               } catch {
+                  case t: Throwable => {
+                     logExceptionReported(t)
+                     h.decoder.createErrorResponse(h, t)
+                  }
+               }
+               ch.write(response)
+            }
+         })
+         writeResponse(ch, null)
+      }
+   }
+
+   private def putAll(buffer: ChannelBuffer): AnyRef = {
+      // All entries are read before modifying the cache, in case the request needs replaying
+      val (parameters, entries) = header.decoder.readEntries(header, buffer)
+      params = parameters
+      if (isTrace) trace("About to put %d entries", entries.size)
+      // All entries share the metadata, and hence the version, generated for this request
+      getOptimizedCache(cache).putAll(entries, buildMetadata())
+      // No previous values are returned, even if forced
+      new Response(header.version, header.messageId, header.cacheName, header.clientIntel,
+                   OperationResponse.PutAllResponse, Success, header.topologyId)
+   }
 
    override protected def customDecodeValue(ch: Channel, buffer: ChannelBuffer): AnyRef =
       writeResponse(ch, header.decoder.customReadValue(header, buffer, cache))
@@ -9,6 +9,7 @@ import org.jboss.netty.channel.Channel
 import org.infinispan.server.core.transport.ExtendedChannelBuffer._
 import org.infinispan.remoting.transport.Address
 import org.infinispan.commons.util.Util
+import org.jboss.netty.buffer.ChannelBuffers
 
 /**
  * Hot Rod specific encoder.
@@ -23,6 +24,7 @@ class HotRodEncoder(cacheManager: EmbeddedCacheManager, server: HotRodServer)
    private lazy val addressCache: Cache[Address, ServerAddress] =
       if (isClustered) cacheManager.getCache(server.getConfiguration.topologyCacheName) else null
    private val isTrace = isTraceEnabled
+   private val zeroCopyThreshold = server.getConfiguration.zeroCopyThreshold
 
    override def encode(ctx: ChannelHandlerContext, ch: Channel, msg: AnyRef): AnyRef = {
       trace("Encode msg %s", msg)
@@ -33,23 +35,31 @@ class HotRodEncoder(cacheManager: EmbeddedCacheManager, server: HotRodServer)
       val encoder = r.version match {
          case VERSION_10 => Encoders.Encoder10
          case VERSION_11 => Encoders.Encoder11
-         case VERSION_12 => Encoders.Encoder12
+         case VERSION_12 | VERSION_13 => Encoders.Encoder12
          case 0 => Encoders.Encoder12
       }
 
       r.version match {
-         case VERSION_10 | VERSION_11 | VERSION_12 => encoder.writeHeader(r, buf, addressCache, server)
+         case VERSION_10 | VERSION_11 | VERSION_12 | VERSION_13 => encoder.writeHeader(r, buf, addressCache, server)
          // if error before reading version, don't send any topology changes
          // cos the encoding might vary from one version to the other
          case 0 => encoder.writeHeader(r, buf, null, null)
       }
 
-      encoder.writeResponse(r, buf, cacheManager, server)
+      val value =
+         if (zeroCopyThreshold < 0) {
+            encoder.writeResponse(r, buf, cacheManager, server)
+            null
+         } else {
+            encoder.writeResponseWrappingValue(r, buf, cacheManager, server, zeroCopyThreshold)
+         }
+      // Large values are sent straight from the cached array rather than copied into the dynamic buffer
+      val out = if (value == null) buf else ChannelBuffers.wrappedBuffer(buf, ChannelBuffers.wrappedBuffer(value))
       if (isTrace)
          trace("Write buffer contents %s to channel %s",
-            Util.hexDump(buf.toByteBuffer), ctx.getChannel)
+            Util.hexDump(out.toByteBuffer), ctx.getChannel)
 
-      buf
+      out
    }
 
 }
@@ -15,6 +15,7 @@ import org.infinispan.upgrade.RollingUpgradeManager
 import org.infinispan.server.hotrod.configuration.HotRodServerConfiguration
 import java.util.ServiceLoader
 import org.infinispan.util.concurrent.IsolationLevel
+import org.infinispan.server.hotrod.iteration.IterationManager
 
 /**
  * Hot Rod server, in charge of defining its encoder/decoder and, if clustered, update the topology information
@@ -37,11 +38,14 @@ class HotRodServer extends AbstractProtocolServer("HotRod") with Log {
    private val knownCaches : java.util.Map[String, Cache[Array[Byte], Array[Byte]]] =
          CollectionFactory.makeConcurrentMap(4, 0.9f, 16)
    private var queryFacades: Seq[QueryFacade] = _
+   private val iterationManager = new IterationManager
 
    def getAddress: ServerAddress = address
 
    def getQueryFacades: Seq[QueryFacade] = queryFacades
 
+   def getIterationManager: IterationManager = iterationManager
+
    override def getEncoder = new HotRodEncoder(getCacheManager, this)
 
    override def getDecoder : HotRodDecoder =
@@ -180,6 +184,11 @@ class HotRodServer extends AbstractProtocolServer("HotRod") with Log {
 
    private[hotrod] def getAddressCache = addressCache
 
+   override def stop {
+      iterationManager.stop()
+      super.stop
+   }
+
 }
 
 object HotRodServer {
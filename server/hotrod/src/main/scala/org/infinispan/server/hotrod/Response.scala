@@ -5,6 +5,8 @@ import OperationResponse._
 import org.infinispan.commons.util.Util
 import org.infinispan.remoting.transport.Address
 import java.lang.StringBuilder
+import java.util.BitSet
+import org.infinispan.server.hotrod.iteration.IterationState
 
 /**
  * A basic responses. The rest of this file contains other response types.
@@ -168,6 +170,61 @@ class QueryResponse(override val version: Byte, override val messageId: Long, ov
    }
 }
 
+class GetAllResponse(override val version: Byte, override val messageId: Long, override val cacheName: String,
+                     override val clientIntel: Short, override val operation: OperationResponse,
+                     override val status: OperationStatus, override val topologyId: Int,
+                     val entries: java.util.Map[Array[Byte], Array[Byte]])
+      extends Response(version, messageId, cacheName, clientIntel, operation, status, topologyId) {
+   override def toString = {
+      new StringBuilder().append("GetAllResponse").append("{")
+         .append("version=").append(version)
+         .append(", messageId=").append(messageId)
+         .append(", operation=").append(operation)
+         .append(", status=").append(status)
+         .append(", entries=").append(entries.size)
+         .append("}").toString
+   }
+}
+
+class IterationStartResponse(override val version: Byte, override val messageId: Long, override val cacheName: String,
+                             override val clientIntel: Short, override val topologyId: Int,
+                             val iterationId: String, val numSegments: Int, val segments: BitSet)
+      extends Response(version, messageId, cacheName, clientIntel, IterationStartResponse, Success, topologyId) {
+   override def toString = {
+      new StringBuilder().append("IterationStartResponse").append("{")
+         .append("version=").append(version)
+         .append(", messageId=").append(messageId)
+         .append(", iterationId=").append(iterationId)
+         .append(", segments=").append(segments)
+         .append("}").toString
+   }
+}
+
+class IterationNextResponse(override val version: Byte, override val messageId: Long, override val cacheName: String,
+                            override val clientIntel: Short, override val status: OperationStatus,
+                            override val topologyId: Int, val withValues: Boolean, val batch: IterationState.Batch)
+      extends Response(version, messageId, cacheName, clientIntel, IterationNextResponse, status, topologyId) {
+   override def toString = {
+      new StringBuilder().append("IterationNextResponse").append("{")
+         .append("version=").append(version)
+         .append(", messageId=").append(messageId)
+         .append(", status=").append(status)
+         .append(", entries=").append(if (batch == null) 0 else batch.getEntries.size)
+         .append("}").toString
+   }
+}
+
+class InvalidationEvent(override val version: Byte, override val cacheName: String, val key: Array[Byte])
+      extends Response(version, 0, cacheName, Constants.INTELLIGENCE_BASIC, InvalidationEvent, Success, 0) {
+   override def toString = {
+      new StringBuilder().append("InvalidationEvent").append("{")
+         .append("version=").append(version)
+         .append(", cacheName=").append(cacheName)
+         .append(", key=").append(Util.printArray(key, true))
+         .append("}").toString
+   }
+}
+
 abstract class AbstractTopologyResponse(val topologyId: Int, val serverEndpointsMap : Map[Address, ServerAddress])
 
 abstract class AbstractHashDistAwareResponse(override val topologyId: Int,
@@ -20,6 +20,7 @@ public class HotRodServerConfigurationBuilder extends ProtocolServerConfiguratio
    private long topologyReplTimeout = 10000L;
    private boolean topologyAwaitInitialTransfer = true;
    private boolean topologyStateTransfer = true;
+   private int zeroCopyThreshold = 8192;
 
    public HotRodServerConfigurationBuilder() {
       super(11222);
@@ -79,9 +80,19 @@ public HotRodServerConfigurationBuilder topologyStateTransfer(boolean topologySt
       return this;
    }
 
+   /**
+    * Configures the size, in bytes, from which values are written to get responses by wrapping them rather than copying
+    * them into the response buffer. Smaller values are cheaper to copy than to send as a separate buffer. A negative value
+    * disables wrapping. Defaults to 8192.
+    */
+   public HotRodServerConfigurationBuilder zeroCopyThreshold(int zeroCopyThreshold) {
+      this.zeroCopyThreshold = zeroCopyThreshold;
+      return this;
+   }
+
    @Override
    public HotRodServerConfiguration create() {
-      return new HotRodServerConfiguration(defaultCacheName, proxyHost, proxyPort, topologyLockTimeout, topologyReplTimeout, topologyAwaitInitialTransfer, topologyStateTransfer, name, host, port, idleTimeout,
+      return new HotRodServerConfiguration(defaultCacheName, proxyHost, proxyPort, topologyLockTimeout, topologyReplTimeout, topologyAwaitInitialTransfer, topologyStateTransfer, zeroCopyThreshold, name, host, port, idleTimeout,
             recvBufSize, sendBufSize, ssl.create(), tcpNoDelay, workerThreads);
    }
 
@@ -94,6 +105,7 @@ public HotRodServerConfigurationBuilder read(HotRodServerConfiguration template)
       this.topologyReplTimeout = template.topologyReplTimeout();
       this.topologyAwaitInitialTransfer = template.topologyAwaitInitialTransfer();
       this.topologyStateTransfer = template.topologyStateTransfer();
+      this.zeroCopyThreshold = template.zeroCopyThreshold();
       return this;
    }
 
@@ -0,0 +1,61 @@
+package org.infinispan.server.hotrod.event
+
+import org.infinispan.Cache
+import org.infinispan.notifications.Listener
+import org.infinispan.notifications.cachelistener.annotation.{CacheEntryRemoved, CacheEntryModified}
+import org.infinispan.notifications.cachelistener.event.CacheEntryEvent
+import org.infinispan.server.hotrod.InvalidationEvent
+import org.infinispan.server.hotrod.logging.Log
+import org.jboss.netty.channel.{ChannelFuture, ChannelFutureListener, Channel}
+
+/**
+ * Listener that pushes an invalidation event to a Hot Rod client for every key modified or removed in a cache, so
+ * that the client can evict the key from its near cache.
+ *
+ * Events are written from the thread that modified the entry. If the client does not keep up with the events, the
+ * channel is closed instead of queueing them: the client then clears its near cache and registers again.
+ *
+ * @since 7.0
+ */
+@Listener
+class InvalidationListener(ch: Channel, version: Byte, cacheName: String) extends Log {
+
+   @CacheEntryModified
+   def entryModified(e: CacheEntryEvent[Array[Byte], _]) {
+      invalidate(e)
+   }
+
+   @CacheEntryRemoved
+   def entryRemoved(e: CacheEntryEvent[Array[Byte], _]) {
+      invalidate(e)
+   }
+
+   private def invalidate(e: CacheEntryEvent[Array[Byte], _]) {
+      if (!e.isPre && ch.isOpen) {
+         if (ch.isWritable) {
+            ch.write(new InvalidationEvent(version, cacheName, e.getKey))
+         } else {
+            trace("Client on %s is not reading invalidation events, closing channel", ch.getRemoteAddress)
+            ch.close()
+         }
+      }
+   }
+
+}
+
+object InvalidationListener {
+
+   /**
+    * Registers a listener pushing invalidation events for the cache over the channel, until the channel is closed.
+    */
+   def register(cache: Cache[Array[Byte], Array[Byte]], ch: Channel, version: Byte, cacheName: String) {
+      val listener = new InvalidationListener(ch, version, cacheName)
+      cache.addListener(listener)
+      ch.getCloseFuture.addListener(new ChannelFutureListener {
+         override def operationComplete(future: ChannelFuture) {
+            cache.removeListener(listener)
+         }
+      })
+   }
+
+}
@@ -0,0 +1,166 @@
+package org.infinispan.server.hotrod.iteration;
+
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.infinispan.AdvancedCache;
+import org.infinispan.distribution.ch.ConsistentHash;
+import org.infinispan.iteration.EntryRetriever;
+import org.infinispan.remoting.transport.Address;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+/**
+ * Keeps track of the iterations opened by the clients of a Hot Rod server.
+ * <p/>
+ * In a distributed cache a server only iterates the requested segments which it owns, and the client asks the other
+ * servers for the remaining segments. In other cache modes all the entries are in a single segment.
+ * <p/>
+ * A client which goes away without ending its iterations leaves them behind, so iterations which have not been
+ * accessed for {@link #IDLE_TIMEOUT} milliseconds are discarded whenever a new one is started.
+ * <p/>
+ * Reading the next batch of an iteration may block on the cache stores, so it is done on the manager's own threads
+ * (see {@link #execute(Runnable)}) rather than on the transport's worker threads.
+ *
+ * @since 7.0
+ */
+public class IterationManager {
+
+   private static final Log log = LogFactory.getLog(IterationManager.class);
+   private static final boolean trace = log.isTraceEnabled();
+
+   public static final long IDLE_TIMEOUT = TimeUnit.MINUTES.toMillis(5);
+
+   private final ConcurrentMap<String, IterationState> iterations = new ConcurrentHashMap<String, IterationState>();
+   private final ExecutorService executor = Executors.newCachedThreadPool(new ThreadFactory() {
+      private final AtomicInteger count = new AtomicInteger();
+
+      @Override
+      public Thread newThread(Runnable r) {
+         Thread thread = new Thread(r, "HotRodIteration-" + count.incrementAndGet());
+         thread.setDaemon(true);
+         return thread;
+      }
+   });
+
+   /**
+    * Starts an iteration over the given segments, or over all the segments if <tt>segments</tt> is <tt>null</tt>. If
+    * this server doesn't own any of the segments, the iteration is not registered and its id is <tt>null</tt>.
+    */
+   public IterationState start(AdvancedCache<byte[], byte[]> cache, BitSet segments, int batchSize, boolean withValues) {
+      if (batchSize <= 0) {
+         throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+      }
+      removeIdle();
+      ConsistentHash ch = null;
+      int numSegments = 1;
+      BitSet owned = new BitSet(1);
+      owned.set(0);
+      if (cache.getCacheConfiguration().clustering().cacheMode().isDistributed()) {
+         ch = cache.getDistributionManager().getReadConsistentHash();
+         numSegments = ch.getNumSegments();
+         owned = new BitSet(numSegments);
+         for (int segment : ch.getSegmentsForOwner(cache.getRpcManager().getAddress())) {
+            owned.set(segment);
+         }
+      }
+      if (segments != null) {
+         owned.and(segments);
+      }
+      if (owned.isEmpty()) {
+         return new IterationState(null, cache.getName(), null, null, null, ch, numSegments, owned, batchSize,
+                                   withValues);
+      }
+      Set<Integer> ownedSet = new HashSet<Integer>();
+      for (int segment = owned.nextSetBit(0); segment >= 0; segment = owned.nextSetBit(segment + 1)) {
+         ownedSet.add(segment);
+      }
+      EntryRetriever retriever = cache.getComponentRegistry().getComponent(EntryRetriever.class);
+      UUID iterationId = UUID.randomUUID();
+      Address origin = cache.getRpcManager() != null ? cache.getRpcManager().getAddress() : null;
+      retriever.startLocalIteration(iterationId, ch, ownedSet, null, null, batchSize);
+      String id = iterationId.toString();
+      IterationState state = new IterationState(id, cache.getName(), retriever, iterationId, origin, ch, numSegments,
+                                                owned, batchSize, withValues);
+      iterations.put(id, state);
+      if (trace) {
+         log.tracef("Started iteration %s", state);
+      }
+      return state;
+   }
+
+   /**
+    * Returns the number of segments the clients iterate over: the segments of the consistent hash in a distributed
+    * cache, a single segment otherwise.
+    */
+   public int getNumSegments(AdvancedCache<byte[], byte[]> cache) {
+      if (cache.getCacheConfiguration().clustering().cacheMode().isDistributed()) {
+         return cache.getDistributionManager().getReadConsistentHash().getNumSegments();
+      }
+      return 1;
+   }
+
+   /**
+    * Returns the iteration with the given id, or <tt>null</tt> if it has ended or is unknown to this server.
+    */
+   public IterationState get(String id) {
+      return iterations.get(id);
+   }
+
+   /**
+    * Ends the iteration with the given id, returning whether it was known to this server.
+    */
+   public boolean end(String id) {
+      IterationState state = iterations.remove(id);
+      if (state != null) {
+         state.close();
+      }
+      if (trace) {
+         log.tracef("Ended iteration %s: %s", id, state);
+      }
+      return state != null;
+   }
+
+   /**
+    * Runs a task which may block, such as reading the next batch of an iteration.
+    */
+   public void execute(Runnable task) {
+      executor.execute(task);
+   }
+
+   public int getIterationCount() {
+      return iterations.size();
+   }
+
+   public void stop() {
+      executor.shutdownNow();
+      for (IterationState state : iterations.values()) {
+         state.close();
+      }
+      iterations.clear();
+   }
+
+   private void removeIdle() {
+      long idleSince = System.currentTimeMillis() - IDLE_TIMEOUT;
+      for (Iterator<IterationState> it = iterations.values().iterator(); it.hasNext(); ) {
+         IterationState state = it.next();
+         if (state.getLastAccessed() < idleSince) {
+            if (trace) {
+               log.tracef("Discarding idle iteration %s", state);
+            }
+            it.remove();
+            state.close();
+         }
+      }
+   }
+}
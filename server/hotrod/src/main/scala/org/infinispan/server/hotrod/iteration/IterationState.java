@@ -0,0 +1,148 @@
+package org.infinispan.server.hotrod.iteration;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.infinispan.distribution.ch.ConsistentHash;
+import org.infinispan.iteration.EntryBatch;
+import org.infinispan.iteration.EntryRetriever;
+import org.infinispan.remoting.transport.Address;
+
+/**
+ * Server side state of an iteration over the entries of a cache, which the client retrieves in batches.
+ * <p/>
+ * The entries are iterated by the cache's {@link EntryRetriever}, as a local iteration over the segments owned by this
+ * server: the segments are iterated one after the other, so that the client can keep track of the segments it has
+ * received completely and resume the iteration of the others from another server after a failover, and every batch
+ * holds the entries of a single segment. Entries are neither fetched from other nodes nor loaded into memory from the
+ * stores.
+ *
+ * @since 7.0
+ */
+public class IterationState {
+
+   private final String id;
+   private final String cacheName;
+   private final EntryRetriever retriever;
+   private final UUID iterationId;
+   private final Address origin;
+   private final ConsistentHash ch;
+   private final int numSegments;
+   private final BitSet segments;
+   private final int batchSize;
+   private final boolean withValues;
+
+   private volatile long lastAccessed = System.currentTimeMillis();
+
+   IterationState(String id, String cacheName, EntryRetriever retriever, UUID iterationId, Address origin,
+                  ConsistentHash ch, int numSegments, BitSet segments, int batchSize, boolean withValues) {
+      this.id = id;
+      this.cacheName = cacheName;
+      this.retriever = retriever;
+      this.iterationId = iterationId;
+      this.origin = origin;
+      this.ch = ch;
+      this.numSegments = numSegments;
+      this.segments = segments;
+      this.batchSize = batchSize;
+      this.withValues = withValues;
+   }
+
+   public String getId() {
+      return id;
+   }
+
+   public int getNumSegments() {
+      return numSegments;
+   }
+
+   /**
+    * The segments iterated by this server, i.e. the requested segments which it owns.
+    */
+   public BitSet getSegments() {
+      return segments;
+   }
+
+   public boolean isWithValues() {
+      return withValues;
+   }
+
+   long getLastAccessed() {
+      return lastAccessed;
+   }
+
+   /**
+    * Returns the next batch of entries, all of them from the same segment. A batch without entries means that the
+    * iteration is complete. It may block while the entries are read from the cache stores.
+    */
+   public Batch next() {
+      lastAccessed = System.currentTimeMillis();
+      EntryBatch batch = retriever.nextBatch(origin, iterationId);
+      BitSet finished = new BitSet(numSegments);
+      for (Integer segment : batch.getCompletedSegments()) {
+         finished.set(segment);
+      }
+      List<Map.Entry<byte[], byte[]>> entries = new ArrayList<Map.Entry<byte[], byte[]>>(batch.getEntries().size());
+      for (Map.Entry<Object, Object> entry : batch.getEntries().entrySet()) {
+         entries.add(new AbstractMap.SimpleImmutableEntry<byte[], byte[]>(
+               (byte[]) entry.getKey(), withValues ? (byte[]) entry.getValue() : null));
+      }
+      int segment = entries.isEmpty() || ch == null ? 0 : ch.getSegment(entries.get(0).getKey());
+      return new Batch(finished, segment, entries);
+   }
+
+   /**
+    * Stops the iteration. Requesting another batch afterwards fails.
+    */
+   public void close() {
+      retriever.cancelIteration(origin, iterationId);
+   }
+
+   @Override
+   public String toString() {
+      return "IterationState{" +
+            "id='" + id + '\'' +
+            ", cache=" + cacheName +
+            ", segments=" + segments +
+            ", batchSize=" + batchSize +
+            ", withValues=" + withValues +
+            '}';
+   }
+
+   /**
+    * A batch of entries, with the segments which have been completely iterated once the batch is received.
+    */
+   public static class Batch {
+      private final BitSet finishedSegments;
+      private final int segment;
+      private final List<Map.Entry<byte[], byte[]>> entries;
+
+      Batch(BitSet finishedSegments, int segment, List<Map.Entry<byte[], byte[]>> entries) {
+         this.finishedSegments = finishedSegments;
+         this.segment = segment;
+         this.entries = entries;
+      }
+
+      public BitSet getFinishedSegments() {
+         return finishedSegments;
+      }
+
+      /**
+       * The segment which all the entries of the batch belong to.
+       */
+      public int getSegment() {
+         return segment;
+      }
+
+      /**
+       * The entries of the batch, with <tt>null</tt> values if the iteration is over keys only.
+       */
+      public List<Map.Entry<byte[], byte[]>> getEntries() {
+         return entries;
+      }
+   }
+}
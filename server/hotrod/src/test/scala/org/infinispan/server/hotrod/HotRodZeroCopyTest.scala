@@ -0,0 +1,56 @@
+package org.infinispan.server.hotrod
+
+import org.testng.annotations.Test
+import java.lang.reflect.Method
+import test.HotRodTestingUtil._
+import test.UniquePortThreadLocal
+import org.infinispan.manager.EmbeddedCacheManager
+import org.infinispan.server.hotrod.configuration.HotRodServerConfigurationBuilder
+import org.infinispan.server.hotrod.OperationStatus._
+
+/**
+ * Tests that values written to get responses by wrapping rather than copying
+ * them reach the client intact.
+ *
+ * @since 7.0
+ */
+@Test(groups = Array("functional"), testName = "server.hotrod.HotRodZeroCopyTest")
+class HotRodZeroCopyTest extends HotRodSingleNodeTest {
+
+   override protected def createStartHotRodServer(cacheManager: EmbeddedCacheManager) = {
+      val builder = new HotRodServerConfigurationBuilder
+      builder.zeroCopyThreshold(16)
+      startHotRodServer(cacheManager, UniquePortThreadLocal.get.intValue, builder)
+   }
+
+   def testGetLargeValue(m: Method) {
+      val value = largeValue(m)
+      assertStatus(client.put(k(m), 0, 0, value), Success)
+      assertSuccess(client.get(k(m), 0), value)
+   }
+
+   def testGetSmallValue(m: Method) {
+      val value = Array[Byte](1, 2, 3)
+      assertStatus(client.put(k(m), 0, 0, value), Success)
+      assertSuccess(client.get(k(m), 0), value)
+   }
+
+   def testGetWithVersionLargeValue(m: Method) {
+      val value = largeValue(m)
+      assertStatus(client.put(k(m), 0, 0, value), Success)
+      assertSuccess(client.getWithVersion(k(m), 0), value, 0)
+   }
+
+   def testGetWithMetadataLargeValue(m: Method) {
+      val value = largeValue(m)
+      assertStatus(client.put(k(m), 10, 5, value), Success)
+      assertSuccess(client.getWithMetadata(k(m), 0), value, 10, 5)
+   }
+
+   private def largeValue(m: Method): Array[Byte] = {
+      val value = new Array[Byte](64 * 1024)
+      for (i <- 0 until value.length) value(i) = (i + m.getName.length).toByte
+      value
+   }
+
+}
@@ -2,6 +2,7 @@
 
 import java.net.SocketAddress;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -13,6 +14,7 @@
 import org.infinispan.client.hotrod.impl.protocol.Codec;
 import org.infinispan.client.hotrod.impl.transport.Transport;
 import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+import org.infinispan.client.hotrod.impl.transport.tcp.PipelinedConnection;
 
 public final class MockTransportFactory implements TransportFactory {
 
@@ -82,4 +84,24 @@ public ConsistentHashFactory getConsistentHashFactory() {
    public SSLContext getSSLContext() {
       return null;
    }
+
+   @Override
+   public PipelinedConnection getPipelinedConnection(final byte[] key) {
+      return null;
+   }
+
+   @Override
+   public Map<SocketAddress, List<byte[]>> groupKeysByServer(final Collection<byte[]> keys) {
+      return null;
+   }
+
+   @Override
+   public Transport getAddressTransport(final SocketAddress server) {
+      return null;
+   }
+
+   @Override
+   public Collection<SocketAddress> getServers() {
+      return null;
+   }
 }